@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.benchmark;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Results of the benchmarks.
+ * <br>The benchmarks are not part of the test project: each one is a class
+ * with a main method, compiled with the core sources and the test sources
+ * on its source path and run on a plain JVM. A result is printed on the
+ * standard output and appended to the results file named by the
+ * "benchmark.results" system property, "benchmark-results.txt" by default.
+ */
+public class BenchmarkReport {
+	/**
+	 * System property giving the results file
+	 */
+	public static final String RESULTS_PROPERTY = "benchmark.results";
+
+	/**
+	 * Default results file
+	 */
+	public static final String DEFAULT_RESULTS_FILE = "benchmark-results.txt";
+
+	/**
+	 * Report a result
+	 *
+	 * @param name Benchmark name
+	 * @param result Result
+	 */
+	public static synchronized void report(String name, String result) {
+		String line = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())
+				+ " " + name + ": " + result;
+		System.out.println(line);
+		FileWriter writer = null;
+		try {
+			writer = new FileWriter(System.getProperty(RESULTS_PROPERTY, DEFAULT_RESULTS_FILE), true);
+			writer.write(line + "\n");
+		} catch (IOException e) {
+			System.err.println("Can't write the benchmark results: " + e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// Nothing to do
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keep the best time of each case over the rounds
+	 *
+	 * @param best Best times, updated
+	 * @param times Times of the round
+	 * @param round Round number, from 0
+	 */
+	public static void keepBest(long[] best, long[] times, int round) {
+		for (int i = 0; i < best.length; i++) {
+			if ((round == 0) || (times[i] < best[i])) {
+				best[i] = times[i];
+			}
+		}
+	}
+
+	/**
+	 * Check a condition on the benchmark results
+	 *
+	 * @param message Message if the condition is false
+	 * @param condition Condition
+	 * @throws IllegalStateException if the condition is false
+	 */
+	public static void check(String message, boolean condition) {
+		if (!condition) {
+			throw new IllegalStateException(message);
+		}
+	}
+}
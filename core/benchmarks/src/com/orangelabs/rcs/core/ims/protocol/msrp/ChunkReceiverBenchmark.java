@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.msrp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Hashtable;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+import com.orangelabs.rcs.platform.network.SocketConnection;
+
+/**
+ * Benchmark of the MSRP chunk decoding against the legacy decoder: the
+ * chunks of a file transfer, of the maximum chunk size with a Byte-Range
+ * header, and chat messages with a small body. The stream returns the data
+ * in pieces of a TCP segment size. The best time of each case over the
+ * rounds is reported.
+ */
+public class ChunkReceiverBenchmark {
+	private static final int NB_FILE_CHUNKS = 2000;
+
+	private static final int NB_CHAT_MESSAGES = 20000;
+
+	private static final int ROUNDS = 10;
+
+	private static final int SEGMENT_SIZE = 1460;
+
+	private static final int CHAT_SIZE = 100;
+
+	/**
+	 * Session counting the received data
+	 */
+	private static class CountingSession extends MsrpSession {
+		long received = 0;
+
+		public void receiveMsrpSend(String txId, Hashtable<String, String> headers, int flag,
+				byte[] data, int offset, int length, long totalSize) {
+			received += length;
+		}
+
+		public void checkMsrpTransactionInfo() {
+		}
+	}
+
+	/**
+	 * Stream returning its data in pieces of a segment size
+	 */
+	private static class SegmentStream extends InputStream {
+		private final byte[] data;
+
+		private int position = 0;
+
+		SegmentStream(byte[] data) {
+			this.data = data;
+		}
+
+		public int read() {
+			return position < data.length ? data[position++] & 0xff : -1;
+		}
+
+		public int read(byte[] buffer, int offset, int length) {
+			if (position == data.length) {
+				return -1;
+			}
+			int nb = Math.min(Math.min(length, SEGMENT_SIZE), data.length - position);
+			System.arraycopy(data, position, buffer, offset, nb);
+			position += nb;
+			return nb;
+		}
+	}
+
+	private static byte[] chunks(int count, int bodySize) throws Exception {
+		byte[] body = new byte[bodySize];
+		for (int i = 0; i < bodySize; i++) {
+			body[i] = (byte)('a' + i % 26);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long total = (long)count * bodySize;
+		for (int i = 0; i < count; i++) {
+			String txId = Integer.toHexString(0x10000000 + i);
+			long first = (long)i * bodySize + 1;
+			String headers = "MSRP " + txId + " SEND\r\n"
+					+ "To-Path: msrp://10.0.0.1:20000/abcdef;tcp\r\n"
+					+ "From-Path: msrp://10.0.0.2:20000/ghijkl;tcp\r\n"
+					+ "Message-ID: 1234567890\r\n"
+					+ "Byte-Range: " + first + "-" + (first + bodySize - 1) + "/" + total + "\r\n"
+					+ "Failure-Report: no\r\n"
+					+ "Content-Type: message/cpim\r\n\r\n";
+			out.write(headers.getBytes("ISO-8859-1"));
+			out.write(body);
+			out.write(("\r\n-------" + txId + (i == count - 1 ? '$' : '+') + "\r\n").getBytes("ISO-8859-1"));
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return the average time of a chunk in nanoseconds
+	 */
+	private static long run(byte[] data, int count, int bodySize, boolean legacy) throws Exception {
+		CountingSession session = new CountingSession();
+		MsrpConnection connection = new MsrpConnection(session) {
+			public SocketConnection getSocketConnection() {
+				return null;
+			}
+		};
+		InputStream stream = new SegmentStream(data);
+		long start = System.nanoTime();
+		if (legacy) {
+			new LegacyChunkReceiver(connection, stream).run();
+		} else {
+			new ChunkReceiver(connection, stream).run();
+		}
+		long time = (System.nanoTime() - start) / count;
+		BenchmarkReport.check("Data lost", session.received == (long)count * bodySize);
+		return time;
+	}
+
+	public static void main(String[] args) throws Exception {
+		byte[] file = chunks(NB_FILE_CHUNKS, MsrpConstants.CHUNK_MAX_SIZE);
+		byte[] chat = chunks(NB_CHAT_MESSAGES, CHAT_SIZE);
+		long[] best = new long[4];
+		for (int round = 0; round < ROUNDS; round++) {
+			long[] times = new long[] {
+				run(file, NB_FILE_CHUNKS, MsrpConstants.CHUNK_MAX_SIZE, true),
+				run(file, NB_FILE_CHUNKS, MsrpConstants.CHUNK_MAX_SIZE, false),
+				run(chat, NB_CHAT_MESSAGES, CHAT_SIZE, true),
+				run(chat, NB_CHAT_MESSAGES, CHAT_SIZE, false)
+			};
+			BenchmarkReport.keepBest(best, times, round);
+		}
+		BenchmarkReport.report("ChunkReceiver", "ns per chunk: " + NB_FILE_CHUNKS + " chunks of "
+				+ MsrpConstants.CHUNK_MAX_SIZE + " bytes legacy " + best[0] + ", byte level " + best[1]
+				+ "; " + NB_CHAT_MESSAGES + " messages of " + CHAT_SIZE + " bytes legacy " + best[2]
+				+ ", byte level " + best[3]);
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.msrp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Hashtable;
+
+/**
+ * Chunk decoder replaced by the byte level decoder of ChunkReceiver, kept to
+ * compare both: each line is read byte by byte into a StringBuffer and split
+ * into strings, each data chunk is read into a new array. The logs and traces
+ * are left out.
+ */
+class LegacyChunkReceiver {
+	private MsrpConnection connection;
+
+	private InputStream stream;
+
+	private int buffer_length = MsrpConstants.CHUNK_MAX_SIZE;
+
+	public LegacyChunkReceiver(MsrpConnection connection, InputStream stream) {
+		this.connection = connection;
+		this.stream = stream;
+	}
+
+	public void run() throws Exception {
+		while (true) {
+			StringBuffer line = readLine();
+			if (line.length() == 0) {
+				return;
+			}
+
+			String[] firstLineTags = line.toString().split(" ");
+			if ((firstLineTags.length < 3) || !firstLineTags[0].equals(MsrpConstants.MSRP_HEADER)) {
+				return;
+			}
+			String txId = firstLineTags[1];
+			String end = MsrpConstants.END_MSRP_MSG + txId;
+			int responseCode = -1;
+			String method = null;
+			try {
+				responseCode = Integer.parseInt(firstLineTags[2]);
+			} catch (NumberFormatException e) {
+				method = firstLineTags[2];
+			}
+
+			byte[] data = null;
+			Hashtable<String, String> headers = new Hashtable<String, String>();
+			char continuationFlag = '\0';
+			int totalSize = 0;
+			while (continuationFlag == '\0') {
+				line = readLine();
+				if (line.length() == 0) {
+					String byteRange = headers.get(MsrpConstants.HEADER_BYTE_RANGE);
+					int chunkSize = -1;
+					if (byteRange != null) {
+						chunkSize = MsrpUtils.getChunkSize(byteRange);
+						totalSize = MsrpUtils.getTotalSize(byteRange);
+						if (chunkSize == 0) {
+							this.buffer_length = totalSize;
+						}
+					}
+					if (chunkSize >= 0) {
+						byte[] buffer = readChunkedData(chunkSize, end);
+						if (chunkSize > 0) {
+							data = buffer;
+						} else {
+							data = new byte[buffer.length - 1];
+							System.arraycopy(buffer, 0, data, 0, buffer.length - 1);
+							continuationFlag = (char) buffer[buffer.length - 1];
+						}
+					} else {
+						StringBuffer buffer = new StringBuffer();
+						StringBuffer dataline;
+						boolean endchunk = false;
+						while ((!endchunk) && (buffer.length() < MsrpConstants.CHUNK_MAX_SIZE)) {
+							dataline = readLine();
+							if ((dataline.length() - 1 == end.length()) && (dataline.toString().startsWith(end))) {
+								continuationFlag = dataline.charAt(dataline.length() - 1);
+								endchunk = true;
+							} else {
+								if (buffer.length() > 0) {
+									buffer.append(MsrpConstants.NEW_LINE);
+								}
+								buffer.append(dataline);
+							}
+						}
+						data = buffer.toString().getBytes();
+						totalSize = data.length;
+					}
+				} else if (line.toString().startsWith(end)) {
+					continuationFlag = line.charAt(line.length() - 1);
+				} else {
+					int index = line.indexOf(":");
+					String headerName = line.substring(0, index).trim();
+					String headerValue = line.substring(index + 1).trim();
+					headers.put(headerName, headerValue);
+				}
+			}
+
+			if (responseCode != -1) {
+				connection.getSession().receiveMsrpResponse(responseCode, txId, headers);
+			} else if (method.equals(MsrpConstants.METHOD_SEND)) {
+				connection.getSession().receiveMsrpSend(txId, headers, continuationFlag, data, totalSize);
+			} else if (method.equals(MsrpConstants.METHOD_REPORT)) {
+				connection.getSession().receiveMsrpReport(txId, headers);
+			}
+			connection.getSession().checkMsrpTransactionInfo();
+		}
+	}
+
+	private StringBuffer readLine() throws IOException {
+		StringBuffer line = new StringBuffer();
+		int previous = -1;
+		int current = -1;
+		while((current = stream.read()) != -1) {
+			line.append((char)current);
+			if ((previous == MsrpConstants.CHAR_LF) && (current == MsrpConstants.CHAR_CR)) {
+				return line.delete(line.length()-2, line.length());
+			}
+			previous = current;
+		}
+		return line;
+	}
+
+	private byte[] readChunkedData(int chunkSize, String endTag) throws IOException {
+		byte[] result = null;
+		if (chunkSize != 0) {
+			result = new byte[chunkSize];
+			int nbRead = 0;
+			int nbData = -1;
+			while ((nbRead < chunkSize) && ((nbData = stream.read(result, nbRead, chunkSize - nbRead)) != -1)) {
+				nbRead += nbData;
+			}
+		} else {
+			int b;
+			int tagLength = endTag.length();
+			int[] tail = new int[tagLength];
+			byte[] buffer = new byte[this.buffer_length + tagLength + 2];
+			int[] match = new int[tagLength];
+			for (int i = 0; i < tagLength; i++) {
+				match[i] = (int) endTag.charAt(tagLength - i - 1);
+			}
+			for (int j = 0; (b = stream.read()) != -1; j++) {
+				System.arraycopy(tail, 0, tail, 1, tagLength - 1);
+				tail[0] = b;
+				if (b != match[0]) {
+					buffer[j] = (byte) b;
+				} else {
+					boolean tagFound = true;
+					for (int k = 1; k < tagLength - 1; k++) {
+						if (tail[k] != match[k]) {
+							buffer[j] = (byte) b;
+							tagFound = false;
+							break;
+						}
+					}
+					if (tagFound) {
+						result = new byte[j - tagLength];
+						System.arraycopy(buffer, 0, result, 0, j - tagLength - 1);
+						result[j - tagLength - 1] = (byte) stream.read();
+						break;
+					}
+				}
+			}
+		}
+		stream.read();
+		stream.read();
+		return result;
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.rtp.codec.video.h264;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+import com.orangelabs.rcs.core.ims.protocol.rtp.codec.Codec;
+import com.orangelabs.rcs.core.ims.protocol.rtp.codec.video.VideoCodec;
+import com.orangelabs.rcs.core.ims.protocol.rtp.util.Buffer;
+
+/**
+ * Benchmark of the H264 reassembly from references against the legacy
+ * depacketizer: a stream of FU-A frames and a stream of single NAL units
+ * are depacketized by both, the fragments of each frame arriving in order.
+ * The best time of each case over the rounds is reported.
+ */
+public class JavaDepacketizerBenchmark {
+	private static final int NB_FRAMES = 20000;
+
+	private static final int ROUNDS = 10;
+
+	private static final int FRAME_SIZE = 5000;
+
+	private static final int MAX_PAYLOAD = 1300;
+
+	private static final int SINGLE_NAL_SIZE = 1000;
+
+	/**
+	 * RTP payloads of the stream, with their timestamps
+	 */
+	private static class Stream {
+		final byte[][] payloads;
+
+		final long[] timeStamps;
+
+		Stream(byte[][] payloads, long[] timeStamps) {
+			this.payloads = payloads;
+			this.timeStamps = timeStamps;
+		}
+	}
+
+	private static byte[] slice(int size, int seed) {
+		byte[] nal = new byte[size];
+		nal[0] = 0x61;
+		for (int i = 1; i < size; i++) {
+			nal[i] = (byte)(seed + i);
+		}
+		return nal;
+	}
+
+	private static Stream fragmented() {
+		int count = (FRAME_SIZE - 1 + MAX_PAYLOAD - 1) / MAX_PAYLOAD;
+		byte[][] payloads = new byte[NB_FRAMES * count][];
+		long[] timeStamps = new long[payloads.length];
+		for (int frame = 0; frame < NB_FRAMES; frame++) {
+			byte[] nal = slice(FRAME_SIZE, frame);
+			for (int i = 0; i < count; i++) {
+				int start = 1 + i * MAX_PAYLOAD;
+				int length = Math.min(MAX_PAYLOAD, nal.length - start);
+				byte[] payload = new byte[2 + length];
+				payload[0] = (byte)((nal[0] & 0xe0) | H264RtpHeaders.AVC_NALTYPE_FUA);
+				payload[1] = (byte)(nal[0] & 0x1f);
+				if (i == 0) {
+					payload[1] |= 0x80;
+				}
+				if (i == count - 1) {
+					payload[1] |= 0x40;
+				}
+				System.arraycopy(nal, start, payload, 2, length);
+				payloads[frame * count + i] = payload;
+				timeStamps[frame * count + i] = frame * 3000L;
+			}
+		}
+		return new Stream(payloads, timeStamps);
+	}
+
+	private static Stream single() {
+		byte[][] payloads = new byte[NB_FRAMES][];
+		long[] timeStamps = new long[NB_FRAMES];
+		for (int frame = 0; frame < NB_FRAMES; frame++) {
+			payloads[frame] = slice(SINGLE_NAL_SIZE, frame);
+			timeStamps[frame] = frame * 3000L;
+		}
+		return new Stream(payloads, timeStamps);
+	}
+
+	/**
+	 * @return the average time of a frame in nanoseconds
+	 */
+	private static long run(Stream stream, VideoCodec depacketizer) {
+		Buffer input = new Buffer();
+		Buffer output = new Buffer();
+		int frames = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < stream.payloads.length; i++) {
+			byte[] payload = stream.payloads[i];
+			input.setData(payload);
+			input.setOffset(0);
+			input.setLength(payload.length);
+			input.setTimeStamp(stream.timeStamps[i]);
+			input.setSequenceNumber(i);
+			if (depacketizer.process(input, output) == Codec.BUFFER_PROCESSED_OK) {
+				frames++;
+			}
+		}
+		long time = (System.nanoTime() - start) / NB_FRAMES;
+
+		// The legacy depacketizer gives the length of the last fragment only,
+		// the frames are counted
+		BenchmarkReport.check("Frames lost", frames == NB_FRAMES);
+		return time;
+	}
+
+	public static void main(String[] args) {
+		Stream fragmented = fragmented();
+		Stream single = single();
+		long[] best = new long[4];
+		for (int round = 0; round < ROUNDS; round++) {
+			long[] times = new long[] {
+				run(fragmented, new LegacyJavaDepacketizer()),
+				run(fragmented, new JavaDepacketizer()),
+				run(single, new LegacyJavaDepacketizer()),
+				run(single, new JavaDepacketizer())
+			};
+			BenchmarkReport.keepBest(best, times, round);
+		}
+		BenchmarkReport.report("JavaDepacketizer", "ns per frame: " + NB_FRAMES + " frames of "
+				+ FRAME_SIZE + " bytes in FU-A payloads of " + MAX_PAYLOAD + " bytes legacy "
+				+ best[0] + ", references " + best[1] + "; " + NB_FRAMES + " single NAL units of "
+				+ SINGLE_NAL_SIZE + " bytes legacy " + best[2] + ", references " + best[3]);
+	}
+}
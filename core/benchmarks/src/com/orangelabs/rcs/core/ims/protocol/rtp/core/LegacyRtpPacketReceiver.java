@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.rtp.core;
+
+import java.net.SocketTimeoutException;
+
+import com.orangelabs.rcs.platform.network.DatagramConnection;
+import com.orangelabs.rcs.utils.EventQueue;
+
+/**
+ * RTP receiver replaced by the slot ring of RtpPacketReceiver, kept to
+ * compare both: each datagram is received into a new array, queued, then
+ * parsed into a new RtpPacket. The extension header and the logs are left
+ * out.
+ */
+class LegacyRtpPacketReceiver extends Thread {
+	private static final int FIFO_MAX_NUMBER = 100;
+
+	private EventQueue<byte[]> fifo = new EventQueue<byte[]>(FIFO_MAX_NUMBER, EventQueue.DROP_OLDEST);
+
+	private RtpStatisticsReceiver stats = new RtpStatisticsReceiver();
+
+	private DatagramConnection datagramConnection;
+
+	private RtcpSession rtcpSession;
+
+	private int lastSeqnum = -1;
+
+	public LegacyRtpPacketReceiver(DatagramConnection datagramConnection, RtcpSession rtcpSession) {
+		this.datagramConnection = datagramConnection;
+		this.rtcpSession = rtcpSession;
+	}
+
+	public void run() {
+		try {
+			while (true) {
+				byte[] data = datagramConnection.receive();
+				if (data.length >= 12) {
+					int payloadType = (byte) ((data[1] & 0xff) & 0x7f);
+					if (payloadType != 20) {
+						int seqnum = (char)((data[2] << 8) | (data[3] & 0xff));
+						if (seqnum > lastSeqnum - 10) {
+							fifo.offer(data);
+							lastSeqnum = seqnum;
+						} else {
+							stats.numBadRtpPkts++;
+						}
+					}
+				}
+			}
+		} catch (SocketTimeoutException e) {
+			// End of the datagrams
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	public RtpPacket readRtpPacket(long delay) {
+		byte[] data = fifo.take(delay);
+		if (data == null) {
+			return null;
+		}
+		RtpPacket pkt = parseRtpPacket(data);
+		stats.numPackets++;
+		stats.numBytes += data.length;
+
+		RtpSource s = rtcpSession.getMySource();
+		s.setSsrc(pkt.ssrc);
+		s.activeSender = true;
+		s.receiveRtpPacket(pkt);
+		pkt.seqnum = s.generateExtendedSequenceNumber(pkt.seqnum);
+		return pkt;
+	}
+
+	private RtpPacket parseRtpPacket(byte[] data) {
+		RtpPacket packet = new RtpPacket();
+		packet.length = data.length;
+		packet.receivedAt = System.currentTimeMillis();
+		packet.extension = (data[0] & 0x10) > 0;
+		if ((byte)((data[1] & 0xff) & 0x80) == (byte) 0x80){
+			packet.marker = 1;
+		}else{
+			packet.marker = 0;
+		}
+		packet.payloadType = (byte) ((data[1] & 0xff) & 0x7f);
+		packet.seqnum = (char)((data[2] << 8) | (data[3] & 0xff));
+		packet.timestamp = (((data[4] & 0xff) << 24) | ((data[5] & 0xff) << 16)
+				| ((data[6] & 0xff) << 8) | (data[7] & 0xff));
+		packet.ssrc = (((data[8] & 0xff) << 24) | ((data[9] & 0xff) << 16)
+				| ((data[10] & 0xff) << 8) | (data[11] & 0xff));
+		packet.payloadoffset = 12;
+		packet.payloadlength = packet.length - packet.payloadoffset;
+		packet.data = new byte[packet.payloadlength];
+		System.arraycopy(data, packet.payloadoffset, packet.data, 0, packet.payloadlength);
+		return packet;
+	}
+}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.rtp.core;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Semaphore;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+import com.orangelabs.rcs.core.ims.network.ImsNetworkInterface.DnsResolvedFields;
+import com.orangelabs.rcs.platform.network.DatagramConnection;
+import com.orangelabs.rcs.platform.network.HttpConnection;
+import com.orangelabs.rcs.platform.network.NetworkFactory;
+import com.orangelabs.rcs.platform.network.SocketConnection;
+import com.orangelabs.rcs.platform.network.SocketServerConnection;
+
+/**
+ * Benchmark of the RTP reception with the slot ring against the legacy
+ * receiver: a stream of video packets and a stream of audio packets are
+ * received from memory by the receiver thread and read by the main thread,
+ * in batches so that no packet is dropped. The main thread waits for the
+ * whole batch to be queued before reading it, so that the thread switches
+ * do not depend on the scheduler. The best time of each case over
+ * the rounds and the number of garbage collections of all the rounds are
+ * reported.
+ */
+public class RtpPacketReceiverBenchmark {
+	private static final int NB_PACKETS = 50000;
+
+	private static final int ROUNDS = 10;
+
+	private static final int BATCH = 16;
+
+	private static final int VIDEO_PAYLOAD = 1200;
+
+	private static final int AUDIO_PAYLOAD = 40;
+
+	private static final long TIMEOUT = 5000;
+
+	/**
+	 * Connection returning the datagrams of a memory stream, once allowed
+	 * by the reader
+	 */
+	private static class MemoryConnection implements DatagramConnection {
+		private final byte[][] datagrams;
+
+		private final Semaphore permits = new Semaphore(0);
+
+		private volatile int index = 0;
+
+		MemoryConnection(byte[][] datagrams) {
+			this.datagrams = datagrams;
+		}
+
+		/**
+		 * Wait until the receiver has queued the given number of datagrams
+		 * and waits for the next one
+		 */
+		void awaitReceived(int count) {
+			while ((index < count) || !permits.hasQueuedThreads()) {
+				Thread.yield();
+			}
+		}
+
+		private byte[] next() throws IOException {
+			permits.acquireUninterruptibly();
+			if (index == datagrams.length) {
+				throw new SocketTimeoutException();
+			}
+			return datagrams[index++];
+		}
+
+		public byte[] receive() throws IOException {
+			byte[] datagram = next();
+			byte[] data = new byte[datagram.length];
+			System.arraycopy(datagram, 0, data, 0, datagram.length);
+			return data;
+		}
+
+		public int receive(byte[] buffer) throws IOException {
+			byte[] datagram = next();
+			int length = Math.min(datagram.length, buffer.length);
+			System.arraycopy(datagram, 0, buffer, 0, length);
+			return length;
+		}
+
+		public void open() {
+		}
+
+		public void open(int port) {
+		}
+
+		public void close() {
+		}
+
+		public void send(String remoteAddr, int remotePort, byte[] data) {
+		}
+
+		public String getLocalAddress() {
+			return "127.0.0.1";
+		}
+
+		public int getLocalPort() {
+			return 0;
+		}
+	}
+
+	/**
+	 * Factory returning the memory connection of the current case
+	 */
+	public static class MemoryNetworkFactory extends NetworkFactory {
+		static MemoryConnection connection;
+
+		public String getLocalIpAddress(DnsResolvedFields dnsEntry, int type) {
+			return "127.0.0.1";
+		}
+
+		public DatagramConnection createDatagramConnection() {
+			return connection;
+		}
+
+		public DatagramConnection createDatagramConnection(int timeout) {
+			return connection;
+		}
+
+		public SocketConnection createSocketClientConnection() {
+			return null;
+		}
+
+		public SocketConnection createSecureSocketClientConnection() {
+			return null;
+		}
+
+		public SocketConnection createSimpleSecureSocketClientConnection(String fingerprint) {
+			return null;
+		}
+
+		public SocketServerConnection createSocketServerConnection() {
+			return null;
+		}
+
+		public HttpConnection createHttpConnection() {
+			return null;
+		}
+	}
+
+	private static byte[][] stream(int payloadLength) {
+		byte[][] datagrams = new byte[NB_PACKETS][];
+		for (int i = 0; i < NB_PACKETS; i++) {
+			byte[] data = new byte[12 + payloadLength];
+			data[0] = (byte)0x80;
+			data[1] = 96;
+			data[2] = (byte)(i >> 8);
+			data[3] = (byte)i;
+			data[7] = (byte)i;
+			data[11] = 1;
+			datagrams[i] = data;
+		}
+		return datagrams;
+	}
+
+	private static long collections() {
+		long count = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, bean.getCollectionCount());
+		}
+		return count;
+	}
+
+	/**
+	 * @return the average time of a packet in nanoseconds
+	 */
+	private static long run(byte[][] datagrams, boolean legacy, long[] gcs, int gcIndex)
+			throws Exception {
+		MemoryConnection connection = new MemoryConnection(datagrams);
+		MemoryNetworkFactory.connection = connection;
+		RtcpSession rtcpSession = new RtcpSession(false, 16000);
+		LegacyRtpPacketReceiver legacyReceiver = null;
+		RtpPacketReceiver receiver = null;
+		if (legacy) {
+			legacyReceiver = new LegacyRtpPacketReceiver(connection, rtcpSession);
+			legacyReceiver.start();
+		} else {
+			receiver = new RtpPacketReceiver(0, rtcpSession);
+			receiver.start();
+		}
+
+		long payload = 0;
+		long gc = collections();
+		long start = System.nanoTime();
+		for (int i = 0; i < NB_PACKETS; i += BATCH) {
+			int count = Math.min(BATCH, NB_PACKETS - i);
+			connection.permits.release(count);
+			connection.awaitReceived(i + count);
+			for (int j = 0; j < count; j++) {
+				if (legacy) {
+					payload += legacyReceiver.readRtpPacket(TIMEOUT).payloadlength;
+				} else {
+					RtpPacket packet = receiver.readRtpPacket(TIMEOUT);
+					payload += packet.payloadlength;
+					receiver.releaseRtpPacket(packet);
+				}
+			}
+		}
+		long time = (System.nanoTime() - start) / NB_PACKETS;
+		gcs[gcIndex] += collections() - gc;
+
+		// End of the stream
+		connection.permits.release();
+		if (legacy) {
+			legacyReceiver.join();
+		} else {
+			receiver.join();
+		}
+		BenchmarkReport.check("Packets lost", payload == (long)NB_PACKETS * (datagrams[0].length - 12));
+		return time;
+	}
+
+	public static void main(String[] args) throws Exception {
+		NetworkFactory.loadFactory(MemoryNetworkFactory.class.getName());
+		byte[][] video = stream(VIDEO_PAYLOAD);
+		byte[][] audio = stream(AUDIO_PAYLOAD);
+		long[] best = new long[4];
+		long[] gcs = new long[4];
+		for (int round = 0; round < ROUNDS; round++) {
+			long[] times = new long[] {
+				run(video, true, gcs, 0),
+				run(video, false, gcs, 1),
+				run(audio, true, gcs, 2),
+				run(audio, false, gcs, 3)
+			};
+			BenchmarkReport.keepBest(best, times, round);
+		}
+		BenchmarkReport.report("RtpPacketReceiver", "ns per packet (GC runs): " + NB_PACKETS
+				+ " packets of " + VIDEO_PAYLOAD + " bytes legacy " + best[0] + " (" + gcs[0]
+				+ "), slot ring " + best[1] + " (" + gcs[1] + "); " + NB_PACKETS + " packets of "
+				+ AUDIO_PAYLOAD + " bytes legacy " + best[2] + " (" + gcs[2] + "), slot ring "
+				+ best[3] + " (" + gcs[3] + ")");
+	}
+}
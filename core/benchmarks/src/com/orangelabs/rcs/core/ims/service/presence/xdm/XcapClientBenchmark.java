@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.service.presence.xdm;
+
+import java.io.IOException;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+import com.orangelabs.rcs.core.ims.protocol.http.HttpGetRequest;
+import com.orangelabs.rcs.platform.network.NetworkFactory;
+
+/**
+ * Benchmark of the XCAP client against a local server: GET requests on kept
+ * alive connections, on a new connection per request as when the server
+ * closes each connection, and on the same document read from the cache.
+ * The best time of each case over the rounds is reported. The loopback hides the
+ * TCP and TLS handshakes, which make a new connection much more expensive
+ * on a mobile network.
+ */
+public class XcapClientBenchmark {
+	private static final int NB_REQUESTS = 2000;
+
+	private static final int ROUNDS = 5;
+
+	private static final String BODY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<list name=\"rcs\"><entry uri=\"sip:+33600000000@domain\"/></list>";
+
+	/**
+	 * @return the average time of a request in microseconds
+	 */
+	private static long run(String response, boolean sameDocument) throws IOException {
+		XcapStubServer server = new XcapStubServer();
+		server.setDefaultResponse(response);
+		XcapClient client = new XcapClient(server.getAddress());
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < NB_REQUESTS; i++) {
+				String document = "/resource-lists/users/sip:+33600000000@domain/index";
+				client.sendRequest(new HttpGetRequest(sameDocument ? document : (document + i)), "");
+			}
+			return (System.nanoTime() - start) / NB_REQUESTS / 1000;
+		} finally {
+			client.close();
+			server.close();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		NetworkFactory.loadFactory("com.orangelabs.rcs.platform.network.AndroidNetworkFactory");
+		String ok = "HTTP/1.1 200 OK\r\nContent-Length: " + BODY.length() + "\r\n";
+		long[] best = new long[3];
+		for (int round = 0; round < ROUNDS; round++) {
+			long[] times = new long[] {
+				run(ok + "\r\n" + BODY, false),
+				run(ok + "Connection: close\r\n\r\n" + BODY, false),
+				run(ok + "ETag: \"1\"\r\n\r\n" + BODY, true)
+			};
+			BenchmarkReport.keepBest(best, times, round);
+		}
+		BenchmarkReport.report("XcapClient", NB_REQUESTS + " GET, us per request:"
+				+ " kept alive " + best[0]
+				+ ", new connection " + best[1]
+				+ ", cached " + best[2]);
+	}
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+
+/**
+ * Benchmark of the EventQueue against the FifoBuffer it replaces: the
+ * throughput of one and of four producers feeding a single consumer, as the
+ * SIP dispatcher and the RTP receivers do, and the round trip of one event
+ * at a time between two threads, where the consumer waits for each event.
+ * The producers keep the backlog under the size of the RTP receiver queue,
+ * the FifoBuffer removal being linear in the backlog. The best time of each
+ * case over the rounds is reported.
+ */
+public class EventQueueBenchmark {
+	private static final int NB_EVENTS = 1000000;
+
+	private static final int NB_ROUND_TRIPS = 50000;
+
+	private static final int ROUNDS = 5;
+
+	private static final int MAX_BACKLOG = 100;
+
+	/**
+	 * Queue under test
+	 */
+	private interface Queue {
+		void put(Object event);
+
+		Object get();
+
+		int size();
+	}
+
+	private static Queue fifoBuffer() {
+		final LegacyFifoBuffer buffer = new LegacyFifoBuffer();
+		return new Queue() {
+			public void put(Object event) {
+				buffer.addObject(event);
+			}
+
+			public Object get() {
+				return buffer.getObject();
+			}
+
+			public int size() {
+				return buffer.size();
+			}
+		};
+	}
+
+	private static Queue eventQueue() {
+		final EventQueue<Object> queue = new EventQueue<Object>();
+		return new Queue() {
+			public void put(Object event) {
+				queue.offer(event);
+			}
+
+			public Object get() {
+				return queue.take();
+			}
+
+			public int size() {
+				return queue.size();
+			}
+		};
+	}
+
+	/**
+	 * @return the average time of an event in nanoseconds
+	 */
+	private static long runThroughput(final Queue queue, int nbProducers) throws InterruptedException {
+		final Object event = new Object();
+		final int perProducer = NB_EVENTS / nbProducers;
+		Thread[] producers = new Thread[nbProducers];
+		for (int i = 0; i < nbProducers; i++) {
+			producers[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < perProducer; j++) {
+						while (queue.size() >= MAX_BACKLOG) {
+							Thread.yield();
+						}
+						queue.put(event);
+					}
+				}
+			};
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < nbProducers; i++) {
+			producers[i].start();
+		}
+		int received = 0;
+		while (received < perProducer * nbProducers) {
+			if (queue.get() != null) {
+				received++;
+			}
+		}
+		long time = (System.nanoTime() - start) / received;
+		for (int i = 0; i < nbProducers; i++) {
+			producers[i].join();
+		}
+		return time;
+	}
+
+	/**
+	 * @return the average time of a round trip in nanoseconds
+	 */
+	private static long runRoundTrip(final Queue requests, final Queue responses) throws InterruptedException {
+		final Object event = new Object();
+		Thread echo = new Thread() {
+			public void run() {
+				for (int i = 0; i < NB_ROUND_TRIPS; i++) {
+					Object request;
+					do {
+						request = requests.get();
+					} while (request == null);
+					responses.put(request);
+				}
+			}
+		};
+		echo.start();
+		long start = System.nanoTime();
+		for (int i = 0; i < NB_ROUND_TRIPS; i++) {
+			requests.put(event);
+			while (responses.get() == null) {
+				// Spurious wake-up
+			}
+		}
+		long time = (System.nanoTime() - start) / NB_ROUND_TRIPS;
+		echo.join();
+		return time;
+	}
+
+	public static void main(String[] args) throws Exception {
+		long[] best = new long[6];
+		for (int round = 0; round < ROUNDS; round++) {
+			long[] times = new long[] {
+				runThroughput(fifoBuffer(), 1),
+				runThroughput(eventQueue(), 1),
+				runThroughput(fifoBuffer(), 4),
+				runThroughput(eventQueue(), 4),
+				runRoundTrip(fifoBuffer(), fifoBuffer()),
+				runRoundTrip(eventQueue(), eventQueue())
+			};
+			BenchmarkReport.keepBest(best, times, round);
+		}
+		BenchmarkReport.report("EventQueue", NB_EVENTS + " events, ns per event:"
+				+ " 1 producer FifoBuffer " + best[0] + ", EventQueue " + best[1]
+				+ "; 4 producers FifoBuffer " + best[2] + ", EventQueue " + best[3]
+				+ "; ns per round trip: FifoBuffer " + best[4] + ", EventQueue " + best[5]);
+	}
+}
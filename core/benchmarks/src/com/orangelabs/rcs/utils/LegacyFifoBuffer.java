@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.Vector;
+
+/**
+ * FIFO buffer replaced by EventQueue, kept to compare both: a vector guarded
+ * by the buffer monitor, each add waking up all the waiting threads
+ */
+class LegacyFifoBuffer {
+	private int nbObjects = 0;
+
+	private Vector<Object> fifo = new Vector<Object>();
+
+	public synchronized void addObject(Object obj) {
+		fifo.addElement(obj);
+		nbObjects++;
+		notifyAll();
+	}
+
+	public synchronized Object getObject() {
+		Object obj = null;
+		if (nbObjects == 0) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				// Nothing to do
+			}
+		}
+		if (nbObjects != 0) {
+			obj = fifo.elementAt(0);
+			fifo.removeElementAt(0);
+			nbObjects--;
+			notifyAll();
+		}
+		return obj;
+	}
+
+	public int size() {
+		return fifo.size();
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.List;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+
+/**
+ * Benchmark of the substring based parsing and of the in place parsing with
+ * the caches, on mixed inputs over 2000 contacts, and over as many contacts
+ * as inputs so that nearly every input misses the caches. The best time of
+ * each case over the rounds is reported.
+ */
+public class PhoneUtilsBenchmark {
+	private static final int NB_INPUTS = 200000;
+
+	private static final int ROUNDS = 10;
+
+	private static int consumed = 0;
+
+	/**
+	 * @return the average time of an input in nanoseconds
+	 */
+	private static long runReference(String[] inputs) {
+		long start = System.nanoTime();
+		for (int i = 0; i < inputs.length; i++) {
+			String number = PhoneUtilsReference.extractNumberFromUri(inputs[i]);
+			if (number != null) {
+				consumed += number.length();
+			}
+		}
+		return (System.nanoTime() - start) / inputs.length;
+	}
+
+	/**
+	 * @return the average time of an input in nanoseconds
+	 */
+	private static long runPhoneUtils(String[] inputs) {
+		long start = System.nanoTime();
+		for (int i = 0; i < inputs.length; i++) {
+			String number = PhoneUtils.extractNumberFromUri(inputs[i]);
+			if (number != null) {
+				consumed += number.length();
+			}
+		}
+		return (System.nanoTime() - start) / inputs.length;
+	}
+
+	public static void main(String[] args) {
+		List<String> list = PhoneUtilsReference.inputs(2000, NB_INPUTS, 19);
+		String[] inputs = list.toArray(new String[list.size()]);
+		list = PhoneUtilsReference.inputs(NB_INPUTS, NB_INPUTS, 23);
+		String[] uniqueInputs = list.toArray(new String[list.size()]);
+		long[] best = new long[4];
+		for (int round = 0; round < ROUNDS; round++) {
+			long[] times = new long[] {
+				runReference(inputs),
+				runPhoneUtils(inputs),
+				runReference(uniqueInputs),
+				runPhoneUtils(uniqueInputs)
+			};
+			BenchmarkReport.keepBest(best, times, round);
+		}
+		BenchmarkReport.report("PhoneUtils", NB_INPUTS + " inputs, ns per extractNumberFromUri:"
+				+ " 2000 contacts substrings " + best[0]
+				+ ", in place " + best[1]
+				+ "; " + NB_INPUTS + " contacts substrings " + best[2]
+				+ ", in place " + best[3]);
+		BenchmarkReport.check("no number extracted", consumed > 0);
+	}
+}
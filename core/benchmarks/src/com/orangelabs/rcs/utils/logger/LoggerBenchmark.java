@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils.logger;
+
+import java.io.ByteArrayOutputStream;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+
+/**
+ * Benchmark of the traces of an MSRP chunk receiver like hot path: two debug
+ * traces and one header trace per chunk, with the traces off, at WARN level
+ * and at DEBUG level. The appender writes each trace to a memory stream, so
+ * the DEBUG results only show the cost on the caller thread. The best time
+ * of each case over the rounds is reported.
+ */
+public class LoggerBenchmark {
+	private static final int NB_CHUNKS = 200000;
+
+	private static final int ROUNDS = 10;
+
+	/**
+	 * Appender writing each trace to a memory stream
+	 */
+	private static class StreamAppender extends Appender {
+		private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		public synchronized void printTrace(String classname, int level, String trace) {
+			byte[] data = (classname + ": " + trace + "\n").getBytes();
+			stream.write(data, 0, data.length);
+			if (stream.size() > 65536) {
+				stream.reset();
+			}
+		}
+	}
+
+	private static final Logger logger = Logger.getLogger("ChunkReceiver");
+
+	private static int consumed = 0;
+
+	/**
+	 * @return the average time of a chunk in nanoseconds
+	 */
+	private static long runActivatedGuard() {
+		long start = System.nanoTime();
+		for (int i = 0; i < NB_CHUNKS; i++) {
+			String headerName = (i & 1) == 0 ? "Message-ID" : "Byte-Range";
+			if (logger.isActivated()) {
+				logger.debug("Receive chunk " + i);
+			}
+			if (logger.isActivated()) {
+				logger.debug("Header: " + headerName + " - Value: " + i);
+			}
+			if (logger.isActivated()) {
+				logger.debug("Chunk " + i + " received");
+			}
+			consumed += headerName.length();
+		}
+		return (System.nanoTime() - start) / NB_CHUNKS;
+	}
+
+	/**
+	 * @return the average time of a chunk in nanoseconds
+	 */
+	private static long runDebugGuard() {
+		long start = System.nanoTime();
+		for (int i = 0; i < NB_CHUNKS; i++) {
+			String headerName = (i & 1) == 0 ? "Message-ID" : "Byte-Range";
+			if (logger.isDebugEnabled()) {
+				logger.debug("Receive chunk " + i);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Header: " + headerName + " - Value: " + i);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Chunk " + i + " received");
+			}
+			consumed += headerName.length();
+		}
+		return (System.nanoTime() - start) / NB_CHUNKS;
+	}
+
+	/**
+	 * @return the average time of a chunk in nanoseconds
+	 */
+	private static long runParameterized() {
+		long start = System.nanoTime();
+		for (int i = 0; i < NB_CHUNKS; i++) {
+			String headerName = (i & 1) == 0 ? "Message-ID" : "Byte-Range";
+			if (logger.isDebugEnabled()) {
+				logger.debug("Receive chunk " + i);
+			}
+			logger.debug("Header: {} - Value: {}", headerName, Integer.valueOf(i));
+			if (logger.isDebugEnabled()) {
+				logger.debug("Chunk " + i + " received");
+			}
+			consumed += headerName.length();
+		}
+		return (System.nanoTime() - start) / NB_CHUNKS;
+	}
+
+	public static void main(String[] args) {
+		Appender[] saved = Logger.getAppenders();
+		boolean savedFlag = Logger.activationFlag;
+		int savedLevel = Logger.traceLevel;
+		StreamAppender syncAppender = new StreamAppender();
+		AsyncAppender asyncAppender = new AsyncAppender(new Appender[] { new StreamAppender() });
+		try {
+			long[] best = new long[8];
+			for (int round = 0; round < ROUNDS; round++) {
+				long[] times = new long[8];
+				Logger.setAppenders(new Appender[] { syncAppender });
+				Logger.activationFlag = Logger.TRACE_OFF;
+				Logger.traceLevel = Logger.DEBUG_LEVEL;
+				times[0] = runActivatedGuard();
+				times[1] = runDebugGuard();
+				times[2] = runParameterized();
+
+				Logger.activationFlag = Logger.TRACE_ON;
+				Logger.traceLevel = Logger.WARN_LEVEL;
+				times[3] = runActivatedGuard();
+				times[4] = runDebugGuard();
+				times[5] = runParameterized();
+
+				Logger.traceLevel = Logger.DEBUG_LEVEL;
+				times[6] = runDebugGuard();
+				Logger.setAppenders(new Appender[] { asyncAppender });
+				times[7] = runDebugGuard();
+				asyncAppender.flush(10000);
+
+				BenchmarkReport.keepBest(best, times, round);
+			}
+			BenchmarkReport.report("Logger", NB_CHUNKS + " chunks, ns per chunk:"
+					+ " off isActivated " + best[0]
+					+ ", off isDebugEnabled " + best[1]
+					+ ", off parameterized " + best[2]
+					+ ", WARN isActivated " + best[3]
+					+ ", WARN isDebugEnabled " + best[4]
+					+ ", WARN parameterized " + best[5]
+					+ ", DEBUG sync " + best[6]
+					+ ", DEBUG async " + best[7]
+					+ " (" + asyncAppender.getDroppedCount() + " dropped)");
+		} finally {
+			Logger.setAppenders(saved);
+			Logger.activationFlag = savedFlag;
+			Logger.traceLevel = savedLevel;
+		}
+		BenchmarkReport.check("no chunk traced", consumed > 0);
+	}
+}
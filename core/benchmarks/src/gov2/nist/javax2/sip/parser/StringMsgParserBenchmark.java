@@ -0,0 +1,137 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.parser;
+
+import gov2.nist.javax2.sip.message.SIPMessage;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+
+/**
+ * Benchmark of the parsing of received RCS requests: OPTIONS capability
+ * queries, pager mode MESSAGE, chat INVITE with SDP and presence NOTIFY. A
+ * message is parsed from a string, from the received bytes with all the
+ * headers, and from the received bytes with the headers outside transaction
+ * matching deferred; the lazy case then reads only what the stack reads to
+ * dispatch the request. The best time of each case over the rounds is
+ * reported.
+ *
+ */
+public class StringMsgParserBenchmark {
+
+    private static final int NB_MESSAGES = 20000;
+
+    private static final int ROUNDS = 10;
+
+    private static final String HEADERS = "Via: SIP/2.0/TCP 10.0.0.1:5060;branch=z9hG4bK-1;rport\r\n"
+            + "Max-Forwards: 70\r\n"
+            + "From: <tel:+33600000001>;tag=1234\r\n"
+            + "To: <tel:+33600000002>\r\n"
+            + "Call-ID: abcd@10.0.0.1\r\n"
+            + "Route: <sip:pcscf.example.com:5060;lr>\r\n"
+            + "P-Preferred-Identity: <tel:+33600000001>\r\n"
+            + "User-Agent: IM-client/OMA1.0 Orange-RCS/2.5.2\r\n";
+
+    private static final String OPTIONS = "OPTIONS tel:+33600000002 SIP/2.0\r\n"
+            + HEADERS
+            + "CSeq: 1 OPTIONS\r\n"
+            + "Contact: <sip:+33600000001@10.0.0.1:5060;transport=tcp>;+g.oma.sip-im;"
+            + "+g.3gpp.iari-ref=\"urn%3Aurn-7%3A3gpp-application.ims.iari.rcse.ft\"\r\n"
+            + "Accept-Contact: *;+g.oma.sip-im\r\n"
+            + "Accept: application/sdp\r\n"
+            + "Content-Length: 0\r\n\r\n";
+
+    private static final String MESSAGE = "MESSAGE tel:+33600000002 SIP/2.0\r\n"
+            + HEADERS
+            + "CSeq: 1 MESSAGE\r\n"
+            + "Contact: <sip:+33600000001@10.0.0.1:5060;transport=tcp>\r\n"
+            + "Accept-Contact: *;+g.oma.sip-im\r\n"
+            + "Content-Type: text/plain;charset=UTF-8\r\n"
+            + "Content-Length: 5\r\n\r\n"
+            + "hello";
+
+    private static final String SDP = "v=0\r\n"
+            + "o=- 3600000000 3600000000 IN IP4 10.0.0.1\r\n"
+            + "s=-\r\n"
+            + "c=IN IP4 10.0.0.1\r\n"
+            + "t=0 0\r\n"
+            + "m=message 20000 TCP/MSRP *\r\n"
+            + "a=accept-types:message/cpim application/im-iscomposing+xml\r\n"
+            + "a=path:msrp://10.0.0.1:20000/1234;tcp\r\n"
+            + "a=setup:active\r\n";
+
+    private static final String INVITE = "INVITE tel:+33600000002 SIP/2.0\r\n"
+            + HEADERS
+            + "CSeq: 1 INVITE\r\n"
+            + "Contact: <sip:+33600000001@10.0.0.1:5060;transport=tcp>;+g.oma.sip-im\r\n"
+            + "Accept-Contact: *;+g.oma.sip-im\r\n"
+            + "Supported: timer\r\n"
+            + "Session-Expires: 1800\r\n"
+            + "Subject: hello\r\n"
+            + "Content-Type: application/sdp\r\n"
+            + "Content-Length: " + SDP.length() + "\r\n\r\n"
+            + SDP;
+
+    private static final String NOTIFY = "NOTIFY sip:+33600000001@10.0.0.1:5060 SIP/2.0\r\n"
+            + HEADERS
+            + "CSeq: 2 NOTIFY\r\n"
+            + "Contact: <sip:presence.example.com:5060>\r\n"
+            + "Event: presence\r\n"
+            + "Subscription-State: active;expires=3600\r\n"
+            + "Content-Type: application/pidf+xml\r\n"
+            + "Content-Length: 2\r\n\r\n"
+            + "<>";
+
+    private static final String[] REQUESTS = { OPTIONS, MESSAGE, INVITE, NOTIFY };
+
+    private static final int STRING = 0;
+
+    private static final int EAGER = 1;
+
+    private static final int LAZY = 2;
+
+    /**
+     * @return the average time of a request in nanoseconds
+     */
+    private static long run(String request, int mode) throws Exception {
+        byte[] buffer = request.getBytes("UTF-8");
+        StringMsgParser parser = new StringMsgParser();
+        parser.setParseHeadersLazily(mode == LAZY);
+        long start = System.nanoTime();
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            SIPMessage message;
+            if (mode == STRING) {
+                message = parser.parseSIPMessage(request);
+            } else {
+                message = parser.parseSIPMessage(buffer.clone());
+            }
+            // What the stack reads to match and dispatch the request
+            BenchmarkReport.check("No transaction id", message.getTransactionId() != null);
+            message.getCSeq();
+        }
+        return (System.nanoTime() - start) / NB_MESSAGES;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long[] best = new long[REQUESTS.length * 3];
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] times = new long[best.length];
+            for (int i = 0; i < REQUESTS.length; i++) {
+                times[3 * i + STRING] = run(REQUESTS[i], STRING);
+                times[3 * i + EAGER] = run(REQUESTS[i], EAGER);
+                times[3 * i + LAZY] = run(REQUESTS[i], LAZY);
+            }
+            BenchmarkReport.keepBest(best, times, round);
+        }
+        String[] names = { "OPTIONS", "MESSAGE", "INVITE", "NOTIFY" };
+        StringBuffer result = new StringBuffer(NB_MESSAGES
+                + " requests, string/bytes/lazy bytes ns per request:");
+        for (int i = 0; i < names.length; i++) {
+            result.append(i == 0 ? " " : ", ").append(names[i]).append(' ')
+                    .append(best[3 * i + STRING]).append('/').append(best[3 * i + EAGER])
+                    .append('/').append(best[3 * i + LAZY]);
+        }
+        BenchmarkReport.report("StringMsgParser", result.toString());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack.timers;
+
+import gov2.nist.javax2.sip.stack.SIPStackTimerTask;
+
+import java.util.Random;
+
+import com.orangelabs.rcs.benchmark.BenchmarkReport;
+
+/**
+ * Benchmark of the stack timers: schedule a burst of transaction timers then
+ * cancel half of them, as when the transactions complete, with the hashed
+ * wheel and with the previous java.util.Timer implementation. The best time
+ * of each case over the rounds is reported. Note that java.util.Timer cancels
+ * lazily: a cancelled task stays in its queue until its expiration.
+ *
+ */
+public class HashedWheelSipTimerBenchmark {
+
+    private static final int NB_TIMERS = 50000;
+
+    private static final int ROUNDS = 10;
+
+    private static class NopTask extends SIPStackTimerTask {
+        protected void runTask() {
+        }
+    }
+
+    /**
+     * @return the average time of a schedule and of a cancel in nanoseconds
+     */
+    private static long[] run(SipTimer timer) {
+        Random random = new Random(11);
+        NopTask[] tasks = new NopTask[NB_TIMERS];
+        for (int i = 0; i < NB_TIMERS; i++) {
+            tasks[i] = new NopTask();
+        }
+        timer.start(null);
+        try {
+            // Transaction timers, from timer A (500 ms) to timer B (32 s)
+            long start = System.nanoTime();
+            for (int i = 0; i < NB_TIMERS; i++) {
+                timer.schedule(tasks[i], 500 + random.nextInt(31500));
+            }
+            long scheduled = System.nanoTime();
+            for (int i = 0; i < NB_TIMERS; i += 2) {
+                tasks[i].cancel();
+            }
+            long cancelled = System.nanoTime();
+            return new long[] { (scheduled - start) / NB_TIMERS,
+                    (cancelled - scheduled) / (NB_TIMERS / 2) };
+        } finally {
+            timer.stop();
+        }
+    }
+
+    public static void main(String[] args) {
+        long[] best = new long[4];
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] wheel = run(new HashedWheelSipTimer());
+            long[] heap = run(new DefaultSipTimer());
+            BenchmarkReport.keepBest(best, new long[] { wheel[0], wheel[1], heap[0], heap[1] }, round);
+        }
+        BenchmarkReport.report("HashedWheelSipTimer", NB_TIMERS + " timers, schedule/cancel ns per op:"
+                + " hashed wheel " + best[0] + "/" + best[1]
+                + ", java.util.Timer " + best[2] + "/" + best[3]);
+    }
+}
@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.orangelabs.rcs.addressbook;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import com.orangelabs.rcs.utils.PhoneUtils;
+
+/**
+ * Snapshot of the phone numbers of the native address book. Each phone row
+ * is kept with its raw contact, its number in international format and its
+ * version, so that a new scan only returns the rows added, modified or
+ * removed since the previous scan. Only the changed rows are formatted.
+ */
+public class PhoneNumberSnapshot {
+	/**
+	 * Phone row
+	 */
+	public static class Row {
+		/**
+		 * Raw contact ID
+		 */
+		private final long rawContactId;
+
+		/**
+		 * Number in international format
+		 */
+		private final String number;
+
+		/**
+		 * Version of the data row
+		 */
+		private final int version;
+
+		/**
+		 * Constructor
+		 *
+		 * @param rawContactId Raw contact ID
+		 * @param number Number in international format
+		 * @param version Version of the data row
+		 */
+		private Row(long rawContactId, String number, int version) {
+			this.rawContactId = rawContactId;
+			this.number = number;
+			this.version = version;
+		}
+
+		/**
+		 * Returns the raw contact ID
+		 *
+		 * @return ID
+		 */
+		public long getRawContactId() {
+			return rawContactId;
+		}
+
+		/**
+		 * Returns the number in international format
+		 *
+		 * @return Number
+		 */
+		public String getNumber() {
+			return number;
+		}
+	}
+
+	/**
+	 * Changes between two scans
+	 */
+	public static class Delta {
+		/**
+		 * Rows added, or modified with their new value
+		 */
+		private List<Row> added = new ArrayList<Row>();
+
+		/**
+		 * Rows removed, or modified with their old value
+		 */
+		private List<Row> removed = new ArrayList<Row>();
+
+		/**
+		 * Returns the rows added, or modified with their new value
+		 *
+		 * @return List of rows
+		 */
+		public List<Row> getAdded() {
+			return added;
+		}
+
+		/**
+		 * Returns the rows removed, or modified with their old value
+		 *
+		 * @return List of rows
+		 */
+		public List<Row> getRemoved() {
+			return removed;
+		}
+
+		/**
+		 * Returns the numbers of the rows added or modified
+		 *
+		 * @return Set of numbers
+		 */
+		public Set<String> getAddedNumbers() {
+			Set<String> numbers = new HashSet<String>();
+			for (int i=0; i < added.size(); i++) {
+				numbers.add(added.get(i).number);
+			}
+			return numbers;
+		}
+
+		/**
+		 * Is there any change
+		 *
+		 * @return Boolean
+		 */
+		public boolean isEmpty() {
+			return added.isEmpty() && removed.isEmpty();
+		}
+	}
+
+	/**
+	 * Rows indexed by data row ID
+	 */
+	private HashMap<Long, Row> rows = new HashMap<Long, Row>();
+
+	/**
+	 * Raw contact IDs indexed by number
+	 */
+	private HashMap<String, Set<Long>> rawContactIds = new HashMap<String, Set<Long>>();
+
+	/**
+	 * Scan the phone numbers of the native address book and update the snapshot
+	 *
+	 * @param contentResolver Content resolver
+	 * @return Changes since the previous scan
+	 */
+	public Delta scan(ContentResolver contentResolver) {
+		Cursor cursor = contentResolver.query(Phone.CONTENT_URI,
+				new String[] { Phone._ID, Phone.NUMBER, Phone.RAW_CONTACT_ID, Phone.DATA_VERSION },
+				null,
+				null,
+				null);
+		if (cursor == null) {
+			return new Delta();
+		}
+		return scan(cursor);
+	}
+
+	/**
+	 * Update the snapshot with the phone rows of a cursor
+	 *
+	 * @param cursor Cursor of the ID, number, raw contact ID and version of
+	 *        each phone row, closed once read
+	 * @return Changes since the previous scan
+	 */
+	synchronized Delta scan(Cursor cursor) {
+		Delta delta = new Delta();
+		HashMap<Long, Row> oldRows = rows;
+		HashMap<Long, Row> newRows = new HashMap<Long, Row>(oldRows.size() * 4 / 3 + 16);
+		try {
+			while (cursor.moveToNext()) {
+				long id = cursor.getLong(0);
+				long rawContactId = cursor.getLong(2);
+				int version = cursor.getInt(3);
+				Row row = oldRows.remove(id);
+				if ((row != null) && (row.version == version) && (row.rawContactId == rawContactId)) {
+					// Unchanged
+					newRows.put(id, row);
+					continue;
+				}
+				if (row != null) {
+					// Modified: the old value is removed
+					delta.removed.add(row);
+				}
+				String number = PhoneUtils.formatNumberToInternational(cursor.getString(1));
+				if (number == null) {
+					continue;
+				}
+				row = new Row(rawContactId, number, version);
+				newRows.put(id, row);
+				delta.added.add(row);
+			}
+		} finally {
+			cursor.close();
+		}
+
+		// The remaining old rows have been deleted
+		delta.removed.addAll(oldRows.values());
+		rows = newRows;
+
+		// Update the raw contact IDs of the numbers
+		if (delta.removed.isEmpty()) {
+			addRawContactIds(delta.added);
+		} else {
+			// A number may still be used by another row of the same raw contact
+			rawContactIds.clear();
+			addRawContactIds(rows.values());
+		}
+		return delta;
+	}
+
+	/**
+	 * Index the raw contact IDs of rows by number
+	 *
+	 * @param list Rows
+	 */
+	private void addRawContactIds(Collection<Row> list) {
+		for (Iterator<Row> it = list.iterator(); it.hasNext();) {
+			Row row = it.next();
+			Set<Long> ids = rawContactIds.get(row.number);
+			if (ids == null) {
+				ids = new HashSet<Long>();
+				rawContactIds.put(row.number, ids);
+			}
+			ids.add(row.rawContactId);
+		}
+	}
+
+	/**
+	 * Returns the raw contacts having a number
+	 *
+	 * @param number Number in international format
+	 * @return Set of raw contact IDs, empty if none
+	 */
+	public synchronized Set<Long> getRawContactIds(String number) {
+		Set<Long> ids = rawContactIds.get(number);
+		if (ids == null) {
+			return new HashSet<Long>();
+		}
+		return new HashSet<Long>(ids);
+	}
+
+	/**
+	 * Is a number only used by some raw contacts
+	 *
+	 * @param number Number in international format
+	 * @param ids Raw contact IDs
+	 * @return Returns true if all the raw contacts having the number are in the given set
+	 */
+	public synchronized boolean isOnlyUsedBy(String number, Set<Long> ids) {
+		Set<Long> numberIds = rawContactIds.get(number);
+		return (numberIds != null) && ids.containsAll(numberIds);
+	}
+
+	/**
+	 * Returns the number of phone rows
+	 *
+	 * @return Number of rows
+	 */
+	public synchronized int size() {
+		return rows.size();
+	}
+
+	/**
+	 * Forget the snapshot, the next scan returns all the rows as added
+	 */
+	public synchronized void clear() {
+		rows.clear();
+		rawContactIds.clear();
+	}
+}
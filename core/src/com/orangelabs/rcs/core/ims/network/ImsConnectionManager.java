@@ -350,7 +350,8 @@ public class ImsConnectionManager implements Runnable {
 			// Load the user profile for the new network interface
 			loadUserProfile();
 			
-			// update DNS entry
+			// update DNS entry, the cached records may not be valid on the new network
+			ImsNetworkInterface.resetDnsResolver();
 						try {
 							mDnsResolvedFields = currentNetworkInterface.getDnsResolvedFields();
 						} catch (Exception e) {
@@ -386,6 +387,7 @@ public class ImsConnectionManager implements Runnable {
     						logger.debug("Disconnect from IMS: IP address has changed");
     					}
     					disconnectFromIms();
+    					ImsNetworkInterface.resetDnsResolver();
 				    } else {
                         if (logger.isActivated()) {
                             logger.debug("IP address available (again)");
@@ -620,8 +622,15 @@ public class ImsConnectionManager implements Runnable {
     	            	// Increment number of failures
     	            	nbFailures++;
     	            	
-    	            	// Force to perform a new DNS lookup 
-    	            	mDnsResolvedFields = null;
+    	            	// Fail over to the next resolved proxy, or force to perform
+    	            	// a new DNS lookup when all of them have been tried
+    	            	if ((mDnsResolvedFields == null) || !mDnsResolvedFields.nextEndpoint()) {
+    	            		mDnsResolvedFields = null;
+    	            	} else {
+    	            		if (logger.isActivated()) {
+    	            			logger.debug("Fail over to proxy " + mDnsResolvedFields.ipAddress + ":" + mDnsResolvedFields.port);
+    	            		}
+    	            	}
     	    		}
     			} else {
                     if (imsModule.isReady()) {
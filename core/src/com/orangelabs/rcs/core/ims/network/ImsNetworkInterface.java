@@ -20,20 +20,11 @@ package com.orangelabs.rcs.core.ims.network;
 
 
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.net.InetSocketAddress;
+import java.util.List;
 
 import javax2.sip.ListeningPoint;
 
-import org.xbill.DNS.ExtendedResolver;
-import org.xbill.DNS.Lookup;
-import org.xbill.DNS.NAPTRRecord;
-import org.xbill.DNS.Record;
-import org.xbill.DNS.ResolverConfig;
-import org.xbill.DNS.SRVRecord;
-import org.xbill.DNS.TextParseException;
-import org.xbill.DNS.Type;
-
 import com.orangelabs.rcs.core.CoreException;
 import com.orangelabs.rcs.core.access.NetworkAccess;
 import com.orangelabs.rcs.core.ims.ImsModule;
@@ -69,11 +60,76 @@ public abstract class ImsNetworkInterface {
         public String ipAddress = null;
         public int port = -1;
 
+        /**
+         * Resolved endpoints, the current one included
+         */
+        private List<InetSocketAddress> endpoints = null;
+
+        /**
+         * Index of the current endpoint
+         */
+        private int current = 0;
+
         public DnsResolvedFields(String ipAddress, int port) {
             this.ipAddress = ipAddress;
             this.port = port;
         }
+
+        /**
+         * Constructor
+         *
+         * @param endpoints Resolved endpoints in the order to try them
+         */
+        public DnsResolvedFields(List<InetSocketAddress> endpoints) {
+            this.endpoints = endpoints;
+            setCurrent(0);
+        }
+
+        private void setCurrent(int index) {
+            InetSocketAddress endpoint = endpoints.get(index);
+            this.current = index;
+            this.ipAddress = endpoint.getAddress().getHostAddress();
+            this.port = endpoint.getPort();
+        }
+
+        /**
+         * Switch to the next resolved endpoint, e.g. after a registration failure
+         *
+         * @return False if there is no other endpoint
+         */
+        public boolean nextEndpoint() {
+            if ((endpoints == null) || (current + 1 >= endpoints.size())) {
+                return false;
+            }
+            setCurrent(current + 1);
+            return true;
+        }
+
+        /**
+         * Check if an endpoint is one of the resolved endpoints
+         *
+         * @param ipAddress IP address
+         * @param port Port
+         * @return Boolean
+         */
+        public boolean isResolvedEndpoint(String ipAddress, int port) {
+            if (endpoints == null) {
+                return ipAddress.equals(this.ipAddress) && (port == this.port);
+            }
+            for (int i = 0; i < endpoints.size(); i++) {
+                InetSocketAddress endpoint = endpoints.get(i);
+                if (endpoint.getAddress().getHostAddress().equals(ipAddress) && (endpoint.getPort() == port)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
+
+    /**
+     * Resolver of the IMS proxy address, shared by the network interfaces
+     */
+    private static ImsProxyResolver dnsResolver = new ImsProxyResolver();
     
 	/**
 	 * IMS module
@@ -353,99 +409,6 @@ public abstract class ImsNetworkInterface {
         return registration.isRegistered();
     }
 
-    /**
-     * Get DNS records
-     * 
-     * @param domain Domain
-     * @param resolver Resolver
-     * @param type (Type.SRV or Type.NAPTR)
-     * @return SRV records or null if no record
-     */
-    private Record[] getDnsRequest(String domain, ExtendedResolver resolver, int type) {
-        try {
-            if (logger.isActivated()) {
-                if (type == Type.SRV) {
-                    logger.debug("DNS SRV lookup for " + domain);
-                } else if (type == Type.NAPTR) {
-                    logger.debug("DNS NAPTR lookup for " + domain);
-                }
-            }
-            Lookup lookup = new Lookup(domain, type);
-            lookup.setResolver(resolver);
-            Record[] result = lookup.run();
-            int code = lookup.getResult();
-            if (code != Lookup.SUCCESSFUL) {
-                if (logger.isActivated()) {
-                    logger.warn("Lookup error: " + code + "/" + lookup.getErrorString());
-                }
-            }
-            return result;
-        } catch(TextParseException e) {
-            if (logger.isActivated()) {
-                logger.debug("Not a valid DNS name");
-            }
-            return null;
-        } catch(IllegalArgumentException e) {
-            if (logger.isActivated()) {
-                logger.debug("Not a valid DNS type");
-            }
-            return null;
-        }
-    }
-
-    /**
-     * Get DNS A record
-     * 
-     * @param domain Domain
-     * @return IP address or null if no record
-     */
-    private String getDnsA(String domain) {
-		try {
-			if (logger.isActivated()) {
-				logger.debug("DNS A lookup for " + domain);
-			}
-			return InetAddress.getByName(domain).getHostAddress();
-        } catch(UnknownHostException e) {
-			if (logger.isActivated()) {
-				logger.debug("Unknown host for " + domain);
-			}
-			return null;
-        }
-    }
-    
-    /**
-     * Get best DNS SRV record
-     * 
-     * @param records SRV records
-     * @return IP address
-     */
-	private SRVRecord getBestDnsSRV(Record[] records) {
-		SRVRecord result = null;
-        for (int i = 0; i < records.length; i++) {
-        	SRVRecord srv = (SRVRecord)records[i];
-			if (logger.isActivated()) {
-				logger.debug("SRV record: " + srv.toString());
-			}
-			if (result == null) {
-				// First record
-				result = srv;
-			} else {
-				// Next record
-				if (srv.getPriority() < result.getPriority()) {
-					// Lowest priority
-					result = srv;
-				} else
-				if (srv.getPriority() == result.getPriority()) {
-					// Highest weight
-					if (srv.getWeight() > result.getWeight()) {
-						result = srv;
-					}
-				}
-			}
-        }
-        return result;
-	}
-	
 	// Changed by Deutsche Telekom
 	/**
 	 * Get the DNS resolved fields.
@@ -455,110 +418,20 @@ public abstract class ImsNetworkInterface {
 	protected DnsResolvedFields getDnsResolvedFields() throws Exception {
         // Changed by Deutsche Telekom
 		DnsResolvedFields dnsResolvedFields;
-		boolean useDns = true;
 		if (imsProxyAddr.matches(REGEX_IPV4)) {
-        	useDns = false;
         	dnsResolvedFields = new DnsResolvedFields(imsProxyAddr, imsProxyPort);
         
         	  if (logger.isActivated()) {
                   logger.warn("IP address found instead of FQDN!");
               }
-        }
-		else {
-			dnsResolvedFields = new DnsResolvedFields(null, imsProxyPort);
-		}
-          
-        if (useDns) {
-            // Set DNS resolver
-            ResolverConfig.refresh();
-            ExtendedResolver resolver = new ExtendedResolver(); 
-
-            // Resolve the IMS proxy configuration: first try to resolve via
-            // a NAPTR query, then a SRV query and finally via A query
-            if (logger.isActivated()) {
-                logger.debug("Resolve IMS proxy address " + imsProxyAddr);
-            }
-            
-            // DNS NAPTR lookup
-            String service;
-            if (imsProxyProtocol.equalsIgnoreCase(ListeningPoint.UDP)) {
-                service = "SIP+D2U";
-            } else
-            if (imsProxyProtocol.equalsIgnoreCase(ListeningPoint.TCP)) {
-                service = "SIP+D2T";
-            } else
-            if (imsProxyProtocol.equalsIgnoreCase(ListeningPoint.TLS)) {
-                service = "SIPS+D2T";
-            } else {
-                throw new SipException("Unkown SIP protocol");
-            }
-
-            boolean resolved = false;
-            Record[] naptrRecords = getDnsRequest(imsProxyAddr, resolver, Type.NAPTR);
-            if ((naptrRecords != null) && (naptrRecords.length > 0)) {
-                // First try with NAPTR
-                if (logger.isActivated()) {
-                    logger.debug("NAPTR records found: " + naptrRecords.length);
-                }
-                for (int i = 0; i < naptrRecords.length; i++) {
-                    NAPTRRecord naptr = (NAPTRRecord)naptrRecords[i];
-                    if (logger.isActivated()) {
-                        logger.debug("NAPTR record: " + naptr.toString());
-                    }
-                    if ((naptr != null) && naptr.getService().equalsIgnoreCase(service)) {
-                        // DNS SRV lookup
-						Record[] srvRecords = getDnsRequest(naptr.getReplacement().toString(), resolver, Type.SRV);
-                        if ((srvRecords != null) && (srvRecords.length > 0)) {
-                            SRVRecord srvRecord = getBestDnsSRV(srvRecords);
-                            dnsResolvedFields.ipAddress = getDnsA(srvRecord.getTarget().toString());
-                            dnsResolvedFields.port = srvRecord.getPort();
-                        } else {
-                            // Direct DNS A lookup
-                            dnsResolvedFields.ipAddress = getDnsA(imsProxyAddr);
-                        }
-                        resolved = true;
-                    }
-                }
-            }
-
-            if (!resolved) {
-                // If no NAPTR: direct DNS SRV lookup
-                if (logger.isActivated()) {
-                    logger.debug("No NAPTR record found: use DNS SRV instead");
-                }
-                String query;
-                if (imsProxyAddr.startsWith("_sip.")) {
-                    query = imsProxyAddr;
-                } else {
-                    query = "_sip._" + imsProxyProtocol.toLowerCase() + "." + imsProxyAddr;
-                }
-				Record[] srvRecords = getDnsRequest(query, resolver, Type.SRV);
-                if ((srvRecords != null) && (srvRecords.length > 0)) {
-                    SRVRecord srvRecord = getBestDnsSRV(srvRecords);
-                    dnsResolvedFields.ipAddress = getDnsA(srvRecord.getTarget().toString());
-                    dnsResolvedFields.port = srvRecord.getPort();
-                    resolved = true;
-                }
-
-                if (!resolved) {
-                    // If not resolved: direct DNS A lookup
-                    if (logger.isActivated()) {
-                        logger.debug("No SRV record found: use DNS A instead");
-                    }
-                    dnsResolvedFields.ipAddress = getDnsA(imsProxyAddr);
-                }
-            }       
-        }
-        
-        if (dnsResolvedFields.ipAddress == null) {
-            // Changed by Deutsche Telekom
-            // Try to use IMS proxy address as a fallback
-            String imsProxyAddrResolved = getDnsA(imsProxyAddr);
-            if (imsProxyAddrResolved != null){
-                dnsResolvedFields = new DnsResolvedFields(imsProxyAddrResolved, imsProxyPort);
-            } else {
+        } else {
+            // Resolve the IMS proxy configuration: NAPTR, SRV and finally A
+            // records, the next endpoints being kept for the failover
+            List<InetSocketAddress> endpoints = dnsResolver.resolve(imsProxyAddr, imsProxyProtocol, imsProxyPort);
+            if (endpoints.size() == 0) {
                 throw new SipException("Proxy IP address not found");
             }
+            dnsResolvedFields = new DnsResolvedFields(endpoints);
         }
         
         if (logger.isActivated()) {
@@ -568,6 +441,14 @@ public abstract class ImsNetworkInterface {
         
         return dnsResolvedFields;
 	}
+
+    /**
+     * Flush the DNS cache and reload the DNS servers. To be called when the
+     * network has changed.
+     */
+    public static void resetDnsResolver() {
+        dnsResolver.reset();
+    }
 	
 	/**
      * Register to the IMS
@@ -643,15 +524,12 @@ public abstract class ImsNetworkInterface {
                 logger.debug("Registration state has changed: sip stack not initialized yet.");
             }
             return dnsResolvedFields;
-        } else if (!sip.getSipStack().getOutboundProxyAddr().equals(dnsResolvedFields.ipAddress)) {
-            if (logger.isActivated()) {
-                logger.debug("Registration state has changed: proxy ip address has changed (old: " + sip.getSipStack().getOutboundProxyAddr()
-                        + " - new: " + dnsResolvedFields.ipAddress + ").");
-            }
-            return dnsResolvedFields;
-        } else if (sip.getSipStack().getOutboundProxyPort() != dnsResolvedFields.port) {
+        } else if (!dnsResolvedFields.isResolvedEndpoint(sip.getSipStack().getOutboundProxyAddr(),
+                sip.getSipStack().getOutboundProxyPort())) {
+            // The current proxy may be any of the resolved endpoints after a failover
             if (logger.isActivated()) {
-                logger.debug("Registration state has changed: proxy port has changed (old: " + sip.getSipStack().getOutboundProxyPort() + " - new: "
+                logger.debug("Registration state has changed: proxy has changed (old: " + sip.getSipStack().getOutboundProxyAddr()
+                        + ":" + sip.getSipStack().getOutboundProxyPort() + " - new: " + dnsResolvedFields.ipAddress + ":"
                         + dnsResolvedFields.port + ").");
             }
             return dnsResolvedFields;
@@ -0,0 +1,475 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.network;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax2.sip.ListeningPoint;
+
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.Cache;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.ExtendedResolver;
+import org.xbill.DNS.Lookup;
+import org.xbill.DNS.NAPTRRecord;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.ResolverConfig;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+import com.orangelabs.rcs.core.ims.protocol.sip.SipException;
+import com.orangelabs.rcs.utils.NamedThreadPool;
+import com.orangelabs.rcs.utils.logger.Logger;
+
+/**
+ * IMS proxy resolver (RFC 3263). The NAPTR query and the fallback SRV query
+ * are sent at the same time, as are the queries for the SRV targets. The
+ * records are kept by TTL in a cache shared by the registrations, which is
+ * only flushed when the network changes. The result is the ordered list of
+ * the proxy endpoints to try, following the SRV priorities and weights.
+ */
+public class ImsProxyResolver {
+	/**
+	 * Maximum number of concurrent DNS queries
+	 */
+	private final static int MAX_QUERIES = 4;
+
+	/**
+	 * Threads running the DNS queries
+	 */
+	private final static NamedThreadPool queryPool = new NamedThreadPool("DnsQuery", MAX_QUERIES);
+
+	/**
+	 * Records cache
+	 */
+	private Cache cache = new Cache(DClass.IN);
+
+	/**
+	 * DNS resolver, created from the system configuration when null
+	 */
+	private Resolver resolver;
+
+	/**
+	 * True if the resolver has been given by the caller
+	 */
+	private boolean fixedResolver;
+
+	/**
+	 * Random generator for the SRV weights
+	 */
+	private Random random = new Random();
+
+	/**
+	 * The logger
+	 */
+	private Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Constructor, using the DNS servers of the system
+	 */
+	public ImsProxyResolver() {
+		this.fixedResolver = false;
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param resolver DNS resolver to use (e.g. a SimpleResolver on a test server)
+	 */
+	public ImsProxyResolver(Resolver resolver) {
+		this.resolver = resolver;
+		this.fixedResolver = true;
+	}
+
+	/**
+	 * Flush the cache and reload the DNS servers of the system. To be called
+	 * when the network has changed.
+	 */
+	public synchronized void reset() {
+		if (logger.isActivated()) {
+			logger.debug("Reset DNS resolver");
+		}
+		cache.clearCache();
+		if (!fixedResolver) {
+			resolver = null;
+		}
+	}
+
+	/**
+	 * Returns the DNS resolver, created on first use after a reset
+	 *
+	 * @return Resolver
+	 * @throws UnknownHostException if no resolver can be created
+	 */
+	private synchronized Resolver getResolver() throws UnknownHostException {
+		if (resolver == null) {
+			ResolverConfig.refresh();
+			resolver = new ExtendedResolver();
+		}
+		return resolver;
+	}
+
+	/**
+	 * Resolve the IMS proxy endpoints: via NAPTR, then SRV and finally A
+	 * records.
+	 *
+	 * @param domain IMS proxy domain
+	 * @param protocol SIP protocol (UDP, TCP or TLS)
+	 * @param defaultPort Port used when no SRV record is found
+	 * @return Endpoints to try in order, empty if the domain is not resolved
+	 * @throws SipException if the protocol is unknown
+	 */
+	public List<InetSocketAddress> resolve(String domain, String protocol, int defaultPort)
+			throws SipException {
+		String service;
+		if (protocol.equalsIgnoreCase(ListeningPoint.UDP)) {
+			service = "SIP+D2U";
+		} else
+		if (protocol.equalsIgnoreCase(ListeningPoint.TCP)) {
+			service = "SIP+D2T";
+		} else
+		if (protocol.equalsIgnoreCase(ListeningPoint.TLS)) {
+			service = "SIPS+D2T";
+		} else {
+			throw new SipException("Unkown SIP protocol");
+		}
+		if (logger.isActivated()) {
+			logger.debug("Resolve IMS proxy address " + domain);
+		}
+
+		Resolver resolver;
+		try {
+			resolver = getResolver();
+		} catch (UnknownHostException e) {
+			if (logger.isActivated()) {
+				logger.warn("No DNS server");
+			}
+			return toEndpoints(getAddresses(domain, null), defaultPort);
+		}
+
+		// Send the NAPTR query and the fallback SRV query together
+		String srvQuery;
+		if (domain.startsWith("_sip.")) {
+			srvQuery = domain;
+		} else {
+			srvQuery = "_sip._" + protocol.toLowerCase() + "." + domain;
+		}
+		FutureTask<Record[]> naptrQuery = query(domain, Type.NAPTR, resolver);
+		FutureTask<Record[]> srvFallbackQuery = query(srvQuery, Type.SRV, resolver);
+
+		// First try with NAPTR
+		List<SRVRecord> srvRecords = new ArrayList<SRVRecord>();
+		boolean naptrFound = false;
+		List<NAPTRRecord> naptrRecords = getNaptrRecords(getResult(naptrQuery), service);
+		if (naptrRecords.size() > 0) {
+			naptrFound = true;
+			List<FutureTask<Record[]>> srvQueries = new ArrayList<FutureTask<Record[]>>();
+			for (int i = 0; i < naptrRecords.size(); i++) {
+				srvQueries.add(query(naptrRecords.get(i).getReplacement().toString(), Type.SRV,
+						resolver));
+			}
+			for (int i = 0; i < srvQueries.size(); i++) {
+				srvRecords.addAll(sortSrvRecords(getResult(srvQueries.get(i))));
+			}
+		}
+
+		// If no NAPTR: direct DNS SRV lookup
+		if (!naptrFound) {
+			if (logger.isActivated()) {
+				logger.debug("No NAPTR record found: use DNS SRV instead");
+			}
+			srvRecords.addAll(sortSrvRecords(getResult(srvFallbackQuery)));
+		} else {
+			srvFallbackQuery.cancel(false);
+		}
+
+		List<InetSocketAddress> endpoints = new ArrayList<InetSocketAddress>();
+		if (srvRecords.size() > 0) {
+			// Resolve the SRV targets together
+			Map<String, FutureTask<Record[]>> targetQueries = new HashMap<String, FutureTask<Record[]>>();
+			for (int i = 0; i < srvRecords.size(); i++) {
+				String target = srvRecords.get(i).getTarget().toString();
+				if (!targetQueries.containsKey(target)) {
+					targetQueries.put(target, query(target, Type.A, resolver));
+				}
+			}
+			for (int i = 0; i < srvRecords.size(); i++) {
+				SRVRecord srv = srvRecords.get(i);
+				String target = srv.getTarget().toString();
+				List<InetSocketAddress> targetEndpoints = toEndpoints(
+						getAddresses(target, targetQueries.get(target)), srv.getPort());
+				for (int j = 0; j < targetEndpoints.size(); j++) {
+					if (!endpoints.contains(targetEndpoints.get(j))) {
+						endpoints.add(targetEndpoints.get(j));
+					}
+				}
+			}
+		}
+
+		if (endpoints.size() == 0) {
+			// If not resolved: direct DNS A lookup
+			if (logger.isActivated()) {
+				logger.debug("No SRV record found: use DNS A instead");
+			}
+			endpoints = toEndpoints(getAddresses(domain, query(domain, Type.A, resolver)),
+					defaultPort);
+		}
+
+		if (logger.isActivated()) {
+			logger.debug("IMS proxy endpoints: " + endpoints);
+		}
+		return endpoints;
+	}
+
+	/**
+	 * Start a DNS query on the query threads
+	 *
+	 * @param name Name
+	 * @param type Record type
+	 * @param resolver Resolver
+	 * @return Query result, null records if not found
+	 */
+	private FutureTask<Record[]> query(final String name, final int type, final Resolver resolver) {
+		FutureTask<Record[]> task = new FutureTask<Record[]>(new Callable<Record[]>() {
+			public Record[] call() {
+				return getDnsRequest(name, type, resolver);
+			}
+		});
+		queryPool.execute(task);
+		return task;
+	}
+
+	/**
+	 * Wait for the result of a DNS query
+	 *
+	 * @param query Query
+	 * @return Records or null if no record
+	 */
+	private Record[] getResult(FutureTask<Record[]> query) {
+		try {
+			return query.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			if (logger.isActivated()) {
+				logger.warn("DNS query failed: " + e.getCause());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Get DNS records
+	 *
+	 * @param domain Domain
+	 * @param type Record type
+	 * @param resolver Resolver
+	 * @return Records or null if no record
+	 */
+	private Record[] getDnsRequest(String domain, int type, Resolver resolver) {
+		try {
+			if (logger.isActivated()) {
+				logger.debug("DNS " + Type.string(type) + " lookup for " + domain);
+			}
+			Lookup lookup = new Lookup(domain, type);
+			lookup.setResolver(resolver);
+			lookup.setCache(cache);
+			Record[] result = lookup.run();
+			int code = lookup.getResult();
+			if (code != Lookup.SUCCESSFUL) {
+				if (logger.isActivated()) {
+					logger.warn("Lookup error: " + code + "/" + lookup.getErrorString());
+				}
+			}
+			return result;
+		} catch(TextParseException e) {
+			if (logger.isActivated()) {
+				logger.debug("Not a valid DNS name");
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Get the addresses of a host from its A records, or from the system
+	 * resolver if there is none (e.g. host declared locally)
+	 *
+	 * @param host Host name
+	 * @param query A query already sent for the host, or null
+	 * @return Addresses
+	 */
+	private List<InetAddress> getAddresses(String host, FutureTask<Record[]> query) {
+		List<InetAddress> addresses = new ArrayList<InetAddress>();
+		Record[] records = (query != null) ? getResult(query) : null;
+		if (records != null) {
+			for (int i = 0; i < records.length; i++) {
+				if (records[i] instanceof ARecord) {
+					addresses.add(((ARecord)records[i]).getAddress());
+				}
+			}
+		}
+		if (addresses.size() == 0) {
+			try {
+				InetAddress[] all = InetAddress.getAllByName(host);
+				for (int i = 0; i < all.length; i++) {
+					addresses.add(all[i]);
+				}
+			} catch(UnknownHostException e) {
+				if (logger.isActivated()) {
+					logger.debug("Unknown host for " + host);
+				}
+			}
+		}
+		return addresses;
+	}
+
+	/**
+	 * Build the endpoints of a list of addresses
+	 *
+	 * @param addresses Addresses
+	 * @param port Port
+	 * @return Endpoints
+	 */
+	private static List<InetSocketAddress> toEndpoints(List<InetAddress> addresses, int port) {
+		List<InetSocketAddress> endpoints = new ArrayList<InetSocketAddress>();
+		for (int i = 0; i < addresses.size(); i++) {
+			endpoints.add(new InetSocketAddress(addresses.get(i), port));
+		}
+		return endpoints;
+	}
+
+	/**
+	 * Get the NAPTR records of a SIP service, by order and preference
+	 *
+	 * @param records NAPTR records
+	 * @param service Service
+	 * @return NAPTR records
+	 */
+	private List<NAPTRRecord> getNaptrRecords(Record[] records, String service) {
+		List<NAPTRRecord> result = new ArrayList<NAPTRRecord>();
+		if (records == null) {
+			return result;
+		}
+		if (logger.isActivated()) {
+			logger.debug("NAPTR records found: " + records.length);
+		}
+		for (int i = 0; i < records.length; i++) {
+			if (!(records[i] instanceof NAPTRRecord)) {
+				continue;
+			}
+			NAPTRRecord naptr = (NAPTRRecord)records[i];
+			if (logger.isActivated()) {
+				logger.debug("NAPTR record: " + naptr.toString());
+			}
+			if (naptr.getService().equalsIgnoreCase(service)) {
+				result.add(naptr);
+			}
+		}
+		Collections.sort(result, new Comparator<NAPTRRecord>() {
+			public int compare(NAPTRRecord r1, NAPTRRecord r2) {
+				if (r1.getOrder() != r2.getOrder()) {
+					return r1.getOrder() - r2.getOrder();
+				}
+				return r1.getPreference() - r2.getPreference();
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Order SRV records as specified by RFC 2782: by priority, and by a
+	 * random selection weighted by the record weights for a same priority
+	 *
+	 * @param records SRV records
+	 * @return Ordered SRV records
+	 */
+	private List<SRVRecord> sortSrvRecords(Record[] records) {
+		List<SRVRecord> srvRecords = new ArrayList<SRVRecord>();
+		if (records == null) {
+			return srvRecords;
+		}
+		for (int i = 0; i < records.length; i++) {
+			if (records[i] instanceof SRVRecord) {
+				SRVRecord srv = (SRVRecord)records[i];
+				if (logger.isActivated()) {
+					logger.debug("SRV record: " + srv.toString());
+				}
+				// A "." target means that the service is not available
+				if (srv.getTarget().labels() > 1) {
+					srvRecords.add(srv);
+				}
+			}
+		}
+		// Zero weight records first within a priority, as required for the
+		// weighted selection
+		Collections.sort(srvRecords, new Comparator<SRVRecord>() {
+			public int compare(SRVRecord r1, SRVRecord r2) {
+				if (r1.getPriority() != r2.getPriority()) {
+					return r1.getPriority() - r2.getPriority();
+				}
+				return (r1.getWeight() == 0 ? 0 : 1) - (r2.getWeight() == 0 ? 0 : 1);
+			}
+		});
+
+		List<SRVRecord> result = new ArrayList<SRVRecord>(srvRecords.size());
+		int start = 0;
+		while (start < srvRecords.size()) {
+			int end = start;
+			while ((end < srvRecords.size())
+					&& (srvRecords.get(end).getPriority() == srvRecords.get(start).getPriority())) {
+				end++;
+			}
+			List<SRVRecord> group = new ArrayList<SRVRecord>(srvRecords.subList(start, end));
+			while (group.size() > 0) {
+				int total = 0;
+				for (int i = 0; i < group.size(); i++) {
+					total += group.get(i).getWeight();
+				}
+				int selection = random.nextInt(total + 1);
+				int sum = 0;
+				int selected = group.size() - 1;
+				for (int i = 0; i < group.size(); i++) {
+					sum += group.get(i).getWeight();
+					if (sum >= selection) {
+						selected = i;
+						break;
+					}
+				}
+				result.add(group.remove(selected));
+			}
+			start = end;
+		}
+		return result;
+	}
+}
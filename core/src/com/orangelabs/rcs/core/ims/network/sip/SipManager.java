@@ -33,6 +33,7 @@ import com.orangelabs.rcs.core.ims.protocol.sip.SipMessage;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipRequest;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipResponse;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionListener;
 import com.orangelabs.rcs.provider.settings.RcsSettings;
 import com.orangelabs.rcs.utils.logger.Logger;
 
@@ -180,64 +181,116 @@ public class SipManager {
             ctx.waitResponse(timeout);
 
             // Analyze the received response
-            if (message instanceof SipRequest
-                && !((SipRequest)message).getMethod().equals(Request.REGISTER)
-                    && ctx.isSipResponse()) {
-                // Check if not registered and warning header
-                WarningHeader warn = (WarningHeader)ctx.getSipResponse().getHeader(WarningHeader.NAME);
-                if ((ctx.getStatusCode() == 403) && (warn == null)) {
-                    // Launch new registration
-                    networkInterface.getRegistrationManager().restart();
+            if (!analyzeResponse(message, ctx)) {
+                // Throw not registered exception 
+                throw new SipException("Not registered");
+            }
 
-                    // Throw not registered exception 
-                    throw new SipException("Not registered");
-                }
+            // Return the transaction context 
+            return ctx;
+		} else {
+			throw new SipException("Stack not initialized");
+		}
+	}
+
+    /**
+     * Send a SIP message without blocking the caller: the listener is notified
+     * from the SIP stack when the response is received or when the timeout occurs
+     *
+     * @param message SIP message
+     * @param listener Transaction listener
+     * @return Transaction context
+     * @throws SipException
+     */
+    public SipTransactionContext sendSipMessageAndNotify(SipMessage message, SipTransactionListener listener) throws SipException {
+    	return sendSipMessageAndNotify(message, listener, SipManager.TIMEOUT);
+    }
+
+    /**
+     * Send a SIP message without blocking the caller: the listener is notified
+     * from the SIP stack when the response is received or when the timeout occurs
+     *
+     * @param message SIP message
+     * @param listener Transaction listener
+     * @param timeout SIP timeout
+     * @return Transaction context
+     * @throws SipException
+     */
+    public SipTransactionContext sendSipMessageAndNotify(final SipMessage message, final SipTransactionListener listener,
+    		int timeout) throws SipException {
+        if (sipstack != null) {
+            return sipstack.sendSipMessageAndNotify(message, new SipTransactionListener() {
+				public void transactionCompleted(SipTransactionContext ctx) {
+					// Analyze the received response
+					analyzeResponse(message, ctx);
+
+					listener.transactionCompleted(ctx);
+				}
+			}, timeout);
+		} else {
+			throw new SipException("Stack not initialized");
+		}
+    }
+
+    /**
+     * Analyze the response received for a SIP message
+     *
+     * @param message SIP message
+     * @param ctx Transaction context
+     * @return False if the terminal is not registered anymore
+     */
+    private boolean analyzeResponse(SipMessage message, SipTransactionContext ctx) {
+        if (message instanceof SipRequest
+            && !((SipRequest)message).getMethod().equals(Request.REGISTER)
+                && ctx.isSipResponse()) {
+            // Check if not registered and warning header
+            WarningHeader warn = (WarningHeader)ctx.getSipResponse().getHeader(WarningHeader.NAME);
+            if ((ctx.getStatusCode() == 403) && (warn == null)) {
+                // Launch new registration
+                networkInterface.getRegistrationManager().restart();
+                return false;
             }
-            
-			KeepAliveManager keepAliveManager = networkInterface.getSipManager().getSipStack().getKeepAliveManager();
-			if (message instanceof SipRequest && ctx.isSipResponse()) {
-				String method = ((SipRequest) message).getMethod();
-				if (method != null && keepAliveManager != null) {
-					if (method.equals(Request.INVITE) || method.equals(Request.REGISTER)) {
-						// Message is a response to INVITE or REGISTER: analyze "keep" flag of "Via" header
-						int viaKeep = -1;
-						ListIterator<ViaHeader> iterator = ctx.getSipResponse().getViaHeaders();
-						if (iterator != null) {
-							ViaHeader respViaHeader = iterator.next();
-							// Retrieve "keep" value
-							String keepStr = respViaHeader.getParameter("keep");
-							if (keepStr != null) {
-								// Convert "keep" value to integer
-								try {
-									viaKeep = Integer.parseInt(keepStr);
-									if (viaKeep > 0) {
-										// If "keep" value is valid, set keep alive period
-										keepAliveManager.setPeriod(viaKeep);
-									} else {
-										if (logger.isActivated())
-											logger.warn("Non positive keep value \"" + keepStr + "\"");
-									}
-								} catch (NumberFormatException e) {
+        }
+        
+		KeepAliveManager keepAliveManager = networkInterface.getSipManager().getSipStack().getKeepAliveManager();
+		if (message instanceof SipRequest && ctx.isSipResponse()) {
+			String method = ((SipRequest) message).getMethod();
+			if (method != null && keepAliveManager != null) {
+				if (method.equals(Request.INVITE) || method.equals(Request.REGISTER)) {
+					// Message is a response to INVITE or REGISTER: analyze "keep" flag of "Via" header
+					int viaKeep = -1;
+					ListIterator<ViaHeader> iterator = ctx.getSipResponse().getViaHeaders();
+					if (iterator != null) {
+						ViaHeader respViaHeader = iterator.next();
+						// Retrieve "keep" value
+						String keepStr = respViaHeader.getParameter("keep");
+						if (keepStr != null) {
+							// Convert "keep" value to integer
+							try {
+								viaKeep = Integer.parseInt(keepStr);
+								if (viaKeep > 0) {
+									// If "keep" value is valid, set keep alive period
+									keepAliveManager.setPeriod(viaKeep);
+								} else {
 									if (logger.isActivated())
-										logger.warn("Non-numeric keep value \"" + keepStr + "\"");
+										logger.warn("Non positive keep value \"" + keepStr + "\"");
 								}
+							} catch (NumberFormatException e) {
+								if (logger.isActivated())
+									logger.warn("Non-numeric keep value \"" + keepStr + "\"");
 							}
 						}
-						// If "keep" value is invalid or not present, set keep alive period to default value
-						if (viaKeep <= 0) {
-							keepAliveManager.setPeriod(RcsSettings.getInstance().getSipKeepAlivePeriod());
-						}
+					}
+					// If "keep" value is invalid or not present, set keep alive period to default value
+					if (viaKeep <= 0) {
+						keepAliveManager.setPeriod(RcsSettings.getInstance().getSipKeepAlivePeriod());
 					}
 				}
 			}
-			
-            // Return the transaction context 
-            return ctx;
-		} else {
-			throw new SipException("Stack not initialized");
 		}
-	}
-
+		
+        return true;
+    }
 
 	/**
      * Send a SIP response
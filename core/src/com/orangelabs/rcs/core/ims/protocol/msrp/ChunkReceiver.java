@@ -18,8 +18,10 @@
 
 package com.orangelabs.rcs.core.ims.protocol.msrp;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Hashtable;
 
 import com.orangelabs.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
@@ -37,19 +39,68 @@ public class ChunkReceiver extends Thread {
 	private MsrpConnection connection;
 	
 	/**
-	 * MSRP input stream
+	 * MSRP input buffer
 	 */
-	private InputStream stream;
+	private MsrpInputBuffer input;
 	
 	/**
 	 * Termination flag
 	 */
 	private boolean terminated = false;
 
-    /**
-     * maximum length of MSRP chunk buffer
-     */
-    private int buffer_length = MsrpConstants.CHUNK_MAX_SIZE;
+	/**
+	 * Charset used to decode MSRP lines
+	 */
+	private final static Charset CHARSET = Charset.forName("ISO-8859-1");
+
+	/**
+	 * Maximum size of a chunk held in the input buffer
+	 */
+	private final static int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * MSRP tag
+	 */
+	private final static byte[] MSRP_TAG = (MsrpConstants.MSRP_HEADER + " ").getBytes();
+
+	/**
+	 * SEND method
+	 */
+	private final static byte[] METHOD_SEND = MsrpConstants.METHOD_SEND.getBytes();
+
+	/**
+	 * REPORT method
+	 */
+	private final static byte[] METHOD_REPORT = MsrpConstants.METHOD_REPORT.getBytes();
+
+	/**
+	 * Well-known header names, reused instead of decoding a new name for each chunk
+	 */
+	private final static String[] HEADER_NAMES = {
+		MsrpConstants.HEADER_TO_PATH,
+		MsrpConstants.HEADER_FROM_PATH,
+		MsrpConstants.HEADER_MESSAGE_ID,
+		MsrpConstants.HEADER_BYTE_RANGE,
+		MsrpConstants.HEADER_CONTENT_TYPE,
+		MsrpConstants.HEADER_STATUS,
+		MsrpConstants.HEADER_FAILURE_REPORT,
+		MsrpConstants.HEADER_SUCCESS_REPORT
+	};
+
+	/**
+	 * Encoded well-known header names
+	 */
+	private final static byte[][] HEADER_NAME_BYTES = new byte[HEADER_NAMES.length][];
+	static {
+		for(int i=0; i < HEADER_NAMES.length; i++) {
+			HEADER_NAME_BYTES[i] = HEADER_NAMES[i].getBytes();
+		}
+	}
+
+	/**
+	 * Data of chunks without Byte-Range header
+	 */
+	private ByteArrayOutputStream lineData = new ByteArrayOutputStream();
 
 	/**
 	 * The logger
@@ -64,7 +115,7 @@ public class ChunkReceiver extends Thread {
 	 */
 	public ChunkReceiver(MsrpConnection connection, InputStream stream) {
 		this.connection = connection;
-		this.stream = stream;
+		this.input = new MsrpInputBuffer(stream, 2 * MsrpConstants.CHUNK_MAX_SIZE, MAX_BUFFER_SIZE);
 	}
 	
 	/**
@@ -84,178 +135,200 @@ public class ChunkReceiver extends Thread {
 		try {
 			interrupt();
 		} catch(Exception e) {}
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Receiver is terminated");
 		}
 	}
 	
+	
 	/**
 	 * Background processing
 	 */
 	public void run() {
 		try {
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Receiver is started");
 			}
 
 			// Background processing
 			while (!terminated) {
-				StringBuffer trace = new StringBuffer();
+				StringBuffer trace = null;
+				if (MsrpConnection.MSRP_TRACE_ENABLED) {
+					trace = new StringBuffer();
+				}
 
 				// Read first line of a new data chunk
-				StringBuffer line = readLine();
-
-				if (line.length() == 0) {
-					if (logger.isActivated()) {
+				int offset = input.readLine();
+				int length = input.length();
+				if (length == 0) {
+					if (logger.isDebugEnabled()) {
 						logger.debug("End of stream");
 					}
 					return;
 				}
+				byte[] buffer = input.array();
 
 				if (MsrpConnection.MSRP_TRACE_ENABLED) {
-					trace.append(line);
+					trace.append(new String(buffer, offset, length, CHARSET));
 					trace.append(MsrpConstants.NEW_LINE);
 				}
 
-				if (logger.isActivated()) {
+				if (logger.isDebugEnabled()) {
 					logger.debug("Read a new chunk");
 				}
 
 				// Check the MSRP tag
-				String[] firstLineTags = line.toString().split(" ");
-				if ((firstLineTags.length < 3) || !firstLineTags[0].equals(MsrpConstants.MSRP_HEADER)) {
-					if (logger.isActivated()) {
+				int lineEnd = offset + length;
+				int txIdStart = offset + MSRP_TAG.length;
+				int txIdEnd = indexOf(buffer, txIdStart, lineEnd, MsrpConstants.CHAR_SP);
+				if (!input.startsWith(offset, length, MSRP_TAG) || (txIdEnd <= txIdStart) || (txIdEnd + 1 >= lineEnd)) {
+					if (logger.isDebugEnabled()) {
 						logger.debug("Not a MSRP message");
 					}
 					return;
 				}
 
 				// Get the transaction ID from the first line
-				String txId = firstLineTags[1];
-				if (logger.isActivated()) {
+				String txId = new String(buffer, txIdStart, txIdEnd - txIdStart, CHARSET);
+				if (logger.isDebugEnabled()) {
 					logger.debug("Transaction-ID: " + txId);
 				}
-				String end = MsrpConstants.END_MSRP_MSG + txId;
+				byte[] end = (MsrpConstants.END_MSRP_MSG + txId).getBytes();
 
 				// Get response code or method name from the first line
-				int responseCode = -1;
+				int methodStart = txIdEnd + 1;
+				int methodEnd = indexOf(buffer, methodStart, lineEnd, MsrpConstants.CHAR_SP);
+				if (methodEnd == -1) {
+					methodEnd = lineEnd;
+				}
+				int responseCode = parseResponseCode(buffer, methodStart, methodEnd);
 				String method = null;
-				try {
-					responseCode = Integer.parseInt(firstLineTags[2]);
-					if (logger.isActivated()) {
+				if (responseCode != -1) {
+					if (logger.isDebugEnabled()) {
 						logger.debug("Response: " + responseCode);
 					}
-				} catch (NumberFormatException e) {
-					method = firstLineTags[2];
-					if (logger.isActivated()) {
+				} else {
+					method = getMethod(buffer, methodStart, methodEnd - methodStart);
+					if (logger.isDebugEnabled()) {
 						logger.debug("Method: " + method);
 					}
 				}
 
-				// Data chunk
+				// Data chunk, kept as a region of the input buffer
 				byte[] data = null;
+				int dataOffset = 0;
+				int dataLength = 0;
 
 				// Read next lines
 				Hashtable<String, String> headers = new Hashtable<String, String>();
-				char continuationFlag = '\0';
+				int continuationFlag = '\0';
 				int totalSize = 0;
 				while (continuationFlag == '\0' && !terminated) {
-					line = readLine();
+					offset = input.readLine();
+					if (offset == -1) {
+						throw new IOException("End of stream in MSRP chunk");
+					}
+					length = input.length();
+					buffer = input.array();
 					if (MsrpConnection.MSRP_TRACE_ENABLED) {
-						trace.append(line);
+						trace.append(new String(buffer, offset, length, CHARSET));
 						trace.append(MsrpConstants.NEW_LINE);
 					}
 
 					// Test if there is a new line separating headers from the data
-					if (line.length() == 0) {
+					if (length == 0) {
 						// Read data
 						String byteRange = headers.get(MsrpConstants.HEADER_BYTE_RANGE);
 						int chunkSize = -1;
 						if (byteRange != null) {
 							chunkSize = MsrpUtils.getChunkSize(byteRange);
 							totalSize = MsrpUtils.getTotalSize(byteRange);
-
-							// Changed by Deutsche Telekom
-							if (chunkSize == 0) {
-								this.buffer_length = totalSize;
-							}
 						}
 
-						if (logger.isActivated()) {
+						if (logger.isDebugEnabled()) {
 							logger.debug("Read data (" + chunkSize + ")");
 						}
 
-						if (chunkSize >= 0) {
-							// Use Byte-Range value to read directly the block of data
-							byte[] buffer = readChunkedData(chunkSize, end);
-
-							if (chunkSize > 0) {
-								data = buffer;
-								// TODO: we could harden the code by checking whether the chunk was shorter than expected
-							} else {
-								// Cut off continuation flag
-								data = new byte[buffer.length - 1];
-								System.arraycopy(buffer, 0, data, 0, buffer.length - 1);
-								continuationFlag = (char) buffer[buffer.length - 1];
-								if (logger.isActivated()) {
-									logger.debug("Continuous flag: " + continuationFlag);
-								}
-							}
-
-							if (MsrpConnection.MSRP_TRACE_ENABLED) {
-								trace.append(new String(data));
-								trace.append(MsrpConstants.NEW_LINE);
+						if (chunkSize > 0) {
+							// Use Byte-Range value to read directly the block of data followed by the end line
+							int tailSize = end.length + 5;
+							dataOffset = input.read(chunkSize + tailSize);
+							dataLength = chunkSize;
+							data = input.array();
+							int tail = dataOffset + dataLength;
+							if ((data[tail] != MsrpConstants.CHAR_LF) || (data[tail + 1] != MsrpConstants.CHAR_CR)
+									|| !isEndLine(data, tail + 2, end.length + 1, end)) {
+								throw new IOException("Invalid MSRP end line");
 							}
+							continuationFlag = data[tail + 2 + end.length];
+						} else if (chunkSize == 0) {
+							// Read until the end line is found
+							byte[] tag = new byte[end.length + 2];
+							tag[0] = MsrpConstants.CHAR_LF;
+							tag[1] = MsrpConstants.CHAR_CR;
+							System.arraycopy(end, 0, tag, 2, end.length);
+							dataOffset = input.readUntilEndLine(tag);
+							dataLength = input.length();
+							data = input.array();
+							continuationFlag = data[dataOffset + dataLength + tag.length];
 						} else {
-							// Read until terminating header is found
-							StringBuffer buffer = new StringBuffer();
-							StringBuffer dataline;
+							// Read line by line until terminating header is found
+							lineData.reset();
 							boolean endchunk = false;
-							while ((!endchunk) && (buffer.length() < MsrpConstants.CHUNK_MAX_SIZE)) {
-								dataline = readLine();
-								if ((dataline.length() - 1 == end.length()) && (dataline.toString().startsWith(end))) {
-									continuationFlag = dataline.charAt(dataline.length() - 1);
-									if (logger.isActivated()) {
-										logger.debug("Continuous flag: " + continuationFlag);
-									}
+							while ((!endchunk) && (lineData.size() < MsrpConstants.CHUNK_MAX_SIZE)) {
+								int lineOffset = input.readLine();
+								if (lineOffset == -1) {
+									throw new IOException("End of stream in MSRP chunk");
+								}
+								int lineLength = input.length();
+								byte[] line = input.array();
+								if (isEndLine(line, lineOffset, lineLength, end)) {
+									continuationFlag = line[lineOffset + lineLength - 1];
 									endchunk = true;
 								} else {
-									if (buffer.length() > 0) {
-										buffer.append(MsrpConstants.NEW_LINE);
+									if (lineData.size() > 0) {
+										lineData.write(MsrpConstants.CHAR_LF);
+										lineData.write(MsrpConstants.CHAR_CR);
 									}
-									buffer.append(dataline);
+									lineData.write(line, lineOffset, lineLength);
 								}
 							}
-							data = buffer.toString().getBytes();
-							totalSize = data.length;
-
-							if (MsrpConnection.MSRP_TRACE_ENABLED) {
-								trace.append(new String(data));
-								trace.append(MsrpConstants.NEW_LINE);
-								trace.append(end);
-								trace.append(continuationFlag);
-							}
+							data = lineData.toByteArray();
+							dataOffset = 0;
+							dataLength = data.length;
+							totalSize = dataLength;
 						}
-						if (logger.isActivated()) {
-							logger.debug("Data: " + data.length);
+						if (logger.isDebugEnabled()) {
+							logger.debug("Continuous flag: " + (char)continuationFlag);
 						}
-					} else if (line.toString().startsWith(end)) {
-						continuationFlag = line.charAt(line.length() - 1);
-						if (logger.isActivated()) {
-							logger.debug("Continuous flag: " + continuationFlag);
+
+						if (MsrpConnection.MSRP_TRACE_ENABLED) {
+							trace.append(new String(data, dataOffset, dataLength, CHARSET));
+							trace.append(MsrpConstants.NEW_LINE);
+							trace.append(new String(end, CHARSET));
+							trace.append((char)continuationFlag);
+						}
+						if (logger.isDebugEnabled()) {
+							logger.debug("Data: " + dataLength);
+						}
+					} else if (isEndLine(buffer, offset, length, end)) {
+						continuationFlag = buffer[offset + length - 1];
+						if (logger.isDebugEnabled()) {
+							logger.debug("Continuous flag: " + (char)continuationFlag);
 						}
 					} else {
 						// It's an header
-						int index = line.indexOf(":");
-						String headerName = line.substring(0, index).trim();
-						String headerValue = line.substring(index + 1).trim();
+						int index = indexOf(buffer, offset, offset + length, MsrpConstants.CHAR_DOUBLE_POINT);
+						if (index == -1) {
+							throw new IOException("Invalid MSRP header");
+						}
+						String headerName = getHeaderName(buffer, offset, index);
+						String headerValue = decodeTrimmed(buffer, index + 1, offset + length);
 
 						// Add the header in the list
 						headers.put(headerName, headerValue);
-						if (logger.isActivated()) {
-							// Changed by Deutsche Telekom
-							logger.debug("Header: " + headerName + " - Value: " + headerValue);
-						}
+						// Changed by Deutsche Telekom
+						logger.debug("Header: {} - Value: {}", headerName, headerValue);
 					}
 				}
 
@@ -268,13 +341,13 @@ public class ChunkReceiver extends Thread {
 					connection.getSession().receiveMsrpResponse(responseCode, txId, headers);
 				} else {
 					// Process MSRP request
-					if (method.toString().equals(MsrpConstants.METHOD_SEND)) {
+					if (method.equals(MsrpConstants.METHOD_SEND)) {
 						// Process a SEND request
 						if (MsrpConnection.MSRP_TRACE_ENABLED) {
 							System.out.println("<<< Receive MSRP SEND request:\n" + trace);
 						}
-						connection.getSession().receiveMsrpSend(txId, headers, continuationFlag, data, totalSize);
-					} else if (method.toString().equals(MsrpConstants.METHOD_REPORT)) {
+						connection.getSession().receiveMsrpSend(txId, headers, continuationFlag, data, dataOffset, dataLength, totalSize);
+					} else if (method.equals(MsrpConstants.METHOD_REPORT)) {
 						// Process a REPORT request
 						if (MsrpConnection.MSRP_TRACE_ENABLED) {
 							System.out.println("<<< Receive MSRP REPORT request:\n" + trace);
@@ -282,7 +355,7 @@ public class ChunkReceiver extends Thread {
 						connection.getSession().receiveMsrpReport(txId, headers);
 					} else {
 						// Unknown request
-						if (logger.isActivated()) {
+						if (logger.isDebugEnabled()) {
 							logger.debug("Unknown request received: " + method);
 						}
 
@@ -298,7 +371,7 @@ public class ChunkReceiver extends Thread {
 			}
 		} catch (Exception e) {
 			if (terminated) {
-				if (logger.isActivated()) {
+				if (logger.isDebugEnabled()) {
 					logger.debug("Chunk receiver thread terminated");
 				}
 			} else {
@@ -319,87 +392,117 @@ public class ChunkReceiver extends Thread {
 	}
 
 	/**
-	 * Read line
-	 * 
-	 * @return String
-	 * @throws IOException
+	 * Returns the index of a byte in a region of a buffer
+	 *
+	 * @param buffer Buffer
+	 * @param from Start offset
+	 * @param to End offset (exclusive)
+	 * @param value Searched byte
+	 * @return Index or -1 if not found
 	 */
-	private StringBuffer readLine() throws IOException {
-		StringBuffer line = new StringBuffer();
-		int previous = -1;
-		int current = -1;
-		while((current = stream.read()) != -1) {
-			line.append((char)current);			
-			if ((previous == MsrpConstants.CHAR_LF) && (current == MsrpConstants.CHAR_CR)) {
-				return line.delete(line.length()-2, line.length());
+	private static int indexOf(byte[] buffer, int from, int to, byte value) {
+		for(int i=from; i < to; i++) {
+			if (buffer[i] == value) {
+				return i;
 			}
-			previous = current;
 		}
-		return line;			
+		return -1;
 	}
-		
+
 	/**
-	 * Read chunked data
+	 * Test if a line is the end line of the transaction
 	 *
-	 * @param chunkSize Chunk size
-	 * @return Data
-	 * @throws IOException
+	 * @param buffer Buffer
+	 * @param offset Offset of the line
+	 * @param length Length of the line, CRLF excluded
+	 * @param end End line tag of the transaction
+	 * @return Boolean
 	 */
-	private byte[] readChunkedData(int chunkSize, String endTag) throws IOException {
-		// Read data until chunk size is reached
-		byte[] result = null;
-		if (chunkSize != 0) {
-			result = new byte[chunkSize];
-			int nbRead = 0;
-			int nbData = -1;
-			while ((nbRead < chunkSize) && ((nbData = stream.read(result, nbRead, chunkSize - nbRead)) != -1)) {
-				nbRead += nbData;
-			}
-		} else {
-			int b;
-			int tagLength = endTag.length();
-			int[] tail = new int[tagLength];
-			byte[] buffer = new byte[this.buffer_length + tagLength + 2];
-
-			// MSRP end tag in reverse order
-			int[] match = new int[tagLength];
-			for (int i = 0; i < tagLength; i++) {
-				match[i] = (int) endTag.charAt(tagLength - i - 1);
+	private boolean isEndLine(byte[] buffer, int offset, int length, byte[] end) {
+		return (length == end.length + 1) && input.startsWith(offset, length, end)
+				&& MsrpUtils.isContinuationFlag(buffer[offset + length - 1]);
+	}
+
+	/**
+	 * Parse a response code from the first line
+	 *
+	 * @param buffer Buffer
+	 * @param from Start offset
+	 * @param to End offset (exclusive)
+	 * @return Response code or -1 if the token is not a number
+	 */
+	private static int parseResponseCode(byte[] buffer, int from, int to) {
+		if (from == to) {
+			return -1;
+		}
+		int code = 0;
+		for(int i=from; i < to; i++) {
+			int digit = buffer[i] - '0';
+			if ((digit < 0) || (digit > 9)) {
+				return -1;
 			}
+			code = code * 10 + digit;
+		}
+		return code;
+	}
 
-			// Read stream byte by byte
-			for (int j = 0; (b = stream.read()) != -1; j++) {
-				// Sliding window over last received bytes
-				System.arraycopy(tail, 0, tail, 1, tagLength - 1);
-				tail[0] = b;
+	/**
+	 * Get the method name from the first line
+	 *
+	 * @param buffer Buffer
+	 * @param offset Offset of the method
+	 * @param length Length of the method
+	 * @return Method constant for known methods
+	 */
+	private String getMethod(byte[] buffer, int offset, int length) {
+		if ((length == METHOD_SEND.length) && input.startsWith(offset, length, METHOD_SEND)) {
+			return MsrpConstants.METHOD_SEND;
+		} else if ((length == METHOD_REPORT.length) && input.startsWith(offset, length, METHOD_REPORT)) {
+			return MsrpConstants.METHOD_REPORT;
+		} else {
+			return new String(buffer, offset, length, CHARSET);
+		}
+	}
 
-				if (b != match[0]) {
-					buffer[j] = (byte) b;
-				} else {
-					// First char matches; let's check for the others
-					boolean tagFound = true;
-					for (int k = 1; k < tagLength - 1; k++) {
-						if (tail[k] != match[k]) {
-							buffer[j] = (byte) b;
-							tagFound = false;
-							break;
-						}
-					}
-					if (tagFound) {
-						// Strip off MSRP end tag
-						// j+1 characters read; remove tagLength characters and CR/LF plus one extra character for continuation flag
-						result = new byte[j - tagLength];
-						System.arraycopy(buffer, 0, result, 0, j - tagLength - 1); // remove tag and CR/LF
-
-						// read continuation flag
-						result[j - tagLength - 1] = (byte) stream.read();
-						break;
-					}
-				}
+	/**
+	 * Get a header name, reusing the constant of well-known headers
+	 *
+	 * @param buffer Buffer
+	 * @param from Start offset
+	 * @param to End offset (exclusive)
+	 * @return Header name
+	 */
+	private String getHeaderName(byte[] buffer, int from, int to) {
+		while((from < to) && (buffer[from] <= MsrpConstants.CHAR_SP)) {
+			from++;
+		}
+		while((to > from) && (buffer[to-1] <= MsrpConstants.CHAR_SP)) {
+			to--;
+		}
+		int length = to - from;
+		for(int i=0; i < HEADER_NAME_BYTES.length; i++) {
+			if ((HEADER_NAME_BYTES[i].length == length) && input.startsWith(from, length, HEADER_NAME_BYTES[i])) {
+				return HEADER_NAMES[i];
 			}
 		}
-		stream.read(); // Read LF
-		stream.read(); // Read CR
-		return result;
+		return new String(buffer, from, length, CHARSET);
+	}
+
+	/**
+	 * Decode a region of a buffer without leading and trailing whitespaces
+	 *
+	 * @param buffer Buffer
+	 * @param from Start offset
+	 * @param to End offset (exclusive)
+	 * @return String
+	 */
+	private static String decodeTrimmed(byte[] buffer, int from, int to) {
+		while((from < to) && (buffer[from] <= MsrpConstants.CHAR_SP)) {
+			from++;
+		}
+		while((to > from) && (buffer[to-1] <= MsrpConstants.CHAR_SP)) {
+			to--;
+		}
+		return new String(buffer, from, to - from, CHARSET);
 	}
 }
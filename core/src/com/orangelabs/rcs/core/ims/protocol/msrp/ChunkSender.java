@@ -18,10 +18,14 @@
 
 package com.orangelabs.rcs.core.ims.protocol.msrp;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 
 import com.orangelabs.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
+import com.orangelabs.rcs.utils.EventQueue;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
@@ -30,6 +34,16 @@ import com.orangelabs.rcs.utils.logger.Logger;
  * @author jexa7410
  */
 public class ChunkSender extends Thread {
+	/**
+	 * Size of the pooled chunk buffers: a data chunk and its headers
+	 */
+	public final static int POOL_BUFFER_SIZE = MsrpConstants.CHUNK_MAX_SIZE + 1024;
+
+	/**
+	 * Maximum number of pooled chunk buffers
+	 */
+	private final static int POOL_MAX_SIZE = MsrpTransaction.DEFAULT_WINDOW_SIZE;
+
 	/**
 	 * MSRP connection
 	 */
@@ -43,7 +57,12 @@ public class ChunkSender extends Thread {
 	/**
 	 * Buffer of chunks
 	 */
-	private FifoBuffer buffer = new FifoBuffer();
+	private EventQueue<ByteBuffer> buffer = new EventQueue<ByteBuffer>();
+
+	/**
+	 * Pool of chunk buffers
+	 */
+	private ArrayList<byte[]> pool = new ArrayList<byte[]>();
 
 	/**
 	 * Termination flag
@@ -63,7 +82,8 @@ public class ChunkSender extends Thread {
 	 */
 	public ChunkSender(MsrpConnection connection, OutputStream stream) {
 		this.connection = connection;
-		this.stream = stream;
+		// Small chunks are coalesced in a single socket write, large ones are written directly
+		this.stream = new BufferedOutputStream(stream, MsrpConstants.CHUNK_MAX_SIZE);
 	}	
 	
 	/**
@@ -80,11 +100,11 @@ public class ChunkSender extends Thread {
 	 */
 	public void terminate() {
 		terminated = true; 
-		buffer.unblockRead();
+		buffer.close();
 		try {
 			interrupt();
 		} catch(Exception e) {}
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Sender is terminated");
 		}
 	}
@@ -94,22 +114,25 @@ public class ChunkSender extends Thread {
 	 */
 	public void run() {
 		try {
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Sender is started");
 			}
 
 			// Read chunk to be sent
-			byte chunk[] = null;
-			while ((chunk = (byte[])buffer.getMessage()) != null) {
-				// Write chunk to the output stream
-				if (MsrpConnection.MSRP_TRACE_ENABLED) {
-					System.out.println(">>> Send MSRP message:\n" + new String(chunk));
-				}
-				writeData(chunk);
+			ByteBuffer chunk = null;
+			while ((chunk = buffer.take()) != null) {
+				// Write chunk and the ones already queued to the output stream
+				do {
+					if (MsrpConnection.MSRP_TRACE_ENABLED) {
+						System.out.println(">>> Send MSRP message:\n" + new String(chunk.array(), 0, chunk.limit()));
+					}
+					writeData(chunk, false);
+				} while ((chunk = buffer.poll()) != null);
+				flushData();
 			}
 		} catch (Exception e) {
 			if (terminated) { 
-				if (logger.isActivated()) {
+				if (logger.isDebugEnabled()) {
 					logger.debug("Chunk sender thread terminated");
 				}
 			} else {
@@ -124,6 +147,41 @@ public class ChunkSender extends Thread {
 		}
 	}
 	
+	/**
+	 * Get a buffer to build a chunk. The buffer is released once the chunk
+	 * has been written and must not be reused by the caller after sending it.
+	 * 
+	 * @param size Minimum size of the buffer
+	 * @return Buffer
+	 */
+	public byte[] obtainBuffer(int size) {
+		if (size > POOL_BUFFER_SIZE) {
+			return new byte[size];
+		}
+		synchronized(pool) {
+			if (pool.size() > 0) {
+				return pool.remove(pool.size() - 1);
+			}
+		}
+		return new byte[POOL_BUFFER_SIZE];
+	}
+
+	/**
+	 * Release a chunk buffer
+	 * 
+	 * @param data Buffer
+	 */
+	private void releaseBuffer(byte[] data) {
+		if (data.length != POOL_BUFFER_SIZE) {
+			return;
+		}
+		synchronized(pool) {
+			if (pool.size() < POOL_MAX_SIZE) {
+				pool.add(data);
+			}
+		}
+	}
+
 	/**
 	 * Send a chunk
 	 * 
@@ -131,10 +189,21 @@ public class ChunkSender extends Thread {
 	 * @throws IOException
 	 */
 	public void sendChunk(byte chunk[]) throws IOException {
+		sendChunk(chunk, chunk.length);
+	}
+
+	/**
+	 * Send a chunk
+	 * 
+	 * @param chunk Buffer containing the new chunk
+	 * @param length Length of the chunk
+	 * @throws IOException
+	 */
+	public void sendChunk(byte chunk[], int length) throws IOException {
 		if (connection.getSession().isFailureReportRequested()) {
-			buffer.putMessage(chunk);
+			buffer.offer(ByteBuffer.wrap(chunk, 0, length));
 		} else {
-			sendChunkImmediately(chunk);
+			sendChunkImmediately(chunk, length);
 		}
 	}
 
@@ -145,20 +214,48 @@ public class ChunkSender extends Thread {
 	 * @throws IOException
 	 */
 	public void sendChunkImmediately(byte chunk[]) throws IOException {
+		sendChunkImmediately(chunk, chunk.length);
+	}
+
+	/**
+	 * Send a chunk immediately
+	 * 
+	 * @param chunk Buffer containing the new chunk
+	 * @param length Length of the chunk
+	 * @throws IOException
+	 */
+	public void sendChunkImmediately(byte chunk[], int length) throws IOException {
 		if (MsrpConnection.MSRP_TRACE_ENABLED) {
-			System.out.println(">>> Send MSRP message:\n" + new String(chunk));
+			System.out.println(">>> Send MSRP message:\n" + new String(chunk, 0, length));
 		}
-		writeData(chunk);
+		writeData(ByteBuffer.wrap(chunk, 0, length), true);
 	}
 	
 	/**
 	 * Write data to the stream
 	 * 
 	 * @param chunk Data chunk
+	 * @param flush Flush the stream after the chunk
+	 * @throws IOException
+	 */
+	private void writeData(ByteBuffer chunk, boolean flush) throws IOException {
+		synchronized(stream) {
+			stream.write(chunk.array(), 0, chunk.limit());
+			if (flush) {
+				stream.flush();
+			}
+		}
+		releaseBuffer(chunk.array());
+	}
+
+	/**
+	 * Flush the data written to the stream
+	 * 
 	 * @throws IOException
 	 */
-	private synchronized void writeData(byte chunk[]) throws IOException {
-		stream.write(chunk);
-		stream.flush();
+	private void flushData() throws IOException {
+		synchronized(stream) {
+			stream.flush();
+		}
 	}
 }
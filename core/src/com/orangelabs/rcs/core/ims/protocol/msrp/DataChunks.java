@@ -18,65 +18,217 @@
 
 package com.orangelabs.rcs.core.ims.protocol.msrp;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Vector;
 
 /**
- * Data chunks
+ * Data chunks. Chunks are kept in memory until the cached size reaches a
+ * threshold, then the cached data are moved to a temporary file and next
+ * chunks are appended to it.
+ * <br>The chunks are added by the receiver thread while the cache may be
+ * reset by the session being closed, the methods are synchronized.
  *
  * @author jexa7410
  */
 public class DataChunks {
+	/**
+	 * Default memory threshold in bytes
+	 */
+	public final static int DEFAULT_MEMORY_THRESHOLD = 32 * MsrpConstants.CHUNK_MAX_SIZE;
+
     /**
      * Current transfered size in bytes
      */
     private int currentSize = 0;
-    
+
+    /**
+     * Size of the cached data in bytes
+     */
+    private int cachedSize = 0;
+
     /**
-	 * Cache used to save data chunks
+     * Memory threshold in bytes
+     */
+    private int memoryThreshold;
+
+    /**
+	 * Chunks cached in memory
+	 */
+	private List<byte[]> cache = new ArrayList<byte[]>();
+
+	/**
+	 * Temporary file used when the memory threshold is reached
+	 */
+	private File spillFile = null;
+
+	/**
+	 * Channel of the temporary file
 	 */
-	private ByteArrayOutputStream cache = new ByteArrayOutputStream();	
+	private FileChannel spillChannel = null;
 
 	/**
 	 * Constructor
 	 */
 	public DataChunks() {
+		this(DEFAULT_MEMORY_THRESHOLD);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param memoryThreshold Maximum size in bytes cached in memory
+	 */
+	public DataChunks(int memoryThreshold) {
+		this.memoryThreshold = memoryThreshold;
 	}
-	
+
 	/**
-	 * Add a new chunk
+	 * Add a new chunk. The array is kept as is in the cache and must not be
+	 * modified by the caller.
 	 *
+	 * @param msgId Message ID
 	 * @param data Data chunk
 	 */
-	public void addChunk(byte[] data) throws IOException, MsrpException {
-        try {
-		cache.write(data, 0, data.length);
-        } catch (OutOfMemoryError e) {
-            throw new MsrpException("Not enough memory to save data");
-        }
+	public synchronized void addChunk(String msgId, byte[] data) throws IOException, MsrpException {
+		if ((spillChannel == null) && (cachedSize + data.length <= memoryThreshold)) {
+			cache.add(data);
+		} else {
+			spill(msgId).write(ByteBuffer.wrap(data));
+		}
+		cachedSize += data.length;
 		currentSize += data.length;
 	}
 
 	/**
-     * Get received data
+	 * Add a new chunk from a region of a buffer
+	 *
+	 * @param msgId Message ID
+	 * @param data Buffer
+	 * @param offset Offset of the chunk in the buffer
+	 * @param length Length of the chunk
+	 */
+	public synchronized void addChunk(String msgId, byte[] data, int offset, int length) throws IOException, MsrpException {
+		if ((spillChannel == null) && (cachedSize + length <= memoryThreshold)) {
+			byte[] chunk = new byte[length];
+			System.arraycopy(data, offset, chunk, 0, length);
+			cache.add(chunk);
+		} else {
+			spill(msgId).write(ByteBuffer.wrap(data, offset, length));
+		}
+		cachedSize += length;
+		currentSize += length;
+	}
+
+	/**
+	 * Count a chunk consumed by the listener without caching it
+	 *
+	 * @param length Length of the chunk
+	 */
+	public synchronized void skipChunk(int length) {
+		currentSize += length;
+	}
+
+	/**
+	 * Get the temporary file channel, moving the cached chunks to it on first call
+	 *
+	 * @param msgId Message ID
+	 * @return File channel
+	 * @throws IOException
+	 */
+	private FileChannel spill(String msgId) throws IOException {
+		if (spillChannel == null) {
+			String prefix = "msrp";
+			if (msgId != null) {
+				prefix += "_" + msgId.replaceAll("[^A-Za-z0-9]", "");
+			}
+			spillFile = File.createTempFile(prefix, ".tmp");
+			spillChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+			for(byte[] chunk : cache) {
+				spillChannel.write(ByteBuffer.wrap(chunk));
+			}
+			cache.clear();
+		}
+		return spillChannel;
+	}
+
+	/**
+	 * Get a stream on the received data, read from the temporary file if the
+	 * memory threshold has been reached. The stream must be closed by the
+	 * caller, it is not affected by a reset of the cache.
+	 *
+	 * @return Input stream
+	 * @throws IOException
+	 */
+	public synchronized InputStream getReceivedStream() throws IOException {
+		if (spillFile != null) {
+			return new FileInputStream(spillFile);
+		}
+		Vector<InputStream> streams = new Vector<InputStream>(cache.size());
+		for(byte[] chunk : cache) {
+			streams.add(new ByteArrayInputStream(chunk));
+		}
+		Enumeration<InputStream> elements = streams.elements();
+		return new SequenceInputStream(elements);
+	}
+
+	/**
+     * Get received data, for the listeners consuming the whole content in
+     * memory
      *
      * @return Byte array
      */
-    public byte[] getReceivedData() throws IOException, MsrpException {
-    	byte[] result=null;
+    public synchronized byte[] getReceivedData() throws IOException, MsrpException {
+    	byte[] result = null;
     	try {
-			result = cache.toByteArray();
+    		result = new byte[cachedSize];
 		} catch (OutOfMemoryError e) {
             throw new MsrpException("Not enough memory to copy data");
 		}
+    	InputStream stream = getReceivedStream();
+    	try {
+    		int offset = 0;
+    		while (offset < result.length) {
+    			int nb = stream.read(result, offset, result.length - offset);
+    			if (nb == -1) {
+    				throw new MsrpException("Cached data truncated");
+    			}
+    			offset += nb;
+    		}
+    	} finally {
+    		stream.close();
+    	}
         return result;
     }
 
 	/**
      * Reset the cache
      */
-    public void resetCache() {
-    	cache.reset();
+    public synchronized void resetCache() {
+    	cache.clear();
+    	cachedSize = 0;
+    	if (spillChannel != null) {
+    		try {
+    			spillChannel.close();
+    		} catch (IOException e) {
+    			// Nothing to do
+    		}
+    		spillChannel = null;
+    	}
+    	if (spillFile != null) {
+    		spillFile.delete();
+    		spillFile = null;
+    	}
     }
 
     /**
@@ -84,7 +236,16 @@ public class DataChunks {
 	 *
 	 * @return Size in bytes
 	 */
-	public int getCurrentSize() {
+	public synchronized int getCurrentSize() {
 		return currentSize;
 	}
+
+	/**
+	 * Returns the size of the cached data
+	 *
+	 * @return Size in bytes
+	 */
+	public synchronized int getCachedSize() {
+		return cachedSize;
+	}
 }
@@ -117,7 +117,7 @@ public class MsrpClientConnection extends MsrpConnection {
 	 * @throws IOException
 	 */
 	public SocketConnection getSocketConnection() throws IOException {
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Open client socket to " + remoteAddress + ":" + remotePort);
 		}
 		SocketConnection socket;
@@ -134,7 +134,7 @@ public class MsrpClientConnection extends MsrpConnection {
 			socket = NetworkFactory.getFactory().createSocketClientConnection();
 		}
 		socket.open(remoteAddress, remotePort);
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Socket connected to " + socket.getRemoteAddress() + ":" + socket.getRemotePort());
 		}
 		return socket;
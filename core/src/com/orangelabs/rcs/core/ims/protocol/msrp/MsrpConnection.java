@@ -110,7 +110,7 @@ public abstract class MsrpConnection {
 		sender = new ChunkSender(this, outputStream);
 		sender.start();
 
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Connection has been opened");
 		}
 	}
@@ -140,7 +140,7 @@ public abstract class MsrpConnection {
 		sender = new ChunkSender(this, outputStream);
 		sender.start();
 
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Connection has been opened");
 		}
 	}
@@ -161,7 +161,7 @@ public abstract class MsrpConnection {
 
 		// Close socket connection
 		try {
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Close the socket connection");
 			}
 			if (inputStream != null) {
@@ -179,7 +179,7 @@ public abstract class MsrpConnection {
 			}
 		}
 		
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Connection has been closed");
 		}
 	}
@@ -195,6 +195,27 @@ public abstract class MsrpConnection {
 	}	
 
 	/**
+	 * Send a new data chunk built in a buffer obtained from {@link #obtainChunkBuffer(int)}
+	 * 
+	 * @param chunk Buffer containing the data chunk
+	 * @param length Length of the data chunk
+	 * @throws IOException
+	 */
+	public void sendChunk(byte chunk[], int length) throws IOException {
+		sender.sendChunk(chunk, length);
+	}	
+
+	/**
+	 * Get a buffer to build a data chunk
+	 * 
+	 * @param size Minimum size of the buffer
+	 * @return Buffer
+	 */
+	public byte[] obtainChunkBuffer(int size) {
+		return sender.obtainBuffer(size);
+	}
+
+	/**
 	 * Send a new data chunk immediately
 	 * 
 	 * @param chunk Data chunk
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.msrp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reusable input buffer used to decode MSRP frames at byte level. Data read
+ * from the socket stays in a single array and the decoder only manipulates
+ * offsets on it: the region returned by a read method remains valid until
+ * the next read method is called. The buffer grows to hold a whole region,
+ * up to a maximum capacity: a larger region fails the read.
+ */
+public class MsrpInputBuffer {
+	/**
+	 * Input stream
+	 */
+	private InputStream stream;
+
+	/**
+	 * Buffer
+	 */
+	private byte[] buffer;
+
+	/**
+	 * Maximum capacity of the buffer
+	 */
+	private int maxCapacity;
+
+	/**
+	 * Offset of the first unread byte
+	 */
+	private int position = 0;
+
+	/**
+	 * Offset of the end of the available data
+	 */
+	private int limit = 0;
+
+	/**
+	 * Length of the last read region
+	 */
+	private int length = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param stream Input stream
+	 * @param capacity Initial capacity of the buffer
+	 * @param maxCapacity Maximum capacity of the buffer
+	 */
+	public MsrpInputBuffer(InputStream stream, int capacity, int maxCapacity) {
+		this.stream = stream;
+		this.buffer = new byte[capacity];
+		this.maxCapacity = maxCapacity;
+	}
+
+	/**
+	 * Returns the backing array
+	 *
+	 * @return Byte array
+	 */
+	public byte[] array() {
+		return buffer;
+	}
+
+	/**
+	 * Returns the length of the last read region
+	 *
+	 * @return Length in bytes
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Read a line terminated by CRLF
+	 *
+	 * @return Offset of the line in the backing array (CRLF excluded) or -1 at the end of stream
+	 * @throws IOException
+	 */
+	public int readLine() throws IOException {
+		int scan = position;
+		while(true) {
+			for(; scan + 1 < limit; scan++) {
+				if ((buffer[scan] == MsrpConstants.CHAR_LF) && (buffer[scan+1] == MsrpConstants.CHAR_CR)) {
+					int offset = position;
+					length = scan - position;
+					position = scan + 2;
+					return offset;
+				}
+			}
+			int scanned = scan - position;
+			if (!fill()) {
+				// End of stream: return the remaining bytes
+				if (limit == position) {
+					length = 0;
+					return -1;
+				}
+				int offset = position;
+				length = limit - position;
+				position = limit;
+				return offset;
+			}
+			scan = position + scanned;
+		}
+	}
+
+	/**
+	 * Read a block of bytes
+	 *
+	 * @param size Number of bytes
+	 * @return Offset of the block in the backing array
+	 * @throws IOException
+	 */
+	public int read(int size) throws IOException {
+		if ((size < 0) || (size > maxCapacity)) {
+			throw new IOException("Invalid MSRP block size " + size);
+		}
+		while(limit - position < size) {
+			if (!fill()) {
+				throw new EOFException("End of stream");
+			}
+		}
+		int offset = position;
+		length = size;
+		position += size;
+		return offset;
+	}
+
+	/**
+	 * Read a single byte
+	 *
+	 * @return Byte value
+	 * @throws IOException
+	 */
+	public int read() throws IOException {
+		return buffer[read(1)] & 0xff;
+	}
+
+	/**
+	 * Read bytes until an end line is found: the given tag followed by a
+	 * continuation flag and CRLF. The end line is consumed but not included
+	 * in the returned region, it stays available in the backing array just
+	 * after the region.
+	 *
+	 * @param tag Tag
+	 * @return Offset of the data in the backing array
+	 * @throws IOException
+	 */
+	public int readUntilEndLine(byte[] tag) throws IOException {
+		int scan = position;
+		while(true) {
+			for(; scan + tag.length + 3 <= limit; scan++) {
+				int trailer = scan + tag.length;
+				if (matches(scan, tag) && MsrpUtils.isContinuationFlag(buffer[trailer])
+						&& (buffer[trailer+1] == MsrpConstants.CHAR_LF) && (buffer[trailer+2] == MsrpConstants.CHAR_CR)) {
+					int size = scan - position;
+					int offset = read(size + tag.length + 3);
+					length = size;
+					return offset;
+				}
+			}
+			int scanned = scan - position;
+			if (!fill()) {
+				throw new EOFException("End of stream");
+			}
+			scan = position + scanned;
+		}
+	}
+
+	/**
+	 * Test if the given region of the buffer starts with a tag
+	 *
+	 * @param offset Offset in the backing array
+	 * @param size Size of the region
+	 * @param tag Tag
+	 * @return Boolean
+	 */
+	public boolean startsWith(int offset, int size, byte[] tag) {
+		return (size >= tag.length) && matches(offset, tag);
+	}
+
+	/**
+	 * Test if the bytes at the given offset match a tag
+	 *
+	 * @param offset Offset
+	 * @param tag Tag
+	 * @return Boolean
+	 */
+	private boolean matches(int offset, byte[] tag) {
+		for(int i=0; i < tag.length; i++) {
+			if (buffer[offset+i] != tag[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read more data from the stream, compacting or growing the buffer if needed
+	 *
+	 * @return False at the end of stream
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		if (limit == buffer.length) {
+			if (position > 0) {
+				// Move the unread bytes at the beginning of the buffer
+				System.arraycopy(buffer, position, buffer, 0, limit - position);
+				limit -= position;
+				position = 0;
+			} else if (buffer.length < maxCapacity) {
+				// Grow the buffer to keep the whole region contiguous
+				byte[] newBuffer = new byte[(int)Math.min(2L * buffer.length, maxCapacity)];
+				System.arraycopy(buffer, 0, newBuffer, 0, limit);
+				buffer = newBuffer;
+			} else {
+				throw new IOException("MSRP frame larger than " + maxCapacity + " bytes");
+			}
+		}
+		int nb = stream.read(buffer, limit, buffer.length - limit);
+		if (nb == -1) {
+			return false;
+		}
+		limit += nb;
+		return true;
+	}
+}
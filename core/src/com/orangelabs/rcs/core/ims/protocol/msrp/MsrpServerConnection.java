@@ -64,18 +64,18 @@ public class MsrpServerConnection extends MsrpConnection {
 	 * @throws IOException
 	 */
 	public SocketConnection getSocketConnection() throws IOException {
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Open server socket at " + localPort);
 		}
         socketServer = NetworkFactory.getFactory().createSocketServerConnection();
 		socketServer.open(localPort);
 
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Wait client connection");
 		}
 
 		SocketConnection socket = socketServer.acceptConnection();
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Socket connected to " + socket.getRemoteAddress() + ":" + socket.getRemotePort());
 		}
 		return socket;
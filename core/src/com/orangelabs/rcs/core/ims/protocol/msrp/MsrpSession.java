@@ -174,6 +174,11 @@ public class MsrpSession {
      * File transfer progress
      */
     private long totalSize;
+
+    /**
+     * Maximum number of SEND requests sent without response
+     */
+    private int sendWindowSize = MsrpTransaction.DEFAULT_WINDOW_SIZE;
     
     /**
 	 * The logger
@@ -268,6 +273,16 @@ public class MsrpSession {
 		this.successReportOption = successReportOption;
 	}	
 
+	/**
+	 * Set the maximum number of SEND requests sent without response when
+	 * failure reports are requested
+	 * 
+	 * @param sendWindowSize Window size
+	 */
+	public void setSendWindowSize(int sendWindowSize) {
+		this.sendWindowSize = sendWindowSize;
+	}
+
 	/**
 	 * Set the MSRP connection
 	 * 
@@ -344,7 +359,7 @@ public class MsrpSession {
 	 * Close the session
 	 */
 	public void close() {
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Close session");
 		}
 
@@ -355,6 +370,9 @@ public class MsrpSession {
 		if (connection != null) {
 			connection.close();
 		}
+
+		// Release the received data
+		receivedChunks.resetCache();
 		
 		// Unblock request transaction
 		if (requestTransaction != null) {
@@ -414,35 +432,11 @@ public class MsrpSession {
 				reportTransaction = null;
 			}
             if (failureReportOption) {
-                msrpTransaction = new MsrpTransaction();
+                msrpTransaction = new MsrpTransaction(sendWindowSize);
             } else {
                 msrpTransaction = null;
             }
 
-            // Changed by Deutsche Telekom
-            // Calculate number of needed chunks
-            final int totalChunks = (int) Math.ceil(totalSize / (double) MsrpConstants.CHUNK_MAX_SIZE);
-            
-			new Thread(new Runnable() {
-
-				@Override
-				public void run() {
-					if (msrpTransaction != null) {
-						while ((totalChunks - msrpTransaction.getNumberReceivedOk()) > 0 && !cancelTransfer) {
-							msrpEventListener.msrpTransferProgress(msrpTransaction.getNumberReceivedOk()
-									* MsrpConstants.CHUNK_MAX_SIZE, totalSize);
-							try {
-								Thread.sleep(500);
-							} catch (InterruptedException e) {
-								e.printStackTrace();
-							}
-						}
-					}
-
-				}
-
-			}).start();
-            
             // Changed by Deutsche Telekom
             String newTransactionId = null;
 
@@ -463,6 +457,12 @@ public class MsrpSession {
 				newTransactionId = generateTransactionId();
 				addMsrpTransactionInfo(newTransactionId, msrpMsgId, msgId, typeMsrpChunk);
 				
+				// Progress management: notified when the response of the chunk is received
+                if (failureReportOption) {
+                    // Add value in progress vector 
+                    progress.add(lastByte);
+                }
+
 				// Send a chunk
 				// Changed by Deutsche Telekom
 				sendMsrpSendRequest(newTransactionId, to, from, msrpMsgId, contentType, i, data, firstByte, lastByte, totalSize);
@@ -471,10 +471,7 @@ public class MsrpSession {
 				firstByte += i;
 
 				// Progress management
-                if (failureReportOption) {
-                    // Add value in progress vector 
-                    progress.add(lastByte);
-                } else {
+                if (!failureReportOption) {
                     // Direct notification
                     if (!cancelTransfer) {
                         msrpEventListener.msrpTransferProgress(lastByte, totalSize);
@@ -595,75 +592,87 @@ public class MsrpSession {
 			byte data[], long firstByte, long lastByte, long totalSize) throws MsrpException, IOException {
 		boolean isLastChunk = (lastByte == totalSize);
 
-		// Create request
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream(4000);
-		buffer.reset();
-		buffer.write(MsrpConstants.MSRP_HEADER.getBytes());
-		buffer.write(MsrpConstants.CHAR_SP);
-		buffer.write(txId.getBytes());
-		buffer.write((" " + MsrpConstants.METHOD_SEND).getBytes());
-		buffer.write(MsrpConstants.NEW_LINE.getBytes());
+		// Wait for a free slot in the window of pending requests
+		if (failureReportOption && (msrpTransaction != null)) {
+			if (!msrpTransaction.handleRequest()) {
+				if (msrpTransaction.isTerminated()) {
+					// Session closed
+					return;
+				}
+				throw new MsrpException("timeout");
+			}
+		}
 
-		String toHeader = MsrpConstants.HEADER_TO_PATH + ": " + to + MsrpConstants.NEW_LINE;
-		buffer.write(toHeader.getBytes());
-		String fromHeader = MsrpConstants.HEADER_FROM_PATH + ": " + from + MsrpConstants.NEW_LINE;
-		buffer.write(fromHeader.getBytes());
+		// Create request
+		StringBuilder header = new StringBuilder(256);
+		header.append(MsrpConstants.MSRP_HEADER).append((char)MsrpConstants.CHAR_SP).append(txId).append(' ')
+				.append(MsrpConstants.METHOD_SEND).append(MsrpConstants.NEW_LINE);
+		header.append(MsrpConstants.HEADER_TO_PATH).append(": ").append(to).append(MsrpConstants.NEW_LINE);
+		header.append(MsrpConstants.HEADER_FROM_PATH).append(": ").append(from).append(MsrpConstants.NEW_LINE);
 		// Changed by Deutsche Telekom
-		String msgIdHeader = MsrpConstants.HEADER_MESSAGE_ID + ": " + msrpMsgId + MsrpConstants.NEW_LINE;
-		buffer.write(msgIdHeader.getBytes());
+		header.append(MsrpConstants.HEADER_MESSAGE_ID).append(": ").append(msrpMsgId).append(MsrpConstants.NEW_LINE);
 
 		// Write byte range
-		String byteRange = MsrpConstants.HEADER_BYTE_RANGE + ": " + firstByte + "-" + lastByte + "/" + totalSize
-				+ MsrpConstants.NEW_LINE;
-		buffer.write(byteRange.getBytes());
+		header.append(MsrpConstants.HEADER_BYTE_RANGE).append(": ").append(firstByte).append('-').append(lastByte)
+				.append('/').append(totalSize).append(MsrpConstants.NEW_LINE);
 
 		// Write optional headers
 		// Changed by Deutsche Telekom
 		// According with GSMA guidelines
 		if (failureReportOption) {
-			String header = MsrpConstants.HEADER_FAILURE_REPORT + ": yes" + MsrpConstants.NEW_LINE;
-			buffer.write(header.getBytes());
+			header.append(MsrpConstants.HEADER_FAILURE_REPORT).append(": yes").append(MsrpConstants.NEW_LINE);
 		}
 		if (successReportOption) {
-			String header = MsrpConstants.HEADER_SUCCESS_REPORT + ": yes" + MsrpConstants.NEW_LINE;
-			buffer.write(header.getBytes());
+			header.append(MsrpConstants.HEADER_SUCCESS_REPORT).append(": yes").append(MsrpConstants.NEW_LINE);
 		}
 
 		// Write content type
 		if (contentType != null) {
-			String content = MsrpConstants.HEADER_CONTENT_TYPE + ": " + contentType + MsrpConstants.NEW_LINE;
-			buffer.write(content.getBytes());
+			header.append(MsrpConstants.HEADER_CONTENT_TYPE).append(": ").append(contentType).append(MsrpConstants.NEW_LINE);
 		}
 
 		// Write data
 		if (data != null) {
-			buffer.write(MsrpConstants.NEW_LINE.getBytes());
-			buffer.write(data, 0, dataSize);
-			buffer.write(MsrpConstants.NEW_LINE.getBytes());
+			header.append(MsrpConstants.NEW_LINE);
 		}
+		byte[] headerBytes = header.toString().getBytes();
 
 		// Write end of request
-		buffer.write(MsrpConstants.END_MSRP_MSG.getBytes());
-		buffer.write(txId.getBytes());
+		StringBuilder trailer = new StringBuilder(32);
+		if (data != null) {
+			trailer.append(MsrpConstants.NEW_LINE);
+		}
+		trailer.append(MsrpConstants.END_MSRP_MSG).append(txId);
 		if (isLastChunk) {
 			// '$' -> last chunk
-			buffer.write(MsrpConstants.FLAG_LAST_CHUNK);
+			trailer.append((char)MsrpConstants.FLAG_LAST_CHUNK);
 		} else {
 			// '+' -> more chunk
-			buffer.write(MsrpConstants.FLAG_MORE_CHUNK);
+			trailer.append((char)MsrpConstants.FLAG_MORE_CHUNK);
 		}
-		buffer.write(MsrpConstants.NEW_LINE.getBytes());
+		trailer.append(MsrpConstants.NEW_LINE);
+		byte[] trailerBytes = trailer.toString().getBytes();
+
+		// Build the chunk in a pooled buffer
+		if (data == null) {
+			dataSize = 0;
+		}
+		int length = headerBytes.length + dataSize + trailerBytes.length;
+		byte[] chunk = connection.obtainChunkBuffer(length);
+		System.arraycopy(headerBytes, 0, chunk, 0, headerBytes.length);
+		if (dataSize > 0) {
+			System.arraycopy(data, 0, chunk, headerBytes.length, dataSize);
+		}
+		System.arraycopy(trailerBytes, 0, chunk, headerBytes.length + dataSize, trailerBytes.length);
 
 		// Send chunk
 		if (failureReportOption) {
 			if (msrpTransaction != null) {
-				msrpTransaction.handleRequest();
 				requestTransaction = null;
 			} else {
 				requestTransaction = new RequestTransaction();
 			}
-			connection.sendChunk(buffer.toByteArray());
-			buffer.close();
+			connection.sendChunk(chunk, length);
 			if (requestTransaction != null) {
 				requestTransaction.waitResponse();
 				if (!requestTransaction.isResponseReceived()) {
@@ -671,8 +680,7 @@ public class MsrpSession {
 				}
 			}
 		} else {
-			connection.sendChunk(buffer.toByteArray());
-			buffer.close();
+			connection.sendChunk(chunk, length);
 			if (msrpTransaction != null) {
 				msrpTransaction.handleRequest();
 			}
@@ -837,8 +845,30 @@ public class MsrpSession {
 	 */
 	public void receiveMsrpSend(String txId, Hashtable<String, String> headers, int flag, byte[] data, long totalSize)
 			throws IOException, MsrpException {
+		if (data == null) {
+			receiveMsrpSend(txId, headers, flag, null, 0, 0, totalSize);
+		} else {
+			receiveMsrpSend(txId, headers, flag, data, 0, data.length, totalSize);
+		}
+	}
+
+	/**
+	 * Receive MSRP SEND request. The received data is a region of the buffer of
+	 * the chunk receiver and is only valid during the call.
+	 * 
+	 * @param txId Transaction ID
+	 * @param headers Request headers
+	 * @param flag Continuation flag
+	 * @param data Buffer containing the received data or null for an empty chunk
+	 * @param offset Offset of the data in the buffer
+	 * @param length Length of the data
+	 * @param totalSize Total size of the content
+	 * @throws IOException
+	 */
+	public void receiveMsrpSend(String txId, Hashtable<String, String> headers, int flag, byte[] data, int offset, int length,
+			long totalSize) throws IOException, MsrpException {
 		// Receive a SEND request
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("SEND request received (flag=" + flag + ", transaction=" + txId + ", totalSize=" + totalSize + ")");
 		}
 
@@ -859,15 +889,12 @@ public class MsrpSession {
 
 		// Test if it's an empty chunk
 		if (data == null) {
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Empty chunk");
 			}
 			return;
 		}
 
-		// Save received data chunk if there is some
-		receivedChunks.addChunk(data);
-
 		// Check the continuation flag
 		if (flag == MsrpConstants.FLAG_LAST_CHUNK) {
 			// Transfer terminated
@@ -875,6 +902,9 @@ public class MsrpSession {
 				logger.info("Transfer terminated");
 			}
 
+			// Save the last received data chunk
+			receivedChunks.addChunk(msgId, data, offset, length);
+
 			// Read the received content
 			byte[] dataContent = receivedChunks.getReceivedData();
 			receivedChunks.resetCache();
@@ -911,22 +941,29 @@ public class MsrpSession {
 				logger.info("Transfer aborted");
 			}
 
+			// Drop the cached data of the aborted content
+			receivedChunks.resetCache();
+
 			// Notify event listener
 			msrpEventListener.msrpTransferAborted();
 		} else if (flag == MsrpConstants.FLAG_MORE_CHUNK) {
 			// Transfer in progress
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Transfer in progress...");
 			}
-			byte[] dataContent = receivedChunks.getReceivedData();
+			byte[] chunk = new byte[length];
+			System.arraycopy(data, offset, chunk, 0, length);
 
 			// Notify event listener
-			boolean resetCache = msrpEventListener.msrpTransferProgress(receivedChunks.getCurrentSize(), totalSize, dataContent);
+			boolean resetCache = msrpEventListener.msrpTransferProgress(receivedChunks.getCurrentSize() + length, totalSize, chunk);
 
 			// Data are only consumed chunk by chunk in file transfer & image share.
 			// In a chat session only the whole message is consumed after receiving the last chunk.
 			if (resetCache) {
 				receivedChunks.resetCache();
+				receivedChunks.skipChunk(length);
+			} else {
+				receivedChunks.addChunk(msgId, chunk);
 			}
 		}
 	}
@@ -1040,7 +1077,7 @@ public class MsrpSession {
 			typeMsrpChunk = msrpTransactionInfo.typeMsrpChunk;
 			originalTransactionId = msrpTransactionInfo.transactionId;
 			cpimMsgId = msrpTransactionInfo.cpimMsgId;
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("REPORT request details; originalTransactionId=" + originalTransactionId + "; cpimMsgId=" + cpimMsgId
 						+ "; typeMsrpChunk=" + typeMsrpChunk);
 			}
@@ -1189,7 +1226,7 @@ public class MsrpSession {
 					for (MsrpTransactionInfo msrpTransactionInfo : msrpTransactionInfos) {
 						long delta = (System.currentTimeMillis() - msrpTransactionInfo.timestamp) / 1000;
 						if ((delta >= TRANSACTION_INFO_EXPIRY_PERIOD) || (delta < 0)) {
-							if (logger.isActivated()) {
+							if (logger.isDebugEnabled()) {
 								logger.debug("Transaction info have expired (transactionId: " + msrpTransactionInfo.transactionId
 										+ ", msgId: " + msrpTransactionInfo.msrpMsgId + ")");
 							}
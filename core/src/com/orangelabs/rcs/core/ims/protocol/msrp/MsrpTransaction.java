@@ -31,11 +31,21 @@ public class MsrpTransaction extends Object {
      */
     private final static int TIMEOUT = 30;
 
+    /**
+     * Default maximum number of sent requests without response
+     */
+    public final static int DEFAULT_WINDOW_SIZE = 16;
+
     /**
      * Count number of sent requests without response 
      */
     private int waitingCount = 0;
 
+    /**
+     * Maximum number of sent requests without response
+     */
+    private int windowSize;
+
     // Changed by Deutsche Telekom
     /**
      * Count the total number of request received 200OK
@@ -52,15 +62,30 @@ public class MsrpTransaction extends Object {
      */
     private boolean isTerminated = false;
 
+    /**
+     * Response timeout expired
+     */
+    private boolean isTimeoutExpired = false;
+
     /**
      * Timer
      */
-    private Timer timer = new Timer();
+    private Timer timer = null;
 
     /**
      * Constructor
      */
     public MsrpTransaction() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param windowSize Maximum number of sent requests without response
+     */
+    public MsrpTransaction(int windowSize) {
+        this.windowSize = windowSize;
     }
 
     /**
@@ -69,26 +94,49 @@ public class MsrpTransaction extends Object {
     public synchronized void waitAllResponses() {
         if (waitingCount > 0) {
             isWaiting = true;
+            isTimeoutExpired = false;
             try {
                 // Start timeout
                 startTimer();
 
                 // Wait semaphore
-                super.wait();
+                while ((waitingCount > 0) && !isTerminated && !isTimeoutExpired) {
+                    super.wait();
+                }
             } catch(InterruptedException e) {
                 // Nothing to do
             }
+            stopTimer();
         }
     }
 
     /**
-     * Handle new request
+     * Handle new request. This is a blocking method while the window of
+     * sent requests without response is full.
+     *
+     * @return False if no response has been received before the timeout or if the transaction is terminated
      */
-    public void handleRequest() {
+    public boolean handleRequest() {
         // Changed by Deutsche Telekom
         // requests and responses are handled in different threads which need to be synchronized
         synchronized(this){
+            long deadline = System.currentTimeMillis() + TIMEOUT * 1000;
+            while ((waitingCount >= windowSize) && !isTerminated) {
+                long delay = deadline - System.currentTimeMillis();
+                if (delay <= 0) {
+                    return false;
+                }
+                try {
+                    super.wait(delay);
+                } catch(InterruptedException e) {
+                    return false;
+                }
+            }
+            if (isTerminated) {
+                return false;
+            }
             waitingCount++;
+            return true;
         }
     }
 
@@ -106,13 +154,17 @@ public class MsrpTransaction extends Object {
         if (isWaiting) {
             if (waitingCount == 0) {
                 // Unblock semaphore
-                super.notify();
+                super.notifyAll();
             } else {
                 // ReInit timeout
                 stopTimer();
                 startTimer();
             }
         }
+        if (waitingCount < windowSize) {
+            // Unblock the sender waiting for a free slot in the window
+            super.notifyAll();
+        }
     }
 
     /**
@@ -130,7 +182,7 @@ public class MsrpTransaction extends Object {
     public synchronized void terminate() {
         isTerminated = true;
         // Unblock semaphore
-        super.notify();
+        super.notifyAll();
         // Stop timer
         stopTimer();
     }
@@ -162,15 +214,20 @@ public class MsrpTransaction extends Object {
      * Stop the timer
      */
     private void stopTimer() {
-        timer.cancel();
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
     }
 
     /** 
      * Timer execution
      */
     private synchronized void timerExpire() {
+        isTimeoutExpired = true;
+
         // Unblock semaphore
-        super.notify();
+        super.notifyAll();
     }
 
     // Changed by Deutsche Telekom
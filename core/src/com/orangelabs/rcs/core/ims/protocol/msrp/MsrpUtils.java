@@ -71,4 +71,15 @@ public class MsrpUtils {
 		}
 		return -1;
 	}
+
+	/**
+	 * Test if a byte is a continuation flag of an end line
+	 *
+	 * @param flag Byte value
+	 * @return Boolean
+	 */
+	public static boolean isContinuationFlag(int flag) {
+		return (flag == MsrpConstants.FLAG_LAST_CHUNK) || (flag == MsrpConstants.FLAG_MORE_CHUNK)
+				|| (flag == MsrpConstants.FLAG_ABORT_CHUNK);
+	}
 }
\ No newline at end of file
@@ -66,7 +66,7 @@ public class CodecChain {
 		
 		// Prepare codecs
     	for(int i=0; i < codecs.length; i++) {
-    		if (logger.isActivated()) {
+    		if (logger.isDebugEnabled()) {
     			logger.debug("Open codec " + codecs[i].getClass().getName());
     		}
     		codecs[i].open();
@@ -82,14 +82,14 @@ public class MediaRtpSender {
     public void prepareSession(MediaInput player, String remoteAddress, int remotePort, RtpStreamListener rtpStreamListener)
             throws RtpException {
     	try {
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Prepare session");
 			}
 			
     		// Create the input stream
             inputStream = new MediaCaptureStream(format, player);
     		inputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Input stream: " + inputStream.getClass().getName());
 			}
 
@@ -97,7 +97,7 @@ public class MediaRtpSender {
             outputStream = new RtpOutputStream(remoteAddress, remotePort, localRtpPort, RtpOutputStream.RTCP_SOCKET_TIMEOUT);
             outputStream.addRtpStreamListener(rtpStreamListener);
             outputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Output stream: " + outputStream.getClass().getName());
 			}
 
@@ -105,12 +105,12 @@ public class MediaRtpSender {
         	Codec[] codecChain = MediaRegistry.generateEncodingCodecChain(format.getCodec());
 
             // Create the media processor
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("New processor");
 			}
     		processor = new Processor(inputStream, outputStream, codecChain);
 
-        	if (logger.isActivated()) {
+        	if (logger.isDebugEnabled()) {
         		logger.debug("Session has been prepared with success");
             }
         } catch(Exception e) {
@@ -132,14 +132,14 @@ public class MediaRtpSender {
     public void prepareSession(MediaInput player, String remoteAddress, int remotePort, RtpInputStream rtpStream, RtpStreamListener rtpStreamListener)
             throws RtpException {
     	try {
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Prepare session");
 			}
 			
     		// Create the input stream
             inputStream = new MediaCaptureStream(format, player);
     		inputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Input stream: " + inputStream.getClass().getName());
 			}
 
@@ -148,7 +148,7 @@ public class MediaRtpSender {
 			outputStream = new RtpOutputStream(remoteAddress, remotePort, rtpStream);
             outputStream.addRtpStreamListener(rtpStreamListener);
             outputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Output stream: " + outputStream.getClass().getName());
 			}
 
@@ -156,12 +156,12 @@ public class MediaRtpSender {
         	Codec[] codecChain = MediaRegistry.generateEncodingCodecChain(format.getCodec());
 
             // Create the media processor
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("New processor");
 			}
     		processor = new Processor(inputStream, outputStream, codecChain);
 
-        	if (logger.isActivated()) {
+        	if (logger.isDebugEnabled()) {
         		logger.debug("Session has been prepared with success");
             }
         } catch(Exception e) {
@@ -176,7 +176,7 @@ public class MediaRtpSender {
      * Start the RTP session
      */
     public void startSession() {
-    	if (logger.isActivated()) {
+    	if (logger.isDebugEnabled()) {
     		logger.debug("Start the session");
     	}
 
@@ -190,7 +190,7 @@ public class MediaRtpSender {
      * Stop the RTP session
      */
     public void stopSession() {
-    	if (logger.isActivated()) {
+    	if (logger.isDebugEnabled()) {
     		logger.debug("Stop the session");
     	}
 
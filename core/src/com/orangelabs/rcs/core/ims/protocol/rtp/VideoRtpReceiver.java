@@ -60,14 +60,14 @@ public class VideoRtpReceiver  extends MediaRtpReceiver {
             inputStream.setExtensionHeaderId(orientationHeaderId);
             inputStream.addRtpStreamListener(rtpStreamListener);
     		inputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Input stream: " + inputStream.getClass().getName());
 			}
 
             // Create the output stream
         	VideoRendererStream outputStream = new VideoRendererStream(renderer);
     		outputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Output stream: " + outputStream.getClass().getName());
 			}
 
@@ -77,7 +77,7 @@ public class VideoRtpReceiver  extends MediaRtpReceiver {
             // Create the media processor
     		processor = new Processor(inputStream, outputStream, codecChain);
 
-        	if (logger.isActivated()) {
+        	if (logger.isDebugEnabled()) {
         		logger.debug("Session has been prepared with success");
             }
         } catch(Exception e) {
@@ -56,7 +56,7 @@ public class VideoRtpSender extends MediaRtpSender {
     		// Create the input stream
             inputStream = new VideoCaptureStream(format, player);
     		inputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Input stream: " + inputStream.getClass().getName());
 			}
 
@@ -64,7 +64,7 @@ public class VideoRtpSender extends MediaRtpSender {
             outputStream = new RtpOutputStream(remoteAddress, remotePort, localRtpPort, RtpOutputStream.RTCP_SOCKET_TIMEOUT);
             outputStream.addRtpStreamListener(rtpStreamListener);
             outputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Output stream: " + outputStream.getClass().getName());
 			}
 
@@ -74,7 +74,7 @@ public class VideoRtpSender extends MediaRtpSender {
             // Create the media processor
     		processor = new Processor(inputStream, outputStream, codecChain);
 
-        	if (logger.isActivated()) {
+        	if (logger.isDebugEnabled()) {
         		logger.debug("Session has been prepared with success");
             }
         } catch(Exception e) {
@@ -103,7 +103,7 @@ public class VideoRtpSender extends MediaRtpSender {
     		// Create the input stream
             inputStream = new VideoCaptureStream(format, player);
     		inputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Input stream: " + inputStream.getClass().getName());
 			}
 
@@ -112,7 +112,7 @@ public class VideoRtpSender extends MediaRtpSender {
             outputStream = new RtpOutputStream(remoteAddress, remotePort, rtpStream);
             outputStream.addRtpStreamListener(rtpStreamListener);
             outputStream.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Output stream: " + outputStream.getClass().getName());
 			}
 
@@ -122,7 +122,7 @@ public class VideoRtpSender extends MediaRtpSender {
             // Create the media processor
     		processor = new Processor(inputStream, outputStream, codecChain);
 
-        	if (logger.isActivated()) {
+        	if (logger.isDebugEnabled()) {
         		logger.debug("Session has been prepared with success");
             }
         } catch(Exception e) {
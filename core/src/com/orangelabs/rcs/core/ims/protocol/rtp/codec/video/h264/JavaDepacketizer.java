@@ -127,11 +127,8 @@ public class JavaDepacketizer extends VideoCodec {
      * @return Processing result
      */
     private int handleSingleNalUnitPacket(Buffer input, Buffer output) {
-        // Create output buffer
-        byte[] bufferData = (byte[]) input.getData();
-        int bufferDataLength = bufferData.length;
-        byte[] data = new byte[bufferDataLength];
-        System.arraycopy(bufferData, 0, data, 0, bufferDataLength);
+        // The payload of a packet is never reused, it can be given as is
+        byte[] data = (byte[]) input.getData();
 
         // Set buffer
         output.setData(data);
@@ -203,33 +200,35 @@ public class JavaDepacketizer extends VideoCodec {
      */
     private int handleFragmentationUnitPacket(Buffer input, Buffer output) {
         if (!input.isDiscard()) {
-            assemblersCollection.put(input);
-            if (assemblersCollection.getLastActiveAssembler().complete()) {
-                assemblersCollection.getLastActiveAssembler().copyToBuffer(output);
+            FrameAssembler assembler = assemblersCollection.put(input);
+            if (assembler.complete()) {
+                boolean copied = assembler.copyToBuffer(output);
                 assemblersCollection.removeOldestThan(input.getTimeStamp());
-                return BUFFER_PROCESSED_OK;
-            } else {
-                output.setDiscard(true);
-                return OUTPUT_BUFFER_NOT_FILLED;
+                if (copied) {
+                    return BUFFER_PROCESSED_OK;
+                }
             }
-        } else {
-            output.setDiscard(true);
-            return OUTPUT_BUFFER_NOT_FILLED;
         }
+        output.setDiscard(true);
+        return OUTPUT_BUFFER_NOT_FILLED;
     }
 
     /**
      * Used to assemble fragments with the same timestamp into a single frame.
+     * The assembler keeps a reference on the payload of each fragment, the
+     * frame is built with a single copy once all the fragments are received.
      */
     public static class FrameAssembler {
-        private byte[][] reassembledData = null; // Frame sequence chunks
-        private int[] reassembledDataSize = null; // Sequence chunk size
+        private byte[][] fragments = new byte[JavaPacketizer.H264_MAX_RTP_PKTS][]; // Frame sequence chunks
+        private int[] fragmentsOffset = new int[JavaPacketizer.H264_MAX_RTP_PKTS]; // Sequence chunk offset
+        private int[] fragmentsSize = new int[JavaPacketizer.H264_MAX_RTP_PKTS]; // Sequence chunk size
         private int reassembledDataFullSize = 0; // Frame sequence chunks full size
         private boolean reassembledDataHasStart = false; // Has start chunk
         private boolean reassembledDataHasEnd = false; // Has end chunk
         private int reassembledDataPosSeqStart = Integer.MAX_VALUE; // Pos seq start
         private int reassembledDataPosSeqEnd = Integer.MIN_VALUE; // Pos seq end
         private byte reassembledDataNALHeader = 0; // Final frame NAL header
+        private boolean started = false;
         private long timeStamp = -1;
         private Format format = null;
         private long seqNumber = -1;
@@ -256,20 +255,15 @@ public class JavaDepacketizer extends VideoCodec {
                 return;
             }
 
-            if (reassembledData == null) {
+            if (!started) {
                 // First packet
+                started = true;
                 timeStamp = buffer.getTimeStamp();
                 format = buffer.getFormat();
                 seqNumber = buffer.getSequenceNumber();
 
                 // Get NAL header
                 reassembledDataNALHeader = h264RtpHeaders.getNALHeader();
-
-                // Copy packet data to reassembledData
-                reassembledData = new byte[JavaPacketizer.H264_MAX_RTP_PKTS][H264_FRAME_PACKET_SIZE];
-                reassembledDataSize = new int[JavaPacketizer.H264_MAX_RTP_PKTS];
-                reassembledDataHasStart = false;
-                reassembledDataHasEnd = false;
             }
 
             // Sequence position on frame
@@ -297,15 +291,13 @@ public class JavaDepacketizer extends VideoCodec {
                         : reassembledDataPosSeqEnd);
             }
 
-            // Sequence chuck size
-            reassembledDataSize[posSeq] = payloadLength;
-
-            // Sum chucks total sizes
-            reassembledDataFullSize += payloadLength;
+            // Sum chucks total sizes, a duplicate chunk replaces the previous one
+            reassembledDataFullSize += payloadLength - fragmentsSize[posSeq];
 
-            // Copy data
-            System.arraycopy(currentRtpPacketData, payloadStartPosition, reassembledData[posSeq],
-                    0, payloadLength);
+            // Keep a reference on the data, the payload of a packet is never reused
+            fragments[posSeq] = currentRtpPacketData;
+            fragmentsOffset[posSeq] = payloadStartPosition;
+            fragmentsSize[posSeq] = payloadLength;
             videoOrientation = buffer.getVideoOrientation();
         }
 
@@ -322,13 +314,13 @@ public class JavaDepacketizer extends VideoCodec {
             int posCurrent = reassembledDataPosSeqStart;
             while ((posCurrent & VIDEO_DECODER_MAX_PAYLOADS_CHUNKS_MASK) != reassembledDataPosSeqEnd) {
                 // need more data?
-                if (reassembledDataSize[posCurrent & VIDEO_DECODER_MAX_PAYLOADS_CHUNKS_MASK] <= 0) {
+                if (fragmentsSize[posCurrent & VIDEO_DECODER_MAX_PAYLOADS_CHUNKS_MASK] <= 0) {
                     return false;
                 }
                 posCurrent++;
             }
             // Validate last chunk
-            if (reassembledDataSize[reassembledDataPosSeqEnd] <= 0) {
+            if (fragmentsSize[reassembledDataPosSeqEnd] <= 0) {
                 return false;
             }
 
@@ -339,72 +331,65 @@ public class JavaDepacketizer extends VideoCodec {
 
         /**
          * Assumes that complete() has been called and returns true.
+         *
+         * @param bDest Destination buffer
+         * @return False if the frame is too big to be decoded
          */
-        private void copyToBuffer(Buffer bDest) {
-
-            if (reassembledDataFullSize <= MAX_H264_FRAME_SIZE) {
-                // + 1 because of the header size
-                byte[] finalData = new byte[reassembledDataFullSize + 1];
-                int finalDataPos = 0;
-
-                // Copy NAL header
-                finalData[finalDataPos] = reassembledDataNALHeader;
-                finalDataPos += 1;
-
-                // Copy chunk data between start and end pos
-                int posCurrent = reassembledDataPosSeqStart;
-                int posSeq = 0;
-                while ((posCurrent & VIDEO_DECODER_MAX_PAYLOADS_CHUNKS_MASK) != reassembledDataPosSeqEnd) {
-                    // need more data?
-                    posSeq = posCurrent & VIDEO_DECODER_MAX_PAYLOADS_CHUNKS_MASK;
-
-                    // Copy data
-                    System.arraycopy(reassembledData[posSeq], 0, finalData, finalDataPos,
-                            reassembledDataSize[posSeq]);
-                    finalDataPos += reassembledDataSize[posSeq];
-
-                    posCurrent++;
-                }
-
-                // Copy last chunk data
-                System.arraycopy(reassembledData[reassembledDataPosSeqEnd], 0, finalData,
-                        finalDataPos, reassembledDataSize[reassembledDataPosSeqEnd]);
-
-                // If the frame data can be processed by native module, ie
-                // reassembled frame size not too big
-                // Set buffer
-                bDest.setData(finalData);
-                bDest.setLength(reassembledDataSize[reassembledDataPosSeqEnd]);
-                bDest.setOffset(0);
-                bDest.setTimeStamp(timeStamp);
-                bDest.setFormat(format);
-                bDest.setFlags(Buffer.FLAG_RTP_MARKER | Buffer.FLAG_RTP_TIME);
-                bDest.setVideoOrientation(videoOrientation);
-                bDest.setSequenceNumber(seqNumber);
+        private boolean copyToBuffer(Buffer bDest) {
+            if (reassembledDataFullSize > MAX_H264_FRAME_SIZE) {
+                return false;
             }
 
-            // Set reassembledData to null
-            reassembledData = null;
+            // + 1 because of the header size
+            byte[] finalData = new byte[reassembledDataFullSize + 1];
+            int finalDataPos = 0;
+
+            // Copy NAL header
+            finalData[finalDataPos] = reassembledDataNALHeader;
+            finalDataPos += 1;
+
+            // Gather chunk data between start and end pos
+            int posCurrent = reassembledDataPosSeqStart;
+            int posSeq;
+            do {
+                posSeq = posCurrent & VIDEO_DECODER_MAX_PAYLOADS_CHUNKS_MASK;
+                System.arraycopy(fragments[posSeq], fragmentsOffset[posSeq], finalData,
+                        finalDataPos, fragmentsSize[posSeq]);
+                finalDataPos += fragmentsSize[posSeq];
+                posCurrent++;
+            } while (posSeq != reassembledDataPosSeqEnd);
+
+            // Set buffer
+            bDest.setData(finalData);
+            bDest.setLength(finalDataPos);
+            bDest.setOffset(0);
+            bDest.setTimeStamp(timeStamp);
+            bDest.setFormat(format);
+            bDest.setFlags(Buffer.FLAG_RTP_MARKER | Buffer.FLAG_RTP_TIME);
+            bDest.setVideoOrientation(videoOrientation);
+            bDest.setSequenceNumber(seqNumber);
+            return true;
         }
 
         /**
-         * Reset the FrameAssembler
-         *
-         * It as package access instead of private for improved performance.
-         * See: http://developer.android.com/guide/practices/performance.html 
-         *   Consider Package Instead of Private Access with Private Inner Classes
+         * Reset the FrameAssembler so that it can be reused for another frame
          */
         private void reset() {
-            reassembledData = null;
-            reassembledDataSize = null;
+            for (int i = 0; i < fragments.length; i++) {
+                fragments[i] = null;
+                fragmentsSize[i] = 0;
+            }
             reassembledDataFullSize = 0;
             reassembledDataHasStart = false;
             reassembledDataHasEnd = false;
             reassembledDataPosSeqStart = Integer.MAX_VALUE;
             reassembledDataPosSeqEnd = Integer.MIN_VALUE;
             reassembledDataNALHeader = 0;
+            started = false;
             timeStamp = -1;
             format = null;
+            seqNumber = -1;
+            videoOrientation = null;
         }
 
         /**
@@ -419,23 +404,28 @@ public class JavaDepacketizer extends VideoCodec {
 
     /**
      * Used to manage different timestamps, as packets could be coming not in
-     * order. Data is an array of FrameAssemblers, sorted by timestamps (oldest
-     * is first, newest is last)
+     * order. The assembler of the last timestamp is looked up first, as
+     * consecutive packets mostly belong to the same frame, and released
+     * assemblers are kept in a pool to be reused.
      */
     public static class FrameAssemblerCollection {
         private final static int NUMBER_OF_ASSEMBLERS = 5;
         private FrameAssembler[] assemblers = new FrameAssembler[NUMBER_OF_ASSEMBLERS];
-        private int activeAssembler = 0;
         private int numberOfAssemblers = 0;
+        private FrameAssembler[] pool = new FrameAssembler[NUMBER_OF_ASSEMBLERS];
+        private int poolSize = 0;
+        private FrameAssembler activeAssembler = null;
 
         /**
          * Add the buffer (which contains a fragment) to the right assembler.
          *
          * @param buffer
+         * @return Assembler of the fragment
          */
-        public void put(Buffer buffer) {
+        public FrameAssembler put(Buffer buffer) {
             activeAssembler = getAssembler(buffer.getTimeStamp());
-            assemblers[activeAssembler].put(buffer);
+            activeAssembler.put(buffer);
+            return activeAssembler;
         }
 
         /**
@@ -444,83 +434,55 @@ public class JavaDepacketizer extends VideoCodec {
          * @return frameAssembler Last active assembler
          */
         public FrameAssembler getLastActiveAssembler() {
-            return assemblers[activeAssembler];
+            return activeAssembler;
         }
 
         /**
-         * Create a new frame assembler for given timeStamp
+         * Get the assembler used for given timestamp, a new one is created
+         * if the timestamp is not used yet
          *
          * @param timeStamp
-         * @return assembler number Position of the assembler in the collection
+         * @return FrameAssembler associated to timeStamp
          */
-        public int createNewAssembler(long timeStamp) {
-            int spot = -1;
-            if (numberOfAssemblers < NUMBER_OF_ASSEMBLERS) {
-                // If there's enough space left to create a new assembler
-                // We search its spot
-                for (int i = 0; i < numberOfAssemblers; i++) {
-                    if (timeStamp < assemblers[i].getTimeStamp()) {
-                        spot = i;
-                    }
-                }
-                if (spot == -1) {
-                    spot = numberOfAssemblers;
-                }
-                numberOfAssemblers++;
-
-                // Store the assembler that will be "discarded" and can be reused
-                FrameAssembler oldAssembler = assemblers[numberOfAssemblers - 1];
-
-                // Decale all assemblers with newest timeStamp to the right
-                for (int i = numberOfAssemblers - 1; i > spot; i--) {
-                    assemblers[i] = assemblers[i - 1];
-                }
-                if (oldAssembler != null) {
-                    // Reuse and reset the discarded assembler
-                    assemblers[spot] = oldAssembler;
-                    assemblers[spot].reset();
-                } else {
-                    assemblers[spot] = new FrameAssembler();
-                }
-            } else {
-                // Store the assembler that will be "discarded" and can be reused
-                FrameAssembler oldAssembler = assemblers[0];
-
-                // Not enough space, we destroy the oldest assembler
-                for (int i = 1; i < NUMBER_OF_ASSEMBLERS; i++) {
-                    assemblers[i - 1] = assemblers[i];
-                }
-                // Last spot is for the new assembler
-                spot = NUMBER_OF_ASSEMBLERS - 1;
-                if (oldAssembler != null) {
-                    // Reuse and reset the discarded assembler
-                    assemblers[spot] = oldAssembler;
-                    assemblers[spot].reset();
-                } else {
-                    assemblers[spot] = new FrameAssembler();
+        public FrameAssembler getAssembler(long timeStamp) {
+            if ((activeAssembler != null) && (activeAssembler.getTimeStamp() == timeStamp)) {
+                return activeAssembler;
+            }
+            for (int i = 0; i < numberOfAssemblers; i++) {
+                if (assemblers[i].getTimeStamp() == timeStamp) {
+                    return assemblers[i];
                 }
             }
-            return spot;
+            return createNewAssembler(timeStamp);
         }
 
         /**
-         * Get the assembler used for given timestamp
+         * Create a new frame assembler for given timeStamp. When all the
+         * assemblers are used, the oldest one is discarded.
          *
          * @param timeStamp
-         * @return FrameAssembler associated to timeStamp
+         * @return New assembler
          */
-        public int getAssembler(long timeStamp) {
-            int assemblerNumber = -1;
-            for (int i = 0; i < numberOfAssemblers; i++) {
-                if (assemblers[i].getTimeStamp() == timeStamp) {
-                    assemblerNumber = i;
+        private FrameAssembler createNewAssembler(long timeStamp) {
+            if (numberOfAssemblers == NUMBER_OF_ASSEMBLERS) {
+                int oldest = 0;
+                for (int i = 1; i < numberOfAssemblers; i++) {
+                    if (isOlder(assemblers[i].getTimeStamp(), assemblers[oldest].getTimeStamp())) {
+                        oldest = i;
+                    }
                 }
+                release(oldest);
             }
-            if (assemblerNumber == -1) {
-                // Given timestamp never used, we create a new assembler
-                assemblerNumber = createNewAssembler(timeStamp);
+
+            FrameAssembler assembler;
+            if (poolSize > 0) {
+                assembler = pool[--poolSize];
+                pool[poolSize] = null;
+            } else {
+                assembler = new FrameAssembler();
             }
-            return assemblerNumber;
+            assemblers[numberOfAssemblers++] = assembler;
+            return assembler;
         }
 
         /**
@@ -531,18 +493,45 @@ public class JavaDepacketizer extends VideoCodec {
          * @param timeStamp
          */
         public void removeOldestThan(long timeStamp) {
-            // Find spot from which to remove
-            int spot = numberOfAssemblers - 1;
-            for (int i = 0; i < numberOfAssemblers; i++) {
-                if (timeStamp <= assemblers[i].getTimeStamp()) {
-                    spot = i;
+            int i = 0;
+            while (i < numberOfAssemblers) {
+                long ts = assemblers[i].getTimeStamp();
+                if ((ts == timeStamp) || isOlder(ts, timeStamp)) {
+                    release(i);
+                } else {
+                    i++;
                 }
             }
-            // remove all assemblers with oldest timeStamp to the left
-            for (int i = numberOfAssemblers - 1; i > spot; i--) {
-                assemblers[i - 1] = assemblers[i];
+        }
+
+        /**
+         * Release the assembler at the given position in the pool
+         *
+         * @param index Position of the assembler
+         */
+        private void release(int index) {
+            FrameAssembler assembler = assemblers[index];
+            assembler.reset();
+            if (assembler == activeAssembler) {
+                activeAssembler = null;
             }
-            numberOfAssemblers -= spot + 1;
+
+            // Move the last assembler in the free spot
+            numberOfAssemblers--;
+            assemblers[index] = assemblers[numberOfAssemblers];
+            assemblers[numberOfAssemblers] = null;
+            pool[poolSize++] = assembler;
+        }
+
+        /**
+         * Compare two RTP timestamps, taking the 32 bits wrap around into account
+         *
+         * @param ts1 First timestamp
+         * @param ts2 Second timestamp
+         * @return True if ts1 is older than ts2
+         */
+        private static boolean isOlder(long ts1, long ts2) {
+            return (int)(ts1 - ts2) < 0;
         }
     }
 }
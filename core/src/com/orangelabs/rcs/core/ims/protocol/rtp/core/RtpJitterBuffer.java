@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.rtp.core;
+
+/**
+ * RTP jitter buffer. Packets are stored in a ring indexed by their extended
+ * sequence number and are released in sequence order. When a packet is
+ * missing, the next ones are held during the playout delay to give it a
+ * chance to arrive, then the gap is skipped.
+ */
+public class RtpJitterBuffer {
+	/**
+	 * Number of packets in the ring (power of 2)
+	 */
+	private static final int CAPACITY = 256;
+
+	/**
+	 * RTP sequence number module
+	 */
+	private static final int RTP_SEQ_MOD = (1 << 16);
+
+	/**
+	 * Minimum playout delay in milliseconds
+	 */
+	public static final int MIN_PLAYOUT_DELAY = 20;
+
+	/**
+	 * Maximum playout delay in milliseconds
+	 */
+	public static final int MAX_PLAYOUT_DELAY = 500;
+
+	/**
+	 * Ring of packets
+	 */
+	private RtpPacket[] ring = new RtpPacket[CAPACITY];
+
+	/**
+	 * Number of packets in the ring
+	 */
+	private int count = 0;
+
+	/**
+	 * Extended sequence number of the next packet to be released
+	 */
+	private long nextSeq = -1;
+
+	/**
+	 * Highest extended sequence number received
+	 */
+	private long highestSeq = -1;
+
+	/**
+	 * Extended sequence number expected to confirm a restart of the
+	 * sequence, -1 if none
+	 */
+	private long restartSeq = -1;
+
+	/**
+	 * True once a packet has been released or skipped
+	 */
+	private boolean started = false;
+
+	/**
+	 * Time since the next packet to be released is missing, 0 if not missing
+	 */
+	private long gapStart = 0;
+
+	/**
+	 * Playout delay in milliseconds
+	 */
+	private long playoutDelay = MIN_PLAYOUT_DELAY;
+
+	/**
+	 * Number of packets skipped because they were missing
+	 */
+	private int lostPackets = 0;
+
+	/**
+	 * Number of packets dropped because they arrived too late
+	 */
+	private int latePackets = 0;
+
+	/**
+	 * Add a packet in the buffer. The sequence number of the packet is
+	 * replaced by its extended sequence number.
+	 *
+	 * @param packet RTP packet
+	 * @return False if the packet is a duplicate or arrived too late
+	 */
+	public boolean add(RtpPacket packet) {
+		long seq = extendSequenceNumber(packet.seqnum & (RTP_SEQ_MOD - 1));
+		if (nextSeq == -1) {
+			nextSeq = seq;
+		}
+
+		if ((seq < nextSeq) && !started && (highestSeq - seq < CAPACITY)) {
+			// Packet preceding the first ones received, none has been released yet
+			nextSeq = seq;
+		}
+
+		if ((seq - nextSeq >= 2 * CAPACITY) || (nextSeq - seq >= 2 * CAPACITY)) {
+			// The sender has jumped far ahead or back: restart from this packet
+			// once the next one confirms it, as in the RFC 3550 (Appendix A.1)
+			if (seq != restartSeq) {
+				restartSeq = seq + 1;
+				return false;
+			}
+			clear();
+			nextSeq = seq;
+			highestSeq = seq;
+			restartSeq = -1;
+		} else
+		if (seq < nextSeq) {
+			// Already released or skipped
+			latePackets++;
+			return false;
+		} else {
+			// Skip the oldest packets to make room for this one
+			while (seq - nextSeq >= CAPACITY) {
+				int index = (int)(nextSeq & (CAPACITY - 1));
+				if (ring[index] != null) {
+					ring[index] = null;
+					count--;
+				}
+				lostPackets++;
+				nextSeq++;
+				gapStart = 0;
+				started = true;
+			}
+		}
+
+		int index = (int)(seq & (CAPACITY - 1));
+		if (ring[index] != null) {
+			// Duplicate packet
+			return false;
+		}
+		packet.seqnum = (int)seq;
+		ring[index] = packet;
+		count++;
+		if (seq > highestSeq) {
+			highestSeq = seq;
+		}
+		return true;
+	}
+
+	/**
+	 * Release the next packet if it is available or if the delay to wait
+	 * for the missing packets before it has expired
+	 *
+	 * @param now Current time in milliseconds
+	 * @return RTP packet or null if no packet can be released yet
+	 */
+	public RtpPacket poll(long now) {
+		if (count == 0) {
+			return null;
+		}
+
+		int index = (int)(nextSeq & (CAPACITY - 1));
+		if (ring[index] == null) {
+			if (gapStart == 0) {
+				gapStart = now;
+			}
+			if (now - gapStart < playoutDelay) {
+				// Wait for the missing packet
+				return null;
+			}
+
+			// Skip the missing packets
+			while (ring[index] == null) {
+				lostPackets++;
+				nextSeq++;
+				index = (int)(nextSeq & (CAPACITY - 1));
+			}
+		}
+
+		RtpPacket packet = ring[index];
+		ring[index] = null;
+		count--;
+		nextSeq++;
+		gapStart = 0;
+		started = true;
+		return packet;
+	}
+
+	/**
+	 * Returns the delay before a packet can be released
+	 *
+	 * @param now Current time in milliseconds
+	 * @return Delay in milliseconds, or -1 if the buffer is empty
+	 */
+	public long getWaitingDelay(long now) {
+		if (count == 0) {
+			return -1;
+		}
+		if (ring[(int)(nextSeq & (CAPACITY - 1))] != null) {
+			return 0;
+		}
+		if (gapStart == 0) {
+			return playoutDelay;
+		}
+		return Math.max(0, gapStart + playoutDelay - now);
+	}
+
+	/**
+	 * Set the playout delay from the interarrival jitter
+	 *
+	 * @param jitter Interarrival jitter in milliseconds
+	 */
+	public void setJitter(long jitter) {
+		// Wait for about three times the jitter before declaring a packet lost
+		playoutDelay = Math.min(MAX_PLAYOUT_DELAY, Math.max(MIN_PLAYOUT_DELAY, 3 * jitter));
+	}
+
+	/**
+	 * Returns the playout delay
+	 *
+	 * @return Delay in milliseconds
+	 */
+	public long getPlayoutDelay() {
+		return playoutDelay;
+	}
+
+	/**
+	 * Returns the number of packets in the buffer
+	 *
+	 * @return Number of packets
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of packets skipped because they were missing
+	 *
+	 * @return Number of packets
+	 */
+	public int getLostPackets() {
+		return lostPackets;
+	}
+
+	/**
+	 * Returns the number of packets dropped because they arrived too late
+	 *
+	 * @return Number of packets
+	 */
+	public int getLatePackets() {
+		return latePackets;
+	}
+
+	/**
+	 * Remove all the packets
+	 */
+	public void clear() {
+		for(int i=0; i < CAPACITY; i++) {
+			ring[i] = null;
+		}
+		count = 0;
+		gapStart = 0;
+	}
+
+	/**
+	 * Extend a 16 bits sequence number with the cycles of the highest
+	 * sequence number received, so that the wrap around is transparent
+	 *
+	 * @param seq Sequence number
+	 * @return Extended sequence number
+	 */
+	private long extendSequenceNumber(int seq) {
+		if (highestSeq == -1) {
+			// Start with one cycle so that packets preceding the first one remain positive
+			return RTP_SEQ_MOD + seq;
+		}
+		long extended = (highestSeq & ~((long)RTP_SEQ_MOD - 1)) | seq;
+		if (extended - highestSeq > RTP_SEQ_MOD / 2) {
+			extended -= RTP_SEQ_MOD;
+		} else
+		if (highestSeq - extended > RTP_SEQ_MOD / 2) {
+			extended += RTP_SEQ_MOD;
+		}
+		return extended;
+	}
+}
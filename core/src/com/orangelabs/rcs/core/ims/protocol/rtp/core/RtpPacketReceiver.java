@@ -20,11 +20,13 @@ package com.orangelabs.rcs.core.ims.protocol.rtp.core;
 
 import java.io.IOException;
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.concurrent.TimeoutException;
 
+import com.orangelabs.rcs.core.ims.protocol.rtp.util.Packet;
 import com.orangelabs.rcs.platform.network.DatagramConnection;
 import com.orangelabs.rcs.platform.network.NetworkFactory;
-import com.orangelabs.rcs.utils.FifoBuffer;
+import com.orangelabs.rcs.utils.EventQueue;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
@@ -54,29 +56,35 @@ public class RtpPacketReceiver extends Thread {
     private boolean isClosed = false;
 
     /**
-     * Fifo buffer for received packet
+     * Number of receive slots
      */
-    private FifoBuffer fifo = new FifoBuffer();
+    static final int RING_SIZE = 32;
 
     /**
-     * Max size for the fifo
+     * Size of a receive slot, larger datagrams are dropped
      */
-    private static final int FIFO_MAX_NUMBER = 100; 
+    private static final int SLOT_SIZE = 4096;
 
     /**
-     * Number of element to clean in the fifo
+     * Fifo buffer for received packet. When no slot is free the oldest
+     * packet is dropped and its slot is reused.
      */
-    private static final int FIFO_CLEAN_NUMBER = 20; 
+    private EventQueue<Packet> fifo = new EventQueue<Packet>();
 
     /**
-     * Signals that thread is interrupted
+     * Free receive slots
      */
-    private boolean isInterrupted = false;
+    private EventQueue<Packet> freeSlots = new EventQueue<Packet>();
 
     /**
-     * Last sequence number
+     * RTP packets released by the reader
      */
-    private int lastSeqnum = 0;
+    private ArrayList<RtpPacket> freePackets = new ArrayList<RtpPacket>();
+
+    /**
+     * Signals that thread is interrupted
+     */
+    private boolean isInterrupted = false;
 
     /**
      * timeout
@@ -101,10 +109,16 @@ public class RtpPacketReceiver extends Thread {
 
         this.rtcpSession = rtcpSession;
         this.timeout = socketTimeout;
+
+        // Create the receive slots
+        for(int i=0; i < RING_SIZE; i++) {
+            freeSlots.offer(createSlot());
+        }
+
         // Create the UDP server
         datagramConnection = NetworkFactory.getFactory().createDatagramConnection(socketTimeout);
         datagramConnection.open(port);
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
             logger.debug("RTP receiver created on port " + port);
 		}
 	}
@@ -150,32 +164,43 @@ public class RtpPacketReceiver extends Thread {
      * Background processing
      */
     public void run() {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("RTP Receiver processing is started");
         }
         try {
             while (datagramConnection != null) {
-                // Wait a new packet
-                byte[] data = datagramConnection.receive();
+                // Get a free slot, or reuse the one of the oldest packet not yet read
+                Packet slot = freeSlots.poll();
+                if (slot == null) {
+                    slot = fifo.poll();
+                    if (slot == null) {
+                        slot = createSlot();
+                    }
+                }
 
-                if (data.length >= 12) {
+                // Wait a new packet
+                int length = datagramConnection.receive(slot.data);
+                byte[] data = slot.data;
+
+                boolean queued = false;
+                if (length >= SLOT_SIZE) {
+                    // Drop truncated packet
+                    stats.numBadRtpPkts++;
+                } else
+                if (length >= 12) {
                     // Drop empty packet (payload 20)
                     int payloadType = (byte) ((data[1] & 0xff) & 0x7f);
                     if (payloadType != 20) {
-                        // Drop too old packet
-                        int seqnum = (char)((data[2] << 8) | (data[3] & 0xff));
-                        if (seqnum > lastSeqnum - 10) {
-                            // Clean the FIFO if full
-                            if (fifo.size() >= FIFO_MAX_NUMBER) {
-                                fifo.clean(FIFO_CLEAN_NUMBER);
-                            }
-                            fifo.addObject(data);
-                            lastSeqnum = seqnum;
-                        } else {
-                            stats.numBadRtpPkts++;
-                        }
+                        // Late packets are handled by the jitter buffer of the reader
+                        slot.length = length;
+                        slot.receivedAt = System.currentTimeMillis();
+                        fifo.offer(slot);
+                        queued = true;
                     }
                 }
+                if (!queued) {
+                    freeSlots.offer(slot);
+                }
             }
         } catch (SocketTimeoutException ex) {
             
@@ -194,20 +219,31 @@ public class RtpPacketReceiver extends Thread {
      * @return RTP packet
      */
     public RtpPacket readRtpPacket() throws TimeoutException {
+        return readRtpPacket(timeout);
+    }
+
+    /**
+     * Read a RTP packet, waiting at most the given delay
+     *
+     * @param delay Delay in milliseconds, 0 to wait without timeout
+     * @return RTP packet or null if no packet has been read
+     */
+    public RtpPacket readRtpPacket(long delay) {
 		try {
             // Get a new packet in FIFO
-            byte[] data = (byte[]) fifo.getObject(timeout);
-            if (data == null) {
-                throw new TimeoutException();
+            Packet slot = fifo.take(delay);
+            if (slot == null) {
+                return null;
             }
 
-			// Parse the RTP packet
-			RtpPacket pkt = parseRtpPacket(data);
+			// Parse the RTP packet, then release its slot
+			RtpPacket pkt = parseRtpPacket(slot);
+			freeSlots.offer(slot);
 
 			if (pkt != null) {
 				// Update statistics
 				stats.numPackets++;
-                stats.numBytes += data.length;
+                stats.numBytes += pkt.length;
 
                 RtpSource s = rtcpSession.getMySource();
                 s.setSsrc(pkt.ssrc);
@@ -217,7 +253,7 @@ public class RtpPacketReceiver extends Thread {
 
 				return pkt;
 			} else {
-				return readRtpPacket();
+				return readRtpPacket(delay);
 			}
 
 		} catch (Exception e) {
@@ -232,22 +268,68 @@ public class RtpPacketReceiver extends Thread {
 	}
 
     /**
-     * Parse the RTP packet
+     * Release a RTP packet returned by readRtpPacket once it has been
+     * processed, so that it can be reused for a next packet
+     *
+     * @param packet RTP packet
+     */
+    public void releaseRtpPacket(RtpPacket packet) {
+        synchronized(freePackets) {
+            if (freePackets.size() < RING_SIZE) {
+                packet.data = null;
+                packet.extensionHeader = null;
+                freePackets.add(packet);
+            }
+        }
+    }
+
+    /**
+     * Returns a RTP packet from the released ones or a new one
      *
-     * @param data RTP packet not yet parsed
      * @return RTP packet
      */
-	private RtpPacket parseRtpPacket(byte[] data) {
-		RtpPacket packet = new RtpPacket();
+    private RtpPacket obtainRtpPacket() {
+        synchronized(freePackets) {
+            int size = freePackets.size();
+            if (size > 0) {
+                return freePackets.remove(size - 1);
+            }
+        }
+        return new RtpPacket();
+    }
+
+    /**
+     * Create a receive slot
+     *
+     * @return Slot
+     */
+    private Packet createSlot() {
+        Packet slot = new Packet();
+        slot.data = new byte[SLOT_SIZE];
+        return slot;
+    }
+
+    /**
+     * Parse the RTP packet. The header is read in place in the slot and
+     * the payload is copied, as it may be kept by the media renderer.
+     *
+     * @param slot Received RTP packet not yet parsed
+     * @return RTP packet
+     */
+	private RtpPacket parseRtpPacket(Packet slot) {
+		RtpPacket packet = obtainRtpPacket();
+		byte[] data = slot.data;
 		try {
 			// Read RTP packet length
-            packet.length = data.length;
+            packet.length = slot.length;
 
             // Set received timestamp
-            packet.receivedAt = System.currentTimeMillis();
+            packet.receivedAt = slot.receivedAt;
 
             // Read extension bit
             packet.extension = (data[0] & 0x10) > 0;
+
+			packet.extensionHeader = null;
 
 			// Read marker
 			if ((byte)((data[1] & 0xff) & 0x80) == (byte) 0x80){
@@ -288,12 +370,20 @@ public class RtpPacketReceiver extends Thread {
                 packet.payloadoffset = 12;
             }
 			packet.payloadlength = packet.length - packet.payloadoffset;
+			if (packet.payloadlength < 0) {
+				if (logger.isActivated()) {
+					logger.error("RTP packet parsing error: truncated packet");
+				}
+				releaseRtpPacket(packet);
+				return null;
+			}
 			packet.data = new byte[packet.payloadlength];
 			System.arraycopy(data, packet.payloadoffset, packet.data, 0, packet.payloadlength);
 		} catch (Exception e) {
 			if (logger.isActivated()) {
 				logger.error("RTP packet parsing error", e);
 			}
+			releaseRtpPacket(packet);
 			return null;
 		}
         return packet;
@@ -85,7 +85,7 @@ public class RtpPacketTransmitter {
         datagramConnection = NetworkFactory.getFactory().createDatagramConnection();
         datagramConnection.open();
         
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
             logger.debug("RTP transmitter connected to " + remoteAddress + ":" + remotePort);
 		}
 	}
@@ -113,7 +113,7 @@ public class RtpPacketTransmitter {
             this.datagramConnection.open();
         }
 
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("RTP transmitter connected to " + remoteAddress + ":" + remotePort);
         }
     }
@@ -128,7 +128,7 @@ public class RtpPacketTransmitter {
 		if (datagramConnection != null) {
 			datagramConnection.close();
 		}
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
             logger.debug("RTP transmitter closed");
 		}
 	}
@@ -106,9 +106,19 @@ public class RtpSource {
     private int receivedPrior;
 
     /**
-     * Estimated jitter.
+     * Estimated jitter, in timestamp units scaled by 16 (RFC 3550 Appendix A.8)
      */
     public long jitter;
+
+    /**
+     * Clock rate of the RTP timestamps, 0 if unknown
+     */
+    private int clockRate = 0;
+
+    /**
+     * Relative transit time of the previous packet
+     */
+    private long lastTransit = Long.MIN_VALUE;
     
     /**
      * Last SR Packet timestamp
@@ -140,6 +150,27 @@ public class RtpSource {
         return seq + (RTP_SEQ_MOD * cycles);
     }
 
+    /**
+     * Set the clock rate of the RTP timestamps, needed to estimate the jitter
+     *
+     * @param clockRate Clock rate in Hz
+     */
+    public void setClockRate(int clockRate) {
+        this.clockRate = clockRate;
+    }
+
+    /**
+     * Returns the estimated interarrival jitter
+     *
+     * @return Jitter in milliseconds
+     */
+    public long getJitterMillis() {
+        if (clockRate <= 0) {
+            return 0;
+        }
+        return (jitter >> 4) * 1000 / clockRate;
+    }
+
     /**
      * Updates the statistics related to Sender Reports. Should be invoked when
      * a RTCP Sender Report is received.
@@ -165,6 +196,26 @@ public class RtpSource {
             initSeq(packet.seqnum);
         }
         updateSeq(packet.seqnum);
+        updateJitter(packet);
+    }
+
+    /**
+     * Updates the interarrival jitter. Algorithm in the RFC 3550 (Appendix A.8)
+     *
+     * @param packet RTP packet
+     */
+    private void updateJitter(RtpPacket packet) {
+        if (clockRate <= 0) {
+            return;
+        }
+        long arrival = packet.receivedAt * clockRate / 1000;
+        long transit = arrival - (packet.timestamp & 0xffffffffL);
+        if (lastTransit != Long.MIN_VALUE) {
+            // Differences are computed modulo 2^32 as the RTP timestamp wraps around
+            int d = Math.abs((int)(transit - lastTransit));
+            jitter += d - ((jitter + 8) >> 4);
+        }
+        lastTransit = transit;
     }
 
     /**
@@ -206,8 +257,7 @@ public class RtpSource {
             report.setFractionLost((lostInterval << 8) / (double) expectedInterval);
         }
 
-        // TODO : Calculate jitter
-        report.setInterarrivalJitter(0);
+        report.setInterarrivalJitter(jitter >> 4);
 
         report.setLastSenderReport(lastSenderReport);
         report.setSsrc(ssrc);
@@ -235,6 +285,8 @@ public class RtpSource {
         received = 0;
         receivedPrior = 0;
         expectedPrior = 0;
+        jitter = 0;
+        lastTransit = Long.MIN_VALUE;
     }
 
     /**
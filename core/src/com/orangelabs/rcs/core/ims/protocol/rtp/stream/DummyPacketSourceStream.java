@@ -22,7 +22,7 @@ import com.orangelabs.rcs.core.ims.protocol.rtp.format.DummyFormat;
 import com.orangelabs.rcs.core.ims.protocol.rtp.format.Format;
 import com.orangelabs.rcs.core.ims.protocol.rtp.util.Buffer;
 import com.orangelabs.rcs.core.ims.protocol.rtp.util.SystemTimeBase;
-import com.orangelabs.rcs.utils.FifoBuffer;
+import com.orangelabs.rcs.utils.EventQueue;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
@@ -60,7 +60,7 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
     /**
      * Message buffer
      */
-	private FifoBuffer fifo = new FifoBuffer();
+	private EventQueue<Buffer> fifo = new EventQueue<Buffer>();
 
 	/**
      * The logger
@@ -88,7 +88,7 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
 	 */	
     public void open() {
     	start();
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Dummy source stream opened");
 		}
 	}    	
@@ -103,7 +103,7 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
     	} catch(Exception e) {
             // Intentionally blank
     	}
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Dummy source stream closed");
 		}
     }
@@ -132,7 +132,7 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
 	        	packet.setTimeStamp(systemTimeBase.getTime());
 
 	        	// Post the packet in the FIFO
-	        	fifo.addObject(packet);
+	        	fifo.offer(packet);
 
                 // Make a pause
                 if (!incomingStarted) {
@@ -156,7 +156,7 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
      */
     public Buffer read() throws Exception {
     	// Read the FIFO the buffer
-    	Buffer buffer = (Buffer)fifo.getObject();
+    	Buffer buffer = fifo.take();
     	return buffer;  
     }
 
@@ -75,7 +75,7 @@ public class MediaCaptureStream implements ProcessorInputStream {
     public void open() throws Exception {
     	try {
 	    	player.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Media capture stream opened");
 			}
     	} catch(Exception e) {
@@ -91,7 +91,7 @@ public class MediaCaptureStream implements ProcessorInputStream {
      */
     public void close() {
 		player.close();
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Media capture stream closed");
 		}
     }
@@ -65,7 +65,7 @@ public class MediaRendererStream implements ProcessorOutputStream {
     public void open() throws Exception {
     	try {
 	    	renderer.open();
-			if (logger.isActivated()) {
+			if (logger.isDebugEnabled()) {
 				logger.debug("Media renderer stream opened");
 			}
 		} catch(Exception e) {
@@ -81,7 +81,7 @@ public class MediaRendererStream implements ProcessorOutputStream {
      */
     public void close() {
 		renderer.close();
-		if (logger.isActivated()) {
+		if (logger.isDebugEnabled()) {
 			logger.debug("Media renderer stream closed");
 		}
     }
@@ -18,18 +18,18 @@
 
 package com.orangelabs.rcs.core.ims.protocol.rtp.stream;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
-import java.util.concurrent.TimeoutException;
-
 import com.orangelabs.rcs.core.ims.protocol.rtp.RtpUtils;
+import com.orangelabs.rcs.core.ims.protocol.rtp.codec.audio.amr.AMRWBConfig;
+import com.orangelabs.rcs.core.ims.protocol.rtp.codec.video.h264.H264Config;
 import com.orangelabs.rcs.core.ims.protocol.rtp.core.RtcpPacketReceiver;
 import com.orangelabs.rcs.core.ims.protocol.rtp.core.RtcpPacketTransmitter;
 import com.orangelabs.rcs.core.ims.protocol.rtp.core.RtcpSession;
 import com.orangelabs.rcs.core.ims.protocol.rtp.core.RtpExtensionHeader.ExtensionElement;
+import com.orangelabs.rcs.core.ims.protocol.rtp.core.RtpJitterBuffer;
 import com.orangelabs.rcs.core.ims.protocol.rtp.core.RtpPacket;
 import com.orangelabs.rcs.core.ims.protocol.rtp.core.RtpPacketReceiver;
 import com.orangelabs.rcs.core.ims.protocol.rtp.format.Format;
+import com.orangelabs.rcs.core.ims.protocol.rtp.format.video.VideoFormat;
 import com.orangelabs.rcs.core.ims.protocol.rtp.format.video.VideoOrientation;
 import com.orangelabs.rcs.core.ims.protocol.rtp.util.Buffer;
 import com.orangelabs.rcs.utils.logger.Logger;
@@ -107,9 +107,9 @@ public class RtpInputStream implements ProcessorInputStream {
     private boolean isClosed = false;
 
     /**
-     * Sequence RTP packets buffer
+     * Jitter buffer
      */
-    private PriorityQueue<RtpPacket> rtpPacketsBuffer;
+    private RtpJitterBuffer jitterBuffer = new RtpJitterBuffer();
 
 	/**
 	 * The logger
@@ -130,18 +130,12 @@ public class RtpInputStream implements ProcessorInputStream {
 
         rtcpSession = new RtcpSession(false, 16000);
 
-        rtpPacketsBuffer = new PriorityQueue<RtpPacket>(10, new Comparator<RtpPacket>() {
-            @Override
-            public int compare(RtpPacket object1, RtpPacket object2) {
-                if (object1.seqnum == object2.seqnum) {
-                    return 0;
-                } else if (object1.seqnum < object2.seqnum) {
-                    return -1;
-                }
-                return 1;
-            }
-        });
-
+        // Clock rate of the RTP timestamps, used to estimate the jitter
+        if (inputFormat instanceof VideoFormat) {
+            rtcpSession.getMySource().setClockRate(H264Config.CLOCK_RATE);
+        } else {
+            rtcpSession.getMySource().setClockRate(AMRWBConfig.SAMPLE_RATE);
+        }
     }
 
     /**
@@ -221,50 +215,63 @@ public class RtpInputStream implements ProcessorInputStream {
      * @throws Exception
      */
     public Buffer read() throws Exception {
-        try {
-            do {
-                // Wait and read a RTP packet
-                RtpPacket rtpPacket = rtpReceiver.readRtpPacket();
-                if (rtpPacket == null) {
-                    return null;
-                }
-
-                // Add the buffer in queue
-                rtpPacketsBuffer.add(rtpPacket);
-            } while (rtpPacketsBuffer.size() <= 5);
-
-            RtpPacket packet = rtpPacketsBuffer.poll();
-
-        	// Create a buffer
-            buffer.setData(packet.data);
-            buffer.setLength(packet.payloadlength);
-            buffer.setOffset(0);
-            buffer.setFormat(inputFormat);
-        	buffer.setSequenceNumber(packet.seqnum);
-        	buffer.setRTPMarker(packet.marker!=0);
-        	buffer.setTimeStamp(packet.timestamp);
-
-            if (packet.extensionHeader != null) {
-                ExtensionElement element = packet.extensionHeader.getElementById(extensionHeaderId);
-                if (element != null) {
-                    buffer.setVideoOrientation(VideoOrientation.parse(element.data[0]));
-                }
+        long deadline = System.currentTimeMillis() + RTP_SOCKET_TIMEOUT;
+        RtpPacket packet;
+        while ((packet = jitterBuffer.poll(System.currentTimeMillis())) == null) {
+            long now = System.currentTimeMillis();
+            if (isClosed) {
+                return null;
             }
-
-        	// Set inputFormat back to null
-        	inputFormat = null;
-        	return buffer;
-        } catch (TimeoutException ex) {
-            if (!isClosed) {
+            if (now >= deadline) {
                 if (logger.isActivated()) {
-                    logger.error("RTP Packet receiver socket error", ex);
+                    logger.error("RTP Packet receiver socket error: no packet received");
                 }
                 if (rtpStreamListener != null) {
                     rtpStreamListener.rtpStreamAborted();
                 }
+                return null;
+            }
+
+            // Wait a RTP packet, at most until a buffered packet may be released
+            long delay = deadline - now;
+            long waiting = jitterBuffer.getWaitingDelay(now);
+            if ((waiting >= 0) && (waiting < delay)) {
+                delay = Math.max(waiting, 1);
+            }
+            RtpPacket rtpPacket = rtpReceiver.readRtpPacket(delay);
+            if (rtpPacket != null) {
+                if (!jitterBuffer.add(rtpPacket)) {
+                    // Duplicate or too late packet
+                    rtpReceiver.releaseRtpPacket(rtpPacket);
+                }
+
+                // Adapt the playout delay to the current jitter
+                jitterBuffer.setJitter(rtcpSession.getMySource().getJitterMillis());
             }
-            return null;
         }
+
+    	// Create a buffer
+        buffer.setData(packet.data);
+        buffer.setLength(packet.payloadlength);
+        buffer.setOffset(0);
+        buffer.setFormat(inputFormat);
+    	buffer.setSequenceNumber(packet.seqnum);
+    	buffer.setRTPMarker(packet.marker!=0);
+    	buffer.setTimeStamp(packet.timestamp);
+
+        if (packet.extensionHeader != null) {
+            ExtensionElement element = packet.extensionHeader.getElementById(extensionHeaderId);
+            if (element != null) {
+                buffer.setVideoOrientation(VideoOrientation.parse(element.data[0]));
+            }
+        }
+
+        // The packet may be reused, its payload is kept by the buffer
+        rtpReceiver.releaseRtpPacket(packet);
+
+    	// Set inputFormat back to null
+    	inputFormat = null;
+    	return buffer;
     }
 
     /**
@@ -25,6 +25,8 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.ListIterator;
 import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.Vector;
 
 import javax2.sip.ClientTransaction;
@@ -134,6 +136,11 @@ public class SipInterface implements SipListener {
      */
     private SipTransactionList transactions = new SipTransactionList();
 
+    /**
+     * Timer of the transactions waiting asynchronously a response
+     */
+    private Timer transactionTimer = new Timer("SipTransactionTimer", true);
+
     /**
      * SIP interface listeners
      */
@@ -331,7 +338,7 @@ public class SipInterface implements SipListener {
             throw new SipException("Can't create the SIP stack");
         }
 
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("SIP stack started at " + localIpAddress + ":" + listeningPort);
         }
     }
@@ -355,6 +362,9 @@ public class SipInterface implements SipListener {
                 sipStack.deleteSipProvider(sipProvider);
             }
 
+            // Stop the timer of asynchronous transactions
+            transactionTimer.cancel();
+
             // Stop the stack
             sipStack.stop();
             SipFactory.getInstance().resetFactory();
@@ -395,7 +405,7 @@ public class SipInterface implements SipListener {
         //      changed.
         if (ListeningPoint.UDP.equals(defaultProtocol) && this.tcpFallback
                 && (request.getStackMessage().toString().length() > (sipStack.getMtuSize() - 200))) {
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug("Transaction falls back to TCP as request size is "
                         + request.getStackMessage().toString().length() + " and MTU size is "
                         + sipStack.getMtuSize());
@@ -683,7 +693,7 @@ public class SipInterface implements SipListener {
      * @param listener Listener
      */
     public void addSipEventListener(SipEventListener listener) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("Add a SIP listener");
         }
         listeners.addElement(listener);
@@ -695,7 +705,7 @@ public class SipInterface implements SipListener {
      * @param listener Listener
      */
     public void removeSipEventListener(SipEventListener listener) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("Remove a SIP listener");
         }
         listeners.removeElement(listener);
@@ -719,7 +729,7 @@ public class SipInterface implements SipListener {
     public void notifyTransactionContext(String transactionId, SipMessage msg) {
         SipTransactionContext ctx = (SipTransactionContext)transactions.get(transactionId);
         if (ctx != null) {
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug("Callback object found for transaction " + transactionId);
             }
             removeTransactionContext(transactionId);
@@ -735,6 +745,86 @@ public class SipInterface implements SipListener {
      * @throws SipException
      */
     public SipTransactionContext sendSipMessageAndWait(SipMessage message) throws SipException {
+        return sendSipMessage(message, null);
+    }
+
+    /**
+     * Send a SIP message without waiting its response: the listener is notified
+     * when the response (or the ACK) is received or when the timeout occurs
+     *
+     * @param message SIP message
+     * @param listener Transaction listener
+     * @param timeout Timeout in seconds
+     * @return Transaction context
+     * @throws SipException
+     */
+    public SipTransactionContext sendSipMessageAndNotify(SipMessage message, final SipTransactionListener listener,
+            int timeout) throws SipException {
+        final TransactionTimeoutTask timeoutTask = new TransactionTimeoutTask(
+                SipTransactionContext.getTransactionContextId(message));
+        SipTransactionContext ctx = sendSipMessage(message, new SipTransactionListener() {
+            public void transactionCompleted(SipTransactionContext ctx) {
+                timeoutTask.cancel();
+                listener.transactionCompleted(ctx);
+            }
+        });
+        if (ctx != null) {
+            timeoutTask.ctx = ctx;
+            try {
+                transactionTimer.schedule(timeoutTask, timeout * 1000L);
+            } catch(IllegalStateException e) {
+                // Transaction already completed
+            }
+        }
+        return ctx;
+    }
+
+    /**
+     * Timeout of a transaction waiting asynchronously a response
+     */
+    private class TransactionTimeoutTask extends TimerTask {
+        /**
+         * Transaction context ID
+         */
+        private String id;
+
+        /**
+         * Transaction context
+         */
+        private volatile SipTransactionContext ctx = null;
+
+        /**
+         * Constructor
+         *
+         * @param id Transaction context ID
+         */
+        public TransactionTimeoutTask(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            synchronized(SipInterface.this) {
+                if (transactions.get(id) == ctx) {
+                    transactions.remove(id);
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Transaction " + id + " has timed out");
+            }
+            ctx.timeoutExpired();
+        }
+    }
+
+    /**
+     * Send a SIP message and create a context to wait a response
+     *
+     * @param message SIP message
+     * @param listener Transaction listener or null to wait synchronously the response
+     * @return Transaction context
+     * @throws SipException
+     */
+    private SipTransactionContext sendSipMessage(SipMessage message, SipTransactionListener listener) throws SipException {
         try {
             if (message instanceof SipRequest) {
                 // Send a request
@@ -751,14 +841,17 @@ public class SipInterface implements SipListener {
 
                 // Create a transaction context
                 SipTransactionContext ctx = new SipTransactionContext(transaction);
+                if (listener != null) {
+                    ctx.setTransactionListener(listener);
+                }
                 String id = SipTransactionContext.getTransactionContextId(req);
                 transactions.put(id, ctx);
-                if (logger.isActivated()) {
+                if (logger.isDebugEnabled()) {
                     logger.debug("Create a transaction context " + id);
                 }
 
                 // Send the SIP message to the network
-                if (logger.isActivated()) {
+                if (logger.isDebugEnabled()) {
                     logger.debug(">>> Send SIP " + req.getMethod());
                 }
                 if (sipTraceEnabled) {
@@ -785,14 +878,17 @@ public class SipInterface implements SipListener {
 
                 // Create a transaction context
                 SipTransactionContext ctx = new SipTransactionContext(transaction);
+                if (listener != null) {
+                    ctx.setTransactionListener(listener);
+                }
                 String id = SipTransactionContext.getTransactionContextId(resp);
                 transactions.put(id, ctx);
-                if (logger.isActivated()) {
+                if (logger.isDebugEnabled()) {
                     logger.debug("Create a transaction context " + id);
                 }
 
                 // Send the SIP message to the network
-                if (logger.isActivated()) {
+                if (logger.isDebugEnabled()) {
                     logger.debug(">>> Send SIP " + resp.getStatusCode() + " response");
                 }
                 if (sipTraceEnabled) {
@@ -831,7 +927,7 @@ public class SipInterface implements SipListener {
             }
 
             // Send the SIP message to the network
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug(">>> Send SIP " + response.getStatusCode() + " response");
             }
             if (sipTraceEnabled) {
@@ -859,7 +955,7 @@ public class SipInterface implements SipListener {
             SipRequest ack = SipMessageFactory.createAck(dialog);
 
             // Send the SIP message to the network
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug(">>> Send SIP ACK");
             }
             if (sipTraceEnabled) {
@@ -903,7 +999,7 @@ public class SipInterface implements SipListener {
             ClientTransaction transaction = createNewTransaction(cancel);
             
             // Send the SIP message to the network
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug(">>> Send SIP CANCEL");
             }
             if (sipTraceEnabled) {
@@ -940,7 +1036,7 @@ public class SipInterface implements SipListener {
             ClientTransaction transaction = createNewTransaction(bye);
 
             // Send the SIP message to the network
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug(">>> Send SIP BYE");
             }
             if (sipTraceEnabled) {
@@ -981,12 +1077,12 @@ public class SipInterface implements SipListener {
             SipTransactionContext ctx = new SipTransactionContext(transaction);
             String id = SipTransactionContext.getTransactionContextId(update);
             transactions.put(id, ctx);
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug("Create a transaction context " + id);
             }
 
             // Send the SIP message to the network
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug(">>> Send SIP UPDATE");
             }
             if (sipTraceEnabled) {
@@ -1024,7 +1120,7 @@ public class SipInterface implements SipListener {
             ClientTransaction transaction = createNewTransaction(request);
 
             // Send the SIP message to the network
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug(">>> Send SIP " + request.getMethod().toUpperCase());
             }
             if (sipTraceEnabled) {
@@ -1054,7 +1150,7 @@ public class SipInterface implements SipListener {
      * @param dialogTerminatedEvent Event
      */
     public void processDialogTerminated(DialogTerminatedEvent dialogTerminatedEvent) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("Dialog terminated");
         }
     }
@@ -1065,7 +1161,7 @@ public class SipInterface implements SipListener {
      * @param exceptionEvent Event
      */
     public void processIOException(IOExceptionEvent exceptionEvent) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("IO Exception on " + exceptionEvent.getTransport() + " transport");
         }
     }
@@ -1077,7 +1173,7 @@ public class SipInterface implements SipListener {
      * @param requestEvent Event
      */
     public void processRequest(RequestEvent requestEvent) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("<<< Receive SIP " + requestEvent.getRequest().getMethod());
         }
         if (sipTraceEnabled) {
@@ -1113,7 +1209,7 @@ public class SipInterface implements SipListener {
 
         // Notify event listeners
         for(int i=0; i < listeners.size(); i++) {
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug("Notify a SIP listener");
             }
             SipEventListener listener = (SipEventListener)listeners.elementAt(i);
@@ -1128,7 +1224,7 @@ public class SipInterface implements SipListener {
      * @param responseEvent Event
      */
     public void processResponse(ResponseEvent responseEvent) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("<<< Receive SIP " + responseEvent.getResponse().getStatusCode() + " response");
         }
         if (sipTraceEnabled) {
@@ -1139,7 +1235,7 @@ public class SipInterface implements SipListener {
         // Search transaction
         ClientTransaction transaction = responseEvent.getClientTransaction();
         if (transaction == null) {
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug("No transaction exist for this response: by-pass it");
             }
             return;
@@ -1154,7 +1250,7 @@ public class SipInterface implements SipListener {
             String transactionId = SipTransactionContext.getTransactionContextId(resp);
             notifyTransactionContext(transactionId, resp);
         } else {
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug("By pass provisional response");
             }
         }
@@ -1167,7 +1263,7 @@ public class SipInterface implements SipListener {
      * @param timeoutEvent Event
      */
     public void processTimeout(TimeoutEvent timeoutEvent) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("Transaction timeout " + timeoutEvent.getTimeout().toString());
         }
 
@@ -1180,7 +1276,7 @@ public class SipInterface implements SipListener {
 
         ClientTransaction transaction = (ClientTransaction)timeoutEvent.getClientTransaction();
         if (transaction == null) {
-            if (logger.isActivated()) {
+            if (logger.isDebugEnabled()) {
                 logger.debug("No transaction exist for this transaction: by-pass it");
             }
             return;
@@ -1197,7 +1293,7 @@ public class SipInterface implements SipListener {
      * @param transactionTerminatedEvent Event
      */
     public void processTransactionTerminated(TransactionTerminatedEvent transactionTerminatedEvent) {
-        if (logger.isActivated()) {
+        if (logger.isDebugEnabled()) {
             logger.debug("Transaction terminated");
         }
     }
@@ -41,6 +41,16 @@ public class SipTransactionContext extends Object {
 	 */
 	private SipMessage recvMsg = null;
 
+	/**
+	 * Transaction listener
+	 */
+	private SipTransactionListener listener = null;
+
+	/**
+	 * Completion flag
+	 */
+	private boolean completed = false;
+
 	/**
 	 * Constructor
 	 * 
@@ -189,15 +199,58 @@ public class SipTransactionContext extends Object {
 		}
 	}
 
+	/**
+	 * Set the listener notified when the transaction is completed, instead of
+	 * waiting the response. The listener is called immediately if the
+	 * transaction is already completed.
+	 * 
+	 * @param listener Transaction listener
+	 */
+	public void setTransactionListener(SipTransactionListener listener) {
+		synchronized(this) {
+			this.listener = listener;
+			if (!completed) {
+				return;
+			}
+		}
+		listener.transactionCompleted(this);
+	}
+
 	/**
 	 * A response has been received (SIP response or ACK or any other SIP message) 
 	 * 
 	 * @param msg SIP message object
 	 */
 	public void responseReceived(SipMessage msg) {
+		SipTransactionListener callback = null;
 		synchronized(this) {
 			recvMsg = msg;
 			super.notify();
+			if (!completed) {
+				completed = true;
+				callback = listener;
+			}
+		}
+		if (callback != null) {
+			callback.transactionCompleted(this);
+		}
+	}
+
+	/**
+	 * The transaction has timed out without any response
+	 */
+	public void timeoutExpired() {
+		SipTransactionListener callback = null;
+		synchronized(this) {
+			if (completed) {
+				return;
+			}
+			completed = true;
+			callback = listener;
+			super.notify();
+		}
+		if (callback != null) {
+			callback.transactionCompleted(this);
 		}
 	}
 
@@ -24,6 +24,7 @@ import com.orangelabs.rcs.core.ims.network.sip.SipMessageFactory;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipRequest;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipResponse;
 import com.orangelabs.rcs.utils.IdGenerator;
+import com.orangelabs.rcs.utils.NamedThreadPool;
 import com.orangelabs.rcs.utils.PhoneUtils;
 import com.orangelabs.rcs.utils.logger.Logger;
 
@@ -73,7 +74,12 @@ public abstract class ImsService {
      * SIP service
      */
 	public static final int SIP_SERVICE = 6;
-	
+
+    /**
+     * Maximum number of sessions processed in parallel by a service
+     */
+    private static final int MAX_SESSION_THREADS = 16;
+
 	/**
 	 * Activation flag
 	 */
@@ -94,6 +100,12 @@ public abstract class ImsService {
      */
     private Map<String, ImsServiceSession> sessions = Collections.synchronizedMap(new LinkedHashMap<String, ImsServiceSession>());
 
+    /**
+     * Executor of the sessions. A terminating session does not hold a thread
+     * while waiting for the invitation answer.
+     */
+    private NamedThreadPool sessionExecutor;
+
 	/**
      * The logger
      */
@@ -109,6 +121,7 @@ public abstract class ImsService {
 	public ImsService(ImsModule parent, boolean activated) throws CoreException {
 		this.imsModule = parent;
 		this.activated = activated;
+		this.sessionExecutor = new NamedThreadPool(getClass().getSimpleName(), MAX_SESSION_THREADS);
 	}
 
     /**
@@ -138,6 +151,15 @@ public abstract class ImsService {
 		return imsModule;
 	}
 
+    /**
+     * Returns the executor of the sessions
+     * 
+     * @return Executor
+     */
+	public NamedThreadPool getSessionExecutor() {
+		return sessionExecutor;
+	}
+
     /**
      * Returns a session
      * 
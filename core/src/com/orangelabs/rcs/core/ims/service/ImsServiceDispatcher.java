@@ -40,7 +40,7 @@ import com.orangelabs.rcs.core.ims.service.im.chat.standfw.StoreAndForwardManage
 import com.orangelabs.rcs.core.ims.service.im.filetransfer.http.FileTransferHttpInfoDocument;
 import com.orangelabs.rcs.core.ims.service.terms.TermsConditionsService;
 import com.orangelabs.rcs.provider.settings.RcsSettings;
-import com.orangelabs.rcs.utils.FifoBuffer;
+import com.orangelabs.rcs.utils.EventQueue;
 import com.orangelabs.rcs.utils.IdGenerator;
 import com.orangelabs.rcs.utils.logger.Logger;
 
@@ -58,7 +58,7 @@ public class ImsServiceDispatcher extends Thread {
     /**
 	 * Buffer of messages
 	 */
-	private FifoBuffer buffer = new FifoBuffer();
+	private EventQueue<SipRequest> buffer = new EventQueue<SipRequest>();
 
 	/**
 	 * SIP intent manager
@@ -100,7 +100,7 @@ public class ImsServiceDispatcher extends Thread {
      * @param request SIP request
 	 */
 	public void postSipRequest(SipRequest request) {
-		buffer.addObject(request);
+		buffer.offer(request);
 	}
     
 	/**
@@ -111,7 +111,7 @@ public class ImsServiceDispatcher extends Thread {
 			logger.info("Start background processing");
 		}
 		SipRequest request = null; 
-		while((request = (SipRequest)buffer.getObject()) != null) {
+		while((request = buffer.take()) != null) {
 			try {
 				// Dispatch the received SIP request
 				dispatch(request);
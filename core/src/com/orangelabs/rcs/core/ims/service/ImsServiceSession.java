@@ -31,15 +31,18 @@ import com.orangelabs.rcs.core.ims.protocol.sip.SipException;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipRequest;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipResponse;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionListener;
 import com.orangelabs.rcs.provider.settings.RcsSettings;
+import com.orangelabs.rcs.utils.TimerScheduler;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
- * IMS service session
+ * IMS service session. The session is processed in background by the
+ * session executor of its IMS service.
  * 
  * @author jexa7410
  */
-public abstract class ImsServiceSession extends Thread {
+public abstract class ImsServiceSession implements Runnable {
 	/**
 	 * Session invitation status
 	 */
@@ -54,6 +57,11 @@ public abstract class ImsServiceSession extends Thread {
     public final static int TERMINATION_BY_SYSTEM = 0;
     public final static int TERMINATION_BY_USER = 1;
     public final static int TERMINATION_BY_TIMEOUT = 2;
+
+    /**
+     * Coalescing window of the ringing period timer (in milliseconds)
+     */
+    private final static long RINGING_TIMER_WINDOW = 1000;
     
 	/**
      * IMS service
@@ -91,10 +99,24 @@ public abstract class ImsServiceSession extends Thread {
 	protected int invitationStatus = INVITATION_NOT_ANSWERED;
 	
 	/**
-	 * Wait user answer for session invitation
+	 * Lock of the session invitation answer
 	 */
 	protected Object waitUserAnswer = new Object();
 
+	/**
+	 * Is the session invitation answer waited
+	 */
+	private boolean answerPending = false;
+
+	/**
+	 * Timer of the ringing period
+	 */
+	private TimerScheduler.Timer ringingTimer = new TimerScheduler.Timer(new Runnable() {
+		public void run() {
+			notifyInvitationAnswer();
+		}
+	});
+
 	/**
 	 * Session listeners
 	 */
@@ -125,6 +147,21 @@ public abstract class ImsServiceSession extends Thread {
      */
     private boolean sessionTerminatedByRemote = false;
 
+    /**
+     * Thread processing the session
+     */
+    private Thread sessionThread = null;
+
+    /**
+     * Thread interrupted flag
+     */
+    private boolean threadInterrupted = false;
+
+    /**
+     * Lock of the processing thread
+     */
+    private Object threadLock = new Object();
+
     /**
      * The logger
      */
@@ -281,7 +318,58 @@ public abstract class ImsServiceSession extends Thread {
 		imsService.addSession(this);
 		
 		// Start the session
-		start();
+		execute(this);
+	}
+
+	/**
+	 * Run a processing step of the session on the executor of the sessions
+	 * 
+	 * @param task Processing step
+	 */
+	private void execute(final Runnable task) {
+		imsService.getSessionExecutor().execute(new Runnable() {
+			public void run() {
+				synchronized(threadLock) {
+					sessionThread = Thread.currentThread();
+					if (threadInterrupted) {
+						sessionThread.interrupt();
+					}
+				}
+				try {
+					task.run();
+				} finally {
+					synchronized(threadLock) {
+						sessionThread = null;
+
+						// Clear the interrupted status before the thread is reused
+						Thread.interrupted();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Interrupt the thread processing the session
+	 */
+	public void interrupt() {
+		synchronized(threadLock) {
+			threadInterrupted = true;
+			if (sessionThread != null) {
+				sessionThread.interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Is the thread processing the session interrupted
+	 * 
+	 * @return Boolean
+	 */
+	public boolean isInterrupted() {
+		synchronized(threadLock) {
+			return threadInterrupted;
+		}
 	}
 	
 	/**
@@ -384,10 +472,8 @@ public abstract class ImsServiceSession extends Thread {
 		}
 		invitationStatus = INVITATION_REJECTED;
 
-		// Unblock semaphore
-		synchronized(waitUserAnswer) {
-			waitUserAnswer.notifyAll();
-		}
+		// Process the answer
+		notifyInvitationAnswer();
 
 		// Decline the invitation
 		sendErrorResponse(getDialogPath().getInvite(), getDialogPath().getLocalTag(), code);
@@ -405,36 +491,57 @@ public abstract class ImsServiceSession extends Thread {
 		}
 		invitationStatus = INVITATION_ACCEPTED;
 
-		// Unblock semaphore
+		// Process the answer
+		notifyInvitationAnswer();
+	}
+
+	/**
+	 * Wait the session invitation answer without holding the session thread:
+	 * the answer is processed by {@link #handleInvitationAnswer(int)} on the
+	 * executor of the sessions when the invitation is accepted, rejected or
+	 * canceled, when the session is interrupted or at the end of the ringing
+	 * period
+	 */
+	public void waitInvitationAnswer() {
 		synchronized(waitUserAnswer) {
-			waitUserAnswer.notifyAll();
+			answerPending = true;
+			if ((invitationStatus == INVITATION_NOT_ANSWERED) && !isSessionInterrupted()) {
+				if (logger.isActivated()) {
+					logger.debug("Wait session invitation answer");
+				}
+				TimerScheduler.getInstance().schedule(ringingTimer, ringingPeriod * 1000L, RINGING_TIMER_WINDOW);
+				return;
+			}
 		}
+
+		// Already answered
+		notifyInvitationAnswer();
 	}
 
 	/**
-	 * Wait session invitation answer
-	 * 
-	 * @return Answer
+	 * Notify the session invitation answer, if it is waited
 	 */
-	public int waitInvitationAnswer() {
-		if (invitationStatus != INVITATION_NOT_ANSWERED) {
-			return invitationStatus;
-		}
-		
-		if (logger.isActivated()) {
-			logger.debug("Wait session invitation answer");
-		}
-		
-		// Wait until received response or received timeout
-		try {
-			synchronized(waitUserAnswer) {
-				waitUserAnswer.wait(ringingPeriod * 1000);
+	protected void notifyInvitationAnswer() {
+		synchronized(waitUserAnswer) {
+			if (!answerPending) {
+				return;
 			}
-		} catch(InterruptedException e) {
-			sessionInterrupted = true;
+			answerPending = false;
 		}
-		
-		return invitationStatus;
+		TimerScheduler.getInstance().cancel(ringingTimer);
+		execute(new Runnable() {
+			public void run() {
+				handleInvitationAnswer(invitationStatus);
+			}
+		});
+	}
+
+	/**
+	 * Process the session invitation answer, see {@link #waitInvitationAnswer()}
+	 * 
+	 * @param answer Answer
+	 */
+	protected void handleInvitationAnswer(int answer) {
 	}
 	
 	/**
@@ -446,10 +553,8 @@ public abstract class ImsServiceSession extends Thread {
 		}
 		
 		try {
-			// Unblock semaphore
-			synchronized(waitUserAnswer) {
-				waitUserAnswer.notifyAll();
-			}
+			// Process the answer
+			notifyInvitationAnswer();
 			
 			if (!isSessionInterrupted()) {
 				// Interrupt thread
@@ -519,10 +624,8 @@ public abstract class ImsServiceSession extends Thread {
     		dialogPath.sessionTerminated();
     	}
 
-		// Unblock semaphore (used for terminating side only)
-		synchronized(waitUserAnswer) {
-			waitUserAnswer.notifyAll();
-		}
+		// Process the answer (used for terminating side only)
+		notifyInvitationAnswer();
 
 		try {
 			// Terminate the session
@@ -619,10 +722,8 @@ public abstract class ImsServiceSession extends Thread {
         // Set invitation status
         invitationStatus = ImsServiceSession.INVITATION_CANCELED;
 
-        // Unblock semaphore
-        synchronized(waitUserAnswer) {
-            waitUserAnswer.notifyAll();
-        }
+        // Process the answer
+        notifyInvitationAnswer();
 
 		// Notify listeners
     	for(int i=0; i < getListeners().size(); i++) {
@@ -885,15 +986,39 @@ public abstract class ImsServiceSession extends Thread {
     public abstract SipRequest createInvite() throws SipException;
 
     /**
-     * Send INVITE message
+     * Send INVITE message without waiting for the response: the response is
+     * processed on the executor of the sessions
      *
      * @param invite SIP INVITE
      * @throws SipException
      */
     public void sendInvite(SipRequest invite) throws SipException {
         // Send INVITE request
-        SipTransactionContext ctx = getImsService().getImsModule().getSipManager().sendSipMessageAndWait(invite, getResponseTimeout());
+        getImsService().getImsModule().getSipManager().sendSipMessageAndNotify(invite, new SipTransactionListener() {
+			public void transactionCompleted(final SipTransactionContext ctx) {
+				execute(new Runnable() {
+					public void run() {
+						try {
+							handleInviteResponse(ctx);
+						} catch(Exception e) {
+				        	if (logger.isActivated()) {
+				        		logger.error("Session initiation has failed", e);
+				        	}
+				        	handleError(new ImsSessionBasedServiceError(ImsSessionBasedServiceError.UNEXPECTED_EXCEPTION,
+				        			e.getMessage()));
+						}
+					}
+				});
+			}
+		}, getResponseTimeout());
+    }
 
+    /**
+     * Analyze the response of the INVITE
+     *
+     * @param ctx SIP transaction context
+     */
+    private void handleInviteResponse(SipTransactionContext ctx) {
         // Analyze the received response 
         if (ctx.isSipResponse()) {
             // A response has been received
@@ -112,7 +112,7 @@ public class SessionTimerManager extends PeriodicRefresher {
 	 */
 	public void start(String refresher, int expirePeriod) {
 		if (logger.isActivated()) {
-			logger.debug("Start session timer for session " + session.getId() + " (role=" + refresher + ", expire=" + expirePeriod + ")");
+			logger.debug("Start session timer for session " + session.getSessionID() + " (role=" + refresher + ", expire=" + expirePeriod + ")");
 		}
 
 		// If the session timer is set to 0 value, it may have not been set, so take the expire period as value
@@ -127,7 +127,7 @@ public class SessionTimerManager extends PeriodicRefresher {
 		this.expirePeriod = expirePeriod;
 
 		// Reset last session refresh time
-		lastSessionRefresh = System.currentTimeMillis();
+		lastSessionRefresh = currentTimeMillis();
 
         // Start processing the session timer
         startProcessing();
@@ -149,7 +149,7 @@ public class SessionTimerManager extends PeriodicRefresher {
 	 */
 	public void stop() {
 		if (logger.isActivated()) {
-			logger.debug("Stop session timer for session " + session.getId());
+			logger.debug("Stop session timer for session " + session.getSessionID());
 		}
 		stopTimer();
 	}
@@ -222,7 +222,7 @@ public class SessionTimerManager extends PeriodicRefresher {
                 session.getDialogPath().sigEstablished();
 
                 // Update last session refresh time
-                lastSessionRefresh = System.currentTimeMillis();
+                lastSessionRefresh = currentTimeMillis();
 
                 // Send ACK request
                 if (logger.isActivated()) {
@@ -293,7 +293,7 @@ public class SessionTimerManager extends PeriodicRefresher {
 				logger.debug("Session timer refresh (UAS role)");
 			}
 			
-			if (((System.currentTimeMillis()-lastSessionRefresh)/1000) >= expirePeriod) {
+			if (((currentTimeMillis()-lastSessionRefresh)/1000) >= expirePeriod) {
 				// Session has expired
 				if (logger.isActivated()) {
 					logger.debug("Session timer refresh has failed: close the session");
@@ -335,7 +335,7 @@ public class SessionTimerManager extends PeriodicRefresher {
             }
 
             // Update last session refresh time
-            lastSessionRefresh = System.currentTimeMillis();
+            lastSessionRefresh = currentTimeMillis();
 
             // Send 200 OK response
             if (logger.isActivated()) {
@@ -382,7 +382,7 @@ public class SessionTimerManager extends PeriodicRefresher {
         	}
 
         	// Update last session refresh time
-			lastSessionRefresh = System.currentTimeMillis();
+			lastSessionRefresh = currentTimeMillis();
 
 			// Send 200 OK response
         	if (logger.isActivated()) {
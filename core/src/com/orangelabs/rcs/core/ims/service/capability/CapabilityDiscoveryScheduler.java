@@ -0,0 +1,508 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.orangelabs.rcs.core.ims.service.capability;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.orangelabs.rcs.utils.logger.Logger;
+
+/**
+ * Scheduler of the capability requests sent to the network. Requests are
+ * queued by priority and sent at a rate limited by a token bucket, so that
+ * a large address book does not result in a burst of OPTIONS. A request for
+ * a contact which is already queued is coalesced with it, keeping the highest
+ * priority. A request for a contact which is in progress is coalesced with
+ * it only if the request in progress has the same or a higher priority.
+ */
+public class CapabilityDiscoveryScheduler implements Runnable {
+	/**
+	 * Sender of the scheduled requests
+	 */
+	public interface RequestSender {
+		/**
+		 * Send a capability request
+		 *
+		 * @param contact Contact
+		 * @return Returns false if the request has not been sent
+		 */
+		public boolean sendCapabilityRequest(String contact);
+	}
+
+	/**
+	 * Priority of a contact in use (UI, chat, call)
+	 */
+	public final static int PRIORITY_ACTIVE = 0;
+
+	/**
+	 * Priority of a contact without capabilities or with expired capabilities
+	 */
+	public final static int PRIORITY_STALE = 1;
+
+	/**
+	 * Priority of a periodic refresh
+	 */
+	public final static int PRIORITY_BACKGROUND = 2;
+
+	/**
+	 * Default number of requests sent per second
+	 */
+	public final static int DEFAULT_RATE = 5;
+
+	/**
+	 * Default max number of requests sent in a burst
+	 */
+	public final static int DEFAULT_BURST = 10;
+
+	/**
+	 * Max duration of a request in progress (in milliseconds), after which
+	 * its termination is considered as missed: a non INVITE transaction is
+	 * terminated after 64*T1
+	 */
+	private final static long IN_PROGRESS_TIMEOUT = 32000;
+
+	/**
+	 * Period over which the send rate is measured (in milliseconds)
+	 */
+	private final static long RATE_PERIOD = 10000;
+
+	/**
+	 * Scheduled request
+	 */
+	private static class Request {
+		String contact;
+		int priority;
+		long notBefore;
+		long sequence;
+		long sentDate;
+	}
+
+	/**
+	 * Sender of the requests
+	 */
+	private RequestSender sender;
+
+	/**
+	 * Number of requests sent per second
+	 */
+	private int rate;
+
+	/**
+	 * Max number of requests sent in a burst
+	 */
+	private int burst;
+
+	/**
+	 * Queue of each priority, ordered by date
+	 */
+	private List<PriorityQueue<Request>> queues;
+
+	/**
+	 * Queued requests indexed by contact
+	 */
+	private HashMap<String, Request> queued = new HashMap<String, Request>();
+
+	/**
+	 * Requests in progress indexed by contact
+	 */
+	private HashMap<String, Request> inProgress = new HashMap<String, Request>();
+
+	/**
+	 * Available tokens
+	 */
+	private double tokens;
+
+	/**
+	 * Date of the last token refill
+	 */
+	private long refillDate;
+
+	/**
+	 * Request sequence number, used to keep the order of requests of the same date
+	 */
+	private long sequence = 0;
+
+	/**
+	 * Number of requests received
+	 */
+	private long requestCount = 0;
+
+	/**
+	 * Number of requests coalesced with a queued or in progress request
+	 */
+	private long coalescedCount = 0;
+
+	/**
+	 * Number of requests sent
+	 */
+	private long sentCount = 0;
+
+	/**
+	 * Start date of the current rate period
+	 */
+	private long ratePeriodStart;
+
+	/**
+	 * Number of requests sent during the current rate period
+	 */
+	private int ratePeriodCount = 0;
+
+	/**
+	 * Send rate measured on the last rate period
+	 */
+	private float sendRate = 0;
+
+	/**
+	 * Dispatching thread
+	 */
+	private Thread thread = null;
+
+	/**
+     * The logger
+     */
+    private Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Constructor
+	 *
+	 * @param sender Sender of the requests
+	 */
+	public CapabilityDiscoveryScheduler(RequestSender sender) {
+		this(sender, DEFAULT_RATE, DEFAULT_BURST);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param sender Sender of the requests
+	 * @param rate Number of requests sent per second
+	 * @param burst Max number of requests sent in a burst
+	 */
+	public CapabilityDiscoveryScheduler(RequestSender sender, int rate, int burst) {
+		this.sender = sender;
+		this.rate = Math.max(1, rate);
+		this.burst = Math.max(1, burst);
+		Comparator<Request> comparator = new Comparator<Request>() {
+			public int compare(Request r1, Request r2) {
+				if (r1.notBefore != r2.notBefore) {
+					return (r1.notBefore < r2.notBefore) ? -1 : 1;
+				}
+				return (r1.sequence < r2.sequence) ? -1 : ((r1.sequence == r2.sequence) ? 0 : 1);
+			}
+		};
+		queues = new ArrayList<PriorityQueue<Request>>(PRIORITY_BACKGROUND + 1);
+		for (int i = 0; i <= PRIORITY_BACKGROUND; i++) {
+			queues.add(new PriorityQueue<Request>(16, comparator));
+		}
+	}
+
+	/**
+	 * Start the scheduler
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		tokens = burst;
+		refillDate = System.currentTimeMillis();
+		ratePeriodStart = refillDate;
+		thread = new Thread(this, "CapabilityDiscovery");
+		thread.start();
+	}
+
+	/**
+	 * Stop the scheduler: the queued requests are dropped
+	 */
+	public synchronized void stop() {
+		if (thread == null) {
+			return;
+		}
+		thread = null;
+		for (int i = 0; i < queues.size(); i++) {
+			queues.get(i).clear();
+		}
+		queued.clear();
+		inProgress.clear();
+		notifyAll();
+	}
+
+	/**
+	 * Schedule a capability request
+	 *
+	 * @param contact Contact
+	 * @param priority Priority
+	 * @param delay Delay before the request may be sent (in milliseconds)
+	 * @return Returns false if the scheduler is stopped
+	 */
+	public synchronized boolean schedule(String contact, int priority, long delay) {
+		if (thread == null) {
+			return false;
+		}
+		requestCount++;
+		long now = System.currentTimeMillis();
+		long notBefore = now + Math.max(0, delay);
+
+		Request sent = inProgress.get(contact);
+		if ((sent != null) && ((now - sent.sentDate) < IN_PROGRESS_TIMEOUT)
+				&& (sent.priority <= priority)) {
+			// A request of the same or a higher priority is already in progress for this contact
+			coalescedCount++;
+			return true;
+		}
+
+		Request request = queued.get(contact);
+		if (request != null) {
+			// A request is already queued: keep the highest priority and the earliest date
+			coalescedCount++;
+			if ((priority < request.priority) || (notBefore < request.notBefore)) {
+				queues.get(request.priority).remove(request);
+				request.priority = Math.min(priority, request.priority);
+				request.notBefore = Math.min(notBefore, request.notBefore);
+				queues.get(request.priority).add(request);
+				notifyAll();
+			}
+			return true;
+		}
+
+		request = new Request();
+		request.contact = contact;
+		request.priority = priority;
+		request.notBefore = notBefore;
+		request.sequence = sequence++;
+		queues.get(priority).add(request);
+		queued.put(contact, request);
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * A capability request is terminated
+	 *
+	 * @param contact Contact
+	 */
+	public synchronized void requestTerminated(String contact) {
+		inProgress.remove(contact);
+	}
+
+	/**
+	 * Dispatching processing
+	 */
+	public void run() {
+		Thread current = Thread.currentThread();
+		while (true) {
+			String contact;
+			synchronized (this) {
+				if (thread != current) {
+					return;
+				}
+				long now = System.currentTimeMillis();
+				refillTokens(now);
+
+				// Select the first request which may be sent
+				Request request = null;
+				long wait = 0;
+				for (int i = 0; i < queues.size(); i++) {
+					Request head = queues.get(i).peek();
+					if (head == null) {
+						continue;
+					}
+					if (head.notBefore <= now) {
+						request = head;
+						break;
+					}
+					long delay = head.notBefore - now;
+					if ((wait == 0) || (delay < wait)) {
+						wait = delay;
+					}
+				}
+
+				if ((request != null) && (tokens < 1)) {
+					// Wait for the next token
+					request = null;
+					wait = (long)Math.ceil((1 - tokens) * 1000 / rate);
+				}
+
+				if (request == null) {
+					try {
+						wait(wait);
+					} catch (InterruptedException e) {
+						return;
+					}
+					continue;
+				}
+
+				tokens--;
+				queues.get(request.priority).poll();
+				queued.remove(request.contact);
+				purgeInProgress(now);
+				request.sentDate = now;
+				inProgress.put(request.contact, request);
+				sentCount++;
+				updateSendRate(now);
+				contact = request.contact;
+			}
+
+			if (!sender.sendCapabilityRequest(contact)) {
+				requestTerminated(contact);
+			}
+		}
+	}
+
+	/**
+	 * Refill the token bucket
+	 *
+	 * @param now Current date
+	 */
+	private void refillTokens(long now) {
+		if (now > refillDate) {
+			tokens = Math.min(burst, tokens + ((now - refillDate) * rate) / 1000.0);
+		}
+		refillDate = now;
+	}
+
+	/**
+	 * Remove the requests in progress for too long, their termination has been missed
+	 *
+	 * @param now Current date
+	 */
+	private void purgeInProgress(long now) {
+		Iterator<Request> it = inProgress.values().iterator();
+		while (it.hasNext()) {
+			if ((now - it.next().sentDate) >= IN_PROGRESS_TIMEOUT) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Update the measured send rate
+	 *
+	 * @param now Current date
+	 */
+	private void updateSendRate(long now) {
+		ratePeriodCount++;
+		long duration = now - ratePeriodStart;
+		if (duration >= RATE_PERIOD) {
+			sendRate = (ratePeriodCount * 1000f) / duration;
+			ratePeriodStart = now;
+			ratePeriodCount = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of queued requests
+	 *
+	 * @return Queue depth
+	 */
+	public synchronized int getQueueDepth() {
+		return queued.size();
+	}
+
+	/**
+	 * Returns the number of queued requests of a given priority
+	 *
+	 * @param priority Priority
+	 * @return Queue depth
+	 */
+	public synchronized int getQueueDepth(int priority) {
+		return queues.get(priority).size();
+	}
+
+	/**
+	 * Returns the number of requests in progress
+	 *
+	 * @return Number of requests
+	 */
+	public synchronized int getInProgressCount() {
+		return inProgress.size();
+	}
+
+	/**
+	 * Returns the number of requests received
+	 *
+	 * @return Number of requests
+	 */
+	public synchronized long getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * Returns the number of requests coalesced with a queued or in progress request
+	 *
+	 * @return Number of requests
+	 */
+	public synchronized long getCoalescedCount() {
+		return coalescedCount;
+	}
+
+	/**
+	 * Returns the number of requests sent
+	 *
+	 * @return Number of requests
+	 */
+	public synchronized long getSentCount() {
+		return sentCount;
+	}
+
+	/**
+	 * Returns the ratio of requests coalesced with a queued or in progress request
+	 *
+	 * @return Ratio between 0 and 1
+	 */
+	public synchronized float getHitRatio() {
+		if (requestCount == 0) {
+			return 0;
+		}
+		return (float)coalescedCount / requestCount;
+	}
+
+	/**
+	 * Returns the send rate measured on the last period
+	 *
+	 * @return Number of requests per second
+	 */
+	public synchronized float getSendRate() {
+		long now = System.currentTimeMillis();
+		if ((now - ratePeriodStart) >= 2 * RATE_PERIOD) {
+			// Nothing sent for a while
+			return 0;
+		}
+		return sendRate;
+	}
+
+	/**
+	 * Returns a summary of the scheduler metrics
+	 *
+	 * @return String
+	 */
+	public synchronized String toString() {
+		return "queue=" + queued.size() +
+			" (active=" + queues.get(PRIORITY_ACTIVE).size() +
+			", stale=" + queues.get(PRIORITY_STALE).size() +
+			", background=" + queues.get(PRIORITY_BACKGROUND).size() +
+			"), inProgress=" + inProgress.size() +
+			", requests=" + requestCount +
+			", sent=" + sentCount +
+			", hitRatio=" + getHitRatio() +
+			", rate=" + getSendRate() + "/s";
+	}
+}
@@ -19,13 +19,16 @@
 package com.orangelabs.rcs.core.ims.service.capability;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import android.database.Cursor;
 import android.os.Build;
-import android.provider.ContactsContract.CommonDataKinds.Phone;
 
 import com.orangelabs.rcs.addressbook.AddressBookEventListener;
+import com.orangelabs.rcs.addressbook.PhoneNumberSnapshot;
 import com.orangelabs.rcs.core.CoreException;
 import com.orangelabs.rcs.core.ims.ImsModule;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipRequest;
@@ -74,6 +77,11 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
      */
 	private boolean isCheckInProgress = false;
 
+	/**
+	 * Snapshot of the phone numbers of the address book at the last check
+	 */
+	private PhoneNumberSnapshot phoneNumberSnapshot = new PhoneNumberSnapshot();
+
 	/**
      * The logger
      */
@@ -120,9 +128,13 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
 		// Start polling
 		pollingManager.start();
 
-		// Force a first capability check
+		// The first check covers the whole address book
+		phoneNumberSnapshot.clear();
+
+		// Load the capability index and force a first capability check
 		Thread t = new Thread() {
 			public void run() {
+				ContactsManager.getInstance().loadCapabilityIndex();
 				handleAddressBookHasChanged();
 			}
 		};
@@ -142,6 +154,9 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
 		// Stop options manager
 		optionsManager.stop();
 
+		// Write the pending capability timestamps
+		ContactsManager.getInstance().flushCapabilityTimestamps();
+
 		// Stop polling
 		pollingManager.stop();
 
@@ -274,65 +289,73 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
 		// Reset recheck flag
 		isRecheckNeeded = false;
 
-		// Check all phone numbers and query only the new ones
-        String[] projection = {
-                Phone._ID, Phone.NUMBER, Phone.RAW_CONTACT_ID 
-                };
-        Cursor phonesCursor = AndroidFactory.getApplicationContext().getContentResolver().query(
-                Phone.CONTENT_URI,
-                projection,
-                null,
-                null,
-                null);
-
-		// List of unique number that will have to be queried for capabilities
-		ArrayList<String> toBeTreatedNumbers = new ArrayList<String>();
-
-		// List of unique number that have already been queried
-		ArrayList<String> alreadyInEabOrInvalidNumbers = new ArrayList<String>();
-
-		// We add "My number" to the numbers that are already RCS, so we don't query it if it is present in the address book
-        alreadyInEabOrInvalidNumbers.add(ImsModule.IMS_USER_PROFILE.getUsername());
-
-		while(phonesCursor.moveToNext()) {
-			// Keep a trace of already treated row. Key is (phone number in international format)
-			String phoneNumber = PhoneUtils.formatNumberToInternational(phonesCursor.getString(1));
-			if (!alreadyInEabOrInvalidNumbers.contains(phoneNumber)) {
-				// If this number is not considered RCS valid or has already an entry with RCS, skip it
-                if (ContactsManager.getInstance().isRcsValidNumber(phoneNumber)
-						&& !ContactsManager.getInstance().isRcsAssociated(phoneNumber)
-						&& ( !ContactsManager.getInstance().isOnlySimAssociated(phoneNumber) || (Build.VERSION.SDK_INT > 10))) {
-					// This entry is valid and not already has a RCS raw contact, it can be treated
-                    // We exclude the number that comes from SIM only contacts, as those cannot be
-                    // aggregated to RCS raw contacts only if OS version if gingebread or fewer
-					toBeTreatedNumbers.add(phoneNumber);
-				} else {
-					// This entry is either not valid or already RCS, this number is already done
-					alreadyInEabOrInvalidNumbers.add(phoneNumber);
-					
-					// Remove the number from the treated list, if it is in it
-					toBeTreatedNumbers.remove(phoneNumber);
+		// Get the phone numbers added or modified since the last check
+		PhoneNumberSnapshot.Delta delta = phoneNumberSnapshot.scan(
+				AndroidFactory.getApplicationContext().getContentResolver());
+		if (logger.isActivated()) {
+			logger.debug("Address book check: " + delta.getAdded().size() + " phone numbers added, "
+					+ delta.getRemoved().size() + " removed");
+		}
+
+		// Skip my number and the numbers which are not RCS valid
+		Set<String> numbers = delta.getAddedNumbers();
+		numbers.remove(ImsModule.IMS_USER_PROFILE.getUsername());
+		for (Iterator<String> it = numbers.iterator(); it.hasNext();) {
+			if (!ContactsManager.getInstance().isRcsValidNumber(it.next())) {
+				it.remove();
+			}
+		}
+
+		if (!numbers.isEmpty()) {
+			// Get the numbers already in the EAB and their associated raw contacts in a few queries
+			Set<String> rcsNumbers = ContactsManager.getInstance().getRcsAssociatedNumbers(numbers);
+			Map<String, Set<Long>> associations = ContactsManager.getInstance().getAssociatedRawContacts(rcsNumbers);
+
+			// SIM only contacts cannot be aggregated to RCS raw contacts if OS version is gingerbread or fewer
+			Set<Long> simAccounts = new HashSet<Long>();
+			if (Build.VERSION.SDK_INT <= 10) {
+				Set<Long> rawContactIds = new HashSet<Long>();
+				for (Iterator<String> it = numbers.iterator(); it.hasNext();) {
+					rawContactIds.addAll(phoneNumberSnapshot.getRawContactIds(it.next()));
 				}
-			} else {
-				// Remove the number from the treated list, it was already queried for another raw contact on the same number
-				toBeTreatedNumbers.remove(phoneNumber);
-
-                // If it is a RCS contact and the raw contact is not associated with a RCS raw contact,
-                // then we have to create a new association for it
-                long rawContactId = phonesCursor.getLong(2);
-                if ((!ContactsManager.getInstance().isSimAccount(rawContactId) || (Build.VERSION.SDK_INT > 10))
-                        && (ContactsManager.getInstance().getAssociatedRcsRawContact(rawContactId, phoneNumber) == -1)) {
-                    ContactInfo currentInfo = ContactsManager.getInstance().getContactInfo(phoneNumber);
-                    if (currentInfo != null && currentInfo.isRcsContact()) {
-                        ContactsManager.getInstance().createRcsContact(currentInfo, rawContactId);
-                    }
+				simAccounts = ContactsManager.getInstance().getSimAccounts(rawContactIds);
+			}
+
+			// If it is a RCS contact and the raw contact is not associated with a RCS raw contact,
+			// then we have to create a new association for it
+			List<PhoneNumberSnapshot.Row> added = delta.getAdded();
+			for (int i=0; i < added.size(); i++) {
+				String phoneNumber = added.get(i).getNumber();
+				long rawContactId = added.get(i).getRawContactId();
+				if (!rcsNumbers.contains(phoneNumber) || simAccounts.contains(rawContactId)) {
+					continue;
+				}
+				Set<Long> associatedIds = associations.get(phoneNumber);
+				if ((associatedIds == null) || !associatedIds.contains(rawContactId)) {
+					ContactInfo currentInfo = ContactsManager.getInstance().getContactInfo(phoneNumber);
+					if (currentInfo != null && currentInfo.isRcsContact()) {
+						ContactsManager.getInstance().createRcsContact(currentInfo, rawContactId);
+					}
 				}
 			}
-		}
-		phonesCursor.close();
 
-		// Get the capabilities for the numbers that haven't got a RCS associated contact
-		requestContactCapabilities(toBeTreatedNumbers);
+			// Query only the numbers which are not yet in the EAB
+			ArrayList<String> toBeTreatedNumbers = new ArrayList<String>();
+			for (Iterator<String> it = numbers.iterator(); it.hasNext();) {
+				String phoneNumber = it.next();
+				if (rcsNumbers.contains(phoneNumber)) {
+					continue;
+				}
+				if (!simAccounts.isEmpty() && phoneNumberSnapshot.isOnlyUsedBy(phoneNumber, simAccounts)) {
+					// Only associated to SIM contacts
+					continue;
+				}
+				toBeTreatedNumbers.add(phoneNumber);
+			}
+
+			// Get the capabilities for the numbers that haven't got a RCS associated contact
+			requestContactCapabilities(toBeTreatedNumbers);
+		}
 
 		// End of the check procedure
 		isCheckInProgress = false;
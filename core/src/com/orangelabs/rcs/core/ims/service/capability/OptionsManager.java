@@ -52,6 +52,11 @@ public class OptionsManager implements DiscoveryManager {
      */
     private ExecutorService threadPool;
 
+    /**
+     * Scheduler of the capability requests
+     */
+    private CapabilityDiscoveryScheduler scheduler;
+
     /**
      * The logger
      */
@@ -64,6 +69,11 @@ public class OptionsManager implements DiscoveryManager {
      */
     public OptionsManager(ImsModule parent) {
         this.imsModule = parent;
+        this.scheduler = new CapabilityDiscoveryScheduler(new CapabilityDiscoveryScheduler.RequestSender() {
+            public boolean sendCapabilityRequest(String contact) {
+                return OptionsManager.this.sendCapabilityRequest(contact);
+            }
+        });
     }
 
     /**
@@ -71,12 +81,14 @@ public class OptionsManager implements DiscoveryManager {
      */
     public void start() {
     	threadPool = Executors.newFixedThreadPool(MAX_PROCESSING_THREADS);
+    	scheduler.start();
     }
 
     /**
      * Stop the manager
      */
     public void stop() {
+    	scheduler.stop();
         try {
         	threadPool.shutdown();
         } catch (SecurityException e) {
@@ -86,13 +98,47 @@ public class OptionsManager implements DiscoveryManager {
         }
     }
     
+    /**
+     * Get the scheduler of the capability requests
+     * 
+     * @return Scheduler
+     */
+    public CapabilityDiscoveryScheduler getScheduler() {
+    	return scheduler;
+    }
+
 	/**
-     * Request contact capabilities
+     * Request contact capabilities for a contact in use
      * 
      * @param contact Remote contact
      * @return Returns true if success
      */
     public boolean requestCapabilities(String contact) {
+    	return requestCapabilities(contact, CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+    }
+
+	/**
+     * Request contact capabilities
+     * 
+     * @param contact Remote contact
+     * @param priority Priority of the request
+     * @param delay Delay before the request may be sent (in milliseconds)
+     * @return Returns true if success
+     */
+    public boolean requestCapabilities(String contact, int priority, long delay) {
+    	if (logger.isActivated()) {
+    		logger.debug("Schedule capabilities request for " + contact + " with priority " + priority);
+    	}
+    	return scheduler.schedule(contact, priority, delay);
+    }
+
+	/**
+     * Send a capability request, called by the scheduler
+     * 
+     * @param contact Remote contact
+     * @return Returns true if success
+     */
+    boolean sendCapabilityRequest(String contact) {
     	if (logger.isActivated()) {
     		logger.debug("Request capabilities in background for " + contact);
     	}
@@ -104,7 +150,7 @@ public class OptionsManager implements DiscoveryManager {
 		try {
 			boolean richcall = imsModule.getCallManager().isRichcallSupportedWith(contact);
 			boolean ipcall = imsModule.getIPCallService().isCallConnectedWith(contact);
-	    	OptionsRequestTask task = new OptionsRequestTask(imsModule, contact, CapabilityUtils.getSupportedFeatureTags(richcall, ipcall));
+	    	OptionsRequestTask task = new OptionsRequestTask(imsModule, contact, CapabilityUtils.getSupportedFeatureTags(richcall, ipcall), threadPool, scheduler);
 	    	threadPool.submit(task);
 	    	return true;
 		} catch(Exception e) {
@@ -128,7 +174,7 @@ public class OptionsManager implements DiscoveryManager {
         }
 
         for (String contact : setContacts) {
-			if (!requestCapabilities(contact)) {
+			if (!requestCapabilities(contact, CapabilityDiscoveryScheduler.PRIORITY_STALE, 0)) {
 		    	if (logger.isActivated()) {
 		    		logger.debug("Processing has been stopped");
 		    	}
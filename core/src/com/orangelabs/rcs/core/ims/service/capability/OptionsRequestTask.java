@@ -17,12 +17,16 @@
  ******************************************************************************/
 package com.orangelabs.rcs.core.ims.service.capability;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 import com.orangelabs.rcs.core.ims.ImsModule;
 import com.orangelabs.rcs.core.ims.network.sip.SipMessageFactory;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipDialogPath;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipRequest;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipResponse;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionListener;
 import com.orangelabs.rcs.core.ims.service.ContactInfo;
 import com.orangelabs.rcs.core.ims.service.SessionAuthenticationAgent;
 import com.orangelabs.rcs.provider.eab.ContactsManager;
@@ -30,7 +34,8 @@ import com.orangelabs.rcs.utils.PhoneUtils;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
- * Options request task
+ * Options request task. The OPTIONS request is sent without waiting for the
+ * response: the response is processed later by the given executor.
  * 
  * @author Jean-Marc AUFFRET
  */
@@ -60,6 +65,16 @@ public class OptionsRequestTask implements Runnable {
 	 */
 	private SessionAuthenticationAgent authenticationAgent;
 
+	/**
+	 * Executor used to process the response
+	 */
+	private Executor executor;
+
+	/**
+	 * Scheduler notified when the request is terminated
+	 */
+	private CapabilityDiscoveryScheduler scheduler;
+
 	/**
      * The logger
      */
@@ -71,11 +86,16 @@ public class OptionsRequestTask implements Runnable {
      * @param parent IMS module
    	 * @param contact Remote contact
    	 * @param featureTags Feature tags
+   	 * @param executor Executor used to process the response
+   	 * @param scheduler Scheduler notified when the request is terminated, may be null
 	 */
-	public OptionsRequestTask(ImsModule parent, String contact, String[] featureTags) {
+	public OptionsRequestTask(ImsModule parent, String contact, String[] featureTags, Executor executor,
+			CapabilityDiscoveryScheduler scheduler) {
         this.imsModule = parent;
         this.contact = contact;
         this.featureTags = featureTags;
+        this.executor = executor;
+        this.scheduler = scheduler;
 		this.authenticationAgent = new SessionAuthenticationAgent(imsModule);
 	}
 	
@@ -99,6 +119,7 @@ public class OptionsRequestTask implements Runnable {
                 if (logger.isActivated()) {
                     logger.debug("IMS not registered, do nothing");
                 }
+                requestTerminated();
                 return;
             }
 
@@ -140,10 +161,40 @@ public class OptionsRequestTask implements Runnable {
         	logger.info("Send OPTIONS");
         }
 
-        // Send OPTIONS request
-        SipTransactionContext ctx = imsModule.getSipManager().sendSipMessageAndWait(options);
+        // Send OPTIONS request, the response is processed outside of the SIP stack thread
+        imsModule.getSipManager().sendSipMessageAndNotify(options, new SipTransactionListener() {
+			public void transactionCompleted(final SipTransactionContext ctx) {
+				try {
+					executor.execute(new Runnable() {
+						public void run() {
+							try {
+								analyzeResponse(ctx);
+							} catch(Exception e) {
+					        	if (logger.isActivated()) {
+					        		logger.error("OPTIONS request has failed", e);
+					        	}
+					        	handleError(new CapabilityError(CapabilityError.UNEXPECTED_EXCEPTION, e.getMessage()));
+							}
+						}
+					});
+				} catch(RejectedExecutionException e) {
+					// The capability service has been stopped
+		        	if (logger.isActivated()) {
+		        		logger.debug("OPTIONS response ignored, service stopped");
+		        	}
+		        	requestTerminated();
+				}
+			}
+		});
+	}
 
-        // Analyze the received response 
+	/**
+	 * Analyze the OPTIONS response
+	 * 
+	 * @param ctx SIP transaction context
+	 * @throws Exception
+	 */
+	private void analyzeResponse(SipTransactionContext ctx) throws Exception {
         if (ctx.isSipResponse()) {
         	// A response has been received
             if (ctx.getStatusCode() == 200) {
@@ -202,6 +253,7 @@ public class OptionsRequestTask implements Runnable {
         	// Notify listener
         	imsModule.getCore().getListener().handleCapabilitiesNotification(contact, info.getCapabilities());
     	}
+    	requestTerminated();
 	}
 	
 	/**
@@ -221,6 +273,7 @@ public class OptionsRequestTask implements Runnable {
         
     	// Notify listener
     	imsModule.getCore().getListener().handleCapabilitiesNotification(contact, capabilities);
+    	requestTerminated();
 	}
 
 	/**
@@ -249,6 +302,7 @@ public class OptionsRequestTask implements Runnable {
 
     	// Notify listener
     	imsModule.getCore().getListener().handleCapabilitiesNotification(contact, capabilities);
+    	requestTerminated();
 	}	
 	
 	/**
@@ -297,5 +351,15 @@ public class OptionsRequestTask implements Runnable {
     	
     	// We update the database capabilities timestamp
     	ContactsManager.getInstance().setContactCapabilitiesTimestamp(contact, System.currentTimeMillis());
+    	requestTerminated();
 	}	
+
+	/**
+	 * Notify the scheduler that the request is terminated
+	 */
+	private void requestTerminated() {
+		if (scheduler != null) {
+			scheduler.requestTerminated(contact);
+		}
+	}
 }
@@ -17,6 +17,7 @@
  ******************************************************************************/
 package com.orangelabs.rcs.core.ims.service.capability;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.orangelabs.rcs.provider.eab.ContactsManager;
@@ -25,7 +26,10 @@ import com.orangelabs.rcs.utils.PeriodicRefresher;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
- * Polling manager which updates capabilities periodically
+ * Polling manager which updates capabilities periodically. The refreshes
+ * are not sent at once: each contact is refreshed when its capabilities
+ * expire, and the contacts whose capabilities have already expired are
+ * spread over the polling period.
  * 
  * @author Jean-Marc AUFFRET
  */
@@ -86,27 +90,51 @@ public class PollingManager extends PeriodicRefresher {
     		logger.info("Execute new capabilities update");
     	}
     	
-    	// Update all contacts capabilities if refresh timeout has not expired
+    	// Contacts whose capabilities have expired, refreshed over the polling period
+    	List<String> expiredContacts = new ArrayList<String>();
+
+    	// Schedule a refresh of the contacts whose capabilities expire before the next polling
+    	long now = currentTimeMillis();
 		List<String> contactList = ContactsManager.getInstance().getAllContacts();
 		for (int i=0; i < contactList.size(); i++) {
 			String contact = contactList.get(i);
-			requestContactCapabilities(contact);
+			long delay = getRefreshDelay(contact, now);
+			if (delay == 0) {
+				expiredContacts.add(contact);
+			} else
+			if (delay < pollingPeriod * 1000L) {
+				imsService.getOptionsManager().requestCapabilities(contact,
+						CapabilityDiscoveryScheduler.PRIORITY_BACKGROUND, delay);
+			}
 		}
-		
+
+		// Spread the expired contacts evenly over the polling period
+		int nbExpired = expiredContacts.size();
+		for (int i=0; i < nbExpired; i++) {
+			long delay = (i * pollingPeriod * 1000L) / nbExpired;
+			imsService.getOptionsManager().requestCapabilities(expiredContacts.get(i),
+					CapabilityDiscoveryScheduler.PRIORITY_BACKGROUND, delay);
+		}
+
+    	if (logger.isActivated()) {
+    		logger.info(nbExpired + " expired contacts, scheduler: " + imsService.getOptionsManager().getScheduler());
+    	}
+
 		// Restart timer
 		startTimer(pollingPeriod, 1);		
     }
     
 	/**
-	 * Request contact capabilities 
+	 * Get the delay before the capabilities of a contact have to be refreshed.
+	 * Contacts supporting capability discovery via presence are refreshed right
+	 * away by the anonymous fetch manager.
 	 * 
 	 * @param contact Contact
+	 * @param now Current date
+	 * @return Delay in milliseconds, 0 if the capabilities have expired, or
+	 * Long.MAX_VALUE if there is nothing to refresh
 	 */
-	private void requestContactCapabilities(String contact) {
-    	if (logger.isActivated()) {
-    		logger.debug("Request capabilities for " + contact);
-    	}
-
+	private long getRefreshDelay(String contact, long now) {
 		// Read capabilities from the database
 		Capabilities capabilities = ContactsManager.getInstance().getContactCapabilities(contact);
 		if (capabilities == null) {
@@ -115,26 +143,29 @@ public class PollingManager extends PeriodicRefresher {
 	    	}
 
             // New contact: request capabilities from the network
-    		imsService.getOptionsManager().requestCapabilities(contact);
-		} else {
+    		return 0;
+		}
+
+		long expiryDate = capabilities.getTimestamp() + CAPABILITY_EXPIRY_PERIOD * 1000L;
+		if ((expiryDate <= now) || (capabilities.getTimestamp() > now)) {
 	    	if (logger.isActivated()) {
-	    		logger.debug("Capabilities exist for " + contact);
+	    		logger.debug("Capabilities have expired for " + contact);
 	    	}
-			long delta = (System.currentTimeMillis()-capabilities.getTimestamp())/1000;
-			if ((delta >= CAPABILITY_EXPIRY_PERIOD) || (delta < 0)) {
-		    	if (logger.isActivated()) {
-		    		logger.debug("Capabilities have expired for " + contact);
-		    	}
 
-		    	// Capabilities are too old: request capabilities from the network
-		    	if (capabilities.isPresenceDiscoverySupported()) {
-			    	// If contact supports capability discovery via presence, use the selected discoveryManager
-		    		imsService.getAnonymousFetchManager().requestCapabilities(contact);
-		    	} else {
-		    		// The contact only supports OPTIONS requests
-		    		imsService.getOptionsManager().requestCapabilities(contact);
-		    	}
-			}
+	    	if (capabilities.isPresenceDiscoverySupported()) {
+		    	// If contact supports capability discovery via presence, use the selected discoveryManager
+	    		imsService.getAnonymousFetchManager().requestCapabilities(contact);
+	    		return Long.MAX_VALUE;
+	    	}
+
+    		// The contact only supports OPTIONS requests
+	    	return 0;
+		}
+
+		if (capabilities.isPresenceDiscoverySupported()) {
+			// Refreshed at the next polling
+			return Long.MAX_VALUE;
 		}
+		return expiryDate - now;
 	}	    
 }
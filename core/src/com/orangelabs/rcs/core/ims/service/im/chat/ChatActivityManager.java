@@ -62,7 +62,7 @@ public class ChatActivityManager extends PeriodicRefresher {
      * Update the session activity
      */
     public void updateActivity() {
-    	activityTimesamp = System.currentTimeMillis();
+    	activityTimesamp = currentTimeMillis();
     }
     
     /**
@@ -96,7 +96,7 @@ public class ChatActivityManager extends PeriodicRefresher {
      * Periodic processing
      */
     public void periodicProcessing() {
-    	long currentTime = System.currentTimeMillis();
+    	long currentTime = currentTimeMillis();
 		int inactivityPeriod = (int)((currentTime - activityTimesamp) / 1000) + 1; 
 		int remainingPeriod = timeout - inactivityPeriod; 
     	if (logger.isActivated()) {
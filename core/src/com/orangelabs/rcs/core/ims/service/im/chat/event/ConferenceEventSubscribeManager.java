@@ -33,6 +33,7 @@ import com.orangelabs.rcs.core.ims.protocol.sip.SipDialogPath;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipRequest;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipResponse;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionListener;
 import com.orangelabs.rcs.core.ims.service.SessionAuthenticationAgent;
 import com.orangelabs.rcs.core.ims.service.im.InstantMessagingService;
 import com.orangelabs.rcs.core.ims.service.im.chat.ChatError;
@@ -397,52 +398,48 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
      * 
      */
 	public synchronized void subscribe() {
-		new Thread() {
-			public void run() {
-				if (logger.isActivated()) {
-					logger.info("Subscribe to " + getPresentity());
-				}
+		if (logger.isActivated()) {
+			logger.info("Subscribe to " + getPresentity());
+		}
 
-				try {
-					// Create a dialog path if necessary
-					if (dialogPath == null) {
-						// Set Call-Id
-						String callId = imsModule.getSipManager().getSipStack().generateCallId();
+		try {
+			// Create a dialog path if necessary
+			if (dialogPath == null) {
+				// Set Call-Id
+				String callId = imsModule.getSipManager().getSipStack().generateCallId();
 
-						// Set target
-						String target = getPresentity();
+				// Set target
+				String target = getPresentity();
 
-						// Set local party
-						String localParty = ImsModule.IMS_USER_PROFILE.getPublicUri();
+				// Set local party
+				String localParty = ImsModule.IMS_USER_PROFILE.getPublicUri();
 
-						// Set remote party
-						String remoteParty = getPresentity();
+				// Set remote party
+				String remoteParty = getPresentity();
 
-						// Set the route path
-						Vector<String> route = imsModule.getSipManager().getSipStack().getServiceRoutePath();
+				// Set the route path
+				Vector<String> route = imsModule.getSipManager().getSipStack().getServiceRoutePath();
 
-						// Create a dialog path
-						dialogPath = new SipDialogPath(imsModule.getSipManager().getSipStack(), callId, 1, target, localParty,
-								remoteParty, route);
-					} else {
-						// Increment the Cseq number of the dialog path
-						dialogPath.incrementCseq();
-					}
+				// Create a dialog path
+				dialogPath = new SipDialogPath(imsModule.getSipManager().getSipStack(), callId, 1, target, localParty,
+						remoteParty, route);
+			} else {
+				// Increment the Cseq number of the dialog path
+				dialogPath.incrementCseq();
+			}
 
-					// Create a SUBSCRIBE request
-					SipRequest subscribe = createSubscribe(dialogPath, expirePeriod);
+			// Create a SUBSCRIBE request
+			SipRequest subscribe = createSubscribe(dialogPath, expirePeriod);
 
-					// Send SUBSCRIBE request
-					sendSubscribe(subscribe);
+			// Send SUBSCRIBE request
+			sendSubscribe(dialogPath, subscribe);
 
-				} catch (Exception e) {
-					if (logger.isActivated()) {
-						logger.error("Subscribe has failed", e);
-					}
-					handleError(new ChatError(ChatError.UNEXPECTED_EXCEPTION, e.getMessage()));
-				}
+		} catch (Exception e) {
+			if (logger.isActivated()) {
+				logger.error("Subscribe has failed", e);
 			}
-		}.start();
+			handleError(new ChatError(ChatError.UNEXPECTED_EXCEPTION, e.getMessage()));
+		}
 	}
 
 	/**
@@ -470,7 +467,7 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
             SipRequest subscribe = createSubscribe(dialogPath, 0);
 
             // Send SUBSCRIBE request
-	        sendSubscribe(subscribe);
+	        sendSubscribe(dialogPath, subscribe);
             
         } catch (Exception e) {
             if (logger.isActivated()) {
@@ -509,12 +506,13 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
 	}
 	
 	/**
-	 * Send SUBSCRIBE message
+	 * Send SUBSCRIBE message, the response being analyzed when received
 	 * 
+	 * @param path Dialog path of the subscription
 	 * @param subscribe SIP SUBSCRIBE
 	 * @throws Exception
 	 */
-	private void sendSubscribe(SipRequest subscribe) throws Exception {
+	private void sendSubscribe(final SipDialogPath path, final SipRequest subscribe) throws Exception {
         if (logger.isActivated()) {
         	logger.info("Send SUBSCRIBE, expire=" + subscribe.getExpires());
         }
@@ -525,9 +523,36 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
         }
         
         // Send SUBSCRIBE request
-        SipTransactionContext ctx = imsModule.getSipManager().sendSipMessageAndWait(subscribe);
+        imsModule.getSipManager().sendSipMessageAndNotify(subscribe, new SipTransactionListener() {
+			public void transactionCompleted(SipTransactionContext ctx) {
+				synchronized(ConferenceEventSubscribeManager.this) {
+					try {
+						if (path == dialogPath) {
+							handleResponse(ctx, subscribe);
+						} else {
+							handleStaleResponse(ctx, subscribe, path);
+						}
+					} catch(Exception e) {
+						if (logger.isActivated()) {
+							logger.error("Subscribe has failed", e);
+						}
+						if (path == dialogPath) {
+							handleError(new ChatError(ChatError.UNEXPECTED_EXCEPTION, e.getMessage()));
+						}
+					}
+				}
+			}
+		});
+	}
 
-        // Analyze the received response 
+	/**
+	 * Analyze the response of a SUBSCRIBE sent in the current dialog
+	 * 
+	 * @param ctx SIP transaction context
+	 * @param subscribe SIP SUBSCRIBE
+	 * @throws Exception
+	 */
+	private void handleResponse(SipTransactionContext ctx, SipRequest subscribe) throws Exception {
         if (ctx.isSipResponse()) {
         	// A response has been received
             if (ctx.getStatusCode() == 200) {
@@ -543,7 +568,7 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
             } else
             if (ctx.getStatusCode() == 407) {
             	// 407 Proxy Authentication Required
-            	handle407Authentication(ctx);
+            	handle407Authentication(ctx, dialogPath);
             } else
             if (ctx.getStatusCode() == 423) {
             	// 423 Interval Too Brief
@@ -563,6 +588,25 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
         }
 	}    
 
+	/**
+	 * Analyze the response of a SUBSCRIBE whose dialog has been reset since it
+	 * was sent: only the authentication of an unsubscribe is completed
+	 * 
+	 * @param ctx SIP transaction context
+	 * @param subscribe SIP SUBSCRIBE
+	 * @param path Dialog path of the SUBSCRIBE
+	 * @throws Exception
+	 */
+	private void handleStaleResponse(SipTransactionContext ctx, SipRequest subscribe, SipDialogPath path) throws Exception {
+		if ((subscribe.getExpires() == 0) && (ctx.getStatusCode() == 407)) {
+			handle407Authentication(ctx, path);
+		} else {
+			if (logger.isActivated()) {
+				logger.debug("SUBSCRIBE response ignored, the subscription has been reset: " + ctx.getStatusCode());
+			}
+		}
+	}
+
 	/**
 	 * Handle 200 0K response 
 	 * 
@@ -613,9 +657,10 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
 	 * Handle 407 response 
 	 * 
 	 * @param ctx SIP transaction context
+	 * @param path Dialog path of the SUBSCRIBE
 	 * @throws Exception
 	 */
-	private void handle407Authentication(SipTransactionContext ctx) throws Exception {
+	private void handle407Authentication(SipTransactionContext ctx, SipDialogPath path) throws Exception {
         // 407 response received
     	if (logger.isActivated()) {
     		logger.info("407 response received");
@@ -627,20 +672,20 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
     	authenticationAgent.readProxyAuthenticateHeader(resp);
 
         // Increment the Cseq number of the dialog path
-        dialogPath.incrementCseq();
+        path.incrementCseq();
 
         // Create a second SUBSCRIBE request with the right token
         if (logger.isActivated()) {
         	logger.info("Send second SUBSCRIBE");
         }
-    	SipRequest subscribe = createSubscribe(dialogPath,
+    	SipRequest subscribe = createSubscribe(path,
     			ctx.getTransaction().getRequest().getExpires().getExpires());
     	
         // Set the Authorization header
         authenticationAgent.setProxyAuthorizationHeader(subscribe);
     	
         // Send SUBSCRIBE request
-    	sendSubscribe(subscribe);
+    	sendSubscribe(path, subscribe);
 	}	
 	
 	/**
@@ -683,7 +728,7 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
 		authenticationAgent.setProxyAuthorizationHeader(subscribe);
 
         // Send SUBSCRIBE request
-        sendSubscribe(subscribe);
+        sendSubscribe(dialogPath, subscribe);
 	}	
 	
 	/**
@@ -23,13 +23,14 @@ import com.orangelabs.rcs.core.ims.network.sip.SipMessageFactory;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipDialogPath;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipRequest;
 import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.orangelabs.rcs.core.ims.protocol.sip.SipTransactionListener;
 import com.orangelabs.rcs.core.ims.service.ImsService;
 import com.orangelabs.rcs.core.ims.service.SessionAuthenticationAgent;
 import com.orangelabs.rcs.core.ims.service.im.chat.ChatUtils;
 import com.orangelabs.rcs.core.ims.service.im.chat.cpim.CpimMessage;
 import com.orangelabs.rcs.provider.messaging.RichMessagingHistory;
 import com.orangelabs.rcs.provider.settings.RcsSettings;
-import com.orangelabs.rcs.utils.FifoBuffer;
+import com.orangelabs.rcs.utils.EventQueue;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
@@ -46,7 +47,7 @@ public class ImdnManager extends Thread {
 	/**
 	 * Buffer
 	 */
-	private FifoBuffer buffer = new FifoBuffer();
+	private EventQueue<DeliveryStatus> buffer = new EventQueue<DeliveryStatus>();
     
 	/**
 	 * Activation flag
@@ -95,7 +96,7 @@ public class ImdnManager extends Thread {
 			logger.info("Start background processing");
 		}
 		DeliveryStatus delivery = null; 
-		while((delivery = (DeliveryStatus)buffer.getObject()) != null) {
+		while((delivery = buffer.take()) != null) {
 			try {
 				// Send SIP MESSAGE
 				sendSipMessageDeliveryStatus(delivery, null); // TODO: add sip.instance
@@ -123,7 +124,7 @@ public class ImdnManager extends Thread {
 	public void sendMessageDeliveryStatus(String contact, String msgId, String status) {
 		// Add request in the buffer for background processing
 		DeliveryStatus delivery = new DeliveryStatus(contact, msgId, status);
-		buffer.addObject(delivery);
+		buffer.offer(delivery);
 	}
 
     /**
@@ -135,18 +136,15 @@ public class ImdnManager extends Thread {
      */
     public void sendMessageDeliveryStatusImmediately(String contact, String msgId, String status, final String remoteInstanceId) {
         // Execute request in background
-        final DeliveryStatus delivery = new DeliveryStatus(contact, msgId, status);
-        Thread thread = new Thread(){
-            public void run() {
-                // Send SIP MESSAGE
-                sendSipMessageDeliveryStatus(delivery, remoteInstanceId);
-            }
-        };
-        thread.start();
+        DeliveryStatus delivery = new DeliveryStatus(contact, msgId, status);
+
+        // Send SIP MESSAGE, the response is not waited
+        sendSipMessageDeliveryStatus(delivery, remoteInstanceId);
     }
 
 	/**
-	 * Send message delivery status via SIP MESSAGE
+	 * Send message delivery status via SIP MESSAGE, without waiting for the
+	 * response
 	 *
 	 * @param deliveryStatus Delivery status
 	 * @param remoteInstanceId Remote SIP instance
@@ -165,13 +163,13 @@ public class ImdnManager extends Thread {
 			String from = ChatUtils.ANOMYNOUS_URI;
 			String to = ChatUtils.ANOMYNOUS_URI;
 			String imdn = ChatUtils.buildDeliveryReport(deliveryStatus.getMsgId(), deliveryStatus.getStatus());
-			String cpim = ChatUtils.buildCpimDeliveryReport(from, to, imdn);
+			final String cpim = ChatUtils.buildCpimDeliveryReport(from, to, imdn);
 			
 		    // Create authentication agent 
-       		SessionAuthenticationAgent authenticationAgent = new SessionAuthenticationAgent(imsService.getImsModule());
+       		final SessionAuthenticationAgent authenticationAgent = new SessionAuthenticationAgent(imsService.getImsModule());
        		
        		// Create a dialog path
-        	SipDialogPath dialogPath = new SipDialogPath(
+        	final SipDialogPath dialogPath = new SipDialogPath(
         			imsService.getImsModule().getSipManager().getSipStack(),
         			imsService.getImsModule().getSipManager().getSipStack().generateCallId(),
     				1,
@@ -189,66 +187,88 @@ public class ImdnManager extends Thread {
 	        		FeatureTags.FEATURE_OMA_IM, CpimMessage.MIME_TYPE, cpim.getBytes());
 	        
 	        // Send MESSAGE request
-	        SipTransactionContext ctx = imsService.getImsModule().getSipManager().sendSipMessageAndWait(msg);
-
-	        // Analyze received message
-            if (ctx.getStatusCode() == 407) {
-                // 407 response received
-            	if (logger.isActivated()) {
-            		logger.info("407 response received");
-            	}
+	        imsService.getImsModule().getSipManager().sendSipMessageAndNotify(msg, new SipTransactionListener() {
+				public void transactionCompleted(SipTransactionContext ctx) {
+			        // Analyze received message
+		            if (ctx.getStatusCode() == 407) {
+		            	sendSecondSipMessage(ctx, dialogPath, authenticationAgent, cpim);
+		            } else {
+		            	analyzeResponse(ctx);
+		            }
+				}
+			});
+        } catch(Exception e) {
+        	if (logger.isActivated()) {
+        		logger.error("Delivery report has failed", e);
+        	}
+        }
+	}
 
-    	        // Set the Proxy-Authorization header
-            	authenticationAgent.readProxyAuthenticateHeader(ctx.getSipResponse());
+	/**
+	 * Send the second MESSAGE of a delivery status, after a 407 response
+	 *
+	 * @param ctx SIP transaction context of the first MESSAGE
+	 * @param dialogPath SIP dialog path
+	 * @param authenticationAgent Authentication agent
+	 * @param cpim CPIM document
+	 */
+	private void sendSecondSipMessage(SipTransactionContext ctx, SipDialogPath dialogPath,
+			SessionAuthenticationAgent authenticationAgent, String cpim) {
+		try {
+            // 407 response received
+        	if (logger.isActivated()) {
+        		logger.info("407 response received");
+        	}
 
-                // Increment the Cseq number of the dialog path
-                dialogPath.incrementCseq();
+	        // Set the Proxy-Authorization header
+        	authenticationAgent.readProxyAuthenticateHeader(ctx.getSipResponse());
 
-                // Create a second MESSAGE request with the right token
-                if (logger.isActivated()) {
-                	logger.info("Send second MESSAGE");
-                }
-    	        msg = SipMessageFactory.createMessage(dialogPath,
-    	        		FeatureTags.FEATURE_OMA_IM, CpimMessage.MIME_TYPE, cpim.getBytes());
-    	        
-    	        // Set the Authorization header
-    	        authenticationAgent.setProxyAuthorizationHeader(msg);
-                
-                // Send MESSAGE request
-    	        ctx = imsService.getImsModule().getSipManager().sendSipMessageAndWait(msg);
+            // Increment the Cseq number of the dialog path
+            dialogPath.incrementCseq();
 
-                // Analyze received message
-                if ((ctx.getStatusCode() == 200) || (ctx.getStatusCode() == 202)) {
-                    // 200 OK response
-                	if (logger.isActivated()) {
-                		logger.info("20x OK response received");
-                	}
-                } else {
-                    // Error
-                	if (logger.isActivated()) {
-                		logger.info("Delivery report has failed: " + ctx.getStatusCode()
-    	                    + " response received");
-                	}
-                }
-            } else
-            if ((ctx.getStatusCode() == 200) || (ctx.getStatusCode() == 202)) {
-	            // 200 OK received
-            	if (logger.isActivated()) {
-            		logger.info("20x OK response received");
-            	}
-	        } else {
-	            // Error responses
-            	if (logger.isActivated()) {
-            		logger.info("Delivery report has failed: " + ctx.getStatusCode()
-	                    + " response received");
-            	}
-	        }
+            // Create a second MESSAGE request with the right token
+            if (logger.isActivated()) {
+            	logger.info("Send second MESSAGE");
+            }
+	        SipRequest msg = SipMessageFactory.createMessage(dialogPath,
+	        		FeatureTags.FEATURE_OMA_IM, CpimMessage.MIME_TYPE, cpim.getBytes());
+	        
+	        // Set the Authorization header
+	        authenticationAgent.setProxyAuthorizationHeader(msg);
+            
+            // Send MESSAGE request
+	        imsService.getImsModule().getSipManager().sendSipMessageAndNotify(msg, new SipTransactionListener() {
+				public void transactionCompleted(SipTransactionContext ctx) {
+			        // Analyze received message
+					analyzeResponse(ctx);
+				}
+			});
         } catch(Exception e) {
         	if (logger.isActivated()) {
         		logger.error("Delivery report has failed", e);
         	}
         }
 	}
+
+	/**
+	 * Analyze the response of a delivery status
+	 *
+	 * @param ctx SIP transaction context
+	 */
+	private void analyzeResponse(SipTransactionContext ctx) {
+        if ((ctx.getStatusCode() == 200) || (ctx.getStatusCode() == 202)) {
+            // 200 OK received
+        	if (logger.isActivated()) {
+        		logger.info("20x OK response received");
+        	}
+        } else {
+            // Error responses
+        	if (logger.isActivated()) {
+        		logger.info("Delivery report has failed: " + ctx.getStatusCode()
+                    + " response received");
+        	}
+        }
+	}
 	
 	/**
 	 * Delivery status
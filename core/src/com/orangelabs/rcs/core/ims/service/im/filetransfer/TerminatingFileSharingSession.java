@@ -91,6 +91,9 @@ public class TerminatingFileSharingSession extends ImsFileSharingSession impleme
 				if (logger.isActivated()) {
 					logger.debug("Auto accept file transfer invitation");
 				}
+
+				// Process the invitation as accepted
+				handleInvitationAnswer(ImsServiceSession.INVITATION_ACCEPTED);
 			} else {
 				if (logger.isActivated()) {
 					logger.debug("Accept manually file transfer invitation");
@@ -100,41 +103,59 @@ public class TerminatingFileSharingSession extends ImsFileSharingSession impleme
 				send180Ringing(getDialogPath().getInvite(), getDialogPath().getLocalTag());
 
 				// Wait invitation answer
-				int answer = waitInvitationAnswer();
-				if (answer == ImsServiceSession.INVITATION_REJECTED) {
-					if (logger.isActivated()) {
-						logger.debug("Session has been rejected by user");
-					}
-
-					// Remove the current session
-					getImsService().removeSession(this);
-
-					// Notify listeners
-					for (int i = 0; i < getListeners().size(); i++) {
-						getListeners().get(i).handleSessionAborted(ImsServiceSession.TERMINATION_BY_USER);
-					}
-					return;
-				} else if (answer == ImsServiceSession.INVITATION_NOT_ANSWERED) {
-					if (logger.isActivated()) {
-						logger.debug("Session has been rejected on timeout");
-					}
-					// Ringing period timeout
-					send486Busy(getDialogPath().getInvite(), getDialogPath().getLocalTag());
-
-					// Remove the current session
-					getImsService().removeSession(this);
-
-					// Notify listeners
-					for (int j = 0; j < getListeners().size(); j++) {
-						getListeners().get(j).handleSessionAborted(ImsServiceSession.TERMINATION_BY_TIMEOUT);
-					}
-					return;
-				} else if (answer == ImsServiceSession.INVITATION_CANCELED) {
-					if (logger.isActivated()) {
-						logger.debug("Session has been canceled");
-					}
-					return;
+				waitInvitationAnswer();
+			}
+		} catch(Exception e) {
+        	if (logger.isActivated()) {
+        		logger.error("Session initiation has failed", e);
+        	}
+
+        	// Unexpected error
+			handleError(new FileSharingError(FileSharingError.UNEXPECTED_EXCEPTION,
+					e.getMessage()));
+		}
+	}
+
+	/**
+	 * Process the invitation answer
+	 * 
+	 * @param answer Answer
+	 */
+	protected void handleInvitationAnswer(int answer) {
+		try {
+			if (answer == ImsServiceSession.INVITATION_REJECTED) {
+				if (logger.isActivated()) {
+					logger.debug("Session has been rejected by user");
+				}
+
+				// Remove the current session
+				getImsService().removeSession(this);
+
+				// Notify listeners
+				for (int i = 0; i < getListeners().size(); i++) {
+					getListeners().get(i).handleSessionAborted(ImsServiceSession.TERMINATION_BY_USER);
+				}
+				return;
+			} else if (answer == ImsServiceSession.INVITATION_NOT_ANSWERED) {
+				if (logger.isActivated()) {
+					logger.debug("Session has been rejected on timeout");
+				}
+				// Ringing period timeout
+				send486Busy(getDialogPath().getInvite(), getDialogPath().getLocalTag());
+
+				// Remove the current session
+				getImsService().removeSession(this);
+
+				// Notify listeners
+				for (int j = 0; j < getListeners().size(); j++) {
+					getListeners().get(j).handleSessionAborted(ImsServiceSession.TERMINATION_BY_TIMEOUT);
+				}
+				return;
+			} else if (answer == ImsServiceSession.INVITATION_CANCELED) {
+				if (logger.isActivated()) {
+					logger.debug("Session has been canceled");
 				}
+				return;
 			}
             
             // FT should be rejected by user if file is too big or size exceeds device storage capacity.
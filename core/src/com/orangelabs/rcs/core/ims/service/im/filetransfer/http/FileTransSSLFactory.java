@@ -30,13 +30,23 @@ public class FileTransSSLFactory {
     }
     
     /**
-     * Get a SSL context generated with a trust all manager
+     * Initialization flag
+     */
+    static private boolean initialized = false;
+    
+    /**
+     * Get a SSL context generated with a trust all manager. The context is
+     * initialized once, so that its session cache is kept between transfers
+     * and new connections resume the TLS session.
      *
      * @return SSLContext
      * @return XML result or null if fails
      */
-    static public SSLContext getFileTransferSSLContext()
+    static synchronized public SSLContext getFileTransferSSLContext()
     {
+    	if (initialized) {
+    		return sslcontext;
+    	}
     	try {
 			sslcontext.init(null, new TrustManager[]{ new AllTrustManager()}, new SecureRandom());
 		} catch (KeyManagementException e) {
@@ -44,6 +54,7 @@ public class FileTransSSLFactory {
 		} catch (NullPointerException e) {
 			return null;
 		}
+		initialized = true;
 	
 		return sslcontext;
     }
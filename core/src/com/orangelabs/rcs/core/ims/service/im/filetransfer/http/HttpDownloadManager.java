@@ -136,7 +136,9 @@ public class HttpDownloadManager extends HttpTransferManager {
 				System.out.println(trace);
 			}
 			// Execute request with retry procedure
-			if (!getFile(request)) {
+			boolean received = getFile(request);
+			releaseResponse();
+			if (!received) {
 				if (retryCount < RETRY_MAX && !isCancelled() && !isPaused()) {
 					retryCount++;
 					return downloadFile();
@@ -173,13 +175,8 @@ public class HttpDownloadManager extends HttpTransferManager {
         HttpResponse response = null;
 		try {
 			// Execute HTTP request
-			response = getHttpClient().execute(request);
+			response = executeRequest(request);
 			int statusCode = response.getStatusLine().getStatusCode();
-			if (HTTP_TRACE_ENABLED) {
-				String trace = "<<< Receive HTTP response:";
-				trace += "\n" + statusCode + " " + response.getStatusLine().getReasonPhrase();
-				System.out.println(trace);
-			}
 
 			// Analyze HTTP response
 			if (statusCode == 200) { // TODO need to check other responses ?
@@ -211,6 +208,7 @@ public class HttpDownloadManager extends HttpTransferManager {
             if (logger.isActivated()) {
                 logger.error("Download file exception. Set in paused", e);
             }
+            releaseResponse(true);
             pauseTransfer();
             return false;
         }
@@ -260,7 +258,9 @@ public class HttpDownloadManager extends HttpTransferManager {
 
 			// Execute request
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			if ((baos = getThumbnail(request)) == null) {
+			baos = getThumbnail(request);
+			releaseResponse();
+			if (baos == null) {
 				if (logger.isActivated()) {
 					logger.debug("Failed to download Thumbnail");
 				}
@@ -285,13 +285,8 @@ public class HttpDownloadManager extends HttpTransferManager {
 	private ByteArrayOutputStream getThumbnail(HttpGet request) {
 		try {
 			// Execute HTTP request
-			HttpResponse response = getHttpClient().execute(request);
+			HttpResponse response = executeRequest(request);
 			int statusCode = response.getStatusLine().getStatusCode();
-			if (HTTP_TRACE_ENABLED) {
-				String trace = "<<< Receive HTTP response:";
-				trace += "\n" + statusCode + " " + response.getStatusLine().getReasonPhrase();
-				System.out.println(trace);
-			}
 
 			// Analyze HTTP response
 			if (statusCode == 200) {
@@ -322,6 +317,7 @@ public class HttpDownloadManager extends HttpTransferManager {
 			if (logger.isActivated()) {
 				logger.error("Download thumbnail exception", e);
 			}
+			releaseResponse(true);
 			return null;
 		}
 	}
@@ -355,7 +351,9 @@ public class HttpDownloadManager extends HttpTransferManager {
 			}
 
 			// Execute request with retry procedure
-            if (!getFile(request)) {
+            boolean received = getFile(request);
+            releaseResponse();
+            if (!received) {
                 if (retryCount < RETRY_MAX && !isCancelled() && !isPaused()) {
                     retryCount++;
                     return downloadFile();
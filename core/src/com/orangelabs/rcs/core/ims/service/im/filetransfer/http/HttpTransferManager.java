@@ -23,6 +23,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpVersion;
@@ -30,16 +31,9 @@ import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.ClientContext;
-import org.apache.http.conn.ClientConnectionManager;
-import org.apache.http.conn.params.ConnManagerPNames;
-import org.apache.http.conn.params.ConnPerRouteBean;
 import org.apache.http.conn.params.ConnRoutePNames;
-import org.apache.http.conn.scheme.PlainSocketFactory;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.impl.conn.SingleClientConnManager;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
@@ -53,6 +47,7 @@ import android.net.Proxy;
 
 import com.orangelabs.rcs.platform.AndroidFactory;
 import com.orangelabs.rcs.provider.settings.RcsSettings;
+import com.orangelabs.rcs.utils.HttpConnectionPool;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
@@ -96,6 +91,11 @@ public abstract class HttpTransferManager {
      */
     private HttpContext httpContext = null;
     
+    /**
+     * HTTP request of the last response
+     */
+    private HttpRequestBase request = null;
+
     /**
      * HTTP response
      */
@@ -153,30 +153,12 @@ public abstract class HttpTransferManager {
      */
     private void initServerAddress(String address) {
         try {
-            // Extract protocol and port
-            URL url = new URL(address);
-            String protocol = url.getProtocol();
-            int port = url.getPort();
-            if (port == -1) {
-                // Set default port
-                if (protocol.equals("https")) {
-                    port = 443;
-                } else {
-                    port = 80;
-                }
-            }
+            // Check server address
+            new URL(address);
     
             // Format HTTP request
             ConnectivityManager connMgr = (ConnectivityManager) AndroidFactory.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-            SchemeRegistry schemeRegistry = new SchemeRegistry();
-            if (protocol.equals("https")) {
-                schemeRegistry.register(new Scheme("https", new com.orangelabs.rcs.provisioning.https.EasySSLSocketFactory(), port));
-            } else {
-                schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), port));
-            }
             HttpParams params = new BasicHttpParams();
-            params.setParameter(ConnManagerPNames.MAX_TOTAL_CONNECTIONS, 30);
-            params.setParameter(ConnManagerPNames.MAX_CONNECTIONS_PER_ROUTE, new ConnPerRouteBean(30));
             params.setParameter(HttpProtocolParams.USE_EXPECT_CONTINUE, false);
             NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
             if (networkInfo != null && networkInfo.getType() == ConnectivityManager.TYPE_MOBILE) {
@@ -187,8 +169,9 @@ public abstract class HttpTransferManager {
                 }
             }
             HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
-            ClientConnectionManager cm = new SingleClientConnManager(params, schemeRegistry);
-            httpClient = new DefaultHttpClient(cm, params);
+
+            // Connections are shared with the other transfers
+            httpClient = HttpConnectionPool.createHttpClient(params);
             
             
             // Create local HTTP context
@@ -245,12 +228,10 @@ public abstract class HttpTransferManager {
      * @throws ClientProtocolException 
      */
     public HttpResponse executeRequest(HttpRequestBase request) throws ClientProtocolException, IOException {
-    	if(response != null)
-    	{
-			response.getEntity().consumeContent();
-    	}
+    	releaseResponse();
         if (httpClient != null) {
         	response = httpClient.execute(request, httpContext);
+        	this.request = request;
             if (HTTP_TRACE_ENABLED) {
                 String trace = "<<< Receive HTTP response:";
                 trace += "\n" + response.getStatusLine().toString();
@@ -266,6 +247,45 @@ public abstract class HttpTransferManager {
         }
     }
     
+    /**
+     * Release the connection of the last response to the pool. The rest of
+     * the content is read, unless the transfer is paused or cancelled: the
+     * request is then aborted and its connection closed.
+     */
+    public void releaseResponse() {
+    	releaseResponse(false);
+    }
+
+    /**
+     * Release the connection of the last response to the pool, or abort its
+     * request and close its connection
+     * 
+     * @param abort Abort the request, as after an error during the exchange
+     */
+    protected void releaseResponse(boolean abort) {
+    	if (response == null) {
+    		return;
+    	}
+    	HttpEntity entity = response.getEntity();
+    	response = null;
+    	if (abort) {
+    		request.abort();
+    		return;
+    	}
+    	if (entity == null) {
+    		return;
+    	}
+    	if (isCancelled || isPaused) {
+    		request.abort();
+    		return;
+    	}
+    	try {
+    		entity.consumeContent();
+    	} catch (IOException e) {
+    		request.abort();
+    	}
+    }
+
     /**
      * Get HTTP client
      * 
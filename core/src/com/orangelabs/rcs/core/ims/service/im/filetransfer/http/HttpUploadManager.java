@@ -144,6 +144,20 @@ public class HttpUploadManager extends HttpTransferManager {
 	 * @return XML result or null if fails
 	 */
 	public byte[] uploadFile() {
+		try {
+			return upload();
+		} finally {
+			// Release the connection of the last response, whatever the result
+			releaseResponse();
+		}
+	}
+
+	/**
+	 * Upload a file, retrying the first POST request
+	 * 
+	 * @return XML result or null if fails
+	 */
+	private byte[] upload() {
 		try {
 			if (logger.isActivated()) {
 				logger.debug("Upload file " + content.getUrl());
@@ -190,12 +204,15 @@ public class HttpUploadManager extends HttpTransferManager {
 				// Retry procedure
 				if (retryCount < RETRY_MAX) {
 					retryCount++;
-					return uploadFile();
+					return upload();
 				} else {
 					return null;
 				}
 			}
 
+			// Release the connection, the file is sent on its own connection
+			releaseResponse();
+
 			// Notify listener
 			getListener().httpTransferStarted();
 
@@ -205,6 +222,7 @@ public class HttpUploadManager extends HttpTransferManager {
 			if (logger.isActivated()) {
 				logger.error("Upload file has failed", e);
 			}
+			releaseResponse(true);
 			return null;
 		}
 	}
@@ -557,6 +575,22 @@ public class HttpUploadManager extends HttpTransferManager {
 	 *             , IOException
 	 */
 	public byte[] resumeUpload() throws ParseException, IOException {
+		try {
+			return resume();
+		} finally {
+			// Release the connection of the last response, whatever the result
+			releaseResponse();
+		}
+	}
+
+	/**
+	 * Resume the upload from the upload info of the server
+	 * 
+	 * @return byte[] contains the info to send to terminating side
+	 * @throws ParseException
+	 *             , IOException
+	 */
+	private byte[] resume() throws ParseException, IOException {
 		// Try to get upload info
 		HttpResponse resp = null;
 		try {
@@ -565,6 +599,7 @@ public class HttpUploadManager extends HttpTransferManager {
 			if (logger.isActivated()) {
 				logger.warn("Could not get upload info due to " + e.getLocalizedMessage());
 			}
+			releaseResponse(true);
 		}
 		resetParamForResume();
 
@@ -603,6 +638,7 @@ public class HttpUploadManager extends HttpTransferManager {
 				if (logger.isActivated()) {
 					logger.error( "Exception occurred",e);
 				}
+				releaseResponse(true);
 				return null;
 			}
 		}
@@ -881,6 +917,7 @@ public class HttpUploadManager extends HttpTransferManager {
 			if (logger.isActivated()) {
 				logger.warn("Could not get upload info due to " + e.getLocalizedMessage());
 			}
+			releaseResponse(true);
 			getListener().httpTransferPaused();
 			return null;
 		}
@@ -167,45 +167,65 @@ public class TerminatingHttpFileSharingSession extends HttpFileTransferSession i
 				if (logger.isActivated()) {
 					logger.debug("Auto accept file transfer invitation");
 				}
+
+				// Process the invitation as accepted
+				handleInvitationAnswer(ImsServiceSession.INVITATION_ACCEPTED);
 			} else {
 				if (logger.isActivated()) {
 					logger.debug("Accept manually file transfer invitation");
 				}
 
 				// Wait invitation answer
-				int answer = waitInvitationAnswer();
-				if (answer == ImsServiceSession.INVITATION_REJECTED) {
-					if (logger.isActivated()) {
-						logger.debug("Transfer has been rejected by user");
-					}
+				waitInvitationAnswer();
+			}
+		} catch (Exception e) {
+			if (logger.isActivated()) {
+				logger.error("Transfer has failed", e);
+			}
 
-					// Remove the current session
-					getImsService().removeSession(this);
+			// Unexpected error
+			handleError(new FileSharingError(FileSharingError.UNEXPECTED_EXCEPTION, e.getMessage()));
+		}
+	}
 
-					// Notify listeners
-					for (int i = 0; i < getListeners().size(); i++) {
-						getListeners().get(i).handleSessionAborted(ImsServiceSession.TERMINATION_BY_USER);
-					}
-					return;
-				} else if (answer == ImsServiceSession.INVITATION_NOT_ANSWERED) {
-					if (logger.isActivated()) {
-						logger.debug("Transfer has been rejected on timeout");
-					}
+	/**
+	 * Process the invitation answer
+	 * 
+	 * @param answer Answer
+	 */
+	protected void handleInvitationAnswer(int answer) {
+		try {
+			if (answer == ImsServiceSession.INVITATION_REJECTED) {
+				if (logger.isActivated()) {
+					logger.debug("Transfer has been rejected by user");
+				}
 
-					// Remove the current session
-					getImsService().removeSession(this);
+				// Remove the current session
+				getImsService().removeSession(this);
 
-					// Notify listeners
-					for (int j = 0; j < getListeners().size(); j++) {
-						getListeners().get(j).handleSessionAborted(ImsServiceSession.TERMINATION_BY_TIMEOUT);
-					}
-					return;
-				} else if (answer == ImsServiceSession.INVITATION_CANCELED) {
-					if (logger.isActivated()) {
-						logger.debug("Transfer has been canceled");
-					}
-					return;
+				// Notify listeners
+				for (int i = 0; i < getListeners().size(); i++) {
+					getListeners().get(i).handleSessionAborted(ImsServiceSession.TERMINATION_BY_USER);
 				}
+				return;
+			} else if (answer == ImsServiceSession.INVITATION_NOT_ANSWERED) {
+				if (logger.isActivated()) {
+					logger.debug("Transfer has been rejected on timeout");
+				}
+
+				// Remove the current session
+				getImsService().removeSession(this);
+
+				// Notify listeners
+				for (int j = 0; j < getListeners().size(); j++) {
+					getListeners().get(j).handleSessionAborted(ImsServiceSession.TERMINATION_BY_TIMEOUT);
+				}
+				return;
+			} else if (answer == ImsServiceSession.INVITATION_CANCELED) {
+				if (logger.isActivated()) {
+					logger.debug("Transfer has been canceled");
+				}
+				return;
 			}
 			
             // Reject if file is too big or size exceeds device storage capacity. This control should be done
@@ -274,10 +294,8 @@ public class TerminatingHttpFileSharingSession extends HttpFileTransferSession i
 		}
 		invitationStatus = INVITATION_REJECTED;
 
-		// Unblock semaphore
-		synchronized(waitUserAnswer) {
-			waitUserAnswer.notifyAll();
-		}
+		// Process the answer
+		notifyInvitationAnswer();
 			
 		// Remove the session in the session manager
 		getImsService().removeSession(this);
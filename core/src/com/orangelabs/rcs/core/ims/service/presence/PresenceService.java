@@ -296,6 +296,8 @@ public class PresenceService extends ImsService implements AddressBookEventListe
     	// Stop subscriptions
     	watcherInfoSubscriber.terminate();
     	presenceSubscriber.terminate();
+    	// Close the connections to the XDM server
+    	xdm.close();
 	}
 
 	/**
@@ -0,0 +1,622 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.service.presence.xdm;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import com.orangelabs.rcs.core.TerminalInfo;
+import com.orangelabs.rcs.core.ims.protocol.http.HttpRequest;
+import com.orangelabs.rcs.core.ims.protocol.http.HttpResponse;
+import com.orangelabs.rcs.platform.network.NetworkFactory;
+import com.orangelabs.rcs.platform.network.SocketConnection;
+import com.orangelabs.rcs.utils.HttpUtils;
+import com.orangelabs.rcs.utils.logger.Logger;
+
+/**
+ * HTTP/1.1 client of the XCAP server. Connections are kept alive and reused
+ * by the next requests. GET responses are cached with their ETag: a cached
+ * response is revalidated with an If-None-Match request, or returned as is
+ * during a short delay after it has been received.
+ */
+public class XcapClient {
+	/**
+	 * Max number of connections kept alive
+	 */
+	public final static int MAX_IDLE_CONNECTIONS = 4;
+
+	/**
+	 * Delay after which an idle connection is closed (in milliseconds)
+	 */
+	private final static long IDLE_TIMEOUT = 30000;
+
+	/**
+	 * Socket read timeout (in milliseconds)
+	 */
+	private final static int SO_TIMEOUT = 30000;
+
+	/**
+	 * Delay during which a cached response is returned without being revalidated (in milliseconds)
+	 */
+	private final static long MAX_AGE = 5000;
+
+	/**
+	 * Max number of cached responses
+	 */
+	private final static int MAX_CACHE_ENTRIES = 32;
+
+	/**
+	 * Connection to the XCAP server
+	 */
+	private static class Connection {
+		SocketConnection socket;
+		InputStream is;
+		OutputStream os;
+		boolean reused = false;
+		boolean keepAlive = false;
+		long idleDate;
+	}
+
+	/**
+	 * Cached GET response
+	 */
+	private static class CacheEntry {
+		String etag;
+		HttpResponse response;
+		long date;
+	}
+
+	/**
+	 * XCAP server host
+	 */
+	private String host = null;
+
+	/**
+	 * XCAP server port
+	 */
+	private int port = 80;
+
+	/**
+	 * XCAP root of the server
+	 */
+	private String serviceRoot = "";
+
+	/**
+	 * Idle connections, the most recently used first
+	 */
+	private LinkedList<Connection> idleConnections = new LinkedList<Connection>();
+
+	/**
+	 * Cached GET responses indexed by request URI
+	 */
+	private LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+			return size() > MAX_CACHE_ENTRIES;
+		}
+	};
+
+	/**
+	 * Number of requests
+	 */
+	private long requestCount = 0;
+
+	/**
+	 * Number of connections opened
+	 */
+	private long connectionCount = 0;
+
+	/**
+	 * Number of responses returned from the cache
+	 */
+	private long cacheHitCount = 0;
+
+	/**
+	 * The logger
+	 */
+	private Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Constructor
+	 *
+	 * @param serverAddr XCAP server address (http://host:port/root)
+	 */
+	public XcapClient(String serverAddr) {
+		try {
+			String[] parts = serverAddr.substring(7).split(":|/");
+			host = parts[0];
+			port = Integer.parseInt(parts[1]);
+			if (parts.length > 2) {
+				serviceRoot = "/" + parts[2];
+			}
+		} catch(Exception e) {
+			host = null;
+			if (logger.isActivated()) {
+				logger.error("Bad XCAP server address " + serverAddr);
+			}
+		}
+	}
+
+	/**
+	 * Returns the request URI of a request
+	 *
+	 * @param request HTTP request
+	 * @return Request URI
+	 */
+	public String getRequestUri(HttpRequest request) {
+		return serviceRoot + request.getUrl();
+	}
+
+	/**
+	 * Send a request and read its response
+	 *
+	 * @param request HTTP request
+	 * @param headers Additional headers, each one terminated by CRLF
+	 * @return HTTP response
+	 * @throws IOException
+	 */
+	public HttpResponse sendRequest(HttpRequest request, String headers) throws IOException {
+		if (host == null) {
+			throw new IOException("Bad XCAP server address");
+		}
+		String requestUri = getRequestUri(request);
+		boolean isGet = request.getMethod().equals("GET");
+		synchronized(this) {
+			requestCount++;
+		}
+
+		// Check the cache
+		CacheEntry cached = null;
+		if (isGet) {
+			synchronized(cache) {
+				cached = cache.get(requestUri);
+			}
+			if ((cached != null) && ((System.currentTimeMillis() - cached.date) < MAX_AGE)) {
+				if (logger.isActivated()) {
+					logger.debug("Response of " + requestUri + " read from the cache");
+				}
+				synchronized(this) {
+					cacheHitCount++;
+				}
+				return cached.response;
+			}
+		}
+
+		// Create the HTTP request
+		byte[] body = null;
+		if (request.getContent() != null) {
+			body = request.getContent().getBytes("UTF-8");
+		}
+		StringBuilder httpRequest = new StringBuilder(512);
+		httpRequest.append(request.getMethod()).append(' ').append(requestUri).append(" HTTP/1.1").append(HttpUtils.CRLF)
+			.append("Host: ").append(host).append(':').append(port).append(HttpUtils.CRLF)
+			.append("User-Agent: ").append(TerminalInfo.getProductName()).append(' ')
+				.append(TerminalInfo.getProductVersion()).append(HttpUtils.CRLF)
+			.append(headers);
+		if ((cached != null) && (cached.etag != null)) {
+			httpRequest.append("If-None-Match: ").append(cached.etag).append(HttpUtils.CRLF);
+		}
+		if (body != null) {
+			httpRequest.append("Content-type: ").append(request.getContentType()).append(HttpUtils.CRLF)
+				.append("Content-Length: ").append(body.length).append(HttpUtils.CRLF);
+		} else {
+			httpRequest.append("Content-Length: 0").append(HttpUtils.CRLF);
+		}
+		httpRequest.append(HttpUtils.CRLF);
+		String head = httpRequest.toString();
+		if (logger.isActivated()) {
+			if (body != null) {
+				logger.debug("Send HTTP request:\n" + head + request.getContent());
+			} else {
+				logger.debug("Send HTTP request:\n" + head);
+			}
+		}
+
+		// Send the request
+		HttpResponse response;
+		Connection conn = getConnection();
+		try {
+			response = exchange(conn, head.getBytes(), body, isGet);
+		} catch(IOException e) {
+			close(conn);
+			if (!conn.reused) {
+				throw e;
+			}
+
+			// The connection has been closed by the server meanwhile: retry on a new one
+			if (logger.isActivated()) {
+				logger.debug("Kept alive connection lost (" + e.getMessage() + "): retry on a new connection");
+			}
+			conn = openConnection();
+			try {
+				response = exchange(conn, head.getBytes(), body, isGet);
+			} catch(IOException e2) {
+				close(conn);
+				throw e2;
+			}
+		}
+		releaseConnection(conn);
+
+		// Update the cache
+		long now = System.currentTimeMillis();
+		int code = response.getResponseCode();
+		if (isGet) {
+			if ((code == 304) && (cached != null)) {
+				if (logger.isActivated()) {
+					logger.debug("Response of " + requestUri + " not modified");
+				}
+				cached.date = now;
+				return cached.response;
+			}
+			String etag = response.getHeader("etag");
+			synchronized(cache) {
+				if ((code == 200) && (etag != null)) {
+					CacheEntry entry = new CacheEntry();
+					entry.etag = etag;
+					entry.response = response;
+					entry.date = now;
+					cache.put(requestUri, entry);
+				} else {
+					cache.remove(requestUri);
+				}
+			}
+		} else
+		if (response.isSuccessfullResponse()) {
+			// The document has been modified: forget its cached nodes
+			invalidate(requestUri);
+		}
+		return response;
+	}
+
+	/**
+	 * Forget the cached responses of a document
+	 *
+	 * @param requestUri Request URI of the document or of one of its nodes
+	 */
+	private void invalidate(String requestUri) {
+		int index = requestUri.indexOf("/~~");
+		String document = (index != -1) ? requestUri.substring(0, index) : requestUri;
+		synchronized(cache) {
+			for (Iterator<String> it = cache.keySet().iterator(); it.hasNext();) {
+				if (it.next().startsWith(document)) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write a request and read its response on a connection
+	 *
+	 * @param conn Connection
+	 * @param head Request line and headers
+	 * @param body Body or null
+	 * @param isGet Is a GET request
+	 * @return HTTP response
+	 * @throws IOException
+	 */
+	private HttpResponse exchange(Connection conn, byte[] head, byte[] body, boolean isGet) throws IOException {
+		// Write the request
+		conn.os.write(head);
+		if (body != null) {
+			conn.os.write(body);
+		}
+		conn.os.flush();
+
+		// Read the status line and headers
+		HttpResponse response = new HttpResponse();
+		StringBuilder line = new StringBuilder(128);
+		if (!readLine(conn.is, line)) {
+			throw new EOFException("Connection closed by the server");
+		}
+		String status = line.toString();
+		response.setStatusLine(status);
+		while(true) {
+			if (!readLine(conn.is, line)) {
+				throw new EOFException("Connection closed by the server");
+			}
+			if (line.length() == 0) {
+				// All headers has been read
+				break;
+			}
+			int index = line.indexOf(":");
+			if (index > 0) {
+				response.addHeader(line.substring(0, index).trim().toLowerCase(), line.substring(index+1).trim());
+			}
+		}
+
+		// Read the content
+		boolean keepAlive = status.startsWith("HTTP/1.1") && !"close".equalsIgnoreCase(response.getHeader("connection"));
+		int code = response.getResponseCode();
+		String length = response.getHeader("content-length");
+		byte[] content = null;
+		if ((code < 200) || (code == 204) || (code == 304)) {
+			// No content
+		} else
+		if ("chunked".equalsIgnoreCase(response.getHeader("transfer-encoding"))) {
+			content = readChunkedContent(conn.is, line);
+		} else
+		if (length != null) {
+			content = new byte[parseLength(length, 10)];
+			readFully(conn.is, content);
+		} else
+		if (!keepAlive) {
+			// Content delimited by the end of the connection
+			content = readToEnd(conn.is);
+		} else {
+			// Unknown content length: the connection can't be reused
+			keepAlive = false;
+		}
+		if ((content != null) && (content.length > 0)) {
+			response.setContent(content);
+		}
+		conn.keepAlive = keepAlive;
+
+		if (logger.isActivated()) {
+			StringBuffer trace = new StringBuffer(status);
+			trace.append(HttpUtils.CRLF);
+			if (content != null) {
+				trace.append(new String(content));
+			}
+			logger.debug("Receive HTTP response:\n" + trace.toString());
+		}
+		return response;
+	}
+
+	/**
+	 * Read a line terminated by CRLF
+	 *
+	 * @param is Input stream
+	 * @param line Line without CRLF
+	 * @return Returns false if the end of stream has been reached
+	 * @throws IOException
+	 */
+	private static boolean readLine(InputStream is, StringBuilder line) throws IOException {
+		line.setLength(0);
+		int ch;
+		while((ch = is.read()) != -1) {
+			if (ch == '\n') {
+				int last = line.length() - 1;
+				if ((last >= 0) && (line.charAt(last) == '\r')) {
+					line.setLength(last);
+				}
+				return true;
+			}
+			line.append((char)ch);
+		}
+		return false;
+	}
+
+	/**
+	 * Read a given number of bytes
+	 *
+	 * @param is Input stream
+	 * @param data Buffer to be filled
+	 * @throws IOException
+	 */
+	private static void readFully(InputStream is, byte[] data) throws IOException {
+		int pos = 0;
+		while(pos < data.length) {
+			int nb = is.read(data, pos, data.length - pos);
+			if (nb == -1) {
+				throw new EOFException("Content truncated");
+			}
+			pos += nb;
+		}
+	}
+
+	/**
+	 * Read a chunked content
+	 *
+	 * @param is Input stream
+	 * @param line Line buffer
+	 * @return Content
+	 * @throws IOException
+	 */
+	private static byte[] readChunkedContent(InputStream is, StringBuilder line) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		while(true) {
+			if (!readLine(is, line)) {
+				throw new EOFException("Content truncated");
+			}
+			int index = line.indexOf(";");
+			String size = (index != -1) ? line.substring(0, index) : line.toString();
+			int length = parseLength(size, 16);
+			if (length == 0) {
+				break;
+			}
+			byte[] chunk = new byte[length];
+			readFully(is, chunk);
+			content.write(chunk);
+			readLine(is, line);
+		}
+
+		// Skip the trailers
+		while(readLine(is, line) && (line.length() > 0));
+		return content.toByteArray();
+	}
+
+	/**
+	 * Parse a content length or a chunk size. A malformed length is an I/O
+	 * error, so that the connection is closed as for any other bad response.
+	 *
+	 * @param value Length
+	 * @param radix Radix of the length
+	 * @return Length
+	 * @throws IOException
+	 */
+	private static int parseLength(String value, int radix) throws IOException {
+		try {
+			int length = Integer.parseInt(value.trim(), radix);
+			if (length >= 0) {
+				return length;
+			}
+		} catch(NumberFormatException e) {
+			// Thrown below
+		}
+		throw new IOException("Bad content length " + value);
+	}
+
+	/**
+	 * Read until the end of stream
+	 *
+	 * @param is Input stream
+	 * @return Content
+	 * @throws IOException
+	 */
+	private static byte[] readToEnd(InputStream is) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int nb;
+		while((nb = is.read(buffer)) != -1) {
+			content.write(buffer, 0, nb);
+		}
+		return content.toByteArray();
+	}
+
+	/**
+	 * Returns an idle connection or a new connection
+	 *
+	 * @return Connection
+	 * @throws IOException
+	 */
+	private Connection getConnection() throws IOException {
+		long now = System.currentTimeMillis();
+		while(true) {
+			Connection conn;
+			synchronized(idleConnections) {
+				conn = idleConnections.poll();
+			}
+			if (conn == null) {
+				return openConnection();
+			}
+			if ((now - conn.idleDate) < IDLE_TIMEOUT) {
+				conn.reused = true;
+				return conn;
+			}
+			close(conn);
+		}
+	}
+
+	/**
+	 * Open a new connection
+	 *
+	 * @return Connection
+	 * @throws IOException
+	 */
+	private Connection openConnection() throws IOException {
+		Connection conn = new Connection();
+		conn.socket = NetworkFactory.getFactory().createSocketClientConnection();
+		conn.socket.open(host, port);
+		conn.socket.setSoTimeout(SO_TIMEOUT);
+		conn.is = new BufferedInputStream(conn.socket.getInputStream(), 4096);
+		conn.os = conn.socket.getOutputStream();
+		synchronized(this) {
+			connectionCount++;
+		}
+		return conn;
+	}
+
+	/**
+	 * Keep a connection alive for the next requests, or close it
+	 *
+	 * @param conn Connection
+	 */
+	private void releaseConnection(Connection conn) {
+		if (!conn.keepAlive) {
+			close(conn);
+			return;
+		}
+		conn.reused = false;
+		conn.idleDate = System.currentTimeMillis();
+		Connection evicted = null;
+		synchronized(idleConnections) {
+			idleConnections.addFirst(conn);
+			if (idleConnections.size() > MAX_IDLE_CONNECTIONS) {
+				evicted = idleConnections.removeLast();
+			}
+		}
+		if (evicted != null) {
+			close(evicted);
+		}
+	}
+
+	/**
+	 * Close a connection
+	 *
+	 * @param conn Connection
+	 */
+	private void close(Connection conn) {
+		try {
+			conn.socket.close();
+		} catch(IOException e) {
+			// Nothing to do
+		}
+	}
+
+	/**
+	 * Close the idle connections and forget the cached responses
+	 */
+	public void close() {
+		synchronized(idleConnections) {
+			while(!idleConnections.isEmpty()) {
+				close(idleConnections.removeFirst());
+			}
+		}
+		synchronized(cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of requests
+	 *
+	 * @return Number of requests
+	 */
+	public synchronized long getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * Returns the number of connections opened
+	 *
+	 * @return Number of connections
+	 */
+	public synchronized long getConnectionCount() {
+		return connectionCount;
+	}
+
+	/**
+	 * Returns the number of responses returned from the cache without request
+	 *
+	 * @return Number of responses
+	 */
+	public synchronized long getCacheHitCount() {
+		return cacheHitCount;
+	}
+}
@@ -20,11 +20,11 @@ package com.orangelabs.rcs.core.ims.service.presence.xdm;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.xml.sax.InputSource;
 
@@ -32,7 +32,6 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 
 import com.orangelabs.rcs.core.CoreException;
-import com.orangelabs.rcs.core.TerminalInfo;
 import com.orangelabs.rcs.core.ims.ImsModule;
 import com.orangelabs.rcs.core.ims.protocol.http.HttpAuthenticationAgent;
 import com.orangelabs.rcs.core.ims.protocol.http.HttpDeleteRequest;
@@ -43,10 +42,9 @@ import com.orangelabs.rcs.core.ims.protocol.http.HttpResponse;
 import com.orangelabs.rcs.core.ims.service.presence.PhotoIcon;
 import com.orangelabs.rcs.core.ims.service.presence.directory.Folder;
 import com.orangelabs.rcs.core.ims.service.presence.directory.XcapDirectoryParser;
-import com.orangelabs.rcs.platform.network.NetworkFactory;
-import com.orangelabs.rcs.platform.network.SocketConnection;
 import com.orangelabs.rcs.utils.Base64;
 import com.orangelabs.rcs.utils.HttpUtils;
+import com.orangelabs.rcs.utils.NamedThreadPool;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
@@ -74,6 +72,16 @@ public class XdmManager {
 	 * Managed documents
 	 */
 	private Hashtable<String, Folder> documents = new Hashtable<String, Folder>();
+
+	/**
+	 * XCAP client
+	 */
+	private XcapClient xcapClient;
+
+	/**
+	 * Threads sending the XCAP requests issued concurrently
+	 */
+	private final static NamedThreadPool requestPool = new NamedThreadPool("XcapRequest", XcapClient.MAX_IDLE_CONNECTIONS);
 	
 	/**
 	 * The logger
@@ -89,6 +97,14 @@ public class XdmManager {
 		xdmServerAddr = ImsModule.IMS_USER_PROFILE.getXdmServerAddr();
 		xdmServerLogin = ImsModule.IMS_USER_PROFILE.getXdmServerLogin();
 		xdmServerPwd = ImsModule.IMS_USER_PROFILE.getXdmServerPassword();
+		xcapClient = new XcapClient(xdmServerAddr);
+	}
+
+	/**
+	 * Close the connections to the XDM server
+	 */
+	public void close() {
+		xcapClient.close();
 	}
 	
 	/**
@@ -169,148 +185,31 @@ public class XdmManager {
 	 * @throws CoreException
 	 */
 	private HttpResponse sendHttpRequest(HttpRequest request, HttpAuthenticationAgent authenticationAgent) throws IOException, CoreException {
-		// Extract host & port
-		String[] parts = xdmServerAddr.substring(7).split(":|/");
-		String host = parts[0];		
-		int port = Integer.parseInt(parts[1]);
-		String serviceRoot = "";
-		if (parts.length > 2) {
-			serviceRoot = "/" + parts[2];
-		}
-		
-		// Open connection with the XCAP server
-		SocketConnection conn = NetworkFactory.getFactory().createSocketClientConnection();
-		conn.open(host, port);
-		InputStream is = conn.getInputStream();
-		OutputStream os = conn.getOutputStream();
-
-		// Create the HTTP request
-		String requestUri = serviceRoot + request.getUrl();
-		String httpRequest = request.getMethod() + " " + requestUri + " HTTP/1.1" + HttpUtils.CRLF +
-				"Host: " + host + ":" + port + HttpUtils.CRLF +
-				"User-Agent: " + TerminalInfo.getProductName() + " " + TerminalInfo.getProductVersion() + HttpUtils.CRLF;
-		
+		StringBuilder headers = new StringBuilder(256);
 		if (authenticationAgent != null) {
 			// Set the Authorization header
 			String authorizationHeader = authenticationAgent.generateAuthorizationHeader(
-					request.getMethod(), requestUri, request.getContent());
-			httpRequest += authorizationHeader + HttpUtils.CRLF;
+					request.getMethod(), xcapClient.getRequestUri(request), request.getContent());
+			headers.append(authorizationHeader).append(HttpUtils.CRLF);
 		}
 		
 		String cookie = request.getCookie();
 		if (cookie != null){
 			// Set the cookie header
-			httpRequest += "Cookie: " + cookie + HttpUtils.CRLF;
+			headers.append("Cookie: ").append(cookie).append(HttpUtils.CRLF);
 		}
 
-		httpRequest += "X-3GPP-Intended-Identity: \"" + ImsModule.IMS_USER_PROFILE.getXdmServerLogin() + "\"" + HttpUtils.CRLF;
+		headers.append("X-3GPP-Intended-Identity: \"").append(ImsModule.IMS_USER_PROFILE.getXdmServerLogin()).append("\"").append(HttpUtils.CRLF);
 
-		// Set the If-match header
+		// Set the If-match header of a document update, a read is conditioned by the XCAP client
 		Folder folder = (Folder)documents.get(request.getAUID());
-		if ((folder != null) && (folder.getEntry() != null) && (folder.getEntry().getEtag() != null)) {
-			httpRequest += "If-match: \"" + folder.getEntry().getEtag() + "\"" + HttpUtils.CRLF;
+		if (!request.getMethod().equals("GET") &&
+				(folder != null) && (folder.getEntry() != null) && (folder.getEntry().getEtag() != null)) {
+			headers.append("If-match: \"").append(folder.getEntry().getEtag()).append("\"").append(HttpUtils.CRLF);
 		}
-		
-		if (request.getContent() != null) {
-			// Set the content type
-			httpRequest += "Content-type: " + request.getContentType() + HttpUtils.CRLF;
-			httpRequest += "Content-Length:" + request.getContentLength() + HttpUtils.CRLF + HttpUtils.CRLF;
-		} else {
-			httpRequest += "Content-Length: 0" + HttpUtils.CRLF + HttpUtils.CRLF;
-		}
-		
-		// Write HTTP request headers
-		os.write(httpRequest.getBytes());
-		os.flush();
 
-		// Write HTTP content
-		if (request.getContent() != null) {
-			os.write(request.getContent().getBytes("UTF-8"));
-			os.flush();
-		}
-
-		if (logger.isActivated()){
-			if (request.getContent() != null) {
-				logger.debug("Send HTTP request:\n" + httpRequest + request.getContent());
-			} else {
-				logger.debug("Send HTTP request:\n" + httpRequest);
-			}
-		}
-
-		// Read HTTP headers response
-		StringBuffer respTrace = new StringBuffer();
-		HttpResponse response = new HttpResponse();
-		int ch = -1;
-		String line = "";
-		while((ch = is.read()) != -1) {
-			line += (char)ch;
-			
-			if (line.endsWith(HttpUtils.CRLF)) {
-				if (line.equals(HttpUtils.CRLF)) {
-					// All headers has been read
-					break;
-				}
-
-				if (logger.isActivated()) {
-					respTrace.append(line);
-				}
-
-				// Remove CRLF
-				line = line.substring(0, line.length()-2);
-				
-				if (line.startsWith("HTTP/")) {
-					// Status line
-					response.setStatusLine(line);
-				} else {
-					// Header
-					int index = line.indexOf(":");
-					String name = line.substring(0, index).trim().toLowerCase();
-					String value = line.substring(index+1).trim();
-					response.addHeader(name, value);
-				}
-				
-				line = "";
-			}
-		}
-		
-		// Extract content length
-		int length = -1;
-		try {
-			String value = response.getHeader("content-length");
-			length = Integer.parseInt(value);
-		} catch(Exception e) {
-			length = -1;
-		}
-		
-		// Read HTTP content response
-		if (length > 0) {
-			byte[] content = new byte[length];
-			int nb = -1;
-			int pos = 0;
-			byte[] buffer = new byte[1024];
-			while((nb = is.read(buffer)) != -1) {
-				System.arraycopy(buffer, 0, content, pos, nb);
-				pos += nb;
-				
-				if (pos >= length) {
-					// End of content
-					break;
-				}
-			}
-			if (logger.isActivated()) {
-				respTrace.append(HttpUtils.CRLF + new String(content));
-			}
-			response.setContent(content);
-		}
-
-		if (logger.isActivated()){
-			logger.debug("Receive HTTP response:\n" + respTrace.toString());
-		}
-
-		// Close the connection
-		is.close();
-		os.close();
-		conn.close();
+		// Send the request
+		HttpResponse response = xcapClient.sendRequest(request, headers.toString());
 
 		// Save the Etag from the received response
 		String etag = response.getHeader("etag");
@@ -320,6 +219,36 @@ public class XdmManager {
 		
 		return response;
 	}	
+
+	/**
+	 * Send requests concurrently and wait for their end
+	 * 
+	 * @param tasks Tasks sending the requests
+	 */
+	private void executeConcurrently(List<Runnable> tasks) {
+		if (tasks.size() == 1) {
+			tasks.get(0).run();
+			return;
+		}
+		List<FutureTask<Object>> futures = new ArrayList<FutureTask<Object>>();
+		for (int i=0; i < tasks.size(); i++) {
+			FutureTask<Object> future = new FutureTask<Object>(tasks.get(i), null);
+			requestPool.execute(future);
+			futures.add(future);
+		}
+		for (int i=0; i < futures.size(); i++) {
+			try {
+				futures.get(i).get();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch(ExecutionException e) {
+				if (logger.isActivated()) {
+					logger.error("XCAP request failed", e.getCause());
+				}
+			}
+		}
+	}
 	
 	/**
 	 * Initialize the XDM interface
@@ -334,6 +263,9 @@ public class XdmManager {
 				XcapDirectoryParser parser = new XcapDirectoryParser(input);
 				documents = parser.getDocuments();
 
+				// Set the missing documents
+				List<Runnable> tasks = new ArrayList<Runnable>();
+
 				// Check RCS list document
 				Folder folder = (Folder)documents.get("rls-services");
 				if ((folder == null) || (folder.getEntry() == null)) {
@@ -342,7 +274,11 @@ public class XdmManager {
 					}
 
 					// Set RCS list document
-			    	setRcsList();
+					tasks.add(new Runnable() {
+						public void run() {
+							setRcsList();
+						}
+					});
 				} else {
 					if (logger.isActivated()){
 						logger.debug("The rls-services document already exists");
@@ -357,7 +293,11 @@ public class XdmManager {
 					}
 
 					// Set resource list document
-			    	setResourcesList(); 
+					tasks.add(new Runnable() {
+						public void run() {
+							setResourcesList();
+						}
+					});
 				} else {
 					if (logger.isActivated()){
 						logger.debug("The resource-lists document already exists");
@@ -372,12 +312,38 @@ public class XdmManager {
 					}
 
 					// Set presence rules document
-			    	setPresenceRules();
+					tasks.add(new Runnable() {
+						public void run() {
+							setPresenceRules();
+						}
+					});
 				} else {
 					if (logger.isActivated()){
 						logger.debug("The org.openmobilealliance.pres-rules document already exists");
 					}
 				}
+				if (!tasks.isEmpty()) {
+					executeConcurrently(tasks);
+				}
+
+				// Read the contact lists, their responses are cached by the XCAP client
+				tasks = new ArrayList<Runnable>();
+				tasks.add(new Runnable() {
+					public void run() {
+						getGrantedContacts();
+					}
+				});
+				tasks.add(new Runnable() {
+					public void run() {
+						getBlockedContacts();
+					}
+				});
+				tasks.add(new Runnable() {
+					public void run() {
+						getRevokedContacts();
+					}
+				});
+				executeConcurrently(tasks);
 			}
 		} catch(Exception e) {
         	if (logger.isActivated()) {
@@ -100,7 +100,25 @@ public class TerminatingGeolocTransferSession extends GeolocTransferSession impl
         	}
 
 			// Wait invitation answer
-	    	int answer = waitInvitationAnswer();
+	    	waitInvitationAnswer();
+		} catch(Exception e) {
+        	if (logger.isActivated()) {
+        		logger.error("Session initiation has failed", e);
+        	}
+
+        	// Unexpected error
+			handleError(new ContentSharingError(ContentSharingError.UNEXPECTED_EXCEPTION,
+					e.getMessage()));
+		}
+	}
+
+	/**
+	 * Process the invitation answer
+	 * 
+	 * @param answer Answer
+	 */
+	protected void handleInvitationAnswer(int answer) {
+		try {
 			if (answer == ImsServiceSession.INVITATION_REJECTED) {
 				if (logger.isActivated()) {
 					logger.debug("Session has been rejected by user");
@@ -74,21 +74,29 @@ public class TerminatingVideoStreamingSession extends VideoStreamingSession {
             // Send a 180 Ringing response
             send180Ringing(getDialogPath().getInvite(), getDialogPath().getLocalTag());
 
-            // Parse the remote SDP part
-            SdpParser parser = new SdpParser(getDialogPath().getRemoteContent().getBytes());
-            MediaDescription mediaVideo = parser.getMediaDescription("video");
-            String remoteHost = SdpUtils.extractRemoteHost(parser.sessionDescription, mediaVideo);
-            int remotePort = mediaVideo.port;
-
-            // Extract video codecs from SDP
-            Vector<MediaDescription> medias = parser.getMediaDescriptions("video");
-            Vector<VideoCodec> proposedCodecs = VideoCodecManager.extractVideoCodecsFromSdp(medias);
-
             // Notify listener
             getImsService().getImsModule().getCore().getListener().handleContentSharingStreamingInvitation(this);
 
             // Wait invitation answer
-            int answer = waitInvitationAnswer();
+            waitInvitationAnswer();
+        } catch(Exception e) {
+            if (logger.isActivated()) {
+                logger.error("Session initiation has failed", e);
+            }
+
+            // Unexpected error
+            handleError(new ContentSharingError(ContentSharingError.UNEXPECTED_EXCEPTION,
+                    e.getMessage()));
+        }
+    }
+
+    /**
+     * Process the invitation answer
+     * 
+     * @param answer Answer
+     */
+    protected void handleInvitationAnswer(int answer) {
+        try {
             if (answer == ImsServiceSession.INVITATION_REJECTED) {
                 if (logger.isActivated()) {
                     logger.debug("Session has been rejected by user");
@@ -127,6 +135,16 @@ public class TerminatingVideoStreamingSession extends VideoStreamingSession {
                 return;
             }
 
+            // Parse the remote SDP part
+            SdpParser parser = new SdpParser(getDialogPath().getRemoteContent().getBytes());
+            MediaDescription mediaVideo = parser.getMediaDescription("video");
+            String remoteHost = SdpUtils.extractRemoteHost(parser.sessionDescription, mediaVideo);
+            int remotePort = mediaVideo.port;
+
+            // Extract video codecs from SDP
+            Vector<MediaDescription> medias = parser.getMediaDescriptions("video");
+            Vector<VideoCodec> proposedCodecs = VideoCodecManager.extractVideoCodecsFromSdp(medias);
+
             // Check that a video renderer has been set
             if (getVideoRenderer() == null) {
                 handleError(new ContentSharingError(
@@ -73,7 +73,25 @@ public class TerminatingSipSession extends GenericSipSession {
 			send180Ringing(getDialogPath().getInvite(), getDialogPath().getLocalTag());
         
 			// Wait invitation answer
-	    	int answer = waitInvitationAnswer();
+	    	waitInvitationAnswer();
+		} catch(Exception e) {
+        	if (logger.isActivated()) {
+        		logger.error("Session initiation has failed", e);
+        	}
+
+        	// Unexpected error
+			handleError(new SipSessionError(SipSessionError.UNEXPECTED_EXCEPTION,
+					e.getMessage()));
+		}
+	}
+
+	/**
+	 * Process the invitation answer
+	 * 
+	 * @param answer Answer
+	 */
+	protected void handleInvitationAnswer(int answer) {
+		try {
 			if (answer == ImsServiceSession.INVITATION_REJECTED) {
 				if (logger.isActivated()) {
 					logger.debug("Session has been rejected by user");
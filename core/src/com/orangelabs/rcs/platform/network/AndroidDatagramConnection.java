@@ -38,6 +38,11 @@ public class AndroidDatagramConnection implements DatagramConnection {
      * Datagram Packet
      */
     private DatagramPacket packet = null;
+
+    /**
+     * Datagram Packet used to receive in a given buffer
+     */
+    private DatagramPacket bufferPacket = new DatagramPacket(new byte[0], 0);
 
     /**
      * Connection timeout
@@ -115,6 +120,23 @@ public class AndroidDatagramConnection implements DatagramConnection {
 		}
 	}
 
+	/**
+	 * Receive data in a given buffer
+	 *
+	 * @param buffer Buffer
+	 * @return Number of bytes received
+	 * @throws IOException
+	 */
+	public int receive(byte[] buffer) throws IOException {
+		if (connection != null) {
+			bufferPacket.setData(buffer);
+			connection.receive(bufferPacket);
+			return bufferPacket.getLength();
+		} else {
+			throw new IOException("Connection not opened");
+		}
+	}
+
 	/**
 	 * Send data
 	 * 
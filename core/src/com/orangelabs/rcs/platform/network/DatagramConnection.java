@@ -71,6 +71,16 @@ public interface DatagramConnection {
 	 */
 	public byte[] receive() throws IOException;
 
+	/**
+	 * Receive data in a given buffer. The end of a datagram larger than
+	 * the buffer is lost.
+	 * 
+	 * @param buffer Buffer
+	 * @return Number of bytes received
+	 * @throws IOException
+	 */
+	public int receive(byte[] buffer) throws IOException;
+
 	/**
 	 * Returns the local address
 	 * 
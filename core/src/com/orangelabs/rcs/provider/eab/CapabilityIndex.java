@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.orangelabs.rcs.provider.eab;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.orangelabs.rcs.core.ims.service.ContactInfo;
+import com.orangelabs.rcs.core.ims.service.capability.Capabilities;
+
+/**
+ * In-memory index of the contact capabilities stored in the rich address
+ * book, keyed by number in international format. The index is bounded: the
+ * least recently used contacts are evicted. Capability timestamps are
+ * written behind: they are kept as dirty until flushed to the provider.
+ * <br>A contact read from the provider is only indexed if no contact has
+ * been removed from the index meanwhile, so that a read racing with a write
+ * does not index the old capabilities.
+ */
+public class CapabilityIndex {
+	/**
+	 * Default max number of contacts in the index
+	 */
+	public final static int DEFAULT_MAX_ENTRIES = 2000;
+
+	/**
+	 * Indexed capabilities of a contact
+	 */
+	public static class Entry {
+		/**
+		 * RCS status
+		 */
+		private final int rcsStatus;
+
+		/**
+		 * Capabilities, null if they have never been queried
+		 */
+		private final Capabilities capabilities;
+
+		/**
+		 * Constructor
+		 *
+		 * @param rcsStatus RCS status
+		 * @param capabilities Capabilities
+		 */
+		private Entry(int rcsStatus, Capabilities capabilities) {
+			this.rcsStatus = rcsStatus;
+			this.capabilities = capabilities;
+		}
+
+		/**
+		 * Returns the RCS status
+		 *
+		 * @return RCS status
+		 */
+		public int getRcsStatus() {
+			return rcsStatus;
+		}
+
+		/**
+		 * Returns the capabilities
+		 *
+		 * @return Copy of the capabilities, null if they have never been queried
+		 */
+		public Capabilities getCapabilities() {
+			if (capabilities == null) {
+				return null;
+			}
+			return new Capabilities(capabilities);
+		}
+	}
+
+	/**
+	 * Max number of contacts
+	 */
+	private final int maxEntries;
+
+	/**
+	 * Entries in access order
+	 */
+	private LinkedHashMap<String, Entry> entries;
+
+	/**
+	 * Capability timestamps not yet written to the provider
+	 */
+	private HashMap<String, Long> dirtyTimestamps = new HashMap<String, Long>();
+
+	/**
+	 * Generation, incremented each time contacts are removed or dirty
+	 * timestamps are written
+	 */
+	private long generation = 0;
+
+	/**
+	 * Number of lookups found in the index
+	 */
+	private long hitCount = 0;
+
+	/**
+	 * Number of lookups not found in the index
+	 */
+	private long missCount = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxEntries Max number of contacts in the index
+	 */
+	public CapabilityIndex(final int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, CapabilityIndex.Entry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the max number of contacts in the index
+	 *
+	 * @return Number of contacts
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Look up a contact
+	 *
+	 * @param contact Contact
+	 * @return Entry or null if the contact is not indexed
+	 */
+	public synchronized Entry get(String contact) {
+		Entry entry = entries.get(contact);
+		if (entry != null) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the generation, to be read before reading a contact from the provider
+	 *
+	 * @return Generation
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Index the capabilities of a contact read from the provider
+	 *
+	 * @param contact Contact
+	 * @param rcsStatus RCS status
+	 * @param capabilities Capabilities, null if they have never been queried
+	 * @param generation Generation read before reading the provider
+	 * @return Returns false if the contact has not been indexed
+	 */
+	public synchronized boolean put(String contact, int rcsStatus, Capabilities capabilities, long generation) {
+		if (generation != this.generation) {
+			return false;
+		}
+		put(contact, rcsStatus, capabilities);
+		return true;
+	}
+
+	/**
+	 * Index the capabilities of a contact
+	 *
+	 * @param contact Contact
+	 * @param rcsStatus RCS status
+	 * @param capabilities Capabilities, null if they have never been queried
+	 */
+	private void put(String contact, int rcsStatus, Capabilities capabilities) {
+		Capabilities copy = null;
+		if ((rcsStatus != ContactInfo.NO_INFO) && (capabilities != null)) {
+			copy = new Capabilities(capabilities);
+			Long timestamp = dirtyTimestamps.get(contact);
+			if (timestamp != null) {
+				copy.setTimestamp(timestamp);
+			}
+		}
+		entries.put(contact, new Entry(rcsStatus, copy));
+	}
+
+	/**
+	 * Remove a contact from the index
+	 *
+	 * @param contact Contact
+	 */
+	public synchronized void remove(String contact) {
+		entries.remove(contact);
+		generation++;
+	}
+
+	/**
+	 * Remove all the contacts from the index and forget the dirty timestamps
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		dirtyTimestamps.clear();
+		generation++;
+	}
+
+	/**
+	 * Set the capability timestamp of a contact, the timestamp is marked as dirty
+	 *
+	 * @param contact Contact
+	 * @param timestamp Timestamp
+	 * @return Number of dirty timestamps
+	 */
+	public synchronized int setTimestamp(String contact, long timestamp) {
+		dirtyTimestamps.put(contact, timestamp);
+		Entry entry = entries.get(contact);
+		if ((entry != null) && (entry.capabilities != null)) {
+			put(contact, entry.rcsStatus, entry.capabilities);
+		}
+		return dirtyTimestamps.size();
+	}
+
+	/**
+	 * Returns the dirty capability timestamp of a contact
+	 *
+	 * @param contact Contact
+	 * @return Timestamp or null if not dirty
+	 */
+	public synchronized Long getDirtyTimestamp(String contact) {
+		return dirtyTimestamps.get(contact);
+	}
+
+	/**
+	 * Forget the dirty capability timestamp of a contact, once written
+	 *
+	 * @param contact Contact
+	 */
+	public synchronized void clearDirtyTimestamp(String contact) {
+		dirtyTimestamps.remove(contact);
+	}
+
+	/**
+	 * Returns the dirty capability timestamps to be written, they stay dirty
+	 * until cleared once written
+	 *
+	 * @return Copy of the timestamps indexed by contact
+	 */
+	public synchronized Map<String, Long> getDirtyTimestamps() {
+		return new HashMap<String, Long>(dirtyTimestamps);
+	}
+
+	/**
+	 * Forget the dirty capability timestamps which have been written, unless
+	 * they have been set again meanwhile. A contact read from the provider
+	 * before the write is not indexed.
+	 *
+	 * @param timestamps Written timestamps indexed by contact
+	 */
+	public synchronized void clearDirtyTimestamps(Map<String, Long> timestamps) {
+		for (Map.Entry<String, Long> written : timestamps.entrySet()) {
+			if (written.getValue().equals(dirtyTimestamps.get(written.getKey()))) {
+				dirtyTimestamps.remove(written.getKey());
+			}
+		}
+		generation++;
+	}
+
+	/**
+	 * Returns the number of contacts in the index
+	 *
+	 * @return Number of contacts
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of lookups found in the index
+	 *
+	 * @return Number of lookups
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of lookups not found in the index
+	 *
+	 * @return Number of lookups
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+}
@@ -27,7 +27,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
 
 
 import android.accounts.AccountManager;
@@ -276,12 +284,42 @@ public final class ContactsManager {
     /**
      * Account name for SIM contacts
      */
-    private static final String SIM_ACCOUNT_NAME = "com.android.contacts.sim";
+    static final String SIM_ACCOUNT_NAME = "com.android.contacts.sim";
     
     /**
      * Contact for "Me"
      */
     private static final String MYSELF = "myself";
+
+    /**
+     * Delay before writing the dirty capability timestamps (in milliseconds)
+     */
+    private static final long CAPABILITY_FLUSH_DELAY = 5000;
+
+    /**
+     * Number of dirty capability timestamps written right away
+     */
+    private static final int CAPABILITY_FLUSH_BATCH_SIZE = 50;
+
+    /**
+     * Max number of arguments of a batched query
+     */
+    static final int MAX_QUERY_ARGS = 500;
+
+    /**
+     * In-memory index of the contact capabilities
+     */
+    private CapabilityIndex capabilityIndex = new CapabilityIndex(CapabilityIndex.DEFAULT_MAX_ENTRIES);
+
+    /**
+     * Timer writing the dirty capability timestamps
+     */
+    private Timer capabilityFlushTimer = null;
+
+    /**
+     * Pending write of the dirty capability timestamps
+     */
+    private TimerTask capabilityFlushTask = null;
     
 	/**
 	 * The logger
@@ -603,6 +641,10 @@ public final class ContactsManager {
             ctx.getContentResolver().insert(RichAddressBookData.CONTENT_URI, values);
         }
 
+        // The capability timestamp has been written, the indexed capabilities are out of date
+        capabilityIndex.clearDirtyTimestamp(contact);
+        capabilityIndex.remove(contact);
+
         // Save presence photo content
         if (photoIcon != null) {
             byte photoContent[] = photoIcon.getContent();
@@ -881,6 +923,7 @@ public final class ContactsManager {
 		
 		infos.setRegistrationState(ContactInfo.REGISTRATION_STATUS_UNKNOWN);
 
+		long generation = capabilityIndex.getGeneration();
 		Cursor cur = ctx.getContentResolver().query(RichAddressBookData.CONTENT_URI,
 				null,
 				RichAddressBookData.KEY_CONTACT_NUMBER + "= ?",
@@ -941,44 +984,114 @@ public final class ContactsManager {
                 presenceInfo.setPhotoIcon(photoIcon);
 
                 // Get the capabilities infos
-                capabilities.setCsVideoSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_CS_VIDEO));
-                capabilities.setFileTransferSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER));
-                capabilities.setImageSharingSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IMAGE_SHARING));
-                capabilities.setImSessionSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IM_SESSION));
-                capabilities.setPresenceDiscoverySupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_PRESENCE_DISCOVERY));
-                capabilities.setSocialPresenceSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_SOCIAL_PRESENCE));
-                capabilities.setGeolocationPushSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_GEOLOCATION_PUSH));
-                capabilities.setVideoSharingSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_VIDEO_SHARING));
-                capabilities.setFileTransferThumbnailSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_THUMBNAIL));
-                capabilities.setFileTransferHttpSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_HTTP));
-                capabilities.setIPVoiceCallSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IP_VOICE_CALL));
-                capabilities.setIPVideoCallSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IP_VIDEO_CALL));
-                capabilities.setFileTransferStoreForwardSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_SF));
-                capabilities.setGroupChatStoreForwardSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_GROUP_CHAT_SF));
-                
-                // Set RCS extensions capability
-				String extensions = cur.getString(cur.getColumnIndex(RichAddressBookData.KEY_CAPABILITY_EXTENSIONS));
-				if (extensions != null) {
-					String[] extensionList = extensions.split(";");
-					for (int i=0;i<extensionList.length;i++){
-						if (extensionList[i].trim().length()>0){
-							capabilities.addSupportedExtension(extensionList[i]);
-						}
-					}
-				}
-				
-				// Set timestamp
-				capabilities.setTimestamp(cur.getLong(cur.getColumnIndex(RichAddressBookData.KEY_CAPABILITY_TIMESTAMP)));
+                capabilities = getCapabilitiesFromCursor(cur);
 			}
 			cur.close();
 		}
+
+		// The capability timestamp may not have been written yet
+		Long timestamp = capabilityIndex.getDirtyTimestamp(contact);
+		if (timestamp != null) {
+			capabilities.setTimestamp(timestamp);
+		}
 		
 		infos.setPresenceInfo(presenceInfo);
 		infos.setCapabilities(capabilities);
 
+		// Index the capabilities
+		capabilityIndex.put(contact, infos.getRcsStatus(), capabilities, generation);
+
 		return infos;
 	}
 
+	/**
+	 * Read the capabilities of the current row of a rich address book cursor
+	 * 
+	 * @param cur Cursor
+	 * @return Capabilities
+	 */
+	private Capabilities getCapabilitiesFromCursor(Cursor cur) {
+		Capabilities capabilities = new Capabilities();
+        capabilities.setCsVideoSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_CS_VIDEO));
+        capabilities.setFileTransferSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER));
+        capabilities.setImageSharingSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IMAGE_SHARING));
+        capabilities.setImSessionSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IM_SESSION));
+        capabilities.setPresenceDiscoverySupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_PRESENCE_DISCOVERY));
+        capabilities.setSocialPresenceSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_SOCIAL_PRESENCE));
+        capabilities.setGeolocationPushSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_GEOLOCATION_PUSH));
+        capabilities.setVideoSharingSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_VIDEO_SHARING));
+        capabilities.setFileTransferThumbnailSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_THUMBNAIL));
+        capabilities.setFileTransferHttpSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_HTTP));
+        capabilities.setIPVoiceCallSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IP_VOICE_CALL));
+        capabilities.setIPVideoCallSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_IP_VIDEO_CALL));
+        capabilities.setFileTransferStoreForwardSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_SF));
+        capabilities.setGroupChatStoreForwardSupport(getCapabilityFromColumn(cur, RichAddressBookData.KEY_CAPABILITY_GROUP_CHAT_SF));
+        
+        // Set RCS extensions capability
+		String extensions = cur.getString(cur.getColumnIndex(RichAddressBookData.KEY_CAPABILITY_EXTENSIONS));
+		if (extensions != null) {
+			String[] extensionList = extensions.split(";");
+			for (int i=0;i<extensionList.length;i++){
+				if (extensionList[i].trim().length()>0){
+					capabilities.addSupportedExtension(extensionList[i]);
+				}
+			}
+		}
+		
+		// Set timestamp
+		capabilities.setTimestamp(cur.getLong(cur.getColumnIndex(RichAddressBookData.KEY_CAPABILITY_TIMESTAMP)));
+		return capabilities;
+	}
+
+	/**
+	 * Load the capabilities of the rich address book in the capability index,
+	 * up to the max size of the index
+	 */
+	public void loadCapabilityIndex() {
+		long generation = capabilityIndex.getGeneration();
+		int count = 0;
+		Cursor cur = ctx.getContentResolver().query(RichAddressBookData.CONTENT_URI,
+				new String[]{
+					RichAddressBookData.KEY_CONTACT_NUMBER,
+					RichAddressBookData.KEY_RCS_STATUS,
+					RichAddressBookData.KEY_CAPABILITY_CS_VIDEO,
+					RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER,
+					RichAddressBookData.KEY_CAPABILITY_IMAGE_SHARING,
+					RichAddressBookData.KEY_CAPABILITY_IM_SESSION,
+					RichAddressBookData.KEY_CAPABILITY_PRESENCE_DISCOVERY,
+					RichAddressBookData.KEY_CAPABILITY_SOCIAL_PRESENCE,
+					RichAddressBookData.KEY_CAPABILITY_GEOLOCATION_PUSH,
+					RichAddressBookData.KEY_CAPABILITY_VIDEO_SHARING,
+					RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_THUMBNAIL,
+					RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_HTTP,
+					RichAddressBookData.KEY_CAPABILITY_IP_VOICE_CALL,
+					RichAddressBookData.KEY_CAPABILITY_IP_VIDEO_CALL,
+					RichAddressBookData.KEY_CAPABILITY_FILE_TRANSFER_SF,
+					RichAddressBookData.KEY_CAPABILITY_GROUP_CHAT_SF,
+					RichAddressBookData.KEY_CAPABILITY_EXTENSIONS,
+					RichAddressBookData.KEY_CAPABILITY_TIMESTAMP },
+				null,
+				null,
+				null);
+		if (cur != null) {
+			while (cur.moveToNext() && (count < capabilityIndex.getMaxEntries())) {
+				String contact = cur.getString(0);
+				if (contact == null) {
+					continue;
+				}
+				if (!capabilityIndex.put(contact, cur.getInt(1), getCapabilitiesFromCursor(cur), generation)) {
+					// The rich address book is being modified
+					break;
+				}
+				count++;
+			}
+			cur.close();
+		}
+		if (logger.isActivated()) {
+			logger.info(count + " contacts loaded in the capability index");
+		}
+	}
+
 	/**
 	 * Set the sharing status of a contact in the EAB
 	 * 
@@ -1320,6 +1433,7 @@ public final class ContactsManager {
 	public void flushContactProvider(){
 		String where = RichAddressBookData.KEY_CONTACT_NUMBER +"<> NULL";
 		ctx.getContentResolver().delete(RichAddressBookData.CONTENT_URI, where, null);
+		capabilityIndex.clear();
 	}
 	
 	/**
@@ -1356,6 +1470,7 @@ public final class ContactsManager {
 					RichAddressBookData.KEY_CONTACT_NUMBER +"=?",
 					new String[]{contact});
 		}
+		capabilityIndex.remove(contact);
 	}
 
 	/**
@@ -1531,6 +1646,7 @@ public final class ContactsManager {
 		ctx.getContentResolver().delete(RichAddressBookData.CONTENT_URI, 
 				RichAddressBookData.KEY_CONTACT_NUMBER +"=?" + " AND " + RichAddressBookData.KEY_PRESENCE_SHARING_STATUS + "=?",
 				new String[]{contact, Integer.toString(ContactInfo.RCS_CANCELLED)});
+		capabilityIndex.remove(contact);
 	}
 	
 	/**
@@ -2513,13 +2629,19 @@ public final class ContactsManager {
 	}
 	
 	/**
-	 * Get contact capabilities
+	 * Get contact capabilities, from the capability index if possible
 	 * <br>If contact has never been enriched with capability, returns null
 	 * 
 	 * @param contact
 	 * @return capabilities
 	 */
 	public Capabilities getContactCapabilities(String contact){
+		contact = PhoneUtils.extractNumberFromUri(contact);
+		CapabilityIndex.Entry entry = capabilityIndex.get(contact);
+		if (entry != null) {
+			return entry.getCapabilities();
+		}
+
 		ContactInfo contactInfo = getContactInfo(contact);
 		if (contactInfo.getRcsStatus()==ContactInfo.NO_INFO){
 			return null;
@@ -2529,7 +2651,8 @@ public final class ContactsManager {
 	}
 	
 	/**
-	 * Set contact capabilities timestamp
+	 * Set contact capabilities timestamp. The timestamp is written in the
+	 * background, with the other timestamps set meanwhile.
 	 * 
 	 * @param contact
 	 * @param timestamp
@@ -2538,6 +2661,104 @@ public final class ContactsManager {
 		if (logger.isActivated()){
 			logger.debug("Setting contact capabilities timestamp for "+contact +" to "+timestamp);
 		}
+		contact = PhoneUtils.extractNumberFromUri(contact);
+		int dirtyCount = capabilityIndex.setTimestamp(contact, timestamp);
+		scheduleCapabilityFlush(dirtyCount >= CAPABILITY_FLUSH_BATCH_SIZE);
+	}
+
+	/**
+	 * Schedule the write of the dirty capability timestamps
+	 * 
+	 * @param now Write right away
+	 */
+	private synchronized void scheduleCapabilityFlush(boolean now) {
+		if (capabilityFlushTask != null) {
+			if (!now) {
+				// Already scheduled
+				return;
+			}
+			capabilityFlushTask.cancel();
+		}
+		if (capabilityFlushTimer == null) {
+			capabilityFlushTimer = new Timer("CapabilityFlush", true);
+		}
+		capabilityFlushTask = new TimerTask() {
+			public void run() {
+				synchronized(ContactsManager.this) {
+					if (capabilityFlushTask == this) {
+						capabilityFlushTask = null;
+					}
+				}
+				flushCapabilityTimestamps();
+			}
+		};
+		capabilityFlushTimer.schedule(capabilityFlushTask, now ? 0 : CAPABILITY_FLUSH_DELAY);
+	}
+
+	/**
+	 * Write the dirty capability timestamps in the rich address book and in
+	 * the native address book, in batches. The timestamps stay dirty until
+	 * written, the write is retried later if it fails.
+	 */
+	public void flushCapabilityTimestamps() {
+		Map<String, Long> timestamps = capabilityIndex.getDirtyTimestamps();
+		if (timestamps.isEmpty()) {
+			return;
+		}
+		if (logger.isActivated()){
+			logger.debug("Write " + timestamps.size() + " capability timestamps");
+		}
+
+		ArrayList<String> contacts = new ArrayList<String>(timestamps.keySet());
+		ArrayList<ContentProviderOperation> eabOps = new ArrayList<ContentProviderOperation>();
+		ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
+		for (int i=0; i < contacts.size(); i++) {
+			String contact = contacts.get(i);
+			long timestamp = timestamps.get(contact);
+			eabOps.add(ContentProviderOperation.newUpdate(RichAddressBookData.CONTENT_URI)
+					.withSelection(RichAddressBookData.KEY_CONTACT_NUMBER + "=?", new String[]{contact})
+					.withValue(RichAddressBookData.KEY_CAPABILITY_TIMESTAMP, timestamp)
+					.build());
+			List<Long> rcsRawContactIds = getRcsRawContactIdFromPhoneNumber(contact);
+			for (int j=0; j < rcsRawContactIds.size(); j++) {
+				ops.add(modifyCapabilityTimestampForContact(rcsRawContactIds.get(j), contact, timestamp));
+			}
+		}
+
+		try {
+			ContentProviderResult[] results = ctx.getContentResolver().applyBatch(RichAddressBookData.CONTENT_URI.getAuthority(), eabOps);
+			for (int i=0; i < results.length; i++) {
+				if ((results[i].count == null) || (results[i].count == 0)) {
+					// No entry yet for the contact
+					String contact = contacts.get(i);
+					writeContactCapabilitiesTimestamp(contact, timestamps.get(contact));
+				}
+			}
+			if (!ops.isEmpty()) {
+				ctx.getContentResolver().applyBatch(ContactsContract.AUTHORITY, ops);
+			}
+			capabilityIndex.clearDirtyTimestamps(timestamps);
+		} catch (RemoteException e) {
+			if (logger.isActivated()){
+				logger.error("Could not write the contact capabilities timestamps",e);
+			}
+			scheduleCapabilityFlush(false);
+		} catch (OperationApplicationException e) {
+			if (logger.isActivated()){
+				logger.error("Could not write the contact capabilities timestamps",e);
+			}
+			scheduleCapabilityFlush(false);
+		}
+	}
+
+	/**
+	 * Write the capabilities timestamp of a contact which has no entry in
+	 * the rich address book
+	 * 
+	 * @param contact
+	 * @param timestamp
+	 */
+	private void writeContactCapabilitiesTimestamp(String contact, long timestamp){
 		ContactInfo oldInfo = getContactInfo(contact);
 		ContactInfo newInfo = new ContactInfo(oldInfo);
 		Capabilities capabilities = newInfo.getCapabilities();
@@ -3212,6 +3433,131 @@ public final class ContactsManager {
 		return result;
     }
     
+    /**
+     * Get the phone numbers which have an entry in the rich address book provider
+     *
+     * @param phoneNumbers Phone numbers to check
+     * @return Set of the associated phone numbers
+     */
+    public Set<String> getRcsAssociatedNumbers(final Collection<String> phoneNumbers) {
+    	Set<String> result = new HashSet<String>();
+    	List<List<String>> chunks = splitQueryArgs(phoneNumbers);
+    	for (int i=0; i < chunks.size(); i++) {
+    		List<String> chunk = chunks.get(i);
+    		Cursor cur = ctx.getContentResolver().query(RichAddressBookData.CONTENT_URI, 
+    				new String[]{RichAddressBookData.KEY_CONTACT_NUMBER}, 
+    				getInSelection(RichAddressBookData.KEY_CONTACT_NUMBER, chunk.size()), 
+    				chunk.toArray(new String[chunk.size()]), 
+    				null);
+    		if (cur != null) {
+    			while (cur.moveToNext()) {
+    				result.add(cur.getString(0));
+    			}
+    			cur.close();
+    		}
+    	}
+    	return result;
+    }
+
+    /**
+     * Get the raw contacts associated to a RCS raw contact, for a set of RCS numbers
+     *
+     * @param rcsNumbers RCS numbers
+     * @return Raw contact IDs indexed by RCS number
+     */
+    public Map<String, Set<Long>> getAssociatedRawContacts(final Collection<String> rcsNumbers) {
+    	Map<String, Set<Long>> result = new HashMap<String, Set<Long>>();
+    	List<List<String>> chunks = splitQueryArgs(rcsNumbers);
+    	for (int i=0; i < chunks.size(); i++) {
+    		List<String> chunk = chunks.get(i);
+    		Cursor cursor = ctx.getContentResolver().query(AggregationData.CONTENT_URI, 
+    				new String[]{AggregationData.KEY_RCS_NUMBER, AggregationData.KEY_RAW_CONTACT_ID}, 
+    				getInSelection(AggregationData.KEY_RCS_NUMBER, chunk.size()), 
+    				chunk.toArray(new String[chunk.size()]),
+    				null);
+    		if (cursor != null) {
+    			while (cursor.moveToNext()) {
+    				String number = cursor.getString(0);
+    				Set<Long> ids = result.get(number);
+    				if (ids == null) {
+    					ids = new HashSet<Long>();
+    					result.put(number, ids);
+    				}
+    				ids.add(cursor.getLong(1));
+    			}
+    			cursor.close();
+    		}
+    	}
+    	return result;
+    }
+
+    /**
+     * Get the raw contacts which are SIM accounts among a set of raw contacts
+     *
+     * @param rawContactIds Raw contact IDs
+     * @return Set of the SIM raw contact IDs
+     */
+    public Set<Long> getSimAccounts(final Collection<Long> rawContactIds) {
+    	Set<Long> result = new HashSet<Long>();
+    	List<String> ids = new ArrayList<String>();
+    	for (Iterator<Long> it = rawContactIds.iterator(); it.hasNext();) {
+    		ids.add(Long.toString(it.next()));
+    	}
+    	List<List<String>> chunks = splitQueryArgs(ids);
+    	for (int i=0; i < chunks.size(); i++) {
+    		List<String> chunk = chunks.get(i);
+    		Cursor rawCur = ctx.getContentResolver().query(RawContacts.CONTENT_URI, 
+    				new String[]{RawContacts._ID}, 
+    				RawContacts.ACCOUNT_TYPE + "= \'"+SIM_ACCOUNT_NAME+"\' AND " + getInSelection(RawContacts._ID, chunk.size()),
+    				chunk.toArray(new String[chunk.size()]), 
+    				null);
+    		if (rawCur != null) {
+    			while (rawCur.moveToNext()) {
+    				result.add(rawCur.getLong(0));
+    			}
+    			rawCur.close();
+    		}
+    	}
+    	return result;
+    }
+
+    /**
+     * Split the arguments of a batched query in chunks
+     *
+     * @param args Arguments
+     * @return List of chunks
+     */
+    private List<List<String>> splitQueryArgs(Collection<String> args) {
+    	List<List<String>> chunks = new ArrayList<List<String>>();
+    	List<String> chunk = null;
+    	for (Iterator<String> it = args.iterator(); it.hasNext();) {
+    		if ((chunk == null) || (chunk.size() == MAX_QUERY_ARGS)) {
+    			chunk = new ArrayList<String>();
+    			chunks.add(chunk);
+    		}
+    		chunk.add(it.next());
+    	}
+    	return chunks;
+    }
+
+    /**
+     * Build a "column IN (?, ...)" selection
+     *
+     * @param column Column
+     * @param count Number of arguments
+     * @return Selection
+     */
+    private static String getInSelection(String column, int count) {
+    	StringBuffer selection = new StringBuffer(column).append(" IN (");
+    	for (int i=0; i < count; i++) {
+    		if (i > 0) {
+    			selection.append(",");
+    		}
+    		selection.append("?");
+    	}
+    	return selection.append(")").toString();
+    }
+
     /**
      * Utility method to check if a raw contact id is a SIM account
      * 
@@ -4161,6 +4507,8 @@ public final class ContactsManager {
 	                ctx.getContentResolver().delete(RichAddressBookData.CONTENT_URI,
 	                        where,
 	                        selectionArg);
+	                capabilityIndex.clearDirtyTimestamp(phoneNumber);
+	                capabilityIndex.remove(phoneNumber);
 	            }
 	        }
 	    } catch (Exception e) {
@@ -4223,6 +4571,7 @@ public final class ContactsManager {
 
         // Delete presence data
         ctx.getContentResolver().delete(RichAddressBookData.CONTENT_URI, null, null);
+        capabilityIndex.clear();
     }
     
     /**
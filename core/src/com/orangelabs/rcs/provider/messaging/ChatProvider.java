@@ -18,12 +18,17 @@
 
 package com.orangelabs.rcs.provider.messaging;
 
+import java.util.ArrayList;
+
 import com.orangelabs.rcs.utils.PhoneUtils;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.SQLException;
@@ -155,8 +160,20 @@ public class ChatProvider extends ContentProvider {
         }
     }
 
+    /**
+     * Write the changes queued by the rich messaging history, unless called
+     * from a transaction of this provider
+     */
+    private void flushHistory() {
+    	RichMessagingHistory history = RichMessagingHistory.getInstance();
+    	if ((history != null) && !openHelper.getWritableDatabase().inTransaction()) {
+    		history.flush();
+    	}
+    }
+
     @Override
     public Cursor query(Uri uri, String[] projectionIn, String selection, String[] selectionArgs, String sort) {
+        flushHistory();
         SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
 
         // Generate the body of the query
@@ -199,6 +216,7 @@ public class ChatProvider extends ContentProvider {
 
     @Override
     public int update(Uri uri, ContentValues values, String where, String[] whereArgs) {
+        flushHistory();
         int count = 0;
         SQLiteDatabase db = openHelper.getWritableDatabase();
 
@@ -227,6 +245,7 @@ public class ChatProvider extends ContentProvider {
 
     @Override
     public Uri insert(Uri uri, ContentValues initialValues) {
+        flushHistory();
         SQLiteDatabase db = openHelper.getWritableDatabase();
         switch(uriMatcher.match(uri)) {
 	        case CHATS:
@@ -248,6 +267,7 @@ public class ChatProvider extends ContentProvider {
 
     @Override
     public int delete(Uri uri, String where, String[] whereArgs) {
+        flushHistory();
         SQLiteDatabase db = openHelper.getWritableDatabase();
         int count = 0;
         switch(uriMatcher.match(uri)) {
@@ -279,4 +299,19 @@ public class ChatProvider extends ContentProvider {
 		getContext().getContentResolver().notifyChange(uri, null);
         return count;    
     }
+
+    @Override
+    public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
+    		throws OperationApplicationException {
+        flushHistory();
+        SQLiteDatabase db = openHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+        	ContentProviderResult[] results = super.applyBatch(operations);
+        	db.setTransactionSuccessful();
+        	return results;
+        } finally {
+        	db.endTransaction();
+        }
+    }
 }
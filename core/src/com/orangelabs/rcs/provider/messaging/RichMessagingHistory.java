@@ -22,8 +22,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 
+import android.content.ContentProviderOperation;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
@@ -48,6 +53,15 @@ import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
  * Rich messaging history for chats and file transfers.
+ * <br>The chat messages and their status are written behind: the changes
+ * are queued in a journal which is written in one transaction after a short
+ * delay, or as soon as enough changes are queued. The file transfer progress
+ * is also written behind, only the last progress of each transfer being
+ * kept. The chat provider writes the pending changes before any query or
+ * write, so that the listeners notified of a change and the applications
+ * reading the provider see the change. The other changes are written right
+ * away, after the pending ones. The changes not yet written are lost if the
+ * process is killed.
  * 
  * @author Jean-Marc AUFFRET
  */
@@ -76,6 +90,68 @@ public class RichMessagingHistory {
 	 * File transfer database URI
 	 */
 	private Uri ftDatabaseUri = FileTransferData.CONTENT_URI;
+
+	/**
+	 * Delay before writing the queued changes (in milliseconds)
+	 */
+	private static final long FLUSH_DELAY = 200;
+
+	/**
+	 * Number of queued message changes from which they are written right away
+	 */
+	private static final int FLUSH_BATCH_SIZE = 100;
+
+	/**
+	 * Queued change of the message table
+	 */
+	private static class MessageChange {
+		/**
+		 * Values
+		 */
+		ContentValues values;
+
+		/**
+		 * Selection of the rows to be updated, null for an insert
+		 */
+		String selection;
+
+		/**
+		 * Selection arguments
+		 */
+		String[] selectionArgs;
+	}
+
+	/**
+	 * Message changes not yet written, in order
+	 */
+	private ArrayList<MessageChange> queuedMessages = new ArrayList<MessageChange>();
+
+	/**
+	 * File transfer progress not yet written, indexed by session ID
+	 */
+	private LinkedHashMap<String, ContentValues> queuedProgress = new LinkedHashMap<String, ContentValues>();
+
+	/**
+	 * Lock held while writing the queued changes, so that a change written
+	 * after a flush is written after the queued ones
+	 */
+	private Object flushLock = new Object();
+
+	/**
+	 * Is a flush in progress, the chat provider flushing again when the
+	 * flush writes to it
+	 */
+	private boolean flushing = false;
+
+	/**
+	 * Flush timer
+	 */
+	private Timer flushTimer = null;
+
+	/**
+	 * Flush task, null if no flush is scheduled
+	 */
+	private TimerTask flushTask = null;
 	
 	/**
 	 * The logger
@@ -113,6 +189,217 @@ public class RichMessagingHistory {
         this.cr = ctx.getContentResolver();
 	}
 
+	/**
+	 * Queue the insert of a message
+	 * 
+	 * @param values Values
+	 */
+	private void insertMessage(ContentValues values) {
+		queueMessage(values, null, null);
+	}
+
+	/**
+	 * Queue the update of messages
+	 * 
+	 * @param values Values
+	 * @param selection Selection
+	 * @param selectionArgs Selection arguments
+	 */
+	private void updateMessage(ContentValues values, String selection, String[] selectionArgs) {
+		queueMessage(values, selection, selectionArgs);
+	}
+
+	/**
+	 * Queue a message change and schedule the write of the queued changes
+	 * 
+	 * @param values Values
+	 * @param selection Selection, null for an insert
+	 * @param selectionArgs Selection arguments
+	 */
+	private synchronized void queueMessage(ContentValues values, String selection, String[] selectionArgs) {
+		MessageChange change = new MessageChange();
+		change.values = values;
+		change.selection = selection;
+		change.selectionArgs = selectionArgs;
+		queuedMessages.add(change);
+		scheduleFlush(queuedMessages.size() >= FLUSH_BATCH_SIZE);
+	}
+
+	/**
+	 * Is the insert of a message queued
+	 * 
+	 * @param chatId Chat ID
+	 * @param msgId Message ID
+	 * @return Boolean
+	 */
+	private synchronized boolean isMessageQueued(String chatId, String msgId) {
+		for (int i=0; i < queuedMessages.size(); i++) {
+			MessageChange change = queuedMessages.get(i);
+			if ((change.selection == null) &&
+					msgId.equals(change.values.getAsString(MessageData.KEY_MSG_ID)) &&
+					chatId.equals(change.values.getAsString(MessageData.KEY_CHAT_ID))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Queue the progress of a file transfer, replacing the progress already
+	 * queued for the same transfer
+	 * 
+	 * @param sessionId Session ID
+	 * @param values Values
+	 */
+	private synchronized void queueProgress(String sessionId, ContentValues values) {
+		queuedProgress.put(sessionId, values);
+		scheduleFlush(false);
+	}
+
+	/**
+	 * Schedule the write of the queued changes
+	 * 
+	 * @param now Write right away
+	 */
+	private synchronized void scheduleFlush(boolean now) {
+		if (flushTask != null) {
+			if (!now) {
+				// Already scheduled
+				return;
+			}
+			flushTask.cancel();
+		}
+		if (flushTimer == null) {
+			flushTimer = new Timer("MessagingFlush", true);
+		}
+		flushTask = new TimerTask() {
+			public void run() {
+				flush();
+			}
+		};
+		flushTimer.schedule(flushTask, now ? 0 : FLUSH_DELAY);
+	}
+
+	/**
+	 * Write the queued changes: the message changes in one transaction, then
+	 * the file transfer progress in one transaction
+	 */
+	public void flush() {
+		synchronized(flushLock) {
+			if (flushing) {
+				// Called back by the provider written by this flush
+				return;
+			}
+			ArrayList<MessageChange> messages;
+			LinkedHashMap<String, ContentValues> progress;
+			synchronized(this) {
+				if (flushTask != null) {
+					flushTask.cancel();
+					flushTask = null;
+				}
+				if (queuedMessages.isEmpty() && queuedProgress.isEmpty()) {
+					return;
+				}
+				messages = queuedMessages;
+				queuedMessages = new ArrayList<MessageChange>();
+				progress = queuedProgress;
+				queuedProgress = new LinkedHashMap<String, ContentValues>();
+			}
+			flushing = true;
+			try {
+				if (!messages.isEmpty()) {
+					writeMessages(messages);
+				}
+				if (!progress.isEmpty()) {
+					writeProgress(progress);
+				}
+			} finally {
+				flushing = false;
+			}
+		}
+	}
+
+	/**
+	 * Write message changes in one transaction. If the transaction fails,
+	 * the changes are written one by one so that a failed change is the only
+	 * one lost.
+	 * 
+	 * @param messages Message changes
+	 */
+	private void writeMessages(ArrayList<MessageChange> messages) {
+		ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>(messages.size());
+		for (int i=0; i < messages.size(); i++) {
+			MessageChange change = messages.get(i);
+			if (change.selection == null) {
+				ops.add(ContentProviderOperation.newInsert(msgDatabaseUri)
+						.withValues(change.values)
+						.build());
+			} else {
+				ops.add(ContentProviderOperation.newUpdate(msgDatabaseUri)
+						.withValues(change.values)
+						.withSelection(change.selection, change.selectionArgs)
+						.build());
+			}
+		}
+		try {
+			cr.applyBatch(msgDatabaseUri.getAuthority(), ops);
+			return;
+		} catch (Exception e) {
+			if (logger.isActivated()) {
+				logger.error("Could not write the chat messages", e);
+			}
+		}
+		for (int i=0; i < messages.size(); i++) {
+			MessageChange change = messages.get(i);
+			try {
+				if (change.selection == null) {
+					cr.insert(msgDatabaseUri, change.values);
+				} else {
+					cr.update(msgDatabaseUri, change.values, change.selection, change.selectionArgs);
+				}
+			} catch (Exception e) {
+				if (logger.isActivated()) {
+					logger.error("Could not write the chat message", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write file transfer progress in one transaction
+	 * 
+	 * @param progress Progress indexed by session ID
+	 */
+	private void writeProgress(LinkedHashMap<String, ContentValues> progress) {
+		ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>(progress.size());
+		for (Map.Entry<String, ContentValues> entry : progress.entrySet()) {
+			ops.add(ContentProviderOperation.newUpdate(ftDatabaseUri)
+					.withValues(entry.getValue())
+					.withSelection(FileTransferData.KEY_SESSION_ID + " = '" + entry.getKey() + "'", null)
+					.build());
+		}
+		try {
+			cr.applyBatch(ftDatabaseUri.getAuthority(), ops);
+			return;
+		} catch (Exception e) {
+			if (logger.isActivated()) {
+				logger.error("Could not write the file transfer progress", e);
+			}
+		}
+
+		// Write the progress one by one, so that a failed update is the only one lost
+		for (Map.Entry<String, ContentValues> entry : progress.entrySet()) {
+			try {
+				cr.update(ftDatabaseUri, entry.getValue(), FileTransferData.KEY_SESSION_ID + " = '" + entry.getKey() + "'", null);
+			} catch (Exception e) {
+				if (logger.isActivated()) {
+					logger.error("Could not write the file transfer progress", e);
+				}
+			}
+		}
+	}
+
+
 	/*--------------------- Group chat methods -----------------------*/
 
 	/**
@@ -257,6 +544,7 @@ public class RichMessagingHistory {
 		if (logger.isActivated()) {
 			logger.debug("Get connected participants for " + chatId);
 		}
+		flush();
 		List<String> result = new ArrayList<String>();
      	Cursor cursor = cr.query(msgDatabaseUri, 
     			new String[] {
@@ -357,7 +645,7 @@ public class RichMessagingHistory {
 			values.put(MessageData.KEY_TIMESTAMP_DISPLAYED, 0);		
 			values.put(MessageData.KEY_STATUS, ChatLog.Message.Status.Content.SENT);
 		}
-		cr.insert(msgDatabaseUri, values);
+		insertMessage(values);
 	}
 	
 	/**
@@ -420,7 +708,7 @@ public class RichMessagingHistory {
 			values.put(MessageData.KEY_TIMESTAMP_DISPLAYED, 0);		
 			values.put(MessageData.KEY_STATUS, ChatLog.Message.Status.Content.SENT);
 		}
-		cr.insert(msgDatabaseUri, values);
+		insertMessage(values);
 	}
 	
 	/**
@@ -456,7 +744,7 @@ public class RichMessagingHistory {
 		values.put(MessageData.KEY_TIMESTAMP_DELIVERED, 0);
 		values.put(MessageData.KEY_TIMESTAMP_DISPLAYED, 0);
 		values.put(MessageData.KEY_STATUS, ChatLog.Message.Status.Content.SENT);
-		cr.insert(msgDatabaseUri, values);
+		insertMessage(values);
 	}
 	
 	/**
@@ -477,7 +765,7 @@ public class RichMessagingHistory {
 		values.put(MessageData.KEY_STATUS, status);
 		values.put(MessageData.KEY_DIRECTION, ChatLog.Message.Direction.IRRELEVANT);
 		values.put(ChatData.KEY_TIMESTAMP, Calendar.getInstance().getTimeInMillis());
-		cr.insert(msgDatabaseUri, values);
+		insertMessage(values);
 	}
 
 	/**
@@ -500,10 +788,7 @@ public class RichMessagingHistory {
 			// Displayed
 			values.put(MessageData.KEY_TIMESTAMP_DISPLAYED, Calendar.getInstance().getTimeInMillis());
 		}
-		cr.update(msgDatabaseUri, 
-				values, 
-				MessageData.KEY_MSG_ID + " = '" + msgId + "'", 
-				null);
+		updateMessage(values, MessageData.KEY_MSG_ID + " = '" + msgId + "'", null);
 	}
 	
 	/**
@@ -537,16 +822,22 @@ public class RichMessagingHistory {
      * @return true if new message
      */
 	public boolean isNewMessage(String chatId, String msgId) {
-		Cursor cursor = null;
-		try {
-			cursor = cr.query(msgDatabaseUri, new String[] { MessageData.KEY_MSG_ID }, "(" + MessageData.KEY_CHAT_ID + " = '"
-					+ chatId + "') AND (" + MessageData.KEY_MSG_ID + " = '" + msgId + "')", null, null);
-			return cursor.getCount() == 0;
-		} catch (Exception e) {
-			return false;
-		} finally {
-			if (cursor != null)
-				cursor.close();
+		synchronized(flushLock) {
+			// No write in progress: the message is either queued or written
+			if (isMessageQueued(chatId, msgId)) {
+				return false;
+			}
+			Cursor cursor = null;
+			try {
+				cursor = cr.query(msgDatabaseUri, new String[] { MessageData.KEY_MSG_ID }, "(" + MessageData.KEY_CHAT_ID + " = '"
+						+ chatId + "') AND (" + MessageData.KEY_MSG_ID + " = '" + msgId + "')", null, null);
+				return cursor.getCount() == 0;
+			} catch (Exception e) {
+				return false;
+			} finally {
+				if (cursor != null)
+					cursor.close();
+			}
 		}
 	}
 	
@@ -567,7 +858,7 @@ public class RichMessagingHistory {
 		values.put(MessageData.KEY_FT_ID, ftID);
 		String selection = MessageData.KEY_MSG_ID + " = ? AND " + MessageData.KEY_TYPE + " = ?";
 		String[] selectionArgs = { msgId, "" + ChatLog.Message.Type.FILE_TRANSFER };
-		cr.update(msgDatabaseUri, values, selection, selectionArgs);
+		updateMessage(values, selection, selectionArgs);
 	}
 	
 	/*--------------------- File transfer methods ----------------------*/
@@ -671,7 +962,10 @@ public class RichMessagingHistory {
 			// Displayed
 			values.put(FileTransferData.KEY_TIMESTAMP_DISPLAYED, Calendar.getInstance().getTimeInMillis());
 		}
-		cr.update(ftDatabaseUri, values, FileTransferData.KEY_SESSION_ID + " = '" + sessionId + "'", null);
+		synchronized(flushLock) {
+			flush();
+			cr.update(ftDatabaseUri, values, FileTransferData.KEY_SESSION_ID + " = '" + sessionId + "'", null);
+		}
 	}
 	
 	/**
@@ -686,7 +980,7 @@ public class RichMessagingHistory {
 		values.put(FileTransferData.KEY_SIZE, size);
 		values.put(FileTransferData.KEY_TOTAL_SIZE, totalSize);
 		values.put(FileTransferData.KEY_STATUS, FileTransfer.State.STARTED);
-		cr.update(ftDatabaseUri, values, FileTransferData.KEY_SESSION_ID + " = '" + sessionId + "'", null);
+		queueProgress(sessionId, values);
 	}
 
 	/**
@@ -702,7 +996,10 @@ public class RichMessagingHistory {
 		ContentValues values = new ContentValues();
 		values.put(FileTransferData.KEY_NAME, url);
 		values.put(FileTransferData.KEY_STATUS, FileTransfer.State.TRANSFERRED);
-		cr.update(ftDatabaseUri, values, FileTransferData.KEY_SESSION_ID + " = '" + sessionId + "'", null);
+		synchronized(flushLock) {
+			flush();
+			cr.update(ftDatabaseUri, values, FileTransferData.KEY_SESSION_ID + " = '" + sessionId + "'", null);
+		}
 	}
 	
     /**
@@ -715,6 +1012,7 @@ public class RichMessagingHistory {
 		if (logger.isActivated()) {
 			logger.debug("getFileTransferId (msgId=" + msgId + ")");
 		}
+		flush();
 		Cursor cursor = null;
 		try {
 			cursor = cr.query(msgDatabaseUri, new String[] { MessageData.KEY_CHAT_ID }, "(" + MessageData.KEY_MSG_ID
@@ -745,7 +1043,10 @@ public class RichMessagingHistory {
 		ContentValues values = new ContentValues();
 		values.put(FileTransferData.KEY_CHAT_ID, chatId);
 		values.put(FileTransferData.KEY_MSG_ID , msgId);
-		cr.update(ftDatabaseUri, values, FileTransferData.KEY_SESSION_ID + " = " + sessionId, null);
+		synchronized(flushLock) {
+			flush();
+			cr.update(ftDatabaseUri, values, FileTransferData.KEY_SESSION_ID + " = " + sessionId, null);
+		}
 	}
     
     /**
@@ -895,6 +1196,7 @@ public class RichMessagingHistory {
 				+ MessageData.KEY_TYPE + " = ? AND "//
 				+ MessageData.KEY_CONTACT + " = ? ";
 		String[] selectionArgs = { chatId, "" + ChatLog.Message.Type.SYSTEM, participant };
+		flush();
 		Cursor cursor = null;
 		try {
 			cursor = cr.query(msgDatabaseUri, new String[] { MessageData.KEY_STATUS }, selection, selectionArgs,
@@ -23,10 +23,19 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Environment;
@@ -56,6 +65,48 @@ public class RcsSettings {
 	 */
 	private Uri databaseUri = RcsSettingsData.CONTENT_URI;
 
+	/**
+	 * Query parameter of the URI identifying the writer of a change
+	 */
+	private static final String WRITER_PARAMETER = "writer";
+
+	/**
+	 * Writer identifier of this instance
+	 */
+	private String writerId = Long.toHexString(new Random().nextLong());
+
+	/**
+	 * Database URI of the writes of this instance, notified back as is
+	 */
+	private Uri writeUri = databaseUri.buildUpon().appendQueryParameter(WRITER_PARAMETER, writerId).build();
+
+	/**
+	 * Snapshot of all the parameters, null when it has to be reloaded
+	 */
+	private volatile Map<String, String> cache = null;
+
+	/**
+	 * Number of loads of the snapshot
+	 */
+	private int loadCount = 0;
+
+	/**
+	 * Observer invalidating the snapshot when the provider is changed by
+	 * another writer
+	 */
+	private ContentObserver observer = new ContentObserver(null) {
+		@Override
+		public void onChange(boolean selfChange) {
+			// Changed URI not given before API level 16
+			onProviderChange(null);
+		}
+
+		@Override
+		public void onChange(boolean selfChange, Uri uri) {
+			onProviderChange(uri);
+		}
+	};
+
     /**
      * Create instance
      *
@@ -85,6 +136,56 @@ public class RcsSettings {
 		super();
 
         this.cr = ctx.getContentResolver();
+        this.cr.registerContentObserver(databaseUri, true, observer);
+	}
+
+	/**
+	 * Load all the parameters from the provider
+	 *
+	 * @return Immutable map of parameters
+	 */
+	private synchronized Map<String, String> loadCache() {
+		Map<String, String> result = cache;
+		if (result != null) {
+			return result;
+		}
+
+		HashMap<String, String> parameters = new HashMap<String, String>();
+		Cursor c = cr.query(databaseUri, new String[] { RcsSettingsData.KEY_KEY, RcsSettingsData.KEY_VALUE }, null, null, null);
+		if (c != null) {
+			while (c.moveToNext()) {
+				parameters.put(c.getString(0), c.getString(1));
+			}
+			c.close();
+		}
+		result = Collections.unmodifiableMap(parameters);
+		cache = result;
+		loadCount++;
+		return result;
+	}
+
+	/**
+	 * Returns the number of loads of the snapshot
+	 *
+	 * @return Number of loads
+	 */
+	synchronized int getLoadCount() {
+		return loadCount;
+	}
+
+	/**
+	 * Provider change notified: the snapshot is invalidated, unless the change
+	 * comes from a write of this instance, already applied to the snapshot
+	 *
+	 * @param uri Changed URI or null if unknown
+	 */
+	private synchronized void onProviderChange(Uri uri) {
+		if ((uri != null) && writerId.equals(uri.getQueryParameter(WRITER_PARAMETER))) {
+			return;
+		}
+
+		// Reloaded on next read
+		cache = null;
 	}
 
 	/**
@@ -98,15 +199,11 @@ public class RcsSettings {
 			return null;
 		}
 
-		String result = null;
-        Cursor c = cr.query(databaseUri, null, RcsSettingsData.KEY_KEY + "='" + key + "'", null, null);
-        if (c != null) {
-        	if ((c.getCount() > 0) && c.moveToFirst()) {
-	        	result = c.getString(2);
-        	}
-	        c.close();
-        }
-        return result;
+		Map<String, String> parameters = cache;
+		if (parameters == null) {
+			parameters = loadCache();
+		}
+		return parameters.get(key);
 	}
 
 	/**
@@ -123,7 +220,85 @@ public class RcsSettings {
         ContentValues values = new ContentValues();
         values.put(RcsSettingsData.KEY_VALUE, value);
         String where = RcsSettingsData.KEY_KEY + "='" + key + "'";
-        cr.update(databaseUri, values, where, null);
+        synchronized(this) {
+        	if (cr.update(writeUri, values, where, null) > 0) {
+        		updateCache(key, value);
+        	}
+        }
+	}
+
+	/**
+	 * Write several parameters in one batch, with a single change notification.
+	 * The parameters whose value is unchanged are not written.
+	 *
+	 * @param parameters Values indexed by key
+	 * @return Number of parameters written
+	 */
+	public int writeParameters(Map<String, String> parameters) {
+		ArrayList<String> keys = new ArrayList<String>();
+		ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
+		for (Iterator<Map.Entry<String, String>> it = parameters.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, String> entry = it.next();
+			String key = entry.getKey();
+			String value = entry.getValue();
+			if ((key == null) || (value == null) || value.equals(readParameter(key))) {
+				continue;
+			}
+			keys.add(key);
+			ops.add(ContentProviderOperation.newUpdate(writeUri)
+					.withValue(RcsSettingsData.KEY_VALUE, value)
+					.withSelection(RcsSettingsData.KEY_KEY + "='" + key + "'", null)
+					.build());
+		}
+		if (ops.isEmpty()) {
+			return 0;
+		}
+
+		synchronized(this) {
+			try {
+				ContentProviderResult[] results = cr.applyBatch(databaseUri.getAuthority(), ops);
+				HashMap<String, String> updated = new HashMap<String, String>();
+				for (int i = 0; i < results.length; i++) {
+					if ((results[i].count != null) && (results[i].count > 0)) {
+						updated.put(keys.get(i), parameters.get(keys.get(i)));
+					}
+				}
+				updateCache(updated);
+			} catch (Exception e) {
+				// Not applied: write the parameters one by one
+				for (int i = 0; i < keys.size(); i++) {
+					writeParameter(keys.get(i), parameters.get(keys.get(i)));
+				}
+			}
+		}
+		return ops.size();
+	}
+
+	/**
+	 * Update a parameter in the snapshot of parameters
+	 *
+	 * @param key Key
+	 * @param value Value
+	 */
+	private synchronized void updateCache(String key, String value) {
+		if (cache != null) {
+			HashMap<String, String> parameters = new HashMap<String, String>(cache);
+			parameters.put(key, value);
+			cache = Collections.unmodifiableMap(parameters);
+		}
+	}
+
+	/**
+	 * Update several parameters in the snapshot of parameters
+	 *
+	 * @param values Values indexed by key
+	 */
+	private synchronized void updateCache(Map<String, String> values) {
+		if ((cache != null) && !values.isEmpty()) {
+			HashMap<String, String> parameters = new HashMap<String, String>(cache);
+			parameters.putAll(values);
+			cache = Collections.unmodifiableMap(parameters);
+		}
 	}
 
 	/**
@@ -140,7 +315,10 @@ public class RcsSettings {
 		ContentValues values = new ContentValues();
         values.put(RcsSettingsData.KEY_KEY, key);
         values.put(RcsSettingsData.KEY_VALUE, value);
-        cr.insert(databaseUri, values);
+        synchronized(this) {
+        	cr.insert(databaseUri, values);
+        	updateCache(key, value);
+        }
 	}
 
 	/**
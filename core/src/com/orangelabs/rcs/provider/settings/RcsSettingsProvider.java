@@ -23,8 +23,11 @@ import java.util.ArrayList;
 import javax2.sip.ListeningPoint;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
@@ -64,6 +67,12 @@ public class RcsSettingsProvider extends ContentProvider {
      * Database helper class
      */
     private SQLiteOpenHelper openHelper;
+
+    /**
+     * Set while the current thread applies a batch, the change is then
+     * notified once at the end of the batch
+     */
+    private ThreadLocal<Boolean> batchInProgress = new ThreadLocal<Boolean>();
     
     /**
      * Database name
@@ -366,10 +375,39 @@ public class RcsSettingsProvider extends ContentProvider {
             default:
                 throw new UnsupportedOperationException("Cannot update URI " + uri);
         }
-        getContext().getContentResolver().notifyChange(uri, null);
+        if (batchInProgress.get() == null) {
+        	getContext().getContentResolver().notifyChange(uri, null);
+        }
         return count;
     }
 
+    @Override
+    public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
+    		throws OperationApplicationException {
+        SQLiteDatabase db = openHelper.getWritableDatabase();
+        ContentProviderResult[] results;
+        batchInProgress.set(Boolean.TRUE);
+        db.beginTransaction();
+        try {
+        	results = super.applyBatch(operations);
+        	db.setTransactionSuccessful();
+        } finally {
+        	db.endTransaction();
+        	batchInProgress.remove();
+        }
+
+        // The URI of the operations identifies their writer, if they have one
+        Uri uri = operations.isEmpty() ? RcsSettingsData.CONTENT_URI : operations.get(0).getUri();
+        for (int i = 1; i < operations.size(); i++) {
+        	if (!uri.equals(operations.get(i).getUri())) {
+        		uri = RcsSettingsData.CONTENT_URI;
+        		break;
+        	}
+        }
+        getContext().getContentResolver().notifyChange(uri, null);
+        return results;
+    }
+
     @Override
     public Uri insert(Uri uri, ContentValues initialValues) {
         throw new UnsupportedOperationException("Cannot insert URI " + uri);
@@ -18,25 +18,30 @@
 
 package com.orangelabs.rcs.provisioning;
 
-import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 import javax2.sip.ListeningPoint;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
 
 import com.orangelabs.rcs.provider.settings.RcsSettings;
 import com.orangelabs.rcs.provider.settings.RcsSettingsData;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
- * Provisioning parser
+ * Provisioning parser. The document is streamed into a light tree of its
+ * elements, and the parameters read are staged then applied to the RCS
+ * settings in one batch at the end of the parsing.
  *
  * @author jexa7410
  */
-public class ProvisioningParser {
+public class ProvisioningParser extends DefaultHandler {
 	/**
 	 * Parameter type text
 	 */
@@ -57,6 +62,21 @@ public class ProvisioningParser {
      */
     private String content;
 
+    /**
+     * Root element of the document
+     */
+    private Node rootnode = null;
+
+    /**
+     * Element being parsed
+     */
+    private Node currentnode = null;
+
+    /**
+     * Parameters to be written, indexed by key
+     */
+    private Map<String, String> parameters = new LinkedHashMap<String, String>();
+
     /**
      * The logger
      */
@@ -94,28 +114,39 @@ public class ProvisioningParser {
 	 *         </p>
 	 */
 	public boolean parse(int gsmaRelease) {
+		return parse(gsmaRelease, false);
+	}
+
+	/**
+	 * Parse the provisioning document
+	 * 
+	 * @param gsmaRelease
+	 *            The GSMA release (Albatros, Blackbird, Crane...) before parsing
+	 * @param skipSameVersion
+	 *            Do not apply the parameters if the document has the version already provisioned
+	 * 
+	 * @return Boolean result
+	 * 
+	 *         <p>
+	 *         <b>Be Careful:</b><br />
+	 *         GSMA release is set to blackbird if SERVICES node is present, otherwise release is unchanged
+	 *         </p>
+	 */
+	public boolean parse(int gsmaRelease, boolean skipSameVersion) {
         try {
             if (logger.isActivated()) {
                 logger.debug("Start the parsing of content");
             }
-            ByteArrayInputStream mInputStream = new ByteArrayInputStream(content.getBytes());
-            DocumentBuilderFactory dfactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dbuilder = dfactory.newDocumentBuilder();
-            Document doc = dbuilder.parse(mInputStream);
-            mInputStream.close();
-            mInputStream = null;
-            if (doc == null) {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            SAXParser parser = factory.newSAXParser();
+            parser.parse(new InputSource(new StringReader(content)), this);
+            if (rootnode == null) {
                 if (logger.isActivated()) {
                     logger.debug("The document is null");
                 }
                 return false;
             }
 
-            if (logger.isActivated()) {
-                logger.debug("Parsed Doc ="+doc);
-            }
-            
-            Node rootnode = doc.getDocumentElement();
             Node childnode = rootnode.getFirstChild();
             if (childnode == null) {
                 if (logger.isActivated()) {
@@ -127,54 +158,54 @@ public class ProvisioningParser {
             int nodeNumber = 0;
             do {
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        Node typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        String typenode = childnode.getAttribute("type");
                         if (typenode != null) {
                             if (logger.isActivated()) {
                                 logger.debug("Node " + childnode.getNodeName() + " with type "
-                                        + typenode.getNodeValue());
+                                        + typenode);
                             }
                             nodeNumber++;
-                            if (typenode.getNodeValue().equalsIgnoreCase("VERS")) {
+                            if (typenode.equalsIgnoreCase("VERS")) {
                                 parseVersion(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("TOKEN")) {
+                            if (typenode.equalsIgnoreCase("TOKEN")) {
                                 parseToken(childnode);
                             } else
-                        	if (typenode.getNodeValue().equalsIgnoreCase("MSG")) {
+                        	if (typenode.equalsIgnoreCase("MSG")) {
                                 parseTermsMessage(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("APPLICATION")) {
+                            if (typenode.equalsIgnoreCase("APPLICATION")) {
                                 parseApplication(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("IMS")) {
+                            if (typenode.equalsIgnoreCase("IMS")) {
                                 parseIMS(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("PRESENCE")) {
+                            if (typenode.equalsIgnoreCase("PRESENCE")) {
                                 parsePresence(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("XDMS")) {
+                            if (typenode.equalsIgnoreCase("XDMS")) {
                                 parseXDMS(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("IM")) {
+                            if (typenode.equalsIgnoreCase("IM")) {
                                 parseIM(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("CAPDISCOVERY")) {
+                            if (typenode.equalsIgnoreCase("CAPDISCOVERY")) {
                                 parseCapabilityDiscovery(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("APN")) {
+                            if (typenode.equalsIgnoreCase("APN")) {
                                 parseAPN(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("OTHER")) {
+                            if (typenode.equalsIgnoreCase("OTHER")) {
                                 parseOther(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("SERVICES")) {
+                            if (typenode.equalsIgnoreCase("SERVICES")) {
                                 parseServices(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("SUPL")) {
+                            if (typenode.equalsIgnoreCase("SUPL")) {
                                 parseSupl(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("SERVICEPROVIDEREXT")) {
+                            if (typenode.equalsIgnoreCase("SERVICEPROVIDEREXT")) {
                                 parseServiceProviderExt(childnode);
                             }
                         }
@@ -185,7 +216,22 @@ public class ProvisioningParser {
 				// We received a single node (the version one) !
 				// This is the case if the version number is negative or in order to extend the validity of the provisioning.
 				// In that case we restore the relevant GSMA release saved before parsing.
-				RcsSettings.getInstance().setGsmaRelease(gsmaRelease);
+				writeParameter(RcsSettingsData.KEY_GSMA_RELEASE, "" + gsmaRelease);
+            }
+
+            if (skipSameVersion && isVersionProvisioned()) {
+                if (logger.isActivated()) {
+                    logger.debug("Provisioning version " + provisioningInfo.getVersion() + " already applied");
+                }
+                // Restore the GSMA release saved before parsing
+                RcsSettings.getInstance().setGsmaRelease(gsmaRelease);
+                return true;
+            }
+
+            // Apply the parameters
+            int count = RcsSettings.getInstance().writeParameters(parameters);
+            if (logger.isActivated()) {
+                logger.debug(count + " provisioning parameters changed on " + parameters.size());
             }
             return true;
         } catch (Exception e) {
@@ -393,7 +439,7 @@ public class ProvisioningParser {
         String iconMaxSize = null;
         String noteMaxSize = null;
         String publishTimer = null;
-        Node typenode = null;
+        String typenode = null;
         if (node == null) {
             return;
         }
@@ -402,16 +448,16 @@ public class ProvisioningParser {
         if (childnode != null) {
             do {
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        typenode = childnode.getAttribute("type");
                         if (typenode != null) {
-                            if (typenode.getNodeValue().equalsIgnoreCase("FAVLINK")) {
+                            if (typenode.equalsIgnoreCase("FAVLINK")) {
                                 parseFavoriteLink(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("SERVCAPWATCH")) {
+                            if (typenode.equalsIgnoreCase("SERVCAPWATCH")) {
                                 parsePresenceWatcher(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("ServCapPresentity")) {
+                            if (typenode.equalsIgnoreCase("ServCapPresentity")) {
                                 parsePresentityWatcher(childnode);
                             }
                         }
@@ -421,11 +467,11 @@ public class ProvisioningParser {
                 if (usePresence == null) {
                     if ((usePresence = getValueByParamName("usePresence", childnode, TYPE_INT)) != null) {
                         if (usePresence.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_SOCIAL_PRESENCE,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_SOCIAL_PRESENCE,
                                     RcsSettingsData.TRUE);
                         }
@@ -436,11 +482,11 @@ public class ProvisioningParser {
                 if (presencePrfl == null) {
                     if ((presencePrfl = getValueByParamName("presencePrfl", childnode, TYPE_INT)) != null) {
                         if (presencePrfl.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_PRESENCE_DISCOVERY,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_PRESENCE_DISCOVERY,
                                     RcsSettingsData.TRUE);
                         }
@@ -451,7 +497,7 @@ public class ProvisioningParser {
                 if (iconMaxSize == null) {
                     if ((iconMaxSize = getValueByParamName("IconMaxSize", childnode, TYPE_INT)) != null) {
         				int kb = Integer.parseInt(iconMaxSize) / 1024;
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_PHOTO_ICON_SIZE, ""+kb);
                         continue;
                     }
@@ -459,7 +505,7 @@ public class ProvisioningParser {
 
                 if (noteMaxSize == null) {
                     if ((noteMaxSize = getValueByParamName("NoteMaxSize", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_FREETXT_LENGTH, noteMaxSize);
                         continue;
                     }
@@ -467,7 +513,7 @@ public class ProvisioningParser {
 
                 if (publishTimer == null) {
                     if ((publishTimer = getValueByParamName("PublishTimer", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.PUBLISH_EXPIRE_PERIOD, publishTimer);
                         continue;
                     }
@@ -508,16 +554,16 @@ public class ProvisioningParser {
 			// Node "SERVICES" is mandatory in GSMA release Blackbird and not present in previous one Albatros.
 			// Only if the parsing result contains a SERVICE tree, Blackbird is assumed as release.
 			// This trick is used to detect the GSMA release as provisioned by the network.
-			RcsSettings.getInstance().setGsmaRelease(RcsSettingsData.VALUE_GSMA_REL_BLACKBIRD);
+			writeParameter(RcsSettingsData.KEY_GSMA_RELEASE, "" + RcsSettingsData.VALUE_GSMA_REL_BLACKBIRD);
             do {
 
                 if (chatAuth == null) {
                     if ((chatAuth = getValueByParamName("ChatAuth", childnode, TYPE_INT)) != null) {
                         if (chatAuth.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IM_SESSION, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IM_SESSION, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -527,10 +573,10 @@ public class ProvisioningParser {
             	 if (groupChatAuth == null) {
                      if ((groupChatAuth = getValueByParamName("groupChatAuth", childnode, TYPE_INT)) != null) {
                          if (groupChatAuth.equals("1")) {
-                             RcsSettings.getInstance().writeParameter(
+                             writeParameter(
                                      RcsSettingsData.CAPABILITY_IM_GROUP_SESSION, RcsSettingsData.TRUE);
                          } else {
-                             RcsSettings.getInstance().writeParameter(
+                             writeParameter(
                                      RcsSettingsData.CAPABILITY_IM_GROUP_SESSION, RcsSettingsData.FALSE);
                          }
                          continue;
@@ -540,10 +586,10 @@ public class ProvisioningParser {
                 if (ftAuth == null) {
                     if ((ftAuth = getValueByParamName("ftAuth", childnode, TYPE_INT)) != null) {
                         if (ftAuth.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_FILE_TRANSFER, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_FILE_TRANSFER, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -553,10 +599,10 @@ public class ProvisioningParser {
                 if (vsAuth == null) {
                     if ((vsAuth = getValueByParamName("vsAuth", childnode, TYPE_INT)) != null) {
                         if (vsAuth.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_VIDEO_SHARING, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_VIDEO_SHARING, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -566,10 +612,10 @@ public class ProvisioningParser {
                 if (isAuth == null) {
                     if ((isAuth = getValueByParamName("isAuth", childnode, TYPE_INT)) != null) {
                         if (isAuth.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IMAGE_SHARING, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_IMAGE_SHARING, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -579,10 +625,10 @@ public class ProvisioningParser {
                 if (geolocPushAuth == null) {
                     if ((geolocPushAuth = getValueByParamName("geolocPushAuth", childnode, TYPE_INT)) != null) {
                         if (geolocPushAuth.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_GEOLOCATION_PUSH, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_GEOLOCATION_PUSH, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -592,10 +638,10 @@ public class ProvisioningParser {
                 if (presencePrfl == null) {
                     if ((presencePrfl = getValueByParamName("presencePrfl", childnode, TYPE_INT)) != null) {
                         if (presencePrfl.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_SOCIAL_PRESENCE, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_SOCIAL_PRESENCE, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -606,10 +652,10 @@ public class ProvisioningParser {
                     if ((rcsIPVoiceCallAuth = getValueByParamName("rcsIPVoiceCallAuth", childnode, TYPE_INT)) != null) {
                     	int value =Integer.decode(rcsIPVoiceCallAuth);
                         if ((value % 16) == 0){
-                        	RcsSettings.getInstance().writeParameter(
+                        	writeParameter(
                                   RcsSettingsData.CAPABILITY_IP_VOICE_CALL, RcsSettingsData.FALSE);
                         } else {
-                        	RcsSettings.getInstance().writeParameter(
+                        	writeParameter(
                                     RcsSettingsData.CAPABILITY_IP_VOICE_CALL, RcsSettingsData.TRUE);
                         }
                         continue;
@@ -620,10 +666,10 @@ public class ProvisioningParser {
                     if ((rcsIPVideoCallAuth = getValueByParamName("rcsIPVideoCallAuth", childnode, TYPE_INT)) != null) {
                         int value =Integer.decode(rcsIPVoiceCallAuth);
                         if ((value % 16) == 0){
-                        	RcsSettings.getInstance().writeParameter(
+                        	writeParameter(
                                   RcsSettingsData.CAPABILITY_IP_VIDEO_CALL, RcsSettingsData.FALSE);
                         } else {
-                        	RcsSettings.getInstance().writeParameter(
+                        	writeParameter(
                                     RcsSettingsData.CAPABILITY_IP_VIDEO_CALL, RcsSettingsData.TRUE);
                         }
                         continue;
@@ -656,7 +702,7 @@ public class ProvisioningParser {
             do {
                 if (revokeTimer == null) {
                     if ((revokeTimer = getValueByParamName("RevokeTimer", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.REVOKE_TIMEOUT,
+                        writeParameter(RcsSettingsData.REVOKE_TIMEOUT,
                                 revokeTimer);
                         continue;
                     }
@@ -664,7 +710,7 @@ public class ProvisioningParser {
 
                 if (xcapRootURI == null) {
                     if ((xcapRootURI = getValueByParamName("XCAPRootURI", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.XDM_SERVER, xcapRootURI);
+                        writeParameter(RcsSettingsData.XDM_SERVER, xcapRootURI);
                         continue;
                     }
                 }
@@ -672,7 +718,7 @@ public class ProvisioningParser {
                 if (xcapAuthenticationUsername == null) {
                     if ((xcapAuthenticationUsername = getValueByParamName(
                             "XCAPAuthenticationUserName", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.XDM_LOGIN,
                                 xcapAuthenticationUsername);
                         continue;
@@ -682,7 +728,7 @@ public class ProvisioningParser {
                 if (xcapAuthenticationSecret == null) {
                     if ((xcapAuthenticationSecret = getValueByParamName(
                             "XCAPAuthenticationSecret", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.XDM_PASSWORD,
                                 xcapAuthenticationSecret);
                         continue;
@@ -712,7 +758,7 @@ public class ProvisioningParser {
             do {
                 if (textMaxLength == null) {
                     if ((textMaxLength = getValueByParamName("TextMaxLength", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.MAX_GEOLOC_LABEL_LENGTH,
+                        writeParameter(RcsSettingsData.MAX_GEOLOC_LABEL_LENGTH,
                         		textMaxLength);
                         continue;
                     }
@@ -720,7 +766,7 @@ public class ProvisioningParser {
 
                 if (locInfoMaxValidTime == null) {
                     if ((locInfoMaxValidTime = getValueByParamName("LocInfoMaxValidTime", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.GEOLOC_EXPIRATION_TIME, locInfoMaxValidTime);
+                        writeParameter(RcsSettingsData.GEOLOC_EXPIRATION_TIME, locInfoMaxValidTime);
                         continue;
                     }
                 }
@@ -739,7 +785,7 @@ public class ProvisioningParser {
      * @param node Node
      */
     private void parseServiceProviderExt(Node node) {
-        Node typenode = null;
+        String typenode = null;
         if (node == null) {
             return;
         }
@@ -747,10 +793,10 @@ public class ProvisioningParser {
         if (childnode != null) {
             do {
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        typenode = childnode.getAttribute("type");
                         if (typenode != null) {
-                            if (typenode.getNodeValue().equalsIgnoreCase("joyn")) {
+                            if (typenode.equalsIgnoreCase("joyn")) {
                                 parseJoyn(childnode);
                             }
                         }
@@ -766,7 +812,7 @@ public class ProvisioningParser {
      * @param node Node
      */
     private void parseJoyn(Node node) {
-        Node typenode = null;
+        String typenode = null;
         if (node == null) {
             return;
         }
@@ -774,10 +820,10 @@ public class ProvisioningParser {
         if (childnode != null) {
             do {
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        typenode = childnode.getAttribute("type");
                         if (typenode != null) {
-                            if (typenode.getNodeValue().equalsIgnoreCase("UX")) {
+                            if (typenode.equalsIgnoreCase("UX")) {
                                 parseUx(childnode);
                             }
                         }
@@ -806,10 +852,10 @@ public class ProvisioningParser {
                 if (messagingUX == null) {
                     if ((messagingUX = getValueByParamName("messagingUX", childnode, TYPE_INT)) != null) {
                         if (messagingUX.equals("1")) {
-                        	RcsSettings.getInstance().writeParameter(
+                        	writeParameter(
                                 RcsSettingsData.CONVERGENT_MESSAGING_UX, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                         		RcsSettingsData.CONVERGENT_MESSAGING_UX, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -863,11 +909,11 @@ public class ProvisioningParser {
             	if (imCapAlwaysOn == null) {
                     if ((imCapAlwaysOn = getValueByParamName("imCapAlwaysON", childnode, TYPE_INT)) != null) {
                         if (imCapAlwaysOn.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.IM_CAPABILITY_ALWAYS_ON,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.IM_CAPABILITY_ALWAYS_ON,
                                     RcsSettingsData.TRUE);
                         }
@@ -878,11 +924,11 @@ public class ProvisioningParser {
             	if (ftCapAlwaysOn == null) {
                     if ((ftCapAlwaysOn = getValueByParamName("ftCapAlwaysON", childnode, TYPE_INT)) != null) {
                         if (ftCapAlwaysOn.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.FT_CAPABILITY_ALWAYS_ON,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.FT_CAPABILITY_ALWAYS_ON,
                                     RcsSettingsData.TRUE);
                         }
@@ -892,7 +938,7 @@ public class ProvisioningParser {
 
                 if (maxConcurrentSession == null) {
                     if ((maxConcurrentSession = getValueByParamName("MaxConcurrentSession", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_CHAT_SESSIONS,
                                 maxConcurrentSession);
                         continue;
@@ -902,11 +948,11 @@ public class ProvisioningParser {
                 if (groupChatSF == null) {
                     if ((groupChatSF = getValueByParamName("GroupChatFullStandFwd", childnode, TYPE_INT)) != null) {
                         if (groupChatSF.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_GROUP_CHAT_SF,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_GROUP_CHAT_SF,
                                     RcsSettingsData.TRUE);
                         }
@@ -917,11 +963,11 @@ public class ProvisioningParser {
                 if (imWarnSF == null) {
                     if ((imWarnSF = getValueByParamName("imWarnSF", childnode, TYPE_INT)) != null) {
                         if (imWarnSF.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.WARN_SF_SERVICE,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.WARN_SF_SERVICE,
                                     RcsSettingsData.TRUE);
                         }
@@ -932,11 +978,11 @@ public class ProvisioningParser {
                 if (autoAcceptFt == null) {
                     if ((autoAcceptFt = getValueByParamName("ftAutAccept", childnode, TYPE_INT)) != null) {
                         if (autoAcceptFt.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.AUTO_ACCEPT_FILE_TRANSFER,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.AUTO_ACCEPT_FILE_TRANSFER,
                                     RcsSettingsData.TRUE);
                         }
@@ -947,11 +993,11 @@ public class ProvisioningParser {
                 if (ftSF == null) {
                     if ((ftSF = getValueByParamName("ftStAndFwEnabled", childnode, TYPE_INT)) != null) {
                         if (ftSF.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_FILE_TRANSFER_SF,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_FILE_TRANSFER_SF,
                                     RcsSettingsData.TRUE);
                         }
@@ -961,35 +1007,35 @@ public class ProvisioningParser {
 
                 if (ftHttpCsUri == null) {
                     if ((ftHttpCsUri = getValueByParamName("ftHTTPCSURI", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.FT_HTTP_SERVER, ftHttpCsUri);
+                        writeParameter(RcsSettingsData.FT_HTTP_SERVER, ftHttpCsUri);
                         continue;
                     }
                 }
 
                 if (ftHttpCsUser == null) {
                     if ((ftHttpCsUser = getValueByParamName("ftHTTPCSUser", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.FT_HTTP_LOGIN, ftHttpCsUser);
+                        writeParameter(RcsSettingsData.FT_HTTP_LOGIN, ftHttpCsUser);
                         continue;
                     }
                 }
 
                 if (ftHttpCsPwd == null) {
                     if ((ftHttpCsPwd = getValueByParamName("ftHTTPCSPwd", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.FT_HTTP_PASSWORD, ftHttpCsPwd);
+                        writeParameter(RcsSettingsData.FT_HTTP_PASSWORD, ftHttpCsPwd);
                         continue;
                     }
                 }
 
                 if (ftDefaultMech == null) {
                     if ((ftDefaultMech = getValueByParamName("ftDefaultMech", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.FT_PROTOCOL, ftDefaultMech);
+                        writeParameter(RcsSettingsData.FT_PROTOCOL, ftDefaultMech);
                         continue;
                     }
                 }
 
                 if (imSessionStart == null) {
                     if ((imSessionStart = getValueByParamName("imSessionStart", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.IM_SESSION_START,
+                        writeParameter(RcsSettingsData.IM_SESSION_START,
                                 imSessionStart);
                         continue;
                     }
@@ -997,7 +1043,7 @@ public class ProvisioningParser {
 
                 if (ftWarnSize == null) {
                     if ((ftWarnSize = getValueByParamName("ftWarnSize", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.WARN_FILE_TRANSFER_SIZE, ftWarnSize);
                         continue;
                     }
@@ -1006,10 +1052,10 @@ public class ProvisioningParser {
                 if (chatAuth == null) {
                     if ((chatAuth = getValueByParamName("ChatAuth", childnode, TYPE_INT)) != null) {
                         if (chatAuth.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IM_SESSION, RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IM_SESSION, RcsSettingsData.TRUE);
                         }
                         continue;
@@ -1019,10 +1065,10 @@ public class ProvisioningParser {
                 if (smsFallBackAuth == null) {
                     if ((smsFallBackAuth = getValueByParamName("SmsFallBackAuth", childnode, TYPE_INT)) != null) {
                         if (smsFallBackAuth.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.SMS_FALLBACK_SERVICE, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.SMS_FALLBACK_SERVICE, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1032,11 +1078,11 @@ public class ProvisioningParser {
                 if (autoAcceptChat == null) {
                     if ((autoAcceptChat = getValueByParamName("AutAccept", childnode, TYPE_INT)) != null) {
                         if (autoAcceptChat.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.AUTO_ACCEPT_CHAT,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.AUTO_ACCEPT_CHAT,
                                     RcsSettingsData.TRUE);
                         }
@@ -1047,11 +1093,11 @@ public class ProvisioningParser {
                 if (autoAcceptGroupChat == null) {
                     if ((autoAcceptGroupChat = getValueByParamName("AutAcceptGroupChat", childnode, TYPE_INT)) != null) {
                         if (autoAcceptGroupChat.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.AUTO_ACCEPT_GROUP_CHAT,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.AUTO_ACCEPT_GROUP_CHAT,
                                     RcsSettingsData.TRUE);
                         }
@@ -1061,7 +1107,7 @@ public class ProvisioningParser {
 
                 if (maxSize1to1 == null) {
                     if ((maxSize1to1 = getValueByParamName("MaxSize1to1", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_CHAT_MSG_LENGTH, maxSize1to1);
                         continue;
                     }
@@ -1069,7 +1115,7 @@ public class ProvisioningParser {
 
                 if (maxSize1toM == null) {
                     if ((maxSize1toM = getValueByParamName("MaxSize1toM", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_GROUPCHAT_MSG_LENGTH, maxSize1toM);
                         continue;
                     }
@@ -1077,7 +1123,7 @@ public class ProvisioningParser {
 
                 if (timerIdle == null) {
                     if ((timerIdle = getValueByParamName("TimerIdle", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.CHAT_IDLE_DURATION, timerIdle);
                         continue;
                     }
@@ -1085,7 +1131,7 @@ public class ProvisioningParser {
 
                 if (maxSizeFileTransfer == null) {
                     if ((maxSizeFileTransfer = getValueByParamName("MaxSizeFileTr", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_FILE_TRANSFER_SIZE, maxSizeFileTransfer);
                         continue;
                     }
@@ -1094,10 +1140,10 @@ public class ProvisioningParser {
                 if (ftThumb == null) {
                     if ((ftThumb = getValueByParamName("ftThumb", childnode, TYPE_INT)) != null) {
                         if (ftThumb.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_FILE_TRANSFER_THUMBNAIL, RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_FILE_TRANSFER_THUMBNAIL, RcsSettingsData.TRUE);
                         }
                         continue;
@@ -1106,7 +1152,7 @@ public class ProvisioningParser {
                 
                 if (maxAdhocGroupSize == null) {
                     if ((maxAdhocGroupSize = getValueByParamName("max_adhoc_group_size", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_CHAT_PARTICIPANTS, maxAdhocGroupSize);
                         continue;
                     }
@@ -1114,7 +1160,7 @@ public class ProvisioningParser {
 
                 if (confFctyUri == null) {
                     if ((confFctyUri = getValueByParamName("conf-fcty-uri", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.IM_CONF_URI, formatSipUri(confFctyUri));
                         continue;
                     }
@@ -1146,7 +1192,7 @@ public class ProvisioningParser {
             do {
                 if (pollingPeriod == null) {
                     if ((pollingPeriod = getValueByParamName("pollingPeriod", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.CAPABILITY_POLLING_PERIOD, pollingPeriod);
                         continue;
                     }
@@ -1154,7 +1200,7 @@ public class ProvisioningParser {
 
                 if (capInfoExpiry == null) {
                     if ((capInfoExpiry = getValueByParamName("capInfoExpiry", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.CAPABILITY_EXPIRY_TIMEOUT, capInfoExpiry);
                         continue;
                     }
@@ -1163,11 +1209,11 @@ public class ProvisioningParser {
                 if (presenceDiscovery == null) {
                     if ((presenceDiscovery = getValueByParamName("presenceDisc", childnode, TYPE_INT)) != null) {
                         if (presenceDiscovery.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_PRESENCE_DISCOVERY,
                                     RcsSettingsData.FALSE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_PRESENCE_DISCOVERY,
                                     RcsSettingsData.TRUE);
                         }
@@ -1208,17 +1254,17 @@ public class ProvisioningParser {
                 if (psSignalling == null) {
                     if ((psSignalling = getValueByParamName("psSignalling", childnode, TYPE_TXT)) != null) {
                         if (psSignalling.equals("SIPoUDP")) {
-	                        RcsSettings.getInstance().writeParameter(
+	                        writeParameter(
 	                        		RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_MOBILE,
 	                                ListeningPoint.UDP);
                         } else
                         if (psSignalling.equals("SIPoTCP")) {
-	                        RcsSettings.getInstance().writeParameter(
+	                        writeParameter(
 	                        		RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_MOBILE,
 	                                ListeningPoint.TCP);
                         } else
                         if (psSignalling.equals("SIPoTLS")) {
-	                        RcsSettings.getInstance().writeParameter(
+	                        writeParameter(
 	                        		RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_MOBILE,
 	                                ListeningPoint.TLS);
                         }
@@ -1229,15 +1275,15 @@ public class ProvisioningParser {
                 if (wifiSignalling == null) {
                     if ((wifiSignalling = getValueByParamName("wifiSignalling", childnode, TYPE_TXT)) != null) {
                         if (wifiSignalling.equals("SIPoUDP")) {
-	                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_WIFI,
+	                        writeParameter(RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_WIFI,
 	                                ListeningPoint.UDP);
                         } else
                         if (wifiSignalling.equals("SIPoTCP")) {
-	                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_WIFI,
+	                        writeParameter(RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_WIFI,
 	                                ListeningPoint.TCP);
                         } else
                         if (wifiSignalling.equals("SIPoTLS")) {
-	                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_WIFI,
+	                        writeParameter(RcsSettingsData.SIP_DEFAULT_PROTOCOL_FOR_WIFI,
 	                                ListeningPoint.TLS);
                         }
                         continue;
@@ -1247,11 +1293,11 @@ public class ProvisioningParser {
                 if (wifiMedia == null) {
                     if ((wifiMedia = getValueByParamName("wifiMedia", childnode, TYPE_TXT)) != null) {
                         if (wifiMedia.equals("MSRP")) {
-	                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SECURE_MSRP_OVER_WIFI,
+	                        writeParameter(RcsSettingsData.SECURE_MSRP_OVER_WIFI,
 	                        		RcsSettingsData.FALSE);
                         } else
                         if (wifiMedia.equals("MSRPoTLS")) {
-	                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SECURE_MSRP_OVER_WIFI,
+	                        writeParameter(RcsSettingsData.SECURE_MSRP_OVER_WIFI,
 	                        		RcsSettingsData.TRUE);
                         }
                         continue;
@@ -1261,11 +1307,11 @@ public class ProvisioningParser {
                 if (wifiRtMedia == null) {
                     if ((wifiRtMedia = getValueByParamName("wifiRTMedia", childnode, TYPE_TXT)) != null) {
                         if (wifiMedia.equals("RTP")) {
-	                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SECURE_RTP_OVER_WIFI,
+	                        writeParameter(RcsSettingsData.SECURE_RTP_OVER_WIFI,
 	                        		RcsSettingsData.FALSE);
                         } else
                         if (wifiMedia.equals("SRTP")) {
-	                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SECURE_RTP_OVER_WIFI,
+	                        writeParameter(RcsSettingsData.SECURE_RTP_OVER_WIFI,
 	                        		RcsSettingsData.TRUE);
                         }
                         continue;
@@ -1293,7 +1339,7 @@ public class ProvisioningParser {
         String rcsIPVideoCallUpgradeOnCapError = null;
         String beIPVideoCallUpgradeAttemptEarly = null;
         
-        Node typenode = null;
+        String typenode = null;
         if (node == null) {
             return;
         }
@@ -1302,10 +1348,10 @@ public class ProvisioningParser {
         if (childnode != null) {
             do {	
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        typenode = childnode.getAttribute("type");
                         if (typenode != null) {
-                            if (typenode.getNodeValue().equalsIgnoreCase("transportProto")) {
+                            if (typenode.equalsIgnoreCase("transportProto")) {
                                 parseTransportProtocol(childnode);
                             }
                         }
@@ -1314,7 +1360,7 @@ public class ProvisioningParser {
 
                 if (endUserConfReqId == null) {
                     if ((endUserConfReqId = getValueByParamName("endUserConfReqId", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.ENDUSER_CONFIRMATION_URI, formatSipUri(endUserConfReqId));
                         continue;
                     }
@@ -1323,9 +1369,9 @@ public class ProvisioningParser {
                 if (deviceID == null) {
                     if ((deviceID = getValueByParamName("deviceID", childnode, TYPE_INT)) != null) {
                     	if (deviceID.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID, RcsSettingsData.TRUE);
+                            writeParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID, RcsSettingsData.TRUE);
                     	} else {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID, RcsSettingsData.FALSE);
+                            writeParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID, RcsSettingsData.FALSE);
                     	}
                         continue;
                     }
@@ -1334,9 +1380,9 @@ public class ProvisioningParser {
                 if (aaIPCallBreakOut == null) {
                     if ((aaIPCallBreakOut = getValueByParamName("IPCallBreakOut", childnode, TYPE_INT)) != null) {
                     	if (aaIPCallBreakOut.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_AA, RcsSettingsData.TRUE);
+                            writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_AA, RcsSettingsData.TRUE);
                     	} else {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_AA, RcsSettingsData.FALSE);
+                            writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_AA, RcsSettingsData.FALSE);
                     	}
                         continue;
                     }
@@ -1345,9 +1391,9 @@ public class ProvisioningParser {
                 if (csIPCallBreakOut == null) {
                     if ((csIPCallBreakOut = getValueByParamName("IPCallBreakOutCS", childnode, TYPE_INT)) != null) {
                     	if (csIPCallBreakOut.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_CS, RcsSettingsData.TRUE);
+                            writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_CS, RcsSettingsData.TRUE);
                     	} else {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_CS, RcsSettingsData.FALSE);
+                            writeParameter(RcsSettingsData.IPVOICECALL_BREAKOUT_CS, RcsSettingsData.FALSE);
                     	}
                         continue;
                     }
@@ -1356,9 +1402,9 @@ public class ProvisioningParser {
                 if (rcsIPVideoCallUpgradeFromCS == null) {
                 	if ((rcsIPVideoCallUpgradeFromCS = getValueByParamName("rcsIPVideoCallUpgradeFromCS", childnode, TYPE_INT)) != null) {
                     	if (rcsIPVideoCallUpgradeFromCS.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_FROM_CS, RcsSettingsData.TRUE);
+                            writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_FROM_CS, RcsSettingsData.TRUE);
                     	} else {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_FROM_CS, RcsSettingsData.FALSE);
+                            writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_FROM_CS, RcsSettingsData.FALSE);
                     	}
                         continue;
                     }
@@ -1367,9 +1413,9 @@ public class ProvisioningParser {
                 if (rcsIPVideoCallUpgradeOnCapError == null) {
                 	if ((rcsIPVideoCallUpgradeOnCapError = getValueByParamName("rcsIPVideoCallUpgradeOnCapError", childnode, TYPE_INT)) != null) {
                     	if (rcsIPVideoCallUpgradeOnCapError.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ON_CAPERROR, RcsSettingsData.TRUE);
+                            writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ON_CAPERROR, RcsSettingsData.TRUE);
                     	} else {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ON_CAPERROR, RcsSettingsData.FALSE);
+                            writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ON_CAPERROR, RcsSettingsData.FALSE);
                     	}
                         continue;
                     }
@@ -1378,9 +1424,9 @@ public class ProvisioningParser {
                 if (beIPVideoCallUpgradeAttemptEarly == null) {
                 	if ((beIPVideoCallUpgradeAttemptEarly = getValueByParamName("rcsIPVideoCallUpgradeAttemptEarly", childnode, TYPE_INT)) != null) {
                     	if (beIPVideoCallUpgradeAttemptEarly.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ATTEMPT_EARLY, RcsSettingsData.TRUE);
+                            writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ATTEMPT_EARLY, RcsSettingsData.TRUE);
                     	} else {
-                            RcsSettings.getInstance().writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ATTEMPT_EARLY, RcsSettingsData.FALSE);
+                            writeParameter(RcsSettingsData.IPVIDEOCALL_UPGRADE_ATTEMPT_EARLY, RcsSettingsData.FALSE);
                     	}
                         continue;
                     }
@@ -1408,7 +1454,7 @@ public class ProvisioningParser {
             do {
                 if (conRef == null) {
                     if ((conRef = getValueByParamName("ConRef", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.RCS_APN, conRef);
+                        writeParameter(RcsSettingsData.RCS_APN, conRef);
                         continue;
                     }
                 }
@@ -1433,7 +1479,7 @@ public class ProvisioningParser {
                 if (publicUserIdentity == null) {
                     if ((publicUserIdentity = getValueByParamName("Public_User_Identity", childnode, TYPE_TXT)) != null) {
                     	String username = extractUserNamePart(publicUserIdentity);
-                    	RcsSettings.getInstance().writeParameter(
+                    	writeParameter(
                                 RcsSettingsData.USERPROFILE_IMS_USERNAME, username);
                         continue;
                     }
@@ -1467,10 +1513,10 @@ public class ProvisioningParser {
                 if (chat == null) {
                     if ((chat = getValueByParamName("Chat", childnode, TYPE_INT)) != null) {
                         if (chat.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IM_SESSION, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IM_SESSION, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1480,10 +1526,10 @@ public class ProvisioningParser {
                 if (fileTranfer == null) {
                     if ((fileTranfer = getValueByParamName("FileTranfer", childnode, TYPE_INT)) != null) {
                         if (fileTranfer.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_FILE_TRANSFER, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_FILE_TRANSFER, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1493,10 +1539,10 @@ public class ProvisioningParser {
                 if (videoShare == null) {
                     if ((videoShare = getValueByParamName("VideoShare", childnode, TYPE_INT)) != null) {
                         if (videoShare.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_VIDEO_SHARING, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_VIDEO_SHARING, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1506,10 +1552,10 @@ public class ProvisioningParser {
                 if (imageShare == null) {
                     if ((imageShare = getValueByParamName("ImageShare", childnode, TYPE_INT)) != null) {
                         if (imageShare.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_IMAGE_SHARING, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_IMAGE_SHARING, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1519,10 +1565,10 @@ public class ProvisioningParser {
                 if (geolocPush == null) {
                     if ((geolocPush = getValueByParamName("GeoLocPush", childnode, TYPE_INT)) != null) {
                         if (geolocPush.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.CAPABILITY_GEOLOCATION_PUSH, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                             		RcsSettingsData.CAPABILITY_GEOLOCATION_PUSH, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1545,7 +1591,7 @@ public class ProvisioningParser {
         String intUrlFmt = null;
         String maxSizeImageShare = null;
         String maxTimeVideoShare = null;
-        Node typenode = null;
+        String typenode = null;
         if (node == null) {
             return;
         }
@@ -1554,10 +1600,10 @@ public class ProvisioningParser {
         if (childnode != null) {
             do {
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        typenode = childnode.getAttribute("type");
                         if (typenode != null) {
-                            if (typenode.getNodeValue().equalsIgnoreCase("SecondaryDevicePar")) {
+                            if (typenode.equalsIgnoreCase("SecondaryDevicePar")) {
                                 parseSecondaryDevicePar(childnode);
                             }
                         }
@@ -1567,10 +1613,10 @@ public class ProvisioningParser {
                 if (intUrlFmt == null) {
                     if ((intUrlFmt = getValueByParamName("IntUrlFmt", childnode, TYPE_INT)) != null) {
                         if (intUrlFmt.equals("0")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.TEL_URI_FORMAT, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.TEL_URI_FORMAT, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1580,7 +1626,7 @@ public class ProvisioningParser {
                 if (maxSizeImageShare == null) {
                     if ((maxSizeImageShare = getValueByParamName("MaxSizeImageShare", childnode, TYPE_INT)) != null) {
                     	int kb = Integer.parseInt(maxSizeImageShare) / 1024;
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_IMAGE_SHARE_SIZE, ""+kb);
                         continue;
                     }
@@ -1588,7 +1634,7 @@ public class ProvisioningParser {
 
                 if (maxTimeVideoShare == null) {
                     if ((maxTimeVideoShare = getValueByParamName("MaxTimeVideoShare", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.MAX_VIDEO_SHARE_DURATION, maxTimeVideoShare);
                         continue;
                     }
@@ -1628,14 +1674,14 @@ public class ProvisioningParser {
                 if (addr == null) {
                     if ((addr = getValueByParamName("Address", childnode, TYPE_TXT)) != null) {
                         String[] address = addr.split(":");
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.IMS_PROXY_ADDR_MOBILE, address[0]);
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.IMS_PROXY_ADDR_WIFI, address[0]);
                         if (address.length > 1) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.IMS_PROXY_PORT_MOBILE, address[1]);
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.IMS_PROXY_PORT_WIFI, address[1]);
                         }
                         continue;
@@ -1678,11 +1724,11 @@ public class ProvisioningParser {
                 if (authType == null) {
                     if ((authType = getValueByParamName("AuthType", childnode, TYPE_TXT)) != null) {
                         if (authType.equals("EarlyIMS")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.IMS_AUTHENT_PROCEDURE_MOBILE,
                                     RcsSettingsData.GIBA_AUTHENT);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.IMS_AUTHENT_PROCEDURE_MOBILE,
                                     RcsSettingsData.DIGEST_AUTHENT);
                         }
@@ -1692,7 +1738,7 @@ public class ProvisioningParser {
 
                 if (realm == null) {
                     if ((realm = getValueByParamName("Realm", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.USERPROFILE_IMS_REALM, realm);
                         continue;
                     }
@@ -1700,7 +1746,7 @@ public class ProvisioningParser {
 
                 if (userName == null) {
                     if ((userName = getValueByParamName("UserName", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.USERPROFILE_IMS_PRIVATE_ID,
                                 userName);
                         continue;
@@ -1709,7 +1755,7 @@ public class ProvisioningParser {
 
                 if (userPwd == null) {
                     if ((userPwd = getValueByParamName("UserPwd", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.USERPROFILE_IMS_PASSWORD, userPwd);
                         continue;
                     }
@@ -1724,7 +1770,7 @@ public class ProvisioningParser {
      * @param node Node
      */
     private void parseRCSe(Node node) {
-        Node typenode = null;
+        String typenode = null;
         if (node == null) {
             return;
         }
@@ -1733,34 +1779,34 @@ public class ProvisioningParser {
         if (childnode != null) {
             do {
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        typenode = childnode.getAttribute("type");
                         if (typenode != null) {
-                            if (typenode.getNodeValue().equalsIgnoreCase("IMS")) {
+                            if (typenode.equalsIgnoreCase("IMS")) {
                                 parseIMS(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("PRESENCE")) {
+                            if (typenode.equalsIgnoreCase("PRESENCE")) {
                                 parsePresence(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("XDMS")) {
+                            if (typenode.equalsIgnoreCase("XDMS")) {
                                 parseXDMS(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("IM")) {
+                            if (typenode.equalsIgnoreCase("IM")) {
                                 parseIM(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("CAPDISCOVERY")) {
+                            if (typenode.equalsIgnoreCase("CAPDISCOVERY")) {
                                 parseCapabilityDiscovery(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("APN")) {
+                            if (typenode.equalsIgnoreCase("APN")) {
                                 parseAPN(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("OTHER")) {
+                            if (typenode.equalsIgnoreCase("OTHER")) {
                                 parseOther(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("SERVICES")) {
+                            if (typenode.equalsIgnoreCase("SERVICES")) {
                                 parseServices(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("SUPL")) {
+                            if (typenode.equalsIgnoreCase("SUPL")) {
                                 parseSupl(childnode);
                             }
                         }
@@ -1784,7 +1830,7 @@ public class ProvisioningParser {
         String keepAliveEnabled = null;
         String regRetryBasetime = null;
         String regRetryMaxtime = null;
-        Node typenode = null;
+        String typenode = null;
         if (node == null) {
             return;
         }
@@ -1793,28 +1839,28 @@ public class ProvisioningParser {
         if (childnode != null) {
             do {
                 if (childnode.getNodeName().equals("characteristic")) {
-                    if (childnode.getAttributes().getLength() > 0) {
-                        typenode = childnode.getAttributes().getNamedItem("type");
+                    if (childnode.hasAttributes()) {
+                        typenode = childnode.getAttribute("type");
                         if (typenode != null) {
-                            if (typenode.getNodeValue().equalsIgnoreCase("ConRefs")) {
+                            if (typenode.equalsIgnoreCase("ConRefs")) {
                                 parseConRefs(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("Public_user_identity_List")) {
+                            if (typenode.equalsIgnoreCase("Public_user_identity_List")) {
                                 parsePublicUserIdentity(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("Ext")) {
+                            if (typenode.equalsIgnoreCase("Ext")) {
                                 parseExt(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("ICSI_List")) {
+                            if (typenode.equalsIgnoreCase("ICSI_List")) {
                                 parseICSI(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("LBO_P-CSCF_Address")) {
+                            if (typenode.equalsIgnoreCase("LBO_P-CSCF_Address")) {
                                 parsePcscfAddress(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("PhoneContext_List")) {
+                            if (typenode.equalsIgnoreCase("PhoneContext_List")) {
                                 parsePhoneContextList(childnode);
                             } else
-                            if (typenode.getNodeValue().equalsIgnoreCase("APPAUTH")) {
+                            if (typenode.equalsIgnoreCase("APPAUTH")) {
                                 parseAppAuthent(childnode);
                             }
                         }
@@ -1823,7 +1869,7 @@ public class ProvisioningParser {
 
                 if (timert1 == null) {
                     if ((timert1 = getValueByParamName("Timer_T1", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SIP_TIMER_T1,
+                        writeParameter(RcsSettingsData.SIP_TIMER_T1,
                                 timert1);
                         continue;
                     }
@@ -1831,7 +1877,7 @@ public class ProvisioningParser {
 
                 if (timert2 == null) {
                     if ((timert2 = getValueByParamName("Timer_T2", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SIP_TIMER_T2,
+                        writeParameter(RcsSettingsData.SIP_TIMER_T2,
                                 timert2);
                         continue;
                     }
@@ -1839,7 +1885,7 @@ public class ProvisioningParser {
 
                 if (timert4 == null) {
                     if ((timert4 = getValueByParamName("Timer_T4", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(RcsSettingsData.SIP_TIMER_T4,
+                        writeParameter(RcsSettingsData.SIP_TIMER_T4,
                                 timert4);
                         continue;
                     }
@@ -1847,7 +1893,7 @@ public class ProvisioningParser {
 
                 if (privateUserIdentity == null) {
                     if ((privateUserIdentity = getValueByParamName("Private_User_Identity", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.USERPROFILE_IMS_PRIVATE_ID,
                                 privateUserIdentity);
                         continue;
@@ -1856,7 +1902,7 @@ public class ProvisioningParser {
 
                 if (homeDomain == null) {
                     if ((homeDomain = getValueByParamName("Home_network_domain_name", childnode, TYPE_TXT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.USERPROFILE_IMS_HOME_DOMAIN,
                                 homeDomain);
                         continue;
@@ -1866,10 +1912,10 @@ public class ProvisioningParser {
                 if (keepAliveEnabled == null) {
                     if ((keepAliveEnabled = getValueByParamName("Keep_Alive_Enabled", childnode, TYPE_INT)) != null) {
                         if (keepAliveEnabled.equals("1")) {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.SIP_KEEP_ALIVE, RcsSettingsData.TRUE);
                         } else {
-                            RcsSettings.getInstance().writeParameter(
+                            writeParameter(
                                     RcsSettingsData.SIP_KEEP_ALIVE, RcsSettingsData.FALSE);
                         }
                         continue;
@@ -1878,7 +1924,7 @@ public class ProvisioningParser {
 
                 if (regRetryBasetime == null) {
                     if ((regRetryBasetime = getValueByParamName("RegRetryBaseTime", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.REGISTER_RETRY_BASE_TIME, regRetryBasetime);
                         continue;
                     }
@@ -1886,7 +1932,7 @@ public class ProvisioningParser {
 
                 if (regRetryMaxtime == null) {
                     if ((regRetryMaxtime = getValueByParamName("RegRetryMaxTime", childnode, TYPE_INT)) != null) {
-                        RcsSettings.getInstance().writeParameter(
+                        writeParameter(
                                 RcsSettingsData.REGISTER_RETRY_MAX_TIME, regRetryMaxtime);
                         continue;
                     }
@@ -1911,8 +1957,8 @@ public class ProvisioningParser {
      * @return Value or null
      */
     private String getValueByParamName(String paramName, Node node, int type) {
-        Node nameNode = null;
-        Node valueNode = null;
+        String name = null;
+        String value = null;
         
         if (logger.isActivated()) {
             logger.debug("Get parameter " + paramName + ", node " + node);
@@ -1924,17 +1970,16 @@ public class ProvisioningParser {
             return null;
         }
 
-        if ((node != null) && (node.getAttributes().getLength() > 0)) {
-            nameNode = node.getAttributes().getNamedItem("name");
-            if (nameNode == null) {
+        if ((node != null) && node.hasAttributes()) {
+            name = node.getAttribute("name");
+            if (name == null) {
                 return null;
             }
-            valueNode = node.getAttributes().getNamedItem("value");
-            if (valueNode == null) {
+            value = node.getAttribute("value");
+            if (value == null) {
                 return null;
             }
-            if (nameNode.getNodeValue().equalsIgnoreCase(paramName)) {
-            	String value = valueNode.getNodeValue();
+            if (name.equalsIgnoreCase(paramName)) {
                 if (logger.isActivated()) {
                     // logger.debug("Read parameter " + paramName + ": " + value);
                     logger.debug("Read parameter " + paramName);
@@ -2007,4 +2052,148 @@ public class ProvisioningParser {
 			return "";
 		}
     }
+
+    /**
+     * Stage a parameter, the staged parameters are written at the end of the parsing
+     *
+     * @param key Key
+     * @param value Value
+     */
+    private void writeParameter(String key, String value) {
+        parameters.put(key, value);
+    }
+
+    /**
+     * Is the version of the document the version already provisioned
+     *
+     * @return Boolean
+     */
+    private boolean isVersionProvisioned() {
+        String version = provisioningInfo.getVersion();
+        if ((version == null) || !version.equals(RcsSettings.getInstance().getProvisioningVersion())) {
+            return false;
+        }
+        try {
+            // Negative or zero versions are not a configuration
+            return Integer.parseInt(version) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+	public void startElement(String namespaceURL, String localName, String qname, Attributes attr) {
+		Node node = new Node(qname, attr);
+		if (currentnode == null) {
+			rootnode = node;
+		} else {
+			currentnode.appendChild(node);
+		}
+		currentnode = node;
+	}
+
+	public void endElement(String namespaceURL, String localName, String qname) {
+		if (currentnode != null) {
+			currentnode = currentnode.parent;
+		}
+	}
+
+    /**
+     * Element of the provisioning document
+     */
+    private static class Node {
+        /**
+         * Element name
+         */
+        private String name;
+
+        /**
+         * Attribute names and values
+         */
+        private String[] attributes;
+
+        /**
+         * Parent element
+         */
+        private Node parent = null;
+
+        /**
+         * First child element
+         */
+        private Node firstChild = null;
+
+        /**
+         * Last child element
+         */
+        private Node lastChild = null;
+
+        /**
+         * Next sibling element
+         */
+        private Node nextSibling = null;
+
+        /**
+         * Constructor
+         *
+         * @param name Element name
+         * @param attr Attributes
+         */
+        private Node(String name, Attributes attr) {
+            this.name = name;
+            this.attributes = new String[attr.getLength() * 2];
+            for (int i = 0; i < attr.getLength(); i++) {
+                attributes[2 * i] = attr.getQName(i);
+                attributes[2 * i + 1] = attr.getValue(i);
+            }
+        }
+
+        /**
+         * Add a child element
+         *
+         * @param child Element
+         */
+        private void appendChild(Node child) {
+            child.parent = this;
+            if (lastChild == null) {
+                firstChild = child;
+            } else {
+                lastChild.nextSibling = child;
+            }
+            lastChild = child;
+        }
+
+        public String getNodeName() {
+            return name;
+        }
+
+        public Node getFirstChild() {
+            return firstChild;
+        }
+
+        public Node getNextSibling() {
+            return nextSibling;
+        }
+
+        public boolean hasAttributes() {
+            return attributes.length > 0;
+        }
+
+        /**
+         * Returns the value of an attribute
+         *
+         * @param attrName Attribute name
+         * @return Value or null if absent
+         */
+        public String getAttribute(String attrName) {
+            for (int i = 0; i < attributes.length; i += 2) {
+                if (attributes[i].equals(attrName)) {
+                    return attributes[i + 1];
+                }
+            }
+            return null;
+        }
+
+        public String toString() {
+            return name;
+        }
+    }
 }
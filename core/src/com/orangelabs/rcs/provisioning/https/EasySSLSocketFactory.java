@@ -43,7 +43,21 @@ import org.apache.http.params.HttpParams;
  */
 public class EasySSLSocketFactory implements LayeredSocketFactory {
 
-        private SSLContext sslcontext = null;
+        /**
+         * TLS context shared by all the factories, its client session cache
+         * lets new connections resume the TLS session of previous ones
+         */
+        private static SSLContext sslcontext = null;
+
+        /**
+         * Number of TLS handshakes
+         */
+        private static long handshakeCount = 0;
+
+        /**
+         * Number of TLS handshakes which resumed a previous session
+         */
+        private static long resumedHandshakeCount = 0;
 
         private static SSLContext createEasySSLContext() throws IOException {
                 try {
@@ -56,11 +70,48 @@ public class EasySSLSocketFactory implements LayeredSocketFactory {
                 }
         }
 
-        private SSLContext getSSLContext() throws IOException {
-                if (this.sslcontext == null) {
-                        this.sslcontext = createEasySSLContext();
+        private static synchronized SSLContext getSSLContext() throws IOException {
+                if (sslcontext == null) {
+                        sslcontext = createEasySSLContext();
+                }
+                return sslcontext;
+        }
+
+        /**
+         * Do the TLS handshake of a new socket and count it
+         *
+         * @param sslsock Socket
+         * @throws IOException
+         */
+        private static void startHandshake(SSLSocket sslsock) throws IOException {
+                long start = System.currentTimeMillis();
+                sslsock.startHandshake();
+                // A resumed session has been created by a previous handshake
+                boolean resumed = sslsock.getSession().getCreationTime() < start;
+                synchronized(EasySSLSocketFactory.class) {
+                        handshakeCount++;
+                        if (resumed) {
+                                resumedHandshakeCount++;
+                        }
                 }
-                return this.sslcontext;
+        }
+
+        /**
+         * Returns the number of TLS handshakes
+         *
+         * @return Number of handshakes
+         */
+        public static synchronized long getHandshakeCount() {
+                return handshakeCount;
+        }
+
+        /**
+         * Returns the number of TLS handshakes which resumed a previous session
+         *
+         * @return Number of handshakes
+         */
+        public static synchronized long getResumedHandshakeCount() {
+                return resumedHandshakeCount;
         }
 
         /**
@@ -89,6 +140,7 @@ public class EasySSLSocketFactory implements LayeredSocketFactory {
 
                 sslsock.connect(remoteAddress, connTimeout);
                 sslsock.setSoTimeout(soTimeout);
+                startHandshake(sslsock);
                 return sslsock;
 
         }
@@ -113,7 +165,9 @@ public class EasySSLSocketFactory implements LayeredSocketFactory {
          */
         public Socket createSocket(Socket socket, String host, int port, boolean autoClose)
         throws IOException, UnknownHostException {
-        	return getSSLContext().getSocketFactory().createSocket(socket, host, port, autoClose);
+        	SSLSocket sslsock = (SSLSocket)getSSLContext().getSocketFactory().createSocket(socket, host, port, autoClose);
+        	startHandshake(sslsock);
+        	return sslsock;
         }
 
         // -------------------------------------------------------------------
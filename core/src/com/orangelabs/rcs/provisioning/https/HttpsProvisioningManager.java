@@ -29,6 +29,7 @@ import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpVersion;
@@ -38,16 +39,10 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.params.CookiePolicy;
 import org.apache.http.client.params.HttpClientParams;
 import org.apache.http.client.protocol.ClientContext;
-import org.apache.http.conn.ClientConnectionManager;
-import org.apache.http.conn.params.ConnManagerPNames;
-import org.apache.http.conn.params.ConnPerRouteBean;
 import org.apache.http.conn.params.ConnRoutePNames;
-import org.apache.http.conn.scheme.PlainSocketFactory;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.impl.conn.SingleClientConnManager;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
@@ -73,6 +68,7 @@ import com.orangelabs.rcs.provisioning.ProvisioningInfo.Version;
 import com.orangelabs.rcs.provisioning.ProvisioningParser;
 import com.orangelabs.rcs.provisioning.TermsAndConditionsRequest;
 import com.orangelabs.rcs.service.LauncherUtils;
+import com.orangelabs.rcs.utils.HttpConnectionPool;
 import com.orangelabs.rcs.utils.HttpUtils;
 import com.orangelabs.rcs.utils.NetworkUtils;
 import com.orangelabs.rcs.utils.StringUtils;
@@ -224,6 +220,13 @@ public class HttpsProvisioningManager {
             if (logger.isActivated()) {
                 logger.debug("HTTP response: " + response.getStatusLine().toString());
             }
+
+            // Read the content, so that the connection is released to the pool
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                response.setEntity(new BufferedHttpEntity(entity));
+                entity.consumeContent();
+            }
             return response;
         } catch (UnknownHostException e) {
             if (logger.isActivated()) {
@@ -489,14 +492,7 @@ public class HttpsProvisioningManager {
 	    	tm = null;
 
 	    	// Format HTTP request
-			SchemeRegistry schemeRegistry = new SchemeRegistry();
-			schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
-			schemeRegistry.register(new Scheme("https", new EasySSLSocketFactory(), 443));
-
 			HttpParams params = new BasicHttpParams();
-			params.setParameter(ConnManagerPNames.MAX_TOTAL_CONNECTIONS, 30);
-			params.setParameter(ConnManagerPNames.MAX_CONNECTIONS_PER_ROUTE, 
-					new ConnPerRouteBean(30));
 			params.setParameter(HttpProtocolParams.USE_EXPECT_CONTINUE, false);
             NetworkInfo networkInfo = networkConnection.getConnectionMngr().getActiveNetworkInfo();
 
@@ -512,8 +508,8 @@ public class HttpsProvisioningManager {
 			// Support broad variety of different cookie types (not just Netscape but RFC 2109 and RFC2965 compliant ones, too)  
 			HttpClientParams.setCookiePolicy(params, CookiePolicy.BROWSER_COMPATIBILITY);
 
-			ClientConnectionManager cm = new SingleClientConnManager(params, schemeRegistry);
-			DefaultHttpClient client = new DefaultHttpClient(cm, params);
+			// Connections are shared with the file transfers
+			DefaultHttpClient client = HttpConnectionPool.createHttpClient(params);
 			CookieStore cookieStore = (CookieStore) new BasicCookieStore();
 			HttpContext localContext = new BasicHttpContext();
 			localContext.setAttribute(ClientContext.COOKIE_STORE, cookieStore);
@@ -699,7 +695,8 @@ public class HttpsProvisioningManager {
 				
 				// Before parsing the provisioning, the GSMA release is set to Albatros
 				RcsSettings.getInstance().setGsmaRelease(RcsSettingsData.VALUE_GSMA_REL_ALBATROS);
-				if (parser.parse(gsmaRelease)) {
+				// The parameters are not applied again if the version is unchanged
+				if (parser.parse(gsmaRelease, true)) {
 					// Successfully provisioned, 1st time reg finalized
 					first = false;
 					ProvisioningInfo info = parser.getProvisioningInfo();
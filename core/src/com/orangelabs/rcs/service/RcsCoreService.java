@@ -219,6 +219,7 @@ public class RcsCoreService extends Service implements CoreListener {
             // Set the logger properties
     		Logger.activationFlag = RcsSettings.getInstance().isTraceActivated();
     		Logger.traceLevel = RcsSettings.getInstance().getTraceLevel();
+    		Logger.installUncaughtExceptionHandler();
 
     		// Terminal version
             if (logger.isActivated()) {
@@ -317,12 +318,18 @@ public class RcsCoreService extends Service implements CoreListener {
     	// Terminate the core in background
 		Core.terminateCore();
 
+		// Write the pending messaging history changes
+		RichMessagingHistory.getInstance().flush();
+
 		// Close CPU manager
 		cpuManager.close();
 
 		if (logger.isActivated()) {
 			logger.info("RCS core service stopped with success");
 		}
+
+		// Print the queued traces
+		Logger.flush(Logger.FLUSH_TIMEOUT);
     }
 
     @Override
@@ -228,12 +228,12 @@ public class CapabilityServiceImpl extends ICapabilityService.Stub {
 
 		// Request contact capabilities
 		try {
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 					Core.getInstance().getCapabilityService().requestContactCapabilities(contact);
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 		} catch(Exception e) {
 			if (logger.isActivated()) {
 				logger.error("Unexpected error", e);
@@ -320,13 +320,13 @@ public class CapabilityServiceImpl extends ICapabilityService.Stub {
 
 		// Request all contacts capabilities
 		try {
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			List<String> contactList = ContactsManager.getInstance().getAllContacts();
 	    			Core.getInstance().getCapabilityService().requestContactCapabilities(contactList);
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 		} catch(Exception e) {
 			if (logger.isActivated()) {
 				logger.error("Unexpected error", e);
@@ -186,12 +186,12 @@ public class ChatImpl extends IChat.Stub implements ChatSessionListener {
 					RichMessagingHistory.getInstance().addChatMessage(msg, ChatLog.Message.Direction.OUTGOING);
 	
 					// Start the session
-			        Thread t = new Thread() {
+			        Runnable t = new Runnable() {
 			    		public void run() {
 							session.startSession();
 			    		}
 			    	};
-			    	t.start();
+			    	ServerApiUtils.execute(t);
 					return session.getFirstMessage().getMessageId();
 				} catch(Exception e) {
 					if (logger.isActivated()) {
@@ -208,7 +208,7 @@ public class ChatImpl extends IChat.Stub implements ChatSessionListener {
 				final String msgId = IdGenerator.generateMessageID();
 		
 				// Send message
-		        Thread t = new Thread() {
+		        Runnable t = new Runnable() {
 		    		public void run() {
 						if (msg instanceof GeolocMessage) {
 							session.sendGeolocMessage(msgId, ((GeolocMessage)msg).getGeoloc());
@@ -217,7 +217,7 @@ public class ChatImpl extends IChat.Stub implements ChatSessionListener {
 						}
 		    		}
 		    	};
-		    	t.start();
+		    	ServerApiUtils.execute(t);
 				return msgId;
 	    	}
 		}    	
@@ -239,12 +239,12 @@ public class ChatImpl extends IChat.Stub implements ChatSessionListener {
 					(session.getDialogPath() != null) &&
 						(session.getDialogPath().isSessionEstablished())) { 
 				// Send via MSRP
-		        Thread t = new Thread() {
+		        Runnable t = new Runnable() {
 		    		public void run() {
 						session.sendMsrpMessageDeliveryStatus(session.getRemoteContact(), msgId, ImdnDocument.DELIVERY_STATUS_DISPLAYED);
 		    		}
 		    	};
-		    	t.start();
+		    	ServerApiUtils.execute(t);
 			} else {
 				// Send via SIP MESSAGE
 				Core.getInstance().getImService().getImdnManager().sendMessageDeliveryStatus(
@@ -265,12 +265,12 @@ public class ChatImpl extends IChat.Stub implements ChatSessionListener {
      */
     public void sendIsComposingEvent(final boolean status) {
     	if (session != null) {
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	        		session.sendIsComposingStatus(status);
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
     	}
     }
 	
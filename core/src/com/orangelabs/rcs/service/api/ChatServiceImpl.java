@@ -273,12 +273,12 @@ public class ChatServiceImpl extends IChatService.Stub {
 						}
 						
 						// Auto accept the pending session
-				        Thread t = new Thread() {
+				        Runnable t = new Runnable() {
 				    		public void run() {
 								coreSession.acceptSession();
 				    		}
 				    	};
-				    	t.start();
+				    	ServerApiUtils.execute(t);
 					} else {
 						if (logger.isActivated()) {
 							logger.debug("Core chat session is already established");
@@ -518,12 +518,12 @@ public class ChatServiceImpl extends IChatService.Stub {
 					GroupChat.State.INITIATED, GroupChat.Direction.OUTGOING);
 
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 					session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 						
 			// Add session in the list
 			ChatServiceImpl.addGroupChatSession(sessionApi);
@@ -556,12 +556,12 @@ public class ChatServiceImpl extends IChatService.Stub {
 			final ChatSession session = Core.getInstance().getImService().rejoinGroupChatSession(chatId);
 			
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 
 			// Add session in the list
 			GroupChatImpl sessionApi = new GroupChatImpl((GroupChatSession)session);
@@ -595,12 +595,12 @@ public class ChatServiceImpl extends IChatService.Stub {
 			final ChatSession session = Core.getInstance().getImService().restartGroupChatSession(chatId);
 
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 			
 			// Add session in the list
 			GroupChatImpl sessionApi = new GroupChatImpl((GroupChatSession)session);
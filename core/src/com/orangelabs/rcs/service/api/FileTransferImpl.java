@@ -217,12 +217,12 @@ public class FileTransferImpl extends IFileTransfer.Stub implements FileSharingS
 		}
 		
 		// Accept invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.acceptSession();
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 	
 	/**
@@ -237,12 +237,12 @@ public class FileTransferImpl extends IFileTransfer.Stub implements FileSharingS
   		RichMessagingHistory.getInstance().updateFileTransferStatus(session.getSessionID(), FileTransfer.State.ABORTED);
 
   		// Reject invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.rejectSession(603);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
@@ -259,12 +259,12 @@ public class FileTransferImpl extends IFileTransfer.Stub implements FileSharingS
 		}
 
 		// Abort the session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.abortSession(ImsServiceSession.TERMINATION_BY_USER);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
     /**
@@ -314,12 +314,12 @@ public class FileTransferServiceImpl extends IFileTransferService.Stub {
 			RichMessagingHistory.getInstance().addFileTransfer(contact, session.getSessionID(), FileTransfer.Direction.OUTGOING, session.getContent());
 
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 						
 			// Add session in the list
 			addFileTransferSession(sessionApi);
@@ -169,12 +169,12 @@ public class GeolocSharingImpl extends IGeolocSharing.Stub implements GeolocTran
 		}
 
 		// Accept invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.acceptSession();
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 	
 	/**
@@ -186,12 +186,12 @@ public class GeolocSharingImpl extends IGeolocSharing.Stub implements GeolocTran
 		}
 
 		// Reject invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.rejectSession(603);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
@@ -208,12 +208,12 @@ public class GeolocSharingImpl extends IGeolocSharing.Stub implements GeolocTran
 		}
 		
 		// Abort the session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.abortSession(ImsServiceSession.TERMINATION_BY_USER);
     		}
     	};
-    	t.start();		
+    	ServerApiUtils.executeControl(t);		
 	}
 
 	/**
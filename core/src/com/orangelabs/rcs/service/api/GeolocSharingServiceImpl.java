@@ -267,12 +267,12 @@ public class GeolocSharingServiceImpl extends IGeolocSharingService.Stub {
 			sessionApi.addEventListener(listener);
 
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 	    	
 			// Add session in the list
 			addGeolocSharingSession(sessionApi);
@@ -171,12 +171,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 		}
 				
 		// Accept invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.acceptSession();
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 	
 	/**
@@ -191,12 +191,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 		RichMessagingHistory.getInstance().updateGroupChatStatus(getChatId(), GroupChat.State.ABORTED);
 		
         // Reject invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.rejectSession(603);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
@@ -209,12 +209,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 		}
 		
 		// Abort the session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.abortSession(ImsServiceSession.TERMINATION_BY_USER);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 	
 	/**
@@ -257,12 +257,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 		int connected = session.getConnectedParticipants().getList().size(); 
         if (connected < max) {
             // Add a list of participants to the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	                session.addParticipants(participants);
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
         } else {
         	// Max participants achieved
             handleAddParticipantFailed("Maximum number of participants reached");
@@ -280,12 +280,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 		final String msgId = IdGenerator.generateMessageID();
 
 		// Send text message
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.sendTextMessage(msgId, text);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.execute(t);
 
 		return msgId;
 	}
@@ -304,12 +304,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 		final GeolocPush geolocPush = new GeolocPush(geoloc.getLabel(),
 				geoloc.getLatitude(), geoloc.getLongitude(),
 				geoloc.getExpiration(), geoloc.getAccuracy());
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.sendGeolocMessage(msgId, geolocPush);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.execute(t);
 		return msgId;
     }	
 
@@ -346,12 +346,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 					fileSharingsession.getContent());
 
 			// Start the session
-			new Thread() {
+			ServerApiUtils.execute(new Runnable() {
 				public void run() {
 					// Start the session
 					fileSharingsession.startSession();
 				}
-			}.start();
+			});
 
 			// Add session in the list
 			FileTransferServiceImpl.addFileTransferSession(sessionApi);
@@ -371,12 +371,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 	 * @param status Is-composing status
 	 */
 	public void sendIsComposingEvent(final boolean status) {
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.sendIsComposingStatus(status);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.execute(t);
 	}
 	
     /**
@@ -391,12 +391,12 @@ public class GroupChatImpl extends IGroupChat.Stub implements ChatSessionListene
 			}
 			
 			// Send MSRP delivery status
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.sendMsrpMessageDeliveryStatus(session.getRemoteContact(), msgId, ImdnDocument.DELIVERY_STATUS_DISPLAYED);
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 		} catch(Exception e) {
 			if (logger.isActivated()) {
 				logger.error("Could not send MSRP delivery status",e);
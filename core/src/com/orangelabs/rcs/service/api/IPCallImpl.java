@@ -135,12 +135,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 		session.setRenderer(renderer);
 		
 		// Accept invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.acceptSession();
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
@@ -155,12 +155,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 		IPCallHistory.getInstance().setCallStatus(session.getSessionID(), IPCall.State.ABORTED); 
 
 		// Reject invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.rejectSession(603);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
@@ -172,12 +172,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 		}
 
 		// Abort the session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.abortSession(ImsServiceSession.TERMINATION_BY_USER);
     		}
     	};
-    	t.start();			
+    	ServerApiUtils.executeControl(t);			
 	}
 
 	/**
@@ -198,12 +198,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 		}
 
 		// Add video to session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.addVideo();		
     		}
     	};
-    	t.start();			
+    	ServerApiUtils.executeControl(t);			
 	}
 
 	/**
@@ -215,12 +215,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 		}
 
 		// Remove video from session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.removeVideo();		
     		}
     	};
-    	t.start();		
+    	ServerApiUtils.executeControl(t);		
 	}
 
 	/**
@@ -234,12 +234,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 		}
 		
 		// Accept to add video
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.getUpdateSessionManager().acceptReInvite();
     		}
     	};
-    	t.start();		
+    	ServerApiUtils.executeControl(t);		
 	}
 
 	/**
@@ -255,12 +255,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 		session.setVideoContent(null);
 		
 		// Reject add video
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.getUpdateSessionManager().rejectReInvite(603);
     		}
     	};
-    	t.start();		
+    	ServerApiUtils.executeControl(t);		
 	}
 
 	/**
@@ -271,12 +271,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 			logger.info("Hold call");
 		}
 
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.setOnHold(true);
     		}
     	};
-    	t.start();		
+    	ServerApiUtils.executeControl(t);		
 	}
 
 	/**
@@ -287,12 +287,12 @@ public class IPCallImpl extends IIPCall.Stub implements IPCallStreamingSessionLi
 			logger.info("Continue call");
 		}
 
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.setOnHold(false);
     		}
     	};
-    	t.start();		
+    	ServerApiUtils.executeControl(t);		
 	}
 
 	/**
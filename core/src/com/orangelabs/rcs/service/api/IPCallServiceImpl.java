@@ -290,12 +290,12 @@ public class IPCallServiceImpl extends IIPCallService.Stub {
 			sessionApi.addEventListener(listener);
 			
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 			
 			// Add session in the list
 			IPCallServiceImpl.addIPCallSession(sessionApi);
@@ -345,12 +345,12 @@ public class IPCallServiceImpl extends IIPCallService.Stub {
 			sessionApi.addEventListener(listener);
 			
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 	    	
 			// Add session in the list
 			IPCallServiceImpl.addIPCallSession(sessionApi);
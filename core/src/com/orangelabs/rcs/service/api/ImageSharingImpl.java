@@ -158,12 +158,12 @@ public class ImageSharingImpl extends IImageSharing.Stub implements ImageTransfe
 		}
 
 		// Accept invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.acceptSession();
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 	
 	/**
@@ -178,12 +178,12 @@ public class ImageSharingImpl extends IImageSharing.Stub implements ImageTransfe
 		RichCallHistory.getInstance().setImageSharingStatus(session.getSessionID(), ImageSharing.State.ABORTED);
 
 		// Reject invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.rejectSession(603);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
     }
 
 	/**
@@ -200,12 +200,12 @@ public class ImageSharingImpl extends IImageSharing.Stub implements ImageTransfe
 		}
 		
 		// Abort the session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.abortSession(ImsServiceSession.TERMINATION_BY_USER);
     		}
     	};
-    	t.start();		
+    	ServerApiUtils.executeControl(t);		
 	}
 
 	/**
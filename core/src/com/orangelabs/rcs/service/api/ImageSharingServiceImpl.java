@@ -274,12 +274,12 @@ public class ImageSharingServiceImpl extends IImageSharingService.Stub {
 			sessionApi.addEventListener(listener);
 
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();	
+	    	ServerApiUtils.execute(t);	
 			
 			// Add session in the list
 			addImageSharingSession(sessionApi);
@@ -152,12 +152,12 @@ public class MultimediaSessionImpl extends IMultimediaSession.Stub implements Si
 		}
 		
 		// Accept invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.acceptSession();
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
@@ -169,12 +169,12 @@ public class MultimediaSessionImpl extends IMultimediaSession.Stub implements Si
 		}
 
 		// Reject invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.rejectSession(603);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
     }
 
 	/**
@@ -186,12 +186,12 @@ public class MultimediaSessionImpl extends IMultimediaSession.Stub implements Si
 		}
 
 		// Abort the session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.abortSession(ImsServiceSession.TERMINATION_BY_USER);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
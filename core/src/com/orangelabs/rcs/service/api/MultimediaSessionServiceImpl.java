@@ -233,12 +233,12 @@ public class MultimediaSessionServiceImpl extends IMultimediaSessionService.Stub
 			sessionApi.addEventListener(listener);
 
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();
+	    	ServerApiUtils.execute(t);
 			
 			// Add session in the list
 			MultimediaSessionServiceImpl.addSipSession(sessionApi);
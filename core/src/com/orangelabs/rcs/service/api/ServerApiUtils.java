@@ -19,6 +19,7 @@
 package com.orangelabs.rcs.service.api;
 
 import com.orangelabs.rcs.core.Core;
+import com.orangelabs.rcs.utils.NamedThreadPool;
 
 /**
  * Server API utils
@@ -26,6 +27,64 @@ import com.orangelabs.rcs.core.Core;
  * @author Jean-Marc AUFFRET
  */
 public class ServerApiUtils {
+	/**
+	 * Maximum number of API requests processed in parallel
+	 */
+	private final static int MAX_API_THREADS = 8;
+
+	/**
+	 * Maximum number of session control requests processed in parallel
+	 */
+	private final static int MAX_CONTROL_THREADS = 2;
+
+	/**
+	 * Executor of the API requests
+	 */
+	private static NamedThreadPool apiExecutor = new NamedThreadPool("RcsApi", MAX_API_THREADS);
+
+	/**
+	 * Executor of the session control requests, so that accepting, rejecting
+	 * or aborting a session never waits behind requests sending messages
+	 */
+	private static NamedThreadPool controlExecutor = new NamedThreadPool("RcsApiControl", MAX_CONTROL_THREADS);
+
+	/**
+	 * Process an API request in background
+	 * 
+	 * @param task Task
+	 */
+	public static void execute(Runnable task) {
+		apiExecutor.execute(task);
+	}
+
+	/**
+	 * Process a session control request (accept, reject, abort, hold...) in
+	 * background. The request must not block.
+	 * 
+	 * @param task Task
+	 */
+	public static void executeControl(Runnable task) {
+		controlExecutor.execute(task);
+	}
+
+	/**
+	 * Returns the executor of the API requests
+	 * 
+	 * @return Executor
+	 */
+	public static NamedThreadPool getApiExecutor() {
+		return apiExecutor;
+	}
+
+	/**
+	 * Returns the executor of the session control requests
+	 * 
+	 * @return Executor
+	 */
+	public static NamedThreadPool getControlExecutor() {
+		return controlExecutor;
+	}
+
 	/**
 	 * Test core
 	 * 
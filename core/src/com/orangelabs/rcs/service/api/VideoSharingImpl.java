@@ -177,12 +177,12 @@ public class VideoSharingImpl extends IVideoSharing.Stub implements VideoStreami
 		session.setVideoRenderer(renderer);
 		
 		// Accept invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.acceptSession();
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 	
 	/**
@@ -197,12 +197,12 @@ public class VideoSharingImpl extends IVideoSharing.Stub implements VideoStreami
 		RichCallHistory.getInstance().setVideoSharingStatus(session.getSessionID(), VideoSharing.State.ABORTED);
 
 		// Reject invitation
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.rejectSession(603);
     		}
     	};
-    	t.start();
+    	ServerApiUtils.executeControl(t);
 	}
 
 	/**
@@ -214,12 +214,12 @@ public class VideoSharingImpl extends IVideoSharing.Stub implements VideoStreami
 		}
 
 		// Abort the session
-        Thread t = new Thread() {
+        Runnable t = new Runnable() {
     		public void run() {
     			session.abortSession(ImsServiceSession.TERMINATION_BY_USER);
     		}
     	};
-    	t.start();	
+    	ServerApiUtils.executeControl(t);	
 	}
 
 	/**
@@ -315,12 +315,12 @@ public class VideoSharingServiceImpl extends IVideoSharingService.Stub {
 			sessionApi.addEventListener(listener);
 			
 			// Start the session
-	        Thread t = new Thread() {
+	        Runnable t = new Runnable() {
 	    		public void run() {
 	    			session.startSession();
 	    		}
 	    	};
-	    	t.start();	
+	    	ServerApiUtils.execute(t);	
 	    	
 			// Add session in the list
 			addVideoSharingSession(sessionApi);
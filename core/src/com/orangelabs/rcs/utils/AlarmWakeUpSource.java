@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import com.orangelabs.rcs.platform.AndroidFactory;
+
+/**
+ * Wake-up source of the timer scheduler based on a single alarm. The alarm
+ * receiver is registered once, and the alarm is only re-armed when the next
+ * deadline of the scheduler changes.
+ */
+public class AlarmWakeUpSource extends BroadcastReceiver implements TimerScheduler.WakeUpSource {
+	/**
+	 * Alarm action
+	 */
+	private final static String ACTION = "com.orangelabs.rcs.TIMER_SCHEDULER_ALARM";
+
+	/**
+	 * Timer scheduler
+	 */
+	private TimerScheduler scheduler = null;
+
+	/**
+	 * Alarm intent
+	 */
+	private PendingIntent alarmIntent = null;
+
+	/**
+	 * Set the timer scheduler and register the alarm receiver
+	 *
+	 * @param scheduler Timer scheduler
+	 */
+	public synchronized void setScheduler(TimerScheduler scheduler) {
+		this.scheduler = scheduler;
+		if (alarmIntent == null) {
+			Context context = AndroidFactory.getApplicationContext();
+			alarmIntent = PendingIntent.getBroadcast(context, 0, new Intent(ACTION), 0);
+			context.registerReceiver(this, new IntentFilter(ACTION));
+		}
+	}
+
+	/**
+	 * Set the wake-up time, replacing the previous one
+	 *
+	 * @param time Time in milliseconds
+	 */
+	public void setWakeUp(long time) {
+		getAlarmManager().set(AlarmManager.RTC_WAKEUP, time, alarmIntent);
+	}
+
+	/**
+	 * Cancel the wake-up
+	 */
+	public void cancelWakeUp() {
+		getAlarmManager().cancel(alarmIntent);
+	}
+
+	/**
+	 * Returns the alarm manager
+	 *
+	 * @return Alarm manager
+	 */
+	private AlarmManager getAlarmManager() {
+		return (AlarmManager)AndroidFactory.getApplicationContext().getSystemService(Context.ALARM_SERVICE);
+	}
+
+	/**
+	 * Alarm received
+	 *
+	 * @param context Context
+	 * @param intent Intent
+	 */
+	public void onReceive(Context context, Intent intent) {
+		TimerScheduler target;
+		synchronized(this) {
+			target = scheduler;
+		}
+		if (target != null) {
+			target.processExpiredTimers();
+		}
+	}
+}
@@ -60,9 +60,10 @@ public class ContactUtils {
      		    null, 
      		    null);
 		if (cursor != null) {
-			while (cursor.moveToNext()) {
-				String databaseNumber = PhoneUtils.extractNumberFromUri(cursor.getString(1));
-				if (databaseNumber.equals(number)) {
+			String[] databaseNumbers = PhoneUtils.formatColumnToInternational(cursor, 1);
+			for (int i = 0; i < databaseNumbers.length; i++) {
+				if ((databaseNumbers[i] != null) && databaseNumbers[i].equals(number)) {
+					cursor.moveToPosition(i);
 					id = cursor.getInt(0);
 					break;
 				}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event queue with several producers and a single consumer. Producers never
+ * take a lock: when the queue is full the drop policy decides which event
+ * is lost. The consumer may block until an event is available, until a
+ * timeout occurs or until the queue is closed.
+ *
+ * @param <E> Type of the events
+ */
+public class EventQueue<E> {
+	/**
+	 * Drop policy: the new event is rejected when the queue is full
+	 */
+	public final static int DROP_NEWEST = 0;
+
+	/**
+	 * Drop policy: the oldest event is removed when the queue is full
+	 */
+	public final static int DROP_OLDEST = 1;
+
+	/**
+	 * Capacity of an unbounded queue
+	 */
+	public final static int UNBOUNDED = Integer.MAX_VALUE;
+
+	/**
+	 * Events
+	 */
+	private ConcurrentLinkedQueue<E> queue = new ConcurrentLinkedQueue<E>();
+
+	/**
+	 * Number of events in the queue
+	 */
+	private AtomicInteger depth = new AtomicInteger(0);
+
+	/**
+	 * Highest number of events seen in the queue
+	 */
+	private AtomicInteger maxDepth = new AtomicInteger(0);
+
+	/**
+	 * Number of events added in the queue
+	 */
+	private AtomicLong enqueuedCount = new AtomicLong(0);
+
+	/**
+	 * Number of dropped events
+	 */
+	private AtomicLong droppedCount = new AtomicLong(0);
+
+	/**
+	 * Capacity
+	 */
+	private int capacity;
+
+	/**
+	 * Drop policy
+	 */
+	private int dropPolicy;
+
+	/**
+	 * Consumer waiting for an event
+	 */
+	private volatile Thread consumer = null;
+
+	/**
+	 * Closed flag
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * Constructor of an unbounded queue
+	 */
+	public EventQueue() {
+		this(UNBOUNDED, DROP_NEWEST);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity Maximum number of events in the queue
+	 * @param dropPolicy Drop policy when the queue is full (DROP_NEWEST or DROP_OLDEST)
+	 */
+	public EventQueue(int capacity, int dropPolicy) {
+		this.capacity = capacity;
+		this.dropPolicy = dropPolicy;
+	}
+
+	/**
+	 * Add an event in the queue
+	 *
+	 * @param event Event
+	 * @return False if the event has been dropped
+	 */
+	public boolean offer(E event) {
+		if (closed) {
+			droppedCount.incrementAndGet();
+			return false;
+		}
+
+		int size = depth.incrementAndGet();
+		if (size > capacity) {
+			if (dropPolicy == DROP_OLDEST) {
+				// Make room for the new event
+				if (queue.poll() != null) {
+					size = depth.decrementAndGet();
+					droppedCount.incrementAndGet();
+				}
+			} else {
+				depth.decrementAndGet();
+				droppedCount.incrementAndGet();
+				return false;
+			}
+		}
+		queue.offer(event);
+		enqueuedCount.incrementAndGet();
+
+		// Update the high water mark
+		int max;
+		while(size > (max = maxDepth.get())) {
+			if (maxDepth.compareAndSet(max, size)) {
+				break;
+			}
+		}
+
+		// Wake up the consumer
+		Thread waiting = consumer;
+		if (waiting != null) {
+			LockSupport.unpark(waiting);
+		}
+		return true;
+	}
+
+	/**
+	 * Read an event without waiting
+	 *
+	 * @return Event or null if the queue is empty
+	 */
+	public E poll() {
+		E event = queue.poll();
+		if (event != null) {
+			depth.decrementAndGet();
+		}
+		return event;
+	}
+
+	/**
+	 * Read an event. This is a blocking method until an event is read, the
+	 * queue is closed or the consumer is interrupted.
+	 *
+	 * @return Event or null if the queue is closed or the consumer is interrupted
+	 */
+	public E take() {
+		return take(0);
+	}
+
+	/**
+	 * Read an event. This is a blocking method until an event is read, a
+	 * timeout occurs, the queue is closed or the consumer is interrupted.
+	 * Events still queued when the queue is closed are returned first.
+	 *
+	 * @param timeout Timeout in milliseconds, 0 to wait without timeout
+	 * @return Event or null if no event has been read
+	 */
+	public E take(long timeout) {
+		E event = poll();
+		if (event != null) {
+			return event;
+		}
+
+		long deadline = System.nanoTime() + timeout * 1000000L;
+		consumer = Thread.currentThread();
+		try {
+			while(true) {
+				// Check the queue again once the consumer is visible to the producers
+				event = poll();
+				if (event != null) {
+					return event;
+				}
+				if (closed || Thread.interrupted()) {
+					return null;
+				}
+				if (timeout > 0) {
+					long delay = deadline - System.nanoTime();
+					if (delay <= 0) {
+						return null;
+					}
+					LockSupport.parkNanos(this, delay);
+				} else {
+					LockSupport.park(this);
+				}
+			}
+		} finally {
+			consumer = null;
+		}
+	}
+
+	/**
+	 * Close the queue: new events are dropped and the consumer is unblocked
+	 */
+	public void close() {
+		closed = true;
+		Thread waiting = consumer;
+		if (waiting != null) {
+			LockSupport.unpark(waiting);
+		}
+	}
+
+	/**
+	 * Returns the number of events in the queue
+	 *
+	 * @return Depth
+	 */
+	public int size() {
+		return depth.get();
+	}
+
+	/**
+	 * Returns the highest number of events seen in the queue
+	 *
+	 * @return Depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	/**
+	 * Returns the number of events added in the queue
+	 *
+	 * @return Number of events
+	 */
+	public long getEnqueuedCount() {
+		return enqueuedCount.get();
+	}
+
+	/**
+	 * Returns the number of dropped events
+	 *
+	 * @return Number of events
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+}
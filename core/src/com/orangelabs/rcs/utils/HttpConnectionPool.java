@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+
+import com.orangelabs.rcs.provisioning.https.EasySSLSocketFactory;
+
+/**
+ * Process-wide pool of HTTP connections shared by the file transfer over HTTP
+ * and the provisioning clients. Connections are kept alive per route (target,
+ * proxy and scheme) up to a per-route limit, and idle connections are closed
+ * periodically. HTTPS connections share one TLS context, so that a new
+ * connection to a known server resumes its TLS session.
+ * <br>Each client keeps its own parameters (proxy, protocol version) and its
+ * own cookies: only the connections are shared.
+ */
+public class HttpConnectionPool {
+	/**
+	 * Max number of connections
+	 */
+	public final static int MAX_TOTAL_CONNECTIONS = 20;
+
+	/**
+	 * Max number of connections per route
+	 */
+	public final static int MAX_CONNECTIONS_PER_ROUTE = 6;
+
+	/**
+	 * Max time to wait for a free connection of the pool (in milliseconds)
+	 */
+	public final static long CONNECTION_WAIT_TIMEOUT = 30000;
+
+	/**
+	 * Idle delay after which a connection is closed (in seconds)
+	 */
+	public final static int IDLE_TIMEOUT = 30;
+
+	/**
+	 * Connection manager
+	 */
+	private static ThreadSafeClientConnManager manager = null;
+
+	/**
+	 * Idle connections eviction timer
+	 */
+	private static Timer evictionTimer = null;
+
+	/**
+	 * Returns the shared connection manager, created at first use
+	 *
+	 * @return Connection manager
+	 */
+	public static synchronized ClientConnectionManager getConnectionManager() {
+		if (manager == null) {
+			SchemeRegistry schemeRegistry = new SchemeRegistry();
+			schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+			schemeRegistry.register(new Scheme("https", new EasySSLSocketFactory(), 443));
+
+			HttpParams params = new BasicHttpParams();
+			ConnManagerParams.setMaxTotalConnections(params, MAX_TOTAL_CONNECTIONS);
+			ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(MAX_CONNECTIONS_PER_ROUTE));
+			manager = new ThreadSafeClientConnManager(params, schemeRegistry);
+
+			evictionTimer = new Timer("HttpConnectionEviction", true);
+			evictionTimer.schedule(new TimerTask() {
+				public void run() {
+					closeIdleConnections();
+				}
+			}, IDLE_TIMEOUT * 1000, IDLE_TIMEOUT * 1000);
+		}
+		return manager;
+	}
+
+	/**
+	 * Create an HTTP client using the shared connections
+	 *
+	 * @param params Client parameters
+	 * @return HTTP client
+	 */
+	public static DefaultHttpClient createHttpClient(HttpParams params) {
+		ConnManagerParams.setTimeout(params, CONNECTION_WAIT_TIMEOUT);
+		return new DefaultHttpClient(getConnectionManager(), params);
+	}
+
+	/**
+	 * Close the expired connections and the connections idle for too long
+	 */
+	public static synchronized void closeIdleConnections() {
+		if (manager != null) {
+			manager.closeExpiredConnections();
+			manager.closeIdleConnections(IDLE_TIMEOUT, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Returns the number of connections in the pool, idle or in use
+	 *
+	 * @return Number of connections
+	 */
+	public static synchronized int getConnectionsInPool() {
+		if (manager == null) {
+			return 0;
+		}
+		return manager.getConnectionsInPool();
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of named threads. The tasks submitted while all the threads
+ * are busy are queued. Idle threads are released after a keep alive delay so
+ * that an unused pool does not hold any thread.
+ */
+public class NamedThreadPool implements Executor {
+	/**
+	 * Keep alive delay of idle threads (in seconds)
+	 */
+	private final static int KEEP_ALIVE = 60;
+
+	/**
+	 * Pool name
+	 */
+	private String name;
+
+	/**
+	 * Executor
+	 */
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name Pool name, used to name the threads
+	 * @param maxThreads Maximum number of threads
+	 */
+	public NamedThreadPool(final String name, int maxThreads) {
+		this.name = name;
+		this.executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+				KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private AtomicInteger count = new AtomicInteger(0);
+
+					public Thread newThread(Runnable r) {
+						return new Thread(r, name + "-" + count.incrementAndGet());
+					}
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the pool name
+	 *
+	 * @return Name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Execute a task
+	 *
+	 * @param task Task
+	 */
+	public void execute(Runnable task) {
+		executor.execute(task);
+	}
+
+	/**
+	 * Returns the number of tasks waiting for a free thread
+	 *
+	 * @return Queue depth
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Returns the number of tasks in progress
+	 *
+	 * @return Number of active tasks
+	 */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * Returns the number of threads currently in the pool
+	 *
+	 * @return Number of threads
+	 */
+	public int getPoolSize() {
+		return executor.getPoolSize();
+	}
+
+	/**
+	 * Returns the largest number of threads that have been in the pool
+	 *
+	 * @return Number of threads
+	 */
+	public int getLargestPoolSize() {
+		return executor.getLargestPoolSize();
+	}
+
+	/**
+	 * Returns the number of completed tasks
+	 *
+	 * @return Number of tasks
+	 */
+	public long getCompletedTaskCount() {
+		return executor.getCompletedTaskCount();
+	}
+
+	/**
+	 * Stop the pool: queued tasks are still executed but new tasks are rejected
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
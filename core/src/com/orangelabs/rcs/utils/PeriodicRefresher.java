@@ -18,37 +18,36 @@
 
 package com.orangelabs.rcs.utils;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-
-import com.orangelabs.rcs.platform.AndroidFactory;
 import com.orangelabs.rcs.utils.logger.Logger;
 
 /**
- * Periodic refresher
+ * Periodic refresher. The timers of all the refreshers are run by the shared
+ * {@link TimerScheduler}, which may fire a timer slightly late so that timers
+ * expiring close to each other share the same wake-up.
  *
  * @author JM. Auffret
  */
 public abstract class PeriodicRefresher {
 	/**
-     * Keep alive manager
-     */
-    private KeepAlive alarmReceiver = new KeepAlive(); 
+	 * Max coalescing window (in milliseconds)
+	 */
+	public final static long MAX_COALESCING_WINDOW = 15000;
 
-    /**
-     * Alarm intent
-     */
-    private PendingIntent alarmIntent;
+	/**
+	 * Coalescing window as a ratio of the period
+	 */
+	public final static double COALESCING_RATIO = 0.05;
 
-    /**
-     * Action 
+	/**
+     * Timer
      */
-    private String action;
-    
+    private TimerScheduler.Timer timer = new TimerScheduler.Timer(new Runnable() {
+    	public void run() {
+    		// Processing
+    		periodicProcessing();
+    	}
+    });
+
     /**
      * Timer state
      */
@@ -68,13 +67,6 @@ public abstract class PeriodicRefresher {
      * Constructor
      */
     public PeriodicRefresher() {
-    	// Create a unique pending intent
-    	this.action = this.toString(); // Unique action ID 
-    	this.alarmIntent = PendingIntent.getBroadcast(
-    			AndroidFactory.getApplicationContext(),
-    			0,
-    			new Intent(action),
-    			0);
     }
     
     /**
@@ -82,6 +74,15 @@ public abstract class PeriodicRefresher {
      */
     public abstract void periodicProcessing();
     
+    /**
+     * Returns the current time of the timer scheduler clock
+     * 
+     * @return Time in milliseconds
+     */
+    protected long currentTimeMillis() {
+    	return TimerScheduler.getInstance().currentTimeMillis();
+    }
+    
     /**
      * Start the timer
      * 
@@ -113,12 +114,10 @@ public abstract class PeriodicRefresher {
     		logger.debug("Start timer at period=" + pollingPeriod +  "s (expiration=" + expirePeriod + "s)");
     	}
 
-        // Register the alarm receiver
-    	AndroidFactory.getApplicationContext().registerReceiver(alarmReceiver, new IntentFilter(action));		
-    	
-    	// Start alarm from now to the expire value
-        AlarmManager am = (AlarmManager)AndroidFactory.getApplicationContext().getSystemService(Context.ALARM_SERVICE);
-        am.set(AlarmManager.RTC_WAKEUP, System.currentTimeMillis()+pollingPeriod*1000, alarmIntent);
+    	// Schedule the timer from now to the expire value, or re-arm it
+    	long period = pollingPeriod * 1000L;
+    	long window = Math.min((long)(period * COALESCING_RATIO), MAX_COALESCING_WINDOW);
+    	TimerScheduler.getInstance().schedule(timer, period, window);
 
         // The timer is started
     	timerStarted = true;
@@ -140,30 +139,7 @@ public abstract class PeriodicRefresher {
     	// The timer is stopped
 		timerStarted = false;
 		
-		// Cancel alarm
-		AlarmManager am = (AlarmManager)AndroidFactory.getApplicationContext().getSystemService(Context.ALARM_SERVICE);
-		am.cancel(alarmIntent);
-
-		// Unregister the alarm receiver
-		try {
-			AndroidFactory.getApplicationContext().unregisterReceiver(alarmReceiver);
-	    } catch (IllegalArgumentException e) {
-	    	// Nothing to do
-	    }
+		// Cancel the timer
+		TimerScheduler.getInstance().cancel(timer);
     }
-
-    /**
-     * Keep alive manager
-     */
-    private class KeepAlive extends BroadcastReceiver {
-    	public void onReceive(Context context, Intent intent) {
-    		Thread t = new Thread() {
-    			public void run() {
-    				// Processing
-    				periodicProcessing();
-    			}
-    		};
-    		t.start();
-    	}
-    }    
 }
@@ -18,10 +18,14 @@
 
 package com.orangelabs.rcs.utils;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.telephony.PhoneNumberUtils;
 
 import com.orangelabs.rcs.core.ims.ImsModule;
@@ -29,6 +33,9 @@ import com.orangelabs.rcs.provider.settings.RcsSettings;
 
 /**
  * Phone utility functions
+ * <br>Numbers are parsed in place, without intermediate strings, and the
+ * formatted numbers are kept in bounded LRU caches since the same numbers
+ * are formatted again and again (SIP requests, API calls, address book).
  * 
  * @author jexa7410
  */
@@ -59,6 +66,47 @@ public class PhoneUtils {
      */
     private final static Pattern PATTERN_EXTRACT_URI = Pattern.compile(REGEXP_EXTRACT_URI);
 
+	/**
+	 * Max number of entries of each cache
+	 */
+	private final static int CACHE_MAX_ENTRIES = 512;
+
+	/**
+	 * Cache of the international numbers indexed by phone number
+	 */
+	private final static Map<String, String> INTERNATIONAL_CACHE = new LruCache(CACHE_MAX_ENTRIES);
+
+	/**
+	 * Cache of the international numbers indexed by URI
+	 */
+	private final static Map<String, String> URI_CACHE = new LruCache(CACHE_MAX_ENTRIES);
+
+	/**
+	 * Bounded cache evicting the least recently used entries
+	 */
+	private static class LruCache extends LinkedHashMap<String, String> {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Max number of entries
+		 */
+		private int maxEntries;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param maxEntries Max number of entries
+		 */
+		public LruCache(int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > maxEntries;
+		}
+	}
+
 	/**
 	 * Set the country code
 	 * 
@@ -69,6 +117,21 @@ public class PhoneUtils {
 		TEL_URI_SUPPORTED = RcsSettings.getInstance().isTelUriFormatUsed();
 		COUNTRY_CODE = RcsSettings.getInstance().getCountryCode();
 		COUNTRY_AREA_CODE = RcsSettings.getInstance().getCountryAreaCode();
+
+		// Formatted numbers depend on the settings
+		clearCache();
+	}
+
+	/**
+	 * Clear the caches of formatted numbers
+	 */
+	public static void clearCache() {
+		synchronized(INTERNATIONAL_CACHE) {
+			INTERNATIONAL_CACHE.clear();
+		}
+		synchronized(URI_CACHE) {
+			URI_CACHE.clear();
+		}
 	}
 
 	/**
@@ -90,28 +153,70 @@ public class PhoneUtils {
 		if (number == null) {
 			return null;
 		}
-		
+
+		String result;
+		synchronized(INTERNATIONAL_CACHE) {
+			result = INTERNATIONAL_CACHE.get(number);
+		}
+		if (result == null) {
+			result = formatNumberToInternational(number, 0, number.length());
+			synchronized(INTERNATIONAL_CACHE) {
+				INTERNATIONAL_CACHE.put(number, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Format a part of a string to international format
+	 * 
+	 * @param number String containing the phone number
+	 * @param begin Begin index of the phone number
+	 * @param end End index of the phone number
+	 * @return International number
+	 */
+	private static String formatNumberToInternational(String number, int begin, int end) {
 		// Remove spaces
-		number = number.trim();
+		while ((begin < end) && (number.charAt(begin) <= ' ')) {
+			begin++;
+		}
+		while ((end > begin) && (number.charAt(end-1) <= ' ')) {
+			end--;
+		}
 
-		// Strip all non digits
-		String phoneNumber = PhoneNumberUtils.stripSeparators(number);
+		// Strip all non digits, only if there are separators
+		String phoneNumber = number;
+		for (int i = begin; i < end; i++) {
+			if (!PhoneNumberUtils.isNonSeparator(number.charAt(i))) {
+				phoneNumber = PhoneNumberUtils.stripSeparators(number.substring(begin, end));
+				begin = 0;
+				end = phoneNumber.length();
+				break;
+			}
+		}
 
 		// Format into international
-		if (phoneNumber.startsWith("00" + COUNTRY_CODE.substring(1))) {
+		String countryCode = COUNTRY_CODE;
+		String areaCode = COUNTRY_AREA_CODE;
+		if (phoneNumber.startsWith("00", begin) &&
+				phoneNumber.regionMatches(begin+2, countryCode, 1, countryCode.length()-1) &&
+				((end - begin) >= (countryCode.length()+1))) {
 			// International format
-			phoneNumber = COUNTRY_CODE + phoneNumber.substring(4);
+			return countryCode + phoneNumber.substring(Math.min(begin+4, end), end);
 		} else
-		if ((COUNTRY_AREA_CODE != null) && (COUNTRY_AREA_CODE.length() > 0) &&
-				phoneNumber.startsWith(COUNTRY_AREA_CODE)) {
+		if ((areaCode != null) && (areaCode.length() > 0) &&
+				((end - begin) >= areaCode.length()) &&
+				phoneNumber.startsWith(areaCode, begin)) {
 			// National number with area code
-			phoneNumber = COUNTRY_CODE + phoneNumber.substring(COUNTRY_AREA_CODE.length());
+			return countryCode + phoneNumber.substring(begin+areaCode.length(), end);
 		} else
-		if (!phoneNumber.startsWith("+")) {
+		if ((begin < end) && (phoneNumber.charAt(begin) == '+')) {
+			// International number
+			return phoneNumber.substring(begin, end);
+		} else {
 			// National number
-			phoneNumber = COUNTRY_CODE + phoneNumber;
+			return countryCode + phoneNumber.substring(begin, end);
 		}
-		return phoneNumber;
 	}
 	
 	/**
@@ -125,23 +230,24 @@ public class PhoneUtils {
 			return null;
 		}
 
-		// Remove spaces
-		number = number.trim();
-		
 		// Extract username part
-		if (number.startsWith("tel:")) {
-			number = number.substring(4);
+		String phoneNumber;
+		String uri = number.trim();
+		if (uri.startsWith("tel:")) {
+			phoneNumber = formatNumberToInternational(uri.substring(4));
 		} else		
-		if (number.startsWith("sip:")) {
-			number = number.substring(4, number.indexOf("@"));
+		if (uri.startsWith("sip:")) {
+			phoneNumber = formatNumberToInternational(uri.substring(4, uri.indexOf("@")));
+		} else {
+			phoneNumber = formatNumberToInternational(uri);
 		}
 		
 		if (TEL_URI_SUPPORTED) {
 			// Tel-URI format
-			return "tel:" + formatNumberToInternational(number);
+			return "tel:" + phoneNumber;
 		} else {
 			// SIP-URI format
-			return "sip:" + formatNumberToInternational(number) + "@" +
+			return "sip:" + phoneNumber + "@" +
 				ImsModule.IMS_USER_PROFILE.getHomeDomain() + ";user=phone";	 
 		}
 	}
@@ -157,37 +263,117 @@ public class PhoneUtils {
 			return null;
 		}
 
-		try {
-			// Extract URI from address
-			int index0 = uri.indexOf("<");
-			if (index0 != -1) {
-				uri = uri.substring(index0+1, uri.indexOf(">", index0));
-			}			
-			
-			// Extract a Tel-URI
-			int index1 = uri.indexOf("tel:");
-			if (index1 != -1) {
-				uri = uri.substring(index1+4);
+		String result;
+		synchronized(URI_CACHE) {
+			result = URI_CACHE.get(uri);
+		}
+		if (result == null) {
+			try {
+				result = parseNumberFromUri(uri);
+			} catch(Exception e) {
+				return null;
 			}
-			
-			// Extract a SIP-URI
-			index1 = uri.indexOf("sip:");
-			if (index1 != -1) {
-				int index2 = uri.indexOf("@", index1);
-				uri = uri.substring(index1+4, index2);
+			if (result != null) {
+				synchronized(URI_CACHE) {
+					URI_CACHE.put(uri, result);
+				}
 			}
-			
-			// Remove URI parameters
-			int index2 = uri.indexOf(";"); 
-			if (index2 != -1) {
-				uri = uri.substring(0, index2);
+		}
+		return result;
+	}
+
+	/**
+	 * Parse the user part phone number of a SIP-URI or Tel-URI or SIP address
+	 * 
+	 * @param uri SIP or Tel URI
+	 * @return Number or null in case of error
+	 */
+	private static String parseNumberFromUri(String uri) {
+		int begin = 0;
+		int end = uri.length();
+
+		// Extract URI from address
+		int index0 = uri.indexOf('<');
+		if (index0 != -1) {
+			end = uri.indexOf('>', index0);
+			if (end == -1) {
+				return null;
 			}
-			
-			// Format the extracted number (username part of the URI)
-			return formatNumberToInternational(uri);
-		} catch(Exception e) {
-			return null;
+			begin = index0+1;
+		}
+
+		// Extract a Tel-URI
+		int index1 = indexOf(uri, "tel:", begin, end);
+		if (index1 != -1) {
+			begin = index1+4;
+		}
+
+		// Extract a SIP-URI
+		index1 = indexOf(uri, "sip:", begin, end);
+		if (index1 != -1) {
+			int index2 = indexOf(uri, "@", index1, end);
+			if (index2 == -1) {
+				return null;
+			}
+			begin = index1+4;
+			end = index2;
+		}
+
+		// Remove URI parameters
+		int index2 = indexOf(uri, ";", begin, end);
+		if (index2 != -1) {
+			end = index2;
+		}
+
+		// Format the extracted number (username part of the URI)
+		return formatNumberToInternational(uri, begin, end);
+	}
+
+	/**
+	 * Search a string in a part of another string
+	 * 
+	 * @param str String
+	 * @param sub String to search
+	 * @param begin Begin index of the part
+	 * @param end End index of the part
+	 * @return Index or -1 if not found in the part
+	 */
+	private static int indexOf(String str, String sub, int begin, int end) {
+		int index = str.indexOf(sub, begin);
+		if ((index == -1) || ((index + sub.length()) > end)) {
+			return -1;
+		}
+		return index;
+	}
+
+	/**
+	 * Format the phone numbers of a cursor column to international format, as
+	 * {@link #extractNumberFromUri(String)} does. The cursor is moved to each
+	 * row, a number repeated in the column is formatted only once.
+	 * 
+	 * @param cursor Cursor
+	 * @param columnIndex Index of the column containing the phone numbers
+	 * @return International numbers in the order of the rows, null if a value can't be formatted
+	 */
+	public static String[] formatColumnToInternational(Cursor cursor, int columnIndex) {
+		String[] result = new String[cursor.getCount()];
+		HashMap<String, String> formatted = new HashMap<String, String>();
+		cursor.moveToPosition(-1);
+		for (int i = 0; cursor.moveToNext() && (i < result.length); i++) {
+			String number = cursor.getString(columnIndex);
+			if (number == null) {
+				continue;
+			}
+			String phoneNumber = formatted.get(number);
+			if (phoneNumber == null) {
+				phoneNumber = extractNumberFromUri(number);
+				if (phoneNumber != null) {
+					formatted.put(number, phoneNumber);
+				}
+			}
+			result[i] = phoneNumber;
 		}
+		return result;
 	}
 
 	/**
@@ -0,0 +1,525 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * In-process scheduler of the stack timers. All the timers share a single
+ * wake-up source, armed at the next deadline. A timer may be fired late
+ * within its coalescing window, so that timers expiring close to each other
+ * are fired on the same wake-up. Timers are kept in two binary heaps: one
+ * ordered by the end of their window, giving the wake-up time, and one
+ * ordered by deadline, giving the timers fired on a wake-up. Scheduling,
+ * re-arming and cancelling a timer is O(log n).
+ * <br>The clock, the wake-up source and the executor running the expired
+ * timers are given at creation, so that the scheduler may be driven by a
+ * virtual clock.
+ */
+public class TimerScheduler {
+	/**
+	 * Clock
+	 */
+	public interface Clock {
+		/**
+		 * Returns the current time
+		 *
+		 * @return Time in milliseconds
+		 */
+		public long currentTimeMillis();
+	}
+
+	/**
+	 * Wake-up source, calling {@link TimerScheduler#processExpiredTimers()}
+	 * when the wake-up time is reached
+	 */
+	public interface WakeUpSource {
+		/**
+		 * Set the wake-up time, replacing the previous one
+		 *
+		 * @param time Time in milliseconds
+		 */
+		public void setWakeUp(long time);
+
+		/**
+		 * Cancel the wake-up
+		 */
+		public void cancelWakeUp();
+	}
+
+	/**
+	 * System clock
+	 */
+	public final static Clock SYSTEM_CLOCK = new Clock() {
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+	};
+
+	/**
+	 * Executor running each expired timer in its own thread
+	 */
+	public final static Executor THREAD_EXECUTOR = new Executor() {
+		public void execute(Runnable task) {
+			new Thread(task, "TimerScheduler").start();
+		}
+	};
+
+	/**
+	 * Timer
+	 */
+	public static class Timer {
+		/**
+		 * Task run at expiration
+		 */
+		private final Runnable task;
+
+		/**
+		 * Date before which the timer is not fired
+		 */
+		private long deadline;
+
+		/**
+		 * Date before which the timer should be fired
+		 */
+		private long latest;
+
+		/**
+		 * Scheduling sequence number, keeps the order of timers of the same deadline
+		 */
+		private long sequence;
+
+		/**
+		 * Index in the heap ordered by latest date, -1 if not scheduled
+		 */
+		private int latestIndex = -1;
+
+		/**
+		 * Index in the heap ordered by deadline, -1 if not scheduled
+		 */
+		private int deadlineIndex = -1;
+
+		/**
+		 * Constructor
+		 *
+		 * @param task Task run at expiration
+		 */
+		public Timer(Runnable task) {
+			this.task = task;
+		}
+
+		/**
+		 * Returns the expiration deadline
+		 *
+		 * @return Date in milliseconds
+		 */
+		public long getDeadline() {
+			return deadline;
+		}
+	}
+
+	/**
+	 * Binary heap of timers, ordered by deadline or by latest date. The index
+	 * of each timer in the heap is kept in the timer.
+	 */
+	private static class TimerHeap {
+		/**
+		 * Is the heap ordered by deadline
+		 */
+		private final boolean byDeadline;
+
+		/**
+		 * Timers
+		 */
+		private Timer[] timers = new Timer[16];
+
+		/**
+		 * Number of timers
+		 */
+		private int size = 0;
+
+		/**
+		 * Constructor
+		 *
+		 * @param byDeadline Order the heap by deadline, else by latest date
+		 */
+		TimerHeap(boolean byDeadline) {
+			this.byDeadline = byDeadline;
+		}
+
+		/**
+		 * Returns the first timer
+		 *
+		 * @return Timer or null if the heap is empty
+		 */
+		Timer peek() {
+			return timers[0];
+		}
+
+		/**
+		 * Add a timer
+		 *
+		 * @param timer Timer
+		 */
+		void add(Timer timer) {
+			if (size == timers.length) {
+				Timer[] newTimers = new Timer[size * 2];
+				System.arraycopy(timers, 0, newTimers, 0, size);
+				timers = newTimers;
+			}
+			timers[size] = timer;
+			setIndex(timer, size++);
+			siftUp(size - 1);
+		}
+
+		/**
+		 * Move a timer whose date has changed
+		 *
+		 * @param timer Timer
+		 */
+		void update(Timer timer) {
+			// The new date may be earlier or later
+			siftDown(siftUp(getIndex(timer)));
+		}
+
+		/**
+		 * Remove a timer
+		 *
+		 * @param timer Timer
+		 */
+		void remove(Timer timer) {
+			int index = getIndex(timer);
+			setIndex(timer, -1);
+			size--;
+			if (index != size) {
+				Timer last = timers[size];
+				timers[index] = last;
+				setIndex(last, index);
+				timers[size] = null;
+				siftDown(siftUp(index));
+			} else {
+				timers[size] = null;
+			}
+		}
+
+		/**
+		 * Returns the index of a timer in the heap
+		 *
+		 * @param timer Timer
+		 * @return Index
+		 */
+		private int getIndex(Timer timer) {
+			return byDeadline ? timer.deadlineIndex : timer.latestIndex;
+		}
+
+		/**
+		 * Set the index of a timer in the heap
+		 *
+		 * @param timer Timer
+		 * @param index Index
+		 */
+		private void setIndex(Timer timer, int index) {
+			if (byDeadline) {
+				timer.deadlineIndex = index;
+			} else {
+				timer.latestIndex = index;
+			}
+		}
+
+		/**
+		 * Is a timer before another in the heap
+		 *
+		 * @param t1 Timer
+		 * @param t2 Timer
+		 * @return Boolean
+		 */
+		private boolean before(Timer t1, Timer t2) {
+			long d1 = byDeadline ? t1.deadline : t1.latest;
+			long d2 = byDeadline ? t2.deadline : t2.latest;
+			if (d1 != d2) {
+				return d1 < d2;
+			}
+			return t1.sequence < t2.sequence;
+		}
+
+		/**
+		 * Move a timer up the heap
+		 *
+		 * @param index Index of the timer
+		 * @return New index
+		 */
+		private int siftUp(int index) {
+			Timer timer = timers[index];
+			while (index > 0) {
+				int parent = (index - 1) / 2;
+				if (!before(timer, timers[parent])) {
+					break;
+				}
+				timers[index] = timers[parent];
+				setIndex(timers[index], index);
+				index = parent;
+			}
+			timers[index] = timer;
+			setIndex(timer, index);
+			return index;
+		}
+
+		/**
+		 * Move a timer down the heap
+		 *
+		 * @param index Index of the timer
+		 * @return New index
+		 */
+		private int siftDown(int index) {
+			Timer timer = timers[index];
+			while (true) {
+				int child = 2 * index + 1;
+				if (child >= size) {
+					break;
+				}
+				if ((child + 1 < size) && before(timers[child + 1], timers[child])) {
+					child++;
+				}
+				if (!before(timers[child], timer)) {
+					break;
+				}
+				timers[index] = timers[child];
+				setIndex(timers[index], index);
+				index = child;
+			}
+			timers[index] = timer;
+			setIndex(timer, index);
+			return index;
+		}
+	}
+
+	/**
+	 * Shared instance
+	 */
+	private static TimerScheduler instance = null;
+
+	/**
+	 * Clock
+	 */
+	private Clock clock;
+
+	/**
+	 * Wake-up source
+	 */
+	private WakeUpSource wakeUpSource;
+
+	/**
+	 * Executor of the expired timers
+	 */
+	private Executor executor;
+
+	/**
+	 * Scheduled timers ordered by latest date
+	 */
+	private TimerHeap latestHeap = new TimerHeap(false);
+
+	/**
+	 * Scheduled timers ordered by deadline
+	 */
+	private TimerHeap deadlineHeap = new TimerHeap(true);
+
+	/**
+	 * Current wake-up time, -1 if none
+	 */
+	private long wakeUpTime = -1;
+
+	/**
+	 * Scheduling sequence number
+	 */
+	private long sequence = 0;
+
+	/**
+	 * Number of wake-ups
+	 */
+	private long wakeUpCount = 0;
+
+	/**
+	 * Number of fired timers
+	 */
+	private long firedCount = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param clock Clock
+	 * @param wakeUpSource Wake-up source
+	 * @param executor Executor of the expired timers
+	 */
+	public TimerScheduler(Clock clock, WakeUpSource wakeUpSource, Executor executor) {
+		this.clock = clock;
+		this.wakeUpSource = wakeUpSource;
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the shared instance, created at first use with the system clock
+	 * and an alarm wake-up source
+	 *
+	 * @return Instance
+	 */
+	public static synchronized TimerScheduler getInstance() {
+		if (instance == null) {
+			AlarmWakeUpSource alarm = new AlarmWakeUpSource();
+			instance = new TimerScheduler(SYSTEM_CLOCK, alarm, THREAD_EXECUTOR);
+			alarm.setScheduler(instance);
+		}
+		return instance;
+	}
+
+	/**
+	 * Set the shared instance
+	 *
+	 * @param scheduler Instance
+	 */
+	public static synchronized void setInstance(TimerScheduler scheduler) {
+		instance = scheduler;
+	}
+
+	/**
+	 * Returns the current time of the scheduler clock
+	 *
+	 * @return Time in milliseconds
+	 */
+	public long currentTimeMillis() {
+		return clock.currentTimeMillis();
+	}
+
+	/**
+	 * Schedule a timer, or re-arm it if already scheduled
+	 *
+	 * @param timer Timer
+	 * @param delay Delay before expiration in milliseconds
+	 * @param window Coalescing window in milliseconds: the timer may be fired up to this delay late
+	 */
+	public synchronized void schedule(Timer timer, long delay, long window) {
+		long now = clock.currentTimeMillis();
+		timer.deadline = now + Math.max(0, delay);
+		timer.latest = timer.deadline + Math.max(0, window);
+		timer.sequence = sequence++;
+		if (timer.latestIndex < 0) {
+			latestHeap.add(timer);
+			deadlineHeap.add(timer);
+		} else {
+			latestHeap.update(timer);
+			deadlineHeap.update(timer);
+		}
+		updateWakeUp();
+	}
+
+	/**
+	 * Cancel a timer
+	 *
+	 * @param timer Timer
+	 * @return Returns false if the timer was not scheduled
+	 */
+	public synchronized boolean cancel(Timer timer) {
+		if (timer.latestIndex < 0) {
+			return false;
+		}
+		latestHeap.remove(timer);
+		deadlineHeap.remove(timer);
+		updateWakeUp();
+		return true;
+	}
+
+	/**
+	 * Is a timer scheduled
+	 *
+	 * @param timer Timer
+	 * @return Boolean
+	 */
+	public synchronized boolean isScheduled(Timer timer) {
+		return timer.latestIndex >= 0;
+	}
+
+	/**
+	 * Fire the expired timers, called by the wake-up source
+	 */
+	public void processExpiredTimers() {
+		ArrayList<Timer> expired = new ArrayList<Timer>();
+		synchronized(this) {
+			wakeUpCount++;
+			wakeUpTime = -1;
+			long now = clock.currentTimeMillis();
+			// The timers whose deadline is reached are fired together
+			while ((deadlineHeap.size > 0) && (deadlineHeap.peek().deadline <= now)) {
+				Timer timer = deadlineHeap.peek();
+				deadlineHeap.remove(timer);
+				latestHeap.remove(timer);
+				expired.add(timer);
+			}
+			firedCount += expired.size();
+			updateWakeUp();
+		}
+		for (int i = 0; i < expired.size(); i++) {
+			executor.execute(expired.get(i).task);
+		}
+	}
+
+	/**
+	 * Arm the wake-up source at the latest date of the first timer
+	 */
+	private void updateWakeUp() {
+		if (latestHeap.size == 0) {
+			if (wakeUpTime != -1) {
+				wakeUpTime = -1;
+				wakeUpSource.cancelWakeUp();
+			}
+			return;
+		}
+		long time = latestHeap.peek().latest;
+		if (time != wakeUpTime) {
+			wakeUpTime = time;
+			wakeUpSource.setWakeUp(time);
+		}
+	}
+
+	/**
+	 * Returns the number of scheduled timers
+	 *
+	 * @return Number of timers
+	 */
+	public synchronized int size() {
+		return latestHeap.size;
+	}
+
+	/**
+	 * Returns the number of wake-ups
+	 *
+	 * @return Number of wake-ups
+	 */
+	public synchronized long getWakeUpCount() {
+		return wakeUpCount;
+	}
+
+	/**
+	 * Returns the number of fired timers
+	 *
+	 * @return Number of timers
+	 */
+	public synchronized long getFiredCount() {
+		return firedCount;
+	}
+}
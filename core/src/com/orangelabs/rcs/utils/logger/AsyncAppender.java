@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils.logger;
+
+/**
+ * Asynchronous appender. Traces are queued in a preallocated ring buffer and
+ * printed to the delegate appenders by a background thread, so that the
+ * caller never waits for the output. When the buffer is full the new debug
+ * and info traces are dropped and counted, and the number of dropped traces
+ * is printed once the buffer has been drained. Warnings and errors are never
+ * dropped: when the buffer is full they are printed by the caller.
+ */
+public class AsyncAppender extends Appender {
+	/**
+	 * Default buffer capacity
+	 */
+	public final static int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * Delegate appenders
+	 */
+	private final Appender[] appenders;
+
+	/**
+	 * Classnames of the queued traces
+	 */
+	private final String[] classnames;
+
+	/**
+	 * Levels of the queued traces
+	 */
+	private final int[] levels;
+
+	/**
+	 * Queued traces
+	 */
+	private final String[] traces;
+
+	/**
+	 * Index of the first queued trace
+	 */
+	private int head = 0;
+
+	/**
+	 * Number of queued traces
+	 */
+	private int count = 0;
+
+	/**
+	 * Are traces being printed by the drain thread
+	 */
+	private boolean printing = false;
+
+	/**
+	 * Is the drain thread waiting for traces
+	 */
+	private boolean waiting = false;
+
+	/**
+	 * Number of traces dropped since the last report
+	 */
+	private int pendingDrops = 0;
+
+	/**
+	 * Number of dropped traces
+	 */
+	private long droppedCount = 0;
+
+	/**
+	 * Number of printed traces
+	 */
+	private long printedCount = 0;
+
+	/**
+	 * Drain thread, started at the first trace
+	 */
+	private Thread drainThread = null;
+
+	/**
+	 * Constructor
+	 *
+	 * @param appenders Delegate appenders
+	 */
+	public AsyncAppender(Appender[] appenders) {
+		this(appenders, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param appenders Delegate appenders
+	 * @param capacity Max number of queued traces
+	 */
+	public AsyncAppender(Appender[] appenders, int capacity) {
+		super();
+		this.appenders = appenders;
+		this.classnames = new String[capacity];
+		this.levels = new int[capacity];
+		this.traces = new String[capacity];
+	}
+
+	/**
+	 * Print a trace
+	 *
+	 * @param classname Classname
+	 * @param level Trace level
+	 * @param trace Trace
+	 */
+	public void printTrace(String classname, int level, String trace) {
+		synchronized(this) {
+			if (count < traces.length) {
+				queue(classname, level, trace);
+				return;
+			}
+			if (level < Logger.WARN_LEVEL) {
+				// Buffer full
+				pendingDrops++;
+				droppedCount++;
+				return;
+			}
+			printedCount++;
+		}
+
+		// Buffer full: the trace is printed by the caller rather than dropped
+		print(classname, level, trace);
+	}
+
+	/**
+	 * Queue a trace in the buffer and wake up the drain thread
+	 *
+	 * @param classname Classname
+	 * @param level Trace level
+	 * @param trace Trace
+	 */
+	private void queue(String classname, int level, String trace) {
+		int index = (head + count) % traces.length;
+		classnames[index] = classname;
+		levels[index] = level;
+		traces[index] = trace;
+		count++;
+		if (drainThread == null) {
+			drainThread = new Thread("AsyncAppender") {
+				public void run() {
+					drain();
+				}
+			};
+			drainThread.setDaemon(true);
+			drainThread.start();
+		} else
+		if (waiting) {
+			notify();
+		}
+	}
+
+	/**
+	 * Print the queued traces to the delegate appenders. The traces are taken
+	 * by batch, so that the callers and the drain thread rarely contend.
+	 */
+	private void drain() {
+		String[] batchClassnames = new String[traces.length];
+		int[] batchLevels = new int[traces.length];
+		String[] batchTraces = new String[traces.length];
+		while (true) {
+			int size = 0;
+			int drops;
+			synchronized(this) {
+				printing = false;
+				while ((count == 0) && (pendingDrops == 0)) {
+					try {
+						waiting = true;
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					} finally {
+						waiting = false;
+					}
+				}
+				while (count > 0) {
+					batchClassnames[size] = classnames[head];
+					batchLevels[size] = levels[head];
+					batchTraces[size] = traces[head];
+					classnames[head] = null;
+					traces[head] = null;
+					head = (head + 1) % traces.length;
+					count--;
+					size++;
+				}
+				printedCount += size;
+				drops = pendingDrops;
+				pendingDrops = 0;
+				printing = true;
+			}
+			for(int i=0; i < size; i++) {
+				print(batchClassnames[i], batchLevels[i], batchTraces[i]);
+				batchClassnames[i] = null;
+				batchTraces[i] = null;
+			}
+			if (drops > 0) {
+				print("AsyncAppender", Logger.WARN_LEVEL, drops + " traces dropped");
+			}
+		}
+	}
+
+	/**
+	 * Print a trace to the delegate appenders
+	 *
+	 * @param classname Classname
+	 * @param level Trace level
+	 * @param trace Trace
+	 */
+	private void print(String classname, int level, String trace) {
+		for(int i=0; i < appenders.length; i++) {
+			try {
+				appenders[i].printTrace(classname, level, trace);
+			} catch (RuntimeException e) {
+				// Nothing to do
+			}
+		}
+	}
+
+	/**
+	 * Wait until the queued traces have been printed
+	 *
+	 * @param timeout Max time to wait in milliseconds
+	 * @return Returns false if traces are still queued
+	 */
+	public boolean flush(long timeout) {
+		long end = System.currentTimeMillis() + timeout;
+		while (System.currentTimeMillis() < end) {
+			synchronized(this) {
+				if (isDrained()) {
+					return true;
+				}
+			}
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		synchronized(this) {
+			return isDrained();
+		}
+	}
+
+	/**
+	 * Have all the queued traces been printed
+	 *
+	 * @return Boolean
+	 */
+	private boolean isDrained() {
+		return (count == 0) && (pendingDrops == 0) && !printing;
+	}
+
+	/**
+	 * Returns the delegate appenders
+	 *
+	 * @return Array of appenders
+	 */
+	public Appender[] getAppenders() {
+		return appenders;
+	}
+
+	/**
+	 * Returns the number of dropped traces
+	 *
+	 * @return Number of traces
+	 */
+	public synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Returns the number of printed traces
+	 *
+	 * @return Number of traces
+	 */
+	public synchronized long getPrintedCount() {
+		return printedCount;
+	}
+}
@@ -70,12 +70,17 @@ public class Logger {
 	 * Trace level
 	 */
 	public static int traceLevel = DEBUG_LEVEL;
+
+	/**
+	 * Max time to wait for the queued traces when flushing, in milliseconds
+	 */
+	public static final long FLUSH_TIMEOUT = 2000;
 	
 	/**
 	 * List of appenders
 	 */
 	private static Appender[] appenders = new Appender[] { 
-		new AndroidAppender()
+		new AsyncAppender(new Appender[] { new AndroidAppender() })
 	};
 	
 	/**
@@ -106,6 +111,34 @@ public class Logger {
 		return (activationFlag == TRACE_ON);
 	}
 
+	/**
+	 * Is a trace level printed
+	 * 
+	 * @param level Trace level
+	 * @return boolean
+	 */
+	public boolean isLevelEnabled(int level) {
+		return (activationFlag == TRACE_ON) && (level >= traceLevel);
+	}
+
+	/**
+	 * Are debug traces printed
+	 * 
+	 * @return boolean
+	 */
+	public boolean isDebugEnabled() {
+		return isLevelEnabled(DEBUG_LEVEL);
+	}
+
+	/**
+	 * Are info traces printed
+	 * 
+	 * @return boolean
+	 */
+	public boolean isInfoEnabled() {
+		return isLevelEnabled(INFO_LEVEL);
+	}
+
 	/**
 	 * Debug trace
 	 * 
@@ -115,6 +148,31 @@ public class Logger {
 		printTrace(trace, DEBUG_LEVEL);
 	}
 
+	/**
+	 * Debug trace, formatted only if printed
+	 * 
+	 * @param format Trace where each {} is replaced by an argument
+	 * @param arg Argument
+	 */
+	public void debug(String format, Object arg) {
+		if (isLevelEnabled(DEBUG_LEVEL)) {
+			printTrace(format(format, new Object[] { arg }), DEBUG_LEVEL);
+		}
+	}
+
+	/**
+	 * Debug trace, formatted only if printed
+	 * 
+	 * @param format Trace where each {} is replaced by an argument
+	 * @param arg1 First argument
+	 * @param arg2 Second argument
+	 */
+	public void debug(String format, Object arg1, Object arg2) {
+		if (isLevelEnabled(DEBUG_LEVEL)) {
+			printTrace(format(format, new Object[] { arg1, arg2 }), DEBUG_LEVEL);
+		}
+	}
+
 	/**
 	 * Info trace
 	 * 
@@ -123,6 +181,31 @@ public class Logger {
 	public void info(String trace) {
 		printTrace(trace, INFO_LEVEL);		
 	}
+
+	/**
+	 * Info trace, formatted only if printed
+	 * 
+	 * @param format Trace where each {} is replaced by an argument
+	 * @param arg Argument
+	 */
+	public void info(String format, Object arg) {
+		if (isLevelEnabled(INFO_LEVEL)) {
+			printTrace(format(format, new Object[] { arg }), INFO_LEVEL);
+		}
+	}
+
+	/**
+	 * Info trace, formatted only if printed
+	 * 
+	 * @param format Trace where each {} is replaced by an argument
+	 * @param arg1 First argument
+	 * @param arg2 Second argument
+	 */
+	public void info(String format, Object arg1, Object arg2) {
+		if (isLevelEnabled(INFO_LEVEL)) {
+			printTrace(format(format, new Object[] { arg1, arg2 }), INFO_LEVEL);
+		}
+	}
 	
 	/**
 	 * Warning trace
@@ -180,12 +263,39 @@ public class Logger {
 	 * @param level Trace level
 	 */
 	private void printTrace(String trace, int level) {
-		if ((appenders != null) && (level >= traceLevel)) {
-			for(int i=0; i < appenders.length; i++) {
-				appenders[i].printTrace(classname, level, trace);
+		Appender[] list = appenders;
+		if ((list != null) && (level >= traceLevel)) {
+			for(int i=0; i < list.length; i++) {
+				list[i].printTrace(classname, level, trace);
 			}
 		}
 	}
+
+	/**
+	 * Format a trace, each {} being replaced by the next argument
+	 * 
+	 * @param format Trace
+	 * @param args Arguments
+	 * @return Formatted trace
+	 */
+	public static String format(String format, Object[] args) {
+		if (format == null) {
+			return null;
+		}
+		StringBuilder result = new StringBuilder(format.length() + 16 * args.length);
+		int start = 0;
+		for(int i=0; i < args.length; i++) {
+			int index = format.indexOf("{}", start);
+			if (index == -1) {
+				break;
+			}
+			result.append(format, start, index);
+			result.append(args[i]);
+			start = index + 2;
+		}
+		result.append(format, start, format.length());
+		return result.toString();
+	}
 	
 	/**
 	 * Set the list of appenders
@@ -196,6 +306,78 @@ public class Logger {
 		Logger.appenders = appenders;
 	}
 
+	/**
+	 * Wait until the traces queued by the asynchronous appenders have been
+	 * printed
+	 * 
+	 * @param timeout Max time to wait in milliseconds
+	 * @return Returns false if traces are still queued
+	 */
+	public static boolean flush(long timeout) {
+		Appender[] list = appenders;
+		boolean result = true;
+		if (list != null) {
+			long end = System.currentTimeMillis() + timeout;
+			for(int i=0; i < list.length; i++) {
+				if (list[i] instanceof AsyncAppender) {
+					long remaining = Math.max(0, end - System.currentTimeMillis());
+					result &= ((AsyncAppender)list[i]).flush(remaining);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Install a default uncaught exception handler which prints the exception
+	 * and flushes the queued traces before calling the previous handler, so
+	 * that the last traces are not lost when the process dies
+	 */
+	public static synchronized void installUncaughtExceptionHandler() {
+		Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+		if (!(previous instanceof FlushingExceptionHandler)) {
+			Thread.setDefaultUncaughtExceptionHandler(new FlushingExceptionHandler(previous));
+		}
+	}
+
+	/**
+	 * Uncaught exception handler flushing the queued traces
+	 */
+	private static class FlushingExceptionHandler implements Thread.UncaughtExceptionHandler {
+		/**
+		 * Previous handler
+		 */
+		private final Thread.UncaughtExceptionHandler previous;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param previous Previous handler, may be null
+		 */
+		public FlushingExceptionHandler(Thread.UncaughtExceptionHandler previous) {
+			this.previous = previous;
+		}
+
+		/**
+		 * Uncaught exception
+		 * 
+		 * @param thread Thread
+		 * @param e Exception
+		 */
+		public void uncaughtException(Thread thread, Throwable e) {
+			try {
+				getLogger(Logger.class.getName()).fatal("Uncaught exception in thread " + thread.getName() + ": " + e);
+				flush(FLUSH_TIMEOUT);
+			} finally {
+				if (previous != null) {
+					previous.uncaughtException(thread, e);
+				} else {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Create a static instance
 	 * 
@@ -48,6 +48,9 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
 
     private static final long serialVersionUID = -5611332957903796952L;
 
+    // Stamp of the last modification of the list, see GenericObject.getModificationStamp()
+    private transient volatile long modificationStamp;
+
     public DuplicateNameValueList()
 
     {
@@ -57,6 +60,7 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
     // ------------------
 
     public void setSeparator(String separator) {
+        setModified();
         this.separator = separator;
     }
 
@@ -101,6 +105,7 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
      */
 
     public void set(NameValue nv) {
+        setModified();
         this.nameValueMap.put(nv.getName().toLowerCase(), nv);
     }
 
@@ -108,6 +113,7 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
      * Set a namevalue object in this list.
      */
     public void set(String name, Object value) {
+        setModified();
         NameValue nameValue = new NameValue(name, value);
         nameValueMap.put(name.toLowerCase(), nameValue);
 
@@ -175,6 +181,7 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
      * Remove the element corresponding to this name.
      */
     public boolean delete(String name) {
+        setModified();
         String lcName = name.toLowerCase();
         if (this.nameValueMap.containsKey(lcName)) {
             this.nameValueMap.remove(lcName);
@@ -185,6 +192,27 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
 
     }
 
+    /**
+     * Record a modification of the list.
+     */
+    protected void setModified() {
+        this.modificationStamp = GenericObject.nextModificationStamp();
+    }
+
+    /**
+     * Get the stamp of the last modification of the list or of its name-value pairs.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = this.modificationStamp;
+        Iterator<?> it = this.nameValueMap.values().iterator();
+        while (it.hasNext()) {
+            stamp = Math.max(stamp, ((NameValue) it.next()).getModificationStamp());
+        }
+        return stamp;
+    }
+
     public Object clone() {
         DuplicateNameValueList retval = new DuplicateNameValueList();
         retval.setSeparator(this.separator);
@@ -230,6 +258,7 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
     }
 
     public void clear() {
+        setModified();
         nameValueMap.clear();
 
     }
@@ -239,10 +268,12 @@ public class DuplicateNameValueList implements Serializable, Cloneable {
     }
 
     public NameValue put(String key, NameValue value) {
+        setModified();
         return (NameValue) this.nameValueMap.put(key, value);
     }
 
     public NameValue remove(Object key) {
+        setModified();
         return (NameValue) this.nameValueMap.remove(key);
     }
 
@@ -30,6 +30,7 @@ package gov2.nist.core;
 import java.lang.reflect.*;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
 * The base class from which all the other classes in the
@@ -81,6 +82,12 @@ public abstract class GenericObject implements Serializable, Cloneable {
     protected String stringRepresentation;
     protected Match matchExpression; // Pattern matcher.
 
+    // Source of the modification stamps, see getModificationStamp()
+    private static final AtomicLong modificationStamps = new AtomicLong();
+
+    // Stamp of the last modification of this object, 0 if not modified since created
+    private transient volatile long modificationStamp;
+
     static {
         try {
             for (int i = 0; i < immutableClassNames.length; i++)
@@ -194,6 +201,55 @@ public abstract class GenericObject implements Serializable, Cloneable {
         return clone_obj;
     }
 
+    /**
+     * Get the current modification stamp. Objects modified later get a greater stamp.
+     *
+     * @return the current modification stamp.
+     */
+    public static long currentModificationStamp() {
+        return modificationStamps.get();
+    }
+
+    /**
+     * Get a new modification stamp.
+     *
+     * @return a stamp greater than the stamps handed out before.
+     */
+    static long nextModificationStamp() {
+        return modificationStamps.incrementAndGet();
+    }
+
+    /**
+     * Record a modification of this object. Called by the mutators, so that a
+     * message holding this object does not reuse an encoding made before.
+     */
+    protected void setModified() {
+        this.modificationStamp = modificationStamps.incrementAndGet();
+    }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects
+     * it holds. Objects holding other objects override this method to add them.
+     *
+     * @return the modification stamp, 0 if not modified since created.
+     */
+    public long getModificationStamp() {
+        return this.modificationStamp;
+    }
+
+    /**
+     * Get the greatest of a stamp and of the modification stamp of an object.
+     *
+     * @param stamp a modification stamp.
+     * @param object the object, may be null.
+     * @return the greatest stamp.
+     */
+    protected static long getModificationStamp(long stamp, GenericObject object) {
+        if (object != null)
+            return Math.max(stamp, object.getModificationStamp());
+        return stamp;
+    }
+
     /** Clones this object.
      */
     public Object clone() {
@@ -218,6 +274,7 @@ public abstract class GenericObject implements Serializable, Cloneable {
         // Base case.
         if (mergeObject == null)
             return;
+        setModified();
 
         if (!mergeObject.getClass().equals(this.getClass()))
             throw new IllegalArgumentException("Bad override object");
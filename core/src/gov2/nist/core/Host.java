@@ -188,6 +188,7 @@ public class Host extends GenericObject {
      * @param h String to set
      */
     public void setHostname(String h) {
+        setModified();
         setHost(h, HOSTNAME);
     }
 
@@ -195,6 +196,7 @@ public class Host extends GenericObject {
      *@param address is the address string to set.
      */
     public void setHostAddress(String address) {
+        setModified();
         setHost(address, IPV4ADDRESS);
     }
 
@@ -239,6 +241,7 @@ public class Host extends GenericObject {
      * @param address address String to set
      */
     public void setAddress(String address) {
+        setModified();
         this.setHostAddress(address);
     }
 
@@ -117,6 +117,7 @@ public final class HostPort extends GenericObject {
     /** remove port.
      */
     public void removePort() {
+        setModified();
         port = -1;
     }
 
@@ -125,6 +126,7 @@ public final class HostPort extends GenericObject {
          * @param h Host to set
          */
     public void setHost(Host h) {
+        setModified();
         host = h;
     }
 
@@ -133,6 +135,7 @@ public final class HostPort extends GenericObject {
          * @param p int to set
          */
     public void setPort(int p) {
+        setModified();
         port = p;
     }
 
@@ -168,4 +171,15 @@ public final class HostPort extends GenericObject {
     public int hashCode() {
         return this.host.hashCode() + this.port;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, host);
+        return stamp;
+    }
 }
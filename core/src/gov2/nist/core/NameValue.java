@@ -100,6 +100,7 @@ public class NameValue extends GenericObject implements Entry<String,String> {
      * Set the separator for the encoding method below.
      */
     public void setSeparator(String sep) {
+        setModified();
         separator = sep;
     }
 
@@ -108,6 +109,7 @@ public class NameValue extends GenericObject implements Entry<String,String> {
      * when encoded (for example name=value when value is doublequoted).
      */
     public void setQuotedValue() {
+        setModified();
         isQuotedString = true;
         this.quotes = Separators.DOUBLE_QUOTE;
     }
@@ -132,6 +134,7 @@ public class NameValue extends GenericObject implements Entry<String,String> {
      * Set the name member
      */
     public void setName(String n) {
+        setModified();
         name = n;
     }
 
@@ -139,6 +142,7 @@ public class NameValue extends GenericObject implements Entry<String,String> {
      * Set the value member
      */
     public void setValueAsObject(Object v) {
+        setModified();
         value = v;
     }
 
@@ -271,6 +275,7 @@ public class NameValue extends GenericObject implements Entry<String,String> {
      * @see java.util.Map$Entry#setValue(java.lang.Object)
      */
     public String setValue(String value) {
+        setModified();
         String retval = this.value == null ? null : value;
         this.value = value;
         return retval;
@@ -60,6 +60,9 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
 
     private String separator;
 
+    // Stamp of the last modification of the list, see GenericObject.getModificationStamp()
+    private transient volatile long modificationStamp;
+
     /**
      * default constructor.
      */
@@ -77,6 +80,7 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
     }
 
     public void setSeparator(String separator) {
+        setModified();
         this.separator = separator;
     }
 
@@ -121,6 +125,7 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
      */
 
     public void set(NameValue nv) {
+        setModified();
         this.hmap.put(nv.getName().toLowerCase(), nv);
     }
 
@@ -128,6 +133,7 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
      * Set a namevalue object in this list.
      */
     public void set(String name, Object value) {
+        setModified();
         NameValue nameValue = new NameValue(name, value);
         hmap.put(name.toLowerCase(), nameValue);
 
@@ -202,6 +208,7 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
      * @since 1.0
      */
     public boolean delete(String name) {
+        setModified();
         String lcName = name.toLowerCase();
         if (this.hmap.containsKey(lcName)) {
             this.hmap.remove(lcName);
@@ -212,6 +219,26 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
 
     }
 
+    /**
+     * Record a modification of the list.
+     */
+    protected void setModified() {
+        this.modificationStamp = GenericObject.nextModificationStamp();
+    }
+
+    /**
+     * Get the stamp of the last modification of the list or of its name-value pairs.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = this.modificationStamp;
+        for (NameValue nv : this.hmap.values()) {
+            stamp = Math.max(stamp, nv.getModificationStamp());
+        }
+        return stamp;
+    }
+
     public Object clone() {
         NameValueList retval = new NameValueList();
         retval.setSeparator(this.separator);
@@ -276,6 +303,7 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
      */
 
     public void clear() {
+        setModified();
         this.hmap.clear();
     }
 
@@ -324,10 +352,12 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
      * @see java.util.Map#put(java.lang.Object, java.lang.Object)
      */
     public NameValue put(String name, NameValue nameValue) {
+        setModified();
         return this.hmap.put(name, nameValue);
     }
 
     public void putAll(Map<? extends String, ? extends NameValue> map) {
+        setModified();
         this.hmap.putAll(map);
     }
 
@@ -336,6 +366,7 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
      * @see java.util.Map#remove(java.lang.Object)
      */
     public NameValue remove(Object key) {
+        setModified();
         return this.hmap.remove(key.toString().toLowerCase());
     }
 
@@ -64,10 +64,11 @@ public class SslNetworkLayer implements NetworkLayer {
 
     private SSLServerSocketFactory sslServerSocketFactory;
 
+    private SSLContext sslContext;
+
 	public SslNetworkLayer(String trustStoreFile, String keyStoreFile,
 			char[] keyStorePassword, String keyStoreType)
 			throws GeneralSecurityException, FileNotFoundException, IOException {
-		SSLContext sslContext;
 		sslContext = SSLContext.getInstance("TLS");
 		String algorithm = KeyManagerFactory.getDefaultAlgorithm();
 		TrustManagerFactory tmFactory = TrustManagerFactory
@@ -101,6 +102,15 @@ public class SslNetworkLayer implements NetworkLayer {
 		sslSocketFactory = sslContext.getSocketFactory();
 	}
 
+    /**
+     * Get the context the SSL sockets and engines are created from.
+     *
+     * @return the SSL context
+     */
+    public SSLContext getSSLContext() {
+        return sslContext;
+    }
+
     public ServerSocket createServerSocket(int port, int backlog,
             InetAddress bindAddress) throws IOException {
         return new ServerSocket(port, backlog, bindAddress);
@@ -49,7 +49,6 @@ import gov2.nist.javax2.sip.stack.ServerRequestInterface;
 import gov2.nist.javax2.sip.stack.ServerResponseInterface;
 
 import java.io.IOException;
-import java.util.TimerTask;
 
 import javax2.sip.ClientTransaction;
 import javax2.sip.DialogState;
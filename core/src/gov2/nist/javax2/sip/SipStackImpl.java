@@ -38,7 +38,10 @@ import gov2.nist.javax2.sip.parser.StringMsgParser;
 import gov2.nist.javax2.sip.stack.DefaultMessageLogFactory;
 import gov2.nist.javax2.sip.stack.DefaultRouter;
 import gov2.nist.javax2.sip.stack.MessageProcessor;
+import gov2.nist.javax2.sip.stack.MessageProcessorFactory;
 import gov2.nist.javax2.sip.stack.SIPTransactionStack;
+import gov2.nist.javax2.sip.stack.timers.HashedWheelSipTimer;
+import gov2.nist.javax2.sip.stack.timers.SipTimer;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -229,6 +232,31 @@ import javax2.sip.message.Request;
  * machine but will run the listener in its own thread.</li>
  * </ul>
  * 
+ * <li><b>gov2.nist.javax2.sip.TIMER_CLASS_NAME = classpath </b> <br/>
+ * Implementation of gov2.nist.javax2.sip.stack.timers.SipTimer running the
+ * transaction, dialog and connection timers. The default is
+ * gov2.nist.javax2.sip.stack.timers.HashedWheelSipTimer, a timing wheel
+ * firing the timers from a small thread pool.
+ * gov2.nist.javax2.sip.stack.timers.DefaultSipTimer runs all the timers from
+ * a single java.util.Timer thread.</li>
+ * 
+ * <li><b>gov2.nist.javax2.sip.TIMER_THREAD_POOL_SIZE = integer </b> <br/>
+ * Number of threads firing the timers of the default timer implementation.
+ * The default is 2.</li>
+ * 
+ * <li><b>gov2.nist.javax2.sip.MESSAGE_PROCESSOR_FACTORY = classpath </b> <br/>
+ * Implementation of gov2.nist.javax2.sip.stack.MessageProcessorFactory
+ * creating the transports of the stack. The default is
+ * gov2.nist.javax2.sip.stack.OIOMessageProcessorFactory, running a thread per
+ * TCP or TLS connection.
+ * gov2.nist.javax2.sip.stack.NioMessageProcessorFactory multiplexes the TCP
+ * and TLS connections on a few selector threads, the received messages being
+ * processed on THREAD_POOL_SIZE threads, 8 when it is not set.</li>
+ * 
+ * <li><b>gov2.nist.javax2.sip.NIO_SELECTOR_COUNT = integer </b> <br/>
+ * Number of selector threads of each NIO TCP or TLS transport. The default is
+ * 1.</li>
+ * 
  * <li><b>gov2.nist.javax2.sip.REENTRANT_LISTENER = true|false </b> <br/>
  * Default is false. Set to true if the listener is re-entrant. If the listener
  * is re-entrant then the stack manages a thread pool and synchronously calls
@@ -810,6 +838,57 @@ public class SipStackImpl extends SIPTransactionStack implements
 			}
 		}
 
+		String timerClassName = configurationProperties
+				.getProperty("gov2.nist.javax2.sip.TIMER_CLASS_NAME");
+		if (timerClassName != null
+				|| configurationProperties.getProperty("gov2.nist.javax2.sip.TIMER_THREAD_POOL_SIZE") != null) {
+			// Replace the default timer started by the stack constructor
+			SipTimer sipTimer;
+			if (timerClassName == null) {
+				sipTimer = new HashedWheelSipTimer();
+			} else {
+				try {
+					sipTimer = (SipTimer) Class.forName(timerClassName).newInstance();
+				} catch (Exception ex) {
+					throw new IllegalArgumentException(
+							"Could not instantiate timer "
+									+ timerClassName
+									+ "- check that it is present on the classpath and that there is a no-args constructor defined",
+							ex);
+				}
+			}
+			super.getTimer().stop();
+			sipTimer.start(configurationProperties);
+			super.setTimer(sipTimer);
+		}
+
+		String messageProcessorFactoryName = configurationProperties
+				.getProperty("gov2.nist.javax2.sip.MESSAGE_PROCESSOR_FACTORY");
+		if (messageProcessorFactoryName != null) {
+			try {
+				super.setMessageProcessorFactory((MessageProcessorFactory) Class.forName(
+						messageProcessorFactoryName).newInstance());
+			} catch (Exception ex) {
+				throw new IllegalArgumentException(
+						"Could not instantiate message processor factory "
+								+ messageProcessorFactoryName
+								+ "- check that it is present on the classpath and that there is a no-args constructor defined",
+						ex);
+			}
+		}
+
+		String nioSelectorCount = configurationProperties
+				.getProperty("gov2.nist.javax2.sip.NIO_SELECTOR_COUNT");
+		if (nioSelectorCount != null) {
+			try {
+				this.nioSelectorCount = Math.max(1, Integer.parseInt(nioSelectorCount));
+			} catch (NumberFormatException ex) {
+				if (isLoggingEnabled())
+					this.getStackLogger().logError(
+						"NIO selector count - bad value " + ex.getMessage());
+			}
+		}
+
 		String serverTransactionTableSize = configurationProperties
 				.getProperty("gov2.nist.javax2.sip.MAX_SERVER_TRANSACTIONS");
 		if (serverTransactionTableSize != null) {
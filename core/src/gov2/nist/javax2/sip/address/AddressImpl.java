@@ -151,6 +151,7 @@ public final class AddressImpl
      *@param parameterName is the name of the parameter to remove.
      */
     public void removeParameter(String parameterName) {
+        setModified();
         if (!(address instanceof SipUri))
             throw new RuntimeException("address is not a SipUri");
         SipUri uri = (SipUri) address;
@@ -207,6 +208,7 @@ public final class AddressImpl
      *
      */
     public void setAddressType(int atype) {
+        setModified();
         addressType = atype;
     }
 
@@ -227,6 +229,7 @@ public final class AddressImpl
      *
      */
     public void setDisplayName(String displayName) {
+        setModified();
         this.displayName = displayName;
         this.addressType = NAME_ADDR;
     }
@@ -238,6 +241,7 @@ public final class AddressImpl
      *
      */
     public void setAddess(javax2.sip.address.URI address) {
+        setModified();
         this.address = (GenericURI) address;
     }
 
@@ -281,6 +285,7 @@ public final class AddressImpl
     /** remove the displayName field
      */
     public void removeDisplayName() {
+        setModified();
         displayName = null;
     }
 
@@ -317,6 +322,7 @@ public final class AddressImpl
      * @param address - the new URI address value of this NameAddress.
      */
     public void setURI(URI address) {
+        setModified();
         this.address = (GenericURI) address;
     }
 
@@ -325,6 +331,7 @@ public final class AddressImpl
      *@param user -- user name to set for the imbedded URI.
      */
     public void setUser(String user) {
+        setModified();
         ((SipUri) this.address).setUser(user);
     }
 
@@ -332,6 +339,7 @@ public final class AddressImpl
      * Also set the SIP URI to a special wild card address.
      */
     public void setWildCardFlag() {
+        setModified();
         this.addressType = WILD_CARD;
         this.address = new SipUri();
         ((SipUri)this.address).setUser("*");
@@ -344,4 +352,14 @@ public final class AddressImpl
         return retval;
     }
 
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, address);
+        return stamp;
+    }
 }
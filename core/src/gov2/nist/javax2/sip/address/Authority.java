@@ -152,6 +152,7 @@ public class Authority extends NetObject {
     /** remove the port.
      */
     public void removePort() {
+        setModified();
         if (hostPort != null)
             hostPort.removePort();
     }
@@ -161,6 +162,7 @@ public class Authority extends NetObject {
      * @param passwd String to set
      */
     public void setPassword(String passwd) {
+        setModified();
         if (userInfo == null)
             userInfo = new UserInfo();
         userInfo.setPassword(passwd);
@@ -171,6 +173,7 @@ public class Authority extends NetObject {
      * @param user String to set
      */
     public void setUser(String user) {
+        setModified();
         if (userInfo == null)
             userInfo = new UserInfo();
         this.userInfo.setUser(user);
@@ -181,6 +184,7 @@ public class Authority extends NetObject {
      * @param host Host to set
      */
     public void setHost(Host host) {
+        setModified();
         if (hostPort == null)
             hostPort = new HostPort();
         hostPort.setHost(host);
@@ -191,6 +195,7 @@ public class Authority extends NetObject {
      * @param port int to set
      */
     public void setPort(int port) {
+        setModified();
         if (hostPort == null)
             hostPort = new HostPort();
         hostPort.setPort(port);
@@ -201,6 +206,7 @@ public class Authority extends NetObject {
          * @param h HostPort to set
          */
     public void setHostPort(HostPort h) {
+        setModified();
         hostPort = h;
     }
 
@@ -209,6 +215,7 @@ public class Authority extends NetObject {
          * @param u UserInfo to set
          */
     public void setUserInfo(UserInfo u) {
+        setModified();
         userInfo = u;
     }
 
@@ -216,6 +223,7 @@ public class Authority extends NetObject {
     *
     */
     public void removeUserInfo() {
+        setModified();
         this.userInfo = null;
     }
 
@@ -233,4 +241,16 @@ public class Authority extends NetObject {
         if ( this.hostPort == null ) throw new UnsupportedOperationException("Null hostPort cannot compute hashcode");
         return this.hostPort.encode().hashCode();
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, hostPort);
+        stamp = getModificationStamp(stamp, userInfo);
+        return stamp;
+    }
 }
@@ -90,6 +90,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
     * The scheme must be either Sip or Sips
     */
     public void setScheme(String scheme) {
+        setModified();
         if (scheme.compareToIgnoreCase(SIP) != 0
             && scheme.compareToIgnoreCase(SIPS) != 0)
             throw new IllegalArgumentException("bad scheme " + scheme);
@@ -107,12 +108,14 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @since v1.0
      */
     public void clearUriParms() {
+        setModified();
         uriParms = new NameValueList();
     }
     /**
     *Clear the password from the user part if it exists.
     */
     public void clearPassword() {
+        setModified();
         if (this.authority != null) {
             UserInfo userInfo = authority.getUserInfo();
             if (userInfo != null)
@@ -130,6 +133,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * Clear all Qheaders.
      */
     public void clearQheaders() {
+        setModified();
         qheaders = new NameValueList();
     }
 
@@ -339,6 +343,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
     *
     */
     public void removeParameters() {
+        setModified();
         this.uriParms = new NameValueList();
     }
 
@@ -374,6 +379,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *@param password - password to set.
      */
     public void setUserPassword(String password) {
+        setModified();
         if (this.authority == null)
             this.authority = new Authority();
         authority.setPassword(password);
@@ -464,6 +470,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *remove the ttl value from the parameter list if it exists.
      */
     public void removeTTL() {
+        setModified();
         if (uriParms != null)
             uriParms.delete(TTL);
     }
@@ -472,6 +479,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *Remove the maddr param if it exists.
      */
     public void removeMAddr() {
+        setModified();
         if (uriParms != null)
             uriParms.delete(MADDR);
     }
@@ -480,6 +488,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *Delete the transport string.
      */
     public void removeTransport() {
+        setModified();
         if (uriParms != null)
             uriParms.delete(TRANSPORT);
     }
@@ -488,6 +497,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param name name of the header to remove.
      */
     public void removeHeader(String name) {
+        setModified();
         if (qheaders != null)
             qheaders.delete(name);
     }
@@ -495,6 +505,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
     /** Remove all headers.
      */
     public void removeHeaders() {
+        setModified();
         qheaders = new NameValueList();
     }
 
@@ -502,6 +513,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * Set the user type.
      */
     public void removeUserType() {
+        setModified();
         if (uriParms != null)
             uriParms.delete(USER);
     }
@@ -510,6 +522,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *remove the port setting.
      */
     public void removePort() {
+        setModified();
         authority.removePort();
     }
 
@@ -517,6 +530,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * remove the Method.
      */
     public void removeMethod() {
+        setModified();
         if (uriParms != null)
             uriParms.delete(METHOD);
     }
@@ -530,6 +544,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * unexpectedly while parsing the user value.
      */
     public void setUser(String uname) {
+        setModified();
         if (this.authority == null) {
             this.authority = new Authority();
         }
@@ -540,6 +555,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
     /** Remove the user.
      */
     public void removeUser() {
+        setModified();
         this.authority.removeUserInfo();
     }
 
@@ -550,6 +566,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param value value of the parameter to set.
      */
     public void setDefaultParm(String name, Object value) {
+        setModified();
         if (uriParms.getValue(name) == null) {
             NameValue nv = new NameValue(name, value);
             uriParms.set(nv);
@@ -560,6 +577,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param authority Authority to set.
      */
     public void setAuthority(Authority authority) {
+        setModified();
         this.authority = authority;
     }
 
@@ -567,6 +585,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param h host to set.
      */
     public void setHost(Host h) {
+        setModified();
         if (this.authority == null)
             this.authority = new Authority();
         this.authority.setHost(h);
@@ -576,6 +595,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param parms URI parameters to set.
      */
     public void setUriParms(NameValueList parms) {
+        setModified();
         uriParms = parms;
     }
 
@@ -586,6 +606,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param value value of the parameter to set.
      */
     public void setUriParm(String name, Object value) {
+        setModified();
         NameValue nv = new NameValue(name, value);
         uriParms.set(nv);
     }
@@ -594,6 +615,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param parms query headers to set.
      */
     public void setQheaders(NameValueList parms) {
+        setModified();
         qheaders = parms;
     }
 
@@ -602,6 +624,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param mAddr Host Name to set
      */
     public void setMAddr(String mAddr) {
+        setModified();
         NameValue nameValue = uriParms.getNameValue(MADDR);
         Host host = new Host();
         host.setAddress(mAddr);
@@ -620,6 +643,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param usertype New value String value of the method parameter
      */
     public void setUserParam(String usertype) {
+        setModified();
         uriParms.set(USER, usertype);
     }
 
@@ -628,6 +652,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param method method parameter
      */
     public void setMethod(String method) {
+        setModified();
         uriParms.set(METHOD, method);
     }
 
@@ -636,6 +661,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
     * @param isdnSubAddress ISDN subaddress
     */
     public void setIsdnSubAddress(String isdnSubAddress) {
+        setModified();
         if (telephoneSubscriber == null)
             telephoneSubscriber = new TelephoneNumber();
         telephoneSubscriber.setIsdnSubaddress(isdnSubAddress);
@@ -646,6 +672,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param tel Telephone subscriber field to set.
      */
     public void setTelephoneSubscriber(TelephoneNumber tel) {
+        setModified();
         telephoneSubscriber = tel;
     }
 
@@ -653,6 +680,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param p Port to set.
      */
     public void setPort(int p) {
+        setModified();
         if (authority == null)
             authority = new Authority();
         authority.setPort(p);
@@ -673,6 +701,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param nameValue qeuery header provided as a name,value pair.
      */
     public void setQHeader(NameValue nameValue) {
+        setModified();
         this.qheaders.set(nameValue);
     }
 
@@ -680,6 +709,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *@param nameValue - parameter to set.
      */
     public void setUriParameter(NameValue nameValue) {
+        setModified();
         this.uriParms.set(nameValue);
     }
 
@@ -695,6 +725,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param name -- name of the parameter to remove.
      */
     public void removeParameter(String name) {
+        setModified();
         uriParms.delete(name);
     }
 
@@ -702,6 +733,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *@param hostPort is the hostPort to set.
      */
     public void setHostPort(HostPort hostPort) {
+        setModified();
         if (this.authority == null) {
             this.authority = new Authority();
         }
@@ -876,6 +908,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param value - a String specifying the header value
      */
     public void setHeader(String name, String value) {
+        setModified();
         NameValue nv = new NameValue(name, value);
         qheaders.set(nv);
 
@@ -887,6 +920,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param host host to set.
      */
     public void setHost(String host) throws ParseException {
+        setModified();
         Host h = new Host(host);
         this.setHost(h);
     }
@@ -899,6 +933,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * pre-existing route set.
      */
     public void setLrParam() {
+        setModified();
         this.uriParms.set("lr",null);   // JvB: fixed to not add duplicates
     }
 
@@ -911,6 +946,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param  maddr New value of the <code>maddr</code> parameter
      */
     public void setMAddrParam(String maddr) throws ParseException {
+        setModified();
         if (maddr == null)
             throw new NullPointerException("bad maddr");
         setParameter("maddr", maddr);
@@ -923,6 +959,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param  method - new value String value of the method parameter
      */
     public void setMethodParam(String method) throws ParseException {
+        setModified();
         setParameter("method", method);
     }
 
@@ -945,6 +982,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *
      */
     public void setParameter(String name, String value) throws ParseException {
+        setModified();
         if (name.equalsIgnoreCase("ttl")) {
             try {
                 Integer.parseInt(value);
@@ -961,6 +999,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param secure - the boolean value indicating if the SipURI is secure.
      */
     public void setSecure(boolean secure) {
+        setModified();
         if (secure)
             this.scheme = SIPS;
         else
@@ -974,6 +1013,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @param ttl - new value of the <code>ttl</code> parameter
      */
     public void setTTLParam(int ttl) {
+        setModified();
         if (ttl <= 0)
             throw new IllegalArgumentException("Bad ttl value");
         if (uriParms != null) {
@@ -993,6 +1033,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * @see javax2.sip.ListeningPoint
      */
     public void setTransportParam(String transport) throws ParseException {
+        setModified();
         if (transport == null)
             throw new NullPointerException("null arg");
         if (transport.compareToIgnoreCase("UDP") == 0
@@ -1040,6 +1081,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      * Not part on the interface since gruu is not part of the base RFC3261.
      */
     public void setGrParam(String value) {
+        setModified();
             this.uriParms.set(GRUU, value); // JvB: fixed to not add duplicates
     }
 
@@ -1054,6 +1096,7 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
 
 	@Override
 	public void setParameter(NameValue nameValue) throws ParseException {
+		setModified();
 		// Not used
 	}
 
@@ -1061,4 +1104,19 @@ public class SipUri extends GenericURI implements javax2.sip.address.SipURI , Si
      *remove the +sip-instance value from the parameter list if it exists.
      */
 
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, authority);
+        if (uriParms != null)
+            stamp = Math.max(stamp, uriParms.getModificationStamp());
+        if (qheaders != null)
+            stamp = Math.max(stamp, qheaders.getModificationStamp());
+        stamp = getModificationStamp(stamp, telephoneSubscriber);
+        return stamp;
+    }
 }
@@ -58,6 +58,7 @@ public class TelURLImpl
      */
 
     public void setTelephoneNumber(TelephoneNumber telephoneNumber) {
+        setModified();
         this.telephoneNumber = telephoneNumber;
     }
 
@@ -113,6 +114,7 @@ public class TelURLImpl
      * phone user.
      */
     public void setGlobal(boolean global) {
+        setModified();
         this.telephoneNumber.setGlobal(global);
     }
 
@@ -123,6 +125,7 @@ public class TelURLImpl
      * parameter
      */
     public void setIsdnSubAddress(String isdnSubAddress) {
+        setModified();
         this.telephoneNumber.setIsdnSubaddress(isdnSubAddress);
     }
 
@@ -132,6 +135,7 @@ public class TelURLImpl
      * @param postDial - new value of the <code>postDial</code> parameter
      */
     public void setPostDial(String postDial) {
+        setModified();
         this.telephoneNumber.setPostDial(postDial);
     }
 
@@ -140,6 +144,7 @@ public class TelURLImpl
      * @param telephoneNumber long phone number to set.
      */
     public void setPhoneNumber(String telephoneNumber) {
+        setModified();
         this.telephoneNumber.setPhoneNumber(telephoneNumber);
     }
 
@@ -185,6 +190,7 @@ public class TelURLImpl
     }
 
     public void setParameter(String name, String value) {
+        setModified();
         telephoneNumber.setParameter(name, value);
     }
 
@@ -197,6 +203,7 @@ public class TelURLImpl
     }
 
     public void removeParameter(String name) {
+        setModified();
         telephoneNumber.removeParameter(name);
     }
 
@@ -204,6 +211,7 @@ public class TelURLImpl
      * @see javax2.sip.address.TelURL#setPhoneContext(java.lang.String)
      */
     public void setPhoneContext(String phoneContext) throws ParseException {
+        setModified();
 
         // JvB: set (null) should be interpreted as 'remove'
         if (phoneContext==null) {
@@ -223,6 +231,18 @@ public class TelURLImpl
 
 	@Override
 	public void setParameter(NameValue nameValue) throws ParseException {
+		setModified();
 		// Not used
 	}
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, telephoneNumber);
+        return stamp;
+    }
 }
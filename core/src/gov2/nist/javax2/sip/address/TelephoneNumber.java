@@ -65,6 +65,7 @@ public class TelephoneNumber extends NetObject {
      * @param name String to set
      */
     public void deleteParm(String name) {
+        setModified();
         parameters.delete(name);
     }
 
@@ -124,6 +125,7 @@ public class TelephoneNumber extends NetObject {
     /** remove the PostDial field
      */
     public void removePostDial() {
+        setModified();
         parameters.delete(POSTDIAL);
     }
 
@@ -131,6 +133,7 @@ public class TelephoneNumber extends NetObject {
      * Remove the isdn subaddress (if it exists).
      */
     public void removeIsdnSubaddress() {
+        setModified();
         deleteParm(ISUB);
     }
 
@@ -139,6 +142,7 @@ public class TelephoneNumber extends NetObject {
      * @param p NameValueList to set
      */
     public void setParameters(NameValueList p) {
+        setModified();
         parameters = p;
     }
 
@@ -146,6 +150,7 @@ public class TelephoneNumber extends NetObject {
      * @param g boolean to set
      */
     public void setGlobal(boolean g) {
+        setModified();
         isglobal = g;
     }
 
@@ -153,6 +158,7 @@ public class TelephoneNumber extends NetObject {
      * @param p String to set
      */
     public void setPostDial(String p) {
+        setModified();
         NameValue nv = new NameValue(POSTDIAL, p);
         parameters.set(nv);
     }
@@ -162,6 +168,7 @@ public class TelephoneNumber extends NetObject {
      * @param value Object to set
      */
     public void setParm(String name, Object value) {
+        setModified();
         NameValue nv = new NameValue(name, value);
         parameters.set(nv);
     }
@@ -171,6 +178,7 @@ public class TelephoneNumber extends NetObject {
      * @param isub String to set
      */
     public void setIsdnSubaddress(String isub) {
+        setModified();
         setParm(ISUB, isub);
     }
 
@@ -178,6 +186,7 @@ public class TelephoneNumber extends NetObject {
      * @param num String to set
      */
     public void setPhoneNumber(String num) {
+        setModified();
         phoneNumber = num;
     }
 
@@ -227,10 +236,12 @@ public class TelephoneNumber extends NetObject {
     }
 
     public void removeParameter(String parameter) {
+        setModified();
         this.parameters.delete(parameter);
     }
 
     public void setParameter(String name, String value) {
+        setModified();
         NameValue nv = new NameValue(name, value);
         this.parameters.set(nv);
     }
@@ -245,4 +256,16 @@ public class TelephoneNumber extends NetObject {
     public NameValueList getParameters() {
         return this.parameters;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        if (parameters != null)
+            stamp = Math.max(stamp, parameters.getModificationStamp());
+        return stamp;
+    }
 }
@@ -118,6 +118,7 @@ public final class UserInfo extends NetObject {
     /** Clear the password field.
     */
     public void clearPassword() {
+        setModified();
         this.password = null;
     }
 
@@ -148,6 +149,7 @@ public final class UserInfo extends NetObject {
      * @param user String to set
      */
     public void setUser(String user) {
+        setModified();
         this.user = user;
         // BUG Fix submitted by Lamine Brahimi
         // add this (taken form sip_messageParser)
@@ -166,6 +168,7 @@ public final class UserInfo extends NetObject {
      * @param p String to set
      */
     public void setPassword(String p) {
+        setModified();
         password = p;
     }
 
@@ -175,6 +178,7 @@ public final class UserInfo extends NetObject {
      * @throws IllegalArgumentException if type is not in range.
      */
     public void setUserType(int type) throws IllegalArgumentException {
+        setModified();
         if (type != TELEPHONE_SUBSCRIBER && type != USER) {
             throw new IllegalArgumentException("Parameter not in range");
         }
@@ -27,7 +27,6 @@ import java.text.ParseException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.ListIterator;
-import java.util.Timer;
 
 import javax2.sip.ClientTransaction;
 import javax2.sip.DialogState;
@@ -79,8 +78,6 @@ public class AuthenticationHelperImpl implements AuthenticationHelper {
 
     private SipStackImpl sipStack;
 
-    Timer timer;
-
     /**
      * Default constructor for the security manager. There is one Account manager. There is one
      * SipSecurity manager for every user name,
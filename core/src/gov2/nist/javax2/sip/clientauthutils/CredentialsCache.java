@@ -1,5 +1,8 @@
 package gov2.nist.javax2.sip.clientauthutils;
 
+import gov2.nist.javax2.sip.stack.SIPStackTimerTask;
+import gov2.nist.javax2.sip.stack.timers.SipTimer;
+
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -24,9 +27,9 @@ class CredentialsCache {
      */
     private ConcurrentHashMap<String, List<AuthorizationHeader>> authorizationHeaders =
             new ConcurrentHashMap<String, List<AuthorizationHeader>>();
-    private Timer timer;
+    private SipTimer timer;
 
-    class TimeoutTask extends TimerTask {
+    class TimeoutTask extends SIPStackTimerTask {
         String callId;
         String userName;
 
@@ -36,7 +39,7 @@ class CredentialsCache {
         }
 
         @Override
-        public void run() {
+        protected void runTask() {
             authorizationHeaders.remove(callId);
 
         }
@@ -45,7 +48,7 @@ class CredentialsCache {
 
 
 
-    CredentialsCache (Timer timer) {
+    CredentialsCache (SipTimer timer) {
         this.timer = timer;
     }
 
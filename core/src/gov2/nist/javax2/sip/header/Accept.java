@@ -150,6 +150,7 @@ public final class Accept
      *Remove the q value.
      */
     public void removeQValue() {
+        setModified();
         super.removeParameter(ParameterNames.Q);
     }
 
@@ -157,6 +158,7 @@ public final class Accept
      * @param subtype String to set
      */
     public void setContentSubType(String subtype) {
+        setModified();
         if (mediaRange == null)
             mediaRange = new MediaRange();
         mediaRange.setSubtype(subtype);
@@ -166,6 +168,7 @@ public final class Accept
      * @param type String to set
      */
     public void setContentType(String type) {
+        setModified();
         if (mediaRange == null)
             mediaRange = new MediaRange();
         mediaRange.setType(type);
@@ -177,6 +180,7 @@ public final class Accept
      * @throws IllegalArgumentException if qValue is <0.0 or >1.0
      */
     public void setQValue(float qValue) throws InvalidArgumentException {
+        setModified();
         if (qValue == -1)
             super.removeParameter(ParameterNames.Q);
         super.setParameter(ParameterNames.Q, qValue);
@@ -188,6 +192,7 @@ public final class Accept
          * @param m MediaRange field
          */
     public void setMediaRange(MediaRange m) {
+        setModified();
         mediaRange = m;
     }
 
@@ -198,4 +203,14 @@ public final class Accept
         return retval;
     }
 
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, mediaRange);
+        return stamp;
+    }
 }
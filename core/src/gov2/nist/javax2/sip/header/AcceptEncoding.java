@@ -130,6 +130,7 @@ public final class AcceptEncoding extends ParametersHeader implements
      *            double to set
      */
     public void setQValue(float q) throws InvalidArgumentException {
+        setModified();
         if (q < 0.0 || q > 1.0)
             throw new InvalidArgumentException("qvalue out of range!");
         super.setParameter("q", q);
@@ -146,6 +147,7 @@ public final class AcceptEncoding extends ParametersHeader implements
      */
 
     public void setEncoding(String encoding) throws ParseException {
+        setModified();
         if (encoding == null)
             throw new NullPointerException(" encoding parameter is null");
         contentCoding = encoding;
@@ -116,6 +116,7 @@ public final class AcceptLanguage
      * @since 1.0
      */
     public void removeQValue() {
+        setModified();
         removeParameter("q");
     }
 
@@ -126,6 +127,7 @@ public final class AcceptLanguage
      *
      */
     public void setLanguageRange(String languageRange) {
+        setModified();
         this.languageRange = languageRange.trim();
     }
 
@@ -149,6 +151,7 @@ public final class AcceptLanguage
      *
      */
     public void setQValue(float q) throws InvalidArgumentException {
+        setModified();
         if (q < 0.0 || q > 1.0)
             throw new InvalidArgumentException("qvalue out of range!");
         if (q == -1)
@@ -188,6 +191,7 @@ public final class AcceptLanguage
      *
      */
     public void setAcceptLanguage(Locale language) {
+        setModified();
         // JvB: need to take sub-tag into account
         if ( "".equals(language.getCountry())) {
             this.languageRange = language.getLanguage();
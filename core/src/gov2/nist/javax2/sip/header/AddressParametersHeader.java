@@ -57,6 +57,7 @@ public abstract class AddressParametersHeader extends ParametersHeader implement
      * @see gov2.nist.javax2.sip.header.AddressParameters#setAddress(javax2.sip.address.Address)
      */
     public void setAddress(Address address) {
+        setModified();
         this.address = (AddressImpl) address;
     }
 
@@ -103,4 +104,14 @@ public abstract class AddressParametersHeader extends ParametersHeader implement
         return false;
     }
 
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, address);
+        return stamp;
+    }
 }
@@ -86,6 +86,7 @@ public final class AlertInfo
      * @param uri URI to set
      */
     public void setAlertInfo(URI uri) {
+        setModified();
         this.uri = (GenericURI) uri;
     }
 
@@ -94,6 +95,7 @@ public final class AlertInfo
      * @param string String to set
      */
     public void setAlertInfo(String string) {
+        setModified();
         this.string = string;
     }
 
@@ -126,4 +128,15 @@ public final class AlertInfo
         }
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, uri);
+        return stamp;
+    }
 }
@@ -74,6 +74,7 @@ public final class Allow extends
      * @param method method to set.
      */
     public void setMethod(String method) throws ParseException {
+        setModified();
         if (method == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception"
@@ -75,6 +75,7 @@ public final class AllowEvents
      * unexpectedly while parsing the Strings defining the eventType supported
      */
     public void setEventType(String eventType) throws ParseException {
+        setModified();
         if (eventType == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception,"
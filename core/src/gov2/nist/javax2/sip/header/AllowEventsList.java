@@ -102,6 +102,7 @@ public class AllowEventsList extends SIPHeaderList<AllowEvents>  {
      *
      */
     public void setMethods(List<String> methods) throws ParseException {
+        setModified();
         ListIterator<String> it = methods.listIterator();
         while (it.hasNext()) {
             AllowEvents allowEvents = new AllowEvents();
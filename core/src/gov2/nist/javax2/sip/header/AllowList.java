@@ -104,6 +104,7 @@ public class AllowList extends SIPHeaderList<Allow> {
      *
      */
     public void setMethods(List<String> methods) throws ParseException {
+        setModified();
         ListIterator<String> it = methods.listIterator();
         while (it.hasNext()) {
             Allow allow = new Allow();
@@ -103,6 +103,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      *            value of the parameter.
      */
     public void setParameter(String name, String value) throws ParseException {
+        setModified();
         NameValue nv = super.parameters.getNameValue(name.toLowerCase());
         if (nv == null) {
             nv = new NameValue(name, value);
@@ -144,6 +145,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      *            the challenge from which the parameters are extracted.
      */
     public void setChallenge(Challenge challenge) {
+        setModified();
         this.scheme = challenge.scheme;
         super.parameters = challenge.authParams;
     }
@@ -167,6 +169,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      *            scheme.
      */
     public void setScheme(String scheme) {
+        setModified();
         this.scheme = scheme;
     }
 
@@ -194,6 +197,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      *             while parsing the realm.
      */
     public void setRealm(String realm) throws ParseException {
+        setModified();
         if (realm == null)
             throw new NullPointerException(
                     "JAIN-SIP Exception, "
@@ -225,6 +229,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      * @since v1.1
      */
     public void setNonce(String nonce) throws ParseException {
+        setModified();
         if (nonce == null)
             throw new NullPointerException(
                     "JAIN-SIP Exception, "
@@ -255,6 +260,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      * and Proxy-Authenticate headers
      */
     public void setURI(javax2.sip.address.URI uri) {
+        setModified();
         if (uri != null) {
             NameValue nv = new NameValue(ParameterNames.URI, uri);
             nv.setQuotedValue();
@@ -291,6 +297,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      * @since v1.1
      */
     public void setAlgorithm(String algorithm) throws ParseException {
+        setModified();
         if (algorithm == null)
             throw new NullPointerException("null arg");
         setParameter(ParameterNames.ALGORITHM, algorithm);
@@ -319,6 +326,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      * @since v1.1
      */
     public void setQop(String qop) throws ParseException {
+        setModified();
         if (qop == null)
             throw new NullPointerException("null arg");
         setParameter(ParameterNames.QOP, qop);
@@ -347,6 +355,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      * @since v1.1
      */
     public void setOpaque(String opaque) throws ParseException {
+        setModified();
         if (opaque == null)
             throw new NullPointerException("null arg");
         setParameter(ParameterNames.OPAQUE, opaque);
@@ -375,6 +384,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      * @since v1.1
      */
     public void setDomain(String domain) throws ParseException {
+        setModified();
         if (domain == null)
             throw new NullPointerException("null arg");
         setParameter(ParameterNames.DOMAIN, domain);
@@ -400,6 +410,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      * @since v1.1
      */
     public void setStale(boolean stale) {
+        setModified();
         setParameter(new NameValue(ParameterNames.STALE, Boolean.valueOf(stale)));
     }
 
@@ -421,6 +432,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      *            a nonce string.
      */
     public void setCNonce(String cnonce) throws ParseException {
+        setModified();
         this.setParameter(ParameterNames.CNONCE, cnonce);
     }
 
@@ -443,6 +455,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      */
 
     public void setNonceCount(int param) throws java.text.ParseException {
+        setModified();
         if (param < 0)
             throw new ParseException("bad value", 0);
 
@@ -470,6 +483,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      *            to set.
      */
     public void setResponse(String response) throws ParseException {
+        setModified();
         if (response == null)
             throw new NullPointerException("Null parameter");
         // Bug fix from Andreas Bystr�m
@@ -506,10 +520,12 @@ public abstract class AuthenticationHeader extends ParametersHeader {
      *
      */
     public void setUsername(String username) throws ParseException {
+        setModified();
         this.setParameter(ParameterNames.USERNAME, username);
     }
 
     public void setIK(String ik) throws ParseException {
+        setModified();
         if (ik == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -522,6 +538,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
     }
 
     public void setCK(String ck) throws ParseException {
+        setModified();
         if (ck == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -536,6 +553,7 @@ public abstract class AuthenticationHeader extends ParametersHeader {
 
     public void setIntegrityProtected(String integrityProtected) throws ParseException
     {
+        setModified();
         if (integrityProtected == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
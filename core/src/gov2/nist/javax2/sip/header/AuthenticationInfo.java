@@ -53,6 +53,7 @@ public final class AuthenticationInfo
     }
 
     public void add(NameValue nv) {
+        setModified();
         parameters.set(nv);
     }
 
@@ -146,6 +147,7 @@ public final class AuthenticationInfo
      * @since v1.1
      */
     public void setCNonce(String cNonce) throws ParseException {
+        setModified();
         this.setParameter(ParameterNames.CNONCE, cNonce);
     }
 
@@ -158,6 +160,7 @@ public final class AuthenticationInfo
      * @since v1.1
      */
     public void setNextNonce(String nextNonce) throws ParseException {
+        setModified();
         this.setParameter(ParameterNames.NEXT_NONCE, nextNonce);
     }
 
@@ -170,6 +173,7 @@ public final class AuthenticationInfo
      * @since v1.1
      */
     public void setNonceCount(int nonceCount) throws ParseException {
+        setModified();
         if (nonceCount < 0)
             throw new ParseException("bad value", 0);
         String nc = Integer.toHexString(nonceCount);
@@ -188,6 +192,7 @@ public final class AuthenticationInfo
      * @since v1.1
      */
     public void setQop(String qop) throws ParseException {
+        setModified();
         this.setParameter(ParameterNames.QOP, qop);
     }
 
@@ -202,10 +207,12 @@ public final class AuthenticationInfo
      * @since v1.1
      */
     public void setResponse(String response) throws ParseException {
+        setModified();
         this.setParameter(ParameterNames.RESPONSE_AUTH, response);
     }
 
     public void setParameter(String name, String value) throws ParseException {
+        setModified();
         if (name == null)
             throw new NullPointerException("null name");
         NameValue nv = super.parameters.getNameValue(name.toLowerCase());
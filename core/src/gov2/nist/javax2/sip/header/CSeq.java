@@ -131,6 +131,7 @@ public class CSeq extends SIPHeader implements javax2.sip.header.CSeqHeader {
      */
     public void setSeqNumber(long sequenceNumber)
         throws InvalidArgumentException {
+        setModified();
         if (sequenceNumber < 0 )
             throw new InvalidArgumentException(
                 "JAIN-SIP Exception, CSeq, setSequenceNumber(), "
@@ -147,6 +148,7 @@ public class CSeq extends SIPHeader implements javax2.sip.header.CSeqHeader {
      * For backwards compatibility
      */
     public void setSequenceNumber(int sequenceNumber) throws InvalidArgumentException {
+        setModified();
         this.setSeqNumber( (long) sequenceNumber );
     }
 
@@ -155,6 +157,7 @@ public class CSeq extends SIPHeader implements javax2.sip.header.CSeqHeader {
      * @see javax2.sip.header.CSeqHeader#setMethod(java.lang.String)
      */
     public void setMethod(String meth) throws ParseException {
+        setModified();
         if (meth == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, CSeq"
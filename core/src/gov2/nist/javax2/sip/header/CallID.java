@@ -115,6 +115,7 @@ public class CallID
      * not a token@token.
      */
     public void setCallId(String cid) throws ParseException {
+        setModified();
         try {
             callIdentifier = new CallIdentifier(cid);
         } catch (IllegalArgumentException ex) {
@@ -127,6 +128,7 @@ public class CallID
      * @param cid CallIdentifier to set (localId@host).
      */
     public void setCallIdentifier(CallIdentifier cid) {
+        setModified();
         callIdentifier = cid;
     }
 
@@ -145,4 +147,15 @@ public class CallID
             retval.callIdentifier = (CallIdentifier) this.callIdentifier.clone();
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, callIdentifier);
+        return stamp;
+    }
 }
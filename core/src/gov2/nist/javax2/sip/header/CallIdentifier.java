@@ -149,6 +149,7 @@ public final class CallIdentifier extends SIPObject {
      * @param localId String to set
      */
     public void setLocalId(String localId) {
+        setModified();
         this.localId = localId;
     }
 
@@ -158,6 +159,7 @@ public final class CallIdentifier extends SIPObject {
      * token@token
      */
     public void setCallID(String cid) throws IllegalArgumentException {
+        setModified();
         if (cid == null)
             throw new IllegalArgumentException("NULL!");
         int index = cid.indexOf('@');
@@ -178,6 +180,7 @@ public final class CallIdentifier extends SIPObject {
      * @param host String to set
      */
     public void setHost(String host) {
+        setModified();
         this.host = host;
     }
 }
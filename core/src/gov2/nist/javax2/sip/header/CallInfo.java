@@ -99,6 +99,7 @@ public final class CallInfo
      * @param purpose is the purpose field.
      */
     public void setPurpose(String purpose) {
+        setModified();
         if (purpose == null)
             throw new NullPointerException("null arg");
         try {
@@ -112,6 +113,7 @@ public final class CallInfo
      * @param info is the URI to set.
      */
     public void setInfo(javax2.sip.address.URI info) {
+        setModified();
         this.info = (GenericURI) info;
     }
 
@@ -121,4 +123,15 @@ public final class CallInfo
             retval.info = (GenericURI) this.info.clone();
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, info);
+        return stamp;
+    }
 }
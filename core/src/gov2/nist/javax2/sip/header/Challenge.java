@@ -214,6 +214,7 @@ public class Challenge extends SIPObject {
      * otherwise.
      */
     public boolean removeParameter(String name) {
+        setModified();
         return authParams.delete(name);
     }
 
@@ -221,6 +222,7 @@ public class Challenge extends SIPObject {
      * remove all parameters
      */
     public void removeParameters() {
+        setModified();
         authParams = new NameValueList();
     }
 
@@ -229,6 +231,7 @@ public class Challenge extends SIPObject {
      * @param nv NameValue to set
      */
     public void setParameter(NameValue nv) {
+        setModified();
         authParams.set(nv);
     }
 
@@ -237,6 +240,7 @@ public class Challenge extends SIPObject {
      * @param s String to set
      */
     public void setScheme(String s) {
+        setModified();
         scheme = s;
     }
 
@@ -245,6 +249,7 @@ public class Challenge extends SIPObject {
      * @param a NameValueList to set
      */
     public void setAuthParams(NameValueList a) {
+        setModified();
         authParams = a;
     }
 
@@ -254,4 +259,16 @@ public class Challenge extends SIPObject {
             retval.authParams = (NameValueList) this.authParams.clone();
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        if (authParams != null)
+            stamp = Math.max(stamp, authParams.getModificationStamp());
+        return stamp;
+    }
 }
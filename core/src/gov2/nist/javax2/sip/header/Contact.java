@@ -82,6 +82,7 @@ public final  class Contact
     /** Set a parameter.
     */
     public void setParameter(String name, String value) throws ParseException {
+        setModified();
         NameValue nv = parameters.getNameValue(name);
         if (nv != null) {
             nv.setValueAsObject(value);
@@ -165,6 +166,7 @@ public final  class Contact
     */
 
     public void setExpires(int expiryDeltaSeconds) {
+        setModified();
         Integer deltaSeconds = Integer.valueOf(expiryDeltaSeconds);
         this.parameters.set(EXPIRES, deltaSeconds);
     }
@@ -180,6 +182,7 @@ public final  class Contact
      * @param cl ContactList to set
      */
     public void setContactList(ContactList cl) {
+        setModified();
         contactList = cl;
     }
 
@@ -188,6 +191,7 @@ public final  class Contact
      * @param w boolean to set
      */
     public void setWildCardFlag(boolean w) {
+        setModified();
         this.wildCardFlag = true;
         this.address = new AddressImpl();
         this.address.setWildCardFlag();
@@ -199,6 +203,7 @@ public final  class Contact
      * @param address Address to set
      */
     public void setAddress(javax2.sip.address.Address address) {
+        setModified();
         // Canonical form must have <> around the address.
         if (address == null)
             throw new NullPointerException("null address");
@@ -211,6 +216,7 @@ public final  class Contact
      * @param qValue float to set
      */
     public void setQValue(float qValue) throws InvalidArgumentException {
+        setModified();
         if (qValue != -1 && (qValue < 0 || qValue > 1))
             throw new InvalidArgumentException(
                 "JAIN-SIP Exception, Contact, setQValue(), "
@@ -229,6 +235,7 @@ public final  class Contact
      * @see javax2.sip.header.ContactHeader#setWildCard()
      */
     public void setWildCard() {
+        setModified();
        this.setWildCardFlag(true);
 
     }
@@ -246,6 +253,7 @@ public final  class Contact
     }
 
     public void removeSipInstanceParam() {
+        setModified();
         if (parameters != null)
             parameters.delete(ParameterNames.SIP_INSTANCE);
     }
@@ -255,6 +263,7 @@ public final  class Contact
     }
 
     public void setSipInstanceParam(String value) {
+        setModified();
         this.parameters.set(ParameterNames.SIP_INSTANCE, value);
     }
 
@@ -262,6 +271,7 @@ public final  class Contact
      *remove the pub-gruu value from the parameter list if it exists.
      */
     public void removePubGruuParam() {
+        setModified();
         if (parameters != null)
             parameters.delete(ParameterNames.PUB_GRUU);
     }
@@ -272,6 +282,7 @@ public final  class Contact
 
     public void setPubGruuParam(String value)
     {
+        setModified();
         this.parameters.set(ParameterNames.PUB_GRUU, value);
     }
 
@@ -279,6 +290,7 @@ public final  class Contact
      *remove the pub-gruu value from the parameter list if it exists.
      */
     public void removeTempGruuParam() {
+        setModified();
         if (parameters != null)
             parameters.delete(ParameterNames.TEMP_GRUU);
     }
@@ -289,6 +301,7 @@ public final  class Contact
 
     public void setTempGruuParam(String value)
     {
+        setModified();
         this.parameters.set(ParameterNames.TEMP_GRUU, value);
     }
 }
@@ -77,6 +77,7 @@ public final class ContentDisposition
      */
     public void setDispositionType(String dispositionType)
         throws ParseException {
+        setModified();
         if (dispositionType == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception"
@@ -104,6 +105,7 @@ public final class ContentDisposition
      * @param handling String to set.
      */
     public void setHandling(String handling) throws ParseException {
+        setModified();
         if (handling == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception"
@@ -127,6 +127,7 @@ public class ContentEncoding
      * @param encoding String to set
      */
     public void setEncoding(String encoding) throws ParseException {
+        setModified();
         if (encoding == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, " + " encoding is null");
@@ -128,6 +128,7 @@ public class ContentLanguage
      * @param languageTag -- language tag to set.
      */
     public void setLanguageTag(String languageTag) {
+        setModified();
 
         final int slash = languageTag.indexOf('-');
         if (slash>=0) {
@@ -158,6 +159,7 @@ public class ContentLanguage
      *
      */
     public void setContentLanguage(Locale language) {
+        setModified();
         this.locale = language;
     }
 
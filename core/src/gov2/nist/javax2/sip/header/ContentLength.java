@@ -114,6 +114,7 @@ public class ContentLength
      */
     public void setContentLength(int contentLength)
         throws InvalidArgumentException {
+        setModified();
         if (contentLength < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP Exception"
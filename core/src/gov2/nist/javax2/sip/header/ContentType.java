@@ -163,6 +163,7 @@ public class ContentType
      * @param m mediaRange field.
      */
     public void setMediaRange(MediaRange m) {
+        setModified();
         mediaRange = m;
     }
 
@@ -172,6 +173,7 @@ public class ContentType
     *@param contentSubType content subtype string
     */
     public void setContentType(String contentType, String contentSubType) {
+        setModified();
         if (mediaRange == null)
             mediaRange = new MediaRange();
         mediaRange.setType(contentType);
@@ -184,6 +186,7 @@ public class ContentType
     */
 
     public void setContentType(String contentType) throws ParseException {
+        setModified();
         if (contentType == null)
             throw new NullPointerException("null arg");
         if (mediaRange == null)
@@ -196,6 +199,7 @@ public class ContentType
          * @param contentType String to set
          */
     public void setContentSubType(String contentType) throws ParseException {
+        setModified();
         if (contentType == null)
             throw new NullPointerException("null arg");
         if (mediaRange == null)
@@ -219,5 +223,16 @@ public class ContentType
         }
         return false;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, mediaRange);
+        return stamp;
+    }
 }
 
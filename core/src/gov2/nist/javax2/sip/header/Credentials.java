@@ -87,6 +87,7 @@ public class Credentials extends SIPObject {
      * @param s String to set
      */
     public void setScheme(String s) {
+        setModified();
         scheme = s;
     }
 
@@ -95,6 +96,7 @@ public class Credentials extends SIPObject {
      * @param c NameValueList to set.
      */
     public void setCredentials(NameValueList c) {
+        setModified();
         parameters = c;
     }
 
@@ -132,4 +134,16 @@ public class Credentials extends SIPObject {
             retval.parameters = (NameValueList) this.parameters.clone();
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        if (parameters != null)
+            stamp = Math.max(stamp, parameters.getModificationStamp());
+        return stamp;
+    }
 }
@@ -93,6 +93,7 @@ public final class ErrorInfo
      * @param errorInfo the new ErrorInfo of this ErrorInfoHeader.
      */
     public void setErrorInfo(javax2.sip.address.URI errorInfo) {
+        setModified();
         this.errorInfo = (GenericURI) errorInfo;
 
     }
@@ -116,6 +117,7 @@ public final class ErrorInfo
      * unexpectedly while parsing the error message.
      */
     public void setErrorMessage(String message) throws ParseException {
+        setModified();
         if (message == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception "
@@ -138,5 +140,16 @@ public final class ErrorInfo
             retval.errorInfo = (GenericURI) this.errorInfo.clone();
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, errorInfo);
+        return stamp;
+    }
 }
 
@@ -68,6 +68,7 @@ public class Event extends ParametersHeader implements EventHeader {
     * unexpectedly while parsing the eventType value.
     */
     public void setEventType(String eventType) throws ParseException {
+        setModified();
         if (eventType == null)
             throw new NullPointerException(" the eventType is null");
         this.eventType = eventType;
@@ -90,6 +91,7 @@ public class Event extends ParametersHeader implements EventHeader {
      * unexpectedly while parsing the eventId value.
      */
     public void setEventId(String eventId) throws ParseException {
+        setModified();
         if (eventId == null)
             throw new NullPointerException(" the eventId parameter is null");
         setParameter(ParameterNames.ID, eventId);
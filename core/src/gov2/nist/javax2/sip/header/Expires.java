@@ -98,6 +98,7 @@ public class Expires
      *
      */
     public void setExpires(int expires) throws InvalidArgumentException {
+        setModified();
         if (expires < 0)
             throw new InvalidArgumentException("bad argument " + expires);
         this.expires = expires;
@@ -66,6 +66,7 @@ public class ExtensionHeaderImpl
      */
 
     public void setName(String headerName) {
+        setModified();
         this.headerName = headerName;
     }
 
@@ -73,6 +74,7 @@ public class ExtensionHeaderImpl
      * Set the value of the header.
      */
     public void setValue(String value) {
+        setModified();
         this.value = value;
     }
 
@@ -131,6 +131,7 @@ public final class From
     /** remove Tag member
      */
     public void removeTag() {
+        setModified();
         parameters.delete(ParameterNames.TAG);
     }
 
@@ -139,6 +140,7 @@ public final class From
      * @param address Address to set
      */
     public void setAddress(javax2.sip.address.Address address) {
+        setModified();
         this.address = (AddressImpl) address;
     }
 
@@ -147,6 +149,7 @@ public final class From
      * @param t tag to set. From tags are mandatory.
      */
     public void setTag(String t) throws ParseException {
+        setModified();
         // JvB: check that it is a valid token
         Parser.checkToken(t);
         this.setParameter(ParameterNames.TAG, t);
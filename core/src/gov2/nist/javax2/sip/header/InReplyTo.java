@@ -74,6 +74,7 @@ public class InReplyTo extends SIPHeader implements InReplyToHeader {
      * unexpectedly while parsing the callId value.
      */
     public void setCallId(String callId) throws ParseException {
+        setModified();
         try {
             this.callId = new CallIdentifier(callId);
         } catch (Exception e) {
@@ -107,5 +108,16 @@ public class InReplyTo extends SIPHeader implements InReplyToHeader {
             retval.callId = (CallIdentifier) this.callId.clone();
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, callId);
+        return stamp;
+    }
 }
 
@@ -90,6 +90,7 @@ public class MediaRange extends SIPObject {
      * @param t String to set
      */
     public void setType(String t) {
+        setModified();
         type = t;
     }
 
@@ -98,6 +99,7 @@ public class MediaRange extends SIPObject {
      * @param s String to set
      */
     public void setSubtype(String s) {
+        setModified();
         subtype = s;
     }
 
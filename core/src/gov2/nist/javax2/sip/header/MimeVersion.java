@@ -93,6 +93,7 @@ public class MimeVersion extends SIPHeader implements MimeVersionHeader {
      */
     public void setMinorVersion(int minorVersion)
         throws InvalidArgumentException {
+        setModified();
         if (minorVersion < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP Exception"
@@ -109,6 +110,7 @@ public class MimeVersion extends SIPHeader implements MimeVersionHeader {
      */
     public void setMajorVersion(int majorVersion)
         throws InvalidArgumentException {
+        setModified();
         if (majorVersion < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP Exception"
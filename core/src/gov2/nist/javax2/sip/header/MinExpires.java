@@ -91,6 +91,7 @@ public class MinExpires extends SIPHeader implements MinExpiresHeader {
      *
      */
     public void setExpires(int expires) throws InvalidArgumentException {
+        setModified();
         if (expires < 0)
             throw new InvalidArgumentException("bad argument " + expires);
         this.expires = expires;
@@ -124,6 +124,7 @@ public abstract class ParametersHeader
     */
 
     public void removeParameter(String name) {
+        setModified();
         this.parameters.delete(name);
     }
 
@@ -146,6 +147,7 @@ public abstract class ParametersHeader
      *
      */
     public void setParameter(String name, String value) throws ParseException {
+        setModified();
         NameValue nv = parameters.getNameValue(name);
         if (nv != null) {
             nv.setValueAsObject(value);
@@ -175,6 +177,7 @@ public abstract class ParametersHeader
      */
     public void setQuotedParameter(String name, String value)
         throws ParseException {
+        setModified();
         NameValue nv = parameters.getNameValue(name);
         if (nv != null) {
             nv.setValueAsObject(value);
@@ -202,6 +205,7 @@ public abstract class ParametersHeader
      *
      */
     protected void setParameter(String name, int value) {
+        setModified();
         Integer val = Integer.valueOf(value);
         this.parameters.set(name,val);
 
@@ -223,6 +227,7 @@ public abstract class ParametersHeader
      *
      */
     protected void setParameter(String name, boolean value) {
+        setModified();
         Boolean val = Boolean.valueOf(value);
         this.parameters.set(name,val);
     }
@@ -242,6 +247,7 @@ public abstract class ParametersHeader
      *
      */
     protected void setParameter(String name, float value) {
+        setModified();
         Float val = Float.valueOf(value);
         NameValue nv = parameters.getNameValue(name);
         if (nv != null) {
@@ -271,6 +277,7 @@ public abstract class ParametersHeader
      *
      */
     protected void setParameter(String name, Object value) {
+        setModified();
         this.parameters.set(name,value);
     }
 
@@ -289,6 +296,7 @@ public abstract class ParametersHeader
      *Remove all parameters.
      */
     public void removeParameters() {
+        setModified();
         this.parameters = new NameValueList();
     }
 
@@ -305,6 +313,7 @@ public abstract class ParametersHeader
      * @param nameValue - the name value of the parameter to set.
      */
     public void setParameter(NameValue nameValue) {
+        setModified();
         this.parameters.set(nameValue);
     }
 
@@ -314,6 +323,7 @@ public abstract class ParametersHeader
      * @param parameters The name value list to set as the parameter list.
      */
     public void setParameters(NameValueList parameters) {
+        setModified();
         this.parameters = parameters;
     }
 
@@ -480,6 +490,7 @@ public abstract class ParametersHeader
      */
     public void setMultiParameter(String name, String value)
     {
+        setModified();
     	NameValue nv = new NameValue();
     	nv.setName(name);
     	nv.setValue(value);
@@ -491,6 +502,7 @@ public abstract class ParametersHeader
     * @param nameValue - the name value of the parameter to set.
     */
    public void setMultiParameter(NameValue nameValue) {
+       setModified();
        this.duplicates.set(nameValue);
    }
     
@@ -549,6 +561,7 @@ public abstract class ParametersHeader
     */
 
     public void removeMultiParameter(String name) {
+        setModified();
         this.duplicates.delete(name);
     }
     
@@ -567,6 +580,7 @@ public abstract class ParametersHeader
      *Remove all parameters.
      */
     public void removeMultiParameters() {
+        setModified();
         this.duplicates = new DuplicateNameValueList();
     }
 
@@ -613,4 +627,17 @@ public abstract class ParametersHeader
     // ----------- Abstract methods --------------
     protected abstract String encodeBody();
 
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        if (parameters != null)
+            stamp = Math.max(stamp, parameters.getModificationStamp());
+        if (duplicates != null)
+            stamp = Math.max(stamp, duplicates.getModificationStamp());
+        return stamp;
+    }
 }
@@ -102,6 +102,7 @@ public class Protocol extends SIPObject {
     }
 
     public void setProtocol( String name_and_version ) throws ParseException {
+        setModified();
         int slash = name_and_version.indexOf('/');
         if (slash>0) {
             this.protocolName = name_and_version.substring(0,slash);
@@ -121,6 +122,7 @@ public class Protocol extends SIPObject {
          * @param p String to set
          */
     public void setProtocolName(String p) {
+        setModified();
         protocolName = p;
     }
 
@@ -129,6 +131,7 @@ public class Protocol extends SIPObject {
          * @param p String to set
          */
     public void setProtocolVersion(String p) {
+        setModified();
         protocolVersion = p;
     }
 
@@ -137,6 +140,7 @@ public class Protocol extends SIPObject {
          * @param t String to set
          */
     public void setTransport(String t) {
+        setModified();
         transport = t;
     }
 
@@ -74,6 +74,7 @@ public class ProxyAuthenticate
      * Fail silently for backwards compatibility
      */
     public void setURI(URI uri) {
+        setModified();
         // empty, fail silently
     }
 
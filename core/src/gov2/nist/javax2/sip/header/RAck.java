@@ -115,10 +115,12 @@ public class RAck extends SIPHeader implements javax2.sip.header.RAckHeader {
      * @see javax2.sip.header.RAckHeader#setCSeqNumber(int)
      */
     public void setCSeqNumber(int cSeqNumber) throws InvalidArgumentException {
+        setModified();
         this.setCSequenceNumber(cSeqNumber);
     }
 
     public void setMethod(String method) throws ParseException {
+        setModified();
         this.method = method;
     }
 
@@ -133,6 +135,7 @@ public class RAck extends SIPHeader implements javax2.sip.header.RAckHeader {
 
     public void setCSequenceNumber(long cSeqNumber)
             throws InvalidArgumentException {
+        setModified();
         if (cSeqNumber <= 0 || cSeqNumber > ((long) 1) << 32 - 1)
             throw new InvalidArgumentException("Bad CSeq # " + cSeqNumber);
         this.cSeqNumber = cSeqNumber;
@@ -144,12 +147,14 @@ public class RAck extends SIPHeader implements javax2.sip.header.RAckHeader {
      * @see javax2.sip.header.RAckHeader#setRSeqNumber(int)
      */
     public void setRSeqNumber(int rSeqNumber) throws InvalidArgumentException {
+        setModified();
         this.setRSequenceNumber(rSeqNumber);
     }
 
 
     public void setRSequenceNumber(long rSeqNumber)
             throws InvalidArgumentException {
+        setModified();
         if (rSeqNumber <= 0 || cSeqNumber > ((long) 1) << 32 - 1)
             throw new InvalidArgumentException("Bad rSeq # " + rSeqNumber);
         this.rSeqNumber = rSeqNumber;
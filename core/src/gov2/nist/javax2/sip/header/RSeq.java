@@ -68,6 +68,7 @@ public class RSeq extends SIPHeader implements javax2.sip.header.RSeqHeader {
     }
 
     public void setSeqNumber(long sequenceNumber) throws InvalidArgumentException {
+        setModified();
 
             if (sequenceNumber <= 0 ||sequenceNumber > ((long)1)<<32 - 1)
                 throw new InvalidArgumentException(
@@ -81,6 +82,7 @@ public class RSeq extends SIPHeader implements javax2.sip.header.RSeqHeader {
      * @see javax2.sip.header.RSeqHeader#setSequenceNumber(int)
      */
     public void setSequenceNumber(int sequenceNumber) throws InvalidArgumentException {
+        setModified();
         this.setSeqNumber(sequenceNumber);
 
     }
@@ -77,6 +77,7 @@ public class Reason
      *@param cause - cause to set.
      */
     public void setCause(int cause) throws javax2.sip.InvalidArgumentException {
+        setModified();
         this.parameters.set("cause", Integer.valueOf(cause));
     }
 
@@ -86,6 +87,7 @@ public class Reason
      */
 
     public void setProtocol(String protocol) throws ParseException {
+        setModified();
         this.protocol = protocol;
     }
 
@@ -102,6 +104,7 @@ public class Reason
      *@param text -- string text to set.
      */
     public void setText(String text) throws ParseException {
+        setModified();
         // JvB: MUST be quoted
         if ( text.charAt(0) != '"' ) {
             text = Utils.getQuotedString(text);
@@ -120,6 +120,7 @@ public class RequestLine extends SIPObject implements SipRequestLine {
      * @see gov2.nist.javax2.sip.header.SipRequestLine#setUri(gov2.nist.javax2.sip.address.GenericURI)
      */
     public void setUri(URI uri) {
+        setModified();
         this.uri = (GenericURI)uri;
     }
 
@@ -127,6 +128,7 @@ public class RequestLine extends SIPObject implements SipRequestLine {
      * @see gov2.nist.javax2.sip.header.SipRequestLine#setMethod(java.lang.String)
      */
     public void setMethod(String method) {
+        setModified();
         this.method = method;
     }
 
@@ -134,6 +136,7 @@ public class RequestLine extends SIPObject implements SipRequestLine {
      * @see gov2.nist.javax2.sip.header.SipRequestLine#setSipVersion(java.lang.String)
      */
     public void setSipVersion(String version) {
+        setModified();
         this.sipVersion = version;
     }
 
@@ -210,6 +213,17 @@ public class RequestLine extends SIPObject implements SipRequestLine {
             retval.uri = (GenericURI) this.uri.clone();
         return retval;
     }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, uri);
+        return stamp;
+    }
 }
 /*
  * $Log: RequestLine.java,v $
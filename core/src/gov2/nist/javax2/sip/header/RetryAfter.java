@@ -98,12 +98,14 @@ public class RetryAfter extends ParametersHeader implements RetryAfterHeader {
     /** remove comment field
      */
     public void removeComment() {
+        setModified();
         comment = null;
     }
 
     /** remove duration field
      */
     public void removeDuration() {
+        setModified();
         super.removeParameter(DURATION);
     }
 
@@ -118,6 +120,7 @@ public class RetryAfter extends ParametersHeader implements RetryAfterHeader {
      */
 
     public void setRetryAfter(int retryAfter) throws InvalidArgumentException {
+        setModified();
         if (retryAfter < 0)
             throw new InvalidArgumentException(
                 "invalid parameter " + retryAfter);
@@ -156,6 +159,7 @@ public class RetryAfter extends ParametersHeader implements RetryAfterHeader {
      */
 
     public void setComment(String comment) throws ParseException {
+        setModified();
         if (comment == null)
             throw new NullPointerException("the comment parameter is null");
         this.comment = comment;
@@ -171,6 +175,7 @@ public class RetryAfter extends ParametersHeader implements RetryAfterHeader {
      */
 
     public void setDuration(int duration) throws InvalidArgumentException {
+        setModified();
         if (duration < 0)
             throw new InvalidArgumentException("the duration parameter is <0");
         this.setParameter(DURATION, duration);
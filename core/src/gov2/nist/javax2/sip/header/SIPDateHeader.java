@@ -70,6 +70,7 @@ public class SIPDateHeader extends SIPHeader implements DateHeader {
      * @param d SIPDate to set
      */
     public void setDate(SIPDate d) {
+        setModified();
         date = d;
 
     }
@@ -80,6 +81,7 @@ public class SIPDateHeader extends SIPHeader implements DateHeader {
      * @param dat the Calendar object date of this header.
      */
     public void setDate(Calendar dat) {
+        setModified();
         if (dat != null)
             date = new SIPDate(dat.getTime().getTime());
     }
@@ -82,6 +82,7 @@ public class SIPETag extends SIPHeader implements SIPETagHeader , ExtensionHeade
      * @param etag String to set
      */
     public void setETag(String etag) throws ParseException {
+        setModified();
         if (etag == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception,"
@@ -96,6 +97,7 @@ public class SIPETag extends SIPHeader implements SIPETagHeader , ExtensionHeade
      * @see javax2.sip.header.ExtensionHeader#setValue(java.lang.String)
      */
     public void setValue(String value) throws ParseException {
+        setModified();
         this.setETag(value);
 
     }
@@ -81,6 +81,7 @@ public abstract class SIPHeader
          * @param hdrname String to set
          */
     public void setHeaderName(String hdrname) {
+        setModified();
         headerName = hdrname;
     }
 
@@ -87,6 +87,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      * @param objectToAdd
      */
     public boolean add(HDR objectToAdd) {
+        setModified();
         hlist.add((HDR)objectToAdd);
         return true;
     }
@@ -99,6 +100,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      *            Genericobject to set
      */
     public void addFirst(HDR obj) {
+        setModified();
         hlist.add(0,(HDR) obj);
     }
 
@@ -111,6 +113,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      *            is true if we want to add to the top of the list.
      */
     public void add(HDR sipheader, boolean top) {
+        setModified();
         if (top)
             this.addFirst(sipheader);
         else
@@ -279,6 +282,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      * Remove the first element of this list.
      */
     public void removeFirst() {
+        setModified();
         if (hlist.size() != 0)
             hlist.remove(0);
 
@@ -288,6 +292,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      * Remove the last element of this list.
      */
     public void removeLast() {
+        setModified();
         if (hlist.size() != 0)
             hlist.remove(hlist.size() - 1);
     }
@@ -300,6 +305,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      * @return boolean
      */
     public boolean remove(HDR obj) {
+        setModified();
         if (hlist.size() == 0)
             return false;
         else
@@ -314,6 +320,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      *            class to set
      */
     protected void setMyClass(Class<HDR> cl) {
+        setModified();
         this.myClass = cl;
     }
 
@@ -379,6 +386,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
 
     public void add(int index, HDR  sipHeader)
             throws IndexOutOfBoundsException {
+        setModified();
         hlist.add(index, sipHeader);
     }
 
@@ -518,10 +526,12 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
     }
 
     public boolean addAll(Collection<? extends HDR> collection) {
+        setModified();
         return this.hlist.addAll(collection);
     }
 
     public boolean addAll(int index, Collection<? extends HDR> collection) {
+        setModified();
         return this.hlist.addAll(index, collection);
 
     }
@@ -534,6 +544,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
 
 
     public void clear() {
+        setModified();
         this.hlist.clear();
     }
 
@@ -594,6 +605,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      */
 
     public boolean remove(Object obj) {
+        setModified();
 
         return this.hlist.remove(obj);
     }
@@ -606,6 +618,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      */
 
     public HDR remove(int index) {
+        setModified();
         return this.hlist.remove(index);
     }
 
@@ -614,6 +627,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      * @see List#removeAll(java.util.Collection)
      */
     public boolean removeAll(java.util.Collection<?> collection) {
+        setModified();
         return this.hlist.removeAll(collection);
     }
 
@@ -651,6 +665,7 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
      * @see List#set(int, java.lang.Object)
      */
     public HDR set(int position, HDR sipHeader) {
+        setModified();
 
         return hlist.set(position, sipHeader);
 
@@ -666,5 +681,16 @@ public abstract class SIPHeaderList<HDR extends SIPHeader> extends SIPHeader imp
         return this.hlist.toArray(array);
     }
 
-
+    /**
+     * Get the stamp of the last modification of the list or of its headers.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        for (HDR header : hlist) {
+            stamp = Math.max(stamp, header.getModificationStamp());
+        }
+        return stamp;
+    }
 }
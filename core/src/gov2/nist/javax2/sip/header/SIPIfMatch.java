@@ -81,6 +81,7 @@ public class SIPIfMatch extends SIPHeader implements SIPIfMatchHeader,ExtensionH
      * @param etag -- the entity tag to set.
      */
     public void setETag(String etag) throws ParseException {
+        setModified();
         if (etag == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception,"
@@ -93,6 +94,7 @@ public class SIPIfMatch extends SIPHeader implements SIPIfMatchHeader,ExtensionH
      * @see javax2.sip.header.ExtensionHeader#setValue(java.lang.String)
      */
     public void setValue(String value) throws ParseException {
+        setModified();
         this.setETag(value);
 
 
@@ -78,6 +78,7 @@ public class Server extends SIPHeader implements ServerHeader {
      * @param pt String to set
      */
     public void addProductToken(String pt) {
+        setModified();
         productTokens.add(pt);
     }
 
@@ -116,6 +117,7 @@ public class Server extends SIPHeader implements ServerHeader {
      * unexpectedly while parsing the product value.
      */
     public void setProduct(List product) throws ParseException {
+        setModified();
         if (product == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, UserAgent, "
@@ -98,6 +98,7 @@ public final class StatusLine extends SIPObject implements SipStatusLine {
      * behavior) else only the class of the response is matched.
      */
     public void setMatchStatusClass(boolean flag) {
+        setModified();
         matchStatusClass = flag;
     }
 
@@ -145,6 +146,7 @@ public final class StatusLine extends SIPObject implements SipStatusLine {
      * @see gov2.nist.javax2.sip.header.SipStatusLine#setSipVersion(java.lang.String)
      */
     public void setSipVersion(String s) {
+        setModified();
         sipVersion = s;
     }
 
@@ -152,6 +154,7 @@ public final class StatusLine extends SIPObject implements SipStatusLine {
      * @see gov2.nist.javax2.sip.header.SipStatusLine#setStatusCode(int)
      */
     public void setStatusCode(int statusCode) {
+        setModified();
         this.statusCode = statusCode;
     }
 
@@ -159,6 +162,7 @@ public final class StatusLine extends SIPObject implements SipStatusLine {
      * @see gov2.nist.javax2.sip.header.SipStatusLine#setReasonPhrase(java.lang.String)
      */
     public void setReasonPhrase(String reasonPhrase) {
+        setModified();
         this.reasonPhrase = reasonPhrase;
     }
 
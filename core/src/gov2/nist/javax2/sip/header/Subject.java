@@ -83,6 +83,7 @@ public class Subject extends SIPHeader implements SubjectHeader {
      * unexpectedly while parsing the subject value.
      */
     public void setSubject(String subject) throws ParseException {
+        setModified();
         if (subject == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
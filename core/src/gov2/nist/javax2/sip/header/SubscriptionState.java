@@ -70,6 +70,7 @@ public class SubscriptionState
     * @throws InvalidArgumentException if supplied value is less than zero.
     */
     public void setExpires(int expires) throws InvalidArgumentException {
+        setModified();
         if (expires < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP "
@@ -95,6 +96,7 @@ public class SubscriptionState
      * @throws InvalidArgumentException if supplied value is less than zero.
      */
     public void setRetryAfter(int retryAfter) throws InvalidArgumentException {
+        setModified();
         if (retryAfter <= 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP "
@@ -130,6 +132,7 @@ public class SubscriptionState
      * unexpectedly while parsing the reason code.
      */
     public void setReasonCode(String reasonCode) throws ParseException {
+        setModified();
         if (reasonCode == null)
             throw new NullPointerException(
                 "JAIN-SIP "
@@ -154,6 +157,7 @@ public class SubscriptionState
      * unexpectedly while parsing the state.
      */
     public void setState(String state) throws ParseException {
+        setModified();
         if (state == null)
             throw new NullPointerException(
                 "JAIN-SIP "
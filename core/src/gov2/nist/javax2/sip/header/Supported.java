@@ -99,6 +99,7 @@ public class Supported extends SIPHeader implements SupportedHeader {
      * unexpectedly while parsing the optionTag value.
      */
     public void setOptionTag(String optionTag) throws ParseException {
+        setModified();
         if (optionTag == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, Supported, "
@@ -122,12 +122,14 @@ public class TimeStamp extends SIPHeader implements TimeStampHeader {
      * remove the Delay field
      */
     public void removeDelay() {
+        setModified();
         delay = -1;
     }
 
 
 
     public void setTimeStamp(float timeStamp) throws InvalidArgumentException {
+        setModified();
         if (timeStamp < 0)
             throw new InvalidArgumentException(
                     "JAIN-SIP Exception, TimeStamp, "
@@ -160,6 +162,7 @@ public class TimeStamp extends SIPHeader implements TimeStampHeader {
      */
 
     public void setDelay(float delay) throws InvalidArgumentException {
+        setModified();
         if (delay < 0 && delay != -1)
             throw new InvalidArgumentException(
                     "JAIN-SIP Exception, TimeStamp, "
@@ -178,6 +181,7 @@ public class TimeStamp extends SIPHeader implements TimeStampHeader {
     }
 
     public void setTime(long timeStamp) throws InvalidArgumentException {
+        setModified();
         if (timeStamp < -1)
             throw new InvalidArgumentException("Illegal timestamp");
         this.timeStamp = timeStamp;
@@ -186,6 +190,7 @@ public class TimeStamp extends SIPHeader implements TimeStampHeader {
     }
 
     public void setTimeDelay(int delay) throws InvalidArgumentException {
+        setModified();
         if (delay < -1)
             throw new InvalidArgumentException("Value out of range " + delay);
         this.delay = delay;
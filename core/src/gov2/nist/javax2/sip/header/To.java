@@ -160,6 +160,7 @@ public final class To extends AddressParametersHeader implements
      * remove Tag member
      */
     public void removeTag() {
+        setModified();
             if (parameters != null)
                 parameters.delete(ParameterNames.TAG);
 
@@ -172,6 +173,7 @@ public final class To extends AddressParametersHeader implements
      * @param t - tag String to set.
      */
     public void setTag(String t) throws ParseException {
+        setModified();
         // JvB: check that it is a valid token
         Parser.checkToken(t);
         this.setParameter(ParameterNames.TAG, t);
@@ -85,6 +85,7 @@ public class Unsupported
      * @param o String to set
      */
     public void setOptionTag(String o) throws ParseException {
+        setModified();
         if (o == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -72,6 +72,7 @@ public class UserAgent extends SIPHeader implements UserAgentHeader {
      * @param pt String to set
      */
     public void addProductToken(String pt) {
+        setModified();
         productTokens.add(pt);
     }
 
@@ -110,6 +111,7 @@ public class UserAgent extends SIPHeader implements UserAgentHeader {
      * unexpectedly while parsing the product value.
      */
     public void setProduct(List product) throws ParseException {
+        setModified();
         if (product == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, UserAgent, "
@@ -197,12 +197,14 @@ public class Via
     /** remove the port.
      */
     public void removePort() {
+        setModified();
         sentBy.removePort();
     }
 
     /** remove the comment field.
      */
     public void removeComment() {
+        setModified();
         comment = null;
     }
 
@@ -210,6 +212,7 @@ public class Via
      * @param protocolVersion String to set
      */
     public void setProtocolVersion(String protocolVersion) {
+        setModified();
         if (sentProtocol == null)
             sentProtocol = new Protocol();
         sentProtocol.setProtocolVersion(protocolVersion);
@@ -219,6 +222,7 @@ public class Via
          * @param host String to set
          */
     public void setHost(Host host) {
+        setModified();
         if (sentBy == null) {
             sentBy = new HostPort();
         }
@@ -230,6 +234,7 @@ public class Via
      * @param s Protocol to set.
      */
     public void setSentProtocol(Protocol s) {
+        setModified();
         sentProtocol = s;
     }
 
@@ -238,6 +243,7 @@ public class Via
      * @param s HostPort to set.
      */
     public void setSentBy(HostPort s) {
+        setModified();
         sentBy = s;
     }
 
@@ -247,6 +253,7 @@ public class Via
      * @deprecated This is an RFC 2543 feature.
      */
     public void setComment(String c) {
+        setModified();
         comment = c;
     }
 
@@ -280,6 +287,7 @@ public class Via
      * unexpectedly while parsing the host value.
      */
     public void setHost(String host) throws ParseException {
+        setModified();
         if (sentBy == null)
             sentBy = new HostPort();
         try {
@@ -314,6 +322,7 @@ public class Via
      * @param port - the Integer.valueOf value of the port of this ViaHeader
      */
     public void setPort(int port) throws InvalidArgumentException {
+        setModified();
 
         if ( port!=-1 && (port<1 || port>65535)) {
             throw new InvalidArgumentException( "Port value out of range -1, [1..65535]" );
@@ -328,6 +337,7 @@ public class Via
      * Set the RPort flag parameter
      */
     public void setRPort(){
+        setModified();
         rPortFlag = true;
     }
 
@@ -379,6 +389,7 @@ public class Via
      * unexpectedly while parsing the transport value.
      */
     public void setTransport(String transport) throws ParseException {
+        setModified();
         if (transport == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -408,6 +419,7 @@ public class Via
      * unexpectedly while parsing the protocol value.
      */
     public void setProtocol(String protocol) throws ParseException {
+        setModified();
         if (protocol == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -438,6 +450,7 @@ public class Via
      * greater than 255, excluding -1 the default not set value.
      */
     public void setTTL(int ttl) throws InvalidArgumentException {
+        setModified();
         if (ttl < 0 && ttl != -1)
             throw new InvalidArgumentException(
                 "JAIN-SIP Exception"
@@ -465,6 +478,7 @@ public class Via
      * unexpectedly while parsing the mAddr value.
      */
     public void setMAddr(String mAddr) throws ParseException {
+        setModified();
         if (mAddr == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -495,6 +509,7 @@ public class Via
      * unexpectedly while parsing the received value.
      */
     public void setReceived(String received) throws ParseException {
+        setModified();
         if (received == null)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -523,6 +538,7 @@ public class Via
      * unexpectedly while parsing the branch value.
      */
     public void setBranch(String branch) throws ParseException {
+        setModified();
         if (branch == null || branch.length()==0)
             throw new NullPointerException(
                 "JAIN-SIP Exception, "
@@ -561,4 +577,15 @@ public class Via
         return null;
     }
 
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, sentProtocol);
+        stamp = getModificationStamp(stamp, sentBy);
+        return stamp;
+    }
 }
@@ -76,6 +76,7 @@ public class WWWAuthenticate
      * Fail silently for backwards compatibility
      */
     public void setURI(URI uri) {
+        setModified();
         // empty, fail silently
     }
 
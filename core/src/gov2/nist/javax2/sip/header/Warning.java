@@ -115,6 +115,7 @@ public class Warning extends SIPHeader implements WarningHeader {
      * @throws SipParseException if code is not accepted by implementation
      */
     public void setCode(int code) throws InvalidArgumentException {
+        setModified();
         if (code >99  && code < 1000) { // check this is a 3DIGIT code
             this.code = code;
         } else
@@ -129,6 +130,7 @@ public class Warning extends SIPHeader implements WarningHeader {
      * @throws ParseException if host is not accepted by implementation
      */
     public void setAgent(String host) throws ParseException {
+        setModified();
         if (host == null)
             throw new NullPointerException("the host parameter in the Warning header is null");
         else {
@@ -142,6 +144,7 @@ public class Warning extends SIPHeader implements WarningHeader {
      * @throws ParseException if text is not accepted by implementation
      */
     public void setText(String text) throws ParseException {
+        setModified();
         if (text == null) {
             throw new ParseException(
                 "The text parameter in the Warning header is null",
@@ -91,6 +91,7 @@ public class Join
      * not a token@token.
      */
     public void setCallId(String cid) {
+        setModified();
         callId = cid;
     }
 
@@ -99,6 +100,7 @@ public class Join
      * @param cid CallIdentifier to set (localId@host).
      */
     public void setCallIdentifier(CallIdentifier cid) {
+        setModified();
         callIdentifier = cid;
     }
 
@@ -116,6 +118,7 @@ public class Join
      * @param t tag to set. From tags are mandatory.
      */
     public void setToTag(String t) throws ParseException {
+        setModified();
         if (t == null)
             throw new NullPointerException("null tag ");
         else if (t.trim().equals(""))
@@ -132,6 +135,7 @@ public class Join
     /** remove Tag member
      */
     public void removeToTag() {
+        setModified();
         parameters.delete(ParameterNames.TO_TAG);
     }
     /**
@@ -148,6 +152,7 @@ public class Join
      * @param t tag to set. From tags are mandatory.
      */
     public void setFromTag(String t) throws ParseException {
+        setModified();
         if (t == null)
             throw new NullPointerException("null tag ");
         else if (t.trim().equals(""))
@@ -164,12 +169,14 @@ public class Join
     /** remove Tag member
      */
     public void removeFromTag() {
+        setModified();
         parameters.delete(ParameterNames.FROM_TAG);
     }
 
 
 
     public void setValue(String value) throws ParseException {
+        setModified();
         // not implemented.
         throw new ParseException(value,0);
 
@@ -181,5 +188,16 @@ public class Join
 //      retval.setCallIdentifier( (CallIdentifier) this.callIdentifier.clone() );
 //      return retval;
 //  }
+
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, callIdentifier);
+        return stamp;
+    }
 }
 
@@ -58,6 +58,7 @@ public class MinSE
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         // not implemented.
         throw new ParseException(value,0);
 
@@ -92,6 +93,7 @@ public class MinSE
      *
      */
     public void setExpires(int expires) throws InvalidArgumentException {
+        setModified();
         if (expires < 0)
             throw new InvalidArgumentException("bad argument " + expires);
         this.expires = expires;
@@ -35,11 +35,13 @@ public class References extends ParametersHeader  implements ReferencesHeader,Ex
 
 
     public void setCallId(String callId) {
+        setModified();
         this.callId = callId;
     }
 
        
     public void setRel(String rel) throws ParseException{
+        setModified();
       if ( rel != null ) {
           this.setParameter(REL,rel);
       }
@@ -57,11 +59,13 @@ public class References extends ParametersHeader  implements ReferencesHeader,Ex
 
    
     public void removeParameter(String name) {
+        setModified();
        super.removeParameter(name);
     }
 
     
     public void setParameter(String name, String value) throws ParseException {
+        setModified();
        super.setParameter(name,value); 
     }
 
@@ -81,6 +85,7 @@ public class References extends ParametersHeader  implements ReferencesHeader,Ex
 
    
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new UnsupportedOperationException("operation not supported");
     }
 
@@ -37,6 +37,7 @@ public final class ReferredBy
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         // not implemented.
         throw new ParseException(value,0);
 
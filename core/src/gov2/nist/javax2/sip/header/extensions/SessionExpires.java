@@ -66,12 +66,14 @@ public final class SessionExpires
      *
      */
     public void setExpires(int expires) throws InvalidArgumentException {
+        setModified();
         if (expires < 0)
             throw new InvalidArgumentException("bad argument " + expires);
         this.expires = expires;
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         // not implemented.
         throw new ParseException(value,0);
 
@@ -96,6 +98,7 @@ public final class SessionExpires
     }
 
     public void setRefresher(String refresher) {
+        setModified();
         this.parameters.set(REFRESHER,refresher);
     }
 }
@@ -57,6 +57,7 @@ public abstract class AddressHeaderIms extends SIPHeader {
      * @param address Address to set
      */
     public void setAddress(Address address) {
+        setModified();
         this.address = (AddressImpl) address;
     }
 
@@ -79,6 +80,15 @@ public abstract class AddressHeaderIms extends SIPHeader {
         return retval;
     }
 
-
+    /**
+     * Get the stamp of the last modification of this object or of the objects it holds.
+     *
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        stamp = getModificationStamp(stamp, address);
+        return stamp;
+    }
 }
 
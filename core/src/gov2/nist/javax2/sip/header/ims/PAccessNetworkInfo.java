@@ -76,6 +76,7 @@ public class PAccessNetworkInfo
      * @throws NullPointerException
      */
     public void setAccessType(String accessTypeVal) {
+        setModified();
         if (accessTypeVal == null)
             throw new NullPointerException(
                     "JAIN-SIP Exception, "
@@ -98,6 +99,7 @@ public class PAccessNetworkInfo
      * @throws ParseException -- if bad argument passed in.
      */
     public void setCGI3GPP(String cgi) throws ParseException {
+        setModified();
 
         if (cgi == null)
             throw new NullPointerException(
@@ -124,6 +126,7 @@ public class PAccessNetworkInfo
      * @throws ParseException
      */
     public void setUtranCellID3GPP(String utranCellID) throws ParseException {
+        setModified();
 
         if (utranCellID == null)
             throw new NullPointerException(
@@ -149,6 +152,7 @@ public class PAccessNetworkInfo
      * @throws ParseException
      */
     public void setDSLLocation(String dslLocation) throws ParseException {
+        setModified();
 
         if (dslLocation == null)
             throw new NullPointerException(
@@ -174,6 +178,7 @@ public class PAccessNetworkInfo
      * @throws ParseException -- if arg is bad.
      */
     public void setCI3GPP2(String ci3Gpp2) throws ParseException {
+        setModified();
         if (ci3Gpp2 == null)
             throw new NullPointerException(
                     "JAIN-SIP Exception, "
@@ -198,6 +203,7 @@ public class PAccessNetworkInfo
      *            value of parameter
      */
     public void setParameter(String name, Object value) {
+        setModified();
         /**
          * @todo ParametersHeader needs to be fix!? missing "throws
          *       ParseException" in setParameter(String, Object)
@@ -229,6 +235,7 @@ public class PAccessNetworkInfo
      */
     public void setExtensionAccessInfo(Object extendAccessInfo)
             throws ParseException {
+        setModified();
 
         if (extendAccessInfo == null)
             throw new NullPointerException(
@@ -267,6 +274,7 @@ public class PAccessNetworkInfo
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value, 0);
 
     }
@@ -96,6 +96,7 @@ public class PAssertedIdentity
 
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
@@ -72,6 +72,7 @@ public class PAssertedService extends SIPHeader implements PAssertedServiceHeade
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
@@ -92,11 +93,13 @@ public class PAssertedService extends SIPHeader implements PAssertedServiceHeade
         return this.subServiceIds;
     }
     public void setApplicationIdentifiers(String appids) {
+        setModified();
         this.subAppIds = appids;
 
     }
 
     public void setSubserviceIdentifiers(String subservices) {
+        setModified();
         this.subServiceIds = subservices;
 
     }
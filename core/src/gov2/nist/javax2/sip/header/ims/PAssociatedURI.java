@@ -129,6 +129,7 @@ public class PAssociatedURI
      */
     public void setAssociatedURI(URI associatedURI) throws NullPointerException
     {
+        setModified();
         if (associatedURI == null)
             throw new NullPointerException("null URI");
 
@@ -153,6 +154,7 @@ public class PAssociatedURI
 
 
     public void setValue(String value) throws ParseException{
+        setModified();
         // not implemented
         throw new ParseException(value,0);
 
@@ -83,6 +83,7 @@ public class PCalledPartyID
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         // not implemented.
         throw new ParseException(value,0);
 
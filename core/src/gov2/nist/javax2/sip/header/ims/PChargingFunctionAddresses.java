@@ -107,6 +107,7 @@ public class PChargingFunctionAddresses
      * @throws ParseException
      */
     public void setChargingCollectionFunctionAddress(String ccfAddress) throws ParseException {
+        setModified();
 
         if (ccfAddress == null)
             throw new NullPointerException(
@@ -125,6 +126,7 @@ public class PChargingFunctionAddresses
      * @throws ParseException
      */
     public void addChargingCollectionFunctionAddress(String ccfAddress) throws ParseException {
+        setModified();
 
         if (ccfAddress == null)
             throw new NullPointerException(
@@ -142,6 +144,7 @@ public class PChargingFunctionAddresses
      * @throws ParseException if the address was not removed
      */
     public void removeChargingCollectionFunctionAddress(String ccfAddress) throws ParseException {
+        setModified();
 
         if (ccfAddress == null)
             throw new NullPointerException(
@@ -190,6 +193,7 @@ public class PChargingFunctionAddresses
      * @throws ParseException
      */
     public void setEventChargingFunctionAddress(String ecfAddress) throws ParseException {
+        setModified();
 
         if (ecfAddress == null)
             throw new NullPointerException(
@@ -208,6 +212,7 @@ public class PChargingFunctionAddresses
      * @throws ParseException
      */
     public void addEventChargingFunctionAddress(String ecfAddress) throws ParseException {
+        setModified();
 
         if (ecfAddress == null)
             throw new NullPointerException(
@@ -225,6 +230,7 @@ public class PChargingFunctionAddresses
      * @throws ParseException if the address was not removed
      */
     public void removeEventChargingFunctionAddress(String ecfAddress) throws ParseException {
+        setModified();
 
         if (ecfAddress == null)
             throw new NullPointerException(
@@ -277,6 +283,7 @@ public class PChargingFunctionAddresses
      * @return true if parameter was removed, and false if not
      */
     public boolean delete(String value, String name) {
+        setModified();
         Iterator li = this.parameters.iterator();
         NameValue nv;
         boolean removed = false;
@@ -293,6 +300,7 @@ public class PChargingFunctionAddresses
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException ( value,0);
 
     }
@@ -113,6 +113,7 @@ public class PChargingVector extends gov2.nist.javax2.sip.header.ParametersHeade
      * @throws ParseException
      */
     public void setICID(String icid) throws ParseException {
+        setModified();
 
         if (icid == null)
             throw new NullPointerException(
@@ -146,6 +147,7 @@ public class PChargingVector extends gov2.nist.javax2.sip.header.ParametersHeade
      * @throws ParseException
      */
     public void setICIDGeneratedAt(String host) throws ParseException {
+        setModified();
 
         if (host == null)
             throw new NullPointerException(
@@ -179,6 +181,7 @@ public class PChargingVector extends gov2.nist.javax2.sip.header.ParametersHeade
      * @throws ParseException
      */
     public void setOriginatingIOI(String origIOI) throws ParseException {
+        setModified();
 
         if (origIOI == null || origIOI.length() == 0) {
             removeParameter(ParameterNamesIms.ORIG_IOI);
@@ -210,6 +213,7 @@ public class PChargingVector extends gov2.nist.javax2.sip.header.ParametersHeade
      * @throws ParseException
      */
     public void setTerminatingIOI(String termIOI) throws ParseException {
+        setModified();
 
         if (termIOI == null || termIOI.length() == 0) {
             removeParameter(ParameterNamesIms.TERM_IOI);
@@ -219,6 +223,7 @@ public class PChargingVector extends gov2.nist.javax2.sip.header.ParametersHeade
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value, 0);
 
     }
@@ -100,6 +100,7 @@ public class PMediaAuthorization
      */
     public void setMediaAuthorizationToken(String token) throws InvalidArgumentException
     {
+        setModified();
         if (token == null || token.length() == 0)
             throw new InvalidArgumentException(" the Media-Authorization-Token parameter is null or empty");
 
@@ -117,6 +118,7 @@ public class PMediaAuthorization
 
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException (value,0);
 
     }
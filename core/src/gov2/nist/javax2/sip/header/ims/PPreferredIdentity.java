@@ -86,6 +86,7 @@ public class PPreferredIdentity
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException (value,0);
 
     }
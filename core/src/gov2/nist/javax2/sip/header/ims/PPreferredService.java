@@ -72,6 +72,7 @@ public class PPreferredService extends SIPHeader implements PPreferredServiceHea
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
@@ -93,11 +94,13 @@ public class PPreferredService extends SIPHeader implements PPreferredServiceHea
     }
 
     public void setApplicationIdentifiers(String appids) {
+        setModified();
         this.subAppIds = appids;
 
     }
 
     public void setSubserviceIdentifiers(String subservices) {
+        setModified();
         this.subServiceIds = ".".concat(subservices);
 
     }
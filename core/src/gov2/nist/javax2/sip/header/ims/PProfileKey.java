@@ -69,6 +69,7 @@ public class PProfileKey extends AddressParametersHeader implements PProfileKeyH
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
@@ -66,6 +66,7 @@ public class PServedUser extends AddressParametersHeader implements PServedUserH
     }
 
     public void setRegistrationState(String registrationState) {
+        setModified();
 
         if((registrationState!=null))
         {
@@ -96,6 +97,7 @@ public class PServedUser extends AddressParametersHeader implements PServedUserH
     }
 
     public void setSessionCase(String sessionCase) {
+        setModified();
 
         if((sessionCase!=null))
         {
@@ -143,6 +145,7 @@ public class PServedUser extends AddressParametersHeader implements PServedUserH
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
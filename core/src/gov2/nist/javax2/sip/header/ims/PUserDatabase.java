@@ -62,6 +62,7 @@ public class PUserDatabase extends gov2.nist.javax2.sip.header.ParametersHeader
 
 
     public void setDatabaseName(String databaseName) {
+        setModified();
         if((databaseName==null)||(databaseName.equals(" ")))
             throw new NullPointerException("Database name is null");
         else
@@ -99,6 +100,7 @@ public class PUserDatabase extends gov2.nist.javax2.sip.header.ParametersHeader
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
@@ -103,6 +103,7 @@ public class PVisitedNetworkID
      * @param networkID - string value
      */
     public void setVisitedNetworkID(String networkID) {
+        setModified();
         if (networkID == null)
             throw new NullPointerException(" the networkID parameter is null");
 
@@ -117,6 +118,7 @@ public class PVisitedNetworkID
      * @param networkID - token value
      */
     public void setVisitedNetworkID(Token networkID) {
+        setModified();
         if (networkID == null)
             throw new NullPointerException(" the networkID parameter is null");
 
@@ -135,6 +137,7 @@ public class PVisitedNetworkID
 
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException (value,0);
 
     }
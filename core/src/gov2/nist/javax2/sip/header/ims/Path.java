@@ -82,6 +82,7 @@ public class Path
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
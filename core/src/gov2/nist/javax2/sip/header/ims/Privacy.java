@@ -106,6 +106,7 @@ public class Privacy
 
     public void setPrivacy(String privacy) throws ParseException
     {
+        setModified();
 
         if (privacy == null || privacy == "")
             throw new NullPointerException(
@@ -120,6 +121,7 @@ public class Privacy
      *
      */
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException(value,0);
 
     }
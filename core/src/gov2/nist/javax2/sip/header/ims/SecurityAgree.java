@@ -91,6 +91,7 @@ public abstract class SecurityAgree
 
     public void setParameter(String name, String value) throws ParseException
     {
+        setModified();
         if (value == null)
             throw new NullPointerException("null value");
 
@@ -131,6 +132,7 @@ public abstract class SecurityAgree
      * @param secMech - security mechanism name
      */
     public void setSecurityMechanism(String secMech) throws ParseException {
+        setModified();
         if (secMech == null)
             throw new NullPointerException(
                 "JAIN-SIP "
@@ -144,6 +146,7 @@ public abstract class SecurityAgree
      * @throws ParseException
      */
     public void setEncryptionAlgorithm(String ealg) throws ParseException {
+        setModified();
         if (ealg == null)
             throw new NullPointerException(
                 "JAIN-SIP "
@@ -158,6 +161,7 @@ public abstract class SecurityAgree
      * @throws ParseException
      */
     public void setAlgorithm(String alg) throws ParseException {
+        setModified();
         if (alg == null)
             throw new NullPointerException(
                 "JAIN-SIP "
@@ -171,6 +175,7 @@ public abstract class SecurityAgree
      * @throws ParseException
      */
     public void setProtocol(String prot) throws ParseException {
+        setModified();
         if (prot == null)
             throw new NullPointerException(
                 "JAIN-SIP "
@@ -184,6 +189,7 @@ public abstract class SecurityAgree
      * @throws ParseException
      */
     public void setMode(String mod) throws ParseException {
+        setModified();
         if (mod == null)
             throw new NullPointerException(
                 "JAIN-SIP "
@@ -197,6 +203,7 @@ public abstract class SecurityAgree
      * @throws InvalidArgumentException
      */
     public void setSPIClient(int spic) throws InvalidArgumentException {
+        setModified();
         if (spic < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP "
@@ -210,6 +217,7 @@ public abstract class SecurityAgree
      * @throws InvalidArgumentException - when value is not valid
      */
     public void setSPIServer(int spis) throws InvalidArgumentException {
+        setModified();
         if (spis < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP "
@@ -223,6 +231,7 @@ public abstract class SecurityAgree
      * @throws InvalidArgumentException - when value is not valid
      */
     public void setPortClient(int portC) throws InvalidArgumentException {
+        setModified();
         if (portC < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP "
@@ -236,6 +245,7 @@ public abstract class SecurityAgree
      * @throws InvalidArgumentException - when value is not valid
      */
     public void setPortServer(int portS) throws InvalidArgumentException {
+        setModified();
         if (portS < 0)
             throw new InvalidArgumentException(
                 "JAIN-SIP "
@@ -252,6 +262,7 @@ public abstract class SecurityAgree
      * @throws InvalidArgumentException - when value is not valid
      */
     public void setPreference(float q) throws InvalidArgumentException {
+        setModified();
         if (q < 0.0f)
             throw new InvalidArgumentException(
                 "JAIN-SIP "
@@ -65,6 +65,7 @@ public class SecurityClient
 
     public void setValue(String value) throws ParseException
     {
+        setModified();
         throw new ParseException(value,0);
     }
 
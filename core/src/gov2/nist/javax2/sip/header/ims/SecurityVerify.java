@@ -65,6 +65,7 @@ public class SecurityVerify
 
     public void setValue(String value) throws ParseException
     {
+        setModified();
         throw new ParseException(value,0);
     }
 
@@ -83,6 +83,7 @@ public class ServiceRoute
     }
 
     public void setValue(String value) throws ParseException {
+        setModified();
         throw new ParseException (value,0);
 
     }
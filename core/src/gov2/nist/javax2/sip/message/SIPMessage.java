@@ -68,6 +68,7 @@ import gov2.nist.javax2.sip.header.Via;
 import gov2.nist.javax2.sip.header.ViaList;
 import gov2.nist.javax2.sip.header.WWWAuthenticate;
 import gov2.nist.javax2.sip.header.Warning;
+import gov2.nist.javax2.sip.parser.DeferredHeaders;
 import gov2.nist.javax2.sip.parser.HeaderParser;
 import gov2.nist.javax2.sip.parser.ParserFactory;
 import gov2.nist.javax2.sip.parser.PipelinedMsgParser;
@@ -76,12 +77,17 @@ import gov2.nist.javax2.sip.parser.StringMsgParser;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax2.sip.InvalidArgumentException;
@@ -113,6 +119,12 @@ import javax2.sip.message.Request;
 /**
  * This is the main SIP Message structure.
  * 
+ * The encoding of the message is kept and reused (for retransmissions and message logging)
+ * until the message is modified, through the message or through one of its headers: the header
+ * mutators record a modification stamp, checked before the encoding is reused. The content and
+ * the iterators handed out by the message are not tracked, the content must be set again once
+ * modified.
+ * 
  * @see StringMsgParser
  * @see PipelinedMsgParser
  * 
@@ -172,6 +184,15 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     // Table of headers indexed by name.
     private Hashtable<String, SIPHeader> nameTable;
 
+    // Headers received but not parsed yet
+    private volatile DeferredHeaders deferredHeaders;
+
+    // Encoded message, reused until the message is modified
+    private volatile Encoding<byte[]> encodedBytes;
+
+    // Encoded message as a string, reused until the message is modified
+    private volatile Encoding<String> encodedString;
+
     /**
      * The application data pointer. This is un-interpreted by the stack. This is provided as a
      * convenient way of keeping book-keeping data for applications.
@@ -214,6 +235,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         canonical form.
      */
     public LinkedList<String> getMessageAsEncodedStrings() {
+        parseDeferredHeaders();
         LinkedList<String> retval = new LinkedList<String>();
         Iterator<SIPHeader> li = headers.iterator();
         while (li.hasNext()) {
@@ -235,6 +257,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return a string with all the headers encoded.
      */
     protected String encodeSIPHeaders() {
+        parseDeferredHeaders();
         StringBuffer encoding = new StringBuffer();
         Iterator<SIPHeader> it = this.headers.iterator();
 
@@ -269,6 +292,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return true if a match occured and false otherwise.
      */
     public boolean match(Object other) {
+        parseDeferredHeaders();
         if (other == null)
             return true;
         if (!other.getClass().equals(this.getClass()))
@@ -331,6 +355,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         if (!template.getClass().equals(this.getClass()))
             throw new IllegalArgumentException("Bad class " + template.getClass());
         SIPMessage templateMessage = (SIPMessage) template;
+        parseDeferredHeaders();
+        templateMessage.parseDeferredHeaders();
+        invalidateEncoding();
         Object[] templateHeaders = templateMessage.headers.toArray();
         for (int i = 0; i < templateHeaders.length; i++) {
             SIPHeader hdr = (SIPHeader) templateHeaders[i];
@@ -358,6 +385,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         representation of the SDP payload if it exists).
      */
     public String encode() {
+        parseDeferredHeaders();
         StringBuffer encoding = new StringBuffer();
         Iterator<SIPHeader> it = this.headers.iterator();
 
@@ -406,6 +434,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         byte array).
      */
     public byte[] encodeAsBytes(String transport) {
+        parseDeferredHeaders();
         if (this instanceof SIPRequest && ((SIPRequest) this).isNullRequest()) {
             return "\r\n\r\n".getBytes();
         }
@@ -413,7 +442,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         // in the topmost Via header
         ViaHeader topVia = (ViaHeader) this.getHeader(ViaHeader.NAME);
         try {
-            topVia.setTransport(transport);
+            // Not modified if already set, so that the encoding may be reused
+            if (!transport.equals(topVia.getTransport()))
+                topVia.setTransport(transport);
         } catch (ParseException e) {
             InternalErrorHandler.handleException(e);
         }
@@ -470,7 +501,10 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return A cloned copy of this object.
      */
     public Object clone() {
+        parseDeferredHeaders();
         SIPMessage retval = (SIPMessage) super.clone();
+        retval.encodedBytes = null;
+        retval.encodedString = null;
         retval.nameTable = new Hashtable<String, SIPHeader>();
         retval.fromHeader = null;
         retval.toHeader = null;
@@ -501,6 +535,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         encode(). This is used mainly for debugging purposes.
      */
     public String debugDump() {
+        parseDeferredHeaders();
         stringRepresentation = "";
         sprint("SIPMessage:");
         sprint("{");
@@ -641,6 +676,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         if (header == null) {
             throw new NullPointerException("null header");
         }
+        invalidateEncoding();
 
         SIPHeader h;
 
@@ -653,6 +689,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         }
 
         String headerNameLowerCase = SIPHeaderNamesCache.toLowerCase(h.getName());
+        parseDeferredHeaders(headerNameLowerCase);
         if (replaceFlag) {
             nameTable.remove(headerNameLowerCase);
         } else if (nameTable.containsKey(headerNameLowerCase) && !(h instanceof SIPHeaderList)) {
@@ -713,6 +750,180 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
 
     }
 
+    /**
+     * Set the headers which have been received with the message but not parsed yet. They are
+     * parsed when they are accessed for the first time. Called by the parser.
+     * 
+     * @param deferredHeaders the headers to be parsed.
+     */
+    public void setDeferredHeaders(DeferredHeaders deferredHeaders) {
+        this.deferredHeaders = deferredHeaders;
+    }
+
+    /**
+     * Parse the headers which have been received with the message but not parsed yet.
+     */
+    private void parseDeferredHeaders() {
+        DeferredHeaders deferred = this.deferredHeaders;
+        // The headers being parsed are attached with the lock held
+        if (deferred == null || Thread.holdsLock(deferred))
+            return;
+        synchronized (deferred) {
+            if (this.deferredHeaders != deferred)
+                return;
+            SIPHeader[] parsed = headers.toArray(new SIPHeader[headers.size()]);
+            deferred.attachTo(this);
+            restoreReceivedOrder(parsed, deferred);
+            this.deferredHeaders = null;
+        }
+    }
+
+    /**
+     * Move the deferred headers, which have been attached at the end of the headers, back to
+     * their received position: after the header parsed with the message which preceded them.
+     * 
+     * @param parsed the headers before the deferred headers were attached.
+     * @param deferred the deferred headers.
+     */
+    private void restoreReceivedOrder(SIPHeader[] parsed, DeferredHeaders deferred) {
+        if (headers.size() == parsed.length)
+            return;
+        Set<SIPHeader> parsedSet = Collections.newSetFromMap(new IdentityHashMap<SIPHeader, Boolean>());
+        parsedSet.addAll(Arrays.asList(parsed));
+        ArrayList<SIPHeader> ordered = new ArrayList<SIPHeader>(Arrays.asList(parsed));
+        for (SIPHeader header : headers) {
+            if (parsedSet.contains(header))
+                continue;
+            String preceding = deferred.getPrecedingHeader(SIPHeaderNamesCache.toLowerCase(header
+                    .getName()));
+            int index = 0;
+            if (preceding != null) {
+                index = ordered.size();
+                for (int i = 0; i < ordered.size(); i++) {
+                    if (preceding.equals(SIPHeaderNamesCache.toLowerCase(ordered.get(i).getName()))) {
+                        index = i + 1;
+                        break;
+                    }
+                }
+            }
+            // After the deferred headers already moved to the same place
+            while (index < ordered.size() && !parsedSet.contains(ordered.get(index)))
+                index++;
+            ordered.add(index, header);
+        }
+        headers.clear();
+        headers.addAll(ordered);
+    }
+
+    /**
+     * Parse the headers which have been received with the message but not parsed yet, before
+     * accessing a header of the given name.
+     * 
+     * @param lowerCaseHeaderName lower case name of the header to be accessed.
+     */
+    private void parseDeferredHeaders(String lowerCaseHeaderName) {
+        if (this.deferredHeaders != null && !DeferredHeaders.isParsedEagerly(lowerCaseHeaderName))
+            parseDeferredHeaders();
+    }
+
+    /**
+     * Encoding of the message, kept with the modification stamp read before encoding it.
+     */
+    private static final class Encoding<T> {
+        final T value;
+
+        // Transport set in the topmost Via of the encoded message
+        final String transport;
+
+        final long stamp;
+
+        Encoding(T value, String transport, long stamp) {
+            this.value = value;
+            this.transport = transport;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Forget the encoding of the message. Called each time the message is modified.
+     */
+    protected void invalidateEncoding() {
+        setModified();
+        this.encodedBytes = null;
+        this.encodedString = null;
+    }
+
+    /**
+     * Get the stamp of the last modification of the message or of its headers.
+     * 
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        long stamp = super.getModificationStamp();
+        for (SIPHeader header : this.headers) {
+            stamp = Math.max(stamp, header.getModificationStamp());
+        }
+        return stamp;
+    }
+
+    /**
+     * Get the modification stamp before encoding the message, to be given back when the
+     * encoding is cached.
+     * 
+     * @return the modification stamp.
+     */
+    protected long getEncodingStamp() {
+        parseDeferredHeaders();
+        return currentModificationStamp();
+    }
+
+    /**
+     * Get the encoded message if it has not been modified since it was encoded.
+     * 
+     * @param transport the transport set in the topmost Via header.
+     * @return the encoded message, or null if it must be encoded again.
+     */
+    protected byte[] getEncodedBytes(String transport) {
+        Encoding<byte[]> encoded = this.encodedBytes;
+        if (encoded != null && transport != null && transport.equals(encoded.transport)
+                && getModificationStamp() <= encoded.stamp)
+            return encoded.value;
+        return null;
+    }
+
+    /**
+     * Keep the encoded message until the message is modified.
+     * 
+     * @param encoded the encoded message.
+     * @param transport the transport set in the topmost Via header.
+     * @param stamp the modification stamp read before encoding the message.
+     */
+    protected void setEncodedBytes(byte[] encoded, String transport, long stamp) {
+        this.encodedBytes = new Encoding<byte[]>(encoded, transport, stamp);
+    }
+
+    /**
+     * Get the message encoded as a string if it has not been modified since it was encoded.
+     * 
+     * @return the encoded message, or null if it must be encoded again.
+     */
+    protected String getEncodedString() {
+        Encoding<String> encoded = this.encodedString;
+        if (encoded != null && getModificationStamp() <= encoded.stamp)
+            return encoded.value;
+        return null;
+    }
+
+    /**
+     * Keep the message encoded as a string until the message is modified.
+     * 
+     * @param encoded the encoded message.
+     * @param stamp the modification stamp read before encoding the message.
+     */
+    protected void setEncodedString(String encoded, long stamp) {
+        this.encodedString = new Encoding<String>(encoded, null, stamp);
+    }
+
     /**
      * Remove a header given its name. If multiple headers of a given name are present then the
      * top flag determines which end to remove headers from.
@@ -723,6 +934,8 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     public void removeHeader(String headerName, boolean top) {
 
         String headerNameLowerCase = SIPHeaderNamesCache.toLowerCase(headerName);
+        parseDeferredHeaders(headerNameLowerCase);
+        invalidateEncoding();
         SIPHeader toRemove = (SIPHeader) nameTable.get(headerNameLowerCase);
         // nothing to do then we are done.
         if (toRemove == null)
@@ -781,6 +994,8 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         if (headerName == null)
             throw new NullPointerException("null arg");
         String headerNameLowerCase = SIPHeaderNamesCache.toLowerCase(headerName);
+        parseDeferredHeaders(headerNameLowerCase);
+        invalidateEncoding();
         SIPHeader removed = (SIPHeader) nameTable.remove(headerNameLowerCase);
         // nothing to do then we are done.
         if (removed == null)
@@ -901,6 +1116,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return an Iterator for the headers of this message.
      */
     public Iterator<SIPHeader> getHeaders() {
+        parseDeferredHeaders();
         return headers.iterator();
     }
 
@@ -916,6 +1132,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     private Header getHeaderLowerCase(String lowerCaseHeaderName) {
         if (lowerCaseHeaderName == null)
             throw new NullPointerException("bad name");
+        parseDeferredHeaders(lowerCaseHeaderName);
         SIPHeader sipHeader = (SIPHeader) nameTable.get(lowerCaseHeaderName);
         if (sipHeader instanceof SIPHeaderList)
             return (Header) ((SIPHeaderList) sipHeader).getFirst();
@@ -1118,6 +1335,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         if (callIdHeader == null) {
             this.setHeader(new CallID());
         }
+        invalidateEncoding();
         callIdHeader.setCallId(callId);
     }
 
@@ -1341,6 +1559,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param content is the content, as String, array of bytes, or other object.
      */
     private void computeContentLength(Object content) {
+        invalidateEncoding();
         int length = 0;
         if (content != null) {
             if (content instanceof String) {
@@ -1367,6 +1586,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * Remove the message content if it exists.
      */
     public void removeContent() {
+        invalidateEncoding();
         messageContent = null;
         messageContentBytes = null;
         messageContentObject = null;
@@ -1386,8 +1606,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     public ListIterator<SIPHeader> getHeaders(String headerName) {
         if (headerName == null)
             throw new NullPointerException("null headerName");
-        SIPHeader sipHeader = (SIPHeader) nameTable.get(SIPHeaderNamesCache
-                .toLowerCase(headerName));
+        String lowerCaseHeaderName = SIPHeaderNamesCache.toLowerCase(headerName);
+        parseDeferredHeaders(lowerCaseHeaderName);
+        SIPHeader sipHeader = (SIPHeader) nameTable.get(lowerCaseHeaderName);
         // empty iterator
         if (sipHeader == null)
             return new LinkedList<SIPHeader>().listIterator();
@@ -1407,6 +1628,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      */
     public String getHeaderAsFormattedString(String name) {
         String lowerCaseName = name.toLowerCase();
+        parseDeferredHeaders(lowerCaseName);
         if (this.nameTable.containsKey(lowerCaseName)) {
             return this.nameTable.get(lowerCaseName).toString();
         } else {
@@ -1415,6 +1637,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     }
 
     private SIPHeader getSIPHeaderListLowerCase(String lowerCaseHeaderName) {
+        parseDeferredHeaders(lowerCaseHeaderName);
         return nameTable.get(lowerCaseHeaderName);
     }
 
@@ -1426,8 +1649,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      */
     @SuppressWarnings("unchecked")
     private List<SIPHeader> getHeaderList(String headerName) {
-        SIPHeader sipHeader = (SIPHeader) nameTable.get(SIPHeaderNamesCache
-                .toLowerCase(headerName));
+        String lowerCaseHeaderName = SIPHeaderNamesCache.toLowerCase(headerName);
+        parseDeferredHeaders(lowerCaseHeaderName);
+        SIPHeader sipHeader = (SIPHeader) nameTable.get(lowerCaseHeaderName);
         if (sipHeader == null)
             return null;
         else if (sipHeader instanceof SIPHeaderList)
@@ -1446,7 +1670,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return true if the header is present in the message
      */
     public boolean hasHeader(String headerName) {
-        return nameTable.containsKey(SIPHeaderNamesCache.toLowerCase(headerName));
+        String lowerCaseHeaderName = SIPHeaderNamesCache.toLowerCase(headerName);
+        parseDeferredHeaders(lowerCaseHeaderName);
+        return nameTable.containsKey(lowerCaseHeaderName);
     }
 
     /**
@@ -1483,6 +1709,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param tag -- tag to set in the from header.
      */
     public void setFromTag(String tag) {
+        invalidateEncoding();
         try {
             fromHeader.setTag(tag);
         } catch (ParseException e) {
@@ -1495,6 +1722,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param tag -- tag to set.
      */
     public void setToTag(String tag) {
+        invalidateEncoding();
         try {
             toHeader.setTag(tag);
         } catch (ParseException e) {
@@ -1544,6 +1772,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param unparsed -- unparsed header to add to the list.
      */
     public void addUnparsed(String unparsed) {
+        invalidateEncoding();
         this.unrecognizedHeaders.add(unparsed);
     }
 
@@ -1560,6 +1789,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             SIPHeader sh = parser.parse();
             this.attachHeader(sh, false);
         } catch (ParseException ex) {
+            invalidateEncoding();
             this.unrecognizedHeaders.add(hdrString);
         }
     }
@@ -1570,6 +1800,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return a linked list containing unrecongnized headers.
      */
     public ListIterator<String> getUnrecognizedHeaders() {
+        parseDeferredHeaders();
         return this.unrecognizedHeaders.listIterator();
     }
 
@@ -1580,6 +1811,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         are present in the message.
      */
     public ListIterator<String> getHeaderNames() {
+        parseDeferredHeaders();
         Iterator<SIPHeader> li = this.headers.iterator();
         LinkedList<String> retval = new LinkedList<String>();
         while (li.hasNext()) {
@@ -1600,6 +1832,8 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             return false;
         }
         SIPMessage otherMessage = (SIPMessage) other;
+        parseDeferredHeaders();
+        otherMessage.parseDeferredHeaders();
         Collection<SIPHeader> values = this.nameTable.values();
         Iterator<SIPHeader> it = values.iterator();
         if (nameTable.size() != otherMessage.nameTable.size()) {
@@ -1703,6 +1937,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param contentLength -- content length header.
      */
     public void setContentLength(ContentLengthHeader contentLength) {
+        invalidateEncoding();
         try {
             this.contentLengthHeader.setContentLength(contentLength.getContentLength());
         } catch (InvalidArgumentException ex) {
@@ -1882,6 +2117,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * 
      */
     public void setNullRequest() {
+        invalidateEncoding();
         this.nullRequest = true;
     }
     
@@ -178,6 +178,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
      */
 
     public void setRequestLine(RequestLine requestLine) {
+        invalidateEncoding();
         this.requestLine = requestLine;
     }
 
@@ -377,6 +378,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
         if ( uri == null ) {
             throw new NullPointerException("Null request URI");
         }
+        invalidateEncoding();
         if (this.requestLine == null) {
             this.requestLine = new RequestLine();
         }
@@ -393,6 +395,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
     public void setMethod(String method) {
         if (method == null)
             throw new IllegalArgumentException("null method");
+        invalidateEncoding();
         if (this.requestLine == null) {
             this.requestLine = new RequestLine();
         }
@@ -435,7 +438,12 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
         String retval;
         if (requestLine != null) {
             this.setRequestLineDefaults();
-            retval = requestLine.encode() + super.encode();
+            retval = getEncodedString();
+            if (retval == null) {
+                long stamp = getEncodingStamp();
+                retval = requestLine.encode() + super.encode();
+                setEncodedString(retval, stamp);
+            }
         } else if (this.isNullRequest()) {
             retval = "\r\n\r\n";
         } else {       
@@ -624,6 +632,11 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
             return new byte[0];
         }
 
+        byte[] retval = getEncodedBytes(transport);
+        if (retval != null)
+            return retval;
+        long stamp = getEncodingStamp();
+
         byte[] rlbytes = null;
         if (requestLine != null) {
             try {
@@ -633,9 +646,10 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
             }
         }
         byte[] superbytes = super.encodeAsBytes(transport);
-        byte[] retval = new byte[rlbytes.length + superbytes.length];
+        retval = new byte[rlbytes.length + superbytes.length];
         System.arraycopy(rlbytes, 0, retval, 0, rlbytes.length);
         System.arraycopy(superbytes, 0, retval, rlbytes.length, superbytes.length);
+        setEncodedBytes(retval, transport, stamp);
         return retval;
     }
 
@@ -1107,6 +1121,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
     public void setSIPVersion(String sipVersion) throws ParseException {
         if (sipVersion == null || !sipVersion.equalsIgnoreCase("SIP/2.0"))
             throw new ParseException("sipVersion", 0);
+        invalidateEncoding();
         this.requestLine.setSipVersion(sipVersion);
     }
 
@@ -1205,4 +1220,12 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
    
     
 
+    /**
+     * Get the stamp of the last modification of the request, including its request line.
+     * 
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        return getModificationStamp(super.getModificationStamp(), requestLine);
+    }
 }
@@ -309,6 +309,7 @@ public final class SIPResponse
       // but in practice up to 699 since the 6xx range is defined as 'final error')
         if (statusCode < 100 || statusCode > 699)
             throw new ParseException("bad status code", 0);
+        invalidateEncoding();
         if (this.statusLine == null)
             this.statusLine = new StatusLine();
         this.statusLine.setStatusCode(statusCode);
@@ -336,6 +337,7 @@ public final class SIPResponse
     public void setReasonPhrase(String reasonPhrase) {
         if (reasonPhrase == null)
             throw new IllegalArgumentException("Bad reason phrase");
+        invalidateEncoding();
         if (this.statusLine == null)
             this.statusLine = new StatusLine();
         this.statusLine.setReasonPhrase(reasonPhrase);
@@ -371,6 +373,7 @@ public final class SIPResponse
      *@param sl Status line to set.
      */
     public void setStatusLine(StatusLine sl) {
+        invalidateEncoding();
         statusLine = sl;
     }
 
@@ -435,9 +438,14 @@ public final class SIPResponse
 
     public String encode() {
         String retval;
-        if (statusLine != null)
-            retval = statusLine.encode() + super.encode();
-        else
+        if (statusLine != null) {
+            retval = getEncodedString();
+            if (retval == null) {
+                long stamp = getEncodingStamp();
+                retval = statusLine.encode() + super.encode();
+                setEncodedString(retval, stamp);
+            }
+        } else
             retval = super.encode();
         return retval ;
     }
@@ -531,6 +539,11 @@ public final class SIPResponse
      */
 
     public byte[] encodeAsBytes( String transport ) {
+        byte[] retval = getEncodedBytes(transport);
+        if (retval != null)
+            return retval;
+        long stamp = getEncodingStamp();
+
         byte[] slbytes = null;
         if (statusLine != null) {
             try {
@@ -540,10 +553,11 @@ public final class SIPResponse
             }
         }
         byte[] superbytes = super.encodeAsBytes( transport );
-        byte[] retval = new byte[slbytes.length + superbytes.length];
+        retval = new byte[slbytes.length + superbytes.length];
         System.arraycopy(slbytes, 0, retval, 0, slbytes.length);
         System.arraycopy(superbytes, 0, retval, slbytes.length,
                 superbytes.length);
+        setEncodedBytes(retval, transport, stamp);
         return retval;
     }
 
@@ -657,6 +671,7 @@ public final class SIPResponse
     }
 
     public void setSIPVersion(String sipVersion) {
+        invalidateEncoding();
         this.statusLine.setSipVersion(sipVersion);
     }
 
@@ -666,7 +681,7 @@ public final class SIPResponse
 
     public String toString() {
         if (statusLine == null) return  "";
-        else return statusLine.encode() + super.encode();
+        else return encode();
     }
 
     /**
@@ -732,4 +747,13 @@ public final class SIPResponse
         return newRequest;
 
     }
+
+    /**
+     * Get the stamp of the last modification of the response, including its status line.
+     * 
+     * @return the modification stamp.
+     */
+    public long getModificationStamp() {
+        return getModificationStamp(super.getModificationStamp(), statusLine);
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.parser;
+
+import gov2.nist.javax2.sip.header.SIPHeader;
+import gov2.nist.javax2.sip.header.SIPHeaderNamesCache;
+import gov2.nist.javax2.sip.message.SIPMessage;
+
+import java.text.ParseException;
+import java.util.HashMap;
+
+/**
+ * Headers of a received message which have not been parsed yet. Only the
+ * position of each header in the received buffer is kept, the header is
+ * decoded and parsed when the message is asked for it (or for all its
+ * headers) for the first time. Headers used to match the message to a
+ * transaction are always parsed with the message. The last of these headers
+ * received before each deferred header is kept, so that the message can put
+ * the deferred headers back in the received order.
+ *
+ */
+public class DeferredHeaders {
+
+    // / Lower case names of the headers parsed with the message
+    private static final String[] EAGER_HEADERS = { "via", "v", "from", "f", "to", "t",
+            "call-id", "i", "cseq", "max-forwards", "content-length", "l" };
+
+    // / Full names of the headers parsed with the message
+    private static final String[] EAGER_FULL_NAMES = { "via", "via", "from", "from", "to", "to",
+            "call-id", "call-id", "cseq", "max-forwards", "content-length", "content-length" };
+
+    private final byte[] buffer;
+
+    // / Start and end positions of each header in the buffer
+    private int[] positions = new int[32];
+
+    // / Full name of the header parsed with the message preceding each header
+    private String[] preceding = new String[16];
+
+    private int count;
+
+    // / Header parsed with the message preceding the first header of each name
+    private HashMap<String, String> precedingByName;
+
+    DeferredHeaders(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Add a header.
+     *
+     * @param start position of the header in the buffer
+     * @param end position of the end of the last line of the header
+     * @param precedingHeader full lower case name of the last header parsed
+     *        with the message before this one, null if none
+     */
+    void add(int start, int end, String precedingHeader) {
+        if (2 * count + 2 > positions.length) {
+            int[] grown = new int[positions.length * 2];
+            System.arraycopy(positions, 0, grown, 0, positions.length);
+            positions = grown;
+            String[] grownPreceding = new String[preceding.length * 2];
+            System.arraycopy(preceding, 0, grownPreceding, 0, preceding.length);
+            preceding = grownPreceding;
+        }
+        positions[2 * count] = start;
+        positions[2 * count + 1] = end;
+        preceding[count] = precedingHeader;
+        count++;
+    }
+
+    /**
+     * @return the number of headers
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Parse the headers and attach them to a message. Headers which cannot be
+     * parsed are added to the unparsed headers of the message, as done by the
+     * parse exception listeners of the message channels.
+     *
+     * @param message the message which has been parsed from the buffer
+     */
+    public void attachTo(SIPMessage message) {
+        precedingByName = new HashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            String header = null;
+            try {
+                header = StringMsgParser.decodeHeader(buffer, positions[2 * i],
+                        positions[2 * i + 1]);
+                if (header.length() == 0)
+                    continue;
+                SIPHeader sipHeader = ParserFactory.createParser(header + "\n").parse();
+                String name = SIPHeaderNamesCache.toLowerCase(sipHeader.getName());
+                if (!precedingByName.containsKey(name))
+                    precedingByName.put(name, preceding[i]);
+                message.attachHeader(sipHeader, false);
+            } catch (ParseException ex) {
+                if (header != null)
+                    message.addUnparsed(header);
+            }
+        }
+    }
+
+    /**
+     * Get the header parsed with the message which was received before the
+     * first header of the given name, once the headers have been attached.
+     *
+     * @param lowerCaseName lower case name of an attached header
+     * @return full lower case name of the preceding header, null if the
+     *         header was received before all the headers parsed with the message
+     */
+    public String getPrecedingHeader(String lowerCaseName) {
+        return precedingByName == null ? null : precedingByName.get(lowerCaseName);
+    }
+
+    /**
+     * Check if a header is always parsed with the message.
+     *
+     * @param lowerCaseName lower case name of the header
+     * @return true if the header is parsed with the message
+     */
+    public static boolean isParsedEagerly(String lowerCaseName) {
+        for (int i = 0; i < EAGER_HEADERS.length; i++) {
+            if (EAGER_HEADERS[i].equals(lowerCaseName))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the name of a header of a received buffer if it is always parsed
+     * with the message, without decoding it.
+     *
+     * @param buffer the received buffer
+     * @param start position of the header
+     * @param end position of the end of the first line of the header or after
+     * @return the full lower case name of the header if it is parsed with the
+     *         message, an empty string if the name cannot be read (the header
+     *         is then parsed with the message to report the error), or null if
+     *         the header is deferred
+     */
+    static String getEagerName(byte[] buffer, int start, int end) {
+        int nameEnd = start;
+        while (nameEnd < end && buffer[nameEnd] != ':' && buffer[nameEnd] != ' '
+                && buffer[nameEnd] != '\t')
+            nameEnd++;
+        if (nameEnd == end) {
+            // Let the parser report the malformed header
+            return "";
+        }
+        for (int i = 0; i < EAGER_HEADERS.length; i++) {
+            String name = EAGER_HEADERS[i];
+            if (name.length() != nameEnd - start)
+                continue;
+            int j = 0;
+            while (j < name.length() && Character.toLowerCase((char) buffer[start + j]) == name.charAt(j))
+                j++;
+            if (j == name.length())
+                return EAGER_FULL_NAMES[i];
+        }
+        return null;
+    }
+}
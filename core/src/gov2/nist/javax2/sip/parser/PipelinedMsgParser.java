@@ -177,30 +177,35 @@ public final class PipelinedMsgParser implements Runnable {
 
     /**
      * read a line of input (I cannot use buffered reader because we may need to
-     * switch encodings mid-stream!
+     * switch encodings mid-stream!). The line is appended to the buffer without
+     * its carriage return, so that the headers are decoded only once by the
+     * message parser.
+     *
+     * @return true if the line is blank
      */
-    private String readLine(InputStream inputStream) throws IOException {
-        StringBuffer retval = new StringBuffer("");
+    private boolean readLine(InputStream inputStream, ByteArrayOutputStream buffer)
+            throws IOException {
+        boolean blank = true;
         while (true) {
-            char ch;
             int i = inputStream.read();
             if (i == -1) {
                 throw new IOException("End of stream");
-            } else
-                ch = (char) i;
+            }
             // reduce the available read size by 1 ("size" of a char).
             if (this.maxMessageSize > 0) {
                 this.sizeCounter--;
                 if (this.sizeCounter <= 0)
                     throw new IOException("Max size exceeded!");
             }
-            if (ch != '\r')
-                retval.append(ch);
-            if (ch == '\n') {
+            if (i != '\r')
+                buffer.write(i);
+            if (i == '\n') {
                 break;
             }
+            if (i > ' ')
+                blank = false;
         }
-        return retval.toString();
+        return blank;
     }
 
     /**
@@ -219,22 +224,19 @@ public final class PipelinedMsgParser implements Runnable {
             while (true) {
                 this.sizeCounter = this.maxMessageSize;
                 // this.messageSize = 0;
-                StringBuffer inputBuffer = new StringBuffer();
+                ByteArrayOutputStream inputBuffer = new ByteArrayOutputStream();
 
                 if (Debug.parserDebug)
                     Debug.println("Starting parse!");
 
-                String line1;
-                String line2 = null;
-
                 while (true) {
                     try {
-                        line1 = readLine(inputStream);
                         // ignore blank lines.
-                        if (line1.equals("\n")) {
+                        if (readLine(inputStream, inputBuffer)) {
                             if (Debug.parserDebug) {
                                 Debug.println("Discarding blank line. ");
                             }
+                            inputBuffer.reset();
                             continue;
                         } else
                             break;
@@ -246,16 +248,13 @@ public final class PipelinedMsgParser implements Runnable {
                     }
                 }
 
-                inputBuffer.append(line1);
                 // Guard against bad guys.
                 this.rawInputStream.startTimer();
 
                 Debug.println("Reading Input Stream");
                 while (true) {
                     try {
-                        line2 = readLine(inputStream);
-                        inputBuffer.append(line2);
-                        if (line2.trim().equals(""))
+                        if (readLine(inputStream, inputBuffer))
                             break;
                     } catch (IOException ex) {
                         this.rawInputStream.stopTimer();
@@ -267,16 +266,17 @@ public final class PipelinedMsgParser implements Runnable {
 
                 // Stop the timer that will kill the read.
                 this.rawInputStream.stopTimer();
-                inputBuffer.append(line2);
                 StringMsgParser smp = new StringMsgParser(sipMessageListener);
                 smp.readBody = false;
+                smp.setParseHeadersLazily(true);
                 SIPMessage sipMessage = null;
 
                 try {
                     if (Debug.debug) {
                         Debug.println("About to parse : " + inputBuffer.toString());
                     }
-                    sipMessage = smp.parseSIPMessage(inputBuffer.toString());
+                    // The buffer is a copy, the deferred headers can keep it
+                    sipMessage = smp.parseSIPMessage(inputBuffer.toByteArray());
                     if (sipMessage == null) {
                         this.rawInputStream.stopTimer();
                         continue;
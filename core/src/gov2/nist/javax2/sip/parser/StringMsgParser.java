@@ -59,9 +59,10 @@ import java.text.ParseException;
  * accessible from the parsed message using the getContent and getContentBytes
  * methods provided by the SIPMessage class. If SDP parsing is enabled using the
  * parseContent method, then the SDP body is also parsed and can be accessed
- * from the message using the getSDPAnnounce method. Currently only eager
- * parsing of the message is supported (i.e. the entire message is parsed in one
- * feld swoop).
+ * from the message using the getSDPAnnounce method. Messages parsed from a
+ * String are parsed eagerly (i.e. the entire message is parsed in one feld
+ * swoop). Messages parsed from a byte buffer may have their non transaction
+ * headers parsed on first access, see setParseHeadersLazily.
  *
  *
  * @version 1.2 $Revision: 1.26 $ $Date: 2009/10/22 10:27:38 $
@@ -76,6 +77,7 @@ public class StringMsgParser {
     private ParseExceptionListener parseExceptionListener;
     private String rawStringMessage;
     private boolean strict;
+    private boolean parseHeadersLazily;
 
     private static boolean computeContentLengthFromMessage = false;
 
@@ -131,84 +133,65 @@ public class StringMsgParser {
             return null;
 
         int i = 0;
+        int length = msgBuffer.length;
 
         // Squeeze out any leading control character.
-        try {
-            while (msgBuffer[i] < 0x20)
-                i++;
-        }
-        catch (ArrayIndexOutOfBoundsException e) {
+        while (i < length && msgBuffer[i] < 0x20)
+            i++;
+        if (i == length) {
             // Array contains only control char, return null.
             return null;
         }
 
-        // Iterate thru the request/status line and headers.
-        String currentLine = null;
-        String currentHeader = null;
-        boolean isFirstLine = true;
-        SIPMessage message = null;
-        do
-        {
-            int lineStart = i;
-
-            // Find the length of the line.
-            try {
-                while (msgBuffer[i] != '\r' && msgBuffer[i] != '\n')
-                    i++;
-            }
-            catch (ArrayIndexOutOfBoundsException e) {
-                // End of the message.
+        // Process the request/status line.
+        int lineEnd = findEndOfLine(msgBuffer, i);
+        if (lineEnd == length) {
+            throw new ParseException("Bad message", 0);
+        }
+        SIPMessage message = processFirstLine(decodeHeader(msgBuffer, i, lineEnd));
+        i = skipEndOfLine(msgBuffer, lineEnd);
+
+        // Iterate thru the headers without decoding them, a header ends
+        // before the first line which is not a continuation.
+        DeferredHeaders deferredHeaders = null;
+        String lastEagerHeader = null;
+        while (i < length) {
+            lineEnd = findEndOfLine(msgBuffer, i);
+            if (isBlank(msgBuffer, i, lineEnd)) {
+                // Last header line.
+                i = skipEndOfLine(msgBuffer, lineEnd);
                 break;
             }
-            int lineLength = i - lineStart;
 
-            // Make it a String.
-            try {
-                currentLine = new String(msgBuffer, lineStart, lineLength, "UTF-8");
-            } catch (UnsupportedEncodingException e) {
-                throw new ParseException("Bad message encoding!", 0);
+            int headerStart = i;
+            int headerEnd = lineEnd;
+            i = skipEndOfLine(msgBuffer, lineEnd);
+            while (i < length && (msgBuffer[i] == ' ' || msgBuffer[i] == '\t')) {
+                lineEnd = findEndOfLine(msgBuffer, i);
+                if (isBlank(msgBuffer, i, lineEnd))
+                    break;
+
+                // This is a continuation, it belongs to the current header.
+                headerEnd = lineEnd;
+                i = skipEndOfLine(msgBuffer, lineEnd);
             }
 
-            currentLine = trimEndOfLine(currentLine);
-
-            if (currentLine.length() == 0) {
-                // Last header line, process the previous buffered header.
-                if (currentHeader != null && message != null) {
-                     processHeader(currentHeader, message);
-                 }
-
+            String eagerName = parseHeadersLazily ? DeferredHeaders.getEagerName(msgBuffer,
+                    headerStart, headerEnd) : "";
+            if (eagerName == null) {
+                if (deferredHeaders == null)
+                    deferredHeaders = new DeferredHeaders(msgBuffer);
+                deferredHeaders.add(headerStart, headerEnd, lastEagerHeader);
+            } else {
+                if (eagerName.length() > 0)
+                    lastEagerHeader = eagerName;
+                processHeader(decodeHeader(msgBuffer, headerStart, headerEnd), message);
             }
-            else {
-                if (isFirstLine) {
-                    message = processFirstLine(currentLine);
-                } else {
-                    char firstChar = currentLine.charAt(0);
-                    if (firstChar == '\t' || firstChar == ' ') {
-                        if (currentHeader == null)
-                            throw new ParseException("Bad header continuation.", 0);
-
-                        // This is a continuation, append it to the previous line.
-                        currentHeader += currentLine.substring(1);
-                    }
-                    else {
-                        if (currentHeader != null && message != null) {
-                             processHeader(currentHeader, message);
-                         }
-                        currentHeader = currentLine;
-                    }
-                }
-            }
-
-            if (msgBuffer[i] == '\r' && msgBuffer.length > i+1 && msgBuffer[i+1] == '\n')
-                i++;
-
-            i++;
-
-            isFirstLine = false;
-        } while (currentLine.length() > 0); // End do - while
+        }
 
-        if (message == null) throw new ParseException("Bad message", 0);
         message.setSize(i);
+        if (deferredHeaders != null)
+            message.setDeferredHeaders(deferredHeaders);
 
         if (readBody && message.getContentLength() != null &&
                 message.getContentLength().getContentLength() != 0) {
@@ -223,6 +206,96 @@ public class StringMsgParser {
         return message;
     }
 
+    /**
+     * Select the parsing of the headers of the messages parsed from a byte
+     * buffer. When lazy parsing is set, only the headers used by the
+     * transaction layer (Via, From, To, Call-ID, CSeq, Max-Forwards and
+     * Content-Length) are parsed with the message, the other ones are parsed
+     * when they are accessed for the first time. The buffer must then not be
+     * modified once it has been parsed.
+     *
+     * @param parseHeadersLazily true to parse the headers on first access
+     */
+    public void setParseHeadersLazily(boolean parseHeadersLazily) {
+        this.parseHeadersLazily = parseHeadersLazily;
+    }
+
+    /**
+     * Find the end of the line starting at the given position.
+     *
+     * @return the position of the first CR or LF, or the buffer length
+     */
+    private static int findEndOfLine(byte[] buffer, int start) {
+        int i = start;
+        while (i < buffer.length && buffer[i] != '\r' && buffer[i] != '\n')
+            i++;
+        return i;
+    }
+
+    /**
+     * Skip the end of line at the given position (CRLF, CR or LF).
+     *
+     * @return the position of the next line
+     */
+    private static int skipEndOfLine(byte[] buffer, int end) {
+        if (end < buffer.length && buffer[end] == '\r')
+            end++;
+        if (end < buffer.length && buffer[end] == '\n')
+            end++;
+        return end;
+    }
+
+    private static boolean isBlank(byte[] buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((buffer[i] & 0xff) > 0x20)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decode a header from a byte buffer. Continuation lines are appended to
+     * the first line, and the trailing white spaces of each line are removed.
+     *
+     * @param buffer the buffer containing the header
+     * @param start position of the header
+     * @param end position of the end of the last line of the header
+     * @return the header
+     * @throws ParseException if the header is not UTF-8 encoded
+     */
+    static String decodeHeader(byte[] buffer, int start, int end) throws ParseException {
+        String header;
+        try {
+            header = new String(buffer, start, end - start, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new ParseException("Bad message encoding!", 0);
+        }
+        if (header.indexOf('\n') < 0 && header.indexOf('\r') < 0)
+            return trimEndOfLine(header);
+
+        StringBuffer unfolded = new StringBuffer(header.length());
+        int lineStart = 0;
+        while (lineStart <= header.length()) {
+            int lineEnd = lineStart;
+            while (lineEnd < header.length() && header.charAt(lineEnd) != '\r'
+                    && header.charAt(lineEnd) != '\n')
+                lineEnd++;
+            String line = trimEndOfLine(header.substring(lineStart, lineEnd));
+            if (lineStart == 0)
+                unfolded.append(line);
+            else if (line.length() > 0)
+                unfolded.append(line.substring(1));
+            if (lineEnd < header.length() && header.charAt(lineEnd) == '\r')
+                lineEnd++;
+            if (lineEnd < header.length() && header.charAt(lineEnd) == '\n')
+                lineEnd++;
+            if (lineEnd == header.length())
+                break;
+            lineStart = lineEnd;
+        }
+        return unfolded.toString();
+    }
+
     /**
      * Parse a buffer containing one or more SIP Messages and return an array of
      * SIPMessage parsed structures.
@@ -337,7 +410,7 @@ public class StringMsgParser {
         return message;
     }
 
-    private String trimEndOfLine(String line) {
+    private static String trimEndOfLine(String line) {
         if (line == null)
             return line;
 
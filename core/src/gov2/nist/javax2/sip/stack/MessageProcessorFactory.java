@@ -0,0 +1,30 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+/**
+ * Creates the message processors of the stack, i.e. the transport
+ * implementations. The factory used by a stack is set with the
+ * gov2.nist.javax2.sip.MESSAGE_PROCESSOR_FACTORY stack property.
+ *
+ */
+public interface MessageProcessorFactory {
+
+    /**
+     * Create a message processor. The processor is not started.
+     *
+     * @param sipStack the stack owning the processor
+     * @param ipAddress address to listen on
+     * @param port port to listen on
+     * @param transport transport of the processor (udp, tcp, tls or sctp)
+     * @return the message processor
+     * @throws IOException if the processor could not be created
+     */
+    MessageProcessor createMessageProcessor(SIPTransactionStack sipStack,
+            InetAddress ipAddress, int port, String transport) throws IOException;
+}
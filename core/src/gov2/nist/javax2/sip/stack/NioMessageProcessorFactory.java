@@ -0,0 +1,32 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+/**
+ * Message processor factory multiplexing the TCP and TLS connections on a few
+ * selector threads instead of running a thread per connection. The other
+ * transports are created as by the default factory.
+ *
+ * The number of selector threads of each processor is set with the
+ * gov2.nist.javax2.sip.NIO_SELECTOR_COUNT stack property.
+ *
+ * @see NioTcpMessageProcessor
+ */
+public class NioMessageProcessorFactory extends OIOMessageProcessorFactory {
+
+    public MessageProcessor createMessageProcessor(SIPTransactionStack sipStack,
+            InetAddress ipAddress, int port, String transport) throws IOException {
+        if (transport.equalsIgnoreCase("tcp")) {
+            return new NioTcpMessageProcessor(ipAddress, sipStack, port, false);
+        } else if (transport.equalsIgnoreCase("tls")) {
+            return new NioTcpMessageProcessor(ipAddress, sipStack, port, true);
+        } else {
+            return super.createMessageProcessor(sipStack, ipAddress, port, transport);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Selector loop of the NIO transport. A single thread waits for the channels
+ * registered on the selector to be ready and calls their handler. Anything
+ * touching the selection keys (registration, interest changes) is run on the
+ * selector thread through {@link #execute(Runnable)}.
+ *
+ */
+public class NioSelector implements Runnable {
+
+    /**
+     * Handler of a registered channel, attached to its selection key.
+     */
+    public interface Handler {
+        /**
+         * Called from the selector thread when the channel is ready.
+         *
+         * @param key selection key of the channel
+         * @throws IOException the channel is then closed
+         */
+        void handleSelection(SelectionKey key) throws IOException;
+
+        /**
+         * Close the channel after an error in the selector thread.
+         */
+        void close();
+    }
+
+    private final SIPTransactionStack sipStack;
+
+    private final Selector selector;
+
+    private final String name;
+
+    // / Tasks to run on the selector thread
+    private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+    private Thread thread;
+
+    private volatile boolean running;
+
+    /**
+     * Constructor.
+     *
+     * @param sipStack the stack
+     * @param name name of the selector thread
+     * @throws IOException if the selector cannot be opened
+     */
+    public NioSelector(SIPTransactionStack sipStack, String name) throws IOException {
+        this.sipStack = sipStack;
+        this.name = name;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * @return the selector
+     */
+    public Selector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Start the selector thread.
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the selector thread and close the selector.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * @return true if called from the selector thread
+     */
+    public boolean isSelectorThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Run a task on the selector thread, right away if called from it.
+     *
+     * @param task the task
+     */
+    public void execute(Runnable task) {
+        if (isSelectorThread()) {
+            task.run();
+            return;
+        }
+        synchronized (tasks) {
+            tasks.add(task);
+        }
+        selector.wakeup();
+    }
+
+    /**
+     * Loop of the selector thread.
+     */
+    public void run() {
+        try {
+            while (running) {
+                runTasks();
+                selector.select();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Handler handler = (Handler) key.attachment();
+                    if (!key.isValid() || handler == null)
+                        continue;
+                    try {
+                        handler.handleSelection(key);
+                    } catch (Exception ex) {
+                        if (sipStack.isLoggingEnabled())
+                            sipStack.getStackLogger().logDebug(
+                                    "Closing channel after " + ex);
+                        handler.close();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logException(ex);
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+    }
+
+    private void runTasks() {
+        while (true) {
+            Runnable task;
+            synchronized (tasks) {
+                if (tasks.isEmpty())
+                    return;
+                task = tasks.removeFirst();
+            }
+            try {
+                task.run();
+            } catch (Exception ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(ex);
+            }
+        }
+    }
+}
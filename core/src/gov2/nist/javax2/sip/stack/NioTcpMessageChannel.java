@@ -0,0 +1,908 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack;
+
+import gov2.nist.core.InternalErrorHandler;
+import gov2.nist.core.ServerLogger;
+import gov2.nist.javax2.sip.header.CSeq;
+import gov2.nist.javax2.sip.header.CallID;
+import gov2.nist.javax2.sip.header.From;
+import gov2.nist.javax2.sip.header.RequestLine;
+import gov2.nist.javax2.sip.header.StatusLine;
+import gov2.nist.javax2.sip.header.To;
+import gov2.nist.javax2.sip.header.Via;
+import gov2.nist.javax2.sip.header.ViaList;
+import gov2.nist.javax2.sip.message.SIPMessage;
+import gov2.nist.javax2.sip.message.SIPRequest;
+import gov2.nist.javax2.sip.message.SIPResponse;
+import gov2.nist.javax2.sip.parser.SIPMessageListener;
+import gov2.nist.javax2.sip.parser.StringMsgParser;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.text.ParseException;
+import java.util.LinkedList;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLSession;
+import javax2.sip.address.Hop;
+
+/**
+ * TCP or TLS connection of the NIO transport. The connection is read and
+ * written by the selector thread of the channel, without blocking:
+ * <ul>
+ * <li>the received bytes are split into messages with the Content-Length
+ * header, each message being parsed and processed on a thread of the message
+ * processor, the messages of the connection one after the other,</li>
+ * <li>the messages to send are queued and written with a single gathering
+ * write, the caller writing them directly when nothing is pending.</li>
+ * </ul>
+ * A TLS connection goes through an SSLEngine, run by the selector thread
+ * only.
+ *
+ * A channel opened by the stack connects to the peer when the first message
+ * is sent, the connection is not re-established once closed: the next
+ * message gets a new channel from the message processor.
+ *
+ * @see NioTcpMessageProcessor
+ */
+public class NioTcpMessageChannel extends MessageChannel implements SIPMessageListener,
+        RawMessageChannel, NioSelector.Handler {
+
+    // / Timeout of the connection to the peer in milliseconds
+    private static final int CONNECT_TIMEOUT = 10000;
+
+    // / Initial size of the receive buffer of a TCP connection
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final NioTcpMessageProcessor nioMessageProcessor;
+
+    private final NioSelector selector;
+
+    protected SIPTransactionStack sipStack;
+
+    protected String key;
+
+    protected boolean isCached;
+
+    protected String myAddress;
+
+    protected int myPort;
+
+    protected InetAddress peerAddress;
+
+    protected int peerPort;
+
+    protected String peerProtocol;
+
+    private SocketChannel socketChannel;
+
+    private SSLEngine sslEngine;
+
+    private SelectionKey selectionKey;
+
+    private volatile boolean closed;
+
+    // / Received bytes not yet decrypted (TLS), used by the selector thread
+    private ByteBuffer netIn;
+
+    // / Received bytes of the messages not yet complete, used by the selector
+    // / thread
+    private ByteBuffer appIn;
+
+    // / Bytes to write to the socket
+    private final LinkedList<ByteBuffer> outQueue = new LinkedList<ByteBuffer>();
+
+    // / Messages to encrypt (TLS), protected by the lock of outQueue
+    private final LinkedList<ByteBuffer> plainQueue = new LinkedList<ByteBuffer>();
+
+    // / Received messages not yet processed
+    private final LinkedList<byte[]> inbox = new LinkedList<byte[]>();
+
+    private boolean processing;
+
+    private final Runnable flushTask = new Runnable() {
+        public void run() {
+            try {
+                flush();
+            } catch (IOException ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logDebug("Error writing to " + getKey() + ": " + ex);
+                close();
+            }
+        }
+    };
+
+    private final Runnable processTask = new Runnable() {
+        public void run() {
+            processInbox();
+        }
+    };
+
+    /**
+     * Constructor of an accepted connection.
+     *
+     * @param socketChannel the connection
+     * @param sipStack the stack
+     * @param msgProcessor the message processor which accepted the connection
+     * @param selector the selector of the connection
+     * @throws IOException if the connection cannot be configured
+     */
+    protected NioTcpMessageChannel(SocketChannel socketChannel, SIPTransactionStack sipStack,
+            NioTcpMessageProcessor msgProcessor, NioSelector selector) throws IOException {
+        if (sipStack.isLoggingEnabled()) {
+            sipStack.getStackLogger().logDebug("creating new NioTcpMessageChannel ");
+        }
+        this.sipStack = sipStack;
+        this.nioMessageProcessor = msgProcessor;
+        this.selector = selector;
+        this.socketChannel = socketChannel;
+        this.peerAddress = socketChannel.socket().getInetAddress();
+        this.peerPort = socketChannel.socket().getPort();
+        this.peerProtocol = getTransport();
+        this.myAddress = msgProcessor.getIpAddress().getHostAddress();
+        this.myPort = msgProcessor.getPort();
+        super.messageProcessor = msgProcessor;
+        socketChannel.configureBlocking(false);
+        socketChannel.socket().setTcpNoDelay(true);
+        initBuffers(false);
+    }
+
+    /**
+     * Constructor of a connection to open to a peer.
+     *
+     * @param inetAddr address of the peer
+     * @param port port of the peer
+     * @param sipStack the stack
+     * @param msgProcessor the message processor creating the channel
+     * @param selector the selector of the connection
+     */
+    protected NioTcpMessageChannel(InetAddress inetAddr, int port, SIPTransactionStack sipStack,
+            NioTcpMessageProcessor msgProcessor, NioSelector selector) {
+        if (sipStack.isLoggingEnabled()) {
+            sipStack.getStackLogger().logDebug("creating new NioTcpMessageChannel ");
+        }
+        this.sipStack = sipStack;
+        this.nioMessageProcessor = msgProcessor;
+        this.selector = selector;
+        this.peerAddress = inetAddr;
+        this.peerPort = port;
+        this.peerProtocol = getTransport();
+        this.myAddress = msgProcessor.getIpAddress().getHostAddress();
+        this.myPort = msgProcessor.getPort();
+        this.key = MessageChannel.getKey(peerAddress, peerPort, getTransport());
+        super.messageProcessor = msgProcessor;
+    }
+
+    private void initBuffers(boolean clientMode) {
+        if (nioMessageProcessor.isSecure()) {
+            sslEngine = nioMessageProcessor.createSSLEngine(peerAddress, peerPort, clientMode);
+            SSLSession session = sslEngine.getSession();
+            netIn = ByteBuffer.allocate(session.getPacketBufferSize());
+            appIn = ByteBuffer.allocate(session.getApplicationBufferSize());
+        } else {
+            appIn = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Open the connection to the peer if not done yet. The connection is done
+     * in the calling thread.
+     */
+    private synchronized void connect() throws IOException {
+        if (closed)
+            throw new IOException("Connection closed");
+        if (socketChannel != null)
+            return;
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("Connecting to " + getKey());
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().bind(new InetSocketAddress(nioMessageProcessor.getIpAddress(), 0));
+            channel.socket().connect(new InetSocketAddress(peerAddress, peerPort),
+                    CONNECT_TIMEOUT);
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        socketChannel = channel;
+        initBuffers(true);
+        register();
+    }
+
+    /**
+     * Register the connection on its selector.
+     */
+    void register() {
+        selector.execute(new Runnable() {
+            public void run() {
+                try {
+                    selectionKey = socketChannel.register(selector.getSelector(),
+                            SelectionKey.OP_READ, NioTcpMessageChannel.this);
+                    if (sslEngine != null) {
+                        sslEngine.beginHandshake();
+                    }
+                    flush();
+                } catch (IOException ex) {
+                    if (sipStack.isLoggingEnabled())
+                        sipStack.getStackLogger().logDebug("Cannot register " + getKey() + ": " + ex);
+                    close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Read or write the connection. Called from the selector thread.
+     */
+    public void handleSelection(SelectionKey key) throws IOException {
+        if (key.isReadable()) {
+            if (sslEngine == null) {
+                if (socketChannel.read(appIn) < 0) {
+                    close();
+                    return;
+                }
+            } else {
+                if (socketChannel.read(netIn) < 0) {
+                    close();
+                    return;
+                }
+                unwrap();
+            }
+            frame();
+        }
+        if (key.isValid() && (key.isWritable() || sslEngine != null)) {
+            flush();
+        }
+    }
+
+    /**
+     * Decrypt the received bytes, running the handshake when needed.
+     */
+    private void unwrap() throws IOException {
+        netIn.flip();
+        try {
+            while (true) {
+                SSLEngineResult.HandshakeStatus hs = sslEngine.getHandshakeStatus();
+                if (hs == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    runDelegatedTasks();
+                    continue;
+                }
+                if (hs == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    flush();
+                    if (sslEngine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP)
+                        break;
+                    continue;
+                }
+                if (!netIn.hasRemaining())
+                    break;
+                SSLEngineResult result = sslEngine.unwrap(netIn, appIn);
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    ByteBuffer grown = ByteBuffer.allocate(appIn.capacity()
+                            + sslEngine.getSession().getApplicationBufferSize());
+                    appIn.flip();
+                    grown.put(appIn);
+                    appIn = grown;
+                } else if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                    int size = sslEngine.getSession().getPacketBufferSize();
+                    if (netIn.capacity() < size) {
+                        ByteBuffer grown = ByteBuffer.allocate(size);
+                        grown.put(netIn);
+                        grown.flip();
+                        netIn = grown;
+                    }
+                    break;
+                } else if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new IOException("TLS connection closed by the peer");
+                } else if (result.bytesConsumed() == 0 && result.bytesProduced() == 0
+                        && sslEngine.getHandshakeStatus() == hs) {
+                    break;
+                }
+            }
+        } finally {
+            netIn.compact();
+        }
+    }
+
+    private void runDelegatedTasks() {
+        Runnable task;
+        while ((task = sslEngine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Split the received bytes into messages. The incomplete message is kept
+     * at the start of the buffer, which is grown to hold it.
+     */
+    private void frame() throws IOException {
+        int maxMessageSize = sipStack.getMaxMessageSize();
+        int needed = 0;
+        appIn.flip();
+        byte[] buffer = appIn.array();
+        while (true) {
+            int start = appIn.position();
+            int limit = appIn.limit();
+
+            // Skip the keep alive line breaks between the messages
+            while (start < limit && (buffer[start] == '\r' || buffer[start] == '\n'))
+                start++;
+            appIn.position(start);
+            if (start == limit)
+                break;
+
+            int headersEnd = findHeadersEnd(buffer, start, limit);
+            if (headersEnd < 0) {
+                if (maxMessageSize > 0 && limit - start > maxMessageSize)
+                    throw new IOException("Message size exceeded");
+                needed = limit - start + 1;
+                break;
+            }
+            int contentLength = getContentLength(buffer, start, headersEnd);
+            if (contentLength < 0)
+                throw new IOException("Bad Content-Length");
+            int length = headersEnd - start + contentLength;
+            if (maxMessageSize > 0 && length > maxMessageSize)
+                throw new IOException("Message size exceeded");
+            if (limit - start < length) {
+                needed = length;
+                break;
+            }
+
+            byte[] message = new byte[length];
+            System.arraycopy(buffer, start, message, 0, length);
+            appIn.position(start + length);
+            receive(message);
+        }
+
+        if (needed > appIn.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(needed, 2 * appIn.capacity()));
+            grown.put(appIn);
+            appIn = grown;
+        } else {
+            appIn.compact();
+        }
+    }
+
+    /**
+     * @return the position after the empty line ending the headers, -1 if not
+     *         received yet
+     */
+    private static int findHeadersEnd(byte[] buffer, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            if (buffer[i] != '\n')
+                continue;
+            if (i + 1 < limit && buffer[i + 1] == '\n')
+                return i + 2;
+            if (i + 2 < limit && buffer[i + 1] == '\r' && buffer[i + 2] == '\n')
+                return i + 3;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the value of the Content-Length header, 0 if missing and -1 if
+     *         malformed
+     */
+    private static int getContentLength(byte[] buffer, int start, int headersEnd) {
+        int lineStart = start;
+        while (lineStart < headersEnd) {
+            int pos = matchName(buffer, lineStart, headersEnd, "content-length");
+            if (pos < 0)
+                pos = matchName(buffer, lineStart, headersEnd, "l");
+            if (pos >= 0) {
+                while (pos < headersEnd && (buffer[pos] == ' ' || buffer[pos] == '\t'))
+                    pos++;
+                long value = 0;
+                int digits = 0;
+                while (pos < headersEnd && buffer[pos] >= '0' && buffer[pos] <= '9') {
+                    value = value * 10 + buffer[pos] - '0';
+                    if (value > Integer.MAX_VALUE)
+                        return -1;
+                    pos++;
+                    digits++;
+                }
+                return digits > 0 ? (int) value : -1;
+            }
+            while (lineStart < headersEnd && buffer[lineStart] != '\n')
+                lineStart++;
+            lineStart++;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the position after the colon if the line is the given header,
+     *         -1 otherwise
+     */
+    private static int matchName(byte[] buffer, int pos, int end, String name) {
+        for (int i = 0; i < name.length(); i++, pos++) {
+            if (pos >= end || Character.toLowerCase((char) buffer[pos]) != name.charAt(i))
+                return -1;
+        }
+        while (pos < end && (buffer[pos] == ' ' || buffer[pos] == '\t'))
+            pos++;
+        return pos < end && buffer[pos] == ':' ? pos + 1 : -1;
+    }
+
+    /**
+     * Queue a received message for processing.
+     */
+    private void receive(byte[] message) {
+        synchronized (inbox) {
+            inbox.add(message);
+            if (processing)
+                return;
+            processing = true;
+        }
+        nioMessageProcessor.execute(processTask);
+    }
+
+    /**
+     * Parse and process the received messages in order. Called from a
+     * processing thread.
+     */
+    private void processInbox() {
+        while (true) {
+            byte[] message;
+            synchronized (inbox) {
+                if (inbox.isEmpty()) {
+                    processing = false;
+                    return;
+                }
+                message = inbox.removeFirst();
+            }
+
+            StringMsgParser parser = new StringMsgParser();
+            parser.setParseExceptionListener(this);
+            parser.setParseHeadersLazily(true);
+            SIPMessage sipMessage;
+            try {
+                sipMessage = parser.parseSIPMessage(message);
+            } catch (ParseException ex) {
+                if (sipStack.isLoggingEnabled()) {
+                    sipStack.getStackLogger().logDebug("Rejecting message !  "
+                            + new String(message));
+                    sipStack.getStackLogger().logException(ex);
+                }
+                continue;
+            }
+            if (sipMessage == null)
+                continue;
+            try {
+                processMessage(sipMessage);
+            } catch (Exception ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logDebug("Error processing message " + ex);
+            }
+        }
+    }
+
+    /**
+     * Queue bytes to send. The bytes are written right away in the calling
+     * thread when nothing else is pending on a TCP connection, the selector
+     * thread writes them otherwise.
+     */
+    private void enqueue(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        synchronized (outQueue) {
+            if (closed)
+                throw new IOException("Connection closed");
+            if (sslEngine != null) {
+                plainQueue.add(buffer);
+            } else {
+                if (outQueue.isEmpty()) {
+                    socketChannel.write(buffer);
+                    if (!buffer.hasRemaining())
+                        return;
+                }
+                outQueue.add(buffer);
+            }
+        }
+        selector.execute(flushTask);
+    }
+
+    /**
+     * Encrypt the pending messages (TLS) and write the queued bytes with a
+     * gathering write. Called from the selector thread.
+     */
+    private void flush() throws IOException {
+        synchronized (outQueue) {
+            if (closed || selectionKey == null)
+                return;
+            if (sslEngine != null)
+                wrap();
+            if (!outQueue.isEmpty()) {
+                ByteBuffer[] buffers = outQueue.toArray(new ByteBuffer[outQueue.size()]);
+                socketChannel.write(buffers);
+                while (!outQueue.isEmpty() && !outQueue.getFirst().hasRemaining())
+                    outQueue.removeFirst();
+            }
+            if (selectionKey.isValid()) {
+                selectionKey.interestOps(outQueue.isEmpty() ? SelectionKey.OP_READ
+                        : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    /**
+     * Produce the handshake messages and encrypt the pending messages once the
+     * handshake is done. Called with the queues locked.
+     */
+    private void wrap() throws IOException {
+        while (true) {
+            SSLEngineResult.HandshakeStatus hs = sslEngine.getHandshakeStatus();
+            ByteBuffer[] src;
+            if (hs == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                runDelegatedTasks();
+                continue;
+            } else if (hs == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                src = new ByteBuffer[] { EMPTY };
+            } else if (hs == SSLEngineResult.HandshakeStatus.NEED_UNWRAP || plainQueue.isEmpty()) {
+                return;
+            } else {
+                src = plainQueue.toArray(new ByteBuffer[plainQueue.size()]);
+            }
+            ByteBuffer out = ByteBuffer.allocate(sslEngine.getSession().getPacketBufferSize());
+            SSLEngineResult result = sslEngine.wrap(src, out);
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED)
+                throw new IOException("TLS connection closed");
+            while (!plainQueue.isEmpty() && !plainQueue.getFirst().hasRemaining())
+                plainQueue.removeFirst();
+            out.flip();
+            if (out.hasRemaining()) {
+                outQueue.add(out);
+            } else if (result.bytesConsumed() == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send bytes on the connection, opening it if needed.
+     *
+     * @param msg the bytes to send
+     * @param retry send the bytes on a new connection if this one is closed
+     */
+    private void sendBytes(byte[] msg, boolean retry) throws IOException {
+        if (sipStack.isLoggingEnabled()) {
+            sipStack.getStackLogger().logDebug(
+                    "sendBytes " + getTransport() + " inAddr " + peerAddress.getHostAddress()
+                            + " port = " + peerPort + " length = " + msg.length);
+        }
+        try {
+            connect();
+            enqueue(msg);
+        } catch (IOException ex) {
+            close();
+            if (!retry)
+                throw ex;
+            NioTcpMessageChannel channel = (NioTcpMessageChannel) nioMessageProcessor
+                    .createMessageChannel(peerAddress, peerPort);
+            channel.sendBytes(msg, false);
+        }
+    }
+
+    /**
+     * Return a formatted message to the client. We try to re-connect with the
+     * peer on the other end if possible.
+     *
+     * @param sipMessage Message to send.
+     * @throws IOException If there is an error sending the message
+     */
+    public void sendMessage(SIPMessage sipMessage) throws IOException {
+        byte[] msg = sipMessage.encodeAsBytes(this.getTransport());
+
+        long time = System.currentTimeMillis();
+
+        this.sendBytes(msg, true);
+
+        if (this.sipStack.getStackLogger().isLoggingEnabled(ServerLogger.TRACE_MESSAGES))
+            logMessage(sipMessage, peerAddress, peerPort, time);
+    }
+
+    /**
+     * Send a message to a specified address, on the connection to this
+     * address.
+     *
+     * @param message Pre-formatted message to send.
+     * @param receiverAddress Address to send it to.
+     * @param receiverPort Receiver port.
+     * @throws IOException If there is a problem connecting or sending.
+     */
+    public void sendMessage(byte message[], InetAddress receiverAddress, int receiverPort,
+            boolean retry) throws IOException {
+        if (message == null || receiverAddress == null)
+            throw new IllegalArgumentException("Null argument");
+        if (receiverAddress.equals(peerAddress) && receiverPort == peerPort) {
+            this.sendBytes(message, retry);
+        } else {
+            NioTcpMessageChannel channel = (NioTcpMessageChannel) nioMessageProcessor
+                    .createMessageChannel(receiverAddress, receiverPort);
+            channel.sendBytes(message, retry);
+        }
+    }
+
+    /**
+     * Exception processor for exceptions detected from the parser. (This is
+     * invoked by the parser when an error is detected).
+     *
+     * @param sipMessage -- the message that incurred the error.
+     * @param ex -- parse exception detected by the parser.
+     * @param header -- header that caused the error.
+     * @throws ParseException Thrown if we want to reject the message.
+     */
+    @SuppressWarnings("rawtypes")
+    public void handleException(ParseException ex, SIPMessage sipMessage, Class hdrClass,
+            String header, String message) throws ParseException {
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logException(ex);
+        // Log the bad message for later reference.
+        if ((hdrClass != null)
+                && (hdrClass.equals(From.class) || hdrClass.equals(To.class)
+                        || hdrClass.equals(CSeq.class) || hdrClass.equals(Via.class)
+                        || hdrClass.equals(CallID.class) || hdrClass.equals(RequestLine.class) || hdrClass
+                        .equals(StatusLine.class))) {
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug(
+                        "Encountered Bad Message \n" + sipMessage.toString());
+            }
+
+            // JvB: send a 400 response for requests (except ACK)
+            String msgString = sipMessage.toString();
+            if (!msgString.startsWith("SIP/") && !msgString.startsWith("ACK ")) {
+
+                String badReqRes = createBadReqRes(msgString, ex);
+                if (badReqRes != null) {
+                    if (sipStack.isLoggingEnabled()) {
+                        sipStack.getStackLogger().logDebug("Sending automatic 400 Bad Request:");
+                        sipStack.getStackLogger().logDebug(badReqRes);
+                    }
+                    try {
+                        this.sendBytes(badReqRes.getBytes(), false);
+                    } catch (IOException e) {
+                        if (sipStack.isLoggingEnabled())
+                            this.sipStack.getStackLogger().logException(e);
+                    }
+                } else {
+                    if (sipStack.isLoggingEnabled()) {
+                        sipStack.getStackLogger().logDebug(
+                                "Could not formulate automatic 400 Bad Request");
+                    }
+                }
+            }
+
+            throw ex;
+        } else {
+            sipMessage.addUnparsed(header);
+        }
+    }
+
+    /**
+     * Process a received message (this calls the application for processing
+     * the message). Called from a processing thread.
+     *
+     * @param sipMessage Mesage to process
+     */
+    public void processMessage(SIPMessage sipMessage) throws Exception {
+        if (sipMessage.getFrom() == null || sipMessage.getTo() == null
+                || sipMessage.getCallId() == null || sipMessage.getCSeq() == null
+                || sipMessage.getViaHeaders() == null) {
+            String badmsg = sipMessage.encode();
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug(">>> Dropped Bad Msg");
+                sipStack.getStackLogger().logDebug(badmsg);
+            }
+            return;
+        }
+
+        ViaList viaList = sipMessage.getViaHeaders();
+        // For a request first via header tells where the message is coming
+        // from. For response, this has already been recorded in the outgoing
+        // message.
+        if (sipMessage instanceof SIPRequest) {
+            Via v = (Via) viaList.getFirst();
+            Hop hop = sipStack.addressResolver.resolveAddress(v.getHop());
+            this.peerProtocol = v.getTransport();
+            try {
+                // JvB: if sender added 'rport', must always set received
+                if (v.hasParameter(Via.RPORT)
+                        || !hop.getHost().equals(this.peerAddress.getHostAddress())) {
+                    v.setParameter(Via.RECEIVED, this.peerAddress.getHostAddress());
+                }
+                v.setParameter(Via.RPORT, Integer.toString(this.peerPort));
+            } catch (java.text.ParseException ex) {
+                InternalErrorHandler.handleException(ex, sipStack.getStackLogger());
+            }
+            // Use this for outgoing messages as well.
+            if (!this.isCached) {
+                nioMessageProcessor.cacheMessageChannel(this);
+                this.isCached = true;
+            }
+        }
+
+        long receptionTime = System.currentTimeMillis();
+
+        if (sipMessage instanceof SIPRequest) {
+            // This is a request - process the request.
+            SIPRequest sipRequest = (SIPRequest) sipMessage;
+
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug("----Processing Message---");
+            }
+
+            if (this.sipStack.getStackLogger().isLoggingEnabled(ServerLogger.TRACE_MESSAGES)) {
+                sipStack.serverLogger.logMessage(sipMessage, this.getPeerHostPort().toString(),
+                        this.getMessageProcessor().getIpAddress().getHostAddress() + ":"
+                                + this.getMessageProcessor().getPort(), false, receptionTime);
+            }
+
+            ServerRequestInterface sipServerRequest = sipStack.newSIPServerRequest(sipRequest,
+                    this);
+
+            if (sipServerRequest != null) {
+                try {
+                    sipServerRequest.processRequest(sipRequest, this);
+                } finally {
+                    if (sipServerRequest instanceof SIPTransaction) {
+                        SIPServerTransaction sipServerTx = (SIPServerTransaction) sipServerRequest;
+                        if (!sipServerTx.passToListener())
+                            ((SIPTransaction) sipServerRequest).releaseSem();
+                    }
+                }
+            } else {
+                if (sipStack.isLoggingEnabled())
+                    this.sipStack.getStackLogger().logWarning(
+                            "Dropping request -- could not acquire semaphore in 10 sec");
+            }
+
+        } else {
+            SIPResponse sipResponse = (SIPResponse) sipMessage;
+            try {
+                sipResponse.checkHeaders();
+            } catch (ParseException ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logError(
+                            "Dropping Badly formatted response message >>> " + sipResponse);
+                return;
+            }
+            ServerResponseInterface sipServerResponse = sipStack.newSIPServerResponse(
+                    sipResponse, this);
+            if (sipServerResponse != null) {
+                try {
+                    if (sipServerResponse instanceof SIPClientTransaction
+                            && !((SIPClientTransaction) sipServerResponse)
+                                    .checkFromTag(sipResponse)) {
+                        if (sipStack.isLoggingEnabled())
+                            sipStack.getStackLogger().logError(
+                                    "Dropping response message with invalid tag >>> "
+                                            + sipResponse);
+                        return;
+                    }
+
+                    sipServerResponse.processResponse(sipResponse, this);
+                } finally {
+                    if (sipServerResponse instanceof SIPTransaction
+                            && !((SIPTransaction) sipServerResponse).passToListener())
+                        ((SIPTransaction) sipServerResponse).releaseSem();
+                }
+            } else {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logWarning(
+                            "Application is blocked -- could not acquire semaphore -- dropping response");
+            }
+        }
+    }
+
+    /**
+     * Close the connection.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("Closing message Channel " + this);
+        nioMessageProcessor.remove(this);
+        synchronized (outQueue) {
+            outQueue.clear();
+            plainQueue.clear();
+        }
+        try {
+            if (socketChannel != null)
+                socketChannel.close();
+        } catch (IOException ex) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logDebug("Error closing socket " + ex);
+        }
+    }
+
+    /**
+     * @return the TLS session of the connection, null for TCP or before the
+     *         connection
+     */
+    public SSLSession getSSLSession() {
+        return sslEngine != null ? sslEngine.getSession() : null;
+    }
+
+    /**
+     * Returns "true" as this is a reliable transport.
+     */
+    public boolean isReliable() {
+        return true;
+    }
+
+    public boolean isSecure() {
+        return nioMessageProcessor.isSecure();
+    }
+
+    public SIPTransactionStack getSIPStack() {
+        return sipStack;
+    }
+
+    /**
+     * @return "TCP" or "TLS"
+     */
+    public String getTransport() {
+        return nioMessageProcessor.isSecure() ? "TLS" : "TCP";
+    }
+
+    public String getPeerAddress() {
+        if (peerAddress != null) {
+            return peerAddress.getHostAddress();
+        } else
+            return getHost();
+    }
+
+    protected InetAddress getPeerInetAddress() {
+        return peerAddress;
+    }
+
+    public String getPeerProtocol() {
+        return this.peerProtocol;
+    }
+
+    /**
+     * Get an identifying key. This key is used to cache the connection and
+     * re-use it if necessary.
+     */
+    public String getKey() {
+        if (this.key == null) {
+            this.key = MessageChannel.getKey(this.peerAddress, this.peerPort, getTransport());
+        }
+        return this.key;
+    }
+
+    public String getViaHost() {
+        return myAddress;
+    }
+
+    public int getViaPort() {
+        return myPort;
+    }
+
+    public int getPeerPort() {
+        return peerPort;
+    }
+
+    public int getPeerPacketSourcePort() {
+        return this.peerPort;
+    }
+
+    public InetAddress getPeerPacketSourceAddress() {
+        return this.peerAddress;
+    }
+}
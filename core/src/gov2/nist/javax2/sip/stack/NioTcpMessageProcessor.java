@@ -0,0 +1,352 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack;
+
+import gov2.nist.core.HostPort;
+import gov2.nist.core.net.SslNetworkLayer;
+import gov2.nist.javax2.sip.SipStackImpl;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+/**
+ * TCP or TLS message processor multiplexing all its connections on a few
+ * selector threads. The selector threads only read, frame and write the
+ * bytes; the received messages are parsed and processed on a bounded pool of
+ * threads which only live while there are messages to process, the messages
+ * of a connection being processed one after the other. The pool has
+ * gov2.nist.javax2.sip.THREAD_POOL_SIZE threads, MAX_WORKERS when the size is
+ * not set; the connections with messages to process wait for a thread in
+ * turn.
+ *
+ * @see NioTcpMessageChannel
+ */
+public class NioTcpMessageProcessor extends MessageProcessor implements NioSelector.Handler {
+
+    // / Keep alive delay of the idle processing threads in seconds
+    private static final int KEEP_ALIVE = 60;
+
+    // / Number of processing threads when the stack thread pool size is not set
+    private static final int MAX_WORKERS = 8;
+
+    private final boolean secure;
+
+    protected int nConnections;
+
+    private boolean isRunning;
+
+    private Hashtable<String, NioTcpMessageChannel> messageChannels = new Hashtable<String, NioTcpMessageChannel>();
+
+    private ArrayList<NioTcpMessageChannel> incomingMessageChannels = new ArrayList<NioTcpMessageChannel>();
+
+    private ServerSocketChannel serverChannel;
+
+    private NioSelector[] selectors;
+
+    private int nextSelector;
+
+    private ThreadPoolExecutor executor;
+
+    private SSLContext sslContext;
+
+    /**
+     * Constructor.
+     *
+     * @param ipAddress address to listen on
+     * @param sipStack the stack
+     * @param port port to listen on
+     * @param secure true for TLS
+     */
+    protected NioTcpMessageProcessor(InetAddress ipAddress, SIPTransactionStack sipStack,
+            int port, boolean secure) {
+        super(ipAddress, port, secure ? "tls" : "tcp", sipStack);
+        this.secure = secure;
+    }
+
+    /**
+     * Start the processor.
+     */
+    public synchronized void start() throws IOException {
+        if (secure) {
+            if (sipStack.getNetworkLayer() instanceof SslNetworkLayer) {
+                sslContext = ((SslNetworkLayer) sipStack.getNetworkLayer()).getSSLContext();
+            } else {
+                try {
+                    sslContext = SSLContext.getDefault();
+                } catch (NoSuchAlgorithmException ex) {
+                    throw new IOException("No TLS context: " + ex.getMessage());
+                }
+            }
+        }
+
+        final String name = secure ? "TLSSelector" : "TCPSelector";
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        int workers = sipStack.threadPoolSize > 0 ? sipStack.threadPoolSize : MAX_WORKERS;
+        executor = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, name + "Worker-"
+                                + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        selectors = new NioSelector[Math.max(1, sipStack.getNioSelectorCount())];
+        for (int i = 0; i < selectors.length; i++) {
+            selectors[i] = new NioSelector(sipStack, name + "-" + i);
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.socket().bind(new InetSocketAddress(getIpAddress(), getPort()));
+        serverChannel.configureBlocking(false);
+        if (getIpAddress().getHostAddress().equals(IN_ADDR_ANY)
+                || getIpAddress().getHostAddress().equals(IN6_ADDR_ANY)) {
+            // Store the address to which we are actually bound
+            super.setIpAddress(serverChannel.socket().getInetAddress());
+        }
+        this.isRunning = true;
+        for (int i = 0; i < selectors.length; i++) {
+            selectors[i].start();
+        }
+        selectors[0].execute(new Runnable() {
+            public void run() {
+                try {
+                    serverChannel.register(selectors[0].getSelector(), SelectionKey.OP_ACCEPT,
+                            NioTcpMessageProcessor.this);
+                } catch (IOException ex) {
+                    if (sipStack.isLoggingEnabled())
+                        sipStack.getStackLogger().logException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Accept the pending connections. Called from the selector thread.
+     */
+    public void handleSelection(SelectionKey key) throws IOException {
+        SocketChannel socketChannel;
+        while ((socketChannel = serverChannel.accept()) != null) {
+            synchronized (this) {
+                // sipStack.maxConnections == -1 means we are
+                // willing to handle an "infinite" number of
+                // simultaneous connections (no resource limitation).
+                if (!isRunning || (sipStack.maxConnections != -1
+                        && this.nConnections >= sipStack.maxConnections)) {
+                    if (sipStack.isLoggingEnabled())
+                        sipStack.getStackLogger().logDebug("Refusing new connection");
+                    socketChannel.close();
+                    continue;
+                }
+                this.nConnections++;
+            }
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug("Accepting new connection!");
+            }
+            try {
+                NioTcpMessageChannel channel = new NioTcpMessageChannel(socketChannel, sipStack,
+                        this, nextSelector());
+                synchronized (this) {
+                    incomingMessageChannels.add(channel);
+                }
+                channel.register();
+            } catch (IOException ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(ex);
+                socketChannel.close();
+                synchronized (this) {
+                    this.nConnections--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the message processor and close its connections.
+     */
+    public void stop() {
+        ArrayList<NioTcpMessageChannel> channels;
+        synchronized (this) {
+            if (!isRunning)
+                return;
+            isRunning = false;
+            try {
+                serverChannel.close();
+            } catch (IOException ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(ex);
+            }
+            channels = new ArrayList<NioTcpMessageChannel>(messageChannels.values());
+            channels.addAll(incomingMessageChannels);
+        }
+        for (int i = 0; i < channels.size(); i++) {
+            channels.get(i).close();
+        }
+        for (int i = 0; i < selectors.length; i++) {
+            selectors[i].stop();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Close the processor itself after an error in the selector thread.
+     */
+    public void close() {
+        stop();
+    }
+
+    /**
+     * @return the selector of a new connection
+     */
+    private synchronized NioSelector nextSelector() {
+        NioSelector selector = selectors[nextSelector];
+        nextSelector = (nextSelector + 1) % selectors.length;
+        return selector;
+    }
+
+    /**
+     * Process received messages on a processing thread.
+     *
+     * @param task the processing task
+     */
+    void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // The processor has been stopped
+        }
+    }
+
+    /**
+     * Create the TLS engine of a connection, configured as the sockets of
+     * the blocking TLS transport.
+     *
+     * @param peerAddress address of the peer
+     * @param peerPort port of the peer
+     * @param clientMode true for a connection opened by the stack
+     * @return the engine
+     */
+    SSLEngine createSSLEngine(InetAddress peerAddress, int peerPort, boolean clientMode) {
+        SSLEngine sslEngine = sslContext.createSSLEngine(peerAddress.getHostAddress(), peerPort);
+        sslEngine.setUseClientMode(clientMode);
+        if (clientMode) {
+            String[] protocols = ((SipStackImpl) sipStack).getEnabledProtocols();
+            if (protocols != null)
+                sslEngine.setEnabledProtocols(protocols);
+        } else {
+            sslEngine.setWantClientAuth(true);
+            String[] enabledCiphers = ((SipStackImpl) sipStack).getEnabledCipherSuites();
+            if (enabledCiphers != null)
+                sslEngine.setEnabledCipherSuites(enabledCiphers);
+        }
+        return sslEngine;
+    }
+
+    protected synchronized void remove(NioTcpMessageChannel messageChannel) {
+        String key = messageChannel.getKey();
+        if (sipStack.isLoggingEnabled()) {
+            sipStack.getStackLogger().logDebug(Thread.currentThread() + " removing " + key);
+        }
+
+        /** May have been removed already */
+        if (messageChannels.get(key) == messageChannel) {
+            this.messageChannels.remove(key);
+        }
+
+        if (incomingMessageChannels.remove(messageChannel)) {
+            this.nConnections--;
+        }
+    }
+
+    protected synchronized void cacheMessageChannel(NioTcpMessageChannel messageChannel) {
+        String key = messageChannel.getKey();
+        NioTcpMessageChannel currentChannel = messageChannels.get(key);
+        if (currentChannel != null && currentChannel != messageChannel) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logDebug("Closing " + key);
+            currentChannel.close();
+        }
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("Caching " + key);
+        this.messageChannels.put(key, messageChannel);
+    }
+
+    public MessageChannel createMessageChannel(HostPort targetHostPort) throws IOException {
+        return createMessageChannel(targetHostPort.getInetAddress(), targetHostPort.getPort());
+    }
+
+    /**
+     * Get the channel to a peer, the connection is established when the first
+     * message is sent.
+     */
+    public synchronized MessageChannel createMessageChannel(InetAddress host, int port)
+            throws IOException {
+        String key = MessageChannel.getKey(host, port, getTransport().toUpperCase());
+        NioTcpMessageChannel retval = messageChannels.get(key);
+        if (retval == null) {
+            if (!isRunning)
+                throw new IOException("Message processor stopped");
+            retval = new NioTcpMessageChannel(host, port, sipStack, this, nextSelector());
+            this.messageChannels.put(key, retval);
+            retval.isCached = true;
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug("key " + key);
+                sipStack.getStackLogger().logDebug("Creating " + retval);
+            }
+        }
+        return retval;
+    }
+
+    public SIPTransactionStack getSIPStack() {
+        return sipStack;
+    }
+
+    /**
+     * TCP can handle an unlimited number of bytes.
+     */
+    public int getMaximumMessageSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    public synchronized boolean inUse() {
+        return !incomingMessageChannels.isEmpty();
+    }
+
+    /**
+     * Default target port for TCP and TLS
+     */
+    public int getDefaultTargetPort() {
+        return secure ? 5061 : 5060;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    /**
+     * The accepting and reading is done by the selector threads.
+     */
+    public void run() {
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+/**
+ * Default message processor factory, creating the blocking I/O transports:
+ * the stream transports use a thread per connection.
+ *
+ */
+public class OIOMessageProcessorFactory implements MessageProcessorFactory {
+
+    public MessageProcessor createMessageProcessor(SIPTransactionStack sipStack,
+            InetAddress ipAddress, int port, String transport) throws IOException {
+        if (transport.equalsIgnoreCase("udp")) {
+            return new UDPMessageProcessor(ipAddress, sipStack, port);
+        } else if (transport.equalsIgnoreCase("tcp")) {
+            return new TCPMessageProcessor(ipAddress, sipStack, port);
+        } else if (transport.equalsIgnoreCase("tls")) {
+            return new TLSMessageProcessor(ipAddress, sipStack, port);
+        } else if (transport.equalsIgnoreCase("sctp")) {
+
+            // Need Java 7 for this, so these classes are packaged in a separate jar
+            // Try to load it indirectly, if fails report an error
+            try {
+                Class<?> mpc = ClassLoader.getSystemClassLoader().loadClass(
+                        "gov2.nist.javax2.sip.stack.sctp.SCTPMessageProcessor");
+                MessageProcessor mp = (MessageProcessor) mpc.newInstance();
+                mp.initialize(ipAddress, port, sipStack);
+                return mp;
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException(
+                        "SCTP not supported (needs Java 7 and SCTP jar in classpath)");
+            } catch (InstantiationException ie) {
+                throw new IllegalArgumentException("Error initializing SCTP", ie);
+            } catch (IllegalAccessException ie) {
+                throw new IllegalArgumentException("Error initializing SCTP", ie);
+            }
+        } else {
+            throw new IllegalArgumentException("bad transport");
+        }
+    }
+}
@@ -41,7 +41,6 @@ import gov2.nist.javax2.sip.message.SIPResponse;
 
 import java.io.IOException;
 import java.text.ParseException;
-import java.util.TimerTask;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -379,7 +378,7 @@ public class SIPServerTransaction extends SIPTransaction implements ServerReques
                 // the client side of the tx to use the same connection to
                 // send an ACK and prevents a race condition for creation
                 // of new server tx
-                TimerTask myTimer = new LingerTimer();
+                SIPStackTimerTask myTimer = new LingerTimer();
 
                 sipStack.getTimer().schedule(myTimer,
                         SIPTransactionStack.CONNECTION_LINGER_TIME * 1000);
@@ -1389,7 +1388,7 @@ public class SIPServerTransaction extends SIPTransaction implements ServerReques
 
                 this.retransmissionAlertTimerTask = new RetransmissionAlertTimerTask(dialogId);
                 sipStack.retransmissionAlertTransactions.put(dialogId, this);
-                sipStack.getTimer().schedule(this.retransmissionAlertTimerTask, 0,
+                sipStack.getTimer().scheduleWithFixedDelay(this.retransmissionAlertTimerTask, 0,
                         SIPTransactionStack.BASE_TIMER_INTERVAL);
 
             }
@@ -1466,8 +1465,8 @@ public class SIPServerTransaction extends SIPTransaction implements ServerReques
         	if (sipStack.getTimer() != null) {
                 // The timer is set to null when the Stack is
                 // shutting down.
-                TimerTask myTimer = new TransactionTimer();
-                sipStack.getTimer().schedule(myTimer, BASE_TIMER_INTERVAL, BASE_TIMER_INTERVAL);
+                SIPStackTimerTask myTimer = new TransactionTimer();
+                sipStack.getTimer().scheduleWithFixedDelay(myTimer, BASE_TIMER_INTERVAL, BASE_TIMER_INTERVAL);
             }
         }        
     }
@@ -1571,7 +1570,7 @@ public class SIPServerTransaction extends SIPTransaction implements ServerReques
             }
             this.sendMessage((SIPMessage) relResponse);
             this.provisionalResponseTask = new ProvisionalResponseTask();
-            this.sipStack.getTimer().schedule(provisionalResponseTask, 0,
+            this.sipStack.getTimer().scheduleWithFixedDelay(provisionalResponseTask, 0,
                     SIPTransactionStack.BASE_TIMER_INTERVAL);
             
 
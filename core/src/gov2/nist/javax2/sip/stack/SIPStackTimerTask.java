@@ -8,17 +8,23 @@
 
 package gov2.nist.javax2.sip.stack;
 
-import java.util.TimerTask;
+import gov2.nist.javax2.sip.stack.timers.SipTimer;
 
 /**
- * A subclass of TimerTask which runs TimerTask code within a try/catch block to
- * avoid killing the SIPTransactionStack timer thread. Note: subclasses MUST not
- * override run(); instead they should override runTask().
+ * A task run by the stack timer, which runs the task code within a try/catch
+ * block to avoid killing the thread firing the timers. Note: subclasses MUST
+ * not override run(); instead they should override runTask().
  *
  * @author Brett Buckingham
  *
  */
-public abstract class SIPStackTimerTask extends TimerTask {
+public abstract class SIPStackTimerTask implements Runnable {
+    // / Timer on which the task is scheduled
+    private volatile SipTimer sipTimer;
+
+    // / Handle of the task in the timer implementation
+    private volatile Object sipTimerTask;
+
     // / Implements code to be run when the SIPStackTimerTask is executed.
     protected abstract void runTask();
 
@@ -32,4 +38,34 @@ public abstract class SIPStackTimerTask extends TimerTask {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Cancel the task on the timer it is scheduled on.
+     *
+     * @return true if this prevented the task from being run
+     */
+    public boolean cancel() {
+        SipTimer timer = this.sipTimer;
+        if (timer == null)
+            return false;
+        return timer.cancel(this);
+    }
+
+    /**
+     * Called by the timer implementation when the task is scheduled.
+     *
+     * @param sipTimer timer on which the task is scheduled
+     * @param sipTimerTask handle of the task in the timer implementation
+     */
+    public void setSipTimerTask(SipTimer sipTimer, Object sipTimerTask) {
+        this.sipTimer = sipTimer;
+        this.sipTimerTask = sipTimerTask;
+    }
+
+    /**
+     * @return the handle of the task in the timer implementation
+     */
+    public Object getSipTimerTask() {
+        return sipTimerTask;
+    }
 }
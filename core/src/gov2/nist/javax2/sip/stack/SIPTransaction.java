@@ -1250,6 +1250,9 @@ public abstract class SIPTransaction extends MessageChannel implements
             else if ( ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent() == null)
                 return null;
             else return ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent().getCipherSuite();
+        } else if (this.getMessageChannel() instanceof NioTcpMessageChannel
+                && this.getMessageChannel().isSecure()) {
+            return ((NioTcpMessageChannel) this.getMessageChannel()).getSSLSession().getCipherSuite();
         } else throw new UnsupportedOperationException("Not a TLS channel");
 
     }
@@ -1262,6 +1265,9 @@ public abstract class SIPTransaction extends MessageChannel implements
             else if ( ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent() == null)
                 return null;
             else return ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent().getLocalCertificates();
+        } else if (this.getMessageChannel() instanceof NioTcpMessageChannel
+                && this.getMessageChannel().isSecure()) {
+            return ((NioTcpMessageChannel) this.getMessageChannel()).getSSLSession().getLocalCertificates();
         } else throw new UnsupportedOperationException("Not a TLS channel");
     }
 
@@ -1273,6 +1279,9 @@ public abstract class SIPTransaction extends MessageChannel implements
             else if ( ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent() == null)
                 return null;
             else return ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent().getPeerCertificates();
+        } else if (this.getMessageChannel() instanceof NioTcpMessageChannel
+                && this.getMessageChannel().isSecure()) {
+            return ((NioTcpMessageChannel) this.getMessageChannel()).getSSLSession().getPeerCertificates();
         } else throw new UnsupportedOperationException("Not a TLS channel");
 
     }
@@ -47,6 +47,8 @@ import gov2.nist.javax2.sip.header.extensions.ReplacesHeader;
 import gov2.nist.javax2.sip.message.SIPMessage;
 import gov2.nist.javax2.sip.message.SIPRequest;
 import gov2.nist.javax2.sip.message.SIPResponse;
+import gov2.nist.javax2.sip.stack.timers.HashedWheelSipTimer;
+import gov2.nist.javax2.sip.stack.timers.SipTimer;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -59,7 +61,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Set;
-import java.util.Timer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -126,7 +127,7 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
 
     // Global timer. Use this for all timer tasks.
 
-    private Timer timer;
+    private SipTimer timer;
 
     // List of pending server transactions
     private ConcurrentHashMap<String, SIPServerTransaction> pendingTransactions;
@@ -305,6 +306,16 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
 
     protected NetworkLayer networkLayer;
 
+    /*
+     * Creates the message processors (transports) of the stack.
+     */
+    protected MessageProcessorFactory messageProcessorFactory = new OIOMessageProcessorFactory();
+
+    /*
+     * Number of selector threads of each NIO message processor.
+     */
+    protected int nioSelectorCount = 1;
+
     /*
      * Outbound proxy String ( to be handed to the outbound proxy class on creation).
      */
@@ -476,7 +487,8 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
 
         // Start the timer event thread.
 
-        this.timer = new Timer();
+        this.timer = new HashedWheelSipTimer();
+        this.timer.start(null);
         this.pendingTransactions = new ConcurrentHashMap<String, SIPServerTransaction>();
         
         
@@ -512,7 +524,8 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
         this.terminatedServerTransactionsPendingAck = new ConcurrentHashMap<String,SIPServerTransaction>();
         this.forkedClientTransactionTable = new ConcurrentHashMap<String,SIPClientTransaction>();
 
-        this.timer = new Timer();
+        this.timer = new HashedWheelSipTimer();
+        this.timer.start(null);
 
         this.activeClientTransactionCount = new AtomicInteger(0);
 
@@ -1654,7 +1667,7 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
     public void stopStack() {
         // Prevent NPE on two concurrent stops
         if (this.timer != null)
-            this.timer.cancel();
+            this.timer.stop();
 
         // JvB: set it to null, SIPDialog tries to schedule things after stop
         timer = null;
@@ -1988,45 +2001,13 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
      */
     protected MessageProcessor createMessageProcessor(InetAddress ipAddress, int port,
             String transport) throws java.io.IOException {
+        MessageProcessor messageProcessor = messageProcessorFactory.createMessageProcessor(this,
+                ipAddress, port, transport);
+        this.addMessageProcessor(messageProcessor);
         if (transport.equalsIgnoreCase("udp")) {
-            UDPMessageProcessor udpMessageProcessor = new UDPMessageProcessor(ipAddress, this,
-                    port);
-            this.addMessageProcessor(udpMessageProcessor);
             this.udpFlag = true;
-            return udpMessageProcessor;
-        } else if (transport.equalsIgnoreCase("tcp")) {
-            TCPMessageProcessor tcpMessageProcessor = new TCPMessageProcessor(ipAddress, this,
-                    port);
-            this.addMessageProcessor(tcpMessageProcessor);
-            // this.tcpFlag = true;
-            return tcpMessageProcessor;
-        } else if (transport.equalsIgnoreCase("tls")) {
-            TLSMessageProcessor tlsMessageProcessor = new TLSMessageProcessor(ipAddress, this,
-                    port);
-            this.addMessageProcessor(tlsMessageProcessor);
-            // this.tlsFlag = true;
-            return tlsMessageProcessor;
-        } else if (transport.equalsIgnoreCase("sctp")) {
-        	
-        	// Need Java 7 for this, so these classes are packaged in a separate jar
-        	// Try to load it indirectly, if fails report an error
-        	try {
-				Class<?> mpc = ClassLoader.getSystemClassLoader().loadClass( "gov2.nist.javax2.sip.stack.sctp.SCTPMessageProcessor" );
-				MessageProcessor mp = (MessageProcessor) mpc.newInstance();
-				mp.initialize( ipAddress, port, this );
-				this.addMessageProcessor(mp);
-				return mp;
-			} catch (ClassNotFoundException e) {
-				throw new IllegalArgumentException("SCTP not supported (needs Java 7 and SCTP jar in classpath)");
-			} catch ( InstantiationException ie ) {
-				throw new IllegalArgumentException("Error initializing SCTP", ie);				
-			} catch ( IllegalAccessException ie ) {
-				throw new IllegalArgumentException("Error initializing SCTP", ie);				
-			}
-        } else {
-            throw new IllegalArgumentException("bad transport");
         }
-
+        return messageProcessor;
     }
 
     /**
@@ -2446,17 +2427,31 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
     /**
      * @param timer the timer to set
      */
-    public void setTimer(Timer timer) {
+    public void setTimer(SipTimer timer) {
         this.timer = timer;
     }
 
     /**
      * @return the timer
      */
-    public Timer getTimer() {
+    public SipTimer getTimer() {
         return timer;
     }
 
+    /**
+     * @param messageProcessorFactory the factory of the message processors
+     */
+    public void setMessageProcessorFactory(MessageProcessorFactory messageProcessorFactory) {
+        this.messageProcessorFactory = messageProcessorFactory;
+    }
+
+    /**
+     * @return the number of selector threads of each NIO message processor
+     */
+    public int getNioSelectorCount() {
+        return nioSelectorCount;
+    }
+
     
     /**
      * Size of the receive UDP buffer. This property affects performance under load. Bigger buffer
@@ -57,7 +57,6 @@ import java.net.Socket;
 import java.text.ParseException;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.TimerTask;
 
 import javax2.sip.address.Hop;
 
@@ -140,7 +139,7 @@ public class UDPMessageChannel extends MessageChannel implements
      */
     private Hashtable<String,PingBackTimerTask> pingBackRecord = new Hashtable<String,PingBackTimerTask>();
     
-    class PingBackTimerTask extends TimerTask {
+    class PingBackTimerTask extends SIPStackTimerTask {
         String ipAddress;
         int port;
         
@@ -150,7 +149,7 @@ public class UDPMessageChannel extends MessageChannel implements
             pingBackRecord.put(ipAddress + ":" + port, this);
         }
         @Override
-        public void run() {
+        protected void runTask() {
            pingBackRecord.remove(ipAddress + ":" + port);
         }
         @Override
@@ -250,6 +249,7 @@ public class UDPMessageChannel extends MessageChannel implements
             if (myParser == null) {
                 myParser = new StringMsgParser();
                 myParser.setParseExceptionListener(this);
+                myParser.setParseHeadersLazily(true);
             }
             // messages that we write out to him.
             DatagramPacket packet;
@@ -0,0 +1,88 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack.timers;
+
+import gov2.nist.javax2.sip.stack.SIPStackTimerTask;
+
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Timer running all the tasks from a single java.util.Timer thread.
+ *
+ */
+public class DefaultSipTimer implements SipTimer {
+
+    private Timer timer;
+
+    private volatile boolean started;
+
+    /**
+     * TimerTask wrapping a stack task.
+     */
+    private static class DefaultTimerTask extends TimerTask {
+        private SIPStackTimerTask task;
+
+        public DefaultTimerTask(SIPStackTimerTask task) {
+            this.task = task;
+        }
+
+        public void run() {
+            task.run();
+        }
+    }
+
+    public boolean schedule(SIPStackTimerTask task, long delay) {
+        if (!started)
+            return false;
+        DefaultTimerTask timerTask = new DefaultTimerTask(task);
+        task.setSipTimerTask(this, timerTask);
+        try {
+            timer.schedule(timerTask, delay);
+        } catch (IllegalStateException ex) {
+            return false;
+        }
+        return true;
+    }
+
+    public boolean scheduleWithFixedDelay(SIPStackTimerTask task, long delay, long period) {
+        if (!started)
+            return false;
+        DefaultTimerTask timerTask = new DefaultTimerTask(task);
+        task.setSipTimerTask(this, timerTask);
+        try {
+            timer.schedule(timerTask, delay, period);
+        } catch (IllegalStateException ex) {
+            return false;
+        }
+        return true;
+    }
+
+    public boolean cancel(SIPStackTimerTask task) {
+        Object timerTask = task.getSipTimerTask();
+        if (timerTask instanceof DefaultTimerTask)
+            return ((DefaultTimerTask) timerTask).cancel();
+        return false;
+    }
+
+    public synchronized void start(Properties configurationProperties) {
+        if (started)
+            return;
+        timer = new Timer("SipTimer");
+        started = true;
+    }
+
+    public synchronized void stop() {
+        if (!started)
+            return;
+        started = false;
+        timer.cancel();
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack.timers;
+
+import gov2.nist.javax2.sip.stack.SIPStackTimerTask;
+
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel. Each task is put in the bucket of the tick at which
+ * it expires, so that scheduling and cancelling a task are O(1) whatever the
+ * number of pending tasks. A single thread advances the wheel and hands the
+ * expired tasks over to a small pool of threads, so that a slow task does not
+ * delay the other ones. The ticking thread waits without ticking while no
+ * task is pending.
+ *
+ * The pool size is set with the gov2.nist.javax2.sip.TIMER_THREAD_POOL_SIZE
+ * stack property.
+ *
+ */
+public class HashedWheelSipTimer implements SipTimer {
+
+    // / Duration of a tick in milliseconds
+    public static final long TICK_DURATION = 50;
+
+    // / Duration of a tick in nanoseconds
+    private static final long TICK_NANOS = TICK_DURATION * 1000000L;
+
+    // / Number of buckets of the wheel (power of 2)
+    private static final int WHEEL_SIZE = 512;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // / Default number of threads running the expired tasks
+    public static final int DEFAULT_THREAD_POOL_SIZE = 2;
+
+    // / Keep alive delay of the idle threads in seconds
+    private static final int KEEP_ALIVE = 60;
+
+    /**
+     * Pending task, linked in the bucket of its expiration tick.
+     */
+    private class Entry implements Runnable {
+        SIPStackTimerTask task;
+
+        long period;
+
+        long expirationTick;
+
+        int bucket = -1;
+
+        boolean cancelled;
+
+        Entry prev;
+
+        Entry next;
+
+        Entry(SIPStackTimerTask task, long period) {
+            this.task = task;
+            this.period = period;
+        }
+
+        public void run() {
+            synchronized (wheel) {
+                if (cancelled)
+                    return;
+                if (period == 0) {
+                    // Once run, a task can no longer be cancelled
+                    cancelled = true;
+                }
+            }
+            task.run();
+            if (period > 0) {
+                synchronized (wheel) {
+                    if (!cancelled && started) {
+                        // Keep the period from the previous expiration
+                        add(this, expirationTick + (period + TICK_DURATION - 1) / TICK_DURATION);
+                    }
+                }
+            }
+        }
+    }
+
+    // / Buckets of the wheel, each one is the head of a list of entries
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+
+    // / Number of pending tasks
+    private int count;
+
+    // / Last tick processed by the ticking thread
+    private long processedTick;
+
+    // / Time origin of the ticks in nanoseconds
+    private long startTime;
+
+    private Thread ticker;
+
+    private ThreadPoolExecutor executor;
+
+    private volatile boolean started;
+
+    public boolean schedule(SIPStackTimerTask task, long delay) {
+        return schedule(task, delay, 0);
+    }
+
+    public boolean scheduleWithFixedDelay(SIPStackTimerTask task, long delay, long period) {
+        if (period <= 0)
+            throw new IllegalArgumentException("Non-positive period");
+        return schedule(task, delay, period);
+    }
+
+    private boolean schedule(SIPStackTimerTask task, long delay, long period) {
+        if (delay < 0)
+            throw new IllegalArgumentException("Negative delay");
+        Entry entry = new Entry(task, period);
+        synchronized (wheel) {
+            if (!started)
+                return false;
+            task.setSipTimerTask(this, entry);
+            // Rounded up, so that a task is never run before its delay
+            long now = System.nanoTime() - startTime;
+            add(entry, (now + delay * 1000000L + TICK_NANOS - 1) / TICK_NANOS);
+        }
+        return true;
+    }
+
+    public boolean cancel(SIPStackTimerTask task) {
+        Object handle = task.getSipTimerTask();
+        if (!(handle instanceof Entry))
+            return false;
+        Entry entry = (Entry) handle;
+        synchronized (wheel) {
+            if (entry.cancelled)
+                return false;
+            entry.cancelled = true;
+            if (entry.bucket >= 0) {
+                remove(entry);
+            }
+        }
+        return true;
+    }
+
+    public void start(Properties configurationProperties) {
+        int poolSize = DEFAULT_THREAD_POOL_SIZE;
+        if (configurationProperties != null) {
+            String size = configurationProperties
+                    .getProperty("gov2.nist.javax2.sip.TIMER_THREAD_POOL_SIZE");
+            if (size != null) {
+                try {
+                    poolSize = Math.max(1, Integer.parseInt(size));
+                } catch (NumberFormatException ex) {
+                    // Keep the default size
+                }
+            }
+        }
+
+        synchronized (wheel) {
+            if (started)
+                return;
+            final AtomicInteger threadCount = new AtomicInteger(0);
+            executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            return new Thread(r, "SipTimer-" + threadCount.incrementAndGet());
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            startTime = System.nanoTime();
+            processedTick = 0;
+            started = true;
+            ticker = new Thread(new Runnable() {
+                public void run() {
+                    tick();
+                }
+            }, "SipTimer");
+            ticker.start();
+        }
+    }
+
+    public void stop() {
+        synchronized (wheel) {
+            if (!started)
+                return;
+            started = false;
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                Entry entry = wheel[i];
+                while (entry != null) {
+                    entry.bucket = -1;
+                    entry = entry.next;
+                }
+                wheel[i] = null;
+            }
+            count = 0;
+            wheel.notify();
+        }
+        executor.shutdown();
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * @return the number of pending tasks
+     */
+    public int size() {
+        synchronized (wheel) {
+            return count;
+        }
+    }
+
+    /**
+     * @return the current tick
+     */
+    private long currentTick() {
+        return (System.nanoTime() - startTime) / TICK_NANOS;
+    }
+
+    /**
+     * Put an entry in the bucket of its expiration tick. Must be called with
+     * the wheel locked.
+     */
+    private void add(Entry entry, long tick) {
+        if (tick <= processedTick) {
+            tick = processedTick + 1;
+        }
+        entry.expirationTick = tick;
+        entry.bucket = (int) (tick & WHEEL_MASK);
+        entry.prev = null;
+        entry.next = wheel[entry.bucket];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        wheel[entry.bucket] = entry;
+        count++;
+        if (count == 1) {
+            // The ticking thread may be waiting for a task
+            wheel.notify();
+        }
+    }
+
+    /**
+     * Unlink an entry from its bucket. Must be called with the wheel locked.
+     */
+    private void remove(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            wheel[entry.bucket] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.bucket = -1;
+        count--;
+    }
+
+    /**
+     * Loop of the ticking thread.
+     */
+    private void tick() {
+        ArrayList<Entry> expired = new ArrayList<Entry>();
+        while (true) {
+            synchronized (wheel) {
+                try {
+                    while (started && count == 0) {
+                        wheel.wait();
+                    }
+                    if (!started)
+                        return;
+                    long sleep = ((processedTick + 1) * TICK_NANOS
+                            - (System.nanoTime() - startTime) + 999999L) / 1000000L;
+                    if (sleep > 0) {
+                        wheel.wait(sleep);
+                        continue;
+                    }
+                } catch (InterruptedException ex) {
+                    return;
+                }
+
+                // Process the elapsed ticks, at most one turn of the wheel as
+                // all the entries are then checked
+                long until = currentTick();
+                long from = processedTick + 1;
+                if (until - from >= WHEEL_SIZE) {
+                    from = until - WHEEL_SIZE + 1;
+                }
+                for (long tick = from; tick <= until; tick++) {
+                    Entry entry = wheel[(int) (tick & WHEEL_MASK)];
+                    while (entry != null) {
+                        Entry next = entry.next;
+                        if (entry.expirationTick <= until) {
+                            remove(entry);
+                            expired.add(entry);
+                        }
+                        entry = next;
+                    }
+                }
+                processedTick = until;
+            }
+
+            for (int i = 0; i < expired.size(); i++) {
+                try {
+                    executor.execute(expired.get(i));
+                } catch (RejectedExecutionException ex) {
+                    // The timer has been stopped
+                }
+            }
+            expired.clear();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack.timers;
+
+import gov2.nist.javax2.sip.stack.SIPStackTimerTask;
+
+import java.util.Properties;
+
+/**
+ * Timer facility used by the stack to run the transaction, dialog and
+ * connection timers. The implementation is selected with the
+ * gov2.nist.javax2.sip.TIMER_CLASS_NAME stack property and must have a
+ * no-args constructor.
+ *
+ */
+public interface SipTimer {
+
+    /**
+     * Schedule a task to be run once after the given delay.
+     *
+     * @param task task to run
+     * @param delay delay in milliseconds
+     * @return false if the timer is stopped
+     */
+    boolean schedule(SIPStackTimerTask task, long delay);
+
+    /**
+     * Schedule a task to be run repeatedly, the first time after the given
+     * delay and then with the given delay between the end of a run and the
+     * start of the next one.
+     *
+     * @param task task to run
+     * @param delay delay in milliseconds before the first run
+     * @param period delay in milliseconds between two runs
+     * @return false if the timer is stopped
+     */
+    boolean scheduleWithFixedDelay(SIPStackTimerTask task, long delay, long period);
+
+    /**
+     * Cancel a scheduled task. A task which is running is not interrupted
+     * but is not run again.
+     *
+     * @param task task to cancel
+     * @return true if this prevented the task from being run
+     */
+    boolean cancel(SIPStackTimerTask task);
+
+    /**
+     * Start the timer.
+     *
+     * @param configurationProperties stack configuration properties, may be null
+     */
+    void start(Properties configurationProperties);
+
+    /**
+     * Stop the timer, the pending tasks are discarded.
+     */
+    void stop();
+
+    /**
+     * @return true if the timer is started and not stopped
+     */
+    boolean isStarted();
+}
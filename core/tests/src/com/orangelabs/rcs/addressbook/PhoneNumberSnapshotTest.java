@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.addressbook;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import android.database.Cursor;
+
+import com.orangelabs.rcs.utils.PhoneUtils;
+
+public class PhoneNumberSnapshotTest extends TestCase {
+	private PhoneNumberSnapshot snapshot = new PhoneNumberSnapshot();
+
+	/**
+	 * Phone rows of the address book: ID, number, raw contact ID, version
+	 */
+	private List<Object[]> phoneRows = new ArrayList<Object[]>();
+
+	protected void setUp() {
+		PhoneUtils.clearCache();
+	}
+
+	private void addRow(long id, String number, long rawContactId, int version) {
+		phoneRows.add(new Object[] { id, number, rawContactId, version });
+	}
+
+	private Object[] getRow(long id) {
+		for (int i = 0; i < phoneRows.size(); i++) {
+			if (((Long)phoneRows.get(i)[0]) == id) {
+				return phoneRows.get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Cursor on a copy of the phone rows
+	 */
+	private Cursor cursor() {
+		final List<Object[]> rows = new ArrayList<Object[]>(phoneRows);
+		return (Cursor)Proxy.newProxyInstance(Cursor.class.getClassLoader(),
+				new Class<?>[] { Cursor.class }, new InvocationHandler() {
+			private int position = -1;
+
+			private boolean closed = false;
+
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("moveToNext")) {
+					position++;
+					return position < rows.size();
+				} else if (name.equals("getLong")) {
+					return ((Number)rows.get(position)[(Integer)args[0]]).longValue();
+				} else if (name.equals("getInt")) {
+					return ((Number)rows.get(position)[(Integer)args[0]]).intValue();
+				} else if (name.equals("getString")) {
+					return (String)rows.get(position)[(Integer)args[0]];
+				} else if (name.equals("close")) {
+					closed = true;
+					return null;
+				} else if (name.equals("isClosed")) {
+					return closed;
+				}
+				throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	private PhoneNumberSnapshot.Delta scan() {
+		return snapshot.scan(cursor());
+	}
+
+	private static Set<String> numbers(List<PhoneNumberSnapshot.Row> rows) {
+		Set<String> numbers = new HashSet<String>();
+		for (int i = 0; i < rows.size(); i++) {
+			numbers.add(rows.get(i).getNumber());
+		}
+		return numbers;
+	}
+
+	private static Set<Long> ids(long... values) {
+		Set<Long> ids = new HashSet<Long>();
+		for (int i = 0; i < values.length; i++) {
+			ids.add(values[i]);
+		}
+		return ids;
+	}
+
+	public void testFirstScanAddsAllRows() {
+		addRow(1, "+33612345601", 10, 1);
+		addRow(2, "06 12 34 56 02", 10, 1);
+		addRow(3, "+33612345603", 11, 1);
+		PhoneNumberSnapshot.Delta delta = scan();
+		assertEquals(3, delta.getAdded().size());
+		assertTrue(delta.getRemoved().isEmpty());
+		assertEquals(3, snapshot.size());
+
+		// The numbers are given in international format
+		Set<String> expected = new HashSet<String>();
+		expected.add("+33612345601");
+		expected.add("+33612345602");
+		expected.add("+33612345603");
+		assertEquals(expected, delta.getAddedNumbers());
+		assertEquals(ids(10), snapshot.getRawContactIds("+33612345602"));
+	}
+
+	public void testUnchangedRowsNotReturned() {
+		addRow(1, "+33612345601", 10, 1);
+		addRow(2, "+33612345602", 11, 1);
+		scan();
+		assertTrue(scan().isEmpty());
+		assertEquals(2, snapshot.size());
+	}
+
+	public void testAddedRow() {
+		addRow(1, "+33612345601", 10, 1);
+		scan();
+		addRow(2, "+33612345602", 11, 1);
+		PhoneNumberSnapshot.Delta delta = scan();
+		assertEquals(1, delta.getAdded().size());
+		assertEquals("+33612345602", delta.getAdded().get(0).getNumber());
+		assertEquals(11, delta.getAdded().get(0).getRawContactId());
+		assertTrue(delta.getRemoved().isEmpty());
+		assertEquals(ids(11), snapshot.getRawContactIds("+33612345602"));
+	}
+
+	public void testChangedRow() {
+		addRow(1, "+33612345601", 10, 1);
+		addRow(2, "+33612345602", 11, 1);
+		scan();
+
+		// The number of a row is edited: its version is incremented
+		Object[] row = getRow(2);
+		row[1] = "+33612345612";
+		row[3] = 2;
+		PhoneNumberSnapshot.Delta delta = scan();
+		assertEquals(1, delta.getAdded().size());
+		assertEquals("+33612345612", delta.getAdded().get(0).getNumber());
+		assertEquals(1, delta.getRemoved().size());
+		assertEquals("+33612345602", delta.getRemoved().get(0).getNumber());
+		assertTrue(snapshot.getRawContactIds("+33612345602").isEmpty());
+		assertEquals(ids(11), snapshot.getRawContactIds("+33612345612"));
+		assertEquals(2, snapshot.size());
+	}
+
+	public void testRowMovedToAnotherRawContact() {
+		addRow(1, "+33612345601", 10, 1);
+		scan();
+		getRow(1)[2] = 12L;
+		PhoneNumberSnapshot.Delta delta = scan();
+		assertEquals(1, delta.getAdded().size());
+		assertEquals(12, delta.getAdded().get(0).getRawContactId());
+		assertEquals(1, delta.getRemoved().size());
+		assertEquals(10, delta.getRemoved().get(0).getRawContactId());
+		assertEquals(ids(12), snapshot.getRawContactIds("+33612345601"));
+	}
+
+	public void testRemovedRow() {
+		addRow(1, "+33612345601", 10, 1);
+		addRow(2, "+33612345602", 11, 1);
+		addRow(3, "+33612345601", 11, 1);
+		scan();
+		assertEquals(ids(10, 11), snapshot.getRawContactIds("+33612345601"));
+
+		phoneRows.remove(getRow(3));
+		PhoneNumberSnapshot.Delta delta = scan();
+		assertTrue(delta.getAdded().isEmpty());
+		assertEquals(1, delta.getRemoved().size());
+		assertEquals(11, delta.getRemoved().get(0).getRawContactId());
+
+		// The number is still used by the other raw contact
+		assertEquals(ids(10), snapshot.getRawContactIds("+33612345601"));
+		assertEquals(ids(11), snapshot.getRawContactIds("+33612345602"));
+
+		phoneRows.remove(getRow(1));
+		delta = scan();
+		assertEquals(1, delta.getRemoved().size());
+		assertEquals("+33612345601", delta.getRemoved().get(0).getNumber());
+		assertTrue(snapshot.getRawContactIds("+33612345601").isEmpty());
+		assertEquals(1, snapshot.size());
+	}
+
+	public void testInvalidNumberSkipped() {
+		addRow(1, null, 10, 1);
+		addRow(2, "+33612345602", 10, 1);
+		PhoneNumberSnapshot.Delta delta = scan();
+		assertEquals(1, delta.getAdded().size());
+		assertEquals(1, snapshot.size());
+		assertTrue(scan().isEmpty());
+	}
+
+	public void testSimOnlyNumber() {
+		// Raw contact 20 is a SIM contact
+		Set<Long> simAccounts = ids(20);
+		addRow(1, "+33612345601", 20, 1);
+		addRow(2, "+33612345602", 10, 1);
+		scan();
+		assertTrue(snapshot.isOnlyUsedBy("+33612345601", simAccounts));
+		assertFalse(snapshot.isOnlyUsedBy("+33612345602", simAccounts));
+		assertFalse(snapshot.isOnlyUsedBy("+33612345699", simAccounts));
+
+		// The SIM number is also saved in a phone contact
+		addRow(3, "+33612345601", 11, 1);
+		scan();
+		assertFalse(snapshot.isOnlyUsedBy("+33612345601", simAccounts));
+
+		// And removed from it
+		phoneRows.remove(getRow(3));
+		scan();
+		assertTrue(snapshot.isOnlyUsedBy("+33612345601", simAccounts));
+	}
+
+	public void testLargeAddressBook() {
+		for (int i = 0; i < 1200; i++) {
+			addRow(i, "+336" + (10000000 + i), 1000 + i / 2, 1);
+		}
+		assertEquals(1200, scan().getAdded().size());
+		assertEquals(1200, snapshot.size());
+
+		// Only the changed rows are returned
+		getRow(600)[1] = "+33699999999";
+		getRow(600)[3] = 2;
+		phoneRows.remove(getRow(700));
+		addRow(1200, "+33699999998", 5000, 1);
+		PhoneNumberSnapshot.Delta delta = scan();
+		Set<String> added = new HashSet<String>();
+		added.add("+33699999999");
+		added.add("+33699999998");
+		assertEquals(added, delta.getAddedNumbers());
+		Set<String> removed = new HashSet<String>();
+		removed.add("+33610000600");
+		removed.add("+33610000700");
+		assertEquals(removed, numbers(delta.getRemoved()));
+		assertEquals(1200, snapshot.size());
+	}
+
+	public void testClear() {
+		addRow(1, "+33612345601", 10, 1);
+		scan();
+		snapshot.clear();
+		assertEquals(1, scan().getAdded().size());
+	}
+}
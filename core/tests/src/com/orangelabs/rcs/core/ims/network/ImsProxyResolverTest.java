@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.network;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.NAPTRRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.Type;
+
+public class ImsProxyResolverTest extends TestCase {
+	private static final long TTL = 3600;
+
+	/**
+	 * DNS server on a local UDP port answering from a table of records
+	 */
+	private static class StubDnsServer extends Thread {
+		private final DatagramSocket socket;
+
+		private final Map<String, List<Record>> records = new HashMap<String, List<Record>>();
+
+		private final Map<String, Integer> queries = new HashMap<String, Integer>();
+
+		private final Set<String> unanswered = new HashSet<String>();
+
+		StubDnsServer() throws IOException {
+			socket = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"));
+			setDaemon(true);
+		}
+
+		int getPort() {
+			return socket.getLocalPort();
+		}
+
+		private static String key(Name name, int type) {
+			return name.toString().toLowerCase() + "/" + Type.string(type);
+		}
+
+		synchronized void add(Record record) {
+			String key = key(record.getName(), record.getType());
+			List<Record> list = records.get(key);
+			if (list == null) {
+				list = new ArrayList<Record>();
+				records.put(key, list);
+			}
+			list.add(record);
+		}
+
+		synchronized void drop(String name, int type) throws IOException {
+			unanswered.add(key(Name.fromString(name), type));
+		}
+
+		synchronized int getQueryCount(String name, int type) throws IOException {
+			Integer count = queries.get(key(Name.fromString(name), type));
+			return count == null ? 0 : count.intValue();
+		}
+
+		public void run() {
+			byte[] buffer = new byte[512];
+			while (!socket.isClosed()) {
+				try {
+					DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+					socket.receive(packet);
+					Message query = new Message(Arrays.copyOf(packet.getData(), packet.getLength()));
+					Record question = query.getQuestion();
+					String key = key(question.getName(), question.getType());
+					Message answer = new Message(query.getHeader().getID());
+					answer.getHeader().setFlag(Flags.QR);
+					answer.getHeader().setFlag(Flags.AA);
+					answer.addRecord(question, Section.QUESTION);
+					synchronized (this) {
+						Integer count = queries.get(key);
+						queries.put(key, count == null ? 1 : count.intValue() + 1);
+						if (unanswered.contains(key)) {
+							continue;
+						}
+						List<Record> list = records.get(key);
+						for (int i = 0; list != null && i < list.size(); i++) {
+							answer.addRecord(list.get(i), Section.ANSWER);
+						}
+					}
+					byte[] wire = answer.toWire();
+					socket.send(new DatagramPacket(wire, wire.length, packet.getSocketAddress()));
+				} catch (IOException e) {
+					// Closed
+				}
+			}
+		}
+
+		void shutdown() {
+			socket.close();
+		}
+	}
+
+	private StubDnsServer server;
+
+	private ImsProxyResolver resolver;
+
+	protected void setUp() throws Exception {
+		server = new StubDnsServer();
+		server.start();
+		SimpleResolver simpleResolver = new SimpleResolver("127.0.0.1");
+		simpleResolver.setPort(server.getPort());
+		simpleResolver.setTimeout(1);
+		resolver = new ImsProxyResolver(simpleResolver);
+	}
+
+	protected void tearDown() throws Exception {
+		server.shutdown();
+	}
+
+	private static Name name(String name) throws IOException {
+		return Name.fromString(name);
+	}
+
+	private void naptr(String domain, long ttl, int order, String service, String replacement)
+			throws IOException {
+		server.add(new NAPTRRecord(name(domain), DClass.IN, ttl, order, 10, "S", service, "",
+				name(replacement)));
+	}
+
+	private void srv(String name, long ttl, int priority, int port, String target) throws IOException {
+		server.add(new SRVRecord(name(name), DClass.IN, ttl, priority, 0, port, name(target)));
+	}
+
+	private void a(String host, long ttl, String address) throws IOException {
+		server.add(new ARecord(name(host), DClass.IN, ttl, InetAddress.getByName(address)));
+	}
+
+	private static InetSocketAddress endpoint(String address, int port) throws IOException {
+		return new InetSocketAddress(InetAddress.getByName(address), port);
+	}
+
+	public void testNaptrSrvOrder() throws Exception {
+		naptr("ims.test.", TTL, 20, "SIP+D2T", "_sip._tcp.backup.test.");
+		naptr("ims.test.", TTL, 10, "SIP+D2T", "_sip._tcp.ims.test.");
+		naptr("ims.test.", TTL, 5, "SIP+D2U", "_sip._udp.ims.test.");
+		srv("_sip._tcp.ims.test.", TTL, 20, 5062, "p2.ims.test.");
+		srv("_sip._tcp.ims.test.", TTL, 10, 5060, "p1.ims.test.");
+		srv("_sip._tcp.backup.test.", TTL, 10, 5064, "p3.backup.test.");
+		srv("_sip._udp.ims.test.", TTL, 10, 5070, "p4.ims.test.");
+		a("p1.ims.test.", TTL, "10.0.0.1");
+		a("p2.ims.test.", TTL, "10.0.0.2");
+		a("p3.backup.test.", TTL, "10.0.0.3");
+		a("p4.ims.test.", TTL, "10.0.0.4");
+
+		List<InetSocketAddress> endpoints = resolver.resolve("ims.test", "TCP", 5060);
+		assertEquals(Arrays.asList(endpoint("10.0.0.1", 5060), endpoint("10.0.0.2", 5062),
+				endpoint("10.0.0.3", 5064)), endpoints);
+		assertEquals(0, server.getQueryCount("_sip._udp.ims.test.", Type.SRV));
+	}
+
+	public void testFailoverToNextTarget() throws Exception {
+		naptr("ims.test.", TTL, 10, "SIP+D2T", "_sip._tcp.ims.test.");
+		srv("_sip._tcp.ims.test.", TTL, 10, 5060, "down.ims.test.");
+		srv("_sip._tcp.ims.test.", TTL, 20, 5061, ".");
+		srv("_sip._tcp.ims.test.", TTL, 30, 5062, "p2.ims.test.");
+		a("p2.ims.test.", TTL, "10.0.0.2");
+
+		assertEquals(Arrays.asList(endpoint("10.0.0.2", 5062)),
+				resolver.resolve("ims.test", "TCP", 5060));
+	}
+
+	public void testSrvWithoutNaptr() throws Exception {
+		srv("_sip._tls.ims.test.", TTL, 10, 5061, "p1.ims.test.");
+		a("p1.ims.test.", TTL, "10.0.0.1");
+
+		assertEquals(Arrays.asList(endpoint("10.0.0.1", 5061)),
+				resolver.resolve("ims.test", "TLS", 5060));
+	}
+
+	public void testAWithoutSrv() throws Exception {
+		a("ims.test.", TTL, "10.0.0.9");
+
+		assertEquals(Arrays.asList(endpoint("10.0.0.9", 5060)),
+				resolver.resolve("ims.test", "UDP", 5060));
+	}
+
+	public void testCacheHit() throws Exception {
+		naptr("ims.test.", TTL, 10, "SIP+D2T", "_sip._tcp.ims.test.");
+		srv("_sip._tcp.ims.test.", TTL, 10, 5060, "p1.ims.test.");
+		a("p1.ims.test.", TTL, "10.0.0.1");
+
+		List<InetSocketAddress> first = resolver.resolve("ims.test", "TCP", 5060);
+		assertEquals(first, resolver.resolve("ims.test", "TCP", 5060));
+		assertEquals(1, server.getQueryCount("ims.test.", Type.NAPTR));
+		assertEquals(1, server.getQueryCount("_sip._tcp.ims.test.", Type.SRV));
+		assertEquals(1, server.getQueryCount("p1.ims.test.", Type.A));
+
+		// A network change flushes the cache
+		resolver.reset();
+		assertEquals(first, resolver.resolve("ims.test", "TCP", 5060));
+		assertEquals(2, server.getQueryCount("ims.test.", Type.NAPTR));
+	}
+
+	public void testTtlExpiry() throws Exception {
+		naptr("ims.test.", TTL, 10, "SIP+D2T", "_sip._tcp.ims.test.");
+		srv("_sip._tcp.ims.test.", TTL, 10, 5060, "p1.ims.test.");
+		a("p1.ims.test.", 1, "10.0.0.1");
+
+		resolver.resolve("ims.test", "TCP", 5060);
+		Thread.sleep(2100);
+		assertEquals(Arrays.asList(endpoint("10.0.0.1", 5060)),
+				resolver.resolve("ims.test", "TCP", 5060));
+		assertEquals(1, server.getQueryCount("_sip._tcp.ims.test.", Type.SRV));
+		assertEquals(2, server.getQueryCount("p1.ims.test.", Type.A));
+	}
+
+	public void testQueryTimeout() throws Exception {
+		server.drop("ims.test.", Type.NAPTR);
+		srv("_sip._tcp.ims.test.", TTL, 10, 5060, "p1.ims.test.");
+		a("p1.ims.test.", TTL, "10.0.0.1");
+
+		long start = System.currentTimeMillis();
+		assertEquals(Arrays.asList(endpoint("10.0.0.1", 5060)),
+				resolver.resolve("ims.test", "TCP", 5060));
+		// The fallback SRV query has been answered during the NAPTR timeout
+		assertTrue(System.currentTimeMillis() - start < 1900);
+		assertEquals(1, server.getQueryCount("_sip._tcp.ims.test.", Type.SRV));
+	}
+}
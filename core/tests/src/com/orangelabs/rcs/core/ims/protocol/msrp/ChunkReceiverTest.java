@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.msrp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.orangelabs.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
+import com.orangelabs.rcs.platform.network.SocketConnection;
+
+public class ChunkReceiverTest extends TestCase {
+	/**
+	 * Received request or response
+	 */
+	private static class Received {
+		String type;
+		String txId;
+		Hashtable<String, String> headers;
+		int flag;
+		byte[] data;
+		long totalSize;
+	}
+
+	private List<Received> received = new ArrayList<Received>();
+
+	private List<String> errors = new ArrayList<String>();
+
+	private MsrpEventListener listener = new MsrpEventListener() {
+		public void msrpDataTransfered(String msgId) {
+		}
+
+		public void msrpDataReceived(String msgId, byte[] data, String mimeType) {
+		}
+
+		public void msrpTransferProgress(long currentSize, long totalSize) {
+		}
+
+		public boolean msrpTransferProgress(long currentSize, long totalSize, byte[] data) {
+			return false;
+		}
+
+		public void msrpTransferAborted() {
+		}
+
+		public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
+			errors.add(error);
+		}
+	};
+
+	private MsrpSession session = new MsrpSession() {
+		public void receiveMsrpSend(String txId, Hashtable<String, String> headers, int flag,
+				byte[] data, int offset, int length, long totalSize) {
+			Received send = new Received();
+			send.type = MsrpConstants.METHOD_SEND;
+			send.txId = txId;
+			send.headers = headers;
+			send.flag = flag;
+			if (data != null) {
+				send.data = new byte[length];
+				System.arraycopy(data, offset, send.data, 0, length);
+			}
+			send.totalSize = totalSize;
+			received.add(send);
+		}
+
+		public void receiveMsrpResponse(int code, String txId, Hashtable<String, String> headers) {
+			Received response = new Received();
+			response.type = String.valueOf(code);
+			response.txId = txId;
+			response.headers = headers;
+			received.add(response);
+		}
+
+		public void receiveMsrpReport(String txId, Hashtable<String, String> headers) {
+			Received report = new Received();
+			report.type = MsrpConstants.METHOD_REPORT;
+			report.txId = txId;
+			report.headers = headers;
+			received.add(report);
+		}
+
+		public MsrpEventListener getMsrpEventListener() {
+			return listener;
+		}
+
+		public void checkMsrpTransactionInfo() {
+		}
+	};
+
+	private MsrpConnection connection = new MsrpConnection(session) {
+		public SocketConnection getSocketConnection() {
+			return null;
+		}
+	};
+
+	/**
+	 * Stream returning its data in pieces of a fixed size
+	 */
+	private static class SplitStream extends InputStream {
+		private final byte[] data;
+
+		private final int piece;
+
+		private int position = 0;
+
+		SplitStream(String data, int piece) throws IOException {
+			this(data.getBytes("ISO-8859-1"), piece);
+		}
+
+		SplitStream(byte[] data, int piece) {
+			this.data = data;
+			this.piece = piece;
+		}
+
+		public int read() {
+			return position < data.length ? data[position++] & 0xff : -1;
+		}
+
+		public int read(byte[] buffer, int offset, int length) {
+			if (position == data.length) {
+				return -1;
+			}
+			int nb = Math.min(Math.min(length, piece), data.length - position);
+			System.arraycopy(data, position, buffer, offset, nb);
+			position += nb;
+			return nb;
+		}
+	}
+
+	static String send(String txId, String byteRange, String body, char flag) {
+		StringBuffer chunk = new StringBuffer();
+		chunk.append("MSRP ").append(txId).append(" SEND\r\n");
+		chunk.append("To-Path: msrp://10.0.0.1:20000/abc;tcp\r\n");
+		chunk.append("From-Path: msrp://10.0.0.2:20000/def;tcp\r\n");
+		chunk.append("Message-ID: msg-").append(txId).append("\r\n");
+		if (byteRange != null) {
+			chunk.append("Byte-Range: ").append(byteRange).append("\r\n");
+		}
+		chunk.append("Content-Type: text/plain\r\n\r\n");
+		chunk.append(body).append("\r\n");
+		chunk.append("-------").append(txId).append(flag).append("\r\n");
+		return chunk.toString();
+	}
+
+	static String send(String txId, String body, char flag) {
+		return send(txId, "1-" + body.length() + "/" + body.length(), body, flag);
+	}
+
+	private void receive(String data, int piece) throws IOException {
+		new ChunkReceiver(connection, new SplitStream(data, piece)).run();
+	}
+
+	private Received get(int index) {
+		return received.get(index);
+	}
+
+	private static String body(Received send) throws IOException {
+		return new String(send.data, "ISO-8859-1");
+	}
+
+	public void testChunkSplitAcrossReads() throws Exception {
+		String data = send("tx1", "hello world, in pieces", '$');
+		for (int piece = 1; piece <= 7; piece++) {
+			received.clear();
+			receive(data, piece);
+			assertEquals(1, received.size());
+			assertEquals("tx1", get(0).txId);
+			assertEquals("hello world, in pieces", body(get(0)));
+			assertEquals(MsrpConstants.FLAG_LAST_CHUNK, get(0).flag);
+			assertEquals(22, get(0).totalSize);
+			assertEquals("msg-tx1", get(0).headers.get(MsrpConstants.HEADER_MESSAGE_ID));
+		}
+		assertTrue(errors.isEmpty());
+	}
+
+	public void testCoalescedChunks() throws Exception {
+		receive(send("tx1", "1-5/10", "first", '+') + send("tx2", "6-10/10", "secnd", '$')
+				+ "MSRP tx3 200 OK\r\nTo-Path: msrp://10.0.0.2:20000/def;tcp\r\n"
+				+ "From-Path: msrp://10.0.0.1:20000/abc;tcp\r\n-------tx3$\r\n", 4096);
+		assertEquals(3, received.size());
+		assertEquals("first", body(get(0)));
+		assertEquals(MsrpConstants.FLAG_MORE_CHUNK, get(0).flag);
+		assertEquals("secnd", body(get(1)));
+		assertEquals(MsrpConstants.FLAG_LAST_CHUNK, get(1).flag);
+		assertEquals("200", get(2).type);
+		assertEquals("tx3", get(2).txId);
+		assertTrue(errors.isEmpty());
+	}
+
+	public void testFlags() throws Exception {
+		receive(send("tx1", "1-3/9", "abc", '+') + send("tx2", "4-6/9", "def", '#')
+				+ send("tx3", "4-9/9", "defghi", '$'), 10);
+		assertEquals(3, received.size());
+		assertEquals(MsrpConstants.FLAG_MORE_CHUNK, get(0).flag);
+		assertEquals(MsrpConstants.FLAG_ABORT_CHUNK, get(1).flag);
+		assertEquals(MsrpConstants.FLAG_LAST_CHUNK, get(2).flag);
+		assertEquals("defghi", body(get(2)));
+	}
+
+	public void testEndLineInsideBody() throws Exception {
+		// With a known size the body is not scanned
+		String body = "a\r\n-------tx1$\r\nb";
+		receive(send("tx1", body, '$'), 3);
+		assertEquals(1, received.size());
+		assertEquals(body, body(get(0)));
+
+		// With an unknown size only the end line of the transaction ends the body
+		received.clear();
+		body = "a\r\n-------tx9$\r\n-------tx1b";
+		receive(send("tx1", "1-*/" + body.length(), body, '+'), 5);
+		assertEquals(1, received.size());
+		assertEquals(body, body(get(0)));
+		assertEquals(MsrpConstants.FLAG_MORE_CHUNK, get(0).flag);
+
+		// Nor without a known size
+		received.clear();
+		receive(send("tx1", null, "a\r\n-------tx1b\r\n-------tx1", '$'), 5);
+		assertEquals(1, received.size());
+		assertEquals("a\r\n-------tx1b\r\n-------tx1", body(get(0)));
+		assertTrue(errors.isEmpty());
+	}
+
+	public void testWithoutByteRange() throws Exception {
+		receive(send("tx1", null, "line 1\r\nline 2", '$'), 6);
+		assertEquals(1, received.size());
+		assertEquals("line 1\r\nline 2", body(get(0)));
+	}
+
+	public void testEmptySendAndReport() throws Exception {
+		receive("MSRP tx1 SEND\r\nTo-Path: msrp://10.0.0.1:20000/abc;tcp\r\n-------tx1$\r\n"
+				+ "MSRP tx2 REPORT\r\nMessage-ID: msg-1\r\nStatus: 000 200 OK\r\n-------tx2$\r\n", 8);
+		assertEquals(2, received.size());
+		assertNull(get(0).data);
+		assertEquals(MsrpConstants.FLAG_LAST_CHUNK, get(0).flag);
+		assertEquals(MsrpConstants.METHOD_REPORT, get(1).type);
+		assertEquals("000 200 OK", get(1).headers.get(MsrpConstants.HEADER_STATUS));
+	}
+
+	public void testGarbageIgnored() throws Exception {
+		receive("GET / HTTP/1.1\r\nHost: example.com\r\n\r\n" + send("tx1", "data", '$'), 4096);
+		assertTrue(received.isEmpty());
+		assertTrue(errors.isEmpty());
+	}
+
+	public void testInvalidEndLine() throws Exception {
+		receive(send("tx1", "1-4/4", "data", '$').replace("-------tx1$", "-------tx2$")
+				+ send("tx3", "next", '$'), 4096);
+		assertTrue(received.isEmpty());
+		assertEquals(1, errors.size());
+	}
+
+	public void testInvalidHeader() throws Exception {
+		receive("MSRP tx1 SEND\r\nTo-Path msrp//10.0.0.1/abc;tcp\r\n-------tx1$\r\n", 4096);
+		assertTrue(received.isEmpty());
+		assertEquals(1, errors.size());
+	}
+
+	public void testTruncatedChunk() throws Exception {
+		String data = send("tx1", "truncated", '$');
+		receive(data.substring(0, data.length() - 8), 4096);
+		assertTrue(received.isEmpty());
+		assertEquals(1, errors.size());
+	}
+
+	public void testOversizeChunk() throws Exception {
+		// The size is checked before the buffer grows
+		receive(send("tx1", "1-2000000000/2000000000", "small", '$'), 4096);
+		assertTrue(received.isEmpty());
+		assertEquals(1, errors.size());
+	}
+
+	public void testUnterminatedLine() throws Exception {
+		final int size = 8 * 1024 * 1024;
+		InputStream stream = new InputStream() {
+			private int count = 0;
+
+			public int read() {
+				return count++ < size ? 'x' : -1;
+			}
+
+			public int read(byte[] buffer, int offset, int length) {
+				if (count >= size) {
+					return -1;
+				}
+				int nb = Math.min(length, size - count);
+				for (int i = 0; i < nb; i++) {
+					buffer[offset + i] = 'x';
+				}
+				count += nb;
+				return nb;
+			}
+		};
+		new ChunkReceiver(connection, stream).run();
+		assertTrue(received.isEmpty());
+		assertEquals(1, errors.size());
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.msrp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class DataChunksTest extends TestCase {
+	private static byte[] bytes(int length, int seed) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte)(seed + i);
+		}
+		return data;
+	}
+
+	private static byte[] read(InputStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[7];
+		int nb;
+		while ((nb = stream.read(buffer)) != -1) {
+			out.write(buffer, 0, nb);
+		}
+		stream.close();
+		return out.toByteArray();
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] result = new byte[a.length + b.length];
+		System.arraycopy(a, 0, result, 0, a.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	public void testDataInMemory() throws Exception {
+		DataChunks chunks = new DataChunks(100);
+		byte[] first = bytes(40, 1);
+		byte[] second = bytes(60, 50);
+		chunks.addChunk("msg1", first);
+		chunks.addChunk("msg1", second, 0, second.length);
+		byte[] expected = concat(first, second);
+		assertTrue(Arrays.equals(expected, chunks.getReceivedData()));
+		assertTrue(Arrays.equals(expected, read(chunks.getReceivedStream())));
+		assertEquals(100, chunks.getCachedSize());
+	}
+
+	public void testDataSpilled() throws Exception {
+		DataChunks chunks = new DataChunks(100);
+		byte[] first = bytes(80, 1);
+		byte[] second = bytes(50, 90);
+		chunks.addChunk("msg1", first);
+		chunks.addChunk("msg1", second, 0, second.length);
+		byte[] expected = concat(first, second);
+		assertTrue(Arrays.equals(expected, read(chunks.getReceivedStream())));
+		assertTrue(Arrays.equals(expected, chunks.getReceivedData()));
+		assertEquals(130, chunks.getCachedSize());
+	}
+
+	public void testStreamNotAffectedByReset() throws Exception {
+		DataChunks chunks = new DataChunks(10);
+		byte[] data = bytes(30, 3);
+		chunks.addChunk("msg1", data);
+		InputStream stream = chunks.getReceivedStream();
+		chunks.resetCache();
+		assertEquals(0, chunks.getCachedSize());
+		assertTrue(Arrays.equals(data, read(stream)));
+		assertEquals(0, chunks.getReceivedData().length);
+	}
+
+	public void testResetWhileReceiving() throws Exception {
+		final DataChunks chunks = new DataChunks(64);
+		final byte[] data = bytes(16, 0);
+		final Exception[] error = new Exception[1];
+		Thread receiver = new Thread() {
+			public void run() {
+				try {
+					for (int i = 0; i < 20000; i++) {
+						chunks.addChunk("msg1", data);
+					}
+				} catch (Exception e) {
+					error[0] = e;
+				}
+			}
+		};
+		receiver.start();
+		while (receiver.isAlive()) {
+			chunks.resetCache();
+		}
+		assertNull(error[0]);
+		assertEquals(20000 * data.length, chunks.getCurrentSize());
+		chunks.resetCache();
+	}
+}
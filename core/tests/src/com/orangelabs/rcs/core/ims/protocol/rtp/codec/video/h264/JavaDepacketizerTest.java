@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.rtp.codec.video.h264;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.orangelabs.rcs.core.ims.protocol.rtp.codec.Codec;
+import com.orangelabs.rcs.core.ims.protocol.rtp.util.Buffer;
+
+public class JavaDepacketizerTest extends TestCase {
+	/**
+	 * Sequence parameter set of a baseline 176x144 stream
+	 */
+	private static final byte[] SPS = bytes("67 42 80 0c e9 02 c1 2c 80");
+
+	/**
+	 * Picture parameter set
+	 */
+	private static final byte[] PPS = bytes("68 ce 06 e2");
+
+	/**
+	 * STAP-A packet aggregating the SPS and the PPS
+	 */
+	private static final byte[] STAP_A = bytes("78 00 09 67 42 80 0c e9 02 c1 2c 80 00 04 68 ce 06 e2");
+
+	/**
+	 * FU-A fragments of a 7 bytes IDR slice 65 88 84 00 33 ff 10, in 3 packets
+	 */
+	private static final byte[][] FU_A = {
+		bytes("7c 85 88 84"),
+		bytes("7c 05 00 33"),
+		bytes("7c 45 ff 10")
+	};
+
+	private static final byte[] FU_A_FRAME = bytes("65 88 84 00 33 ff 10");
+
+	private JavaDepacketizer depacketizer = new JavaDepacketizer();
+
+	private Buffer output = new Buffer();
+
+	private static byte[] bytes(String hex) {
+		String[] values = hex.split(" ");
+		byte[] data = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			data[i] = (byte)Integer.parseInt(values[i], 16);
+		}
+		return data;
+	}
+
+	/**
+	 * NAL unit of a slice with a recognizable content
+	 */
+	private static byte[] slice(int type, int size, int seed) {
+		byte[] nal = new byte[size];
+		nal[0] = (byte)(0x60 | type);
+		for (int i = 1; i < size; i++) {
+			nal[i] = (byte)(seed + i * 7);
+		}
+		return nal;
+	}
+
+	/**
+	 * Split a NAL unit into FU-A payloads of at most the given size
+	 */
+	static byte[][] fragment(byte[] nal, int maxPayload) {
+		int count = (nal.length - 1 + maxPayload - 1) / maxPayload;
+		byte[][] fragments = new byte[count][];
+		for (int i = 0; i < count; i++) {
+			int start = 1 + i * maxPayload;
+			int length = Math.min(maxPayload, nal.length - start);
+			byte[] fragment = new byte[2 + length];
+			fragment[0] = (byte)((nal[0] & 0xe0) | H264RtpHeaders.AVC_NALTYPE_FUA);
+			fragment[1] = (byte)(nal[0] & 0x1f);
+			if (i == 0) {
+				fragment[1] |= 0x80;
+			}
+			if (i == count - 1) {
+				fragment[1] |= 0x40;
+			}
+			System.arraycopy(nal, start, fragment, 2, length);
+			fragments[i] = fragment;
+		}
+		return fragments;
+	}
+
+	private static Buffer packet(byte[] payload, long timeStamp, long seqnum) {
+		Buffer input = new Buffer();
+		input.setData(payload);
+		input.setLength(payload.length);
+		input.setTimeStamp(timeStamp);
+		input.setSequenceNumber(seqnum);
+		return input;
+	}
+
+	private int process(byte[] payload, long timeStamp, long seqnum) {
+		return depacketizer.process(packet(payload, timeStamp, seqnum), output);
+	}
+
+	private byte[] frame() {
+		byte[] data = new byte[output.getLength()];
+		System.arraycopy((byte[])output.getData(), output.getOffset(), data, 0, data.length);
+		return data;
+	}
+
+	private void assertFrame(byte[] expected, long timeStamp) {
+		assertFalse(output.isDiscard());
+		assertTrue(Arrays.equals(expected, frame()));
+		assertEquals(timeStamp, output.getTimeStamp());
+	}
+
+	public void testFixtureInOrder() {
+		assertEquals(Codec.OUTPUT_BUFFER_NOT_FILLED, process(FU_A[0], 3000, 10));
+		assertTrue(output.isDiscard());
+		assertEquals(Codec.OUTPUT_BUFFER_NOT_FILLED, process(FU_A[1], 3000, 11));
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(FU_A[2], 3000, 12));
+		assertFrame(FU_A_FRAME, 3000);
+		assertEquals(10, output.getSequenceNumber());
+	}
+
+	public void testFixtureReordered() {
+		process(FU_A[2], 3000, 12);
+		process(FU_A[0], 3000, 10);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(FU_A[1], 3000, 11));
+		assertFrame(FU_A_FRAME, 3000);
+	}
+
+	public void testLostMiddleFragment() {
+		byte[] first = slice(5, 3000, 1);
+		byte[][] fragments = fragment(first, 1000);
+		process(fragments[0], 3000, 10);
+		assertEquals(Codec.OUTPUT_BUFFER_NOT_FILLED, process(fragments[2], 3000, 12));
+		assertTrue(output.isDiscard());
+
+		// The next frame is complete, the incomplete one is dropped
+		byte[] second = slice(1, 2500, 2);
+		fragments = fragment(second, 1000);
+		process(fragments[0], 6000, 13);
+		process(fragments[1], 6000, 14);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(fragments[2], 6000, 15));
+		assertFrame(second, 6000);
+
+		// The missing fragment arriving late does not complete the dropped frame
+		assertEquals(Codec.OUTPUT_BUFFER_NOT_FILLED, process(fragment(first, 1000)[1], 3000, 11));
+		assertTrue(output.isDiscard());
+	}
+
+	public void testMiddleFragmentLateButInTime() {
+		byte[] nal = slice(5, 3000, 1);
+		byte[][] fragments = fragment(nal, 1000);
+		process(fragments[0], 3000, 10);
+		process(fragments[2], 3000, 12);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(fragments[1], 3000, 11));
+		assertFrame(nal, 3000);
+	}
+
+	public void testDuplicateFragment() {
+		byte[] nal = slice(1, 2500, 3);
+		byte[][] fragments = fragment(nal, 1000);
+		process(fragments[0], 3000, 10);
+		process(fragments[1], 3000, 11);
+		process(fragments[1], 3000, 11);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(fragments[2], 3000, 12));
+		assertFrame(nal, 3000);
+	}
+
+	public void testInterleavedFrames() {
+		byte[] first = slice(1, 2000, 4);
+		byte[] second = slice(1, 2000, 5);
+		byte[][] firstFragments = fragment(first, 1000);
+		byte[][] secondFragments = fragment(second, 1000);
+		process(firstFragments[0], 3000, 10);
+		process(secondFragments[0], 6000, 12);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(firstFragments[1], 3000, 11));
+		assertFrame(first, 3000);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(secondFragments[1], 6000, 13));
+		assertFrame(second, 6000);
+	}
+
+	public void testTimestampWrap() {
+		byte[] old = slice(1, 2000, 6);
+		byte[][] oldFragments = fragment(old, 1000);
+		process(oldFragments[0], 0xffffff00L, 10);
+
+		// The frame after the wrap releases the incomplete one before it
+		byte[] next = slice(1, 2000, 7);
+		byte[][] nextFragments = fragment(next, 1000);
+		process(nextFragments[0], 0x100L, 12);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(nextFragments[1], 0x100L, 13));
+		assertFrame(next, 0x100L);
+
+		assertEquals(Codec.OUTPUT_BUFFER_NOT_FILLED, process(oldFragments[1], 0xffffff00L, 11));
+	}
+
+	public void testOversizeFrameDropped() {
+		byte[][] fragments = fragment(slice(5, 10000, 8), 1200);
+		for (int i = 0; i < fragments.length; i++) {
+			assertEquals(Codec.OUTPUT_BUFFER_NOT_FILLED, process(fragments[i], 3000, 10 + i));
+			assertTrue(output.isDiscard());
+		}
+
+		// The next frame is not affected
+		byte[] nal = slice(1, 2000, 9);
+		byte[][] next = fragment(nal, 1000);
+		process(next[0], 6000, 20);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(next[1], 6000, 21));
+		assertFrame(nal, 6000);
+	}
+
+	public void testSingleNalUnit() {
+		byte[] nal = slice(1, 500, 10);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, process(nal, 3000, 10));
+		assertFrame(nal, 3000);
+		assertSame(nal, output.getData());
+	}
+
+	public void testAggregationPacket() {
+		Buffer input = packet(STAP_A, 3000, 10);
+		assertEquals(Codec.INPUT_BUFFER_NOT_CONSUMED, depacketizer.process(input, output));
+		assertFrame(SPS, 3000);
+		assertEquals(Codec.INPUT_BUFFER_NOT_CONSUMED, depacketizer.process(input, output));
+		assertFrame(PPS, 3000);
+		assertEquals(Codec.BUFFER_PROCESSED_OK, depacketizer.process(input, output));
+		assertTrue(output.isDiscard());
+
+		// The next packet is read from its start
+		output = new Buffer();
+		assertEquals(Codec.INPUT_BUFFER_NOT_CONSUMED, depacketizer.process(packet(STAP_A, 6000, 11),
+				output));
+		assertFrame(SPS, 6000);
+	}
+
+	public void testTruncatedAggregationPacket() {
+		byte[] truncated = new byte[STAP_A.length - 2];
+		System.arraycopy(STAP_A, 0, truncated, 0, truncated.length);
+		Buffer input = packet(truncated, 3000, 10);
+		assertEquals(Codec.INPUT_BUFFER_NOT_CONSUMED, depacketizer.process(input, output));
+		assertFrame(SPS, 3000);
+		assertEquals(Codec.BUFFER_PROCESSED_FAILED, depacketizer.process(input, output));
+
+		// The next packet is read from its start
+		output = new Buffer();
+		assertEquals(Codec.INPUT_BUFFER_NOT_CONSUMED, depacketizer.process(packet(STAP_A, 6000, 11),
+				output));
+		assertFrame(SPS, 6000);
+	}
+
+	public void testPacketizerRoundTrip() {
+		JavaPacketizer packetizer = new JavaPacketizer();
+		byte[] nal = slice(5, 6000, 11);
+		Buffer input = new Buffer();
+		input.setData(nal);
+		input.setLength(nal.length);
+		input.setTimeStamp(9000);
+		Buffer packets = new Buffer();
+		assertEquals(Codec.BUFFER_PROCESSED_OK, packetizer.process(input, packets));
+		assertTrue(packets.getFragmentsSize() > 1);
+
+		// Each payload is received in its own array, in reverse order
+		int result = -1;
+		for (int i = packets.getFragmentsSize() - 1; i >= 0; i--) {
+			Buffer fragment = packets.getFragments()[i];
+			byte[] payload = new byte[fragment.getLength()];
+			System.arraycopy((byte[])fragment.getData(), 0, payload, 0, payload.length);
+			result = process(payload, 9000, 100 + i);
+		}
+		assertEquals(Codec.BUFFER_PROCESSED_OK, result);
+		assertFrame(nal, 9000);
+	}
+}
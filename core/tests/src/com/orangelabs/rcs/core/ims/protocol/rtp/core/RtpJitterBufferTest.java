@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.rtp.core;
+
+import junit.framework.TestCase;
+
+public class RtpJitterBufferTest extends TestCase {
+	private static final long NOW = 1000000;
+
+	private RtpJitterBuffer buffer = new RtpJitterBuffer();
+
+	private static RtpPacket packet(int seqnum) {
+		RtpPacket packet = new RtpPacket();
+		packet.seqnum = seqnum & 0xffff;
+		packet.timestamp = seqnum;
+		return packet;
+	}
+
+	private void add(int... seqnums) {
+		for (int i = 0; i < seqnums.length; i++) {
+			assertTrue("Packet " + seqnums[i] + " refused", buffer.add(packet(seqnums[i])));
+		}
+	}
+
+	/**
+	 * Poll the available packets and returns their 16 bits sequence numbers
+	 */
+	private String pollAll(long now) {
+		StringBuffer result = new StringBuffer();
+		RtpPacket packet;
+		while ((packet = buffer.poll(now)) != null) {
+			if (result.length() > 0) {
+				result.append(',');
+			}
+			result.append(packet.seqnum & 0xffff);
+		}
+		return result.toString();
+	}
+
+	public void testInOrder() {
+		add(10, 11, 12);
+		assertEquals("10,11,12", pollAll(NOW));
+		assertEquals(0, buffer.size());
+		assertEquals(-1, buffer.getWaitingDelay(NOW));
+		assertEquals(0, buffer.getLostPackets());
+	}
+
+	public void testReordering() {
+		add(10, 12, 11, 14, 13);
+		assertEquals("10,11,12,13,14", pollAll(NOW));
+		assertEquals(0, buffer.getLostPackets());
+	}
+
+	public void testExtendedSequenceNumbersIncrease() {
+		add(100, 101);
+		RtpPacket first = buffer.poll(NOW);
+		RtpPacket second = buffer.poll(NOW);
+		assertEquals(first.seqnum + 1, second.seqnum);
+	}
+
+	public void testWrapAround() {
+		add(65533, 65535, 0, 65534, 2, 1);
+		RtpPacket previous = null;
+		StringBuffer order = new StringBuffer();
+		RtpPacket packet;
+		while ((packet = buffer.poll(NOW)) != null) {
+			if (previous != null) {
+				assertEquals(previous.seqnum + 1, packet.seqnum);
+			}
+			order.append(packet.seqnum & 0xffff).append(' ');
+			previous = packet;
+		}
+		assertEquals("65533 65534 65535 0 1 2 ", order.toString());
+	}
+
+	public void testPacketBeforeWrapAfterWrap() {
+		add(65535, 1);
+		assertEquals("65535", pollAll(NOW));
+
+		// The packet before the wrap is still expected
+		add(0);
+		assertEquals("0,1", pollAll(NOW));
+	}
+
+	public void testFirstPacketsReordered() {
+		// A packet preceding the first one received is released first
+		add(5);
+		add(4);
+		assertEquals("4,5", pollAll(NOW));
+		assertFalse(buffer.add(packet(3)));
+		assertEquals(1, buffer.getLatePackets());
+	}
+
+	public void testDuplicate() {
+		add(10, 11);
+		assertFalse(buffer.add(packet(11)));
+		assertEquals("10,11", pollAll(NOW));
+		assertFalse(buffer.add(packet(11)));
+		assertEquals(1, buffer.getLatePackets());
+		assertEquals(0, buffer.size());
+	}
+
+	public void testLatePacket() {
+		add(10, 11, 12);
+		assertEquals("10,11,12", pollAll(NOW));
+		assertFalse(buffer.add(packet(11)));
+		assertEquals(1, buffer.getLatePackets());
+		add(13);
+		assertEquals("13", pollAll(NOW));
+	}
+
+	public void testGapWaitsForPlayoutDelay() {
+		add(10, 12);
+		assertEquals("10", pollAll(NOW));
+
+		// Packet 11 is missing, packet 12 is held
+		assertNull(buffer.poll(NOW));
+		long delay = buffer.getPlayoutDelay();
+		assertEquals(delay, buffer.getWaitingDelay(NOW));
+		assertNull(buffer.poll(NOW + delay - 1));
+		assertEquals(1, buffer.getWaitingDelay(NOW + delay - 1));
+
+		// The missing packet arrives in time
+		add(11);
+		assertEquals(0, buffer.getWaitingDelay(NOW + delay - 1));
+		assertEquals("11,12", pollAll(NOW + delay - 1));
+		assertEquals(0, buffer.getLostPackets());
+	}
+
+	public void testGapSkipped() {
+		add(10, 13);
+		assertEquals("10", pollAll(NOW));
+		assertNull(buffer.poll(NOW));
+		assertEquals("13", pollAll(NOW + buffer.getPlayoutDelay()));
+		assertEquals(2, buffer.getLostPackets());
+
+		// The missing packets are now too late
+		assertFalse(buffer.add(packet(12)));
+		assertEquals(1, buffer.getLatePackets());
+	}
+
+	public void testGapDelayRestartsForNextGap() {
+		add(1, 3, 5);
+		assertEquals("1", pollAll(NOW));
+		assertNull(buffer.poll(NOW));
+		long delay = buffer.getPlayoutDelay();
+		assertEquals("3", pollAll(NOW + delay));
+
+		// The second gap gets its own delay
+		assertNull(buffer.poll(NOW + delay));
+		assertNull(buffer.poll(NOW + 2 * delay - 1));
+		assertEquals("5", pollAll(NOW + 2 * delay));
+		assertEquals(2, buffer.getLostPackets());
+	}
+
+	public void testRingFull() {
+		// The first packet is missing and the ring overflows
+		add(0);
+		assertEquals("0", pollAll(NOW));
+		for (int seqnum = 2; seqnum < 2 + 256; seqnum++) {
+			add(seqnum);
+		}
+		// Packet 1 and no other has been skipped to make room
+		assertEquals(1, buffer.getLostPackets());
+		assertEquals(256, buffer.size());
+		RtpPacket packet = buffer.poll(NOW);
+		assertEquals(2, packet.seqnum & 0xffff);
+	}
+
+	public void testSenderJumpsAhead() {
+		add(10, 11);
+		assertEquals("10,11", pollAll(NOW));
+
+		// The restart is confirmed by the next packet
+		assertFalse(buffer.add(packet(20000)));
+		add(20001, 20002);
+		assertEquals("20001,20002", pollAll(NOW));
+		assertEquals(0, buffer.getLatePackets());
+	}
+
+	public void testSenderJumpsBack() {
+		add(20000, 20001);
+		assertEquals("20000,20001", pollAll(NOW));
+
+		// The sender restarted its sequence: the buffer follows it
+		assertFalse(buffer.add(packet(10)));
+		add(11, 12);
+		assertEquals("11,12", pollAll(NOW));
+
+		// A single stray packet of the previous sequence does not restart it
+		assertFalse(buffer.add(packet(20002)));
+		add(13);
+		assertEquals("13", pollAll(NOW));
+	}
+
+	public void testDepthAdaptation() {
+		buffer.setJitter(0);
+		assertEquals(RtpJitterBuffer.MIN_PLAYOUT_DELAY, buffer.getPlayoutDelay());
+		buffer.setJitter(30);
+		assertEquals(90, buffer.getPlayoutDelay());
+		buffer.setJitter(10000);
+		assertEquals(RtpJitterBuffer.MAX_PLAYOUT_DELAY, buffer.getPlayoutDelay());
+
+		// A larger delay holds a gap longer
+		buffer.setJitter(30);
+		add(1, 3);
+		assertEquals("1", pollAll(NOW));
+		assertNull(buffer.poll(NOW));
+		assertNull(buffer.poll(NOW + 89));
+		assertEquals("3", pollAll(NOW + 90));
+	}
+
+	public void testJitterEstimate() {
+		RtpSource source = new RtpSource(1);
+		source.setClockRate(8000);
+
+		// Regular arrivals: no jitter
+		for (int i = 0; i < 50; i++) {
+			RtpPacket packet = packet(i);
+			packet.timestamp = i * 160;
+			packet.receivedAt = NOW + i * 20;
+			source.receiveRtpPacket(packet);
+		}
+		assertEquals(0, source.getJitterMillis());
+
+		// Arrivals alternately 40 ms late: the estimate converges to 40 ms
+		for (int i = 50; i < 500; i++) {
+			RtpPacket packet = packet(i);
+			packet.timestamp = i * 160;
+			packet.receivedAt = NOW + i * 20 + (i % 2) * 40;
+			source.receiveRtpPacket(packet);
+		}
+		long jitter = source.getJitterMillis();
+		assertTrue("Jitter " + jitter, jitter >= 35 && jitter <= 40);
+
+		buffer.setJitter(jitter);
+		assertEquals(3 * jitter, buffer.getPlayoutDelay());
+	}
+
+	public void testJitterEstimateTimestampWrap() {
+		RtpSource source = new RtpSource(1);
+		source.setClockRate(8000);
+		for (int i = 0; i < 100; i++) {
+			RtpPacket packet = packet(i);
+			packet.timestamp = (0xffffff00L + i * 160) & 0xffffffffL;
+			packet.receivedAt = NOW + i * 20;
+			source.receiveRtpPacket(packet);
+		}
+		assertEquals(0, source.getJitterMillis());
+	}
+}
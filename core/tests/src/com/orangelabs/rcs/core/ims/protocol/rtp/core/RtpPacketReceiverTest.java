@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.protocol.rtp.core;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+
+import junit.framework.TestCase;
+
+import com.orangelabs.rcs.platform.network.NetworkFactory;
+
+public class RtpPacketReceiverTest extends TestCase {
+	private static final int SSRC = 0x12345678;
+
+	private static final int TIMEOUT = 2000;
+
+	private DatagramSocket sender;
+
+	private RtpPacketReceiver receiver;
+
+	private InetAddress localhost;
+
+	private int port;
+
+	protected void setUp() throws Exception {
+		NetworkFactory.loadFactory("com.orangelabs.rcs.platform.network.AndroidNetworkFactory");
+		localhost = InetAddress.getByName("127.0.0.1");
+		DatagramSocket probe = new DatagramSocket(0, localhost);
+		port = probe.getLocalPort();
+		probe.close();
+
+		sender = new DatagramSocket();
+		receiver = new RtpPacketReceiver(port, new RtcpSession(false, 16000));
+		receiver.start();
+	}
+
+	protected void tearDown() throws Exception {
+		receiver.close();
+		sender.close();
+	}
+
+	private static byte[] rtp(int seqnum, int payloadLength) {
+		byte[] data = new byte[12 + payloadLength];
+		data[0] = (byte)0x80;
+		data[1] = 96;
+		data[2] = (byte)(seqnum >> 8);
+		data[3] = (byte)seqnum;
+		data[4] = (byte)(seqnum >> 24);
+		data[5] = (byte)(seqnum >> 16);
+		data[6] = (byte)(seqnum >> 8);
+		data[7] = (byte)seqnum;
+		data[8] = (byte)(SSRC >> 24);
+		data[9] = (byte)(SSRC >> 16);
+		data[10] = (byte)(SSRC >> 8);
+		data[11] = (byte)SSRC;
+		for (int i = 0; i < payloadLength; i++) {
+			data[12 + i] = (byte)(seqnum + i);
+		}
+		return data;
+	}
+
+	private void send(byte[] data) throws Exception {
+		sender.send(new DatagramPacket(data, data.length, localhost, port));
+	}
+
+	private static void assertPayload(int seqnum, int payloadLength, RtpPacket packet) {
+		assertNotNull("Packet " + seqnum + " not received", packet);
+		assertEquals(seqnum & 0xffff, packet.seqnum & 0xffff);
+		assertEquals(SSRC, packet.ssrc);
+		assertEquals(12 + payloadLength, packet.length);
+		assertEquals(payloadLength, packet.payloadlength);
+		assertEquals(payloadLength, packet.data.length);
+		for (int i = 0; i < payloadLength; i++) {
+			assertEquals((byte)(seqnum + i), packet.data[i]);
+		}
+	}
+
+	public void testSlotsReused() throws Exception {
+		// Long and short packets alternate, each slot is reused several times
+		for (int seqnum = 0; seqnum < 10 * RtpPacketReceiver.RING_SIZE; seqnum++) {
+			int payloadLength = seqnum % 2 == 0 ? 1400 : seqnum % 50;
+			send(rtp(seqnum, payloadLength));
+			RtpPacket packet = receiver.readRtpPacket(TIMEOUT);
+			assertPayload(seqnum, payloadLength, packet);
+			receiver.releaseRtpPacket(packet);
+		}
+		assertEquals(0, receiver.getRtpReceptionStats().numBadRtpPkts);
+		assertEquals(10 * RtpPacketReceiver.RING_SIZE, receiver.getRtpReceptionStats().numPackets);
+	}
+
+	public void testPacketRecycled() throws Exception {
+		send(rtp(1, 100));
+		RtpPacket first = receiver.readRtpPacket(TIMEOUT);
+		assertPayload(1, 100, first);
+		receiver.releaseRtpPacket(first);
+		assertNull(first.data);
+
+		send(rtp(2, 10));
+		RtpPacket second = receiver.readRtpPacket(TIMEOUT);
+		assertSame(first, second);
+		assertPayload(2, 10, second);
+	}
+
+	public void testOldestDroppedWhenReaderBehind() throws Exception {
+		int count = 3 * RtpPacketReceiver.RING_SIZE;
+		for (int seqnum = 0; seqnum < count; seqnum++) {
+			send(rtp(seqnum, 20));
+		}
+		Thread.sleep(500);
+
+		// The receiver holds a slot for the next datagram, the newest packets
+		// of the other slots are kept in order
+		int kept = RtpPacketReceiver.RING_SIZE - 1;
+		for (int seqnum = count - kept; seqnum < count; seqnum++) {
+			assertPayload(seqnum, 20, receiver.readRtpPacket(TIMEOUT));
+		}
+		assertNull(receiver.readRtpPacket(200));
+
+		// The ring is still usable
+		send(rtp(count, 20));
+		assertPayload(count, 20, receiver.readRtpPacket(TIMEOUT));
+	}
+
+	public void testSequenceNumberWrap() throws Exception {
+		int previous = -1;
+		for (int seqnum = 65530; seqnum < 65545; seqnum++) {
+			send(rtp(seqnum, 20));
+			RtpPacket packet = receiver.readRtpPacket(TIMEOUT);
+			assertPayload(seqnum, 20, packet);
+			if (previous != -1) {
+				assertEquals(previous + 1, packet.seqnum);
+			}
+			previous = packet.seqnum;
+			receiver.releaseRtpPacket(packet);
+		}
+	}
+
+	public void testInvalidPacketsDropped() throws Exception {
+		// Too short, empty payload type 20 and larger than a slot
+		send(new byte[8]);
+		byte[] empty = rtp(1, 20);
+		empty[1] = 20;
+		send(empty);
+		send(rtp(2, 5000));
+		send(rtp(3, 20));
+		assertPayload(3, 20, receiver.readRtpPacket(TIMEOUT));
+		assertNull(receiver.readRtpPacket(200));
+		assertEquals(1, receiver.getRtpReceptionStats().numBadRtpPkts);
+	}
+}
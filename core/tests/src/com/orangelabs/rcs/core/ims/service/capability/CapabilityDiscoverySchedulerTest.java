@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.service.capability;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class CapabilityDiscoverySchedulerTest extends TestCase {
+	/**
+	 * Sender recording the requests and their date
+	 */
+	private static class RecordingSender implements CapabilityDiscoveryScheduler.RequestSender {
+		final List<String> contacts = new ArrayList<String>();
+
+		final List<Long> dates = new ArrayList<Long>();
+
+		boolean result = true;
+
+		public synchronized boolean sendCapabilityRequest(String contact) {
+			contacts.add(contact);
+			dates.add(System.currentTimeMillis());
+			notifyAll();
+			return result;
+		}
+
+		synchronized int size() {
+			return contacts.size();
+		}
+
+		synchronized boolean awaitSize(int size, long timeout) throws InterruptedException {
+			long end = System.currentTimeMillis() + timeout;
+			while (contacts.size() < size) {
+				long wait = end - System.currentTimeMillis();
+				if (wait <= 0) {
+					return false;
+				}
+				wait(wait);
+			}
+			return true;
+		}
+	}
+
+	private RecordingSender sender;
+
+	private CapabilityDiscoveryScheduler scheduler;
+
+	protected void setUp() {
+		sender = new RecordingSender();
+	}
+
+	protected void tearDown() {
+		scheduler.stop();
+	}
+
+	public void testBurstThenRate() throws InterruptedException {
+		int rate = 20;
+		int burst = 5;
+		scheduler = new CapabilityDiscoveryScheduler(sender, rate, burst);
+		scheduler.start();
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 15; i++) {
+			scheduler.schedule("+3361234560" + i, CapabilityDiscoveryScheduler.PRIORITY_STALE, 0);
+		}
+		assertTrue(sender.awaitSize(15, 5000));
+
+		// The burst is sent at once, then one request per token
+		synchronized (sender) {
+			for (int i = 0; i < sender.dates.size(); i++) {
+				long elapsed = sender.dates.get(i) - start;
+				long earliest = (i < burst) ? 0 : ((i - burst + 1) * 1000L / rate) - 5;
+				assertTrue("request " + i + " sent after " + elapsed + " ms", elapsed >= earliest);
+			}
+			long last = sender.dates.get(sender.dates.size() - 1) - start;
+			assertTrue("last request sent after " + last + " ms", last < 10 * 1000L / rate + 500);
+		}
+		assertEquals(15, scheduler.getSentCount());
+		assertEquals(0, scheduler.getQueueDepth());
+	}
+
+	public void testActiveBeforeBackground() throws InterruptedException {
+		scheduler = new CapabilityDiscoveryScheduler(sender, 10, 1);
+		scheduler.start();
+		scheduler.schedule("background", CapabilityDiscoveryScheduler.PRIORITY_BACKGROUND, 50);
+		scheduler.schedule("stale", CapabilityDiscoveryScheduler.PRIORITY_STALE, 50);
+		scheduler.schedule("active", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 50);
+		assertTrue(sender.awaitSize(3, 2000));
+		synchronized (sender) {
+			assertEquals("active", sender.contacts.get(0));
+			assertEquals("stale", sender.contacts.get(1));
+			assertEquals("background", sender.contacts.get(2));
+		}
+	}
+
+	public void testQueuedRequestsCoalesced() throws InterruptedException {
+		scheduler = new CapabilityDiscoveryScheduler(sender, 10, 1);
+		scheduler.start();
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_BACKGROUND, 200);
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_BACKGROUND, 200);
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 200);
+		assertEquals(1, scheduler.getQueueDepth());
+		assertEquals(1, scheduler.getQueueDepth(CapabilityDiscoveryScheduler.PRIORITY_ACTIVE));
+		assertEquals(0, scheduler.getQueueDepth(CapabilityDiscoveryScheduler.PRIORITY_BACKGROUND));
+		assertTrue(sender.awaitSize(1, 2000));
+		assertEquals(3, scheduler.getRequestCount());
+		assertEquals(2, scheduler.getCoalescedCount());
+	}
+
+	public void testInProgressRequestCoalesced() throws InterruptedException {
+		scheduler = new CapabilityDiscoveryScheduler(sender, 100, 10);
+		scheduler.start();
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+		assertTrue(sender.awaitSize(1, 2000));
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+		assertFalse(sender.awaitSize(2, 200));
+		assertEquals(1, scheduler.getInProgressCount());
+
+		// Once terminated, a new request is sent
+		scheduler.requestTerminated("contact");
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+		assertTrue(sender.awaitSize(2, 2000));
+	}
+
+	public void testActiveRequestNotCoalescedWithBackground() throws InterruptedException {
+		scheduler = new CapabilityDiscoveryScheduler(sender, 100, 10);
+		scheduler.start();
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_BACKGROUND, 0);
+		assertTrue(sender.awaitSize(1, 2000));
+
+		// A contact in use is requested again, not left to the periodic refresh
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+		assertTrue(sender.awaitSize(2, 2000));
+		assertEquals(0, scheduler.getCoalescedCount());
+
+		// The active request in progress covers the next requests
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_STALE, 0);
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+		assertFalse(sender.awaitSize(3, 200));
+		assertEquals(2, scheduler.getCoalescedCount());
+	}
+
+	public void testFailedRequestNotInProgress() throws InterruptedException {
+		sender.result = false;
+		scheduler = new CapabilityDiscoveryScheduler(sender, 100, 10);
+		scheduler.start();
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+		assertTrue(sender.awaitSize(1, 2000));
+
+		// The request is terminated once the sender has returned
+		long end = System.currentTimeMillis() + 2000;
+		while ((scheduler.getInProgressCount() > 0) && (System.currentTimeMillis() < end)) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, scheduler.getInProgressCount());
+		scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0);
+		assertTrue(sender.awaitSize(2, 2000));
+	}
+
+	public void testStopped() {
+		scheduler = new CapabilityDiscoveryScheduler(sender);
+		assertFalse(scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0));
+		scheduler.start();
+		scheduler.stop();
+		assertFalse(scheduler.schedule("contact", CapabilityDiscoveryScheduler.PRIORITY_ACTIVE, 0));
+		assertEquals(0, sender.size());
+	}
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.service.presence.xdm;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.orangelabs.rcs.core.ims.protocol.http.HttpGetRequest;
+import com.orangelabs.rcs.core.ims.protocol.http.HttpPutRequest;
+import com.orangelabs.rcs.core.ims.protocol.http.HttpResponse;
+import com.orangelabs.rcs.platform.network.NetworkFactory;
+
+public class XcapClientTest extends TestCase {
+	private static final String DOCUMENT = "/resource-lists/users/sip:+33600000000@domain/index";
+
+	private XcapStubServer server;
+
+	private XcapClient client;
+
+	protected void setUp() throws Exception {
+		NetworkFactory.loadFactory("com.orangelabs.rcs.platform.network.AndroidNetworkFactory");
+		server = new XcapStubServer();
+		client = new XcapClient(server.getAddress());
+	}
+
+	protected void tearDown() {
+		client.close();
+		server.close();
+	}
+
+	private static String response(String headers, String body) {
+		return "HTTP/1.1 200 OK\r\n" + headers + "Content-Length: " + body.length() + "\r\n\r\n" + body;
+	}
+
+	public void testConnectionKeptAlive() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			server.addResponse(response("", "<list" + i + "/>"));
+			HttpResponse response = client.sendRequest(new HttpGetRequest(DOCUMENT + i), "");
+			assertEquals(200, response.getResponseCode());
+			assertEquals("<list" + i + "/>", new String(response.getContent()));
+		}
+		assertEquals(3, server.getRequestCount());
+		assertEquals(1, server.getConnectionCount());
+		assertEquals(1, client.getConnectionCount());
+	}
+
+	public void testConnectionClosedByServer() throws IOException {
+		server.addResponse("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n");
+		client.sendRequest(new HttpGetRequest(DOCUMENT), "");
+		client.sendRequest(new HttpGetRequest(DOCUMENT + "2"), "");
+		assertEquals(2, server.getConnectionCount());
+	}
+
+	public void testChunkedContent() throws IOException {
+		server.addResponse("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+				+ "5\r\n<list\r\n3;ext=1\r\n/>\n\r\n0\r\nX-Trailer: 1\r\n\r\n");
+		HttpResponse response = client.sendRequest(new HttpGetRequest(DOCUMENT), "");
+		assertEquals("<list/>\n", new String(response.getContent()));
+
+		// The connection is reused after the trailers
+		client.sendRequest(new HttpGetRequest(DOCUMENT + "2"), "");
+		assertEquals(1, server.getConnectionCount());
+	}
+
+	public void testCachedResponse() throws IOException {
+		server.addResponse(response("ETag: \"1\"\r\n", "<list/>"));
+		HttpResponse first = client.sendRequest(new HttpGetRequest(DOCUMENT), "");
+		assertSame(first, client.sendRequest(new HttpGetRequest(DOCUMENT), ""));
+		assertEquals(1, server.getRequestCount());
+		assertEquals(1, client.getCacheHitCount());
+
+		// A modification of the document forgets its cached nodes
+		client.sendRequest(new HttpPutRequest(DOCUMENT + "/~~/resource-lists/list", "<list/>", "application/xcap-el+xml"), "");
+		client.sendRequest(new HttpGetRequest(DOCUMENT), "");
+		assertEquals(3, server.getRequestCount());
+	}
+
+	private void assertBadResponseClosesConnection(String badResponse) throws Exception {
+		server.addResponse(badResponse);
+		try {
+			client.sendRequest(new HttpGetRequest(DOCUMENT), "");
+			fail("IOException expected");
+		} catch (IOException e) {
+			// Expected
+		}
+		assertTrue(server.awaitClosed(1, 2000));
+
+		// The next request is sent on a new connection
+		client.sendRequest(new HttpGetRequest(DOCUMENT + "2"), "");
+		assertEquals(2, server.getConnectionCount());
+	}
+
+	public void testBadContentLength() throws Exception {
+		assertBadResponseClosesConnection("HTTP/1.1 200 OK\r\nContent-Length: 12a\r\n\r\n");
+	}
+
+	public void testNegativeContentLength() throws Exception {
+		assertBadResponseClosesConnection("HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n");
+	}
+
+	public void testBadChunkSize() throws Exception {
+		assertBadResponseClosesConnection("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n");
+	}
+
+	public void testBadServerAddress() {
+		try {
+			new XcapClient("http://host").sendRequest(new HttpGetRequest(DOCUMENT), "");
+			fail("IOException expected");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+}
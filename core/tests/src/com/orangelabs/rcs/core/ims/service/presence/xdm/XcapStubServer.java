@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.core.ims.service.presence.xdm;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.LinkedList;
+
+/**
+ * Local HTTP server answering each request with the next queued response,
+ * or with the default response once the queue is empty
+ */
+class XcapStubServer implements Runnable {
+	private final ServerSocket server;
+
+	private final LinkedList<String> responses = new LinkedList<String>();
+
+	private String defaultResponse = "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n";
+
+	private int connectionCount = 0;
+
+	private int requestCount = 0;
+
+	private int closedCount = 0;
+
+	XcapStubServer() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		Thread thread = new Thread(this, "XcapStubServer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns the XCAP server address to be given to the client
+	 *
+	 * @return Address
+	 */
+	String getAddress() {
+		return "http://127.0.0.1:" + server.getLocalPort() + "/services";
+	}
+
+	synchronized void addResponse(String response) {
+		responses.add(response);
+	}
+
+	synchronized void setDefaultResponse(String response) {
+		defaultResponse = response;
+	}
+
+	synchronized int getConnectionCount() {
+		return connectionCount;
+	}
+
+	synchronized int getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * Wait until a given number of connections have been closed by the client
+	 *
+	 * @param count Number of connections
+	 * @param timeout Timeout in milliseconds
+	 * @return Returns false on timeout
+	 * @throws InterruptedException
+	 */
+	synchronized boolean awaitClosed(int count, long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeout;
+		while (closedCount < count) {
+			long wait = end - System.currentTimeMillis();
+			if (wait <= 0) {
+				return false;
+			}
+			wait(wait);
+		}
+		return true;
+	}
+
+	void close() {
+		try {
+			server.close();
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+
+	public void run() {
+		while (true) {
+			final Socket socket;
+			try {
+				socket = server.accept();
+			} catch (IOException e) {
+				return;
+			}
+			synchronized (this) {
+				connectionCount++;
+			}
+			Thread thread = new Thread("XcapStubConnection") {
+				public void run() {
+					serve(socket);
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	private void serve(Socket socket) {
+		try {
+			InputStream is = new BufferedInputStream(socket.getInputStream());
+			OutputStream os = socket.getOutputStream();
+			while (readRequest(is)) {
+				String response;
+				synchronized (this) {
+					requestCount++;
+					response = responses.isEmpty() ? defaultResponse : responses.removeFirst();
+				}
+				os.write(response.getBytes("UTF-8"));
+				os.flush();
+				if (response.contains("Connection: close")) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// Closed
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Nothing to do
+			}
+			synchronized (this) {
+				closedCount++;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Read a request and skip its content
+	 *
+	 * @param is Input stream
+	 * @return Returns false if the connection has been closed by the client
+	 * @throws IOException
+	 */
+	private static boolean readRequest(InputStream is) throws IOException {
+		int length = 0;
+		StringBuilder line = new StringBuilder();
+		while (true) {
+			int ch = is.read();
+			if (ch == -1) {
+				return false;
+			}
+			if (ch != '\n') {
+				if (ch != '\r') {
+					line.append((char) ch);
+				}
+				continue;
+			}
+			if (line.length() == 0) {
+				break;
+			}
+			String header = line.toString().toLowerCase();
+			if (header.startsWith("content-length:")) {
+				length = Integer.parseInt(header.substring(15).trim());
+			}
+			line.setLength(0);
+		}
+		for (int i = 0; i < length; i++) {
+			if (is.read() == -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
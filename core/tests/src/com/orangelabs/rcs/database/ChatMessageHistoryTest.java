@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.database;
+
+import android.database.Cursor;
+import android.test.AndroidTestCase;
+
+import com.gsma.services.rcs.chat.ChatLog;
+import com.gsma.services.rcs.chat.ParticipantInfo;
+import com.orangelabs.rcs.core.ims.service.im.chat.InstantMessage;
+import com.orangelabs.rcs.core.ims.service.im.chat.event.User;
+import com.orangelabs.rcs.core.ims.service.im.chat.imdn.ImdnDocument;
+import com.orangelabs.rcs.provider.messaging.RichMessagingHistory;
+
+public class ChatMessageHistoryTest extends AndroidTestCase {
+	private static final String CONTACT = "+339000000";
+
+	private String chatId;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		RichMessagingHistory.createInstance(mContext);
+		chatId = "chat" + System.currentTimeMillis();
+	}
+
+	protected void tearDown() throws Exception {
+		RichMessagingHistory.getInstance().flush();
+		mContext.getContentResolver().delete(ChatLog.Message.CONTENT_URI,
+				ChatLog.Message.CHAT_ID + " = '" + chatId + "'", null);
+		super.tearDown();
+	}
+
+	private void addMessage(String msgId) {
+		InstantMessage msg = new InstantMessage(msgId, CONTACT, "hello", false, null);
+		RichMessagingHistory.getInstance().addGroupChatMessage(chatId, msg, ChatLog.Message.Direction.OUTGOING);
+	}
+
+	/**
+	 * Read the status of a message from the provider
+	 *
+	 * @param msgId Message ID
+	 * @return Status or -1 if the message is not found
+	 */
+	private int readStatus(String msgId) {
+		Cursor cursor = mContext.getContentResolver().query(ChatLog.Message.CONTENT_URI,
+				new String[] { ChatLog.Message.MESSAGE_STATUS },
+				ChatLog.Message.MESSAGE_ID + " = '" + msgId + "'",
+				null,
+				null);
+		try {
+			if (!cursor.moveToFirst()) {
+				return -1;
+			}
+			return cursor.getInt(0);
+		} finally {
+			cursor.close();
+		}
+	}
+
+	public void testQueuedMessageIsNotNew() {
+		addMessage("msg1");
+		assertFalse(RichMessagingHistory.getInstance().isNewMessage(chatId, "msg1"));
+		assertTrue(RichMessagingHistory.getInstance().isNewMessage(chatId, "msg2"));
+		RichMessagingHistory.getInstance().flush();
+		assertFalse(RichMessagingHistory.getInstance().isNewMessage(chatId, "msg1"));
+	}
+
+	public void testProviderReadsQueuedMessages() {
+		addMessage("msg1");
+		assertEquals(ChatLog.Message.Status.Content.SENT, readStatus("msg1"));
+	}
+
+	public void testStatusWrittenAfterInsert() {
+		addMessage("msg1");
+		RichMessagingHistory.getInstance().updateChatMessageDeliveryStatus("msg1",
+				ImdnDocument.DELIVERY_STATUS_DISPLAYED, CONTACT);
+		assertEquals(ChatLog.Message.Status.Content.READ, readStatus("msg1"));
+	}
+
+	public void testSystemMessageRead() {
+		RichMessagingHistory.getInstance().addGroupChatSystemMessage(chatId, CONTACT,
+				ParticipantInfo.Status.BUSY);
+		assertFalse(RichMessagingHistory.getInstance().hasLastKnownStateForParticipantChanged(chatId, CONTACT,
+				User.STATE_BUSY));
+		assertTrue(RichMessagingHistory.getInstance().getGroupChatConnectedParticipants(chatId).contains(CONTACT));
+	}
+}
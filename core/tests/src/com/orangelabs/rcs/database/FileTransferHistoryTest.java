@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.database;
+
+import android.database.Cursor;
+import android.test.AndroidTestCase;
+
+import com.gsma.services.rcs.ft.FileTransfer;
+import com.gsma.services.rcs.ft.FileTransferLog;
+import com.orangelabs.rcs.core.content.MmContent;
+import com.orangelabs.rcs.provider.messaging.RichMessagingHistory;
+
+public class FileTransferHistoryTest extends AndroidTestCase {
+	private String sessionId;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		RichMessagingHistory.createInstance(mContext);
+		sessionId = "" + System.currentTimeMillis();
+		MmContent content = new MmContent("file.jpg", "image/jpeg", 1000);
+		RichMessagingHistory.getInstance().addFileTransfer("+339000000", sessionId,
+				FileTransfer.Direction.INCOMING, content);
+	}
+
+	protected void tearDown() throws Exception {
+		RichMessagingHistory.getInstance().flush();
+		mContext.getContentResolver().delete(FileTransferLog.CONTENT_URI,
+				FileTransferLog.FT_ID + " = '" + sessionId + "'", null);
+		super.tearDown();
+	}
+
+	/**
+	 * Read the state and the transferred size of the file transfer
+	 *
+	 * @return State and size
+	 */
+	private long[] read() {
+		Cursor cursor = mContext.getContentResolver().query(FileTransferLog.CONTENT_URI,
+				new String[] {
+					FileTransferLog.STATE,
+					FileTransferLog.TRANSFERRED
+				},
+				FileTransferLog.FT_ID + " = '" + sessionId + "'",
+				null,
+				null);
+		try {
+			assertEquals(1, cursor.getCount());
+			assertTrue(cursor.moveToFirst());
+			return new long[] { cursor.getInt(0), cursor.getLong(1) };
+		} finally {
+			cursor.close();
+		}
+	}
+
+	public void testInsertWrittenAtOnce() {
+		assertEquals(FileTransfer.State.INVITED, read()[0]);
+	}
+
+	public void testStatusWrittenAtOnce() {
+		RichMessagingHistory.getInstance().updateFileTransferStatus(sessionId, FileTransfer.State.STARTED);
+		assertEquals(FileTransfer.State.STARTED, read()[0]);
+	}
+
+	public void testLastProgressWrittenOnFlush() {
+		RichMessagingHistory.getInstance().updateFileTransferProgress(sessionId, 100, 1000);
+		RichMessagingHistory.getInstance().updateFileTransferProgress(sessionId, 200, 1000);
+		RichMessagingHistory.getInstance().updateFileTransferProgress(sessionId, 300, 1000);
+		RichMessagingHistory.getInstance().flush();
+		long[] row = read();
+		assertEquals(FileTransfer.State.STARTED, row[0]);
+		assertEquals(300, row[1]);
+	}
+
+	public void testProgressWrittenAfterDelay() throws InterruptedException {
+		RichMessagingHistory.getInstance().updateFileTransferProgress(sessionId, 500, 1000);
+		Thread.sleep(1000);
+		assertEquals(500, read()[1]);
+	}
+
+	public void testStatusNotOverwrittenByProgress() throws InterruptedException {
+		RichMessagingHistory.getInstance().updateFileTransferProgress(sessionId, 1000, 1000);
+		RichMessagingHistory.getInstance().updateFileTransferStatus(sessionId, FileTransfer.State.TRANSFERRED);
+		long[] row = read();
+		assertEquals(FileTransfer.State.TRANSFERRED, row[0]);
+		assertEquals(1000, row[1]);
+
+		// The progress queued before the status is not written after it
+		Thread.sleep(1000);
+		assertEquals(FileTransfer.State.TRANSFERRED, read()[0]);
+	}
+}
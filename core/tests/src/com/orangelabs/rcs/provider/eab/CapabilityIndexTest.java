@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.provider.eab;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import com.orangelabs.rcs.core.ims.service.ContactInfo;
+import com.orangelabs.rcs.core.ims.service.capability.Capabilities;
+
+public class CapabilityIndexTest extends TestCase {
+	private CapabilityIndex index;
+
+	protected void setUp() {
+		index = new CapabilityIndex(3);
+	}
+
+	private static Capabilities capabilities(long timestamp) {
+		Capabilities capabilities = new Capabilities();
+		capabilities.setImSessionSupport(true);
+		capabilities.setTimestamp(timestamp);
+		return capabilities;
+	}
+
+	private void put(String contact, long timestamp) {
+		assertTrue(index.put(contact, ContactInfo.RCS_CAPABLE, capabilities(timestamp), index.getGeneration()));
+	}
+
+	public void testLookup() {
+		assertNull(index.get("+33600000001"));
+		put("+33600000001", 10);
+		CapabilityIndex.Entry entry = index.get("+33600000001");
+		assertEquals(ContactInfo.RCS_CAPABLE, entry.getRcsStatus());
+		assertTrue(entry.getCapabilities().isImSessionSupported());
+		assertEquals(10, entry.getCapabilities().getTimestamp());
+		assertEquals(1, index.getHitCount());
+		assertEquals(1, index.getMissCount());
+	}
+
+	public void testCapabilitiesCopied() {
+		Capabilities capabilities = capabilities(10);
+		index.put("+33600000001", ContactInfo.RCS_CAPABLE, capabilities, index.getGeneration());
+
+		// Neither the indexed capabilities nor the returned ones are shared
+		capabilities.setImSessionSupport(false);
+		index.get("+33600000001").getCapabilities().setFileTransferSupport(true);
+		Capabilities indexed = index.get("+33600000001").getCapabilities();
+		assertTrue(indexed.isImSessionSupported());
+		assertFalse(indexed.isFileTransferSupported());
+	}
+
+	public void testNoInfoHasNoCapabilities() {
+		index.put("+33600000001", ContactInfo.NO_INFO, capabilities(10), index.getGeneration());
+		CapabilityIndex.Entry entry = index.get("+33600000001");
+		assertEquals(ContactInfo.NO_INFO, entry.getRcsStatus());
+		assertNull(entry.getCapabilities());
+	}
+
+	public void testLeastRecentlyUsedEvicted() {
+		put("+33600000001", 1);
+		put("+33600000002", 2);
+		put("+33600000003", 3);
+		assertNotNull(index.get("+33600000001"));
+		put("+33600000004", 4);
+		assertEquals(3, index.size());
+		assertNull(index.get("+33600000002"));
+		assertNotNull(index.get("+33600000001"));
+		assertNotNull(index.get("+33600000003"));
+		assertNotNull(index.get("+33600000004"));
+	}
+
+	public void testReadRacingWithRemoveNotIndexed() {
+		put("+33600000001", 1);
+		long generation = index.getGeneration();
+
+		// A writer removes a contact while the provider is read
+		index.remove("+33600000001");
+		assertFalse(index.put("+33600000001", ContactInfo.RCS_CAPABLE, capabilities(1), generation));
+		assertNull(index.get("+33600000001"));
+
+		// The next read is indexed
+		put("+33600000001", 2);
+		assertEquals(2, index.get("+33600000001").getCapabilities().getTimestamp());
+	}
+
+	public void testDirtyTimestamps() {
+		put("+33600000001", 1);
+		assertEquals(1, index.setTimestamp("+33600000001", 100));
+		assertEquals(2, index.setTimestamp("+33600000002", 200));
+		assertEquals(100, index.get("+33600000001").getCapabilities().getTimestamp());
+		assertEquals(Long.valueOf(200), index.getDirtyTimestamp("+33600000002"));
+
+		// A contact read from the provider gets its dirty timestamp
+		put("+33600000002", 2);
+		assertEquals(200, index.get("+33600000002").getCapabilities().getTimestamp());
+
+		index.clearDirtyTimestamp("+33600000002");
+		assertNull(index.getDirtyTimestamp("+33600000002"));
+		Map<String, Long> dirty = index.getDirtyTimestamps();
+		assertEquals(1, dirty.size());
+		assertEquals(Long.valueOf(100), dirty.get("+33600000001"));
+		index.clearDirtyTimestamps(dirty);
+		assertTrue(index.getDirtyTimestamps().isEmpty());
+	}
+
+	public void testDirtyTimestampsKeptUntilWritten() {
+		index.setTimestamp("+33600000001", 100);
+		index.setTimestamp("+33600000002", 200);
+		Map<String, Long> dirty = index.getDirtyTimestamps();
+
+		// A contact read from the provider before the write gets its dirty timestamp
+		long generation = index.getGeneration();
+		assertTrue(index.put("+33600000001", ContactInfo.RCS_CAPABLE, capabilities(1), generation));
+		assertEquals(100, index.get("+33600000001").getCapabilities().getTimestamp());
+
+		// A timestamp set again during the write stays dirty
+		index.setTimestamp("+33600000002", 300);
+		index.clearDirtyTimestamps(dirty);
+		assertNull(index.getDirtyTimestamp("+33600000001"));
+		assertEquals(Long.valueOf(300), index.getDirtyTimestamp("+33600000002"));
+
+		// A read started before the write is not indexed
+		assertFalse(index.put("+33600000001", ContactInfo.RCS_CAPABLE, capabilities(1), generation));
+	}
+
+	public void testClear() {
+		put("+33600000001", 1);
+		index.setTimestamp("+33600000001", 100);
+		long generation = index.getGeneration();
+		index.clear();
+		assertEquals(0, index.size());
+		assertNull(index.getDirtyTimestamp("+33600000001"));
+		assertFalse(index.put("+33600000001", ContactInfo.RCS_CAPABLE, capabilities(1), generation));
+	}
+}
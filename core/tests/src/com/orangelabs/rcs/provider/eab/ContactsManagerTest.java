@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.provider.eab;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.net.Uri;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.RawContacts;
+import android.test.AndroidTestCase;
+
+public class ContactsManagerTest extends AndroidTestCase {
+	/**
+	 * More numbers than the arguments of a batched query
+	 */
+	private static final int NB_NUMBERS = ContactsManager.MAX_QUERY_ARGS + 100;
+
+	private static final String NUMBER_PREFIX = "+3369900";
+
+	private ContentResolver cr;
+
+	private List<Long> rawContactIds = new ArrayList<Long>();
+
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ContactsManager.createInstance(mContext);
+		cr = mContext.getContentResolver();
+	}
+
+	protected void tearDown() throws Exception {
+		String where = " LIKE '" + NUMBER_PREFIX + "%'";
+		cr.delete(RichAddressBookData.CONTENT_URI, RichAddressBookData.KEY_CONTACT_NUMBER + where, null);
+		cr.delete(AggregationData.CONTENT_URI, AggregationData.KEY_RCS_NUMBER + where, null);
+		Uri uri = RawContacts.CONTENT_URI.buildUpon()
+				.appendQueryParameter(ContactsContract.CALLER_IS_SYNCADAPTER, "true").build();
+		for (int i = 0; i < rawContactIds.size(); i++) {
+			cr.delete(ContentUris.withAppendedId(uri, rawContactIds.get(i)), null, null);
+		}
+		super.tearDown();
+	}
+
+	private static String number(int i) {
+		return NUMBER_PREFIX + String.format("%04d", i);
+	}
+
+	private void addEabNumber(String number) {
+		ContentValues values = new ContentValues();
+		values.put(RichAddressBookData.KEY_CONTACT_NUMBER, number);
+		// No photo file
+		values.put(RichAddressBookData.KEY_PRESENCE_PHOTO_DATA, "");
+		cr.insert(RichAddressBookData.CONTENT_URI, values);
+	}
+
+	private void addAggregation(String number, long rawContactId) {
+		ContentValues values = new ContentValues();
+		values.put(AggregationData.KEY_RCS_NUMBER, number);
+		values.put(AggregationData.KEY_RAW_CONTACT_ID, rawContactId);
+		values.put(AggregationData.KEY_RCS_RAW_CONTACT_ID, rawContactId + 1);
+		cr.insert(AggregationData.CONTENT_URI, values);
+	}
+
+	private long addRawContact(String accountType, String accountName) {
+		ContentValues values = new ContentValues();
+		values.put(RawContacts.ACCOUNT_TYPE, accountType);
+		values.put(RawContacts.ACCOUNT_NAME, accountName);
+		long id = ContentUris.parseId(cr.insert(RawContacts.CONTENT_URI, values));
+		rawContactIds.add(id);
+		return id;
+	}
+
+	public void testRcsAssociatedNumbers() {
+		Set<String> numbers = new HashSet<String>();
+		Set<String> expected = new HashSet<String>();
+		for (int i = 0; i < 2 * NB_NUMBERS; i++) {
+			numbers.add(number(i));
+			if (i % 2 == 0) {
+				addEabNumber(number(i));
+				expected.add(number(i));
+			}
+		}
+		assertEquals(expected, ContactsManager.getInstance().getRcsAssociatedNumbers(numbers));
+		assertTrue(ContactsManager.getInstance().getRcsAssociatedNumbers(new HashSet<String>()).isEmpty());
+	}
+
+	public void testAssociatedRawContacts() {
+		Set<String> numbers = new HashSet<String>();
+		for (int i = 0; i < NB_NUMBERS; i++) {
+			numbers.add(number(i));
+			addAggregation(number(i), 1000 + 2 * i);
+		}
+		// A number of two raw contacts
+		addAggregation(number(0), 9000);
+
+		// A number without raw contact
+		numbers.add(number(NB_NUMBERS));
+
+		Map<String, Set<Long>> associations = ContactsManager.getInstance().getAssociatedRawContacts(numbers);
+		assertEquals(NB_NUMBERS, associations.size());
+		Set<Long> ids = new HashSet<Long>();
+		ids.add(1000L);
+		ids.add(9000L);
+		assertEquals(ids, associations.get(number(0)));
+		ids.clear();
+		ids.add(1000L + 2 * (NB_NUMBERS - 1));
+		assertEquals(ids, associations.get(number(NB_NUMBERS - 1)));
+		assertNull(associations.get(number(NB_NUMBERS)));
+	}
+
+	public void testSimAccounts() {
+		long simId = addRawContact(ContactsManager.SIM_ACCOUNT_NAME, "SIM");
+		long phoneId = addRawContact(null, null);
+
+		// The raw contacts are checked after more than a batch of unknown IDs
+		List<Long> ids = new ArrayList<Long>();
+		for (int i = 0; i < NB_NUMBERS; i++) {
+			ids.add(Long.MAX_VALUE - i);
+		}
+		ids.add(phoneId);
+		ids.add(simId);
+
+		Set<Long> expected = new HashSet<Long>();
+		expected.add(simId);
+		assertEquals(expected, ContactsManager.getInstance().getSimAccounts(ids));
+		assertTrue(ContactsManager.getInstance().getSimAccounts(new HashSet<Long>()).isEmpty());
+	}
+}
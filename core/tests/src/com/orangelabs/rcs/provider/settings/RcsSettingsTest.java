@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.provider.settings;
+
+import java.util.HashMap;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+public class RcsSettingsTest extends AndroidTestCase {
+	private static final String TAG = "RcsSettingsTest";
+
+	/**
+	 * Delay given to the provider to notify a change
+	 */
+	private static final long NOTIFICATION_DELAY = 1000;
+
+	private static final int NB_READS = 1000;
+
+	private RcsSettings settings;
+
+	private String freetext1;
+
+	private String freetext2;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		RcsSettings.createInstance(mContext);
+		settings = RcsSettings.getInstance();
+		freetext1 = settings.readParameter(RcsSettingsData.FREETEXT1);
+		freetext2 = settings.readParameter(RcsSettingsData.FREETEXT2);
+		Thread.sleep(NOTIFICATION_DELAY);
+	}
+
+	protected void tearDown() throws Exception {
+		settings.writeParameter(RcsSettingsData.FREETEXT1, freetext1);
+		settings.writeParameter(RcsSettingsData.FREETEXT2, freetext2);
+		super.tearDown();
+	}
+
+	/**
+	 * Write a parameter as another writer would
+	 */
+	private void writeFromProvider(String key, String value) {
+		ContentValues values = new ContentValues();
+		values.put(RcsSettingsData.KEY_VALUE, value);
+		mContext.getContentResolver().update(RcsSettingsData.CONTENT_URI, values,
+				RcsSettingsData.KEY_KEY + "='" + key + "'", null);
+	}
+
+	/**
+	 * Read a parameter from the provider, as before the snapshot
+	 */
+	private String readFromProvider(String key) {
+		String result = null;
+		Cursor c = mContext.getContentResolver().query(RcsSettingsData.CONTENT_URI,
+				new String[] { RcsSettingsData.KEY_VALUE },
+				RcsSettingsData.KEY_KEY + "='" + key + "'", null, null);
+		if (c != null) {
+			if (c.moveToFirst()) {
+				result = c.getString(0);
+			}
+			c.close();
+		}
+		return result;
+	}
+
+	/**
+	 * Wait until the snapshot gives the expected value
+	 */
+	private void assertEventually(String key, String expected) throws InterruptedException {
+		long end = System.currentTimeMillis() + NOTIFICATION_DELAY;
+		while (!expected.equals(settings.readParameter(key)) && (System.currentTimeMillis() < end)) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, settings.readParameter(key));
+	}
+
+	public void testOwnWriteKeepsSnapshot() throws Exception {
+		int loads = settings.getLoadCount();
+		settings.writeParameter(RcsSettingsData.FREETEXT1, "own write");
+		assertEquals("own write", settings.readParameter(RcsSettingsData.FREETEXT1));
+		Thread.sleep(NOTIFICATION_DELAY);
+		assertEquals("own write", settings.readParameter(RcsSettingsData.FREETEXT1));
+		assertEquals(loads, settings.getLoadCount());
+	}
+
+	public void testOwnBatchKeepsSnapshot() throws Exception {
+		int loads = settings.getLoadCount();
+		HashMap<String, String> parameters = new HashMap<String, String>();
+		parameters.put(RcsSettingsData.FREETEXT1, "batch 1");
+		parameters.put(RcsSettingsData.FREETEXT2, "batch 2");
+		assertEquals(2, settings.writeParameters(parameters));
+		Thread.sleep(NOTIFICATION_DELAY);
+		assertEquals("batch 1", settings.readParameter(RcsSettingsData.FREETEXT1));
+		assertEquals("batch 2", settings.readParameter(RcsSettingsData.FREETEXT2));
+		assertEquals(loads, settings.getLoadCount());
+	}
+
+	public void testOtherWriterInvalidatesSnapshot() throws Exception {
+		writeFromProvider(RcsSettingsData.FREETEXT1, "other writer");
+		assertEventually(RcsSettingsData.FREETEXT1, "other writer");
+	}
+
+	public void testWritersInterleaved() throws Exception {
+		// The notifications of both writers are received in any order
+		writeFromProvider(RcsSettingsData.FREETEXT1, "other writer");
+		settings.writeParameter(RcsSettingsData.FREETEXT2, "own write");
+		assertEventually(RcsSettingsData.FREETEXT1, "other writer");
+		assertEquals("own write", settings.readParameter(RcsSettingsData.FREETEXT2));
+
+		settings.writeParameter(RcsSettingsData.FREETEXT2, "own write 2");
+		writeFromProvider(RcsSettingsData.FREETEXT1, "other writer 2");
+		assertEventually(RcsSettingsData.FREETEXT1, "other writer 2");
+		assertEquals("own write 2", settings.readParameter(RcsSettingsData.FREETEXT2));
+	}
+
+	public void testReadCost() {
+		String expected = settings.readParameter(RcsSettingsData.FREETEXT1);
+		long start = System.nanoTime();
+		for (int i = 0; i < NB_READS; i++) {
+			assertEquals(expected, readFromProvider(RcsSettingsData.FREETEXT1));
+		}
+		long query = (System.nanoTime() - start) / NB_READS;
+
+		start = System.nanoTime();
+		for (int i = 0; i < NB_READS; i++) {
+			assertEquals(expected, settings.readParameter(RcsSettingsData.FREETEXT1));
+		}
+		long snapshot = (System.nanoTime() - start) / NB_READS;
+
+		Log.i(TAG, "ns per read: provider query " + query + ", snapshot " + snapshot);
+		assertTrue(snapshot < query);
+	}
+}
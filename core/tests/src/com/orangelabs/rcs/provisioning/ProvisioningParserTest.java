@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.provisioning;
+
+import android.test.AndroidTestCase;
+
+import com.orangelabs.rcs.provider.settings.RcsSettings;
+import com.orangelabs.rcs.provider.settings.RcsSettingsData;
+
+public class ProvisioningParserTest extends AndroidTestCase {
+	private static final String VERSION = "<characteristic type=\"VERS\">"
+			+ "<parm name=\"version\" value=\"15\"/>"
+			+ "<parm name=\"validity\" value=\"172800\"/>"
+			+ "</characteristic>";
+
+	private static final String DOCUMENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<wap-provisioningdoc version=\"1.1\">"
+			+ VERSION
+			+ "<characteristic type=\"TOKEN\">"
+			+ "<parm name=\"token\" value=\"abc\"/>"
+			+ "</characteristic>"
+			+ "<characteristic type=\"APPLICATION\">"
+			+ "<parm name=\"AppID\" value=\"ap2001\"/>"
+			+ "<parm name=\"Name\" value=\"IMS Settings\"/>"
+			+ "<parm name=\"AppRef\" value=\"IMS-Settings\"/>"
+			+ "<parm name=\"Home_network_domain_name\" value=\"test.domain\"/>"
+			+ "</characteristic>"
+			+ "<characteristic type=\"OTHER\">"
+			+ "<parm name=\"deviceID\" value=\"0\"/>"
+			+ "</characteristic>"
+			+ "</wap-provisioningdoc>";
+
+	private RcsSettings settings;
+
+	private String savedDomain;
+
+	private String savedDeviceId;
+
+	private String savedVersion;
+
+	private int savedRelease;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		RcsSettings.createInstance(mContext);
+		settings = RcsSettings.getInstance();
+		savedDomain = settings.readParameter(RcsSettingsData.USERPROFILE_IMS_HOME_DOMAIN);
+		savedDeviceId = settings.readParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID);
+		savedVersion = settings.getProvisioningVersion();
+		savedRelease = settings.getGsmaRelease();
+		settings.writeParameter(RcsSettingsData.USERPROFILE_IMS_HOME_DOMAIN, "old.domain");
+		settings.writeParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID, RcsSettingsData.FALSE);
+	}
+
+	protected void tearDown() throws Exception {
+		settings.writeParameter(RcsSettingsData.USERPROFILE_IMS_HOME_DOMAIN, savedDomain);
+		settings.writeParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID, savedDeviceId);
+		settings.setProvisioningVersion(savedVersion);
+		settings.setGsmaRelease(savedRelease);
+		super.tearDown();
+	}
+
+	private void assertApplied(boolean applied) {
+		assertEquals(applied ? "test.domain" : "old.domain",
+				settings.readParameter(RcsSettingsData.USERPROFILE_IMS_HOME_DOMAIN));
+		assertEquals(applied ? RcsSettingsData.TRUE : RcsSettingsData.FALSE,
+				settings.readParameter(RcsSettingsData.USE_IMEI_AS_DEVICE_ID));
+	}
+
+	public void testParametersApplied() {
+		ProvisioningParser parser = new ProvisioningParser(DOCUMENT);
+		assertTrue(parser.parse(RcsSettingsData.VALUE_GSMA_REL_BLACKBIRD));
+		ProvisioningInfo info = parser.getProvisioningInfo();
+		assertEquals("15", info.getVersion());
+		assertEquals(172800, info.getValidity());
+		assertEquals("abc", info.getToken());
+		assertApplied(true);
+	}
+
+	public void testSameVersionNotApplied() {
+		settings.setProvisioningVersion("15");
+		ProvisioningParser parser = new ProvisioningParser(DOCUMENT);
+		assertTrue(parser.parse(RcsSettingsData.VALUE_GSMA_REL_BLACKBIRD, true));
+		assertEquals("15", parser.getProvisioningInfo().getVersion());
+		assertEquals("abc", parser.getProvisioningInfo().getToken());
+		assertApplied(false);
+	}
+
+	public void testNewVersionApplied() {
+		settings.setProvisioningVersion("14");
+		assertTrue(new ProvisioningParser(DOCUMENT).parse(RcsSettingsData.VALUE_GSMA_REL_BLACKBIRD, true));
+		assertApplied(true);
+	}
+
+	public void testBadDocumentNotApplied() {
+		String truncated = DOCUMENT.substring(0, DOCUMENT.indexOf("<characteristic type=\"OTHER\">") + 10);
+		assertFalse(new ProvisioningParser(truncated).parse(RcsSettingsData.VALUE_GSMA_REL_BLACKBIRD));
+		assertApplied(false);
+	}
+
+	public void testVersionOnlyRestoresGsmaRelease() {
+		settings.setGsmaRelease(RcsSettingsData.VALUE_GSMA_REL_BLACKBIRD);
+		String document = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<wap-provisioningdoc version=\"1.1\">" + VERSION + "</wap-provisioningdoc>";
+		assertTrue(new ProvisioningParser(document).parse(RcsSettingsData.VALUE_GSMA_REL_ALBATROS));
+		assertEquals(RcsSettingsData.VALUE_GSMA_REL_ALBATROS, settings.getGsmaRelease());
+		assertApplied(false);
+	}
+}
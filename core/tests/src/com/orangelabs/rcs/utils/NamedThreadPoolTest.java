@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class NamedThreadPoolTest extends TestCase {
+	/**
+	 * Task blocked until released
+	 */
+	private static Runnable blockingTask(final CountDownLatch started, final CountDownLatch release,
+			final CountDownLatch done) {
+		return new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					// Nothing to do
+				}
+				done.countDown();
+			}
+		};
+	}
+
+	public void testBoundedPoolQueuesTasks() throws InterruptedException {
+		NamedThreadPool pool = new NamedThreadPool("Bounded", 4);
+		CountDownLatch started = new CountDownLatch(4);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(6);
+		try {
+			for (int i = 0; i < 6; i++) {
+				pool.execute(blockingTask(started, release, done));
+			}
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			assertEquals(4, pool.getPoolSize());
+			assertEquals(4, pool.getActiveCount());
+			assertEquals(2, pool.getQueueDepth());
+		} finally {
+			release.countDown();
+		}
+
+		// The queued tasks are run once threads are free
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(0, pool.getQueueDepth());
+		assertEquals(4, pool.getLargestPoolSize());
+		pool.shutdown();
+	}
+
+	public void testQueuedTaskRunsWhenThreadFree() throws InterruptedException {
+		NamedThreadPool pool = new NamedThreadPool("Single", 1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		final CountDownLatch queuedDone = new CountDownLatch(1);
+		pool.execute(blockingTask(started, release, done));
+		pool.execute(new Runnable() {
+			public void run() {
+				queuedDone.countDown();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		// The second task waits for the first one
+		assertEquals(1, pool.getQueueDepth());
+		assertEquals(1, queuedDone.getCount());
+		release.countDown();
+		assertTrue(queuedDone.await(5, TimeUnit.SECONDS));
+		assertEquals(1, pool.getLargestPoolSize());
+		pool.shutdown();
+	}
+
+	public void testThreadsNamed() throws InterruptedException {
+		NamedThreadPool pool = new NamedThreadPool("Named", 2);
+		final String[] name = new String[1];
+		final CountDownLatch done = new CountDownLatch(1);
+		pool.execute(new Runnable() {
+			public void run() {
+				name[0] = Thread.currentThread().getName();
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals("Named-1", name[0]);
+		assertEquals("Named", pool.getName());
+		pool.shutdown();
+	}
+}
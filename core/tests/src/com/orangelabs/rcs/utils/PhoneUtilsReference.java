@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import android.telephony.PhoneNumberUtils;
+
+/**
+ * Substring based parsing of the phone numbers, as done by PhoneUtils before
+ * the numbers were parsed in place and cached, and the inputs used to check
+ * that both give the same results. The default country settings are used:
+ * country code +33 and area code 0.
+ */
+class PhoneUtilsReference {
+	private static final String COUNTRY_CODE = "+33";
+
+	private static final String COUNTRY_AREA_CODE = "0";
+
+	static String formatNumberToInternational(String number) {
+		if (number == null) {
+			return null;
+		}
+
+		// Remove spaces
+		number = number.trim();
+
+		// Strip all non digits
+		String phoneNumber = PhoneNumberUtils.stripSeparators(number);
+
+		// Format into international
+		if (phoneNumber.startsWith("00" + COUNTRY_CODE.substring(1))) {
+			// International format
+			phoneNumber = COUNTRY_CODE + phoneNumber.substring(4);
+		} else
+		if ((COUNTRY_AREA_CODE != null) && (COUNTRY_AREA_CODE.length() > 0) &&
+				phoneNumber.startsWith(COUNTRY_AREA_CODE)) {
+			// National number with area code
+			phoneNumber = COUNTRY_CODE + phoneNumber.substring(COUNTRY_AREA_CODE.length());
+		} else
+		if (!phoneNumber.startsWith("+")) {
+			// National number
+			phoneNumber = COUNTRY_CODE + phoneNumber;
+		}
+		return phoneNumber;
+	}
+
+	static String extractNumberFromUri(String uri) {
+		if (uri == null) {
+			return null;
+		}
+
+		try {
+			// Extract URI from address
+			int index0 = uri.indexOf("<");
+			if (index0 != -1) {
+				uri = uri.substring(index0+1, uri.indexOf(">", index0));
+			}
+
+			// Extract a Tel-URI
+			int index1 = uri.indexOf("tel:");
+			if (index1 != -1) {
+				uri = uri.substring(index1+4);
+			}
+
+			// Extract a SIP-URI
+			index1 = uri.indexOf("sip:");
+			if (index1 != -1) {
+				int index2 = uri.indexOf("@", index1);
+				uri = uri.substring(index1+4, index2);
+			}
+
+			// Remove URI parameters
+			int index2 = uri.indexOf(";");
+			if (index2 != -1) {
+				uri = uri.substring(0, index2);
+			}
+
+			// Format the extracted number (username part of the URI)
+			return formatNumberToInternational(uri);
+		} catch(Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Edge cases, including the malformed URIs
+	 */
+	static final String[] EDGE_CASES = {
+		"", " ", "0", "00", "0033", "00331", "003", "+", "+3", "33", "N", ";", ",",
+		"0612345678", " 06 12 34 56 78 ", "06-12-34-56-78", "(06) 12.34.56.78",
+		"+33612345678", "+33 6 12 34 56 78", "0033612345678", "0044612345678",
+		"612345678", "+44 20 7946 0958", "*123#", "1234,5678", "0612N",
+		"tel:", "tel:0612345678", "tel:+33612345678;phone-context=domain", " tel:+33612345678 ",
+		"sip:", "sip:@", "sip:0612345678", "sip:0612345678@domain",
+		"sip:+33612345678@domain;user=phone", "sip:+33 6 12 34 56 78@domain",
+		"sip:;x@domain", "sips:+33612345678@domain", "tel:sip:+33612345678@domain",
+		"<sip:+33612345678@domain>", "<sip:+33612345678@domain;user=phone>;tag=abc",
+		"\"Name\" <tel:+33612345678>;tag=1", "<tel:0612345678", "<>", "<sip:>",
+		"<sip:0612345678@domain", "Name <sip:0612345678@domain>", ">sip:1@d<",
+		"sip:1@d<sip:2@d>", "<sip:1@d;x>;a=<b>", "06 12 34", "\u0660\u0661\u0662",
+		"@", "a@b", "abc", "tel:abc", "sip:abc@domain"
+	};
+
+	/**
+	 * Returns the edge cases and random inputs in the forms seen in the SIP
+	 * requests, the API calls and the address book
+	 *
+	 * @param nbContacts Number of distinct contacts
+	 * @param nbInputs Number of random inputs
+	 * @param seed Random seed
+	 * @return Inputs
+	 */
+	static List<String> inputs(int nbContacts, int nbInputs, long seed) {
+		Random random = new Random(seed);
+		String[] numbers = new String[nbContacts];
+		for (int i = 0; i < nbContacts; i++) {
+			numbers[i] = "6" + (10000000 + random.nextInt(90000000));
+		}
+		List<String> result = new ArrayList<String>();
+		for (int i = 0; i < EDGE_CASES.length; i++) {
+			result.add(EDGE_CASES[i]);
+		}
+		for (int i = 0; i < nbInputs; i++) {
+			String number = numbers[random.nextInt(nbContacts)];
+			switch (random.nextInt(7)) {
+				case 0:
+					result.add("0" + number.charAt(0) + " " + number.substring(1, 3) + " "
+							+ number.substring(3, 5) + " " + number.substring(5, 7) + " " + number.substring(7));
+					break;
+				case 1:
+					result.add("+33" + number);
+					break;
+				case 2:
+					result.add("0033" + number);
+					break;
+				case 3:
+					result.add("tel:+33" + number);
+					break;
+				case 4:
+					result.add("sip:+33" + number + "@domain;user=phone");
+					break;
+				case 5:
+					result.add("<sip:+33" + number + "@domain>;tag=" + random.nextInt(1000));
+					break;
+				default:
+					result.add("0" + number);
+					break;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class PhoneUtilsTest extends TestCase {
+	protected void setUp() {
+		PhoneUtils.clearCache();
+	}
+
+	public void testExtractNumberFromUri() {
+		assertEquals("+33612345678", PhoneUtils.extractNumberFromUri("06 12 34 56 78"));
+		assertEquals("+33612345678", PhoneUtils.extractNumberFromUri("0033612345678"));
+		assertEquals("+33612345678", PhoneUtils.extractNumberFromUri("tel:+33612345678"));
+		assertEquals("+33612345678", PhoneUtils.extractNumberFromUri("sip:+33612345678@domain;user=phone"));
+		assertEquals("+33612345678", PhoneUtils.extractNumberFromUri("\"Name\" <sip:0612345678@domain>;tag=1"));
+		assertEquals("+44207", PhoneUtils.extractNumberFromUri("+44 207"));
+		assertNull(PhoneUtils.extractNumberFromUri(null));
+		assertNull(PhoneUtils.extractNumberFromUri("sip:0612345678"));
+		assertNull(PhoneUtils.extractNumberFromUri("<sip:0612345678@domain"));
+	}
+
+	public void testFormatNumberToSipUri() {
+		assertEquals("tel:+33612345678", PhoneUtils.formatNumberToSipUri(" 06 12 34 56 78 "));
+		assertEquals("tel:+33612345678", PhoneUtils.formatNumberToSipUri("sip:0612345678@domain"));
+		assertEquals("tel:+33612345678", PhoneUtils.formatNumberToSipUri("tel:0033612345678"));
+		assertNull(PhoneUtils.formatNumberToSipUri(null));
+	}
+
+	public void testCompareNumbers() {
+		assertTrue(PhoneUtils.compareNumbers("0612345678", "<tel:+33612345678>"));
+		assertFalse(PhoneUtils.compareNumbers("0612345678", "0612345679"));
+		assertFalse(PhoneUtils.compareNumbers("0612345678", "sip:0612345678"));
+	}
+
+	/**
+	 * The in place parsing gives the results of the substring based parsing,
+	 * whether the result is computed or read from the cache
+	 */
+	public void testSameResultsAsSubstringParsing() {
+		List<String> inputs = PhoneUtilsReference.inputs(2000, 5000, 19);
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < inputs.size(); i++) {
+				String input = inputs.get(i);
+				assertEquals("extractNumberFromUri(\"" + input + "\")",
+						PhoneUtilsReference.extractNumberFromUri(input),
+						PhoneUtils.extractNumberFromUri(input));
+				assertEquals("formatNumberToInternational(\"" + input + "\")",
+						PhoneUtilsReference.formatNumberToInternational(input),
+						PhoneUtils.formatNumberToInternational(input));
+			}
+		}
+	}
+
+	/**
+	 * The caches are bounded and give the same results after eviction
+	 */
+	public void testCacheEviction() {
+		for (int i = 0; i < 2000; i++) {
+			assertEquals("+336" + (10000000 + i), PhoneUtils.extractNumberFromUri("tel:06" + (10000000 + i)));
+		}
+		assertEquals("+33610000000", PhoneUtils.extractNumberFromUri("tel:0610000000"));
+	}
+}
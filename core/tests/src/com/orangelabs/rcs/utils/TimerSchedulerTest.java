@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+public class TimerSchedulerTest extends TestCase {
+	/**
+	 * Virtual clock
+	 */
+	private static class FakeClock implements TimerScheduler.Clock {
+		long now = 1000;
+
+		public long currentTimeMillis() {
+			return now;
+		}
+	}
+
+	/**
+	 * One-shot wake-up source recording the wake-up time
+	 */
+	private static class FakeWakeUpSource implements TimerScheduler.WakeUpSource {
+		long time = -1;
+
+		/**
+		 * Fire the wake-up
+		 */
+		void fire(TimerScheduler scheduler, FakeClock clock) {
+			clock.now = Math.max(clock.now, time);
+			time = -1;
+			scheduler.processExpiredTimers();
+		}
+
+		public void setWakeUp(long time) {
+			this.time = time;
+		}
+
+		public void cancelWakeUp() {
+			time = -1;
+		}
+	}
+
+	/**
+	 * Executor running the expired timers in the calling thread
+	 */
+	private static final Executor DIRECT_EXECUTOR = new Executor() {
+		public void execute(Runnable task) {
+			task.run();
+		}
+	};
+
+	private FakeClock clock;
+
+	private FakeWakeUpSource wakeUp;
+
+	private TimerScheduler scheduler;
+
+	private List<String> fired;
+
+	protected void setUp() {
+		clock = new FakeClock();
+		wakeUp = new FakeWakeUpSource();
+		scheduler = new TimerScheduler(clock, wakeUp, DIRECT_EXECUTOR);
+		fired = new ArrayList<String>();
+	}
+
+	private TimerScheduler.Timer timer(final String name) {
+		return new TimerScheduler.Timer(new Runnable() {
+			public void run() {
+				fired.add(name + "@" + clock.now);
+			}
+		});
+	}
+
+	/**
+	 * Move the clock, waking up the scheduler at each wake-up time reached
+	 */
+	private void advance(long time) {
+		while ((wakeUp.time != -1) && (wakeUp.time <= time)) {
+			wakeUp.fire(scheduler, clock);
+		}
+		clock.now = time;
+	}
+
+	public void testFiredAtTheEndOfItsWindow() {
+		scheduler.schedule(timer("a"), 100, 50);
+		assertEquals(1150, wakeUp.time);
+		advance(1149);
+		assertTrue(fired.isEmpty());
+		advance(1150);
+		assertEquals("[a@1150]", fired.toString());
+		assertEquals(0, scheduler.size());
+		assertEquals(-1, wakeUp.time);
+	}
+
+	public void testTimersCoalesced() {
+		scheduler.schedule(timer("a"), 100, 100);
+		scheduler.schedule(timer("b"), 150, 100);
+		scheduler.schedule(timer("c"), 250, 100);
+		advance(2000);
+		assertEquals("[a@1200, b@1200, c@1350]", fired.toString());
+		assertEquals(2, scheduler.getWakeUpCount());
+		assertEquals(3, scheduler.getFiredCount());
+	}
+
+	public void testExpiredTimersBelowTheFirstOneFired() {
+		// Ordered by end of window: a (1210), c (1520), b (2000)
+		scheduler.schedule(timer("a"), 200, 10);
+		scheduler.schedule(timer("b"), 100, 900);
+		scheduler.schedule(timer("c"), 500, 20);
+		advance(1210);
+		assertEquals("[b@1210, a@1210]", fired.toString());
+		assertEquals(1, scheduler.size());
+		assertEquals(1520, wakeUp.time);
+	}
+
+	public void testSameDeadlineFiredInSchedulingOrder() {
+		scheduler.schedule(timer("a"), 100, 0);
+		scheduler.schedule(timer("b"), 100, 0);
+		scheduler.schedule(timer("c"), 100, 0);
+		advance(1100);
+		assertEquals("[a@1100, b@1100, c@1100]", fired.toString());
+	}
+
+	public void testCancel() {
+		TimerScheduler.Timer a = timer("a");
+		TimerScheduler.Timer b = timer("b");
+		scheduler.schedule(a, 100, 0);
+		scheduler.schedule(b, 200, 0);
+		assertTrue(scheduler.cancel(a));
+		assertFalse(scheduler.cancel(a));
+		assertFalse(scheduler.isScheduled(a));
+		assertEquals(1200, wakeUp.time);
+		assertTrue(scheduler.cancel(b));
+		assertEquals(-1, wakeUp.time);
+		advance(2000);
+		assertTrue(fired.isEmpty());
+	}
+
+	public void testRearm() {
+		TimerScheduler.Timer a = timer("a");
+		scheduler.schedule(a, 500, 0);
+		scheduler.schedule(a, 100, 0);
+		assertEquals(1100, wakeUp.time);
+		assertEquals(1, scheduler.size());
+		scheduler.schedule(a, 300, 0);
+		assertEquals(1300, wakeUp.time);
+		advance(2000);
+		assertEquals("[a@1300]", fired.toString());
+		assertEquals(1300, a.getDeadline());
+	}
+
+	/**
+	 * Random schedules, re-arms, cancels and clock moves, checked against a
+	 * model of the scheduled timers: a timer is fired once, within its window,
+	 * and no expired timer is left after a wake-up.
+	 */
+	public void testRandomModel() {
+		final int nbTimers = 64;
+		final long[] deadline = new long[nbTimers];
+		final long[] latest = new long[nbTimers];
+		final boolean[] scheduled = new boolean[nbTimers];
+		final int[] fireCount = new int[nbTimers];
+		TimerScheduler.Timer[] timers = new TimerScheduler.Timer[nbTimers];
+		for (int i = 0; i < nbTimers; i++) {
+			final int index = i;
+			timers[i] = new TimerScheduler.Timer(new Runnable() {
+				public void run() {
+					assertTrue("timer " + index + " fired while not scheduled", scheduled[index]);
+					assertTrue("timer " + index + " fired early", clock.now >= deadline[index]);
+					assertTrue("timer " + index + " fired late", clock.now <= latest[index]);
+					scheduled[index] = false;
+					fireCount[index]++;
+				}
+			});
+		}
+
+		Random random = new Random(7);
+		int nbScheduled = 0;
+		for (int step = 0; step < 20000; step++) {
+			int op = random.nextInt(10);
+			int i = random.nextInt(nbTimers);
+			if (op < 5) {
+				long delay = random.nextInt(1000);
+				long window = random.nextInt(4) == 0 ? 0 : random.nextInt(300);
+				scheduler.schedule(timers[i], delay, window);
+				deadline[i] = clock.now + delay;
+				latest[i] = deadline[i] + window;
+				scheduled[i] = true;
+				nbScheduled++;
+			} else if (op < 7) {
+				assertEquals(scheduled[i], scheduler.cancel(timers[i]));
+				scheduled[i] = false;
+			} else {
+				long end = clock.now + random.nextInt(300);
+				while ((wakeUp.time != -1) && (wakeUp.time <= end)) {
+					wakeUp.fire(scheduler, clock);
+					for (int j = 0; j < nbTimers; j++) {
+						assertFalse("expired timer " + j + " not fired", scheduled[j] && (deadline[j] <= clock.now));
+					}
+				}
+				clock.now = end;
+			}
+
+			// Check the scheduler against the model
+			int size = 0;
+			long first = -1;
+			for (int j = 0; j < nbTimers; j++) {
+				assertEquals(scheduled[j], scheduler.isScheduled(timers[j]));
+				if (scheduled[j]) {
+					size++;
+					if ((first == -1) || (latest[j] < first)) {
+						first = latest[j];
+					}
+				}
+			}
+			assertEquals(size, scheduler.size());
+			assertEquals(first, wakeUp.time);
+		}
+		long fires = 0;
+		for (int j = 0; j < nbTimers; j++) {
+			fires += fireCount[j];
+		}
+		assertEquals(fires, scheduler.getFiredCount());
+		assertTrue(fires > 0);
+		assertTrue(nbScheduled > fires);
+		assertTrue(scheduler.getWakeUpCount() < fires);
+	}
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010 France Telecom S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.orangelabs.rcs.utils.logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class AsyncAppenderTest extends TestCase {
+	/**
+	 * Appender recording the traces, which can block the drain thread
+	 */
+	private static class RecordingAppender extends Appender {
+		private final List<String> traces = new ArrayList<String>();
+
+		private boolean blocked = false;
+
+		private boolean drainBlocked = false;
+
+		public void printTrace(String classname, int level, String trace) {
+			synchronized (this) {
+				while (blocked && Thread.currentThread().getName().equals("AsyncAppender")) {
+					drainBlocked = true;
+					notifyAll();
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				traces.add(trace);
+			}
+		}
+
+		synchronized void block() {
+			blocked = true;
+		}
+
+		synchronized void release() {
+			blocked = false;
+			drainBlocked = false;
+			notifyAll();
+		}
+
+		/**
+		 * Wait until the drain thread is blocked in the appender
+		 */
+		synchronized void awaitDrainBlocked() throws InterruptedException {
+			long end = System.currentTimeMillis() + 2000;
+			while (!drainBlocked) {
+				long wait = end - System.currentTimeMillis();
+				assertTrue("drain thread not blocked", wait > 0);
+				wait(wait);
+			}
+		}
+
+		synchronized String getTraces() {
+			return traces.toString();
+		}
+	}
+
+	private RecordingAppender recorder;
+
+	private Appender[] savedAppenders;
+
+	private boolean savedFlag;
+
+	private int savedLevel;
+
+	protected void setUp() {
+		recorder = new RecordingAppender();
+		savedAppenders = Logger.getAppenders();
+		savedFlag = Logger.activationFlag;
+		savedLevel = Logger.traceLevel;
+		Logger.activationFlag = Logger.TRACE_ON;
+		Logger.traceLevel = Logger.DEBUG_LEVEL;
+	}
+
+	protected void tearDown() {
+		recorder.release();
+		Logger.setAppenders(savedAppenders);
+		Logger.activationFlag = savedFlag;
+		Logger.traceLevel = savedLevel;
+	}
+
+	public void testTracesPrintedInOrder() {
+		AsyncAppender appender = new AsyncAppender(new Appender[] { recorder }, 8);
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			appender.printTrace("Test", Logger.DEBUG_LEVEL, "t" + i);
+			expected.add("t" + i);
+			if (i % 8 == 7) {
+				assertTrue(appender.flush(2000));
+			}
+		}
+		assertTrue(appender.flush(2000));
+		assertEquals(expected.toString(), recorder.getTraces());
+		assertEquals(100, appender.getPrintedCount());
+		assertEquals(0, appender.getDroppedCount());
+	}
+
+	public void testDebugDroppedAndWarningPrintedWhenFull() throws Exception {
+		AsyncAppender appender = new AsyncAppender(new Appender[] { recorder }, 4);
+		recorder.block();
+		appender.printTrace("Test", Logger.DEBUG_LEVEL, "t0");
+		recorder.awaitDrainBlocked();
+
+		// Fill the buffer, then overflow it
+		for (int i = 1; i <= 7; i++) {
+			appender.printTrace("Test", Logger.INFO_LEVEL, "t" + i);
+		}
+		assertEquals(3, appender.getDroppedCount());
+
+		// A warning is printed by the caller, even while the drain thread is blocked
+		appender.printTrace("Test", Logger.WARN_LEVEL, "w");
+		appender.printTrace("Test", Logger.ERROR_LEVEL, "e");
+		assertEquals("[w, e]", recorder.getTraces());
+		assertEquals(3, appender.getDroppedCount());
+
+		recorder.release();
+		assertTrue(appender.flush(2000));
+		assertEquals("[w, e, t0, t1, t2, t3, t4, 3 traces dropped]", recorder.getTraces());
+		assertEquals(7, appender.getPrintedCount());
+	}
+
+	public void testFlushTimeout() throws Exception {
+		AsyncAppender appender = new AsyncAppender(new Appender[] { recorder });
+		recorder.block();
+		appender.printTrace("Test", Logger.DEBUG_LEVEL, "t0");
+		recorder.awaitDrainBlocked();
+		assertFalse(appender.flush(50));
+		recorder.release();
+		assertTrue(appender.flush(2000));
+		assertEquals("[t0]", recorder.getTraces());
+	}
+
+	public void testLoggerFlush() throws Exception {
+		AsyncAppender appender = new AsyncAppender(new Appender[] { recorder });
+		Logger.setAppenders(new Appender[] { appender });
+		recorder.block();
+		Logger logger = Logger.getLogger("Test");
+		logger.debug("t0");
+		recorder.awaitDrainBlocked();
+		logger.debug("t1");
+		assertFalse(Logger.flush(50));
+		recorder.release();
+		assertTrue(Logger.flush(2000));
+		assertEquals("[t0, t1]", recorder.getTraces());
+	}
+
+	public void testUncaughtExceptionFlushesTraces() throws Exception {
+		final AsyncAppender appender = new AsyncAppender(new Appender[] { recorder });
+		Logger.setAppenders(new Appender[] { appender });
+		final List<String> handled = new ArrayList<String>();
+		Thread.UncaughtExceptionHandler saved = Thread.getDefaultUncaughtExceptionHandler();
+		try {
+			Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+				public void uncaughtException(Thread thread, Throwable e) {
+					// The traces are printed before the previous handler is called
+					synchronized (handled) {
+						handled.add(e.getMessage() + " " + recorder.getTraces());
+					}
+				}
+			});
+			Logger.installUncaughtExceptionHandler();
+			Thread.UncaughtExceptionHandler installed = Thread.getDefaultUncaughtExceptionHandler();
+			Logger.installUncaughtExceptionHandler();
+			assertSame(installed, Thread.getDefaultUncaughtExceptionHandler());
+
+			Thread thread = new Thread("Crash") {
+				public void run() {
+					Logger.getLogger("Test").debug("last trace");
+					throw new IllegalStateException("crash");
+				}
+			};
+			thread.start();
+			thread.join(5000);
+			synchronized (handled) {
+				assertEquals("[crash [last trace, Uncaught exception in thread Crash: "
+						+ "java.lang.IllegalStateException: crash]]", handled.toString());
+			}
+		} finally {
+			Thread.setDefaultUncaughtExceptionHandler(saved);
+		}
+	}
+}
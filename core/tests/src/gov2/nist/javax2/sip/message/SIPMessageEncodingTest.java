@@ -0,0 +1,120 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.message;
+
+import gov2.nist.javax2.sip.address.SipUri;
+import gov2.nist.javax2.sip.header.To;
+import gov2.nist.javax2.sip.header.Via;
+import gov2.nist.javax2.sip.header.ViaList;
+import gov2.nist.javax2.sip.parser.StringMsgParser;
+
+import javax2.sip.header.ContactHeader;
+import javax2.sip.header.FromHeader;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests of the encoding kept by a message until it is modified.
+ *
+ */
+public class SIPMessageEncodingTest extends TestCase {
+
+    private static final String INVITE = "INVITE sip:bob@example.com SIP/2.0\r\n"
+            + "Via: SIP/2.0/TCP 10.0.0.1:5060;branch=z9hG4bK-1\r\n"
+            + "Via: SIP/2.0/TCP 10.0.0.2:5060;branch=z9hG4bK-2\r\n"
+            + "Max-Forwards: 70\r\n"
+            + "From: <sip:alice@example.com>;tag=1234\r\n"
+            + "To: <sip:bob@example.com>\r\n"
+            + "Call-ID: abcd@10.0.0.1\r\n"
+            + "CSeq: 1 INVITE\r\n"
+            + "Contact: <sip:alice@10.0.0.1:5060>\r\n"
+            + "Content-Length: 0\r\n\r\n";
+
+    private SIPRequest request;
+
+    protected void setUp() throws Exception {
+        request = (SIPRequest) new StringMsgParser().parseSIPMessage(INVITE);
+    }
+
+    private String bytes() throws Exception {
+        return new String(request.encodeAsBytes("TCP"), "UTF-8");
+    }
+
+    public void testEncodingReused() throws Exception {
+        byte[] first = request.encodeAsBytes("TCP");
+        assertSame(first, request.encodeAsBytes("TCP"));
+        String encoded = request.encode();
+        assertSame(encoded, request.encode());
+        assertEquals(encoded, new String(first, "UTF-8"));
+    }
+
+    public void testGettersKeepEncoding() throws Exception {
+        byte[] first = request.encodeAsBytes("TCP");
+        String encoded = request.encode();
+        request.getFrom();
+        request.getTo();
+        request.getCSeq();
+        request.getCallId();
+        request.getTopmostVia();
+        request.getRequestURI();
+        request.getHeader(ContactHeader.NAME);
+        request.getHeaders(Via.NAME);
+        assertSame(first, request.encodeAsBytes("TCP"));
+        assertSame(encoded, request.encode());
+    }
+
+    public void testHeaderModified() throws Exception {
+        bytes();
+        request.encode();
+        ((FromHeader) request.getHeader(FromHeader.NAME)).setTag("5678");
+        assertTrue(bytes().contains(";tag=5678"));
+        assertTrue(request.encode().contains(";tag=5678"));
+    }
+
+    public void testMessageModified() throws Exception {
+        bytes();
+        request.setToTag("9999");
+        assertTrue(bytes().contains(";tag=9999"));
+        request.removeHeader(ContactHeader.NAME);
+        assertFalse(bytes().contains("Contact:"));
+    }
+
+    public void testNestedAddressModified() throws Exception {
+        bytes();
+        To to = (To) request.getTo();
+        ((SipUri) to.getAddress().getURI()).setUser("carol");
+        assertTrue(bytes().contains("To: <sip:carol@example.com>"));
+    }
+
+    public void testRequestUriModified() throws Exception {
+        bytes();
+        ((SipUri) request.getRequestURI()).setHost("example.org");
+        assertTrue(bytes().startsWith("INVITE sip:bob@example.org SIP/2.0"));
+    }
+
+    public void testHeaderListElementModified() throws Exception {
+        bytes();
+        ViaList vias = request.getViaHeaders();
+        vias.get(1).setBranch("z9hG4bK-3");
+        String encoded = bytes();
+        assertTrue(encoded.contains("branch=z9hG4bK-3"));
+        assertFalse(encoded.contains("branch=z9hG4bK-2"));
+    }
+
+    public void testTransportChanged() throws Exception {
+        byte[] first = request.encodeAsBytes("TCP");
+        String udp = new String(request.encodeAsBytes("UDP"), "UTF-8");
+        assertTrue(udp.contains("SIP/2.0/UDP 10.0.0.1:5060"));
+        assertNotSame(first, request.encodeAsBytes("TCP"));
+    }
+
+    public void testCloneNotShared() throws Exception {
+        bytes();
+        SIPRequest clone = (SIPRequest) request.clone();
+        clone.getTopmostVia().setBranch("z9hG4bK-clone");
+        assertTrue(new String(clone.encodeAsBytes("TCP"), "UTF-8").contains("z9hG4bK-clone"));
+        assertTrue(bytes().contains("branch=z9hG4bK-1"));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.message;
+
+import gov2.nist.javax2.sip.parser.StringMsgParser;
+
+import java.util.ListIterator;
+
+import javax2.sip.header.ContactHeader;
+import javax2.sip.header.SubjectHeader;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests of the parsing of a received buffer, with the headers parsed with the
+ * message or on first access.
+ *
+ */
+public class SIPMessageParsingTest extends TestCase {
+
+    private static final String MESSAGE = "MESSAGE sip:bob@example.com SIP/2.0\r\n"
+            + "Via: SIP/2.0/UDP 10.0.0.1:5060;branch=z9hG4bK-1\r\n"
+            + "Contact: <sip:alice@10.0.0.1:5060>\r\n"
+            + "From: <sip:alice@example.com>;tag=1234\r\n"
+            + "Subject: hello\r\n  world\r\n"
+            + "To: <sip:bob@example.com>\r\n"
+            + "Call-ID: abcd@10.0.0.1\r\n"
+            + "Accept-Contact: *;+g.oma.sip-im\r\n"
+            + "CSeq: 1 MESSAGE\r\n"
+            + "Max-Forwards: 70\r\n"
+            + "Content-Type: text/plain\r\n"
+            + "Content-Length: 2\r\n\r\n";
+
+    private static SIPMessage parse(byte[] buffer, boolean lazily) throws Exception {
+        StringMsgParser parser = new StringMsgParser();
+        parser.setParseHeadersLazily(lazily);
+        return parser.parseSIPMessage(buffer.clone());
+    }
+
+    private static byte[] withBody(String headers, byte[] body) throws Exception {
+        byte[] start = headers.getBytes("UTF-8");
+        byte[] buffer = new byte[start.length + body.length];
+        System.arraycopy(start, 0, buffer, 0, start.length);
+        System.arraycopy(body, 0, buffer, start.length, body.length);
+        return buffer;
+    }
+
+    private static byte[] message() throws Exception {
+        return withBody(MESSAGE, new byte[] { 'h', 'i' });
+    }
+
+    public void testHeaderOrderKept() throws Exception {
+        String eager = parse(message(), false).encode();
+        SIPMessage lazy = parse(message(), true);
+        assertEquals(eager, lazy.encode());
+        assertEquals(new StringMsgParser().parseSIPMessage(MESSAGE + "hi").encode(), eager);
+        assertTrue(eager.indexOf("Contact:") < eager.indexOf("From:"));
+        assertTrue(eager.indexOf("Subject:") < eager.indexOf("To:"));
+    }
+
+    public void testHeaderOrderKeptAfterAccess() throws Exception {
+        String eager = parse(message(), false).encode();
+        SIPMessage lazy = parse(message(), true);
+        assertNotNull(lazy.getHeader(ContactHeader.NAME));
+        assertEquals(eager, lazy.encode());
+    }
+
+    public void testDeferredHeadersFirst() throws Exception {
+        String headers = "MESSAGE sip:bob@example.com SIP/2.0\r\n"
+                + "Subject: first\r\n"
+                + "Contact: <sip:alice@10.0.0.1:5060>\r\n"
+                + MESSAGE.substring(MESSAGE.indexOf("Via:"));
+        byte[] buffer = withBody(headers, new byte[] { 'h', 'i' });
+        assertEquals(parse(buffer, false).encode(), parse(buffer, true).encode());
+    }
+
+    public void testMalformedDeferredHeaderUnparsed() throws Exception {
+        String headers = MESSAGE.replace("Max-Forwards: 70\r\n", "Max-Forwards: 70\r\nExpires: abc\r\n");
+        SIPMessage message = parse(withBody(headers, new byte[] { 'h', 'i' }), true);
+        assertEquals("sip:bob@example.com", message.getTo().getAddress().getURI().toString());
+        ListIterator<String> unparsed = message.getUnrecognizedHeaders();
+        assertTrue(unparsed.hasNext());
+        assertEquals("Expires: abc", unparsed.next().trim());
+        assertFalse(unparsed.hasNext());
+        assertNotNull(message.getHeader(ContactHeader.NAME));
+    }
+
+    public void testFoldedHeader() throws Exception {
+        String string = ((SubjectHeader) new StringMsgParser().parseSIPMessage(MESSAGE + "hi")
+                .getHeader(SubjectHeader.NAME)).getSubject();
+        assertEquals("hello world", string);
+        for (boolean lazily : new boolean[] { false, true }) {
+            SubjectHeader subject = (SubjectHeader) parse(message(), lazily).getHeader(
+                    SubjectHeader.NAME);
+            assertEquals(string, subject.getSubject());
+        }
+    }
+
+    public void testUtf8DisplayName() throws Exception {
+        String headers = MESSAGE.replace("From: <sip:alice", "From: \"Al\u00e9\" <sip:alice");
+        for (boolean lazily : new boolean[] { false, true }) {
+            SIPMessage message = parse(withBody(headers, new byte[] { 'h', 'i' }), lazily);
+            assertEquals("Al\u00e9", message.getFrom().getAddress().getDisplayName());
+        }
+    }
+
+    public void testBareLineFeeds() throws Exception {
+        byte[] buffer = withBody(MESSAGE.replace("\r\n", "\n"), new byte[] { 'h', 'i' });
+        String expected = parse(message(), false).encode();
+        for (boolean lazily : new boolean[] { false, true }) {
+            assertEquals(expected, parse(buffer, lazily).encode());
+        }
+    }
+
+    public void testLeadingKeepAlive() throws Exception {
+        byte[] buffer = withBody("\r\n\r\n" + MESSAGE, new byte[] { 'h', 'i' });
+        for (boolean lazily : new boolean[] { false, true }) {
+            SIPMessage message = parse(buffer, lazily);
+            assertTrue(message instanceof SIPRequest);
+            assertEquals("abcd@10.0.0.1", message.getCallId().getCallId());
+        }
+    }
+
+    public void testBinaryBodyKept() throws Exception {
+        byte[] body = new byte[] { (byte) 0xff, (byte) 0xfe };
+        for (boolean lazily : new boolean[] { false, true }) {
+            SIPMessage message = parse(withBody(MESSAGE, body), lazily);
+            byte[] content = message.getRawContent();
+            assertEquals(2, content.length);
+            assertEquals((byte) 0xff, content[0]);
+            assertEquals((byte) 0xfe, content[1]);
+        }
+    }
+}
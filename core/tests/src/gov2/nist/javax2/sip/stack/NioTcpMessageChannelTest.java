@@ -0,0 +1,254 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack;
+
+import gov2.nist.javax2.sip.message.SIPRequest;
+import gov2.nist.javax2.sip.parser.StringMsgParser;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax2.sip.DialogTerminatedEvent;
+import javax2.sip.IOExceptionEvent;
+import javax2.sip.ListeningPoint;
+import javax2.sip.RequestEvent;
+import javax2.sip.ResponseEvent;
+import javax2.sip.SipFactory;
+import javax2.sip.SipListener;
+import javax2.sip.SipProvider;
+import javax2.sip.SipStack;
+import javax2.sip.TimeoutEvent;
+import javax2.sip.TransactionTerminatedEvent;
+import javax2.sip.message.Request;
+
+import junit.framework.TestCase;
+
+/**
+ * Loopback tests of the framing and of the connections of the NIO TCP
+ * transport.
+ *
+ */
+public class NioTcpMessageChannelTest extends TestCase {
+
+    private static final String LOCALHOST = "127.0.0.1";
+
+    private static final int TIMEOUT = 5000;
+
+    private SipStack sipStack;
+
+    private SipProvider sipProvider;
+
+    private int port;
+
+    private final BlockingQueue<Request> received = new LinkedBlockingQueue<Request>();
+
+    private final SipListener listener = new SipListener() {
+        public void processRequest(RequestEvent requestEvent) {
+            received.add(requestEvent.getRequest());
+        }
+
+        public void processResponse(ResponseEvent responseEvent) {
+        }
+
+        public void processTimeout(TimeoutEvent timeoutEvent) {
+        }
+
+        public void processIOException(IOExceptionEvent exceptionEvent) {
+        }
+
+        public void processTransactionTerminated(TransactionTerminatedEvent transactionTerminatedEvent) {
+        }
+
+        public void processDialogTerminated(DialogTerminatedEvent dialogTerminatedEvent) {
+        }
+    };
+
+    protected void setUp() throws Exception {
+        ServerSocket probe = new ServerSocket(0, 1, InetAddress.getByName(LOCALHOST));
+        port = probe.getLocalPort();
+        probe.close();
+
+        Properties properties = new Properties();
+        properties.setProperty("javax2.sip.STACK_NAME", "NioTcpMessageChannelTest");
+        properties.setProperty("javax2.sip.AUTOMATIC_DIALOG_SUPPORT", "off");
+        properties.setProperty("gov2.nist.javax2.sip.MESSAGE_PROCESSOR_FACTORY",
+                NioMessageProcessorFactory.class.getName());
+        sipStack = SipFactory.getInstance().createSipStack(properties);
+        ListeningPoint tcp = sipStack.createListeningPoint(LOCALHOST, port, ListeningPoint.TCP);
+        sipProvider = sipStack.createSipProvider(tcp);
+        sipProvider.addSipListener(listener);
+        sipStack.start();
+    }
+
+    protected void tearDown() throws Exception {
+        sipStack.stop();
+        SipFactory.getInstance().resetFactory();
+    }
+
+    private String options(int cseq, String body) {
+        return "OPTIONS sip:bob@" + LOCALHOST + ":" + port + ";transport=tcp SIP/2.0\r\n"
+                + "Via: SIP/2.0/TCP 127.0.0.1:5070;branch=z9hG4bK-" + cseq + "\r\n"
+                + "Max-Forwards: 70\r\n"
+                + "From: <sip:alice@127.0.0.1>;tag=1234\r\n"
+                + "To: <sip:bob@127.0.0.1>\r\n"
+                + "Call-ID: options-" + cseq + "@127.0.0.1\r\n"
+                + "CSeq: " + cseq + " OPTIONS\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Length: " + body.length() + "\r\n\r\n"
+                + body;
+    }
+
+    private Socket connect() throws Exception {
+        Socket socket = new Socket(LOCALHOST, port);
+        socket.setTcpNoDelay(true);
+        return socket;
+    }
+
+    /**
+     * Write a buffer in pieces, waiting between them for the transport to
+     * read each piece on its own.
+     */
+    private static void writeSplit(OutputStream out, String buffer, int... splits)
+            throws Exception {
+        byte[] bytes = buffer.getBytes("UTF-8");
+        int start = 0;
+        for (int i = 0; i <= splits.length; i++) {
+            int end = i < splits.length ? splits[i] : bytes.length;
+            out.write(bytes, start, end - start);
+            out.flush();
+            Thread.sleep(100);
+            start = end;
+        }
+    }
+
+    private Request next() throws Exception {
+        Request request = received.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull("No request received", request);
+        return request;
+    }
+
+    private static String body(Request request) throws Exception {
+        return new String(request.getRawContent(), "UTF-8");
+    }
+
+    public void testPartialMessage() throws Exception {
+        Socket socket = connect();
+        try {
+            String message = options(1, "hello world");
+            int headersEnd = message.indexOf("\r\n\r\n");
+            writeSplit(socket.getOutputStream(), message, 10, message.indexOf("Call-ID") + 3,
+                    headersEnd + 1, headersEnd + 3, headersEnd + 6);
+            Request request = next();
+            assertEquals(Request.OPTIONS, request.getMethod());
+            assertEquals("hello world", body(request));
+            assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+        } finally {
+            socket.close();
+        }
+    }
+
+    public void testCoalescedMessages() throws Exception {
+        Socket socket = connect();
+        try {
+            String messages = "\r\n\r\n" + options(1, "first") + options(2, "") + "\r\n\r\n"
+                    + options(3, "third");
+            writeSplit(socket.getOutputStream(), messages);
+            assertEquals("first", body(next()));
+            Request second = next();
+            assertEquals("options-2@127.0.0.1", second.getHeader("Call-ID").toString()
+                    .substring(9).trim());
+            assertEquals("third", body(next()));
+        } finally {
+            socket.close();
+        }
+    }
+
+    public void testContentLengthAcrossReads() throws Exception {
+        Socket socket = connect();
+        try {
+            String body = "0123456789abcdef";
+            String message = options(1, body);
+            int length = message.indexOf("Content-Length:");
+            int headersEnd = message.indexOf("\r\n\r\n");
+            writeSplit(socket.getOutputStream(), message + options(2, "next"), length + 10,
+                    length + 17, headersEnd + 4 + 5, message.length() + 20);
+            assertEquals(body, body(next()));
+            assertEquals("next", body(next()));
+        } finally {
+            socket.close();
+        }
+    }
+
+    public void testReconnect() throws Exception {
+        Socket socket = connect();
+        writeSplit(socket.getOutputStream(), options(1, "first"));
+        assertEquals("first", body(next()));
+        socket.close();
+
+        socket = connect();
+        try {
+            writeSplit(socket.getOutputStream(), options(2, "second"));
+            assertEquals("second", body(next()));
+        } finally {
+            socket.close();
+        }
+    }
+
+    private String outgoing(int peerPort, int cseq) {
+        return "MESSAGE sip:bob@" + LOCALHOST + ":" + peerPort + ";transport=tcp SIP/2.0\r\n"
+                + "Via: SIP/2.0/TCP " + LOCALHOST + ":" + port + ";branch=z9hG4bK-out" + cseq + "\r\n"
+                + "Max-Forwards: 70\r\n"
+                + "From: <sip:alice@127.0.0.1>;tag=1234\r\n"
+                + "To: <sip:bob@127.0.0.1>\r\n"
+                + "Call-ID: outgoing@127.0.0.1\r\n"
+                + "CSeq: " + cseq + " MESSAGE\r\n"
+                + "Content-Length: 0\r\n\r\n";
+    }
+
+    private static String readMessage(Socket socket) throws Exception {
+        socket.setSoTimeout(TIMEOUT);
+        InputStream in = socket.getInputStream();
+        StringBuffer message = new StringBuffer();
+        while (message.indexOf("\r\n\r\n") < 0) {
+            int c = in.read();
+            assertTrue("Connection closed", c >= 0);
+            message.append((char) c);
+        }
+        return message.toString();
+    }
+
+    public void testOutgoingReconnect() throws Exception {
+        ServerSocket peer = new ServerSocket(0, 1, InetAddress.getByName(LOCALHOST));
+        try {
+            peer.setSoTimeout(TIMEOUT);
+            int peerPort = peer.getLocalPort();
+            sipProvider.sendRequest((SIPRequest) new StringMsgParser().parseSIPMessage(outgoing(
+                    peerPort, 1)));
+            Socket connection = peer.accept();
+            assertTrue(readMessage(connection).contains("CSeq: 1 MESSAGE"));
+
+            // The peer closes the connection, the next message opens a new one
+            connection.close();
+            Thread.sleep(200);
+            sipProvider.sendRequest((SIPRequest) new StringMsgParser().parseSIPMessage(outgoing(
+                    peerPort, 2)));
+            connection = peer.accept();
+            try {
+                assertTrue(readMessage(connection).contains("CSeq: 2 MESSAGE"));
+            } finally {
+                connection.close();
+            }
+        } finally {
+            peer.close();
+        }
+    }
+}
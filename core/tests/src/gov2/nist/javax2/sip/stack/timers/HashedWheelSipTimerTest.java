@@ -0,0 +1,148 @@
+/*
+ * This source code has been contributed to the public domain.
+ */
+
+package gov2.nist.javax2.sip.stack.timers;
+
+import gov2.nist.javax2.sip.stack.SIPStackTimerTask;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests of the hashed timing wheel, run against the real clock with delays
+ * of a few ticks.
+ *
+ */
+public class HashedWheelSipTimerTest extends TestCase {
+
+    // / Max lateness allowed, the wheel fires on tick boundaries
+    private static final long TOLERANCE = 4 * HashedWheelSipTimer.TICK_DURATION + 100;
+
+    private HashedWheelSipTimer timer;
+
+    /**
+     * Task recording when it has been run.
+     */
+    private static class RecordingTask extends SIPStackTimerTask {
+        final long scheduled = System.nanoTime();
+
+        final long delay;
+
+        final CountDownLatch done;
+
+        final AtomicInteger runs = new AtomicInteger(0);
+
+        volatile long elapsed = -1;
+
+        RecordingTask(long delay, CountDownLatch done) {
+            this.delay = delay;
+            this.done = done;
+        }
+
+        protected void runTask() {
+            if (runs.incrementAndGet() == 1) {
+                elapsed = (System.nanoTime() - scheduled) / 1000000L;
+            }
+            if (done != null)
+                done.countDown();
+        }
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        timer = new HashedWheelSipTimer();
+        timer.start(null);
+    }
+
+    protected void tearDown() throws Exception {
+        timer.stop();
+        super.tearDown();
+    }
+
+    public void testTaskRunsAfterItsDelay() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        RecordingTask task = new RecordingTask(300, done);
+        assertTrue(timer.schedule(task, task.delay));
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue("run early: " + task.elapsed, task.elapsed >= task.delay);
+        assertTrue("run late: " + task.elapsed, task.elapsed <= task.delay + TOLERANCE);
+        assertEquals(0, timer.size());
+
+        // A task which has been run can no longer be cancelled
+        assertFalse(task.cancel());
+    }
+
+    public void testZeroDelayRunsOnNextTick() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        RecordingTask task = new RecordingTask(0, done);
+        assertTrue(timer.schedule(task, 0));
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    public void testCancelledTaskIsNotRun() throws InterruptedException {
+        RecordingTask task = new RecordingTask(200, null);
+        timer.schedule(task, task.delay);
+        assertEquals(1, timer.size());
+        assertTrue(task.cancel());
+        assertFalse(task.cancel());
+        assertEquals(0, timer.size());
+        Thread.sleep(400);
+        assertEquals(0, task.runs.get());
+    }
+
+    public void testPeriodicTaskRunsUntilCancelled() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(4);
+        RecordingTask task = new RecordingTask(100, done);
+        timer.scheduleWithFixedDelay(task, 100, 100);
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(task.cancel());
+        int runs = task.runs.get();
+        Thread.sleep(300);
+        assertTrue(task.runs.get() <= runs + 1);
+        assertEquals(0, timer.size());
+    }
+
+    public void testManyTasksNoneEarlyNoneMissed() throws InterruptedException {
+        int nbTasks = 20000;
+        Random random = new Random(11);
+        RecordingTask[] tasks = new RecordingTask[nbTasks];
+        boolean[] cancelled = new boolean[nbTasks];
+        CountDownLatch done = new CountDownLatch(nbTasks / 2);
+        for (int i = 0; i < nbTasks; i++) {
+            // Even tasks are kept, odd ones are cancelled
+            tasks[i] = new RecordingTask(random.nextInt(800), (i % 2 == 0) ? done : null);
+            timer.schedule(tasks[i], tasks[i].delay);
+        }
+        for (int i = 1; i < nbTasks; i += 2) {
+            cancelled[i] = tasks[i].cancel();
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(TOLERANCE);
+        for (int i = 0; i < nbTasks; i++) {
+            if (i % 2 == 0) {
+                assertEquals(1, tasks[i].runs.get());
+                assertTrue("run early: " + tasks[i].elapsed + " < " + tasks[i].delay,
+                        tasks[i].elapsed >= tasks[i].delay);
+            } else if (cancelled[i]) {
+                assertEquals(0, tasks[i].runs.get());
+            }
+        }
+        assertEquals(0, timer.size());
+    }
+
+    public void testStopDiscardsPendingTasks() throws InterruptedException {
+        RecordingTask task = new RecordingTask(200, null);
+        timer.schedule(task, task.delay);
+        timer.stop();
+        assertFalse(timer.isStarted());
+        assertEquals(0, timer.size());
+        assertFalse(timer.schedule(new RecordingTask(0, null), 0));
+        Thread.sleep(400);
+        assertEquals(0, task.runs.get());
+    }
+}